@@ -109,6 +109,31 @@ sourceSets {
     }
 }
 
+// --- JMH micro-benchmarks (src/jmh/java) ---
+// Run: ./gradlew jmh [-Pjmh.include=<regex>] [-Pjmh.prof=gc]
+val jmhVersion = "1.37"
+val jmh: SourceSet = sourceSets.create("jmh") {
+    java {
+        srcDirs("src/jmh/java")
+    }
+    compileClasspath += sourceSets["main"].output + sourceSets["main"].compileClasspath
+    runtimeClasspath += output + compileClasspath + sourceSets["main"].runtimeClasspath
+}
+
+dependencies {
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:$jmhVersion")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:$jmhVersion")
+}
+
+tasks.register<JavaExec>("jmh") {
+    group = "benchmark"
+    description = "Runs JMH benchmarks from src/jmh/java."
+    classpath = jmh.runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    (findProperty("jmh.include") as String?)?.let { args(it) }
+    (findProperty("jmh.prof") as String?)?.let { args("-prof", it) }
+}
+
 // Spring Boot main class
 springBoot {
     mainClass.set("com.example.lms.LmsApplication")
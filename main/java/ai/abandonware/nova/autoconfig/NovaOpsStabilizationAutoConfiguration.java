@@ -12,14 +12,17 @@ import ai.abandonware.nova.boot.reactor.NovaReactorDroppedErrorHook;
 import ai.abandonware.nova.orch.aop.HybridWebSearchEmptyFallbackAspect;
 import ai.abandonware.nova.orch.failpattern.FailurePatternOrchestrator;
 import ai.abandonware.nova.orch.aop.ProviderRateLimitBackoffAspect;
+import ai.abandonware.nova.orch.aop.WebSearchCoalescingAspect;
 import ai.abandonware.nova.orch.web.brave.BraveRateLimitState;
 import ai.abandonware.nova.orch.web.RateLimitBackoffCoordinator;
+import ai.abandonware.nova.orch.web.WebSearchCoalescer;
 import com.example.lms.cfvm.CfvmFailureRecoveryHandler;
 import com.example.lms.debug.DebugEventStore;
 import com.example.lms.infra.resilience.FaultMaskingLayerMonitor;
 import com.example.lms.infra.resilience.NightmareBreaker;
 import com.example.lms.service.NaverSearchService;
 import com.example.lms.service.web.BraveSearchService;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
@@ -154,4 +157,21 @@ public class NovaOpsStabilizationAutoConfiguration {
             BraveRateLimitState braveRateLimitState) {
         return new ProviderRateLimitBackoffAspect(backoffCoordinator, braveRateLimitState);
     }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = "nova.orch.web.coalesce.enabled", havingValue = "true", matchIfMissing = true)
+    public WebSearchCoalescer webSearchCoalescer(Environment env, ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        return new WebSearchCoalescer(
+                env.getProperty("nova.orch.web.coalesce.negative-ttl-ms", Long.class, 1500L),
+                env.getProperty("nova.orch.web.coalesce.negative-max-entries", Long.class, 2000L),
+                meterRegistryProvider.getIfAvailable());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "nova.orch.web.coalesce.enabled", havingValue = "true", matchIfMissing = true)
+    public WebSearchCoalescingAspect webSearchCoalescingAspect(WebSearchCoalescer coalescer, Environment env) {
+        return new WebSearchCoalescingAspect(coalescer, env.getProperty("nova.orch.web.coalesce.join-timeout-ms",
+                Long.class, WebSearchCoalescingAspect.DEFAULT_JOIN_TIMEOUT_MS));
+    }
 }
@@ -44,10 +44,17 @@ import ai.abandonware.nova.orch.aop.NightmareBreakerWebRateLimitPropagatorAspect
 import ai.abandonware.nova.orch.aop.ChunkRollingSummaryAspect;
 import ai.abandonware.nova.orch.aop.RollingSummaryHistoryAspect;
 import ai.abandonware.nova.orch.aop.ConversationBreadcrumbAspect;
+import ai.abandonware.nova.orch.aop.SemanticAnswerCacheAspect;
+import ai.abandonware.nova.orch.answercache.SemanticAnswerCache;
 import ai.abandonware.nova.orch.aop.UawTickTraceSeedAspect;
 import ai.abandonware.nova.orch.aop.RagCompressionAspect;
 import ai.abandonware.nova.orch.aop.NaverDomainProfileHatchAspect;
 import ai.abandonware.nova.orch.aop.WorkflowPlanMisrouteHatchAspect;
+import ai.abandonware.nova.orch.aop.chain.AdviceChain;
+import ai.abandonware.nova.orch.aop.chain.AspectChainEndpoint;
+import ai.abandonware.nova.orch.aop.chain.AspectChainProfiler;
+import ai.abandonware.nova.orch.aop.chain.AspectProfilingInstaller;
+import ai.abandonware.nova.orch.aop.chain.FusedAdviceAdvisor;
 import ai.abandonware.nova.orch.compress.AnchorProbeHandler;
 import ai.abandonware.nova.orch.compress.DynamicContextCompressor;
 import ai.abandonware.nova.orch.ecosystem.EcosystemBufferPool;
@@ -117,11 +124,13 @@ import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
 import org.springframework.core.env.Environment;
 
 @AutoConfiguration(afterName = {
@@ -238,7 +247,7 @@ public class NovaOrchestrationAutoConfiguration {
     }
 
     @Bean
-    @ConditionalOnProperty(name = "nova.orch.interrupt-hygiene.enabled", havingValue = "true", matchIfMissing = true)
+    @ConditionalOnExpression("'${nova.orch.interrupt-hygiene.enabled:true}' == 'true' && '${nova.orch.aop.fused.enabled:true}' != 'true'")
     public HybridWebSearchInterruptHygieneAspect hybridWebSearchInterruptHygieneAspect() {
         return new HybridWebSearchInterruptHygieneAspect();
     }
@@ -271,7 +280,7 @@ public class NovaOrchestrationAutoConfiguration {
     }
 
     @Bean
-    @ConditionalOnProperty(name = "nova.orch.brave.operational-gate.enabled", havingValue = "true", matchIfMissing = true)
+    @ConditionalOnExpression("'${nova.orch.brave.operational-gate.enabled:true}' == 'true' && '${nova.orch.aop.fused.enabled:true}' != 'true'")
     public BraveOperationalGateAspect braveOperationalGateAspect(
             ObjectProvider<com.example.lms.service.web.BraveSearchService> braveSearchServiceProvider,
             BraveRateLimitState braveRateLimitState,
@@ -279,6 +288,59 @@ public class NovaOrchestrationAutoConfiguration {
         return new BraveOperationalGateAspect(braveSearchServiceProvider, braveRateLimitState, env);
     }
 
+    @Bean
+    public AspectChainProfiler novaAspectChainProfiler(Environment env) {
+        return new AspectChainProfiler(env.getProperty("nova.orch.aop.profiler.enabled", Boolean.class, false));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "nova.orch.aop.profiler.enabled", havingValue = "true")
+    public AspectProfilingInstaller novaAspectProfilingInstaller(
+            org.springframework.beans.factory.ListableBeanFactory beanFactory,
+            AspectChainProfiler profiler) {
+        return new AspectProfilingInstaller(beanFactory, profiler);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "nova.orch.aop.profiler.enabled", havingValue = "true")
+    @ConditionalOnClass(name = "org.springframework.boot.actuate.endpoint.annotation.Endpoint")
+    public AspectChainEndpoint novaAspectChainEndpoint(AspectChainProfiler profiler) {
+        return new AspectChainEndpoint(profiler);
+    }
+
+    /**
+     * Interrupt hygiene (+5) and the Brave operational gate (+15) fused into one interceptor on
+     * HybridWebSearchProvider. Both only wrap {@code proceed()} on the caller thread, and nothing else
+     * is ordered between them, so running them from one advisor keeps the observable order.
+     */
+    @Bean
+    @ConditionalOnExpression("'${nova.orch.aop.fused.enabled:true}' == 'true' && ('${nova.orch.interrupt-hygiene.enabled:true}' == 'true' || '${nova.orch.brave.operational-gate.enabled:true}' == 'true')")
+    public FusedAdviceAdvisor novaWebSearchFusedAdvisor(
+            ObjectProvider<com.example.lms.service.web.BraveSearchService> braveSearchServiceProvider,
+            BraveRateLimitState braveRateLimitState,
+            AspectChainProfiler profiler,
+            Environment env) {
+        AdviceChain.Builder chain = AdviceChain.builder("hybridWebSearch").profiler(profiler);
+        int first = Ordered.HIGHEST_PRECEDENCE + 15;
+        if (env.getProperty("nova.orch.interrupt-hygiene.enabled", Boolean.class, true)) {
+            HybridWebSearchInterruptHygieneAspect hygiene = new HybridWebSearchInterruptHygieneAspect();
+            // original pointcut: execution(java.util.List ...search(..))
+            chain.add("HybridWebSearchInterruptHygieneAspect", Ordered.HIGHEST_PRECEDENCE + 5,
+                    m -> "search".equals(m.getName()) && java.util.List.class.equals(m.getReturnType()),
+                    hygiene::invoke);
+            first = Ordered.HIGHEST_PRECEDENCE + 5;
+        }
+        if (env.getProperty("nova.orch.brave.operational-gate.enabled", Boolean.class, true)) {
+            BraveOperationalGateAspect gate = new BraveOperationalGateAspect(
+                    braveSearchServiceProvider, braveRateLimitState, env);
+            chain.add("BraveOperationalGateAspect", Ordered.HIGHEST_PRECEDENCE + 15, gate::invoke);
+        }
+        return new FusedAdviceAdvisor(
+                "execution(* com.example.lms.search.provider.HybridWebSearchProvider.search(..))"
+                        + " || execution(* com.example.lms.search.provider.HybridWebSearchProvider.searchWithTrace(..))",
+                first, chain.build());
+    }
+
 
     @Bean
     @ConditionalOnProperty(prefix = "nova.orch.web-rate-limit-propagation", name = "enabled", havingValue = "true", matchIfMissing = true)
@@ -293,6 +355,37 @@ public class NovaOrchestrationAutoConfiguration {
         return new ConversationBreadcrumbAspect(props);
     }
 
+    @Bean
+    @ConditionalOnProperty(prefix = "nova.orch.answer-cache", name = "enabled", havingValue = "true")
+    @ConditionalOnBean(dev.langchain4j.model.embedding.EmbeddingModel.class)
+    public SemanticAnswerCache novaSemanticAnswerCache(
+            NovaOrchestrationProperties props,
+            dev.langchain4j.model.embedding.EmbeddingModel embeddingModel,
+            ObjectProvider<ChatHistoryService> historyServiceProvider,
+            ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        ChatHistoryService history = historyServiceProvider.getIfAvailable();
+        // the controller appends the user turn before continueChat, so "has history" means a prior answer
+        java.util.function.LongPredicate sessionHasHistory = (history == null)
+                ? null
+                : sessionId -> history.getLastAssistantMessage(sessionId).isPresent();
+        // same owner identity as ChatSessionAccessGuard: the administrator, else the anonymous owner key
+        java.util.function.LongFunction<String> sessionOwner = (history == null)
+                ? null
+                : sessionId -> history.findSessionWithoutMessages(sessionId)
+                        .map(session -> session.getAdministrator() != null
+                                ? "admin:" + session.getAdministrator().getUsername()
+                                : (session.getOwnerKey() == null ? null : "key:" + session.getOwnerKey()))
+                        .orElse(null);
+        return new SemanticAnswerCache(props.getAnswerCache(), embeddingModel, sessionHasHistory, sessionOwner,
+                meterRegistryProvider.getIfAvailable());
+    }
+
+    @Bean
+    @ConditionalOnBean(SemanticAnswerCache.class)
+    public SemanticAnswerCacheAspect semanticAnswerCacheAspect(SemanticAnswerCache novaSemanticAnswerCache) {
+        return new SemanticAnswerCacheAspect(novaSemanticAnswerCache);
+    }
+
     @Bean
     @ConditionalOnProperty(prefix = "nova.orch.chunking", name = "enabled", havingValue = "true", matchIfMissing = true)
     public RollingSummaryHistoryAspect rollingSummaryHistoryAspect(
@@ -614,7 +707,7 @@ public class NovaOrchestrationAutoConfiguration {
 
 
     @Bean
-    @org.springframework.boot.autoconfigure.condition.ConditionalOnExpression("'${uaw.autolearn.strict.enabled:false}' == 'true' && '${uaw.autolearn.pipeline.enabled:false}' == 'false'")
+    @ConditionalOnExpression("'${uaw.autolearn.strict.enabled:false}' == 'true' && '${uaw.autolearn.pipeline.enabled:false}' == 'false'")
     public UawAutolearnStrictRequestAspect uawAutolearnStrictRequestAspect(
             Environment env,
             ObjectProvider<NightmareBreaker> nightmareBreakerProvider) {
@@ -623,7 +716,7 @@ public class NovaOrchestrationAutoConfiguration {
 
     // DROP: UAW idle auto-training pipeline (preferred path).
     @Bean
-    @org.springframework.boot.autoconfigure.condition.ConditionalOnExpression("'${uaw.autolearn.strict.enabled:false}' == 'true' && '${uaw.autolearn.pipeline.enabled:true}' == 'true'")
+    @ConditionalOnExpression("'${uaw.autolearn.strict.enabled:false}' == 'true' && '${uaw.autolearn.pipeline.enabled:true}' == 'true'")
     public UawIdleAutoTrainingPipelineAspect uawIdleAutoTrainingPipelineAspect(
             Environment env,
             RuleBasedQueryAugmenter augmenter,
@@ -632,19 +725,40 @@ public class NovaOrchestrationAutoConfiguration {
     }
 
     @Bean
-    @ConditionalOnProperty(prefix = "uaw.autolearn.pipeline", name = "enabled", havingValue = "true", matchIfMissing = true)
+    @ConditionalOnExpression("'${uaw.autolearn.pipeline.enabled:true}' == 'true' && '${nova.orch.aop.fused.enabled:true}' != 'true'")
     public UawPipelineAblationBridge uawPipelineAblationBridge(Environment env) {
         return new UawPipelineAblationBridge(env);
     }
 
     @Bean
-    @ConditionalOnProperty(prefix = "uaw.autolearn.pipeline", name = "enabled", havingValue = "true", matchIfMissing = true)
+    @ConditionalOnExpression("'${uaw.autolearn.pipeline.enabled:true}' == 'true' && '${nova.orch.aop.fused.enabled:true}' != 'true'")
     public UawAblationFinalizeAspect uawAblationFinalizeAspect(
             Environment env,
             ObjectProvider<RagFailureBlackboxService> blackboxProvider) {
         return new UawAblationFinalizeAspect(env, blackboxProvider);
     }
 
+    /**
+     * Ablation finalize (+250) and the pipeline bridge (+260) fused on ChatWorkflow.continueChat; they are
+     * adjacent in the continueChat chain and both run inline around {@code proceed()}.
+     */
+    @Bean
+    @ConditionalOnExpression("'${uaw.autolearn.pipeline.enabled:true}' == 'true' && '${nova.orch.aop.fused.enabled:true}' == 'true'")
+    public FusedAdviceAdvisor novaContinueChatFusedAdvisor(
+            Environment env,
+            ObjectProvider<RagFailureBlackboxService> blackboxProvider,
+            AspectChainProfiler profiler) {
+        AdviceChain chain = AdviceChain.builder("continueChat")
+                .profiler(profiler)
+                .add("UawAblationFinalizeAspect", Ordered.HIGHEST_PRECEDENCE + 250,
+                        new UawAblationFinalizeAspect(env, blackboxProvider)::invoke)
+                .add("UawPipelineAblationBridge", Ordered.HIGHEST_PRECEDENCE + 260,
+                        new UawPipelineAblationBridge(env)::invoke)
+                .build();
+        return new FusedAdviceAdvisor("execution(* com.example.lms.service.ChatWorkflow.continueChat(..))",
+                Ordered.HIGHEST_PRECEDENCE + 250, chain);
+    }
+
     @Bean
     @ConditionalOnProperty(prefix = "uaw.autolearn.pipeline", name = "enabled", havingValue = "true", matchIfMissing = true)
     public FaultMaskAblationPenaltyAspect faultMaskAblationPenaltyAspect(Environment env) {
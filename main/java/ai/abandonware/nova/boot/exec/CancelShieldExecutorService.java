@@ -2,6 +2,7 @@ package ai.abandonware.nova.boot.exec;
 
 import com.example.lms.cfvm.CfvmFailureRecoveryHandler;
 import com.example.lms.debug.DebugEventStore;
+import com.example.lms.infra.exec.RequestContext;
 import com.example.lms.search.TraceStore;
 import com.example.lms.trace.SafeRedactor;
 
@@ -125,11 +126,12 @@ public final class CancelShieldExecutorService extends ContextPropagatingExecuto
 
         final BlockingQueue<NotifyingFutureTask<T>> doneQ = new LinkedBlockingQueue<>();
         final List<NotifyingFutureTask<T>> ftasks = new ArrayList<>(tasks.size());
+        final RequestContext ctx = captureContext();
         for (Callable<T> task : tasks) {
             if (task == null) {
                 throw new NullPointerException("task");
             }
-            ftasks.add(new NotifyingFutureTask<>(wrapCallable(task), doneQ));
+            ftasks.add(new NotifyingFutureTask<>(wrapCallable(task, ctx), doneQ));
         }
 
         final List<Future<T>> futures = new ArrayList<>(ftasks.size());
@@ -261,12 +263,13 @@ public final class CancelShieldExecutorService extends ContextPropagatingExecuto
         // not to submit all of them before the timeout expires.
         final BlockingQueue<NotifyingFutureTask<T>> doneQ = new LinkedBlockingQueue<>();
         final List<NotifyingFutureTask<T>> ftasks = new ArrayList<>(tasks.size());
+        final RequestContext ctx = captureContext();
         for (Callable<T> task : tasks) {
             if (task == null) {
                 throw new NullPointerException("task");
             }
             // Wrap for MDC/GuardContext/TraceStore propagation.
-            ftasks.add(new NotifyingFutureTask<>(wrapCallable(task), doneQ));
+            ftasks.add(new NotifyingFutureTask<>(wrapCallable(task, ctx), doneQ));
         }
 
         final List<Future<T>> futures = new ArrayList<>(ftasks.size());
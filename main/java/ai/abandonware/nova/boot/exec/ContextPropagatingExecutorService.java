@@ -1,6 +1,7 @@
 package ai.abandonware.nova.boot.exec;
 
 import com.example.lms.infra.exec.ContextPropagation;
+import com.example.lms.infra.exec.RequestContext;
 import com.example.lms.search.TraceStore;
 import com.example.lms.trace.SafeRedactor;
 
@@ -51,13 +52,31 @@ public class ContextPropagatingExecutorService implements ExecutorService {
         }
     }
 
+    /** Snapshot shared by a batch of tasks, or {@code null} when capturing failed (tasks then run unwrapped). */
+    protected RequestContext captureContext() {
+        try {
+            return RequestContext.capture();
+        } catch (Throwable propagationError) {
+            traceContextPropagationSkipped("capture", propagationError);
+            return null;
+        }
+    }
+
+    protected <T> Callable<T> wrapCallable(Callable<T> c, RequestContext ctx) {
+        if (c == null || ctx == null) {
+            return c;
+        }
+        return ctx.wrapCallable(c);
+    }
+
     protected <T> Collection<? extends Callable<T>> wrapAll(Collection<? extends Callable<T>> tasks) {
         if (tasks == null || tasks.isEmpty()) {
             return tasks;
         }
+        RequestContext ctx = captureContext();
         List<Callable<T>> out = new ArrayList<>(tasks.size());
         for (Callable<T> t : tasks) {
-            out.add(wrapCallable(t));
+            out.add(wrapCallable(t, ctx));
         }
         return out;
     }
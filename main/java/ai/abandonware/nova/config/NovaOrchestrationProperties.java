@@ -31,6 +31,9 @@ public class NovaOrchestrationProperties {
 
     private DegradedStorageProps degradedStorage = new DegradedStorageProps();
 
+    /** Semantic answer cache in front of ChatWorkflow. Disabled by default. */
+    private AnswerCacheProps answerCache = new AnswerCacheProps();
+
     public boolean isEnabled() {
         return enabled;
     }
@@ -104,6 +107,14 @@ public class NovaOrchestrationProperties {
         this.degradedStorage = degradedStorage;
     }
 
+    public AnswerCacheProps getAnswerCache() {
+        return answerCache;
+    }
+
+    public void setAnswerCache(AnswerCacheProps answerCache) {
+        this.answerCache = (answerCache == null) ? new AnswerCacheProps() : answerCache;
+    }
+
     public static class QueryTransformerProps {
         private boolean enabled = true;
         private boolean bypassOnStrike = true;
@@ -1120,4 +1131,123 @@ public class NovaOrchestrationProperties {
             }
         }
     }
+
+    /**
+     * Semantic answer cache knobs.
+     *
+     * <p>Repeated and near-duplicate first-turn questions are answered from a cached {@code ChatResult}
+     * when the query embedding is within {@code similarityThreshold} (cosine) of a cached one under the same
+     * model/policy fingerprint and freshness class. TTL is chosen by the freshness class of the query.</p>
+     */
+    public static class AnswerCacheProps {
+        private boolean enabled = false;
+        /** Minimum cosine similarity between normalized query embeddings for a hit. */
+        private double similarityThreshold = 0.92d;
+        /** Upper bound on cached answers across all fingerprints. */
+        private long maxEntries = 2000L;
+        /** Queries longer than this (after normalization) are never cached. */
+        private int maxQueryChars = 512;
+        /** LSH tables (bands) for the ANN lookup. */
+        private int lshTables = 4;
+        /** Hyperplane bits per LSH table. */
+        private int lshBits = 8;
+        /** TTL for news/price/"latest" style questions. */
+        private long volatileTtlSeconds = 300L;
+        /** TTL for everything that is neither volatile nor definitional. */
+        private long standardTtlSeconds = 3600L;
+        /** TTL for definitional questions ("X란?", "what is X"). */
+        private long stableTtlSeconds = 86400L;
+        /** Bump to invalidate every cached answer after a prompt/guard policy change. */
+        private String policyVersion = "v1";
+        /** Skip the cache when the chat session already has turns (answers may depend on them). */
+        private boolean bypassSessionWithHistory = true;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getSimilarityThreshold() {
+            return similarityThreshold;
+        }
+
+        public void setSimilarityThreshold(double similarityThreshold) {
+            this.similarityThreshold = similarityThreshold;
+        }
+
+        public long getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(long maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public int getMaxQueryChars() {
+            return maxQueryChars;
+        }
+
+        public void setMaxQueryChars(int maxQueryChars) {
+            this.maxQueryChars = maxQueryChars;
+        }
+
+        public int getLshTables() {
+            return lshTables;
+        }
+
+        public void setLshTables(int lshTables) {
+            this.lshTables = lshTables;
+        }
+
+        public int getLshBits() {
+            return lshBits;
+        }
+
+        public void setLshBits(int lshBits) {
+            this.lshBits = lshBits;
+        }
+
+        public long getVolatileTtlSeconds() {
+            return volatileTtlSeconds;
+        }
+
+        public void setVolatileTtlSeconds(long volatileTtlSeconds) {
+            this.volatileTtlSeconds = volatileTtlSeconds;
+        }
+
+        public long getStandardTtlSeconds() {
+            return standardTtlSeconds;
+        }
+
+        public void setStandardTtlSeconds(long standardTtlSeconds) {
+            this.standardTtlSeconds = standardTtlSeconds;
+        }
+
+        public long getStableTtlSeconds() {
+            return stableTtlSeconds;
+        }
+
+        public void setStableTtlSeconds(long stableTtlSeconds) {
+            this.stableTtlSeconds = stableTtlSeconds;
+        }
+
+        public String getPolicyVersion() {
+            return policyVersion;
+        }
+
+        public void setPolicyVersion(String policyVersion) {
+            this.policyVersion = policyVersion;
+        }
+
+        public boolean isBypassSessionWithHistory() {
+            return bypassSessionWithHistory;
+        }
+
+        public void setBypassSessionWithHistory(boolean bypassSessionWithHistory) {
+            this.bypassSessionWithHistory = bypassSessionWithHistory;
+        }
+    }
 }
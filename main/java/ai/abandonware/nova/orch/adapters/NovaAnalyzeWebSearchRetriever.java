@@ -1,6 +1,6 @@
 package ai.abandonware.nova.orch.adapters;
 
-import com.example.lms.infra.exec.ContextPropagation;
+import com.example.lms.infra.exec.RequestContext;
 import com.example.lms.search.policy.SearchPolicyDecision;
 import com.example.lms.search.policy.SearchPolicyEngine;
 import com.example.lms.search.provider.WebSearchProvider;
@@ -144,11 +144,13 @@ public class NovaAnalyzeWebSearchRetriever extends AnalyzeWebSearchRetriever imp
         }
 
         List<Callable<List<String>>> tasks = new ArrayList<>();
+        // One snapshot for the whole fan-out instead of one capture per planned query.
+        RequestContext requestContext = RequestContext.capture();
         for (String q : queries) {
             if (q == null || q.isBlank()) {
                 continue;
             }
-            tasks.add(ContextPropagation.wrapCallable(() -> {
+            tasks.add(requestContext.wrapCallable(() -> {
                 try {
                     return webSearchProvider.search(q, reqTopK);
                 } catch (Exception e) {
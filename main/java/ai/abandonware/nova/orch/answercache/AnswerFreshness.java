@@ -0,0 +1,45 @@
+package ai.abandonware.nova.orch.answercache;
+
+import com.example.lms.util.TextSignals;
+
+/**
+ * 질문이 기대하는 근거의 신선도 등급. 캐시 키의 일부이자 TTL 선택 기준이다.
+ *
+ * <ul>
+ *     <li>VOLATILE : 뉴스/시세/날씨/"최신" 류 - 몇 분 안에 답이 바뀔 수 있다.</li>
+ *     <li>STANDARD : 그 밖의 일반 질문.</li>
+ *     <li>STABLE   : 정의/개념 질문("X란?", "what is X") - 답이 거의 바뀌지 않는다.</li>
+ * </ul>
+ */
+public enum AnswerFreshness {
+    VOLATILE,
+    STANDARD,
+    STABLE;
+
+    private static final TextSignals.KeywordSet VOLATILE_HINTS = TextSignals.KeywordSet.of(
+            "뉴스", "속보", "오늘", "어제", "지금", "현재", "최신", "최근", "실시간", "이번주", "이번 주",
+            "주가", "시세", "환율", "날씨", "일정", "발표", "출시일", "패치", "업데이트",
+            "news", "today", "yesterday", "latest", "breaking", "current", "right now", "this week",
+            "price", "stock", "weather", "release date");
+
+    private static final TextSignals.KeywordSet STABLE_HINTS = TextSignals.KeywordSet.of(
+            "이란", "란?", "란 무엇", "뜻", "의미", "정의", "개념", "차이점", "원리", "뭐야", "무엇인가",
+            "what is", "what are", "define", "definition", "meaning of", "difference between", "explain");
+
+    /**
+     * 정규화된 질문으로 등급을 고른다. 변동성 신호가 정의 신호보다 우선한다
+     * ("오늘 환율이란?" 은 VOLATILE).
+     */
+    public static AnswerFreshness classify(String query) {
+        if (query == null || query.isBlank()) {
+            return STANDARD;
+        }
+        if (VOLATILE_HINTS.containsAny(query)) {
+            return VOLATILE;
+        }
+        if (STABLE_HINTS.containsAny(query)) {
+            return STABLE;
+        }
+        return STANDARD;
+    }
+}
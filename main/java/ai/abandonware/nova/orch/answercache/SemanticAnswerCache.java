@@ -0,0 +1,615 @@
+package ai.abandonware.nova.orch.answercache;
+
+import ai.abandonware.nova.config.NovaOrchestrationProperties;
+import com.example.lms.dto.ChatRequestDto;
+import com.example.lms.service.ChatResult;
+import com.example.lms.trace.SafeRedactor;
+import com.example.lms.util.TextSignals;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Ticker;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.Nullable;
+
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongFunction;
+import java.util.function.LongPredicate;
+
+/**
+ * Semantic answer cache for first-turn questions.
+ *
+ * <p>Answers are grouped into buckets by the owner of the chat session, a model/policy fingerprint and the
+ * {@link AnswerFreshness} class of the question, so a cached answer is only reused for the same owner (or,
+ * when the owner is unknown, the same session) under the same model, retrieval switches, guard profile and
+ * freshness expectations. Requests without a session bypass the cache. Inside a bucket the lookup is:</p>
+ * <ol>
+ *     <li>exact match on the normalized query text (no embedding call), then</li>
+ *     <li>an approximate nearest-neighbour probe: random-hyperplane LSH over the unit-normalized query
+ *     embedding ({@code lshTables} tables of {@code lshBits} bits, multi-probed at Hamming distance 1),
+ *     with candidates confirmed by exact cosine &ge; {@code similarityThreshold}.</li>
+ * </ol>
+ *
+ * <p>Entries expire by freshness class (news minutes, definitions a day) and the whole cache is bounded by
+ * {@code maxEntries}. Requests carrying session-specific context (history, system prompt, attachments,
+ * images, or a session that already has turns) bypass the cache entirely. Every hit hands out its own
+ * copy of the cached {@link ChatResult}.</p>
+ */
+public class SemanticAnswerCache {
+
+    private static final Logger log = LoggerFactory.getLogger(SemanticAnswerCache.class);
+
+    static final String METRIC_LOOKUPS = "nova.answer_cache.lookups";
+    static final String METRIC_SAVED_LATENCY = "nova.answer_cache.saved_latency";
+    static final String METRIC_LOOKUP_LATENCY = "nova.answer_cache.lookup_latency";
+    static final String METRIC_HIT_RATIO = "nova.answer_cache.hit_ratio";
+    static final String METRIC_SIZE = "nova.answer_cache.size";
+
+    private static final long HYPERPLANE_SEED = 0x5EEDCAFEL;
+
+    private final NovaOrchestrationProperties.AnswerCacheProps props;
+    private final EmbeddingModel embeddingModel;
+    private final LongPredicate sessionHasHistory;
+    private final LongFunction<String> sessionOwner;
+    @Nullable
+    private final MeterRegistry meterRegistry;
+    @Nullable
+    private final Timer savedLatency;
+    @Nullable
+    private final Timer lookupLatency;
+
+    private final Cache<Long, Entry> entries;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+    private volatile Hyperplanes planes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder bypasses = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+    private final LongAdder savedNanos = new LongAdder();
+
+    /**
+     * @param sessionOwner owner identity of a chat session (user or owner key); when it is absent or yields
+     *                     nothing, answers are shared only within the session itself
+     */
+    public SemanticAnswerCache(NovaOrchestrationProperties.AnswerCacheProps props,
+            EmbeddingModel embeddingModel,
+            @Nullable LongPredicate sessionHasHistory,
+            @Nullable LongFunction<String> sessionOwner,
+            @Nullable MeterRegistry meterRegistry) {
+        this(props, embeddingModel, sessionHasHistory, sessionOwner, meterRegistry, Ticker.systemTicker());
+    }
+
+    SemanticAnswerCache(NovaOrchestrationProperties.AnswerCacheProps props,
+            EmbeddingModel embeddingModel,
+            @Nullable LongPredicate sessionHasHistory,
+            @Nullable LongFunction<String> sessionOwner,
+            @Nullable MeterRegistry meterRegistry,
+            Ticker ticker) {
+        this.props = (props == null) ? new NovaOrchestrationProperties.AnswerCacheProps() : props;
+        this.embeddingModel = embeddingModel;
+        this.sessionHasHistory = (sessionHasHistory == null) ? sessionId -> false : sessionHasHistory;
+        this.sessionOwner = (sessionOwner == null) ? sessionId -> null : sessionOwner;
+        this.meterRegistry = meterRegistry;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(Math.max(1L, this.props.getMaxEntries()))
+                .expireAfter(new FreshnessExpiry(this.props))
+                .ticker(ticker)
+                // unindex synchronously so an evicted id is never probed after its bucket slot is reused
+                .executor(Runnable::run)
+                .removalListener((Long id, Entry e, RemovalCause cause) -> unindex(e))
+                .build();
+        if (meterRegistry != null) {
+            this.savedLatency = Timer.builder(METRIC_SAVED_LATENCY).register(meterRegistry);
+            this.lookupLatency = Timer.builder(METRIC_LOOKUP_LATENCY).register(meterRegistry);
+            Gauge.builder(METRIC_HIT_RATIO, this, c -> c.stats().hitRatio()).register(meterRegistry);
+            Gauge.builder(METRIC_SIZE, entries, c -> c.estimatedSize()).register(meterRegistry);
+        } else {
+            this.savedLatency = null;
+            this.lookupLatency = null;
+        }
+    }
+
+    /**
+     * Resolve the cache decision for {@code req}. The returned lookup is either bypassed, a hit
+     * (serve {@link Lookup#hit()}), or a miss that should be handed back to {@link #put} once the
+     * workflow has produced an answer.
+     */
+    public Lookup lookup(ChatRequestDto req) {
+        long started = System.nanoTime();
+        String reason = bypassReason(req);
+        if (reason != null) {
+            return bypass(reason);
+        }
+        String query = req.getMessage();
+        String normalized = normalize(query);
+        if (normalized.isEmpty() || normalized.length() > props.getMaxQueryChars()) {
+            return bypass("query_length");
+        }
+        if (req.getSessionId() == null) {
+            return bypass("no_owner");
+        }
+        String scope;
+        try {
+            scope = ownerScope(req.getSessionId());
+        } catch (RuntimeException e) {
+            log.debug("[AnswerCache] session owner probe failed. sessionHash={} errorHash={} errorLength={}",
+                    SafeRedactor.hashValue(String.valueOf(req.getSessionId())),
+                    SafeRedactor.hashValue(messageOf(e)), messageLength(e));
+            return bypass("owner_probe_failed");
+        }
+        AnswerFreshness freshness = AnswerFreshness.classify(TextSignals.collapseWhitespace(query));
+        String bucketKey = scope + "|" + fingerprint(req) + "|" + freshness.name();
+        Bucket bucket = buckets.get(bucketKey);
+
+        if (bucket != null) {
+            Long exactId = bucket.exact.get(normalized);
+            Entry exact = (exactId == null) ? null : entries.getIfPresent(exactId);
+            if (exact != null) {
+                return hit(new Lookup(null, bucketKey, freshness, normalized, exact.vector), exact, 1.0d, started);
+            }
+        }
+
+        float[] vector;
+        try {
+            vector = embed(normalized);
+        } catch (RuntimeException e) {
+            log.debug("[AnswerCache] embedding failed, bypassing. errorHash={} errorLength={}",
+                    SafeRedactor.hashValue(messageOf(e)), messageLength(e));
+            return bypass("embed_failed");
+        }
+        if (vector == null) {
+            return bypass("embed_empty");
+        }
+        Lookup lookup = new Lookup(null, bucketKey, freshness, normalized, vector);
+        Hyperplanes hp = hyperplanes(vector.length);
+        if (bucket != null) {
+            Entry best = null;
+            double bestSim = props.getSimilarityThreshold();
+            for (long id : bucket.candidates(hp.signatures(vector), hp.bits)) {
+                Entry e = entries.getIfPresent(id);
+                if (e == null || e.vector.length != vector.length) {
+                    continue;
+                }
+                double sim = dot(vector, e.vector);
+                if (sim >= bestSim) {
+                    best = e;
+                    bestSim = sim;
+                }
+            }
+            if (best != null) {
+                return hit(lookup, best, bestSim, started);
+            }
+        }
+        misses.increment();
+        count("miss", "none");
+        recordLookupLatency(started);
+        return lookup;
+    }
+
+    /**
+     * Cache the answer produced for a missed lookup. Empty and degraded (evidence-only fallback) answers
+     * are not cached.
+     */
+    public void put(Lookup lookup, ChatResult result, long computeNanos) {
+        if (lookup == null || lookup.isBypassed() || lookup.hit() != null || lookup.vector == null) {
+            return;
+        }
+        if (!isCacheable(result)) {
+            return;
+        }
+        Hyperplanes hp = hyperplanes(lookup.vector.length);
+        int[] sigs = hp.signatures(lookup.vector);
+        Bucket bucket = buckets.computeIfAbsent(lookup.bucketKey, k -> new Bucket(props.getLshTables()));
+        long id = ids.incrementAndGet();
+        Entry e = new Entry(id, lookup.bucketKey, lookup.freshness, lookup.normalizedQuery,
+                lookup.vector, sigs, copyOf(result), Math.max(0L, computeNanos));
+        Long previous = bucket.exact.put(lookup.normalizedQuery, id);
+        bucket.index(id, sigs);
+        entries.put(id, e);
+        if (previous != null) {
+            entries.invalidate(previous);
+        }
+        stores.increment();
+    }
+
+    /** Records a request that never reached {@link #lookup} (e.g. the aspect skipped it up front). */
+    public void recordBypass(String reason) {
+        bypasses.increment();
+        count("bypass", reason);
+    }
+
+    public void invalidateAll() {
+        entries.invalidateAll();
+        entries.cleanUp();
+        buckets.clear();
+    }
+
+    public Stats stats() {
+        entries.cleanUp();
+        return new Stats(hits.sum(), misses.sum(), bypasses.sum(), stores.sum(),
+                savedNanos.sum(), entries.estimatedSize());
+    }
+
+    /** Why this request must not be served from (or stored in) the cache, or {@code null}. */
+    String bypassReason(ChatRequestDto req) {
+        if (req == null || req.getMessage() == null || req.getMessage().isBlank()) {
+            return "no_query";
+        }
+        if (req.getSystemPrompt() != null && !req.getSystemPrompt().isBlank()) {
+            return "system_prompt";
+        }
+        if (req.getHistory() != null && !req.getHistory().isEmpty()) {
+            return "history";
+        }
+        if ((req.getImageBase64() != null && !req.getImageBase64().isBlank())
+                || (req.getAttachmentIds() != null && !req.getAttachmentIds().isEmpty())) {
+            return "attachments";
+        }
+        if (props.isBypassSessionWithHistory() && req.getSessionId() != null) {
+            try {
+                if (sessionHasHistory.test(req.getSessionId())) {
+                    return "session_history";
+                }
+            } catch (RuntimeException e) {
+                log.debug("[AnswerCache] session history probe failed. sessionHash={} errorHash={} errorLength={}",
+                        SafeRedactor.hashValue(String.valueOf(req.getSessionId())),
+                        SafeRedactor.hashValue(messageOf(e)), messageLength(e));
+                return "session_probe_failed";
+            }
+        }
+        return null;
+    }
+
+    /** Who may share an answer: the session's owner, or the session alone when the owner is unknown. */
+    String ownerScope(long sessionId) {
+        String owner = sessionOwner.apply(sessionId);
+        return (owner == null || owner.isBlank()) ? "session:" + sessionId : "owner:" + owner;
+    }
+
+    /** Model/policy fingerprint: everything besides the question that shapes the answer. */
+    String fingerprint(ChatRequestDto req) {
+        StringBuilder sb = new StringBuilder(96);
+        sb.append(props.getPolicyVersion())
+                .append('|').append(lower(req.getModel()))
+                .append('|').append(lower(req.getMode()))
+                .append('|').append(lower(req.getProfile()))
+                .append('|').append(lower(req.getGuardLevel()))
+                .append('|').append(req.isUseRag() ? 'R' : '-')
+                .append(req.isUseWebSearch() ? 'W' : '-')
+                .append(Boolean.TRUE.equals(req.getOfficialSourcesOnly()) ? 'O' : '-')
+                .append(Boolean.TRUE.equals(req.getPrecisionSearch()) ? 'P' : '-')
+                .append(req.isPolish() ? 'L' : '-')
+                .append('|').append(req.getSearchMode())
+                .append('|').append(req.getWebTopK())
+                .append('|').append(lower(req.getDomainProfile()));
+        List<String> providers = req.getWebProviders();
+        if (providers != null && req.isUseWebSearch()) {
+            sb.append('|');
+            providers.stream().map(SemanticAnswerCache::lower).sorted().forEach(p -> sb.append(p).append(','));
+        }
+        return sb.toString();
+    }
+
+    /** Lower-case, punctuation folded to spaces, whitespace collapsed. */
+    static String normalize(String query) {
+        if (query == null) {
+            return "";
+        }
+        String s = query.toLowerCase(Locale.ROOT);
+        s = TextSignals.PUNCT_RUN.matcher(s).replaceAll(" ");
+        s = TextSignals.collapseWhitespace(s);
+        return s.strip();
+    }
+
+    static boolean isCacheable(ChatResult result) {
+        if (result == null || result.content() == null || result.content().isBlank()) {
+            return false;
+        }
+        String modelUsed = result.modelUsed();
+        if (modelUsed != null && modelUsed.toLowerCase(Locale.ROOT).contains("fallback")) {
+            return false;
+        }
+        return !result.content().startsWith("※ [DEGRADED MODE]");
+    }
+
+    private Lookup bypass(String reason) {
+        bypasses.increment();
+        count("bypass", reason);
+        return new Lookup(reason, null, null, null, null);
+    }
+
+    private Lookup hit(Lookup lookup, Entry e, double similarity, long started) {
+        long lookupNanos = System.nanoTime() - started;
+        long saved = Math.max(0L, e.computeNanos - lookupNanos);
+        hits.increment();
+        savedNanos.add(saved);
+        count("hit", e.freshness.name());
+        if (savedLatency != null) {
+            savedLatency.record(saved, TimeUnit.NANOSECONDS);
+        }
+        recordLookupLatency(started);
+        lookup.hit = new Hit(copyOf(e.result), similarity, e.freshness, saved);
+        return lookup;
+    }
+
+    /** Callers may mutate the evidence set they get back; the cached answer keeps its own. */
+    private static ChatResult copyOf(ChatResult r) {
+        return new ChatResult(r.content(), r.modelUsed(), r.ragUsed(), new LinkedHashSet<>(r.evidence()),
+                r.evidenceMetadata());
+    }
+
+    private void recordLookupLatency(long started) {
+        if (lookupLatency != null) {
+            lookupLatency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void count(String outcome, String detail) {
+        if (meterRegistry == null) {
+            return;
+        }
+        meterRegistry.counter(METRIC_LOOKUPS, "outcome", outcome, "detail", detail).increment();
+    }
+
+    private float[] embed(String normalized) {
+        Response<Embedding> r = embeddingModel.embed(normalized);
+        if (r == null || r.content() == null) {
+            return null;
+        }
+        float[] v = r.content().vector();
+        if (v == null || v.length == 0) {
+            return null;
+        }
+        double norm = 0.0d;
+        for (float x : v) {
+            norm += (double) x * x;
+        }
+        if (norm == 0.0d) {
+            return null;
+        }
+        float inv = (float) (1.0d / Math.sqrt(norm));
+        float[] unit = new float[v.length];
+        for (int i = 0; i < v.length; i++) {
+            unit[i] = v[i] * inv;
+        }
+        return unit;
+    }
+
+    private Hyperplanes hyperplanes(int dim) {
+        Hyperplanes hp = planes;
+        if (hp != null && hp.dim == dim) {
+            return hp;
+        }
+        synchronized (this) {
+            hp = planes;
+            if (hp == null || hp.dim != dim) {
+                if (hp != null) {
+                    // embedding model swapped: old vectors live in another space
+                    invalidateAll();
+                }
+                hp = new Hyperplanes(dim, Math.max(1, props.getLshTables()),
+                        Math.max(1, Math.min(30, props.getLshBits())));
+                planes = hp;
+            }
+            return hp;
+        }
+    }
+
+    private void unindex(Entry e) {
+        if (e == null) {
+            return;
+        }
+        Bucket bucket = buckets.get(e.bucketKey);
+        if (bucket == null) {
+            return;
+        }
+        bucket.exact.remove(e.normalizedQuery, e.id);
+        bucket.unindex(e.id, e.signatures);
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double s = 0.0d;
+        for (int i = 0; i < a.length; i++) {
+            s += (double) a[i] * b[i];
+        }
+        return s;
+    }
+
+    private static String lower(String s) {
+        return (s == null) ? "" : s.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String messageOf(Throwable t) {
+        return t == null ? null : t.getMessage();
+    }
+
+    private static int messageLength(Throwable t) {
+        String msg = messageOf(t);
+        return msg == null ? 0 : msg.length();
+    }
+
+    /** Outcome of {@link #lookup}; hand misses back to {@link #put}. */
+    public static final class Lookup {
+        private final String bypassReason;
+        private final String bucketKey;
+        private final AnswerFreshness freshness;
+        private final String normalizedQuery;
+        private final float[] vector;
+        private Hit hit;
+
+        private Lookup(String bypassReason, String bucketKey, AnswerFreshness freshness,
+                String normalizedQuery, float[] vector) {
+            this.bypassReason = bypassReason;
+            this.bucketKey = bucketKey;
+            this.freshness = freshness;
+            this.normalizedQuery = normalizedQuery;
+            this.vector = vector;
+        }
+
+        public boolean isBypassed() {
+            return bypassReason != null;
+        }
+
+        public String bypassReason() {
+            return bypassReason;
+        }
+
+        public AnswerFreshness freshness() {
+            return freshness;
+        }
+
+        @Nullable
+        public Hit hit() {
+            return hit;
+        }
+    }
+
+    public record Hit(ChatResult result, double similarity, AnswerFreshness freshness, long savedNanos) {
+    }
+
+    public record Stats(long hits, long misses, long bypasses, long stores, long savedNanos, long size) {
+        public double hitRatio() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0.0d : (double) hits / lookups;
+        }
+    }
+
+    private record Entry(long id, String bucketKey, AnswerFreshness freshness, String normalizedQuery,
+            float[] vector, int[] signatures, ChatResult result, long computeNanos) {
+    }
+
+    /** Per-fingerprint index: exact normalized text plus one id set per (table, signature). */
+    private static final class Bucket {
+        final Map<String, Long> exact = new ConcurrentHashMap<>();
+        final Map<Integer, Set<Long>>[] tables;
+
+        @SuppressWarnings("unchecked")
+        Bucket(int tableCount) {
+            tables = new Map[Math.max(1, tableCount)];
+            for (int t = 0; t < tables.length; t++) {
+                tables[t] = new ConcurrentHashMap<>();
+            }
+        }
+
+        void index(long id, int[] sigs) {
+            for (int t = 0; t < tables.length && t < sigs.length; t++) {
+                tables[t].computeIfAbsent(sigs[t], k -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+        }
+
+        void unindex(long id, int[] sigs) {
+            for (int t = 0; t < tables.length && t < sigs.length; t++) {
+                tables[t].computeIfPresent(sigs[t], (k, ids) -> {
+                    ids.remove(id);
+                    return ids.isEmpty() ? null : ids;
+                });
+            }
+        }
+
+        /** Multi-probe: each table's own signature and every signature one bit away. */
+        Set<Long> candidates(int[] sigs, int bits) {
+            Set<Long> out = new HashSet<>();
+            for (int t = 0; t < tables.length && t < sigs.length; t++) {
+                Map<Integer, Set<Long>> table = tables[t];
+                if (table.isEmpty()) {
+                    continue;
+                }
+                addAll(out, table.get(sigs[t]));
+                for (int bit = 0; bit < bits; bit++) {
+                    addAll(out, table.get(sigs[t] ^ (1 << bit)));
+                }
+            }
+            return out;
+        }
+
+        private static void addAll(Set<Long> out, Set<Long> ids) {
+            if (ids != null) {
+                out.addAll(ids);
+            }
+        }
+    }
+
+    /** Seeded Gaussian hyperplanes; deterministic so signatures are stable across restarts. */
+    private static final class Hyperplanes {
+        final int dim;
+        final int bits;
+        final float[][][] planes;
+
+        Hyperplanes(int dim, int tableCount, int bits) {
+            this.dim = dim;
+            this.bits = bits;
+            this.planes = new float[tableCount][bits][dim];
+            Random rnd = new Random(HYPERPLANE_SEED);
+            for (float[][] table : planes) {
+                for (float[] plane : table) {
+                    for (int i = 0; i < dim; i++) {
+                        plane[i] = (float) rnd.nextGaussian();
+                    }
+                }
+            }
+        }
+
+        int[] signatures(float[] v) {
+            int[] sigs = new int[planes.length];
+            for (int t = 0; t < planes.length; t++) {
+                int sig = 0;
+                for (int b = 0; b < bits; b++) {
+                    if (dot(planes[t][b], v) >= 0.0d) {
+                        sig |= 1 << b;
+                    }
+                }
+                sigs[t] = sig;
+            }
+            return sigs;
+        }
+    }
+
+    private static final class FreshnessExpiry implements Expiry<Long, Entry> {
+        private final NovaOrchestrationProperties.AnswerCacheProps props;
+
+        FreshnessExpiry(NovaOrchestrationProperties.AnswerCacheProps props) {
+            this.props = props;
+        }
+
+        @Override
+        public long expireAfterCreate(Long key, Entry value, long currentTime) {
+            long seconds = switch (value.freshness()) {
+                case VOLATILE -> props.getVolatileTtlSeconds();
+                case STABLE -> props.getStableTtlSeconds();
+                default -> props.getStandardTtlSeconds();
+            };
+            return TimeUnit.SECONDS.toNanos(Math.max(1L, seconds));
+        }
+
+        @Override
+        public long expireAfterUpdate(Long key, Entry value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Long key, Entry value, long currentTime, long currentDuration) {
+            // reads never extend freshness
+            return currentDuration;
+        }
+    }
+}
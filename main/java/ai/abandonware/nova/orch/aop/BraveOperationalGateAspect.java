@@ -1,5 +1,6 @@
 package ai.abandonware.nova.orch.aop;
 
+import ai.abandonware.nova.orch.aop.chain.AdviceChain;
 import ai.abandonware.nova.orch.web.brave.BraveRateLimitState;
 import com.example.lms.search.TraceStore;
 import com.example.lms.service.web.BraveSearchService;
@@ -37,6 +38,11 @@ public class BraveOperationalGateAspect {
 
     @Around("execution(* com.example.lms.search.provider.HybridWebSearchProvider.search(..)) || execution(* com.example.lms.search.provider.HybridWebSearchProvider.searchWithTrace(..))")
     public Object aroundHybridSearch(ProceedingJoinPoint pjp) throws Throwable {
+        return invoke(AdviceChain.Invocation.of(pjp));
+    }
+
+    /** Advice body, shared by the aspect and the fused web-search chain. */
+    public Object invoke(AdviceChain.Invocation invocation) throws Throwable {
         BraveSearchService brave = braveProvider.getIfAvailable();
         if (brave != null) {
             try {
@@ -46,7 +52,7 @@ public class BraveOperationalGateAspect {
                         SafeRedactor.hashValue(messageOf(t)), messageLength(t));
             }
         }
-        return pjp.proceed();
+        return invocation.proceed();
     }
 
     private static String messageOf(Throwable t) {
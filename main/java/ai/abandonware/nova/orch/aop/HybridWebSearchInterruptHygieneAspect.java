@@ -1,5 +1,6 @@
 package ai.abandonware.nova.orch.aop;
 
+import ai.abandonware.nova.orch.aop.chain.AdviceChain;
 import com.example.lms.search.TraceStore;
 import com.example.lms.trace.SafeRedactor;
 import org.aspectj.lang.ProceedingJoinPoint;
@@ -53,6 +54,11 @@ public class HybridWebSearchInterruptHygieneAspect {
 
     @Around("execution(java.util.List com.example.lms.search.provider.HybridWebSearchProvider.search(..))")
     public Object aroundSearch(ProceedingJoinPoint pjp) throws Throwable {
+        return invoke(AdviceChain.Invocation.of(pjp));
+    }
+
+    /** Advice body, shared by the aspect and the fused web-search chain. */
+    public Object invoke(AdviceChain.Invocation invocation) throws Throwable {
         boolean clearedAtEntry = false;
 
         // Clear a stale interrupt flag before search execution.
@@ -70,7 +76,7 @@ public class HybridWebSearchInterruptHygieneAspect {
         boolean swallowed = false;
 
         try {
-            return pjp.proceed();
+            return invocation.proceed();
         } catch (Throwable t) {
             if (looksInterrupted(t)) {
                 swallowed = true;
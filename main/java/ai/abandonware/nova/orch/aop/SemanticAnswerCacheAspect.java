@@ -0,0 +1,104 @@
+package ai.abandonware.nova.orch.aop;
+
+import ai.abandonware.nova.orch.answercache.SemanticAnswerCache;
+import com.example.lms.dto.ChatRequestDto;
+import com.example.lms.search.TraceStore;
+import com.example.lms.service.ChatResult;
+import com.example.lms.trace.SafeRedactor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+/**
+ * Serves repeated / near-duplicate first-turn questions from {@link SemanticAnswerCache}.
+ *
+ * <p>Runs just inside the conversation breadcrumb aspect so a hit skips retrieval, guards and generation
+ * entirely. A copy of the cached {@link ChatResult} is returned to the caller, so the controller streams it
+ * through the normal SSE path (and persists the turn) exactly like a fresh answer.</p>
+ *
+ * <p>Internal UAW autolearn threads always bypass: their samples must reflect a real run.</p>
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE + 9)
+public class SemanticAnswerCacheAspect {
+    private static final Logger log = LoggerFactory.getLogger(SemanticAnswerCacheAspect.class);
+
+    private final SemanticAnswerCache cache;
+
+    public SemanticAnswerCacheAspect(SemanticAnswerCache cache) {
+        this.cache = cache;
+    }
+
+    @Around("execution(* com.example.lms.service.ChatWorkflow.continueChat(com.example.lms.dto.ChatRequestDto,..))")
+    public Object aroundContinueChat(ProceedingJoinPoint pjp) throws Throwable {
+        Object[] args = pjp.getArgs();
+        ChatRequestDto req = (args != null && args.length > 0 && args[0] instanceof ChatRequestDto r) ? r : null;
+        if (req == null || cache == null) {
+            return pjp.proceed();
+        }
+        if (isInternalUawThread()) {
+            cache.recordBypass("internal_uaw");
+            return pjp.proceed();
+        }
+
+        SemanticAnswerCache.Lookup lookup;
+        try {
+            lookup = cache.lookup(req);
+        } catch (RuntimeException e) {
+            log.debug("[AnswerCache] lookup skipped. errorHash={} errorLength={}",
+                    SafeRedactor.hashValue(messageOf(e)), messageLength(e));
+            return pjp.proceed();
+        }
+
+        SemanticAnswerCache.Hit hit = lookup.hit();
+        if (hit != null) {
+            recordHit(hit);
+            return hit.result();
+        }
+        if (lookup.isBypassed()) {
+            return pjp.proceed();
+        }
+
+        long started = System.nanoTime();
+        Object out = pjp.proceed();
+        if (out instanceof ChatResult result) {
+            try {
+                cache.put(lookup, result, System.nanoTime() - started);
+            } catch (RuntimeException e) {
+                log.debug("[AnswerCache] store skipped. errorHash={} errorLength={}",
+                        SafeRedactor.hashValue(messageOf(e)), messageLength(e));
+            }
+        }
+        return out;
+    }
+
+    private static void recordHit(SemanticAnswerCache.Hit hit) {
+        try {
+            TraceStore.put("answerCache.hit", true);
+            TraceStore.put("answerCache.similarity", hit.similarity());
+            TraceStore.put("answerCache.freshness", hit.freshness().name());
+            TraceStore.put("answerCache.savedMs", hit.savedNanos() / 1_000_000L);
+        } catch (Throwable ignore) {
+            log.debug("[AnswerCache] hit trace skipped. errorHash={} errorLength={}",
+                    SafeRedactor.hashValue(messageOf(ignore)), messageLength(ignore));
+        }
+    }
+
+    private static boolean isInternalUawThread() {
+        String name = Thread.currentThread().getName();
+        return name != null && name.contains("uaw-autolearn");
+    }
+
+    private static String messageOf(Throwable t) {
+        return t == null ? null : t.getMessage();
+    }
+
+    private static int messageLength(Throwable t) {
+        String msg = messageOf(t);
+        return msg == null ? 0 : msg.length();
+    }
+}
@@ -1,5 +1,6 @@
 package ai.abandonware.nova.orch.aop;
 
+import ai.abandonware.nova.orch.aop.chain.AdviceChain;
 import com.example.lms.search.TraceStore;
 import com.example.lms.resilience.RagFailureBlackboxService;
 import com.example.lms.service.guard.GuardContext;
@@ -34,6 +35,11 @@ public class UawAblationFinalizeAspect {
 
     @Around("execution(* com.example.lms.service.ChatWorkflow.continueChat(..))")
     public Object aroundContinueChat(ProceedingJoinPoint pjp) throws Throwable {
+        return invoke(AdviceChain.Invocation.of(pjp));
+    }
+
+    /** Advice body, shared by the aspect and the fused continueChat chain. */
+    public Object invoke(AdviceChain.Invocation invocation) throws Throwable {
         GuardContext gctx = null;
         try {
             gctx = GuardContextHolder.get();
@@ -44,7 +50,7 @@ public class UawAblationFinalizeAspect {
         boolean isUaw = gctx != null && gctx.planBool("uaw.autolearn", false);
 
         try {
-            return pjp.proceed();
+            return invocation.proceed();
         } finally {
             boolean shouldFinalize = isUaw
                     || truthy(TraceStore.get("uaw.ablation.bridge"))
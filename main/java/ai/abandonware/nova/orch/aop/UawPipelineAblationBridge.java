@@ -1,5 +1,6 @@
 package ai.abandonware.nova.orch.aop;
 
+import ai.abandonware.nova.orch.aop.chain.AdviceChain;
 import com.example.lms.search.TraceStore;
 import com.example.lms.service.guard.GuardContext;
 import com.example.lms.service.guard.GuardContextHolder;
@@ -32,7 +33,12 @@ public class UawPipelineAblationBridge {
 
     @Around("execution(* com.example.lms.service.ChatWorkflow.continueChat(..))")
     public Object aroundContinueChat(ProceedingJoinPoint pjp) throws Throwable {
-                GuardContext gctx = null;
+        return invoke(AdviceChain.Invocation.of(pjp));
+    }
+
+    /** Advice body, shared by the aspect and the fused continueChat chain. */
+    public Object invoke(AdviceChain.Invocation invocation) throws Throwable {
+        GuardContext gctx = null;
         try {
             gctx = GuardContextHolder.get();
         } catch (Throwable ignore) {
@@ -55,7 +61,7 @@ public class UawPipelineAblationBridge {
         }
 
         try {
-            return pjp.proceed();
+            return invocation.proceed();
         } finally {
             if (bridgeActive) {
                 // Enrich penalty breadcrumb messages with plan metadata when present.
@@ -0,0 +1,162 @@
+package ai.abandonware.nova.orch.aop;
+
+import ai.abandonware.nova.orch.web.WebSearchCoalescer;
+import com.example.lms.service.NaverSearchService;
+import com.example.lms.service.guard.GuardContext;
+import com.example.lms.service.guard.GuardContextHolder;
+import com.example.lms.service.web.BraveSearchResult;
+import com.example.lms.service.web.quota.ProviderQuotaPriority;
+import dev.langchain4j.rag.query.Query;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Routes provider-level web search calls through {@link WebSearchCoalescer} so that
+ * identical concurrent queries from different sessions share one upstream call.
+ *
+ * <p>Ordered innermost (just above the provider) so per-caller gates such as
+ * {@code ProviderRateLimitBackoffAspect} still run for every caller, while only the
+ * coalesced leader spends paid API quota.
+ *
+ * <p>Joiners wait at most the caller's own block timeout when the advised method takes one
+ * (they then get the empty list the caller would have seen). Call sites without one (Brave
+ * {@code search}/{@code searchWithMeta}, Tavily) wait at most {@code defaultJoinTimeoutMs} and then
+ * make their own upstream call instead of hanging on a stalled leader.
+ *
+ * <p>Only callers of the same quota priority share a call. Every caller gets its own copy of the
+ * snippet list, so one caller's edits never show up in another's result.
+ */
+@Aspect
+@Order(Ordered.LOWEST_PRECEDENCE - 100)
+public class WebSearchCoalescingAspect {
+
+    private static final Predicate<Object> EMPTY_LIST = o -> o instanceof List<?> l && l.isEmpty();
+
+    private static final Predicate<Object> BRAVE_CLEAN_EMPTY = o -> o instanceof BraveSearchResult r
+            && r.status() == BraveSearchResult.Status.OK
+            && (r.snippets() == null || r.snippets().isEmpty());
+
+    /** Slightly above the Brave/Tavily client timeouts (3s, adaptive overall 3.5s). */
+    public static final long DEFAULT_JOIN_TIMEOUT_MS = 4_000L;
+
+    private final WebSearchCoalescer coalescer;
+    private final long defaultJoinTimeoutMs;
+
+    public WebSearchCoalescingAspect(WebSearchCoalescer coalescer) {
+        this(coalescer, DEFAULT_JOIN_TIMEOUT_MS);
+    }
+
+    public WebSearchCoalescingAspect(WebSearchCoalescer coalescer, long defaultJoinTimeoutMs) {
+        this.coalescer = coalescer;
+        this.defaultJoinTimeoutMs = defaultJoinTimeoutMs > 0L ? defaultJoinTimeoutMs : DEFAULT_JOIN_TIMEOUT_MS;
+    }
+
+    @Around("execution(* com.example.lms.service.web.BraveSearchService.searchWithMeta(String, int))")
+    public Object aroundBraveSearchWithMeta(ProceedingJoinPoint pjp) throws Throwable {
+        return coalesce(pjp, "brave", "meta", BRAVE_CLEAN_EMPTY);
+    }
+
+    @Around("execution(java.util.List com.example.lms.service.web.BraveSearchService.search(String, int))")
+    public Object aroundBraveSearch(ProceedingJoinPoint pjp) throws Throwable {
+        return coalesce(pjp, "brave", "snippets", EMPTY_LIST);
+    }
+
+    @Around("execution(* com.example.lms.service.NaverSearchService.searchSnippetsSync(..))")
+    public Object aroundNaverSnippetsSync(ProceedingJoinPoint pjp) throws Throwable {
+        // Naver maps provider failures to an empty list, so empties are not negative-cached here.
+        return coalesce(pjp, "naver", "snippets", o -> false);
+    }
+
+    @Around("execution(* com.example.lms.service.NaverSearchService.searchWithTraceSync(..))")
+    public Object aroundNaverWithTraceSync(ProceedingJoinPoint pjp) throws Throwable {
+        return coalesce(pjp, "naver", "trace", o -> false);
+    }
+
+    @Around("execution(* com.example.lms.service.rag.TavilyWebSearchRetriever.retrieve(..))")
+    public Object aroundTavilyRetrieve(ProceedingJoinPoint pjp) throws Throwable {
+        return coalesce(pjp, "tavily", "retrieve", EMPTY_LIST);
+    }
+
+    private Object coalesce(ProceedingJoinPoint pjp, String provider, String op, Predicate<Object> cleanEmpty)
+            throws Throwable {
+        Object[] args = pjp.getArgs();
+        String rawQuery = null;
+        int topK = -1;
+        Duration blockTimeout = null;
+        if (args != null) {
+            for (Object a : args) {
+                if (rawQuery == null && a instanceof String s) {
+                    rawQuery = s;
+                } else if (rawQuery == null && a instanceof Query q) {
+                    rawQuery = q.text();
+                } else if (topK < 0 && a instanceof Integer i) {
+                    topK = i;
+                } else if (blockTimeout == null && a instanceof Duration d) {
+                    blockTimeout = d;
+                }
+            }
+        }
+        String query = WebSearchCoalescer.canonicalQuery(rawQuery);
+        if (query.isEmpty()) {
+            return pjp.proceed();
+        }
+
+        WebSearchCoalescer.Key key = new WebSearchCoalescer.Key(provider, op, query, topK, locale(), policy(),
+                ProviderQuotaPriority.current().tag());
+        boolean returnsList = List.class.isAssignableFrom(((MethodSignature) pjp.getSignature()).getReturnType());
+        if (blockTimeout != null && returnsList) {
+            return detach(coalescer.execute(key, pjp::proceed, cleanEmpty, Math.max(1L, blockTimeout.toMillis()),
+                    List::of));
+        }
+        return detach(coalescer.execute(key, pjp::proceed, cleanEmpty, defaultJoinTimeoutMs, null));
+    }
+
+    /** A per-caller copy of a (possibly shared) result; the snippet lists are the only mutable parts. */
+    static Object detach(Object result) {
+        if (result instanceof List<?> list) {
+            return new ArrayList<>(list);
+        }
+        if (result instanceof BraveSearchResult r) {
+            return new BraveSearchResult(r.snippets() == null ? null : new ArrayList<>(r.snippets()), r.status(),
+                    r.httpStatus(), r.cooldownMs(), r.message(), r.elapsedMs());
+        }
+        if (result instanceof NaverSearchService.SearchResult r) {
+            return new NaverSearchService.SearchResult(r.snippets() == null ? null : new ArrayList<>(r.snippets()),
+                    r.trace());
+        }
+        return result;
+    }
+
+    private static String locale() {
+        try {
+            return LocaleContextHolder.getLocale().toLanguageTag();
+        } catch (Throwable ignore) {
+            return "und";
+        }
+    }
+
+    /** Request policy that changes provider-side filtering (officialOnly/domainProfile/primary). */
+    private static String policy() {
+        GuardContext ctx = GuardContextHolder.get();
+        if (ctx == null) {
+            return "";
+        }
+        return (ctx.isOfficialOnly() ? "official" : "any")
+                + "|" + nullToEmpty(ctx.getDomainProfile())
+                + "|" + nullToEmpty(ctx.getWebPrimary());
+    }
+
+    private static String nullToEmpty(String s) {
+        return s == null ? "" : s;
+    }
+}
@@ -0,0 +1,182 @@
+package ai.abandonware.nova.orch.aop.chain;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Ordered list of lightweight advices that run inside a single interceptor instead of one proxy layer each.
+ *
+ * <p>Links are sorted once by their former {@code @Order} value when the chain is built, and the subset
+ * that applies to a given {@link Method} is cached, so a call walks a plain array with one
+ * {@link Invocation} object and no extra proxy frames. Only advices that just wrap {@code proceed()}
+ * (guard/trace/hygiene) belong here; anything that hops threads or retries the call stays a real aspect.</p>
+ */
+public final class AdviceChain {
+
+    /** One fused advice; mirrors an {@code @Around} body written against {@link Invocation}. */
+    @FunctionalInterface
+    public interface Advice {
+        Object invoke(Invocation invocation) throws Throwable;
+    }
+
+    /** Proceed handle shared by aspects ({@link #of(ProceedingJoinPoint)}) and fused chains. */
+    public interface Invocation {
+        Method method();
+
+        Object[] arguments();
+
+        Object proceed() throws Throwable;
+
+        static Invocation of(ProceedingJoinPoint pjp) {
+            return new Invocation() {
+                @Override
+                public Method method() {
+                    return pjp.getSignature() instanceof MethodSignature ms ? ms.getMethod() : null;
+                }
+
+                @Override
+                public Object[] arguments() {
+                    return pjp.getArgs();
+                }
+
+                @Override
+                public Object proceed() throws Throwable {
+                    return pjp.proceed();
+                }
+            };
+        }
+    }
+
+    record Link(String name, int order, Predicate<Method> appliesTo, Advice advice) {
+    }
+
+    private static final Link[] NONE = new Link[0];
+
+    private final String name;
+    private final List<Link> links;
+    private final AspectChainProfiler profiler;
+    private final Map<Method, Link[]> perMethod = new ConcurrentHashMap<>();
+
+    private AdviceChain(String name, List<Link> links, AspectChainProfiler profiler) {
+        this.name = name;
+        this.links = links;
+        this.profiler = profiler;
+    }
+
+    public static Builder builder(String name) {
+        return new Builder(name);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /** Link names in execution order. */
+    public List<String> linkNames() {
+        return links.stream().map(Link::name).toList();
+    }
+
+    public boolean isEmpty() {
+        return links.isEmpty();
+    }
+
+    public Object invoke(MethodInvocation mi) throws Throwable {
+        Link[] applicable = linksFor(mi.getMethod());
+        if (applicable.length == 0) {
+            return mi.proceed();
+        }
+        return new Cursor(mi, applicable, profiler).proceed();
+    }
+
+    Link[] linksFor(Method method) {
+        if (method == null) {
+            return NONE;
+        }
+        return perMethod.computeIfAbsent(method, m -> links.stream()
+                .filter(l -> l.appliesTo().test(m))
+                .toArray(Link[]::new));
+    }
+
+    /** Walks the link array; the last {@link #proceed()} reaches the underlying method invocation. */
+    private static final class Cursor implements Invocation {
+        private final MethodInvocation mi;
+        private final Link[] links;
+        private final AspectChainProfiler profiler;
+        private int index;
+
+        Cursor(MethodInvocation mi, Link[] links, AspectChainProfiler profiler) {
+            this.mi = mi;
+            this.links = links;
+            this.profiler = profiler;
+        }
+
+        @Override
+        public Method method() {
+            return mi.getMethod();
+        }
+
+        @Override
+        public Object[] arguments() {
+            return mi.getArguments();
+        }
+
+        @Override
+        public Object proceed() throws Throwable {
+            if (index >= links.length) {
+                return mi.proceed();
+            }
+            Link link = links[index++];
+            AspectChainProfiler.Frame frame = profiler == null ? null : profiler.enter(link.name(), mi.getMethod());
+            try {
+                return link.advice().invoke(this);
+            } finally {
+                if (frame != null) {
+                    profiler.exit(frame);
+                }
+            }
+        }
+    }
+
+    public static final class Builder {
+        private final String name;
+        private final List<Link> links = new ArrayList<>();
+        private AspectChainProfiler profiler;
+
+        private Builder(String name) {
+            this.name = Objects.requireNonNull(name, "name");
+        }
+
+        public Builder add(String linkName, int order, Advice advice) {
+            return add(linkName, order, m -> true, advice);
+        }
+
+        public Builder add(String linkName, int order, Predicate<Method> appliesTo, Advice advice) {
+            links.add(new Link(linkName, order, appliesTo == null ? m -> true : appliesTo,
+                    Objects.requireNonNull(advice, "advice")));
+            return this;
+        }
+
+        /** Reports each link as its own profiler frame when profiling is on. */
+        public Builder profiler(AspectChainProfiler profiler) {
+            this.profiler = profiler;
+            return this;
+        }
+
+        public AdviceChain build() {
+            List<Link> sorted = new ArrayList<>(links);
+            // stable: equal orders keep registration order, like same-order aspects in practice
+            sorted.sort(Comparator.comparingInt(Link::order));
+            return new AdviceChain(name, List.copyOf(sorted), profiler);
+        }
+    }
+}
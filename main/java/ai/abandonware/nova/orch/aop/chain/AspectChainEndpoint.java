@@ -0,0 +1,32 @@
+package ai.abandonware.nova.orch.aop.chain;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.Map;
+
+/**
+ * {@code /actuator/aspectchain}: per-join-point aspect self time and allocation from {@link AspectChainProfiler}.
+ * {@code DELETE} clears the counters.
+ */
+@Endpoint(id = "aspectchain")
+public class AspectChainEndpoint {
+
+    private final AspectChainProfiler profiler;
+
+    public AspectChainEndpoint(AspectChainProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    @ReadOperation
+    public Map<String, Object> aspectChain() {
+        return profiler.snapshot();
+    }
+
+    @DeleteOperation
+    public Map<String, Object> reset() {
+        profiler.reset();
+        return Map.of("reset", true);
+    }
+}
@@ -0,0 +1,168 @@
+package ai.abandonware.nova.orch.aop.chain;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-aspect self time / allocation profiler for advice chains.
+ *
+ * <p>Each advice (proxy interceptor or fused link) opens a {@link Frame} on a thread-local stack. When a frame
+ * closes, its elapsed time and allocated bytes minus whatever its nested frames consumed is the advice's
+ * <em>self</em> cost at that join point. The terminal {@code (target)} frame absorbs the business method, so
+ * the numbers left on the aspects are pure interception overhead.</p>
+ *
+ * <p>Disabled by default ({@code nova.orch.aop.profiler.enabled=false}); when off, {@link #enter} returns
+ * {@code null} and callers skip all bookkeeping.</p>
+ */
+public final class AspectChainProfiler {
+
+    /** Name used for the frame that wraps the advised method itself. */
+    public static final String TARGET = "(target)";
+
+    private static final com.sun.management.ThreadMXBean ALLOC = allocationBean();
+
+    private final boolean enabled;
+    private final ThreadLocal<Frame> top = new ThreadLocal<>();
+    private final Map<String, Map<String, Stat>> stats = new ConcurrentHashMap<>();
+    private final Map<Method, String> joinPointNames = new ConcurrentHashMap<>();
+
+    public AspectChainProfiler(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** True while an aspect frame is open on this thread (used to attribute the target call). */
+    public boolean inChain() {
+        return enabled && top.get() != null;
+    }
+
+    public Frame enter(String aspect, Method method) {
+        if (!enabled) {
+            return null;
+        }
+        Frame parent = top.get();
+        Frame f = new Frame(parent, aspect, joinPoint(method), System.nanoTime(), allocatedBytes());
+        top.set(f);
+        return f;
+    }
+
+    public void exit(Frame f) {
+        if (f == null) {
+            return;
+        }
+        long elapsed = System.nanoTime() - f.startNanos;
+        long allocated = Math.max(0L, allocatedBytes() - f.startBytes);
+        if (f.parent == null) {
+            top.remove();
+        } else {
+            top.set(f.parent);
+            f.parent.childNanos += elapsed;
+            f.parent.childBytes += allocated;
+        }
+        stats.computeIfAbsent(f.joinPoint, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(f.aspect, k -> new Stat())
+                .record(Math.max(0L, elapsed - f.childNanos), Math.max(0L, allocated - f.childBytes));
+    }
+
+    /** joinPoint → aspects (slowest self time first) → calls / self ns / self bytes. */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("enabled", enabled);
+        out.put("allocationSupported", ALLOC != null);
+        Map<String, Object> jps = new LinkedHashMap<>();
+        stats.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(jp -> {
+                    List<Map<String, Object>> rows = new ArrayList<>();
+                    jp.getValue().forEach((aspect, s) -> rows.add(s.toMap(aspect)));
+                    rows.sort(Comparator.comparingLong((Map<String, Object> r) -> (Long) r.get("selfNanosTotal")).reversed());
+                    jps.put(jp.getKey(), rows);
+                });
+        out.put("joinPoints", jps);
+        return out;
+    }
+
+    public void reset() {
+        stats.clear();
+    }
+
+    private String joinPoint(Method m) {
+        if (m == null) {
+            return "?";
+        }
+        return joinPointNames.computeIfAbsent(m, k -> k.getDeclaringClass().getSimpleName() + "." + k.getName());
+    }
+
+    private static long allocatedBytes() {
+        return ALLOC == null ? 0L : ALLOC.getCurrentThreadAllocatedBytes();
+    }
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        try {
+            if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean b
+                    && b.isThreadAllocatedMemorySupported()) {
+                if (!b.isThreadAllocatedMemoryEnabled()) {
+                    b.setThreadAllocatedMemoryEnabled(true);
+                }
+                return b;
+            }
+        } catch (Throwable ignore) {
+            // non-HotSpot JVM: time only
+        }
+        return null;
+    }
+
+    public static final class Frame {
+        private final Frame parent;
+        private final String aspect;
+        private final String joinPoint;
+        private final long startNanos;
+        private final long startBytes;
+        private long childNanos;
+        private long childBytes;
+
+        private Frame(Frame parent, String aspect, String joinPoint, long startNanos, long startBytes) {
+            this.parent = parent;
+            this.aspect = aspect;
+            this.joinPoint = joinPoint;
+            this.startNanos = startNanos;
+            this.startBytes = startBytes;
+        }
+    }
+
+    private static final class Stat {
+        final LongAdder calls = new LongAdder();
+        final LongAdder selfNanos = new LongAdder();
+        final LongAdder selfBytes = new LongAdder();
+
+        void record(long nanos, long bytes) {
+            calls.increment();
+            selfNanos.add(nanos);
+            selfBytes.add(bytes);
+        }
+
+        Map<String, Object> toMap(String aspect) {
+            long n = calls.sum();
+            long ns = selfNanos.sum();
+            long bytes = selfBytes.sum();
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("aspect", aspect);
+            m.put("calls", n);
+            m.put("selfNanosTotal", ns);
+            m.put("selfNanosAvg", n == 0 ? 0L : ns / n);
+            m.put("selfBytesTotal", bytes);
+            m.put("selfBytesAvg", n == 0 ? 0L : bytes / n);
+            return m;
+        }
+    }
+}
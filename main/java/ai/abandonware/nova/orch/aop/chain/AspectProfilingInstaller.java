@@ -0,0 +1,150 @@
+package ai.abandonware.nova.orch.aop.chain;
+
+import org.aopalliance.aop.Advice;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.PointcutAdvisor;
+import org.springframework.aop.aspectj.AspectJPrecedenceInformation;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.core.Ordered;
+
+import java.lang.reflect.Method;
+
+/**
+ * Wraps every around-advice of the application's AOP proxies with an {@link AspectChainProfiler} frame.
+ *
+ * <p>Runs once after all singletons exist. Each {@link PointcutAdvisor} on an {@link Advised} bean is replaced
+ * in place (same pointcut, same position) by one whose advice opens a frame labelled
+ * {@code aspectName#adviceMethod}, and a final {@code (target)} interceptor is appended so the business
+ * method is subtracted from the innermost aspect's self time. Frozen proxies are left untouched.</p>
+ */
+public class AspectProfilingInstaller implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(AspectProfilingInstaller.class);
+
+    private final ListableBeanFactory beanFactory;
+    private final AspectChainProfiler profiler;
+
+    public AspectProfilingInstaller(ListableBeanFactory beanFactory, AspectChainProfiler profiler) {
+        this.beanFactory = beanFactory;
+        this.profiler = profiler;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!profiler.isEnabled()) {
+            return;
+        }
+        int proxies = 0;
+        for (String name : beanFactory.getBeanNamesForType(Advised.class, false, false)) {
+            try {
+                if (install((Advised) beanFactory.getBean(name))) {
+                    proxies++;
+                }
+            } catch (Exception e) {
+                log.debug("[nova][aop-profiler] skip bean={} errorType={}", name, e.getClass().getSimpleName());
+            }
+        }
+        log.info("[nova][aop-profiler] instrumented {} proxies", proxies);
+    }
+
+    /** @return true when at least one advisor was wrapped */
+    public boolean install(Advised advised) {
+        if (advised.isFrozen()) {
+            return false;
+        }
+        boolean wrapped = false;
+        for (Advisor advisor : advised.getAdvisors()) {
+            if (!(advisor instanceof PointcutAdvisor pa) || advisor instanceof ProfiledAdvisor
+                    || !(advisor.getAdvice() instanceof MethodInterceptor mi)) {
+                continue;
+            }
+            ProfiledAdvisor replacement = new ProfiledAdvisor(pa, new Profiled(labelOf(advisor), mi, profiler));
+            wrapped |= advised.replaceAdvisor(advisor, replacement);
+        }
+        if (wrapped) {
+            advised.addAdvisor(new ProfiledAdvisor(null, new TargetFrame(profiler)));
+        }
+        return wrapped;
+    }
+
+    static String labelOf(Advisor advisor) {
+        if (advisor instanceof FusedAdviceAdvisor fused) {
+            return "fused:" + fused.getChain().name();
+        }
+        Advice advice = advisor.getAdvice();
+        if (advice instanceof AspectJPrecedenceInformation info) {
+            String method = advice instanceof org.springframework.aop.aspectj.AbstractAspectJAdvice aj
+                    ? aj.getAspectJAdviceMethod().getName()
+                    : "advice";
+            return info.getAspectName() + "#" + method;
+        }
+        return advice.getClass().getSimpleName();
+    }
+
+    private static final class Profiled implements MethodInterceptor {
+        private final String label;
+        private final MethodInterceptor delegate;
+        private final AspectChainProfiler profiler;
+
+        Profiled(String label, MethodInterceptor delegate, AspectChainProfiler profiler) {
+            this.label = label;
+            this.delegate = delegate;
+            this.profiler = profiler;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            AspectChainProfiler.Frame f = profiler.enter(label, invocation.getMethod());
+            try {
+                return delegate.invoke(invocation);
+            } finally {
+                profiler.exit(f);
+            }
+        }
+    }
+
+    /** Innermost frame: charges the advised method to {@code (target)} rather than the last aspect. */
+    private static final class TargetFrame implements MethodInterceptor {
+        private final AspectChainProfiler profiler;
+
+        TargetFrame(AspectChainProfiler profiler) {
+            this.profiler = profiler;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            if (!profiler.inChain()) {
+                return invocation.proceed();
+            }
+            Method m = invocation.getMethod();
+            AspectChainProfiler.Frame f = profiler.enter(AspectChainProfiler.TARGET, m);
+            try {
+                return invocation.proceed();
+            } finally {
+                profiler.exit(f);
+            }
+        }
+    }
+
+    /** Keeps the original pointcut and order; marker type so a second install pass is a no-op. */
+    private static final class ProfiledAdvisor extends DefaultPointcutAdvisor {
+        ProfiledAdvisor(PointcutAdvisor original, MethodInterceptor advice) {
+            super(advice);
+            if (original != null) {
+                setPointcut(original.getPointcut());
+                if (original instanceof Ordered o) {
+                    setOrder(o.getOrder());
+                }
+            } else {
+                setOrder(Ordered.LOWEST_PRECEDENCE);
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package ai.abandonware.nova.orch.aop.chain;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.aspectj.AspectJExpressionPointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+
+/**
+ * Single proxy advisor that runs a whole {@link AdviceChain} in one interception.
+ *
+ * <p>The advisor's own order should be the order of the first link, so it sits exactly where the
+ * individual aspects used to in the overall proxy chain.</p>
+ */
+public class FusedAdviceAdvisor extends DefaultPointcutAdvisor {
+
+    private final AdviceChain chain;
+
+    public FusedAdviceAdvisor(String pointcutExpression, int order, AdviceChain chain) {
+        this.chain = chain;
+        AspectJExpressionPointcut pointcut = new AspectJExpressionPointcut();
+        pointcut.setExpression(pointcutExpression);
+        setPointcut(pointcut);
+        setAdvice((MethodInterceptor) chain::invoke);
+        setOrder(order);
+    }
+
+    public AdviceChain getChain() {
+        return chain;
+    }
+
+    @Override
+    public String toString() {
+        return "FusedAdviceAdvisor[" + chain.name() + " " + chain.linkNames() + "]";
+    }
+}
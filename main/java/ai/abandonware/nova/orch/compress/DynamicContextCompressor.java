@@ -4,6 +4,7 @@ import ai.abandonware.nova.config.NovaOrchestrationProperties;
 import ai.abandonware.nova.orch.trace.OrchEventEmitter;
 import com.example.lms.search.TraceStore;
 import com.example.lms.trace.SafeRedactor;
+import com.example.lms.util.TextSignals;
 import dev.langchain4j.data.document.Metadata;
 import dev.langchain4j.data.segment.TextSegment;
 import dev.langchain4j.rag.content.Content;
@@ -25,6 +26,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.regex.Pattern;
 
 /**
  * RAG context compressor used in strike/compression modes to reduce prompt size
@@ -45,6 +47,10 @@ public class DynamicContextCompressor {
 
     private static final Logger log = LoggerFactory.getLogger(DynamicContextCompressor.class);
     private static final String COMPOSER_VERSION = "ablation-spread-v2";
+    private static final Pattern NON_ANCHOR_KEY_CHARS = Pattern.compile("[^\\p{IsAlphabetic}\\p{IsDigit}_:-]");
+    private static final Set<String> STOP_TOKENS = Set.of("the", "and", "for", "with", "this", "that", "what", "how",
+            "why", "이다", "것이", "하는", "있는", "위한", "대한", "있다", "하여",
+            "하고", "하면", "없는", "같은", "다른", "모든", "어떤", "그런", "이런");
 
     private final NovaOrchestrationProperties props;
     private final AnchorProbeHandler anchorProbeHandler;
@@ -1030,10 +1036,10 @@ public class DynamicContextCompressor {
     }
 
     private static String significantToken(String text, String anchor) {
-        String s = text == null ? "" : text.replaceAll("[\\p{Punct}]+", " ");
+        String s = text == null ? "" : TextSignals.PUNCT_RUN.matcher(text).replaceAll(" ");
         String anchorNorm = normalizeAnchorKey(anchor);
         String best = "";
-        for (String token : s.split("\\s+")) {
+        for (String token : TextSignals.splitWhitespace(s)) {
             String t = normalizeAnchorKey(token);
             if (t.length() < 3 || isStopToken(t) || t.equals(anchorNorm)) {
                 continue;
@@ -1052,9 +1058,7 @@ public class DynamicContextCompressor {
         if (raw == null) {
             return "";
         }
-        return raw.toLowerCase(Locale.ROOT)
-                .replaceAll("[^\\p{IsAlphabetic}\\p{IsDigit}_:-]", "")
-                .trim();
+        return NON_ANCHOR_KEY_CHARS.matcher(raw.toLowerCase(Locale.ROOT)).replaceAll("").trim();
     }
 
     private static double firstMetadataDouble(Map<String, Object> meta, String... keys) {
@@ -1435,10 +1439,10 @@ public class DynamicContextCompressor {
         if (q.isBlank()) {
             return "";
         }
-        String normalized = q.replaceAll("[\\p{Punct}]+", " ");
+        String normalized = TextSignals.PUNCT_RUN.matcher(q).replaceAll(" ");
         String best = "";
         double bestScore = Double.NEGATIVE_INFINITY;
-        for (String token : normalized.split("\\s+")) {
+        for (String token : TextSignals.splitWhitespace(normalized)) {
             String t = token == null ? "" : token.trim();
             if (t.length() < 2 || isStopToken(t)) {
                 continue;
@@ -1457,10 +1461,7 @@ public class DynamicContextCompressor {
 
     private static boolean isStopToken(String token) {
         String t = token == null ? "" : token.toLowerCase(Locale.ROOT);
-        return Set.of("the", "and", "for", "with", "this", "that", "what", "how", "why",
-                        "이다", "것이", "하는", "있는", "위한", "대한", "있다", "하여",
-                        "하고", "하면", "없는", "같은", "다른", "모든", "어떤", "그런", "이런")
-                .contains(t);
+        return STOP_TOKENS.contains(t);
     }
 
     private static double anchorTokenScore(String token) {
@@ -1469,13 +1470,14 @@ public class DynamicContextCompressor {
             return Double.NEGATIVE_INFINITY;
         }
         double score = 0.0d;
-        if (t.matches(".*[A-Z]{2,}.*")) {
+        boolean singleLine = TextSignals.isSingleLine(t);
+        if (singleLine && TextSignals.hasAsciiUpperRun(t, 2)) {
             score += 3.0d;
         }
-        if (t.matches(".*[\\uAC00-\\uD7A3].*")) {
+        if (singleLine && TextSignals.hasHangulSyllable(t)) {
             score += 2.5d;
         }
-        if (t.matches(".*[A-Za-z].*")) {
+        if (singleLine && TextSignals.hasAsciiLetter(t)) {
             score += 0.75d;
         }
         int len = t.length();
@@ -1850,9 +1852,7 @@ public class DynamicContextCompressor {
         if (text == null) {
             return "";
         }
-        String s = text
-                .replaceAll("<[^>]+>", " ")
-                .replaceAll("\\s+", " ")
+        String s = TextSignals.collapseWhitespace(TextSignals.HTML_TAG.matcher(text).replaceAll(" "))
                 .trim()
                 .toLowerCase();
         if (s.length() > 240) {
@@ -0,0 +1,273 @@
+package ai.abandonware.nova.orch.web;
+
+import com.example.lms.search.TraceStore;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Cross-session in-flight coalescing for web search provider calls.
+ *
+ * <p>Concurrent callers that issue the same (provider, operation, canonical query, topK,
+ * locale, policy) share one upstream call: the first caller (leader) runs it, the others
+ * (joiners) wait for the leader's result. Clean empty results are remembered for a short
+ * TTL (negative cache) so a trending query that yields nothing is not re-issued by every
+ * session within the same second.
+ *
+ * <p>Provider-agnostic: callers pass the upstream call and an "is clean empty" predicate;
+ * the AOP layer ({@code WebSearchCoalescingAspect}) wires Brave/Naver/Tavily.
+ */
+public class WebSearchCoalescer {
+
+    private static final Logger log = LoggerFactory.getLogger(WebSearchCoalescer.class);
+
+    private static final String METRIC = "web.search.coalesce";
+
+    private static final Object LEADER_ABORTED = new Object();
+    private static final Object JOIN_TIMED_OUT = new Object();
+
+    /** Upstream call (may throw, like the advised method). */
+    @FunctionalInterface
+    public interface UpstreamCall {
+        Object call() throws Throwable;
+    }
+
+    /**
+     * Coalescing key. {@code query} must already be canonical (see {@link #canonicalQuery(String)}).
+     * {@code priority} is the provider quota priority: callers of different priorities queue for quota
+     * differently, so an interactive caller never inherits a background leader's wait or drop.
+     */
+    public record Key(String provider, String op, String query, int topK, String locale, String policy,
+                      String priority) {
+    }
+
+    private final ConcurrentHashMap<Key, CompletableFuture<Object>> inflight = new ConcurrentHashMap<>();
+    private final Cache<Key, Object> negative;
+    private final boolean negativeEnabled;
+    private final MeterRegistry meterRegistry; // may be null (fail-soft)
+    private final ConcurrentHashMap<String, Counters> counters = new ConcurrentHashMap<>();
+
+    public WebSearchCoalescer(long negativeTtlMs, long negativeMaxEntries, MeterRegistry meterRegistry) {
+        this.negativeEnabled = negativeTtlMs > 0L;
+        this.negative = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(Math.max(1L, negativeTtlMs)))
+                .maximumSize(Math.max(1L, negativeMaxEntries))
+                .build();
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Run {@code call} once per concurrent key.
+     *
+     * <p>A leader whose thread was interrupted (or that was cancelled) does not hand its result to
+     * the joiners: providers map interruption to an empty result, which is the leader's own outcome,
+     * not the query's. Joiners then start over within their remaining wait bound, one of them becoming
+     * the new leader.
+     *
+     * @param key          coalescing key
+     * @param call         the real upstream call
+     * @param cleanEmpty   whether a result is a clean (non-failure) empty result that may be
+     *                     negative-cached
+     * @param joinTimeoutMs joiner wait bound ({@code <= 0} = wait for the leader)
+     * @param onJoinTimeout value returned to a joiner whose wait bound elapsed, or {@code null} to
+     *                     have that joiner run {@code call} itself
+     */
+    public Object execute(Key key,
+                          UpstreamCall call,
+                          Predicate<Object> cleanEmpty,
+                          long joinTimeoutMs,
+                          Supplier<Object> onJoinTimeout) throws Throwable {
+        Counters c = counters.computeIfAbsent(key.provider(), k -> new Counters());
+        long deadline = joinTimeoutMs > 0L ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(joinTimeoutMs) : 0L;
+
+        while (true) {
+            if (negativeEnabled) {
+                Object cached = negative.getIfPresent(key);
+                if (cached != null) {
+                    c.negativeHits.increment();
+                    mark(key.provider(), "negativeHit");
+                    return copyOf(cached);
+                }
+            }
+
+            CompletableFuture<Object> mine = new CompletableFuture<>();
+            CompletableFuture<Object> leader = inflight.putIfAbsent(key, mine);
+            if (leader != null) {
+                c.joined.increment();
+                mark(key.provider(), "joined");
+                Object out = join(leader, deadline, c);
+                if (out == JOIN_TIMED_OUT) {
+                    return onJoinTimeout == null ? call.call() : onJoinTimeout.get();
+                }
+                if (out != LEADER_ABORTED) {
+                    return out;
+                }
+                c.leaderAborts.increment();
+                continue;
+            }
+
+            c.leaders.increment();
+            count(key.provider(), "leader");
+            try {
+                Object out = call.call();
+                if (Thread.currentThread().isInterrupted()) {
+                    mine.completeExceptionally(LeaderAborted.INSTANCE);
+                    return out;
+                }
+                mine.complete(out);
+                if (negativeEnabled && out != null
+                        && cleanEmpty != null && cleanEmpty.test(out)) {
+                    negative.put(key, out);
+                }
+                return out;
+            } catch (CancellationException | InterruptedException t) {
+                mine.completeExceptionally(LeaderAborted.INSTANCE);
+                throw t;
+            } catch (Throwable t) {
+                mine.completeExceptionally(t);
+                throw t;
+            } finally {
+                inflight.remove(key, mine);
+            }
+        }
+    }
+
+    /**
+     * Leader's result (copied), {@link #LEADER_ABORTED} to start over, or {@link #JOIN_TIMED_OUT}
+     * once {@code deadline} ({@code 0} = none) has passed.
+     */
+    private Object join(CompletableFuture<Object> leader, long deadline, Counters c) throws Throwable {
+        try {
+            Object out;
+            if (deadline == 0L) {
+                out = leader.get();
+            } else {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0L) {
+                    throw new TimeoutException();
+                }
+                out = leader.get(remaining, TimeUnit.NANOSECONDS);
+            }
+            return copyOf(out);
+        } catch (ExecutionException ee) {
+            if (ee.getCause() instanceof LeaderAborted) {
+                return LEADER_ABORTED;
+            }
+            throw ee.getCause() == null ? ee : ee.getCause();
+        } catch (TimeoutException te) {
+            c.joinTimeouts.increment();
+            TraceStore.put("web.coalesce.joinTimeout", true);
+            return JOIN_TIMED_OUT;
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("coalesced web search wait interrupted");
+        }
+    }
+
+    /** Lists are copied per caller so joiners cannot mutate each other's results. */
+    private static Object copyOf(Object out) {
+        if (out instanceof List<?> l) {
+            return new ArrayList<>(l);
+        }
+        return out;
+    }
+
+    /** NFKC + whitespace collapse + lower-case, so trivially different spellings share one call. */
+    public static String canonicalQuery(String raw) {
+        if (raw == null) {
+            return "";
+        }
+        String s = Normalizer.normalize(raw, Normalizer.Form.NFKC).trim();
+        StringBuilder sb = new StringBuilder(s.length());
+        boolean space = false;
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            if (Character.isWhitespace(ch) || Character.isISOControl(ch)) {
+                space = sb.length() > 0;
+                continue;
+            }
+            if (space) {
+                sb.append(' ');
+                space = false;
+            }
+            sb.append(ch);
+        }
+        return sb.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Per provider: leaders (upstream calls), joined (saved calls), negative hits, join timeouts and
+     * aborted leaders whose joiners started over.
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        counters.forEach((provider, c) -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("leaders", c.leaders.sum());
+            row.put("joined", c.joined.sum());
+            row.put("negativeHits", c.negativeHits.sum());
+            row.put("joinTimeouts", c.joinTimeouts.sum());
+            row.put("leaderAborts", c.leaderAborts.sum());
+            out.put(provider, row);
+        });
+        out.put("inflight", inflight.size());
+        return out;
+    }
+
+    private void mark(String provider, String outcome) {
+        try {
+            TraceStore.put("web.coalesce." + provider + "." + outcome, true);
+            TraceStore.inc("web.coalesce." + provider + ".saved.count");
+        } catch (Throwable ignore) {
+            // fail-soft
+        }
+        count(provider, outcome);
+    }
+
+    private void count(String provider, String outcome) {
+        if (meterRegistry == null) {
+            return;
+        }
+        try {
+            meterRegistry.counter(METRIC, "provider", provider, "outcome", outcome).increment();
+        } catch (Exception e) {
+            log.debug("[Coalesce] metric failed errorType={}", e.getClass().getSimpleName());
+        }
+    }
+
+    private static final class Counters {
+        final LongAdder leaders = new LongAdder();
+        final LongAdder joined = new LongAdder();
+        final LongAdder negativeHits = new LongAdder();
+        final LongAdder joinTimeouts = new LongAdder();
+        final LongAdder leaderAborts = new LongAdder();
+    }
+
+    /** Marks a leader that was interrupted or cancelled; never thrown to callers. */
+    private static final class LeaderAborted extends RuntimeException {
+        static final LeaderAborted INSTANCE = new LeaderAborted();
+
+        private LeaderAborted() {
+            super("coalesced web search leader aborted", null, false, false);
+        }
+    }
+}
@@ -22,6 +22,27 @@ public class Bm25Props {
     @Value("${bm25.maxDocs:20000}")
     private int maxDocs = 20000;
 
+    /**
+     * 증분(NRT) 색인: 한 번 전체 색인된 뒤에는 TM 변경분만 updateDocument 로 반영한다.
+     * 검색은 최대 nrtMaxStaleMs 만큼 늦게 변경을 본다.
+     */
+    @Value("${bm25.nrt.enabled:true}")
+    private boolean nrtEnabled = true;
+
+    @Value("${bm25.nrt.maxStaleMs:1000}")
+    private long nrtMaxStaleMs = 1000L;
+
+    @Value("${bm25.nrt.minStaleMs:25}")
+    private long nrtMinStaleMs = 25L;
+
+    /** 변경 커서 한 번 폴링에 반영할 최대 행 수. */
+    @Value("${bm25.nrt.batchSize:500}")
+    private int nrtBatchSize = 500;
+
+    /** 커서/변경분 commit(fsync) 최소 간격. 그 사이 변경은 NRT 로만 보인다. */
+    @Value("${bm25.nrt.commitIntervalMs:30000}")
+    private long nrtCommitIntervalMs = 30000L;
+
     public boolean isEnabled() {
         return enabled;
     }
@@ -53,4 +74,44 @@ public class Bm25Props {
     public void setMaxDocs(int maxDocs) {
         this.maxDocs = maxDocs;
     }
+
+    public boolean isNrtEnabled() {
+        return nrtEnabled;
+    }
+
+    public void setNrtEnabled(boolean nrtEnabled) {
+        this.nrtEnabled = nrtEnabled;
+    }
+
+    public long getNrtMaxStaleMs() {
+        return Math.max(1L, nrtMaxStaleMs);
+    }
+
+    public void setNrtMaxStaleMs(long nrtMaxStaleMs) {
+        this.nrtMaxStaleMs = nrtMaxStaleMs;
+    }
+
+    public long getNrtMinStaleMs() {
+        return Math.max(1L, Math.min(nrtMinStaleMs, getNrtMaxStaleMs()));
+    }
+
+    public void setNrtMinStaleMs(long nrtMinStaleMs) {
+        this.nrtMinStaleMs = nrtMinStaleMs;
+    }
+
+    public int getNrtBatchSize() {
+        return Math.max(1, nrtBatchSize);
+    }
+
+    public void setNrtBatchSize(int nrtBatchSize) {
+        this.nrtBatchSize = nrtBatchSize;
+    }
+
+    public long getNrtCommitIntervalMs() {
+        return Math.max(0L, nrtCommitIntervalMs);
+    }
+
+    public void setNrtCommitIntervalMs(long nrtCommitIntervalMs) {
+        this.nrtCommitIntervalMs = nrtCommitIntervalMs;
+    }
 }
@@ -0,0 +1,37 @@
+package com.abandonware.ai.agent.config;
+
+import com.abandonware.ai.agent.job.InMemoryJobQueue;
+import com.abandonware.ai.agent.job.JobQueue;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * 로컬 작업 큐 빈. {@code agent.jobs.queue.journal-path} 를 지정하면 WAL 파일로 재시작 후에도
+ * 미완료 작업이 복구되고, 비워 두면 메모리 전용으로 동작한다.
+ */
+@Configuration
+public class JobQueueConfig {
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean(JobQueue.class)
+    public InMemoryJobQueue jobQueue(
+            @Value("${agent.jobs.queue.journal-path:}") String journalPath,
+            @Value("${agent.jobs.queue.fsync:false}") boolean fsync,
+            @Value("${agent.jobs.queue.visibility-timeout-ms:300000}") long visibilityTimeoutMs,
+            @Value("${agent.jobs.queue.max-attempts:3}") int maxAttempts,
+            @Value("${agent.jobs.queue.retry-backoff-ms:1000}") long retryBackoffMs,
+            @Value("${agent.jobs.queue.finished-ttl-ms:3600000}") long finishedTtlMs) {
+        return new InMemoryJobQueue(
+                journalPath == null || journalPath.isBlank() ? null : Path.of(journalPath.trim()),
+                fsync,
+                Duration.ofMillis(visibilityTimeoutMs),
+                maxAttempts,
+                Duration.ofMillis(retryBackoffMs),
+                Duration.ofMillis(finishedTtlMs));
+    }
+}
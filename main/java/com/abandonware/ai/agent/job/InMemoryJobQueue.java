@@ -2,82 +2,313 @@ package com.abandonware.ai.agent.job;
 
 import com.example.lms.search.TraceStore;
 import com.example.lms.trace.SafeRedactor;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Queue;
+import java.util.PriorityQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 
 
 /**
- * Simple in-memory implementation of {@link JobQueue}.  Jobs are grouped
- * by flow name and stored in concurrent queues.  A separate lookup map
- * allows acknowledgement and state transitions by job identifier.  This
- * implementation is intended for unit testing and demonstrations only; it
- * does not support persistence across restarts or distribution across
- * multiple processes.
+ * Local implementation of {@link JobQueue}.  Jobs are grouped by flow name;
+ * each flow has its own lock and condition, so a blocked {@link #dequeue}
+ * wakes as soon as a job is enqueued instead of polling.
+ *
+ * <p>A dequeued job is leased for the visibility timeout.  If it is not
+ * acknowledged in time it is redelivered, and {@link #ackFailure} with
+ * {@code toDlq == false} retries with exponential backoff until
+ * {@code maxAttempts} deliveries have been made.  Finished records stay
+ * queryable via {@link #find} for {@code finishedTtl} and are then evicted.
+ * With a journal path the queue writes every transition to a
+ * {@link JobJournal} (including each delivery, so a job that keeps crashing
+ * its consumer still runs out of attempts across restarts) and replays
+ * unfinished jobs on construction; without one it is purely in memory.  The queue does not coordinate across
+ * processes.</p>
  */
-public class InMemoryJobQueue implements JobQueue {
-    private final Map<String, Queue<JobRecord>> queues = new ConcurrentHashMap<>();
+public class InMemoryJobQueue implements JobQueue, AutoCloseable {
+    public static final Duration DEFAULT_VISIBILITY_TIMEOUT = Duration.ofMinutes(5);
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    public static final Duration DEFAULT_RETRY_BACKOFF = Duration.ofSeconds(1);
+    public static final Duration DEFAULT_FINISHED_TTL = Duration.ofHours(1);
+    private static final long MAX_RETRY_BACKOFF_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
     private final Map<String, JobRecord> records = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<JobRecord> finished = new ConcurrentLinkedQueue<>();
+    private final long visibilityTimeoutNanos;
+    private final int maxAttempts;
+    private final long retryBackoffNanos;
+    private final Duration finishedTtl;
+    private final JobJournal journal;
+
+    public InMemoryJobQueue() {
+        this(null, false, DEFAULT_VISIBILITY_TIMEOUT, DEFAULT_MAX_ATTEMPTS, DEFAULT_RETRY_BACKOFF,
+                DEFAULT_FINISHED_TTL);
+    }
+
+    /**
+     * @param journalPath write-ahead file, or {@code null} for a memory-only queue
+     * @param fsync       force the journal to disk after every append
+     */
+    public InMemoryJobQueue(Path journalPath, boolean fsync, Duration visibilityTimeout, int maxAttempts,
+                            Duration retryBackoff, Duration finishedTtl) {
+        this.visibilityTimeoutNanos = positiveNanos(visibilityTimeout, DEFAULT_VISIBILITY_TIMEOUT);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffNanos = positiveNanos(retryBackoff, DEFAULT_RETRY_BACKOFF);
+        this.finishedTtl = finishedTtl == null || finishedTtl.isNegative() ? DEFAULT_FINISHED_TTL : finishedTtl;
+        this.journal = journalPath == null ? null : new JobJournal(journalPath, fsync);
+        if (journal != null) {
+            List<JobRecord> restored = journal.replay();
+            journal.rewrite(restored);
+            for (JobRecord record : restored) {
+                records.put(record.id().value(), record);
+                lane(flowKey(record.request().flow())).offer(record);
+            }
+        }
+    }
 
     @Override
     public String enqueue(JobRequest request) {
         JobRecord record = new JobRecord(new JobId(), request);
-        records.put(record.id().value(), record);
-        queues.computeIfAbsent(flowKey(record.request().flow()), f -> new ConcurrentLinkedQueue<>()).offer(record);
-        return record.id().value();
+        String jobId = record.id().value();
+        records.put(jobId, record);
+        if (journal != null) {
+            try {
+                journal.appendEnqueued(record);
+            } catch (RuntimeException e) {
+                records.remove(jobId);
+                throw e;
+            }
+        }
+        lane(flowKey(record.request().flow())).offer(record);
+        evictExpired();
+        return jobId;
     }
 
     @Override
     public Optional<JobRecord> dequeue(String flow, long blockMillis) {
         String flowKey = flowKey(flow);
-        Queue<JobRecord> q = queues.computeIfAbsent(flowKey, f -> new ConcurrentLinkedQueue<>());
-        long deadline = java.time.Instant.now().toEpochMilli() + blockMillis;
-        while (true) {
-            JobRecord rec = q.poll();
-            if (rec != null) {
-                synchronized (rec) {
+        Lane lane = lane(flowKey);
+        long remaining = TimeUnit.MILLISECONDS.toNanos(Math.max(0L, blockMillis));
+        lane.lock.lock();
+        try {
+            while (true) {
+                long now = System.nanoTime();
+                fireDueTimers(lane, now);
+                JobRecord rec = lane.pollPending();
+                if (rec != null) {
+                    if (rec.attempts() >= maxAttempts) {
+                        // every delivery was used up before a crash; a poison job must not loop across restarts
+                        rec.setState(JobState.DLQ);
+                        finishLater(rec);
+                        continue;
+                    }
+                    int attempt = rec.attempts() + 1;
+                    if (journal != null) {
+                        try {
+                            journal.appendAttempts(rec.id().value(), attempt);
+                        } catch (RuntimeException e) {
+                            lane.queue.addFirst(rec);
+                            throw e;
+                        }
+                    }
                     rec.setState(JobState.RUNNING);
+                    rec.setAttempts(attempt);
+                    lane.timers.add(new Timer(now + visibilityTimeoutNanos, rec, attempt, true));
+                    return Optional.of(rec);
                 }
-                return Optional.of(rec);
-            }
-            if (blockMillis <= 0 || java.time.Instant.now().toEpochMilli() >= deadline) {
-                return Optional.empty();
-            }
-            try {
-                TimeUnit.MILLISECONDS.sleep(50);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                traceSuppressed("sleep.interrupted", flowKey, e);
-                return Optional.empty();
+                if (remaining <= 0L) {
+                    return Optional.empty();
+                }
+                Timer next = lane.timers.peek();
+                long wait = next == null ? remaining : Math.min(remaining, Math.max(1L, next.dueNanos() - now));
+                lane.ready.awaitNanos(wait);
+                remaining -= System.nanoTime() - now;
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // stage label predates the condition wait; kept so existing breadcrumb readers still match
+            traceSuppressed("sleep.interrupted", flowKey, e);
+            return Optional.empty();
+        } finally {
+            lane.lock.unlock();
         }
     }
 
     @Override
     public void ackSuccess(String jobId, JobResult result) {
-        JobRecord rec = records.get(jobId);
-        if (rec != null) {
-            synchronized (rec) {
-                rec.setResult(result);
-                rec.setState(JobState.SUCCEEDED);
+        JobRecord rec = jobId == null ? null : records.get(jobId);
+        if (rec == null) {
+            return;
+        }
+        Lane lane = lane(flowKey(rec.request().flow()));
+        lane.lock.lock();
+        try {
+            if (isTerminal(rec.state())) {
+                return;
             }
+            rec.setResult(result);
+            rec.setState(JobState.SUCCEEDED);
+        } finally {
+            lane.lock.unlock();
         }
+        finish(rec);
     }
 
+    /**
+     * Records a failed execution.  With {@code toDlq} the job is dead-lettered
+     * immediately; otherwise it is retried after an exponential backoff and
+     * marked FAILED once {@code maxAttempts} deliveries have been used.
+     */
     @Override
     public void ackFailure(String jobId, String reason, boolean toDlq) {
-        JobRecord rec = records.get(jobId);
-        if (rec != null) {
-            synchronized (rec) {
-                rec.setState(toDlq ? JobState.DLQ : JobState.FAILED);
+        JobRecord rec = jobId == null ? null : records.get(jobId);
+        if (rec == null) {
+            return;
+        }
+        Lane lane = lane(flowKey(rec.request().flow()));
+        boolean terminal;
+        lane.lock.lock();
+        try {
+            if (isTerminal(rec.state())) {
+                return;
+            }
+            if (toDlq) {
+                rec.setState(JobState.DLQ);
+                terminal = true;
+            } else {
+                terminal = !scheduleRetry(lane, rec, JobState.FAILED);
+            }
+        } finally {
+            lane.lock.unlock();
+        }
+        if (terminal) {
+            finish(rec);
+        }
+    }
+
+    /** Looks up a queued, running or recently finished job. */
+    public Optional<JobRecord> find(String jobId) {
+        return jobId == null ? Optional.empty() : Optional.ofNullable(records.get(jobId));
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    /** Fires due lease-expiry and retry timers; stale timers (acked or redelivered jobs) are dropped. */
+    private void fireDueTimers(Lane lane, long now) {
+        Timer timer;
+        while ((timer = lane.timers.peek()) != null && timer.dueNanos() - now <= 0L) {
+            lane.timers.poll();
+            JobRecord rec = timer.record();
+            if (rec.attempts() != timer.attempt()) {
+                continue;
+            }
+            JobState state = rec.state();
+            if (timer.lease() && state == JobState.RUNNING) {
+                // lease expired: the consumer died or stalled, so the delivery counts as a failure
+                if (!scheduleRetry(lane, rec, JobState.DLQ)) {
+                    finishLater(rec);
+                }
+            } else if (!timer.lease() && state == JobState.PENDING) {
+                lane.queue.addLast(rec);
+            }
+        }
+    }
+
+    /**
+     * Puts {@code rec} back to PENDING behind a backoff timer, or moves it to
+     * {@code exhaustedState} when no attempts are left.  Caller holds the lane lock.
+     *
+     * @return {@code true} if a retry was scheduled
+     */
+    private boolean scheduleRetry(Lane lane, JobRecord rec, JobState exhaustedState) {
+        int attempts = rec.attempts();
+        if (attempts >= maxAttempts) {
+            rec.setState(exhaustedState);
+            return false;
+        }
+        rec.setState(JobState.PENDING);
+        long backoff = retryBackoffNanos << Math.min(20, Math.max(0, attempts - 1));
+        lane.timers.add(new Timer(System.nanoTime() + Math.min(backoff, MAX_RETRY_BACKOFF_NANOS), rec, attempts,
+                false));
+        lane.ready.signalAll();
+        return true;
+    }
+
+    private void finish(JobRecord rec) {
+        finishLater(rec);
+        evictExpired();
+    }
+
+    private void finishLater(JobRecord rec) {
+        finished.add(rec);
+        if (journal != null) {
+            journal.appendTerminal(rec.id().value(), rec.state());
+            if (journal.shouldCompact()) {
+                compactJournal();
             }
         }
     }
 
+    /** Snapshots the unfinished jobs inside the journal's monitor so no concurrent append is lost. */
+    private void compactJournal() {
+        journal.compact(() -> {
+            List<JobRecord> live = new ArrayList<>();
+            for (JobRecord rec : records.values()) {
+                if (!isTerminal(rec.state())) {
+                    live.add(rec);
+                }
+            }
+            live.sort(Comparator.comparing(JobRecord::enqueuedAt));
+            return live;
+        });
+    }
+
+    /** Drops finished records older than the TTL; {@code finished} is in completion order. */
+    private void evictExpired() {
+        Instant cutoff = Instant.now().minus(finishedTtl);
+        JobRecord head;
+        while ((head = finished.peek()) != null) {
+            Instant completedAt = head.completedAt();
+            if (completedAt != null && completedAt.isAfter(cutoff)) {
+                return;
+            }
+            if (finished.remove(head)) {
+                records.remove(head.id().value(), head);
+            }
+        }
+    }
+
+    private Lane lane(String flowKey) {
+        return lanes.computeIfAbsent(flowKey, f -> new Lane());
+    }
+
+    private static boolean isTerminal(JobState state) {
+        return state == JobState.SUCCEEDED || state == JobState.FAILED || state == JobState.DLQ;
+    }
+
+    private static long positiveNanos(Duration value, Duration fallback) {
+        Duration d = value == null || value.isNegative() || value.isZero() ? fallback : value;
+        return d.toNanos();
+    }
+
     private static void traceSuppressed(String stage, String flow, Throwable error) {
         TraceStore.put("agent.jobQueue.dequeue.suppressed", true);
         TraceStore.put("agent.jobQueue.dequeue.suppressed.stage",
@@ -100,4 +331,38 @@ public class InMemoryJobQueue implements JobQueue {
         }
         return flow;
     }
+
+    /** Per-flow ready queue and timers, guarded by {@code lock}. */
+    private static final class Lane {
+        final ReentrantLock lock = new ReentrantLock();
+        final Condition ready = lock.newCondition();
+        final ArrayDeque<JobRecord> queue = new ArrayDeque<>();
+        final PriorityQueue<Timer> timers = new PriorityQueue<>(
+                (a, b) -> Long.compare(a.dueNanos() - b.dueNanos(), 0L));
+
+        void offer(JobRecord record) {
+            lock.lock();
+            try {
+                queue.addLast(record);
+                ready.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /** Next PENDING record; entries acked while still queued are skipped. */
+        JobRecord pollPending() {
+            JobRecord rec;
+            while ((rec = queue.pollFirst()) != null) {
+                if (rec.state() == JobState.PENDING) {
+                    return rec;
+                }
+            }
+            return null;
+        }
+    }
+
+    /** Lease expiry ({@code lease}) or retry due time for delivery number {@code attempt} of {@code record}. */
+    private record Timer(long dueNanos, JobRecord record, int attempt, boolean lease) {
+    }
 }
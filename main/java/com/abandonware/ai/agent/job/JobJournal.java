@@ -0,0 +1,219 @@
+package com.abandonware.ai.agent.job;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+
+
+/**
+ * Append-only write-ahead file backing {@link InMemoryJobQueue}.  Each line
+ * is one JSON event: {@code E} (enqueued request), {@code R} (deliveries
+ * made so far, written before a job is handed out) and {@code S} (terminal
+ * state).  On open the file is replayed and rewritten with only the
+ * unfinished jobs; jobs that were RUNNING when the process died come back as
+ * PENDING with that delivery counted, which is the same redelivery a
+ * visibility timeout would have produced.
+ */
+final class JobJournal implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(JobJournal.class);
+    private static final TypeReference<Map<String, Object>> EVENT = new TypeReference<>() { };
+
+    /** Terminal events appended before the file is rewritten again. */
+    static final int COMPACT_AFTER_TERMINAL_EVENTS = 10_000;
+
+    private final Path path;
+    private final boolean fsync;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private FileOutputStream out;
+    private Writer writer;
+    private int terminalSinceCompaction;
+
+    JobJournal(Path path, boolean fsync) {
+        this.path = path;
+        this.fsync = fsync;
+    }
+
+    /** Replays the file and returns the unfinished jobs in enqueue order. */
+    synchronized List<JobRecord> replay() {
+        Map<String, JobRecord> live = new LinkedHashMap<>();
+        if (!Files.exists(path)) {
+            return new ArrayList<>();
+        }
+        int skipped = 0;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    apply(mapper.readValue(line, EVENT), live);
+                } catch (IOException | RuntimeException e) {
+                    // a torn tail line after a crash; the event was never acknowledged to the caller
+                    skipped++;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("job journal replay failed", e);
+        }
+        if (skipped > 0) {
+            log.warn("[AWX][jobs] skipped {} unreadable job journal lines", skipped);
+        }
+        return new ArrayList<>(live.values());
+    }
+
+    synchronized void appendEnqueued(JobRecord record) {
+        write(enqueuedEvent(record));
+    }
+
+    synchronized void appendAttempts(String jobId, int attempts) {
+        write(attemptsEvent(jobId, attempts));
+    }
+
+    synchronized void appendTerminal(String jobId, JobState state) {
+        write(Map.of("op", "S", "id", jobId, "state", state.name()));
+        terminalSinceCompaction++;
+    }
+
+    synchronized boolean shouldCompact() {
+        return terminalSinceCompaction >= COMPACT_AFTER_TERMINAL_EVENTS;
+    }
+
+    /**
+     * Rewrites the file with the jobs {@code live} returns, evaluated under
+     * this journal's monitor: a terminal or attempt event appended by another
+     * thread lands either before the snapshot (and is reflected in it) or
+     * after the rewrite, never in between where the rewrite would drop it.
+     */
+    synchronized void compact(Supplier<? extends Collection<JobRecord>> live) {
+        rewrite(live.get());
+    }
+
+    /**
+     * Atomically replaces the file with enqueue events for {@code live}.  A
+     * job enqueued concurrently may appear twice afterwards; replay keeps the
+     * first occurrence.
+     */
+    synchronized void rewrite(Collection<JobRecord> live) {
+        Path tmp = path.resolveSibling(path.getFileName() + ".compact");
+        try {
+            closeWriter();
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            try (FileOutputStream fos = new FileOutputStream(tmp.toFile());
+                 Writer w = new BufferedWriter(new OutputStreamWriter(fos, StandardCharsets.UTF_8))) {
+                for (JobRecord record : live) {
+                    writeLine(w, enqueuedEvent(record));
+                    if (record.attempts() > 0) {
+                        writeLine(w, attemptsEvent(record.id().value(), record.attempts()));
+                    }
+                }
+                w.flush();
+                fos.getChannel().force(true);
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            terminalSinceCompaction = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException("job journal compaction failed", e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closeWriter();
+    }
+
+    private static Map<String, Object> enqueuedEvent(JobRecord record) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("op", "E");
+        event.put("id", record.id().value());
+        event.put("flow", record.request().flow());
+        event.put("payload", record.request().payload());
+        event.put("rid", record.request().requestId());
+        event.put("sid", record.request().sessionId());
+        event.put("at", record.enqueuedAt().toEpochMilli());
+        return event;
+    }
+
+    private static Map<String, Object> attemptsEvent(String jobId, int attempts) {
+        return Map.of("op", "R", "id", jobId, "attempts", attempts);
+    }
+
+    private void apply(Map<String, Object> event, Map<String, JobRecord> live) {
+        String id = String.valueOf(event.get("id"));
+        switch (String.valueOf(event.get("op"))) {
+            case "E" -> {
+                if (!live.containsKey(id)) {
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> payload = (Map<String, Object>) event.get("payload");
+                    JobRequest request = new JobRequest((String) event.get("flow"), payload,
+                            (String) event.get("rid"), (String) event.get("sid"));
+                    Object at = event.get("at");
+                    live.put(id, new JobRecord(new JobId(id), request,
+                            at instanceof Number n ? Instant.ofEpochMilli(n.longValue()) : null));
+                }
+            }
+            case "R" -> {
+                JobRecord record = live.get(id);
+                if (record != null && event.get("attempts") instanceof Number n) {
+                    record.setAttempts(n.intValue());
+                }
+            }
+            case "S" -> live.remove(id);
+            default -> throw new IllegalArgumentException("unknown job journal op");
+        }
+    }
+
+    private void write(Map<String, Object> event) {
+        try {
+            if (writer == null) {
+                out = new FileOutputStream(path.toFile(), true);
+                writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            }
+            writeLine(writer, event);
+            writer.flush();
+            if (fsync) {
+                out.getChannel().force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("job journal append failed", e);
+        }
+    }
+
+    private void writeLine(Writer w, Map<String, Object> event) throws IOException {
+        w.write(mapper.writeValueAsString(event));
+        w.write('\n');
+    }
+
+    private void closeWriter() throws IOException {
+        if (writer != null) {
+            try {
+                writer.close();
+            } finally {
+                writer = null;
+                out = null;
+            }
+        }
+    }
+}
@@ -20,12 +20,18 @@ public final class JobRecord {
     private JobResult result;
     private final Instant enqueuedAt;
     private Instant completedAt;
+    private int attempts;
 
     public JobRecord(JobId id, JobRequest request) {
+        this(id, request, null);
+    }
+
+    /** Restores a record replayed from a queue journal, keeping its original enqueue time. */
+    JobRecord(JobId id, JobRequest request, Instant enqueuedAt) {
         this.id = id == null ? new JobId() : id;
         this.request = request == null ? new JobRequest("default", Map.of(), null, null) : request;
         this.state = JobState.PENDING;
-        this.enqueuedAt = Instant.now();
+        this.enqueuedAt = enqueuedAt == null ? Instant.now() : enqueuedAt;
     }
 
     public JobId id() {
@@ -56,6 +62,15 @@ public final class JobRecord {
         this.result = result;
     }
 
+    /** Number of times the record has been handed to a consumer (including redeliveries). */
+    public synchronized int attempts() {
+        return attempts;
+    }
+
+    synchronized void setAttempts(int attempts) {
+        this.attempts = Math.max(0, attempts);
+    }
+
     public Instant enqueuedAt() {
         return enqueuedAt;
     }
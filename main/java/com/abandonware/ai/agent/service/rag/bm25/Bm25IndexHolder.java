@@ -1,55 +1,107 @@
 package com.abandonware.ai.agent.service.rag.bm25;
 
+import com.abandonware.ai.agent.config.Bm25Props;
 import com.example.lms.trace.SafeRedactor;
 import jakarta.annotation.PreDestroy;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
-import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.ControlledRealTimeReopenThread;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermRangeQuery;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * BM25 인덱스 단일 소유자.
+ *
+ * <p>수명 동안 하나의 {@link IndexWriter} 를 열어 두고, 검색은 그 writer 에서 바로 여는 NRT 리더
+ * ({@link SearcherManager}) 로 한다. {@link ControlledRealTimeReopenThread} 가 리더를 주기적으로 다시 열어
+ * 쓰기 후 최대 {@code bm25.nrt.maxStaleMs} 안에 검색에 보이게 하고, {@link #awaitVisible} 로 특정 쓰기를
+ * 기다릴 수도 있다. 문서는 TM id({@link #KEY_FIELD}) 로 갱신/삭제된다.</p>
+ */
 @Component
 public class Bm25IndexHolder {
 
     private static final Logger log = LoggerFactory.getLogger(Bm25IndexHolder.class);
 
+    /** updateDocument/deleteDocuments 키 (TranslationMemory id). */
+    public static final String KEY_FIELD = "tmId";
+    /** 전체 재색인(compaction) 세대. 세대가 지난 문서는 compaction 끝에서 지워진다. */
+    public static final String EPOCH_FIELD = "epoch";
+    /** 색인 순위(last_used_at desc, id desc)의 첫 키: last_used_at epoch millis, 없으면 {@link Long#MIN_VALUE}. */
+    public static final String LAST_USED_FIELD = "lastUsedMs";
+    /** 색인 순위의 둘째 키(TM id). */
+    public static final String ROW_ID_FIELD = "tmIdNum";
+
     private final Path indexPath;
     private final Directory dir;
     private final StandardAnalyzer analyzer;
-
-    private volatile DirectoryReader reader;
+    private final IndexWriter writer;
+    private final SearcherManager searchers;
+    private final ControlledRealTimeReopenThread<IndexSearcher> reopener;
+    private final Map<String, String> committedData;
 
     public Bm25IndexHolder() {
-        this.indexPath = Paths.get(System.getProperty("user.dir"), "bm25_index");
+        this(defaultPath(), 1000L, 25L);
+    }
+
+    @Autowired
+    public Bm25IndexHolder(Bm25Props props) {
+        this(defaultPath(), props.getNrtMaxStaleMs(), props.getNrtMinStaleMs());
+    }
+
+    Bm25IndexHolder(Path indexPath, long maxStaleMs, long minStaleMs) {
+        this.indexPath = indexPath;
         this.analyzer = new StandardAnalyzer();
         try {
             Files.createDirectories(indexPath);
             this.dir = FSDirectory.open(indexPath);
-
-            // Ensure an index exists (even empty) so DirectoryReader.open won't explode.
-            if (!DirectoryReader.indexExists(dir)) {
-                try (IndexWriter w = new IndexWriter(dir, new IndexWriterConfig(analyzer))) {
-                    w.commit();
-                }
+            this.writer = new IndexWriter(dir, new IndexWriterConfig(analyzer)
+                    .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+            Map<String, String> data = new HashMap<>();
+            if (writer.getLiveCommitData() != null) {
+                writer.getLiveCommitData().forEach(e -> data.put(e.getKey(), e.getValue()));
             }
-
-            this.reader = DirectoryReader.open(dir);
+            this.committedData = Map.copyOf(data);
+            // Ensure a commit point exists (even empty) for readers opened outside this holder.
+            writer.commit();
+
+            this.searchers = new SearcherManager(writer, null);
+            this.reopener = new ControlledRealTimeReopenThread<>(writer, searchers,
+                    maxStaleMs / 1000.0, minStaleMs / 1000.0);
+            reopener.setName("bm25-nrt-reopen");
+            reopener.setDaemon(true);
+            reopener.start();
         } catch (IOException e) {
             throw new RuntimeException("Failed to init BM25 index pathHash="
                     + SafeRedactor.hashValue(String.valueOf(indexPath)), e);
         }
     }
 
+    private static Path defaultPath() {
+        return Paths.get(System.getProperty("user.dir"), "bm25_index");
+    }
+
     public Path indexPath() {
         return indexPath;
     }
@@ -58,25 +110,98 @@ public class Bm25IndexHolder {
         return analyzer;
     }
 
+    /**
+     * 현재 NRT 검색기를 빌려 준다. 리더가 재오픈 중에 닫히지 않도록 참조를 잡으므로,
+     * 사용 후 반드시 {@link #release(IndexSearcher)} 해야 한다.
+     */
     public IndexSearcher searcher() {
-        refreshIfNeeded();
-        return new IndexSearcher(reader);
+        try {
+            return searchers.acquire();
+        } catch (IOException e) {
+            throw new IllegalStateException("BM25 searcher acquire failed", e);
+        }
+    }
+
+    public void release(IndexSearcher searcher) {
+        if (searcher == null) {
+            return;
+        }
+        try {
+            searchers.release(searcher);
+        } catch (IOException releaseError) {
+            log.debug("BM25 searcher release skipped. errorHash={} errorLength={}",
+                    SafeRedactor.hashValue(messageOf(releaseError)), messageLength(releaseError));
+        }
+    }
+
+    /** 키가 같은 문서를 원자적으로 교체한다. 반환값은 {@link #awaitVisible} 에 넘길 세대. */
+    public long upsert(String key, Iterable<? extends IndexableField> doc) throws IOException {
+        return writer.updateDocument(new Term(KEY_FIELD, key), doc);
+    }
+
+    public long delete(String key) throws IOException {
+        return writer.deleteDocuments(new Term(KEY_FIELD, key));
+    }
+
+    /** compaction 마무리: {@code epoch} 이전 세대로만 남은 문서(이번 재색인에서 다시 쓰이지 않은 것)를 지운다. */
+    public long deleteOlderThan(long epoch) throws IOException {
+        return writer.deleteDocuments(LongPoint.newRangeQuery(EPOCH_FIELD, Long.MIN_VALUE, epoch - 1));
+    }
+
+    /**
+     * 키({@link #KEY_FIELD}) 없이 쓰인 문서, 즉 증분 색인 이전 버전이 만든 문서를 지운다. 이 문서들은
+     * {@link #upsert} 로 교체되지도, {@link #deleteOlderThan} 에 걸리지도 않는다.
+     */
+    public long deleteUnkeyed() throws IOException {
+        Query keyed = new TermRangeQuery(KEY_FIELD, null, null, true, true);
+        return writer.deleteDocuments(new BooleanQuery.Builder()
+                .add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST)
+                .add(keyed, BooleanClause.Occur.MUST_NOT)
+                .build());
+    }
+
+    /** 순위가 ({@code lastUsedMs}, {@code rowId}) 보다 낮은 문서를 지운다(maxDocs 밖으로 밀린 행). */
+    public long deleteRankedBelow(long lastUsedMs, long rowId) throws IOException {
+        BooleanQuery.Builder below = new BooleanQuery.Builder();
+        if (lastUsedMs > Long.MIN_VALUE) {
+            below.add(LongPoint.newRangeQuery(LAST_USED_FIELD, Long.MIN_VALUE, lastUsedMs - 1),
+                    BooleanClause.Occur.SHOULD);
+        }
+        if (rowId > Long.MIN_VALUE) {
+            below.add(new BooleanQuery.Builder()
+                    .add(LongPoint.newExactQuery(LAST_USED_FIELD, lastUsedMs), BooleanClause.Occur.MUST)
+                    .add(LongPoint.newRangeQuery(ROW_ID_FIELD, Long.MIN_VALUE, rowId - 1), BooleanClause.Occur.MUST)
+                    .build(), BooleanClause.Occur.SHOULD);
+        }
+        return writer.deleteDocuments(below.build());
+    }
+
+    /** {@code generation} 까지의 쓰기가 검색에 보일 때까지 최대 {@code maxWaitMs} 기다린다. */
+    public boolean awaitVisible(long generation, long maxWaitMs) throws InterruptedException {
+        return reopener.waitForGeneration(generation, (int) Math.min(Integer.MAX_VALUE, Math.max(0L, maxWaitMs)));
+    }
+
+    /** 마지막으로 디스크에 commit 된 사용자 데이터(증분 커서/세대). 기동 시점 값이다. */
+    public Map<String, String> committedData() {
+        return committedData;
+    }
+
+    /** 다음 commit(명시적 또는 close 시) 에 함께 기록될 커서/세대. */
+    public void setCommitData(Map<String, String> data) {
+        writer.setLiveCommitData(Map.copyOf(data).entrySet());
+    }
+
+    public void commit() throws IOException {
+        writer.commit();
+    }
+
+    public int numDocs() {
+        return writer.getDocStats().numDocs;
     }
 
     public synchronized void refreshIfNeeded() {
         try {
-            DirectoryReader newReader = DirectoryReader.openIfChanged(reader);
-            if (newReader != null) {
-                DirectoryReader old = reader;
-                reader = newReader;
-                try {
-                    old.close();
-                } catch (IOException closeError) {
-                    log.debug("BM25 old reader close skipped. errorHash={} errorLength={}",
-                            SafeRedactor.hashValue(messageOf(closeError)), messageLength(closeError));
-                }
-                log.info("BM25 index reader refreshed.");
-            }
+            searchers.maybeRefreshBlocking();
         } catch (IOException e) {
             log.warn("BM25 index refresh failed. errorHash={} errorLength={}",
                     SafeRedactor.hashValue(messageOf(e)), messageLength(e));
@@ -85,10 +210,18 @@ public class Bm25IndexHolder {
 
     @PreDestroy
     public void close() {
+        reopener.close();
+        try {
+            searchers.close();
+        } catch (IOException closeError) {
+            log.debug("BM25 searcher manager close skipped. errorHash={} errorLength={}",
+                    SafeRedactor.hashValue(messageOf(closeError)), messageLength(closeError));
+        }
         try {
-            reader.close();
+            // commits pending NRT changes together with the last cursor
+            writer.close();
         } catch (IOException closeError) {
-            log.debug("BM25 reader close skipped. errorHash={} errorLength={}",
+            log.debug("BM25 writer close skipped. errorHash={} errorLength={}",
                     SafeRedactor.hashValue(messageOf(closeError)), messageLength(closeError));
         }
         try {
@@ -5,33 +5,73 @@ import com.example.lms.entity.TranslationMemory;
 import com.example.lms.repository.TranslationMemoryRepository;
 import com.example.lms.trace.SafeRedactor;
 import jakarta.annotation.PostConstruct;
-import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
-import org.apache.lucene.index.IndexWriter;
-import org.apache.lucene.index.IndexWriterConfig;
-import org.apache.lucene.store.FSDirectory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
 import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+/**
+ * TranslationMemory → BM25 색인.
+ *
+ * <p>처음 한 번은 {@link #rebuildFromTranslationMemory()} 로 전체 색인하고, 그 뒤로는 변경 커서(최대 id,
+ * (updated_at, id) 키셋)를 따라 {@link #syncChanges()} 가 바뀐 행만 {@code updateDocument} 로 반영한다. 전체 재색인은
+ * 이제 주기적 compaction 이다: 현재 행들을 새 세대로 다시 쓰고, 끝에서 이전 세대로만 남은 문서(삭제된 행,
+ * maxDocs 밖으로 밀린 행)를 지운다. 재색인 도중에도 기존 문서는 검색된다. 증분 동기화도 maxDocs 를 지켜, 순위
+ * (last_used_at desc, id desc)가 maxDocs 밖으로 밀린 행은 그 폴링에서 바로 뺀다. 커서 없이 시작한 첫 재색인은
+ * 키 없이 쓰인 이전 버전 문서를 끝에서 지운다.</p>
+ */
 @Service
 public class Bm25IndexService {
 
     private static final Logger log = LoggerFactory.getLogger(Bm25IndexService.class);
 
+    static final String CURSOR_MAX_ID = "bm25.cursor.maxId";
+    static final String CURSOR_UPDATED_AT = "bm25.cursor.updatedAt";
+    static final String CURSOR_UPDATED_ID = "bm25.cursor.updatedId";
+    static final String CURSOR_EPOCH = "bm25.epoch";
+
+    /**
+     * 최근 이만큼의 변경 행은 색인하되 키셋 커서는 그 앞에서 멈춘다: 같은 시각에 아직 커밋 중이던 행을 다음
+     * 폴링에서 다시 읽는다(upsert 는 멱등).
+     */
+    private static final long CURSOR_OVERLAP_SECONDS = 1L;
+
+    /** 색인할 행의 순위. 전체 재색인과 증분 동기화의 maxDocs 경계가 같은 순서를 쓴다. */
+    private static final Sort RANK = Sort.by(Sort.Order.desc("lastUsedAt"), Sort.Order.desc("id"));
+
     private final Bm25Props props;
     private final Bm25IndexHolder holder;
     private final ObjectProvider<TranslationMemoryRepository> tmRepoProvider;
 
+    /** epoch 전환(쓰기)과 문서 쓰기(읽기)를 분리: 이전 세대로 늦게 쓰인 문서가 compaction 에 지워지지 않게. */
+    private final ReentrantReadWriteLock epochLock = new ReentrantReadWriteLock();
+    private final Object syncLock = new Object();
+
+    private volatile long epoch;
+    private volatile long cursorMaxId = -1L;
+    private volatile LocalDateTime cursorUpdatedAt;
+    private volatile long cursorUpdatedId = -1L;
+    private volatile long lastCommitNanos = System.nanoTime();
+
     @Value("${bm25.autoIndex:false}")
     private boolean autoIndex;
 
@@ -41,11 +81,13 @@ public class Bm25IndexService {
         this.props = props;
         this.holder = holder;
         this.tmRepoProvider = tmRepoProvider;
+        restoreCursor(holder.committedData());
     }
 
     @PostConstruct
     public void maybeAutoIndex() {
-        if (!autoIndex) {
+        if (!autoIndex || hasCursor()) {
+            // 커서가 복원되었으면 재기동 후에도 증분 동기화로 이어간다.
             return;
         }
         try {
@@ -58,8 +100,8 @@ public class Bm25IndexService {
     }
 
     /**
-     * TranslationMemory 테이블을 기반으로 BM25 인덱스를 재생성합니다.
-     * (오프라인/로컬 테스트용 최소 구현)
+     * TranslationMemory 테이블을 기반으로 BM25 인덱스를 다시 씁니다(compaction).
+     * 끝나면 증분 커서가 설정되어 이후 변경은 {@link #syncChanges()} 가 반영합니다.
      */
     public void rebuildFromTranslationMemory() {
         TranslationMemoryRepository repo = tmRepoProvider.getIfAvailable();
@@ -70,25 +112,26 @@ public class Bm25IndexService {
 
         int maxDocs = Math.max(1, props.getMaxDocs());
         int pageSize = Math.min(1000, maxDocs);
-
-        Sort sort = Sort.by(Sort.Order.desc("lastUsedAt"), Sort.Order.desc("id"));
+        // 커서가 없으면 처음이거나 이전 버전 색인 위: 키/세대 없는 문서는 끝에서 따로 지운다.
+        boolean fromScratch = !hasCursor();
 
         Path path = holder.indexPath();
         log.info("Rebuilding BM25 index pathHash={} pathLength={} (maxDocs={})",
                 SafeRedactor.hashValue(String.valueOf(path)), String.valueOf(path).length(), maxDocs);
 
-        try (var dir = FSDirectory.open(path);
-             var writer = new IndexWriter(dir, new IndexWriterConfig(new StandardAnalyzer())
-                     .setOpenMode(IndexWriterConfig.OpenMode.CREATE))) {
-
+        long rebuildEpoch = beginEpoch();
+        try {
             int total = 0;
             int page = 0;
+            long maxId = -1L;
+            LocalDateTime maxUpdatedAt = null;
+            long maxUpdatedId = -1L;
 
             while (total < maxDocs) {
                 int remaining = maxDocs - total;
                 int size = Math.min(pageSize, remaining);
 
-                var pageable = PageRequest.of(page, size, sort);
+                var pageable = PageRequest.of(page, size, RANK);
                 var batch = repo.findAll(pageable);
 
                 if (batch.isEmpty()) {
@@ -96,18 +139,17 @@ public class Bm25IndexService {
                 }
 
                 for (TranslationMemory tm : batch) {
-                    Document doc = new Document();
-
-                    String id = safe(tm.getSourceHash(), "tm:" + tm.getId());
-                    String title = firstNonBlank(tm.getQuery(), tm.getSource(), "translation_memory");
-                    String body = firstNonBlank(tm.getCorrected(), tm.getContent(), tm.getSource(), tm.getQuery(), "");
-
-                    doc.add(new StringField("id", id, Field.Store.YES));
-                    doc.add(new StringField("title", title, Field.Store.YES));
-                    doc.add(new TextField("content", body, Field.Store.YES));
-
-                    writer.addDocument(doc);
+                    write(tm);
                     total++;
+                    if (tm.getId() != null) {
+                        maxId = Math.max(maxId, tm.getId());
+                    }
+                    if (tm.getUpdatedAt() != null && tm.getId() != null
+                            && (maxUpdatedAt == null || tm.getUpdatedAt().isAfter(maxUpdatedAt)
+                            || (tm.getUpdatedAt().isEqual(maxUpdatedAt) && tm.getId() > maxUpdatedId))) {
+                        maxUpdatedAt = tm.getUpdatedAt();
+                        maxUpdatedId = tm.getId();
+                    }
 
                     if (total >= maxDocs) {
                         break;
@@ -121,16 +163,251 @@ public class Bm25IndexService {
                 page++;
             }
 
-            writer.commit();
+            holder.deleteOlderThan(rebuildEpoch);
+            if (fromScratch) {
+                holder.deleteUnkeyed();
+            }
+            synchronized (syncLock) {
+                // 재색인 중 syncChanges 가 이미 더 앞선 커서를 가졌을 수 있다. 키셋은 색인한 가장 최근 행에서
+                // 시작하되 겹침 구간 안으로는 들어가지 않는다: 그 사이 커밋된 행은 다음 폴링이 다시 읽는다.
+                cursorMaxId = Math.max(cursorMaxId, maxId);
+                LocalDateTime settled = LocalDateTime.now().minusSeconds(CURSOR_OVERLAP_SECONDS);
+                if (maxUpdatedAt != null && !maxUpdatedAt.isAfter(settled)) {
+                    advanceUpdatedCursor(maxUpdatedAt, maxUpdatedId);
+                } else {
+                    advanceUpdatedCursor(settled, -1L);
+                }
+                commitCursor();
+            }
             log.info("BM25 index rebuild done. indexedDocs={}", total);
         } catch (Exception e) {
             throw new RuntimeException("Failed to rebuild BM25 index", e);
         }
 
-        // Refresh the in-memory reader/searcher so retrieval uses the new index.
+        // Make the compacted index visible right away instead of waiting for the reopen thread.
         holder.refreshIfNeeded();
     }
 
+    /**
+     * 변경 커서 이후 추가/수정된 TM 행을 색인에 반영한다. 전체 색인이 한 번도 안 된 상태(커서 없음)면 아무 것도
+     * 하지 않는다.
+     *
+     * @return 반영한 행 수
+     */
+    @Scheduled(fixedDelayString = "${bm25.nrt.pollMs:2000}", initialDelayString = "${bm25.nrt.pollMs:2000}")
+    public int syncChanges() {
+        if (!props.isNrtEnabled() || !hasCursor()) {
+            return 0;
+        }
+        TranslationMemoryRepository repo = tmRepoProvider.getIfAvailable();
+        if (repo == null) {
+            return 0;
+        }
+        synchronized (syncLock) {
+            try {
+                int batchSize = Math.max(1, props.getNrtBatchSize());
+                Set<Long> written = new HashSet<>();
+
+                // 신규 행(updated_at 이 비어 있을 수 있음)은 id 커서로만 따라간다; updated_at 키셋은 건드리지 않는다.
+                List<TranslationMemory> fresh = repo.findByIdGreaterThanOrderByIdAsc(cursorMaxId,
+                        PageRequest.of(0, batchSize));
+                for (TranslationMemory tm : fresh) {
+                    write(tm);
+                    written.add(tm.getId());
+                    cursorMaxId = Math.max(cursorMaxId, tm.getId());
+                }
+
+                // 변경 행은 (updated_at, id) 키셋으로 끝까지 넘긴다. 커서는 겹침 구간 이전의 마지막 행까지만 전진한다.
+                LocalDateTime settled = LocalDateTime.now().minusSeconds(CURSOR_OVERLAP_SECONDS);
+                LocalDateTime keyAt = cursorUpdatedAt;
+                long keyId = cursorUpdatedId;
+                boolean settledPrefix = true;
+                while (true) {
+                    List<TranslationMemory> touched = repo.findChangedAfter(keyAt, keyId,
+                            PageRequest.of(0, batchSize));
+                    for (TranslationMemory tm : touched) {
+                        // 이번 폴링에 신규 행으로 이미 쓴 행은 다시 쓰지 않는다.
+                        if (tm.getId() == null || written.add(tm.getId())) {
+                            write(tm);
+                        }
+                        keyAt = tm.getUpdatedAt();
+                        keyId = tm.getId() == null ? keyId : tm.getId();
+                        if (tm.getId() != null) {
+                            cursorMaxId = Math.max(cursorMaxId, tm.getId());
+                        }
+                        if (settledPrefix && !keyAt.isAfter(settled)) {
+                            advanceUpdatedCursor(keyAt, keyId);
+                        } else {
+                            settledPrefix = false;
+                        }
+                    }
+                    if (touched.size() < batchSize) {
+                        break;
+                    }
+                }
+
+                int changed = written.size();
+                if (changed > 0) {
+                    evictBeyondMaxDocs(repo);
+                    holder.setCommitData(cursorData());
+                    long intervalNanos = props.getNrtCommitIntervalMs() * 1_000_000L;
+                    if (System.nanoTime() - lastCommitNanos >= intervalNanos) {
+                        commitCursor();
+                    }
+                }
+                return changed;
+            } catch (Exception e) {
+                log.warn("BM25 incremental sync skipped. errorHash={} errorLength={}",
+                        SafeRedactor.hashValue(messageOf(e)), messageLength(e));
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * 색인을 전체 재색인과 같은 상위 maxDocs 행으로 맞춘다: maxDocs 번째 행보다 순위가 낮은 문서(이번에 쓴 행 포함)를
+     * 지운다. 행 수가 maxDocs 이하면 할 일이 없다.
+     */
+    private void evictBeyondMaxDocs(TranslationMemoryRepository repo) throws IOException {
+        int maxDocs = Math.max(1, props.getMaxDocs());
+        var edge = repo.findAll(PageRequest.of(maxDocs - 1, 1, RANK));
+        if (edge.isEmpty()) {
+            return;
+        }
+        TranslationMemory last = edge.getContent().get(0);
+        holder.deleteRankedBelow(lastUsedMillis(last), last.getId() == null ? Long.MIN_VALUE : last.getId());
+    }
+
+    /** 주기적 compaction. 증분 모드가 시작된 뒤에만 돈다. */
+    @Scheduled(fixedDelayString = "${bm25.compaction.intervalMs:21600000}",
+            initialDelayString = "${bm25.compaction.intervalMs:21600000}")
+    public void compact() {
+        if (!props.isNrtEnabled() || !hasCursor()) {
+            return;
+        }
+        try {
+            rebuildFromTranslationMemory();
+        } catch (Exception e) {
+            log.warn("BM25 compaction skipped. errorHash={} errorLength={}",
+                    SafeRedactor.hashValue(messageOf(e)), messageLength(e));
+        }
+    }
+
+    /**
+     * TM 한 행을 즉시 색인한다(저장 직후 호출용).
+     *
+     * @return {@link #awaitVisible} 에 넘길 세대
+     */
+    public long upsert(TranslationMemory tm) throws IOException {
+        return write(tm);
+    }
+
+    /** 삭제된 TM 행을 색인에서 뺀다. */
+    public long remove(Long memoryId) throws IOException {
+        if (memoryId == null) {
+            return -1L;
+        }
+        return holder.delete(String.valueOf(memoryId));
+    }
+
+    public boolean awaitVisible(long generation, long maxWaitMs) throws InterruptedException {
+        return holder.awaitVisible(generation, maxWaitMs);
+    }
+
+    boolean hasCursor() {
+        return cursorUpdatedAt != null;
+    }
+
+    private long write(TranslationMemory tm) throws IOException {
+        epochLock.readLock().lock();
+        try {
+            return holder.upsert(keyOf(tm), toDocument(tm, epoch));
+        } finally {
+            epochLock.readLock().unlock();
+        }
+    }
+
+    private long beginEpoch() {
+        epochLock.writeLock().lock();
+        try {
+            return ++epoch;
+        } finally {
+            epochLock.writeLock().unlock();
+        }
+    }
+
+    static String keyOf(TranslationMemory tm) {
+        return tm.getId() != null ? String.valueOf(tm.getId()) : "hash:" + tm.getSourceHash();
+    }
+
+    static Document toDocument(TranslationMemory tm, long epoch) {
+        Document doc = new Document();
+
+        String id = safe(tm.getSourceHash(), "tm:" + tm.getId());
+        String title = firstNonBlank(tm.getQuery(), tm.getSource(), "translation_memory");
+        String body = firstNonBlank(tm.getCorrected(), tm.getContent(), tm.getSource(), tm.getQuery(), "");
+
+        doc.add(new StringField(Bm25IndexHolder.KEY_FIELD, keyOf(tm), Field.Store.NO));
+        doc.add(new LongPoint(Bm25IndexHolder.EPOCH_FIELD, epoch));
+        doc.add(new LongPoint(Bm25IndexHolder.LAST_USED_FIELD, lastUsedMillis(tm)));
+        if (tm.getId() != null) {
+            doc.add(new LongPoint(Bm25IndexHolder.ROW_ID_FIELD, tm.getId()));
+        }
+        doc.add(new StringField("id", id, Field.Store.YES));
+        doc.add(new StringField("title", title, Field.Store.YES));
+        doc.add(new TextField("content", body, Field.Store.YES));
+        return doc;
+    }
+
+    /** NULL 은 desc 정렬에서 맨 뒤(MySQL/H2 기본)이므로 가장 낮은 값으로 둔다. */
+    private static long lastUsedMillis(TranslationMemory tm) {
+        LocalDateTime at = tm.getLastUsedAt();
+        return at == null ? Long.MIN_VALUE : at.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private void commitCursor() throws IOException {
+        holder.setCommitData(cursorData());
+        holder.commit();
+        lastCommitNanos = System.nanoTime();
+    }
+
+    private Map<String, String> cursorData() {
+        return Map.of(
+                CURSOR_MAX_ID, String.valueOf(cursorMaxId),
+                CURSOR_UPDATED_AT, String.valueOf(cursorUpdatedAt),
+                CURSOR_UPDATED_ID, String.valueOf(cursorUpdatedId),
+                CURSOR_EPOCH, String.valueOf(epoch));
+    }
+
+    /** (updated_at, id) 키셋 커서를 앞으로만 옮긴다. */
+    private void advanceUpdatedCursor(LocalDateTime updatedAt, long id) {
+        if (updatedAt == null) {
+            return;
+        }
+        if (cursorUpdatedAt == null || updatedAt.isAfter(cursorUpdatedAt)
+                || (updatedAt.isEqual(cursorUpdatedAt) && id > cursorUpdatedId)) {
+            cursorUpdatedAt = updatedAt;
+            cursorUpdatedId = id;
+        }
+    }
+
+    private void restoreCursor(Map<String, String> data) {
+        if (data == null || !data.containsKey(CURSOR_UPDATED_AT)) {
+            return;
+        }
+        try {
+            epoch = Long.parseLong(data.getOrDefault(CURSOR_EPOCH, "0"));
+            cursorMaxId = Long.parseLong(data.getOrDefault(CURSOR_MAX_ID, "-1"));
+            cursorUpdatedId = Long.parseLong(data.getOrDefault(CURSOR_UPDATED_ID, "-1"));
+            cursorUpdatedAt = LocalDateTime.parse(data.get(CURSOR_UPDATED_AT));
+        } catch (RuntimeException e) {
+            // 손상된 커서면 다음 전체 재색인부터 다시 시작한다.
+            cursorUpdatedAt = null;
+            log.warn("BM25 cursor restore skipped. errorHash={} errorLength={}",
+                    SafeRedactor.hashValue(messageOf(e)), messageLength(e));
+        }
+    }
+
     private static String safe(String v, String fallback) {
         return (v == null || v.isBlank()) ? fallback : v;
     }
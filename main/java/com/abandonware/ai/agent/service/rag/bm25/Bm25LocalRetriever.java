@@ -29,16 +29,20 @@ public class Bm25LocalRetriever {
 
     
     public List<ContextSlice> retrieve(String query, int k) {
+        IndexSearcher searcher = null;
         try {
-            if (!props.isEnabled() || holder.searcher() == null) return java.util.List.of();
+            if (!props.isEnabled()) return java.util.List.of();
+            // one pinned NRT searcher per call so hits and stored fields come from the same reader
+            searcher = holder.searcher();
+            if (searcher == null) return java.util.List.of();
             k = (k<=0)?props.getTopK():k;
             Analyzer analyzer = holder.analyzer();
             QueryParser parser = new QueryParser("content", analyzer);
             Query q = parser.parse(QueryParser.escape(query));
-            TopDocs td = holder.searcher().search(q, k);
+            TopDocs td = searcher.search(q, k);
             List<ContextSlice> out = new java.util.ArrayList<>();
             for (ScoreDoc sd : td.scoreDocs) {
-                Document d = holder.searcher().doc(sd.doc);
+                Document d = searcher.doc(sd.doc);
                 ContextSlice cs = new ContextSlice();
                 cs.setId(d.get("id"));
                 cs.setTitle(d.get("title"));
@@ -52,6 +56,8 @@ public class Bm25LocalRetriever {
         } catch (Exception e) {
             traceSuppressed("retrieve", query, e);
             return java.util.List.of();
+        } finally {
+            holder.release(searcher);
         }
     }
 
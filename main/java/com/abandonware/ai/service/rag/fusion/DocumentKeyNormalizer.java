@@ -22,8 +22,7 @@ public class DocumentKeyNormalizer {
     public String keyOf(ContextSlice d){
         String id = d.getId();
         if (id == null) return null;
-        String low = id.toLowerCase(Locale.ROOT);
-        if (low.startsWith("http://") || low.startsWith("https://")){
+        if (id.regionMatches(true, 0, "http://", 0, 7) || id.regionMatches(true, 0, "https://", 0, 8)){
             return UrlCanonicalizer.canonicalKey(id);
         }
         return id;
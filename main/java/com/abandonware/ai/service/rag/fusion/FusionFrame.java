@@ -0,0 +1,320 @@
+package com.abandonware.ai.service.rag.fusion;
+
+import java.util.Arrays;
+
+/**
+ * Per-request working set for rank fusion.
+ *
+ * <p>Candidate keys are interned to dense int ids once ({@link #add}); every lane (one retriever/provider
+ * list) is stored column-wise as primitive arrays of {@code id / score / weight} by rank position, and the
+ * fusion passes ({@link FusionPasses}) accumulate into {@link #acc()} indexed by id. Nothing is keyed by
+ * String after the add phase.</p>
+ *
+ * <p>Not thread-safe; build one per fuse call.</p>
+ */
+public final class FusionFrame {
+
+    /** Id used for items without a key: they occupy a rank slot but never score. */
+    public static final int NO_ID = -1;
+
+    // ---- key interning (open addressing, power-of-two table) ----
+    private String[] table;
+    private int[] tableIds;
+    private String[] keys;
+    private int candidates;
+
+    // ---- lanes (column store by rank position) ----
+    private final String[] laneSources;
+    private final int[][] ids;
+    private final double[][] scores;
+    private final double[][] weights;
+    private final Object[][] payloads;
+    private final int[] sizes;
+    private int lanes;
+
+    private double[] acc;
+
+    public FusionFrame(int laneCapacity, int expectedCandidates) {
+        int cap = Integer.highestOneBit(Math.max(16, expectedCandidates * 2 - 1)) << 1;
+        this.table = new String[cap];
+        this.tableIds = new int[cap];
+        this.keys = new String[Math.max(8, expectedCandidates)];
+        int l = Math.max(1, laneCapacity);
+        this.laneSources = new String[l];
+        this.ids = new int[l][];
+        this.scores = new double[l][];
+        this.weights = new double[l][];
+        this.payloads = new Object[l][];
+        this.sizes = new int[l];
+    }
+
+    /** Opens the next lane; items added to it get ranks 1..n in add order. */
+    public int openLane(String source, int capacity) {
+        int lane = lanes++;
+        int c = Math.max(1, capacity);
+        laneSources[lane] = source;
+        ids[lane] = new int[c];
+        scores[lane] = new double[c];
+        weights[lane] = new double[c];
+        payloads[lane] = new Object[c];
+        return lane;
+    }
+
+    /**
+     * Appends an item at the next rank of {@code lane}. A {@code null} key still consumes the rank.
+     *
+     * @return the interned candidate id, or {@link #NO_ID}
+     */
+    public int add(int lane, String key, double score, double weight, Object payload) {
+        int pos = sizes[lane]++;
+        if (pos == ids[lane].length) {
+            int n = Math.max(4, pos * 2);
+            ids[lane] = Arrays.copyOf(ids[lane], n);
+            scores[lane] = Arrays.copyOf(scores[lane], n);
+            weights[lane] = Arrays.copyOf(weights[lane], n);
+            payloads[lane] = Arrays.copyOf(payloads[lane], n);
+        }
+        int id = (key == null) ? NO_ID : intern(key);
+        ids[lane][pos] = id;
+        scores[lane][pos] = score;
+        weights[lane][pos] = weight;
+        payloads[lane][pos] = payload;
+        return id;
+    }
+
+    public int lanes() {
+        return lanes;
+    }
+
+    public int candidates() {
+        return candidates;
+    }
+
+    public String key(int id) {
+        return keys[id];
+    }
+
+    public String laneSource(int lane) {
+        return laneSources[lane];
+    }
+
+    public int laneSize(int lane) {
+        return sizes[lane];
+    }
+
+    public int id(int lane, int pos) {
+        return ids[lane][pos];
+    }
+
+    public double score(int lane, int pos) {
+        return scores[lane][pos];
+    }
+
+    public void score(int lane, int pos, double value) {
+        scores[lane][pos] = value;
+    }
+
+    public double weight(int lane, int pos) {
+        return weights[lane][pos];
+    }
+
+    public Object payload(int lane, int pos) {
+        return payloads[lane][pos];
+    }
+
+    /** Fused score per candidate id; zeroed on first access. */
+    public double[] acc() {
+        if (acc == null || acc.length < candidates) {
+            acc = new double[Math.max(1, candidates)];
+        }
+        return acc;
+    }
+
+    /**
+     * Within every lane, keep one item per id (the highest score, first on ties, at the position of the
+     * first occurrence), then stable-sort the lane by score descending. Key-less items are grouped together.
+     */
+    public void dedupLanes() {
+        int[] slot = new int[candidates + 1];
+        for (int l = 0; l < lanes; l++) {
+            int n = sizes[l];
+            int[] lid = ids[l];
+            double[] ls = scores[l];
+            Arrays.fill(slot, -1);
+            int[] keep = new int[n];
+            int kept = 0;
+            for (int p = 0; p < n; p++) {
+                int s = lid[p] + 1;
+                int at = slot[s];
+                if (at < 0) {
+                    slot[s] = kept;
+                    keep[kept++] = p;
+                } else if (ls[p] > ls[keep[at]]) {
+                    keep[at] = p;
+                }
+            }
+            sortDescending(keep, kept, ls);
+            int[] nid = new int[kept];
+            double[] ns = new double[kept];
+            double[] nw = new double[kept];
+            Object[] np = new Object[kept];
+            for (int i = 0; i < kept; i++) {
+                int p = keep[i];
+                nid[i] = lid[p];
+                ns[i] = ls[p];
+                nw[i] = weights[l][p];
+                np[i] = payloads[l][p];
+            }
+            ids[l] = nid;
+            scores[l] = ns;
+            weights[l] = nw;
+            payloads[l] = np;
+            sizes[l] = kept;
+        }
+    }
+
+    /** Payload of the first occurrence of every id, in lane/rank order. */
+    public Object[] firstPayloads() {
+        Object[] out = new Object[candidates];
+        for (int l = 0; l < lanes; l++) {
+            for (int p = 0; p < sizes[l]; p++) {
+                int id = ids[l][p];
+                if (id >= 0 && out[id] == null) {
+                    out[id] = payloads[l][p];
+                }
+            }
+        }
+        return out;
+    }
+
+    /** Payload with the highest lane score for every id (first wins on ties). */
+    public Object[] bestPayloads() {
+        Object[] out = new Object[candidates];
+        double[] best = new double[candidates];
+        for (int l = 0; l < lanes; l++) {
+            for (int p = 0; p < sizes[l]; p++) {
+                int id = ids[l][p];
+                if (id >= 0 && (out[id] == null || scores[l][p] > best[id])) {
+                    out[id] = payloads[l][p];
+                    best[id] = scores[l][p];
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Candidate ids ordered by {@link #acc()} descending; ties keep first-appearance order in the lanes.
+     *
+     * @param topK maximum ids to return ({@code <= 0} for all)
+     */
+    public int[] ranked(int topK) {
+        double[] a = acc();
+        int[] order = new int[candidates];
+        int n = 0;
+        boolean[] seen = new boolean[candidates];
+        for (int l = 0; l < lanes; l++) {
+            for (int p = 0; p < sizes[l]; p++) {
+                int id = ids[l][p];
+                if (id >= 0 && !seen[id]) {
+                    seen[id] = true;
+                    order[n++] = id;
+                }
+            }
+        }
+        sortDescending(order, n, a);
+        int k = (topK > 0) ? Math.min(topK, n) : n;
+        return (k == order.length) ? order : Arrays.copyOf(order, k);
+    }
+
+    private int intern(String key) {
+        int mask = table.length - 1;
+        int h = mix(key.hashCode()) & mask;
+        while (true) {
+            String k = table[h];
+            if (k == null) {
+                break;
+            }
+            if (k.equals(key)) {
+                return tableIds[h];
+            }
+            h = (h + 1) & mask;
+        }
+        int id = candidates++;
+        if (id == keys.length) {
+            keys = Arrays.copyOf(keys, id * 2);
+        }
+        keys[id] = key;
+        table[h] = key;
+        tableIds[h] = id;
+        if (candidates * 2 > table.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    private void rehash() {
+        String[] oldKeys = table;
+        int[] oldIds = tableIds;
+        table = new String[oldKeys.length * 2];
+        tableIds = new int[table.length];
+        int mask = table.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            String k = oldKeys[i];
+            if (k == null) {
+                continue;
+            }
+            int h = mix(k.hashCode()) & mask;
+            while (table[h] != null) {
+                h = (h + 1) & mask;
+            }
+            table[h] = k;
+            tableIds[h] = oldIds[i];
+        }
+    }
+
+    private static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /** Stable merge sort of {@code idx[0..n)} by {@code key[idx]} descending. */
+    static void sortDescending(int[] idx, int n, double[] key) {
+        if (n < 2) {
+            return;
+        }
+        if (n <= 32) {
+            for (int i = 1; i < n; i++) {
+                int v = idx[i];
+                double kv = key[v];
+                int j = i - 1;
+                while (j >= 0 && key[idx[j]] < kv) {
+                    idx[j + 1] = idx[j];
+                    j--;
+                }
+                idx[j + 1] = v;
+            }
+            return;
+        }
+        int[] tmp = new int[n];
+        for (int width = 1; width < n; width <<= 1) {
+            for (int lo = 0; lo < n - width; lo += width << 1) {
+                int mid = lo + width;
+                int hi = Math.min(lo + (width << 1), n);
+                int i = lo;
+                int j = mid;
+                int t = lo;
+                while (i < mid && j < hi) {
+                    tmp[t++] = (key[idx[j]] > key[idx[i]]) ? idx[j++] : idx[i++];
+                }
+                while (i < mid) {
+                    tmp[t++] = idx[i++];
+                }
+                while (j < hi) {
+                    tmp[t++] = idx[j++];
+                }
+                System.arraycopy(tmp, lo, idx, lo, hi - lo);
+            }
+        }
+    }
+}
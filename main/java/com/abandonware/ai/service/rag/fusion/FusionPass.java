@@ -0,0 +1,15 @@
+package com.abandonware.ai.service.rag.fusion;
+
+/** One step over a {@link FusionFrame}: rewrite lane scores or accumulate fused scores. */
+@FunctionalInterface
+public interface FusionPass {
+
+    void apply(FusionFrame frame);
+
+    default FusionPass then(FusionPass next) {
+        return frame -> {
+            apply(frame);
+            next.apply(frame);
+        };
+    }
+}
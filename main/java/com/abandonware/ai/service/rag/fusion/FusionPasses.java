@@ -0,0 +1,194 @@
+package com.abandonware.ai.service.rag.fusion;
+
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Composable passes over a {@link FusionFrame}.
+ *
+ * <ul>
+ *     <li>lane passes rewrite per-item scores in place: {@link #map}, {@link #mpLaw()}, {@link #isotonic},
+ *     {@link #dedupByKey()};</li>
+ *     <li>fusion passes add into {@link FusionFrame#acc()}: {@link #rrf}, {@link #scoreBoostedRrf},
+ *     {@link #wpm};</li>
+ *     <li>finishers rewrite the accumulator: {@link #tanh()}, {@link #softmax}.</li>
+ * </ul>
+ *
+ * <p>The scalar kernels ({@link #powerMean}, {@link #mpClamp}, {@link #interpolate}) are shared with the
+ * legacy single-value APIs so every caller computes the same numbers.</p>
+ */
+public final class FusionPasses {
+
+    /** Floor for WPM inputs so p &lt; 1 never sees zero. */
+    static final double WPM_FLOOR = 1e-9;
+    /** Marchenko-Pastur style soft cap used by the MP-law calibrator/normalizer. */
+    static final double MP_CAP = 1.5;
+
+    private FusionPasses() {
+    }
+
+    // ---------------------------------------------------------------- lane passes
+
+    public static FusionPass map(DoubleUnaryOperator op) {
+        return frame -> {
+            for (int l = 0; l < frame.lanes(); l++) {
+                for (int p = 0; p < frame.laneSize(l); p++) {
+                    frame.score(l, p, op.applyAsDouble(frame.score(l, p)));
+                }
+            }
+        };
+    }
+
+    /** MP-law calibration: clamp to [0, 1.5] then map to [0, 1]. */
+    public static FusionPass mpLaw() {
+        return map(s -> mpClamp(s) / MP_CAP);
+    }
+
+    /** Piecewise-linear isotonic calibration through the given knots ({@code xs} ascending). */
+    public static FusionPass isotonic(double[] xs, double[] ys) {
+        return map(s -> interpolate(xs, ys, s));
+    }
+
+    public static FusionPass dedupByKey() {
+        return FusionFrame::dedupLanes;
+    }
+
+    // ---------------------------------------------------------------- fusion passes
+
+    /** {@code acc[d] += w_item / (k + rank)} — plain RRF when every weight is 1. */
+    public static FusionPass rrf(int k) {
+        return frame -> {
+            double[] acc = frame.acc();
+            for (int l = 0; l < frame.lanes(); l++) {
+                for (int p = 0; p < frame.laneSize(l); p++) {
+                    int id = frame.id(l, p);
+                    if (id >= 0) {
+                        acc[id] += frame.weight(l, p) / (k + p + 1);
+                    }
+                }
+            }
+        };
+    }
+
+    /** RRF term scaled by the item's own score: {@code 1/(k+rank) * (0.75 + 0.5 * clamp01(score))}. */
+    public static FusionPass scoreBoostedRrf(int k) {
+        return frame -> {
+            double[] acc = frame.acc();
+            for (int l = 0; l < frame.lanes(); l++) {
+                for (int p = 0; p < frame.laneSize(l); p++) {
+                    int id = frame.id(l, p);
+                    if (id >= 0) {
+                        double raw = frame.score(l, p);
+                        double term = 1.0 / (k + p + 1);
+                        acc[id] += term * (0.75 + 0.5 * (raw < 0 ? 0 : (raw > 1 ? 1 : raw)));
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Weighted power mean across lanes of each candidate's best lane score. A lane that did not return the
+     * candidate contributes the floor value with weight 1.
+     */
+    public static FusionPass wpm(double p) {
+        return frame -> {
+            int lanes = frame.lanes();
+            int n = frame.candidates();
+            double[][] x = new double[lanes][n];
+            double[][] w = new double[lanes][n];
+            for (int l = 0; l < lanes; l++) {
+                java.util.Arrays.fill(w[l], 1.0d);
+                for (int pos = frame.laneSize(l) - 1; pos >= 0; pos--) {
+                    int id = frame.id(l, pos);
+                    if (id >= 0 && frame.score(l, pos) >= x[l][id]) {
+                        x[l][id] = frame.score(l, pos);
+                        w[l][id] = frame.weight(l, pos);
+                    }
+                }
+            }
+            double[] acc = frame.acc();
+            double[] xs = new double[lanes];
+            double[] ws = new double[lanes];
+            for (int id = 0; id < n; id++) {
+                for (int l = 0; l < lanes; l++) {
+                    xs[l] = x[l][id];
+                    ws[l] = w[l][id];
+                }
+                acc[id] += powerMean(xs, ws, lanes, p);
+            }
+        };
+    }
+
+    // ---------------------------------------------------------------- finishers
+
+    public static FusionPass tanh() {
+        return frame -> {
+            double[] acc = frame.acc();
+            for (int i = 0; i < frame.candidates(); i++) {
+                acc[i] = Math.tanh(acc[i]);
+            }
+        };
+    }
+
+    public static FusionPass softmax(double temperature) {
+        return frame -> {
+            double[] acc = frame.acc();
+            int n = frame.candidates();
+            if (n == 0) {
+                return;
+            }
+            double t = temperature <= 0 ? 1.0 : temperature;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < n; i++) {
+                if (acc[i] > max) max = acc[i];
+            }
+            double sum = 0.0;
+            for (int i = 0; i < n; i++) {
+                acc[i] = Math.exp((acc[i] - max) / t);
+                sum += acc[i];
+            }
+            if (sum <= 0) {
+                java.util.Arrays.fill(acc, 0, n, 1.0 / n);
+                return;
+            }
+            for (int i = 0; i < n; i++) {
+                acc[i] /= sum;
+            }
+        };
+    }
+
+    // ---------------------------------------------------------------- scalar kernels
+
+    /** p -> infinity => max, p = 1 => arithmetic mean, p -> 0 => geometric mean. */
+    public static double powerMean(double[] xs, double[] ws, int n, double p) {
+        if (n <= 0) return 0.0d;
+        double num = 0.0d, den = 0.0d;
+        for (int i = 0; i < n; i++) {
+            double x = Math.max(xs[i], WPM_FLOOR);
+            double w = (ws == null) ? 1.0d : ws[i];
+            num += w * Math.pow(x, p);
+            den += w;
+        }
+        if (den == 0.0d) return 0.0d;
+        return Math.pow(num / den, 1.0d / p);
+    }
+
+    /** Soft clamp: NaN and negatives to 0, overly large to 1.5. */
+    public static double mpClamp(double s) {
+        if (Double.isNaN(s)) return 0.0;
+        if (s < 0) return 0.0;
+        if (s > MP_CAP) return MP_CAP;
+        return s;
+    }
+
+    public static double interpolate(double[] xs, double[] ys, double raw) {
+        int i = java.util.Arrays.binarySearch(xs, raw);
+        if (i >= 0) return ys[i];
+        int p = -i - 1;
+        if (p <= 0) return ys[0];
+        if (p >= xs.length) return ys[ys.length - 1];
+        double x0 = xs[p - 1], x1 = xs[p], y0 = ys[p - 1], y1 = ys[p];
+        double t = (raw - x0) / (x1 - x0);
+        return y0 + t * (y1 - y0);
+    }
+}
@@ -21,16 +21,76 @@ public class LocaleBoostPolicy {
         try{
             String id = d.getId();
             if (id == null) return 1.0;
+            int hostEnd = plainHostEnd(id);
+            if (hostEnd > 0) {
+                return boostFor(id, id.indexOf("://") + 3, hostEnd);
+            }
             URI u = URI.create(id);
             String host = u.getHost();
             if (host == null) return 1.0;
-            String h = host.toLowerCase(Locale.ROOT);
-            for (String suffix : boostDomains){
-                if (h.endsWith(suffix)) return boost;
-            }
-            return 1.0;
+            return boostFor(host, 0, host.length());
         }catch(Exception e){
             return 1.0;
         }
     }
-}
\ No newline at end of file
+
+    private double boostFor(String s, int start, int end){
+        for (String suffix : boostDomains){
+            int n = suffix.length();
+            if (end - start >= n && s.regionMatches(true, end - n, suffix, 0, n)) return boost;
+        }
+        return 1.0;
+    }
+
+    /**
+     * End index of the host for a plain ASCII {@code scheme://host[:port][/path][?query][#fragment]} id whose
+     * host {@link URI} would accept as server-based, or -1 when the id needs the {@link URI} parser.
+     */
+    static int plainHostEnd(String s){
+        int sep = s.indexOf("://");
+        if (sep <= 0 || !isAlnum(s.charAt(0)) || Character.isDigit(s.charAt(0))) return -1;
+        for (int i = 1; i < sep; i++){
+            char c = s.charAt(i);
+            if (!(isAlnum(c) || c == '+' || c == '-' || c == '.')) return -1;
+        }
+        int start = sep + 3;
+        int i = start;
+        int labelStart = start;
+        while (i < s.length()){
+            char c = s.charAt(i);
+            if (c == '/' || c == '?' || c == '#' || c == ':') break;
+            if (c == '.'){
+                if (i == labelStart || s.charAt(i - 1) == '-') return -1;
+                labelStart = i + 1;
+            } else if (c == '-'){
+                if (i == labelStart) return -1;
+            } else if (!isAlnum(c)){
+                return -1;
+            }
+            i++;
+        }
+        int hostEnd = i;
+        if (hostEnd == start || labelStart >= hostEnd || !Character.isLetter(s.charAt(labelStart))
+                || s.charAt(hostEnd - 1) == '-') return -1;
+        if (i < s.length() && s.charAt(i) == ':'){
+            int p = ++i;
+            while (i < s.length() && s.charAt(i) >= '0' && s.charAt(i) <= '9') i++;
+            if (i == p || (i < s.length() && s.charAt(i) != '/' && s.charAt(i) != '?' && s.charAt(i) != '#')) return -1;
+        }
+        boolean fragment = false;
+        for (; i < s.length(); i++){
+            char c = s.charAt(i);
+            if (c == '#'){
+                if (fragment) return -1;
+                fragment = true;
+            } else if (!(isAlnum(c) || "-._~/:@!$&'()*+,;=?".indexOf(c) >= 0)){
+                return -1;
+            }
+        }
+        return hostEnd;
+    }
+
+    private static boolean isAlnum(char c){
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+}
@@ -8,9 +8,6 @@ package com.abandonware.ai.service.rag.fusion;
 final class MarchenkoPasturNormalizer {
     double clamp(double s) {
         // Soft clamp: negative to 0, overly large to 1.5
-        if (Double.isNaN(s)) return 0.0;
-        if (s < 0) return 0.0;
-        if (s > 1.5) return 1.5;
-        return s;
+        return FusionPasses.mpClamp(s);
     }
 }
\ No newline at end of file
@@ -15,12 +15,7 @@ public class MpLawCalibrator implements ScoreCalibrator {
 
     @Override
     public double normalize(double raw, String source) {
-        if (Double.isNaN(raw)) return 0.0;
-        double s = raw;
-        if (s < 0) s = 0.0;
-        // conservative lambda+ soft cap (~1.5)
-        if (s > 1.5) s = 1.5;
-        // map to [0,1]
-        return s / 1.5;
+        // conservative lambda+ soft cap (~1.5), mapped to [0,1]
+        return FusionPasses.mpClamp(raw) / FusionPasses.MP_CAP;
     }
 }
\ No newline at end of file
@@ -2,7 +2,6 @@
 package com.abandonware.ai.service.rag.fusion;
 import java.util.*;
 import com.abandonware.ai.service.rag.model.ContextSlice;
-import com.abandonware.ai.ml.SoftmaxUtils;
 import com.abandonware.ai.service.rag.fusion.ScoreCalibrator;
 
 /** Weighted Reciprocal Rank Fusion (RRF) with URL canonicalization and locale boost. */
@@ -30,78 +29,48 @@ public class WeightedRRF {
                                           boolean dedupByCanonical) {
         this.k = k > 0 ? k : this.k;
 
-        // 0) Preprocess each source: calibrate + locale boost
-        List<List<ContextSlice>> pre = new ArrayList<>();
-for (List<ContextSlice> list : sources){
-            if (list == null) continue;
-            List<ContextSlice> tmp = new ArrayList<>(list.size());
-            for (int i=0;i<list.size();i++){
-                ContextSlice c = list.get(i);
-                String src = c.getSource()==null? "default" : c.getSource();
-                double s = c.getScore();
-                if (calibrator != null) s = calibrator.normalize(s, src);
-                s *= localeBoost.multiplier(c);
-                ContextSlice clone = new ContextSlice(c.getId(), c.getTitle(), c.getSnippet(), src, s, i+1);
-                tmp.add(clone);
-            }
-            pre.add(tmp);
-        }
-
-        // 1) Optional dedup by canonical key (keep highest score per key per source list)
-        if (dedupByCanonical){
-            List<List<ContextSlice>> deduped = new ArrayList<>();
-            for (List<ContextSlice> list : pre){
-                Map<String, ContextSlice> merged = keyNorm.mergeByCanonicalKey(list);
-                // preserve order by score desc
-                List<ContextSlice> m = new ArrayList<>(merged.values());
-                m.sort(Comparator.comparingDouble(ContextSlice::getScore).reversed());
-                // reset rank within source
-                for (int i=0;i<m.size();i++) m.get(i).setRank(i+1);
-                deduped.add(m);
-            }
-            pre = deduped;
-        }
-
-        // 2) Fused scoring: score_RRF(d) = Σ_s w_s / (k + rank_s(d))
         Map<String, Double> weights = new HashMap<>(sourceWeights==null? Map.of(): sourceWeights);
         if (weights.isEmpty()){
             weights.put("web", 1.0);
             weights.put("vector", 1.0);
             weights.put("kg", 1.0);
         }
-        Map<String, Double> fusedScore = new LinkedHashMap<>();
-        Map<String, ContextSlice> repr = new LinkedHashMap<>();
 
-        for (List<ContextSlice> list : pre){
-            for (int i=0;i<list.size();i++){
-                ContextSlice c = list.get(i);
-                String key = keyNorm.keyOf(c);
-                if (key == null) continue;
-                double w = weights.getOrDefault(c.getSource(), 1.0);
-                double rrf = w / (this.k + c.getRank());
-                fusedScore.merge(key, rrf, Double::sum);
-                // keep best representative (highest calibrated score) for metadata
-                ContextSlice prev = repr.get(key);
-                if (prev == null || c.getScore() > prev.getScore()){
-                    repr.put(key, c);
-                }
+        // 0) Preprocess each source: calibrate + locale boost, interned into the frame
+        int total = 0;
+        for (List<ContextSlice> list : sources) if (list != null) total += list.size();
+        FusionFrame frame = new FusionFrame(sources.size(), total);
+        for (List<ContextSlice> list : sources){
+            if (list == null) continue;
+            int lane = frame.openLane(null, list.size());
+            for (ContextSlice c : list){
+                String src = c.getSource()==null? "default" : c.getSource();
+                double s = c.getScore();
+                if (calibrator != null) s = calibrator.normalize(s, src);
+                s *= localeBoost.multiplier(c);
+                s = Double.isFinite(s) ? Math.max(0.0d, s) : 0.0d; // ContextSlice score contract
+                frame.add(lane, keyNorm.keyOf(c), s, weights.getOrDefault(src, 1.0), c);
             }
         }
 
-        // 3) Sort by fusedScore desc, then softmax-normalize final scores for stability
-        List<Map.Entry<String, Double>> entries = new ArrayList<>(fusedScore.entrySet());
-        entries.sort((a,b)->Double.compare(b.getValue(), a.getValue()));
-
-        double[] logits = new double[entries.size()];
-        for (int i=0;i<entries.size();i++) logits[i] = entries.get(i).getValue();
-        double[] prob = SoftmaxUtils.stableSoftmax(logits, 1.0);
+        // 1) Optional dedup by canonical key (keep highest score per key per source list)
+        // 2) Fused scoring: score_RRF(d) = Σ_s w_s / (k + rank_s(d))
+        // 3) Softmax-normalize final scores for stability
+        FusionPass pass = FusionPasses.rrf(this.k).then(FusionPasses.softmax(1.0));
+        if (dedupByCanonical) pass = FusionPasses.dedupByKey().then(pass);
+        pass.apply(frame);
 
+        // keep best representative (highest calibrated score) for metadata
+        Object[] repr = frame.bestPayloads();
+        double[] prob = frame.acc();
+        int[] ranked = frame.ranked(0);
         Map<String, ContextSlice> out = new LinkedHashMap<>();
-        for (int i=0;i<entries.size();i++){
-            String key = entries.get(i).getKey();
-            ContextSlice base = repr.get(key);
-            ContextSlice copy = new ContextSlice(base.getId(), base.getTitle(), base.getSnippet(), base.getSource(), prob[i], i+1);
-            out.put(key, copy);
+        for (int i=0;i<ranked.length;i++){
+            int id = ranked[i];
+            ContextSlice base = (ContextSlice) repr[id];
+            String src = base.getSource()==null? "default" : base.getSource();
+            ContextSlice copy = new ContextSlice(base.getId(), base.getTitle(), base.getSnippet(), src, prob[id], i+1);
+            out.put(frame.key(id), copy);
         }
         return out;
     }
@@ -1,31 +1,28 @@
 package com.abandonware.ai.service.rag.fusion;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 /**
  * Weighted Power Mean fuser.
  * p->infinity => max, p=1 => arithmetic mean, p->0 => geometric mean.
- * Compile-safe utility; no external deps.
+ * Compile-safe utility; no external deps. Kernel shared with {@link FusionPasses#wpm}.
  */
 public final class WpmFuser {
 
     public double wpm(List<Double> xs, List<Double> ws, double p){
         if (xs == null || xs.isEmpty()) return 0.0d;
-        if (ws == null || ws.size() != xs.size()) {
-            ws = new ArrayList<>(Collections.nCopies(xs.size(), 1.0d));
-        }
-        double num = 0.0d, den = 0.0d;
-        for (int i = 0; i < xs.size(); i++) {
+        int n = xs.size();
+        boolean uniform = ws == null || ws.size() != n;
+        double[] x = new double[n];
+        double[] w = uniform ? null : new double[n];
+        for (int i = 0; i < n; i++) {
             Double xv = xs.get(i);
-            Double wv = ws.get(i);
-            double x = Math.max(xv == null ? 0.0d : xv.doubleValue(), 1e-9);
-            double w = wv == null ? 1.0d : wv.doubleValue();
-            num += w * Math.pow(x, p);
-            den += w;
+            x[i] = xv == null ? 0.0d : xv.doubleValue();
+            if (!uniform) {
+                Double wv = ws.get(i);
+                w[i] = wv == null ? 1.0d : wv.doubleValue();
+            }
         }
-        if (den == 0.0d) return 0.0d;
-        return Math.pow(num / den, 1.0d / p);
+        return FusionPasses.powerMean(x, w, n, p);
     }
 }
\ No newline at end of file
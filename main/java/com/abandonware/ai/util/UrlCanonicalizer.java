@@ -11,8 +11,22 @@ public final class UrlCanonicalizer {
     private static final Pattern UTM = Pattern.compile("^utm_.*", Pattern.CASE_INSENSITIVE);
     private UrlCanonicalizer(){}
 
+    /**
+     * Canonical dedup key: lower-case scheme/host, default port dropped, tracking params
+     * ({@code utm_*}, {@code ref_*}, {@code gclid}, {@code fbclid}, {@code ref}) and fragment removed,
+     * trailing slash trimmed.
+     *
+     * <p>Plain ASCII http(s) URLs take a single-scan path that returns the input instance when it is already
+     * canonical; anything unusual (percent escapes, userinfo, IPv6, repeated params, ...) goes through
+     * {@link URI} exactly as before.</p>
+     */
     public static String canonicalKey(String url){
         if (url == null) return null;
+        String fast = fastCanonicalKey(url);
+        return fast != null ? fast : slowCanonicalKey(url);
+    }
+
+    static String slowCanonicalKey(String url){
         try{
             URI u = URI.create(url);
             String scheme = (u.getScheme()==null?"http":u.getScheme().toLowerCase(Locale.ROOT));
@@ -53,4 +67,254 @@ public final class UrlCanonicalizer {
             return url;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Same result as {@link #slowCanonicalKey} for plain ASCII http(s) URLs, or {@code null} when the input
+     * needs the {@link URI} path. Allocates nothing when the input is already canonical.
+     */
+    static String fastCanonicalKey(String url){
+        final int n = url.length();
+        int schemeEnd;
+        if (n > 7 && url.regionMatches(true, 0, "http://", 0, 7)) {
+            schemeEnd = 4;
+        } else if (n > 8 && url.regionMatches(true, 0, "https://", 0, 8)) {
+            schemeEnd = 5;
+        } else {
+            return null;
+        }
+        boolean dirty = false;
+        for (int i = 0; i < schemeEnd; i++) {
+            char c = url.charAt(i);
+            if (c >= 'A' && c <= 'Z') { dirty = true; break; }
+        }
+
+        // authority: [host][:port]
+        final int hostStart = schemeEnd + 3;
+        int i = hostStart;
+        int portStart = -1;
+        for (; i < n; i++) {
+            char c = url.charAt(i);
+            if (c == '/' || c == '?' || c == '#') break;
+            if (c == ':') {
+                if (portStart >= 0) return null;
+                portStart = i + 1;
+            } else if (portStart >= 0) {
+                if (c < '0' || c > '9') return null;
+            } else if (c >= 'A' && c <= 'Z') {
+                dirty = true;
+            } else if (!((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-' || c == '.')) {
+                // userinfo, IPv6, '_' (registry authority), escapes, non-ASCII
+                return null;
+            }
+        }
+        final int authorityEnd = i;
+        final int hostEnd = (portStart >= 0) ? portStart - 1 : authorityEnd;
+        if (hostEnd == hostStart || !isHostShape(url, hostStart, hostEnd)) return null;
+        boolean dropPort = false;
+        if (portStart >= 0) {
+            if (portStart == authorityEnd || authorityEnd - portStart > 5) return null;
+            int port = Integer.parseInt(url, portStart, authorityEnd, 10);
+            boolean https = schemeEnd == 5;
+            dropPort = (!https && port == 80) || (https && port == 443);
+            if (dropPort || url.charAt(portStart) == '0') {
+                // leading zeros are normalized by URI; default ports are dropped
+                dirty = true;
+            }
+        }
+
+        // path
+        int pathEnd = authorityEnd;
+        while (pathEnd < n) {
+            char c = url.charAt(pathEnd);
+            if (c == '?' || c == '#') break;
+            if (!isPlainChar(c)) return null;
+            pathEnd++;
+        }
+        // query
+        int queryStart = -1;
+        int queryEnd = pathEnd;
+        if (pathEnd < n && url.charAt(pathEnd) == '?') {
+            queryStart = pathEnd + 1;
+            queryEnd = queryStart;
+            while (queryEnd < n && url.charAt(queryEnd) != '#') {
+                char c = url.charAt(queryEnd);
+                if (!isPlainChar(c) && c != '?') return null;
+                queryEnd++;
+            }
+        }
+        if (queryEnd < n) {
+            // fragment
+            for (int f = queryEnd + 1; f < n; f++) {
+                if (!isPlainChar(url.charAt(f)) && url.charAt(f) != '?') return null;
+            }
+            dirty = true;
+        }
+        if (pathEnd == authorityEnd) {
+            // empty path becomes "/" (then trimmed again when nothing follows it)
+            if (queryStart >= 0) dirty = true;
+        }
+
+        int keptParams = 0;
+        if (queryStart >= 0) {
+            if (queryStart == queryEnd) {
+                dirty = true; // bare '?'
+            }
+            int p = queryStart;
+            while (p <= queryEnd && queryStart < queryEnd) {
+                int amp = url.indexOf('&', p);
+                if (amp < 0 || amp > queryEnd) amp = queryEnd;
+                int eq = indexOf(url, '=', p, amp);
+                int keyEnd = eq < 0 ? amp : eq;
+                if (amp == p) {
+                    dirty = true;                                  // empty param
+                } else if (isDroppedParam(url, p, keyEnd)) {
+                    dirty = true;
+                } else {
+                    if (eq < 0) dirty = true;                      // "k" becomes "k="
+                    if (hasEarlierKey(url, queryStart, p, keyEnd - p)) return null;
+                    keptParams++;
+                }
+                p = amp + 1;
+            }
+            if (keptParams == 0) dirty = true;
+        }
+        boolean endsWithSlash = (keptParams > 0)
+                ? lastKeptParamEndsWithSlash(url, queryStart, queryEnd)
+                : (pathEnd > authorityEnd && url.charAt(pathEnd - 1) == '/');
+        if (endsWithSlash) dirty = true;
+
+        if (!dirty) {
+            return url;
+        }
+        return rebuild(url, schemeEnd, hostStart, hostEnd, portStart, authorityEnd, dropPort,
+                pathEnd, queryStart, queryEnd, keptParams);
+    }
+
+    private static String rebuild(String url, int schemeEnd, int hostStart, int hostEnd, int portStart,
+                                  int authorityEnd, boolean dropPort, int pathEnd,
+                                  int queryStart, int queryEnd, int keptParams) {
+        StringBuilder sb = new StringBuilder(url.length() + 2);
+        for (int i = 0; i < schemeEnd; i++) sb.append(lower(url.charAt(i)));
+        sb.append("://");
+        for (int i = hostStart; i < hostEnd; i++) sb.append(lower(url.charAt(i)));
+        if (portStart >= 0 && !dropPort) {
+            sb.append(':').append(Integer.parseInt(url, portStart, authorityEnd, 10));
+        }
+        if (pathEnd == authorityEnd) {
+            sb.append('/');
+        } else {
+            sb.append(url, authorityEnd, pathEnd);
+        }
+        if (keptParams > 0) {
+            sb.append('?');
+            boolean first = true;
+            int p = queryStart;
+            while (p < queryEnd) {
+                int amp = url.indexOf('&', p);
+                if (amp < 0 || amp > queryEnd) amp = queryEnd;
+                int eq = indexOf(url, '=', p, amp);
+                int keyEnd = eq < 0 ? amp : eq;
+                if (amp > p && !isDroppedParam(url, p, keyEnd)) {
+                    if (!first) sb.append('&');
+                    sb.append(url, p, keyEnd).append('=');
+                    if (eq >= 0) sb.append(url, eq + 1, amp);
+                    first = false;
+                }
+                p = amp + 1;
+            }
+        }
+        int len = sb.length();
+        if (len > 0 && sb.charAt(len - 1) == '/') sb.setLength(len - 1);
+        return sb.toString();
+    }
+
+    /** URI server-based host: labels of alnum/'-', last label starting with a letter, or an IPv4 literal. */
+    private static boolean isHostShape(String s, int from, int to) {
+        if (s.charAt(from) == '.' || s.charAt(from) == '-') return false;
+        char last = s.charAt(to - 1);
+        if (last == '-') return false;
+        int labelStart = from;
+        if (last == '.') {
+            to--; // URI tolerates one trailing dot
+            if (to == from || s.charAt(to - 1) == '-' || s.charAt(to - 1) == '.') return false;
+        }
+        boolean allDigitsAndDots = true;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c == '.') {
+                if (i == labelStart) return false;
+                if (s.charAt(i - 1) == '-' || (i + 1 < to && s.charAt(i + 1) == '-')) return false;
+                labelStart = i + 1;
+            } else if (!(c >= '0' && c <= '9')) {
+                allDigitsAndDots = false;
+            }
+        }
+        if (allDigitsAndDots) return false; // IPv4 literal validation stays with URI
+        char top = s.charAt(labelStart);
+        return (top >= 'a' && top <= 'z') || (top >= 'A' && top <= 'Z');
+    }
+
+    private static boolean isPlainChar(char c) {
+        if (c >= 'a' && c <= 'z') return true;
+        if (c >= 'A' && c <= 'Z') return true;
+        if (c >= '0' && c <= '9') return true;
+        switch (c) {
+            case '-': case '.': case '_': case '~': case '/': case ':': case '@':
+            case '!': case '$': case '&': case '\'': case '(': case ')': case '*':
+            case '+': case ',': case ';': case '=':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isDroppedParam(String s, int from, int to) {
+        int len = to - from;
+        if (len >= 4 && s.regionMatches(true, from, "utm_", 0, 4)) return true;
+        if (len >= 4 && s.regionMatches(true, from, "ref_", 0, 4)) return true;
+        if (len == 3 && s.regionMatches(true, from, "ref", 0, 3)) return true;
+        if (len == 5 && s.regionMatches(true, from, "gclid", 0, 5)) return true;
+        return len == 6 && s.regionMatches(true, from, "fbclid", 0, 6);
+    }
+
+    /** Repeated keys keep the first position but the last value in the slow path; leave those to it. */
+    private static boolean hasEarlierKey(String s, int queryStart, int keyStart, int keyLen) {
+        int p = queryStart;
+        while (p < keyStart) {
+            int amp = s.indexOf('&', p);
+            if (amp < 0 || amp > keyStart) amp = keyStart;
+            int eq = indexOf(s, '=', p, amp);
+            int end = eq < 0 ? amp : eq;
+            if (end - p == keyLen && s.regionMatches(p, s, keyStart, keyLen)) return true;
+            p = amp + 1;
+        }
+        return false;
+    }
+
+    private static boolean lastKeptParamEndsWithSlash(String s, int queryStart, int queryEnd) {
+        int p = queryStart;
+        boolean endsWithSlash = false;
+        while (p < queryEnd) {
+            int amp = s.indexOf('&', p);
+            if (amp < 0 || amp > queryEnd) amp = queryEnd;
+            int eq = indexOf(s, '=', p, amp);
+            int keyEnd = eq < 0 ? amp : eq;
+            if (amp > p && !isDroppedParam(s, p, keyEnd)) {
+                endsWithSlash = eq >= 0 && amp > eq + 1 && s.charAt(amp - 1) == '/';
+            }
+            p = amp + 1;
+        }
+        return endsWithSlash;
+    }
+
+    private static int indexOf(String s, char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (s.charAt(i) == c) return i;
+        }
+        return -1;
+    }
+
+    private static char lower(char c) {
+        return (c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c;
+    }
+}
@@ -1,11 +1,13 @@
 package com.example.lms.api;
 
 import com.example.lms.dto.AttachmentDto;
+import com.example.lms.conversation.archive.ConversationArchiveIngestJobService;
 import com.example.lms.conversation.archive.ConversationArchiveIngestReport;
 import com.example.lms.conversation.archive.ConversationArchiveIngestService;
 import com.example.lms.service.AttachmentInspectionService;
 import com.example.lms.service.AttachmentService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
@@ -29,6 +31,9 @@ public class AttachmentController {
     private final AttachmentInspectionService attachmentInspectionService;
     private final ConversationArchiveIngestService conversationArchiveIngestService;
 
+    @Autowired(required = false)
+    private ConversationArchiveIngestJobService conversationArchiveIngestJobService;
+
     /**
      * ?щ윭 ?뚯씪???낅줈?쒗븯怨?AttachmentDto 紐⑸줉??諛섑솚?⑸땲??
      * @param files multipart/form-data 濡??꾩넚???뚯씪??     * @return ?낅줈?쒕맂 ?뚯씪?ㅼ쓽 硫뷀? ?뺣낫
@@ -70,6 +75,35 @@ public class AttachmentController {
         return conversationArchiveIngestService.ingest(files, sessionId);
     }
 
+    /**
+     * Large exports: spool the ZIPs and ingest in the background. Poll the returned job id via
+     * {@code GET /conversation-archive/ingest-jobs/{jobId}} with the same sessionId.
+     */
+    @PostMapping(value = "/conversation-archive/ingest-jobs", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public ConversationArchiveIngestJobService.JobStatus submitConversationArchiveJob(
+            @RequestParam("files") List<MultipartFile> files,
+            @RequestParam(value = "sessionId", required = false) String sessionId
+    ) {
+        return requireArchiveJobs().submit(files, sessionId);
+    }
+
+    @GetMapping(value = "/conversation-archive/ingest-jobs/{jobId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ConversationArchiveIngestJobService.JobStatus conversationArchiveJobStatus(
+            @PathVariable String jobId,
+            @RequestParam(value = "sessionId", required = false) String sessionId
+    ) {
+        return requireArchiveJobs().status(jobId, sessionId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "archive_job_not_found"));
+    }
+
+    private ConversationArchiveIngestJobService requireArchiveJobs() {
+        if (conversationArchiveIngestJobService == null) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "archive_jobs_unavailable");
+        }
+        return conversationArchiveIngestJobService;
+    }
+
     /**
      * ?뱀젙 泥⑤?瑜??쒓굅?⑸땲?? ?꾩옱??硫뷀? ??μ냼?먯꽌留??쒓굅?섍퀬 ?뚯씪 ??젣???섑뻾?섏? ?딆뒿?덈떎.
      * @param id 泥⑤? ID
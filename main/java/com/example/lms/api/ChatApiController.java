@@ -18,7 +18,9 @@ import com.example.lms.service.NaverSearchService;
 import com.example.lms.service.guard.GuardContext;
 import com.example.lms.service.guard.GuardContextHolder;
 import com.example.lms.service.guard.SensitiveTopicDetector;
+import com.example.lms.service.trace.ChatTraceRecordService;
 import com.example.lms.service.trace.TraceHtmlBuilder;
+import com.example.lms.service.trace.TraceRecord;
 import com.example.lms.service.trace.DebugCopilotService;
 import com.example.lms.trace.SearchTraceConsoleLogger;
 import com.example.lms.trace.FailureTagNormalizer;
@@ -134,6 +136,10 @@ public class ChatApiController {
     @Autowired(required = false)
     private TraceSnapshotStore traceSnapshotStore;
 
+    // Compact trace records + lazily rendered panels (optional; falls back to snapshot pointers)
+    @Autowired(required = false)
+    private ChatTraceRecordService traceRecordService;
+
     @Autowired(required = false)
     private com.example.lms.service.MemoryReinforcementService memoryReinforcementService;
 
@@ -354,6 +360,12 @@ public class ChatApiController {
                 ? "traceHtml=" + SafeRedactor.diagnosticText("traceHtml", traceHtml, 12000)
                 : null);
         out.put("traceDebugRequested", debug);
+        if (exposeTrace && traceRecordService != null && session != null) {
+            traceRecordService.latestId(sessionId).ifPresent(traceId -> {
+                out.put("traceRecordId", traceId);
+                out.put("traceUrl", "/api/chat/trace/" + traceId + "/html");
+            });
+        }
         return ResponseEntity.ok(out);
     }
 
@@ -937,20 +949,19 @@ public class ChatApiController {
                         log.info("[ChatApi] All search providers failed. RAG-only fallback.");
                     }
 
-                    if (rawTrace != null) {
+                    if (rawTrace != null && (debug || exposeTrace)) {
                         // (A) Raw web snippets are shown immediately.
                         // (B) Final TopK context is added later after the chat workflow finishes.
+                        // Nobody sees the prefetch panel unless it is streamed, so only render it then.
                         try {
                             traceHtml = traceHtmlBuilder.buildSplitPanel(rawTrace, rawSnips, null, null);
                         } catch (Exception e) {
                             traceHtml = "";
                             logSuppressed("stream.traceHtml.prefetch");
                         }
-                        if ((debug || exposeTrace) && traceHtml != null && !traceHtml.isBlank()) {
-                            if (debug || exposeTrace) {
-                                sink.tryEmitNext(sse(ChatStreamEvent.trace(traceHtml,
-                                        ChatStreamSignalBuilder.buildTraceSignal(TraceStore.getAll(), __capturedTrace, __capturedRequestId, currentSessionKeyHolder[0]))));
-                            }
+                        if (traceHtml != null && !traceHtml.isBlank()) {
+                            sink.tryEmitNext(sse(ChatStreamEvent.trace(traceHtml,
+                                    ChatStreamSignalBuilder.buildTraceSignal(TraceStore.getAll(), __capturedTrace, __capturedRequestId, currentSessionKeyHolder[0]))));
                         }
                     }
                 } else {
@@ -1072,6 +1083,7 @@ public class ChatApiController {
                 ChatStreamEvent.PipelineSnapshot finalPipelineSnapshot = null;
                 String traceHtmlForSnapshot = null;
                 java.util.Map<String, Object> traceMetaForSnapshot = java.util.Map.of();
+                TraceRecord traceRecordForPersist = null;
                 java.util.Map<String, Object> finalTransformerMeta = java.util.Map.of();
                 try {
                     // Preserve "enabled" signal: null means disabled, empty list means enabled but
@@ -1143,10 +1155,18 @@ public class ChatApiController {
                     TraceStore.clear();
 
                     if (rawTrace != null) {
-                        String finalTraceHtml = traceHtmlBuilder.buildSplitPanel(rawTrace, rawSnips,
+                        // Persist the compact record; the panel itself is rendered on demand
+                        // (GET /api/chat/trace/{id}/html) unless it is streamed right now.
+                        TraceRecord finalTraceRecord = TraceRecord.capture(rawTrace, rawSnips,
                                 finalWebTopK,
                                 finalVectorTopK,
                                 extraMeta);
+                        traceRecordForPersist = finalTraceRecord;
+                        String finalTraceHtml = (debug || exposeTrace || traceRecordService == null)
+                                ? traceHtmlBuilder.buildSplitPanelFromSanitized(finalTraceRecord.rawTrace(),
+                                        finalTraceRecord.rawSnippets(), finalTraceRecord.webTopK(),
+                                        finalTraceRecord.vectorTopK(), finalTraceRecord.safeMeta())
+                                : null;
                         if (finalTraceHtml != null && !finalTraceHtml.isBlank()) {
                             traceHtml = finalTraceHtml;
                             // Emit again: streaming UI will replace the existing panel.
@@ -1191,7 +1211,9 @@ public class ChatApiController {
                 historyService.appendMessage(session.getId(), "system",
                         String.format("%s%s", MODEL_META_PREFIX, modelUsedFinal));
 
-                Long traceTurnId = ChatTraceSnapshotPointerPersister.persist(
+                Long traceTurnId = (traceRecordService != null)
+                        ? traceRecordService.persist(session.getId(), traceRecordForPersist)
+                        : ChatTraceSnapshotPointerPersister.persist(
                         session.getId(),
                         "chat.trace_html.final",
                         "SSE",
@@ -1895,13 +1917,19 @@ public class ChatApiController {
             }}
 
         String traceHtmlForSnapshot = null;
+        TraceRecord traceRecordForPersist = null;
         if (__finalUseWeb && sr.trace() != null) {
             String traceHtml = "";
             try {
                 java.util.List<String> rawSnips = (sr.snippets() == null)
                         ? java.util.Collections.emptyList()
                         : sr.snippets();
-                traceHtml = traceHtmlBuilder.buildSplitPanel(sr.trace(), rawSnips, finalWebTopK, finalVectorTopK, extraMeta);
+                if (traceRecordService != null) {
+                    // The sync response carries no panel: keep the record, render on demand.
+                    traceRecordForPersist = TraceRecord.capture(sr.trace(), rawSnips, finalWebTopK, finalVectorTopK, extraMeta);
+                } else {
+                    traceHtml = traceHtmlBuilder.buildSplitPanel(sr.trace(), rawSnips, finalWebTopK, finalVectorTopK, extraMeta);
+                }
             } catch (Exception ignore) {
                 traceHtml = "";
                 logSuppressed("sync.traceHtml.final");
@@ -1911,7 +1939,9 @@ public class ChatApiController {
             }
         }
 
-        Long traceTurnId = ChatTraceSnapshotPointerPersister.persist(
+        Long traceTurnId = (traceRecordService != null)
+                ? traceRecordService.persist(session.getId(), traceRecordForPersist)
+                : ChatTraceSnapshotPointerPersister.persist(
                 session.getId(),
                 "chat.trace_html.final",
                 "POST",
@@ -2036,6 +2066,9 @@ public class ChatApiController {
         }
 
         historyService.deleteSession(id);
+        if (traceRecordService != null) {
+            traceRecordService.deleteSession(id);
+        }
         return ResponseEntity.noContent().build();
     }
 
@@ -2081,9 +2114,42 @@ public class ChatApiController {
                 objectMapper,
                 settingsService.getAllSettings(),
                 exposeTrace,
+                (exposeTrace && traceRecordService != null) ? traceRecordService.refs(id) : java.util.List.of(),
                 log);
     }
 
+    /**
+     * GET /api/chat/trace/{traceId}/html — renders a persisted trace record on demand.
+     * Panels are cached (LRU) by {@link ChatTraceRecordService}; access follows the owning session.
+     */
+    @GetMapping(value = "/trace/{traceId}/html", produces = MediaType.TEXT_HTML_VALUE)
+    public ResponseEntity<String> traceRecordHtml(@PathVariable Long traceId, Authentication authentication) {
+        if (!exposeTrace || traceRecordService == null) {
+            return ResponseEntity.notFound().build();
+        }
+        Long sessionId = traceRecordService.sessionIdOf(traceId).orElse(null);
+        ChatSession session = null;
+        try {
+            session = (sessionId == null) ? null : historyService.findSessionWithoutMessages(sessionId).orElse(null);
+        } catch (Exception ignore) {
+            logSuppressed("trace.record.sessionLookup");
+        }
+        if (session == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!canAccessSession(session, authentication)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        String html = traceRecordService.renderHtml(traceId);
+        if (html == null || html.isBlank()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.TEXT_HTML)
+                .header("Cache-Control", "private, max-age=300")
+                .body(html);
+    }
+
     // ===== helpers =====
     private static void tracePut(String key, Object value) {
         try {
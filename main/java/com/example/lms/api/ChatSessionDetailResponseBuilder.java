@@ -2,6 +2,7 @@ package com.example.lms.api;
 
 import com.example.lms.domain.ChatSession;
 import com.example.lms.llm.ModelCapabilities;
+import com.example.lms.repository.ChatTraceRecordRepository;
 import com.example.lms.service.SettingsService;
 import com.example.lms.trace.SafeRedactor;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -26,6 +27,20 @@ final class ChatSessionDetailResponseBuilder {
     private ChatSessionDetailResponseBuilder() {
     }
 
+    static ResponseEntity<ChatApiController.SessionDetail> build(
+            ChatSession session,
+            String username,
+            ObjectMapper objectMapper,
+            Map<String, String> settings,
+            boolean exposeTrace,
+            Logger log) {
+        return build(session, username, objectMapper, settings, exposeTrace, List.of(), log);
+    }
+
+    /**
+     * @param traceRecords {@code chat_trace_record} refs of the session; restored as lazy trace cards
+     *                     (turnId = record id) in timestamp order when trace exposure is on
+     */
     @SuppressWarnings("unchecked")
     static ResponseEntity<ChatApiController.SessionDetail> build(
             ChatSession session,
@@ -33,6 +48,7 @@ final class ChatSessionDetailResponseBuilder {
             ObjectMapper objectMapper,
             Map<String, String> settings,
             boolean exposeTrace,
+            List<? extends ChatTraceRecordRepository.Ref> traceRecords,
             Logger log) {
         var raw = Optional.ofNullable(session.getMessages())
                 .orElse(Collections.emptyList())
@@ -50,21 +66,31 @@ final class ChatSessionDetailResponseBuilder {
                     if (ChatModelMetaSupport.extractModelUsed(content) != null) {
                         continue;
                     }
+                    // Legacy inline trace panels are never rendered from history; trace records replace them.
+                    if (content.startsWith(TRACE_META_PREFIX) || content.startsWith(TRACE_META_PREFIX_B64)) {
+                        continue;
+                    }
                     Optional<ChatApiController.MessageDto> traceMeta =
                             ChatTraceMetaMessageRestorer.restore(m.getId(), content, m.getCreatedAt(), exposeTrace);
                     if (traceMeta.isPresent()) {
                         messages.add(traceMeta.get());
                         continue;
                     }
-                    if (content.startsWith(TRACE_META_PREFIX) || content.startsWith(TRACE_META_PREFIX_B64)) {
-                        continue;
-                    }
                 }
                 continue;
             }
 
             messages.add(new ChatApiController.MessageDto(m.getId(), role, content, m.getCreatedAt()));
         }
+        if (exposeTrace && traceRecords != null && !traceRecords.isEmpty()) {
+            for (ChatTraceRecordRepository.Ref ref : traceRecords) {
+                if (ref != null && ref.getId() != null) {
+                    messages.add(ChatTraceMetaMessageRestorer.traceRecordCard(ref.getId(), ref.getCreatedAt()));
+                }
+            }
+            messages.sort(Comparator.comparing(ChatApiController.MessageDto::timestamp,
+                    Comparator.nullsLast(Comparator.naturalOrder())));
+        }
 
         Map<String, Object> savedSettings = Collections.emptyMap();
         String meta = session.getSessionMeta();
@@ -76,6 +76,20 @@ final class ChatTraceMetaMessageRestorer {
         return true;
     }
 
+    /**
+     * Card for a {@code chat_trace_record} row. Record ids are a separate sequence from {@code chat_message}
+     * ids, so the card's turn id is the negated record id and can never equal a message's turn id; the record
+     * id itself ({@code lastTraceTurnId}, the trace URL) is carried in {@code data-trace-record-id}.
+     */
+    static ChatApiController.MessageDto traceRecordCard(Long recordId, LocalDateTime timestamp) {
+        String card = "<div class=\"search-trace trace-record-card\" data-trace-record-id=\"" + recordId + "\">"
+                + "<strong>Search trace</strong>"
+                + "<a href=\"/api/chat/trace/" + recordId
+                + "/html\" target=\"_blank\" rel=\"noopener noreferrer\">Open trace</a>"
+                + "</div>";
+        return new ChatApiController.MessageDto(-recordId, "system", card, timestamp);
+    }
+
     private static String traceSnapshotCard(String snapshotId) {
         String safeId = escapeHtmlAttr(snapshotId);
         String hrefId = java.net.URLEncoder.encode(snapshotId, java.nio.charset.StandardCharsets.UTF_8);
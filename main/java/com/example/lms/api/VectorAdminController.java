@@ -48,6 +48,9 @@ public class VectorAdminController {
     @org.springframework.beans.factory.annotation.Autowired(required = false)
     private VectorQuarantineDlqService vectorQuarantineDlqService;
 
+    @org.springframework.beans.factory.annotation.Autowired(required = false)
+    private com.abandonware.ai.agent.service.rag.bm25.Bm25IndexService bm25IndexService;
+
     @GetMapping("/status")
     public ResponseEntity<Map<String, Object>> status() {
         Map<String, Object> out = new LinkedHashMap<>();
@@ -371,6 +374,14 @@ public class VectorAdminController {
         if (id == null) return ResponseEntity.badRequest().body(Map.of("ok", false, "error", "id is null"));
         if (!memoryRepo.existsById(id)) return ResponseEntity.notFound().build();
         memoryRepo.deleteById(id);
+        if (bm25IndexService != null) {
+            try {
+                bm25IndexService.remove(id);
+            } catch (Exception e) {
+                // next BM25 compaction drops the row anyway
+                traceSuppressed("bm25.remove", e);
+            }
+        }
         return ResponseEntity.ok(quarantineAck(id, Map.of()));
     }
 
@@ -27,6 +27,7 @@ import dev.langchain4j.model.embedding.EmbeddingModel;
 import dev.langchain4j.model.openai.OpenAiChatModel;
 import dev.langchain4j.model.openai.OpenAiEmbeddingModel;
 import com.example.lms.service.embedding.DecoratingEmbeddingModel;
+import com.example.lms.service.embedding.EmbeddingMicroBatcher;
 import com.example.lms.service.embedding.OllamaEmbeddingModel;
 import dev.langchain4j.store.embedding.EmbeddingStore;
 import org.apache.lucene.analysis.Analyzer;
@@ -47,6 +48,7 @@ import com.example.lms.search.TraceStore;
 import org.springframework.web.reactive.function.client.WebClient;
 import dev.langchain4j.data.embedding.Embedding;
 import dev.langchain4j.store.embedding.EmbeddingSearchResult;
+import java.util.concurrent.TimeUnit;
 import java.util.List;
 import java.util.Map;
 import java.time.Duration;
@@ -118,6 +120,21 @@ public class LangChainConfig {
     @Value("${embedding.timeout-seconds:30}")
     private long embeddingTimeoutSec;
 
+    @Value("${embedding.micro-batch.enabled:true}")
+    private boolean embeddingMicroBatchEnabled;
+
+    @Value("${embedding.micro-batch.max-batch:32}")
+    private int embeddingMicroBatchMax;
+
+    @Value("${embedding.micro-batch.max-linger-micros:3000}")
+    private long embeddingMicroBatchMaxLingerMicros;
+
+    @Value("${embedding.micro-batch.max-queue:1024}")
+    private int embeddingMicroBatchMaxQueue;
+
+    @Value("${embedding.micro-batch.max-concurrent-batches:4}")
+    private int embeddingMicroBatchMaxConcurrent;
+
     /**
      * Determines whether the application should fail fast if the vector store
      * (e.g. Pinecone) cannot be initialized. When set to {@code true}, any
@@ -223,12 +240,20 @@ public class LangChainConfig {
                 break;
         }
 
-        // Shared embedding cache/decorator layer.
+        // Query-time embed(String) misses share embedAll calls under concurrency.
+        EmbeddingMicroBatcher batcher = embeddingMicroBatchEnabled && embeddingMicroBatchMax > 1
+                ? new EmbeddingMicroBatcher(delegate, embeddingMicroBatchMax, embeddingMicroBatchMaxLingerMicros,
+                        embeddingMicroBatchMaxQueue, TimeUnit.SECONDS.toMillis(Math.max(1L, embeddingTimeoutSec)) * 2,
+                        embeddingMicroBatchMaxConcurrent)
+                : null;
+
+        // Shared embedding cache/decorator layer (closed by Spring's inferred destroy method).
         return new DecoratingEmbeddingModel(
                 delegate,
                 null,
                 java.time.Duration.ofMinutes(15),
-                embeddingFingerprint);
+                embeddingFingerprint,
+                batcher);
     }
 
     // LangChainConfig.java
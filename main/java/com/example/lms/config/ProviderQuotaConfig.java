@@ -0,0 +1,52 @@
+package com.example.lms.config;
+
+import com.example.lms.service.web.quota.LocalProviderTokenBucket;
+import com.example.lms.service.web.quota.ProviderQuotaProperties;
+import com.example.lms.service.web.quota.ProviderQuotaScheduler;
+import com.example.lms.service.web.quota.ProviderTokenBucket;
+import com.example.lms.service.web.quota.RedisProviderTokenBucket;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+
+/**
+ * Wires the cluster-shared web provider quota ({@code gpt-search.quota.*}).
+ *
+ * <p>{@code backend=redis} shares one token bucket per provider across all app nodes;
+ * anything else uses the embedded per-process bucket.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "gpt-search.quota", name = "enabled", havingValue = "true", matchIfMissing = false)
+public class ProviderQuotaConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ProviderQuotaConfig.class);
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean(ProviderTokenBucket.class)
+    ProviderTokenBucket providerTokenBucket(ProviderQuotaProperties props) {
+        LocalProviderTokenBucket local = new LocalProviderTokenBucket();
+        if (!"redis".equalsIgnoreCase(props.getBackend())) {
+            log.info("[Quota] provider token bucket backend=local");
+            return local;
+        }
+        ProviderQuotaProperties.Redis r = props.getRedis();
+        JedisPool pool = new JedisPool(new JedisPoolConfig(), r.getHost(), r.getPort(), Math.max(50, r.getTimeoutMs()));
+        log.info("[Quota] provider token bucket backend=redis keyPrefix={}", props.getKeyPrefix());
+        return new RedisProviderTokenBucket(pool, props.getKeyPrefix(), local);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(ProviderQuotaScheduler.class)
+    ProviderQuotaScheduler providerQuotaScheduler(ProviderQuotaProperties props,
+                                                  ProviderTokenBucket bucket,
+                                                  ObjectProvider<MeterRegistry> meterRegistry) {
+        return new ProviderQuotaScheduler(props, bucket, meterRegistry.getIfAvailable());
+    }
+}
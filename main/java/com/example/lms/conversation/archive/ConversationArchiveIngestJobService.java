@@ -0,0 +1,270 @@
+package com.example.lms.conversation.archive;
+
+import com.example.lms.infra.exec.ContextAwareExecutorService;
+import com.example.lms.search.TraceStore;
+import com.example.lms.trace.SafeRedactor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchronous job mode for {@link ConversationArchiveIngestService}.
+ *
+ * <p>Large exports used to time out at the proxy because the whole ZIP was parsed, classified
+ * and enqueued inside the HTTP request. A job spools the uploads to temp files (the multipart
+ * parts are gone once the request completes), returns a job id immediately, and runs the shared
+ * pipelined ingest core on a small job pool: entries are parsed/classified by a bounded worker
+ * pool and chunks stream into the vector buffer with backpressure. Progress, throughput and the
+ * partial {@link ConversationArchiveIngestReport} are exposed through {@link #status}.
+ */
+@Service
+public class ConversationArchiveIngestJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(ConversationArchiveIngestJobService.class);
+
+    private final ConversationArchiveIngestService ingestService;
+    private final ThreadPoolExecutor jobPool;
+    private final ThreadPoolExecutor workerPool;
+    private final ExecutorService workers;
+    private final Cache<String, Job> jobs;
+    private final int window;
+    private final ConversationArchiveIngestService.Pipeline pipeline;
+
+    public ConversationArchiveIngestJobService(
+            ConversationArchiveIngestService ingestService,
+            @Value("${conversation.archive.async.max-concurrent-jobs:2}") int maxConcurrentJobs,
+            @Value("${conversation.archive.async.max-queued-jobs:8}") int maxQueuedJobs,
+            @Value("${conversation.archive.async.workers:0}") int workerThreads,
+            @Value("${conversation.archive.async.max-pending-vectors:2048}") int maxPendingVectors,
+            @Value("${conversation.archive.async.max-backpressure-wait-ms:30000}") long maxBackpressureWaitMs,
+            @Value("${conversation.archive.async.job-ttl-minutes:60}") long jobTtlMinutes) {
+        this.ingestService = ingestService;
+        int jobThreads = Math.max(1, maxConcurrentJobs);
+        int nWorkers = workerThreads > 0
+                ? workerThreads
+                : Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+        this.jobPool = new ThreadPoolExecutor(jobThreads, jobThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, maxQueuedJobs)), daemon("archive-ingest-job-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        // CallerRunsPolicy: when every worker is busy the ingest thread parses the entry itself,
+        // which naturally throttles ZIP reading instead of queueing bodies without bound.
+        this.workerPool = new ThreadPoolExecutor(nWorkers, nWorkers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(nWorkers * 2), daemon("archive-ingest-worker-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.workers = new ContextAwareExecutorService(workerPool);
+        this.window = nWorkers * 2;
+        this.pipeline = new ConversationArchiveIngestService.Pipeline(maxPendingVectors, maxBackpressureWaitMs);
+        this.jobs = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMinutes(Math.max(1L, jobTtlMinutes)))
+                .maximumSize(1000)
+                .build();
+    }
+
+    /**
+     * Validate and spool the uploads, then schedule the ingest.
+     *
+     * @throws ResponseStatusException {@code 400 unsupported_archive_type} for non-ZIP uploads,
+     *                                 {@code 429 archive_job_queue_full} when the job queue is full
+     */
+    public JobStatus submit(List<MultipartFile> files, String sessionId) {
+        List<MultipartFile> zips = ingestService.validZips(files);
+        String sid = (sessionId == null || sessionId.isBlank()) ? "__TRANSIENT__" : sessionId.trim();
+        Job job = new Job(UUID.randomUUID().toString(), SafeRedactor.hashValue(sid), System.currentTimeMillis());
+        List<Path> spooled = spool(zips);
+        Object traceId = TraceStore.get("traceId");
+        Object requestId = TraceStore.get("requestId");
+        jobs.put(job.id, job);
+        try {
+            jobPool.execute(() -> run(job, spooled, sid, traceId, requestId));
+        } catch (RejectedExecutionException rex) {
+            jobs.invalidate(job.id);
+            deleteQuietly(spooled);
+            TraceStore.put("conversation.archive.job.rejected", true);
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "archive_job_queue_full");
+        }
+        TraceStore.put("conversation.archive.job.idHash", SafeRedactor.hashValue(job.id));
+        return job.status();
+    }
+
+    /** Job status, visible only to the session that submitted it. */
+    public Optional<JobStatus> status(String jobId, String sessionId) {
+        if (jobId == null || jobId.isBlank()) {
+            return Optional.empty();
+        }
+        Job job = jobs.getIfPresent(jobId.trim());
+        String sid = (sessionId == null || sessionId.isBlank()) ? "__TRANSIENT__" : sessionId.trim();
+        if (job == null || !job.sessionIdHash.equals(SafeRedactor.hashValue(sid))) {
+            return Optional.empty();
+        }
+        return Optional.of(job.status());
+    }
+
+    private void run(Job job, List<Path> spooled, String sid, Object traceId, Object requestId) {
+        TraceStore.clear();
+        try {
+            if (traceId != null) {
+                TraceStore.put("traceId", traceId);
+            }
+            if (requestId != null) {
+                TraceStore.put("requestId", requestId);
+            }
+            job.state = State.RUNNING;
+            job.startedAtMs = System.currentTimeMillis();
+            List<FileSystemResource> sources = new ArrayList<>(spooled.size());
+            for (Path p : spooled) {
+                sources.add(new FileSystemResource(p));
+            }
+            ConversationArchiveIngestReport report = ingestService.ingestSources(
+                    sources, sid, workers, window, pipeline, p -> job.progress = p);
+            job.report = report;
+            job.state = State.COMPLETED;
+        } catch (ResponseStatusException rse) {
+            job.error = rse.getReason() == null ? "ingest_failed" : rse.getReason();
+            job.state = State.FAILED;
+        } catch (Exception ex) {
+            job.error = "ingest_failed";
+            job.state = State.FAILED;
+            log.warn("[ConversationArchive] job failed jobIdHash={} errorType={}",
+                    SafeRedactor.hashValue(job.id), ex.getClass().getSimpleName());
+        } finally {
+            job.finishedAtMs = System.currentTimeMillis();
+            deleteQuietly(spooled);
+            TraceStore.clear();
+        }
+    }
+
+    private static List<Path> spool(List<MultipartFile> zips) {
+        List<Path> out = new ArrayList<>(zips.size());
+        try {
+            for (MultipartFile file : zips) {
+                Path tmp = Files.createTempFile("conversation-archive-", ".zip");
+                out.add(tmp);
+                try (InputStream in = file.getInputStream()) {
+                    Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            return out;
+        } catch (IOException ex) {
+            deleteQuietly(out);
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid_zip_archive");
+        }
+    }
+
+    private static void deleteQuietly(List<Path> paths) {
+        for (Path p : paths) {
+            try {
+                Files.deleteIfExists(p);
+            } catch (IOException ignore) {
+                TraceStore.put("conversation.archive.suppressed.spoolCleanup", true);
+            }
+        }
+    }
+
+    private static java.util.concurrent.ThreadFactory daemon(String prefix) {
+        AtomicInteger seq = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobPool.shutdownNow();
+        workerPool.shutdownNow();
+    }
+
+    public enum State { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    /**
+     * Public job view.
+     *
+     * @param recordsPerSec throughput over the running time so far
+     * @param partial       partial report while running, final report once completed
+     */
+    public record JobStatus(
+            String jobId,
+            State state,
+            String sessionIdHash,
+            int entryCount,
+            int mergedTxtEntryCount,
+            int recordCount,
+            int ingestedCount,
+            int backpressureWaits,
+            long elapsedMs,
+            double recordsPerSec,
+            double chunksPerSec,
+            String error,
+            ConversationArchiveIngestReport partial
+    ) {
+    }
+
+    private static final class Job {
+        final String id;
+        final String sessionIdHash;
+        final long submittedAtMs;
+        volatile State state = State.QUEUED;
+        volatile long startedAtMs;
+        volatile long finishedAtMs;
+        volatile ConversationArchiveIngestService.Progress progress;
+        volatile ConversationArchiveIngestReport report;
+        volatile String error;
+
+        Job(String id, String sessionIdHash, long submittedAtMs) {
+            this.id = id;
+            this.sessionIdHash = sessionIdHash;
+            this.submittedAtMs = submittedAtMs;
+        }
+
+        JobStatus status() {
+            ConversationArchiveIngestService.Progress p = progress;
+            ConversationArchiveIngestReport r = report;
+            long start = startedAtMs;
+            long end = finishedAtMs > 0L ? finishedAtMs : System.currentTimeMillis();
+            long elapsed = start > 0L ? Math.max(0L, end - start) : 0L;
+            int records = p == null ? 0 : p.recordCount();
+            int ingested = r != null ? r.ingestedCount() : (p == null ? 0 : p.ingestedCount());
+            double secs = Math.max(0.001d, elapsed / 1000.0d);
+            return new JobStatus(
+                    id,
+                    state,
+                    sessionIdHash,
+                    r != null ? r.entryCount() : (p == null ? 0 : p.entryCount()),
+                    p == null ? 0 : p.mergedTxtEntryCount(),
+                    records,
+                    ingested,
+                    p == null ? 0 : p.backpressureWaits(),
+                    elapsed,
+                    elapsed > 0L ? records / secs : 0.0d,
+                    elapsed > 0L ? ingested / secs : 0.0d,
+                    error,
+                    r != null ? r : (p == null ? null : p.partial()));
+        }
+    }
+}
@@ -9,6 +9,7 @@ import com.example.lms.service.VectorStoreService;
 import com.example.lms.trace.SafeRedactor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
@@ -17,12 +18,19 @@ import org.springframework.web.server.ResponseStatusException;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.EnumMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
@@ -36,6 +44,7 @@ public class ConversationArchiveIngestService {
     private static final int MAX_RECORDS = 5000;
     private static final int CHUNK_CHARS = 3200;
     private static final int CHUNK_MESSAGES = 10;
+    private static final long BACKPRESSURE_POLL_MS = 25L;
 
     private final VectorStoreService vectorStoreService;
     private final ObjectProvider<DebugEventStore> debugEventStore;
@@ -45,20 +54,49 @@ public class ConversationArchiveIngestService {
     private final ConversationTopicTimelineBuilder chunkBuilder = new ConversationTopicTimelineBuilder();
 
     public ConversationArchiveIngestReport ingest(List<MultipartFile> files, String sessionId) {
+        List<MultipartFile> safeFiles = validZips(files);
+        return ingestSources(new ArrayList<>(safeFiles), sessionId, Runnable::run, 1, Pipeline.SYNC, null);
+    }
+
+    /**
+     * Non-empty uploads, all of which must look like ZIP archives.
+     *
+     * @throws ResponseStatusException {@code 400 unsupported_archive_type} otherwise
+     */
+    List<MultipartFile> validZips(List<MultipartFile> files) {
         List<MultipartFile> safeFiles = files == null ? List.of() : files.stream()
                 .filter(f -> f != null && !f.isEmpty())
                 .toList();
         if (safeFiles.isEmpty() || safeFiles.stream().anyMatch(f -> !isZip(f))) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "unsupported_archive_type");
         }
+        return safeFiles;
+    }
 
+    /**
+     * Shared ingest core.
+     *
+     * <p>The calling thread reads ZIP entries sequentially (ZipInputStream is not splittable) and
+     * hands each bounded text body to {@code workers} for parse/classify/chunk. Up to
+     * {@code window} entries are in flight; results are merged back on the calling thread in entry
+     * order, so record budgets, counts and chunk order match the sequential path exactly. With a
+     * same-thread executor and {@code window=1} this is the plain synchronous ingest.
+     */
+    ConversationArchiveIngestReport ingestSources(List<? extends InputStreamSource> sources,
+                                                  String sessionId,
+                                                  Executor workers,
+                                                  int window,
+                                                  Pipeline pipeline,
+                                                  Consumer<Progress> progress) {
         long started = System.currentTimeMillis();
         String sid = (sessionId == null || sessionId.isBlank()) ? "__TRANSIENT__" : sessionId.trim();
         Stats stats = new Stats();
-        stats.zipCount = safeFiles.size();
+        stats.zipCount = sources.size();
+        Run run = new Run(sid, stats, workers, Math.max(1, window), pipeline == null ? Pipeline.SYNC : pipeline,
+                progress, started);
 
-        for (MultipartFile file : safeFiles) {
-            readZip(file, sid, stats);
+        for (InputStreamSource source : sources) {
+            readZip(source, run);
             if (stats.recordCount >= MAX_RECORDS) {
                 stats.truncated = true;
                 break;
@@ -66,11 +104,14 @@ public class ConversationArchiveIngestService {
         }
 
         Map<String, Integer> counts = counts(stats.counts);
-        int skipped = counts.get(ConversationMessageKind.QUARANTINED.wireName());
         Map<String, Object> trace = tracePayload(sid, stats, counts, System.currentTimeMillis() - started);
         emitTrace(trace, stats, counts);
         emitDebug(trace);
+        return report(sid, stats, counts, trace);
+    }
 
+    private static ConversationArchiveIngestReport report(String sid, Stats stats, Map<String, Integer> counts,
+                                                          Map<String, Object> trace) {
         return new ConversationArchiveIngestReport(
                 true,
                 SafeRedactor.hashValue(sid),
@@ -81,17 +122,19 @@ public class ConversationArchiveIngestService {
                 List.copyOf(stats.tree),
                 counts,
                 stats.ingestedCount,
-                skipped,
+                counts.get(ConversationMessageKind.QUARANTINED.wireName()),
                 trace);
     }
 
-    private void readZip(MultipartFile file, String sessionId, Stats stats) {
-        try (ZipInputStream zin = new ZipInputStream(file.getInputStream(), StandardCharsets.UTF_8)) {
+    private void readZip(InputStreamSource source, Run run) {
+        Stats stats = run.stats;
+        Deque<CompletableFuture<ParsedEntry>> inFlight = new ArrayDeque<>();
+        try (ZipInputStream zin = new ZipInputStream(source.getInputStream(), StandardCharsets.UTF_8)) {
             ZipEntry entry;
             while ((entry = zin.getNextEntry()) != null) {
                 if (stats.entryCount >= MAX_ENTRIES) {
                     stats.truncated = true;
-                    return;
+                    break;
                 }
                 stats.entryCount++;
                 String entryName = safeEntryName(entry.getName());
@@ -106,43 +149,144 @@ public class ConversationArchiveIngestService {
                 if (bytes.length >= MAX_ENTRY_BYTES) {
                     stats.truncated = true;
                 }
-                processTextEntry(entryName, new String(bytes, StandardCharsets.UTF_8), sessionId, stats);
+                String body = new String(bytes, StandardCharsets.UTF_8);
+                inFlight.addLast(CompletableFuture.supplyAsync(() -> parseEntry(entryName, body, run.sessionId), run.workers));
+                while (inFlight.size() >= run.window) {
+                    mergeEntry(await(inFlight.pollFirst()), run);
+                }
                 if (stats.recordCount >= MAX_RECORDS) {
                     stats.truncated = true;
-                    return;
+                    break;
                 }
             }
+            while (!inFlight.isEmpty() && stats.recordCount < MAX_RECORDS) {
+                mergeEntry(await(inFlight.pollFirst()), run);
+            }
+            if (stats.recordCount >= MAX_RECORDS) {
+                stats.truncated = true;
+            }
         } catch (IOException ex) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid_zip_archive");
+        } finally {
+            inFlight.forEach(f -> f.cancel(false));
         }
     }
 
-    private void processTextEntry(String entryName, String body, String sessionId, Stats stats) {
-        List<ConversationTopicTimelineBuilder.ClassifiedRecord> accepted = new ArrayList<>();
+    /** Worker side: parse + classify every record, and chunk speculatively assuming no budget cut. */
+    private ParsedEntry parseEntry(String entryName, String body, String sessionId) {
+        List<ConversationTopicTimelineBuilder.ClassifiedRecord> classified = new ArrayList<>();
         for (ConversationMessageRecord record : parser.parse(entryName, body)) {
-            if (stats.recordCount >= MAX_RECORDS) {
-                stats.truncated = true;
+            if (classified.size() >= MAX_RECORDS) {
                 break;
             }
+            classified.add(new ConversationTopicTimelineBuilder.ClassifiedRecord(record, classifier.classify(record)));
+        }
+        return new ParsedEntry(classified, chunkBuilder.build(sessionId, accepted(classified), CHUNK_CHARS, CHUNK_MESSAGES));
+    }
+
+    /** Merge side (ingest thread only): apply the record budget in entry order, then enqueue chunks. */
+    private void mergeEntry(ParsedEntry parsed, Run run) {
+        Stats stats = run.stats;
+        List<ConversationTopicTimelineBuilder.ClassifiedRecord> classified = parsed.classified();
+        int budget = Math.max(0, MAX_RECORDS - stats.recordCount);
+        List<ConversationTopicTimelineBuilder.ClassifiedRecord> taken = classified;
+        if (classified.size() > budget) {
+            stats.truncated = true;
+            taken = classified.subList(0, budget);
+        }
+        for (ConversationTopicTimelineBuilder.ClassifiedRecord item : taken) {
             stats.recordCount++;
-            ConversationNoiseClassifier.Decision decision = classifier.classify(record);
-            stats.counts.merge(decision.kind(), 1, Integer::sum);
-            if (!decision.ingestible()) {
-                continue;
-            }
-            accepted.add(new ConversationTopicTimelineBuilder.ClassifiedRecord(record, decision));
+            stats.counts.merge(item.decision().kind(), 1, Integer::sum);
         }
-        List<ConversationTopicTimelineBuilder.Chunk> chunks = chunkBuilder.build(sessionId, accepted, CHUNK_CHARS, CHUNK_MESSAGES);
+        List<ConversationTopicTimelineBuilder.Chunk> chunks = (taken == classified)
+                ? parsed.chunks()
+                : chunkBuilder.build(run.sessionId, accepted(taken), CHUNK_CHARS, CHUNK_MESSAGES);
         for (ConversationTopicTimelineBuilder.Chunk chunk : chunks) {
             if (chunk == null || chunk.text() == null || chunk.text().isBlank()) {
                 continue;
             }
-            vectorStoreService.enqueue(chunk.id(), sessionId, chunk.text(), chunk.metadata());
+            awaitVectorCapacity(run);
+            vectorStoreService.enqueue(chunk.id(), run.sessionId, chunk.text(), chunk.metadata());
             stats.ingestedCount++;
         }
+        stats.mergedEntryCount++;
+        if (run.progress != null) {
+            run.progress.accept(progress(run));
+        }
     }
 
-    private static boolean isZip(MultipartFile file) {
+    /**
+     * Backpressure for the async pipeline: while the vector buffer holds more than
+     * {@code maxPendingVectors} entries (e.g. the embedding backend is slow or backing off), pause
+     * the producer instead of growing the buffer without bound. The wait is capped so a stuck
+     * flush cannot wedge the job; after the cap we enqueue anyway and record it.
+     */
+    private void awaitVectorCapacity(Run run) {
+        Pipeline p = run.pipeline;
+        if (p.maxPendingVectors() <= 0) {
+            return;
+        }
+        long deadline = System.currentTimeMillis() + Math.max(0L, p.maxBackpressureWaitMs());
+        boolean waited = false;
+        while (vectorStoreService.pendingSize() >= p.maxPendingVectors()) {
+            if (System.currentTimeMillis() >= deadline) {
+                run.stats.backpressureTimeouts++;
+                TraceStore.put("conversation.archive.backpressure.timeout", true);
+                break;
+            }
+            waited = true;
+            try {
+                Thread.sleep(BACKPRESSURE_POLL_MS);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("conversation archive ingest interrupted");
+            }
+        }
+        if (waited) {
+            run.stats.backpressureWaits++;
+        }
+    }
+
+    private static ParsedEntry await(CompletableFuture<ParsedEntry> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            Throwable cause = ex.getCause() == null ? ex : ex.getCause();
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private static List<ConversationTopicTimelineBuilder.ClassifiedRecord> accepted(
+            List<ConversationTopicTimelineBuilder.ClassifiedRecord> classified) {
+        List<ConversationTopicTimelineBuilder.ClassifiedRecord> out = new ArrayList<>(classified.size());
+        for (ConversationTopicTimelineBuilder.ClassifiedRecord item : classified) {
+            if (item.decision().ingestible()) {
+                out.add(item);
+            }
+        }
+        return out;
+    }
+
+    private static Progress progress(Run run) {
+        Stats stats = run.stats;
+        Map<String, Integer> counts = counts(stats.counts);
+        long tookMs = System.currentTimeMillis() - run.startedAtMs;
+        Map<String, Object> trace = tracePayload(run.sessionId, stats, counts, tookMs);
+        return new Progress(
+                stats.entryCount,
+                stats.mergedEntryCount,
+                stats.recordCount,
+                stats.ingestedCount,
+                stats.backpressureWaits,
+                stats.backpressureTimeouts,
+                tookMs,
+                report(run.sessionId, stats, counts, trace));
+    }
+
+    static boolean isZip(MultipartFile file) {
         String name = file.getOriginalFilename() == null ? "" : file.getOriginalFilename().toLowerCase(Locale.ROOT);
         String type = file.getContentType() == null ? "" : file.getContentType().toLowerCase(Locale.ROOT);
         return name.endsWith(".zip")
@@ -258,14 +402,49 @@ public class ConversationArchiveIngestService {
                 null);
     }
 
+    /**
+     * Pipeline tuning for {@link #ingestSources}.
+     *
+     * @param maxPendingVectors     pause enqueueing while the vector buffer holds at least this many
+     *                              entries ({@code <= 0} disables backpressure)
+     * @param maxBackpressureWaitMs upper bound for a single backpressure pause
+     */
+    record Pipeline(int maxPendingVectors, long maxBackpressureWaitMs) {
+        static final Pipeline SYNC = new Pipeline(0, 0L);
+    }
+
+    /** Point-in-time progress of a running ingest, including a partial report. */
+    public record Progress(
+            int entryCount,
+            int mergedTxtEntryCount,
+            int recordCount,
+            int ingestedCount,
+            int backpressureWaits,
+            int backpressureTimeouts,
+            long elapsedMs,
+            ConversationArchiveIngestReport partial
+    ) {
+    }
+
+    private record ParsedEntry(List<ConversationTopicTimelineBuilder.ClassifiedRecord> classified,
+                               List<ConversationTopicTimelineBuilder.Chunk> chunks) {
+    }
+
+    private record Run(String sessionId, Stats stats, Executor workers, int window, Pipeline pipeline,
+                       Consumer<Progress> progress, long startedAtMs) {
+    }
+
     private static final class Stats {
         final EnumMap<ConversationMessageKind, Integer> counts = new EnumMap<>(ConversationMessageKind.class);
         final List<String> tree = new ArrayList<>();
         int zipCount;
         int entryCount;
         int txtEntryCount;
+        int mergedEntryCount;
         int recordCount;
         int ingestedCount;
+        int backpressureWaits;
+        int backpressureTimeouts;
         boolean truncated;
     }
 
@@ -0,0 +1,61 @@
+package com.example.lms.domain;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 세션별 Search Trace 레코드 (압축 바이너리, {@code TraceRecordCodec}).
+ *
+ * <p>예전에는 렌더링된 trace HTML/스냅샷 포인터를 system {@link ChatMessage}로 저장했기 때문에
+ * 히스토리 조회마다 trace 행이 함께 로딩되었습니다. 이제 trace는 이 테이블에만 저장되고,
+ * HTML은 클라이언트가 trace 뷰를 열 때 {@code GET /api/chat/trace/{id}/html}에서 렌더링됩니다.</p>
+ */
+@Entity
+@Table(
+        name = "chat_trace_record",
+        indexes = {
+                @Index(name = "idx_ctr_session", columnList = "session_id,id"),
+                @Index(name = "idx_ctr_source_msg", columnList = "source_message_id")
+        }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+public class ChatTraceRecord {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "session_id", nullable = false)
+    private Long sessionId;
+
+    @Column(name = "codec_version", nullable = false)
+    private int codecVersion;
+
+    /** {@code TraceRecordCodec.Kind} name: PANEL | LEGACY_HTML | SNAPSHOT_REF. */
+    @Column(name = "kind", length = 20, nullable = false)
+    private String kind;
+
+    @Lob
+    @Column(name = "payload", nullable = false)
+    private byte[] payload;
+
+    /** Migrated from this legacy system message id (null for records written by the chat path). */
+    @Column(name = "source_message_id")
+    private Long sourceMessageId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    void prePersist() {
+        if (this.createdAt == null) {
+            this.createdAt = LocalDateTime.now();
+        }
+    }
+}
@@ -24,7 +24,9 @@ import java.time.LocalDateTime;
                 // - Composite index avoids full scan + filesort on write-heavy tables.
                 @Index(name = "idx_tm_status_created_at", columnList = "status, created_at"),
                 // [Lease] multi-instance claim support
-                @Index(name = "idx_tm_status_locked_at", columnList = "status, locked_at")
+                @Index(name = "idx_tm_status_locked_at", columnList = "status, locked_at"),
+                // [BM25 NRT] change cursor: updated_at > :since ORDER BY updated_at
+                @Index(name = "idx_tm_updated_at", columnList = "updated_at")
         }
 )
 @Getter @Setter @Builder
@@ -2,15 +2,10 @@ package com.example.lms.infra.exec;
 
 import ai.abandonware.nova.boot.exec.CancelShieldExecutorService;
 import ai.abandonware.nova.boot.exec.CancelShieldFuture;
-import com.example.lms.search.TraceStore;
-import com.example.lms.service.guard.GuardContext;
-import com.example.lms.service.guard.GuardContextHolder;
-import org.slf4j.MDC;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
@@ -32,6 +27,10 @@ import java.util.concurrent.TimeoutException;
  *       ThreadLocal(GuardContext) 및 MDC가 끊기는 문제를 방지</li>
  *   <li>Reactive/async 경계에서 TraceStore meta가 끊기는 문제를 방지</li>
  * </ul>
+ *
+ * <p>Each call captures one {@link RequestContext} and wraps its task(s) with it, so call sites
+ * submitting to this executor need no manual {@link ContextPropagation} wrapping; an
+ * {@code invokeAll} batch shares a single snapshot.</p>
  */
 public class ContextAwareExecutorService implements ExecutorService {
 
@@ -43,45 +42,35 @@ public class ContextAwareExecutorService implements ExecutorService {
 
     @Override
     public void execute(Runnable command) {
-        Map<String, String> mdc = MDC.getCopyOfContextMap();
-        GuardContext guard = captureGuardOrDefault();
-        Map<String, Object> traceCtx = TraceStore.context();
         // MERGE_HOOK:PROJ_AGENT::TRACE_STORE_PROPAGATION_IN_EXECUTOR_V1
-        delegate.execute(wrap(command, mdc, guard, traceCtx));
+        RequestContext ctx = RequestContext.capture();
+        delegate.execute(ctx.wrap(command));
     }
 
     @Override
     public Future<?> submit(Runnable task) {
-        Map<String, String> mdc = MDC.getCopyOfContextMap();
-        GuardContext guard = captureGuardOrDefault();
-        Map<String, Object> traceCtx = TraceStore.context();
-        return shield(delegate.submit(wrap(task, mdc, guard, traceCtx)));
+        RequestContext ctx = RequestContext.capture();
+        return shield(delegate.submit(ctx.wrap(task)));
     }
 
     @Override
     public <T> Future<T> submit(Runnable task, T result) {
-        Map<String, String> mdc = MDC.getCopyOfContextMap();
-        GuardContext guard = captureGuardOrDefault();
-        Map<String, Object> traceCtx = TraceStore.context();
-        return shield(delegate.submit(wrap(task, mdc, guard, traceCtx), result));
+        RequestContext ctx = RequestContext.capture();
+        return shield(delegate.submit(ctx.wrap(task), result));
     }
 
     @Override
     public <T> Future<T> submit(Callable<T> task) {
-        Map<String, String> mdc = MDC.getCopyOfContextMap();
-        GuardContext guard = captureGuardOrDefault();
-        Map<String, Object> traceCtx = TraceStore.context();
-        return shield(delegate.submit(wrap(task, mdc, guard, traceCtx)));
+        RequestContext ctx = RequestContext.capture();
+        return shield(delegate.submit(ctx.wrapCallable(task)));
     }
 
     @Override
     public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks) throws InterruptedException {
-        Map<String, String> mdc = MDC.getCopyOfContextMap();
-        GuardContext guard = captureGuardOrDefault();
-        Map<String, Object> traceCtx = TraceStore.context();
+        RequestContext ctx = RequestContext.capture();
         List<Callable<T>> wrapped = new ArrayList<>(tasks.size());
         for (Callable<T> t : tasks) {
-            wrapped.add(wrap(t, mdc, guard, traceCtx));
+            wrapped.add(ctx.wrapCallable(t));
         }
         return new CancelShieldExecutorService(delegate, "contextAwareExecutor")
                 .invokeAll(wrapped);
@@ -90,12 +79,10 @@ public class ContextAwareExecutorService implements ExecutorService {
     @Override
     public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit)
             throws InterruptedException {
-        Map<String, String> mdc = MDC.getCopyOfContextMap();
-        GuardContext guard = captureGuardOrDefault();
-        Map<String, Object> traceCtx = TraceStore.context();
+        RequestContext ctx = RequestContext.capture();
         List<Callable<T>> wrapped = new ArrayList<>(tasks.size());
         for (Callable<T> t : tasks) {
-            wrapped.add(wrap(t, mdc, guard, traceCtx));
+            wrapped.add(ctx.wrapCallable(t));
         }
         return new CancelShieldExecutorService(delegate, "contextAwareExecutor")
                 .invokeAll(wrapped, timeout, unit);
@@ -104,12 +91,10 @@ public class ContextAwareExecutorService implements ExecutorService {
     @Override
     public <T> T invokeAny(Collection<? extends Callable<T>> tasks)
             throws InterruptedException, java.util.concurrent.ExecutionException {
-        Map<String, String> mdc = MDC.getCopyOfContextMap();
-        GuardContext guard = captureGuardOrDefault();
-        Map<String, Object> traceCtx = TraceStore.context();
+        RequestContext ctx = RequestContext.capture();
         List<Callable<T>> wrapped = new ArrayList<>(tasks.size());
         for (Callable<T> t : tasks) {
-            wrapped.add(wrap(t, mdc, guard, traceCtx));
+            wrapped.add(ctx.wrapCallable(t));
         }
         return new CancelShieldExecutorService(delegate, "contextAwareExecutor")
                 .invokeAny(wrapped);
@@ -118,12 +103,10 @@ public class ContextAwareExecutorService implements ExecutorService {
     @Override
     public <T> T invokeAny(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit)
             throws InterruptedException, java.util.concurrent.ExecutionException, TimeoutException {
-        Map<String, String> mdc = MDC.getCopyOfContextMap();
-        GuardContext guard = captureGuardOrDefault();
-        Map<String, Object> traceCtx = TraceStore.context();
+        RequestContext ctx = RequestContext.capture();
         List<Callable<T>> wrapped = new ArrayList<>(tasks.size());
         for (Callable<T> t : tasks) {
-            wrapped.add(wrap(t, mdc, guard, traceCtx));
+            wrapped.add(ctx.wrapCallable(t));
         }
         return new CancelShieldExecutorService(delegate, "contextAwareExecutor")
                 .invokeAny(wrapped, timeout, unit);
@@ -136,73 +119,6 @@ public class ContextAwareExecutorService implements ExecutorService {
         return new CancelShieldFuture<>(future, "contextAwareExecutor");
     }
 
-    private GuardContext captureGuardOrDefault() {
-        GuardContext guard = GuardContextHolder.get();
-        return (guard != null) ? guard : GuardContext.defaultContext();
-    }
-
-    private Runnable wrap(Runnable task, Map<String, String> mdc, GuardContext guard, Map<String, Object> traceCtx) {
-        return () -> {
-            Map<String, String> prevMdc = MDC.getCopyOfContextMap();
-            GuardContext prevGuard = GuardContextHolder.get();
-            Map<String, Object> prevTrace = TraceStore.context();
-            try {
-                applyMdc(mdc);
-                applyGuard(guard);
-                applyTrace(traceCtx);
-                task.run();
-            } finally {
-                applyTrace(prevTrace);
-                applyGuard(prevGuard);
-                applyMdc(prevMdc);
-            }
-        };
-    }
-
-    private <T> Callable<T> wrap(Callable<T> task, Map<String, String> mdc, GuardContext guard,
-            Map<String, Object> traceCtx) {
-        return () -> {
-            Map<String, String> prevMdc = MDC.getCopyOfContextMap();
-            GuardContext prevGuard = GuardContextHolder.get();
-            Map<String, Object> prevTrace = TraceStore.context();
-            try {
-                applyMdc(mdc);
-                applyGuard(guard);
-                applyTrace(traceCtx);
-                return task.call();
-            } finally {
-                applyTrace(prevTrace);
-                applyGuard(prevGuard);
-                applyMdc(prevMdc);
-            }
-        };
-    }
-
-    private void applyMdc(Map<String, String> mdc) {
-        if (mdc == null || mdc.isEmpty()) {
-            MDC.clear();
-            return;
-        }
-        MDC.setContextMap(mdc);
-    }
-
-    private void applyGuard(GuardContext guard) {
-        if (guard == null) {
-            GuardContextHolder.clear();
-            return;
-        }
-        GuardContextHolder.set(guard);
-    }
-
-    // MERGE_HOOK:PROJ_AGENT::TRACE_STORE_APPLY_HELPER_V1
-    private void applyTrace(Map<String, Object> traceCtx) {
-        if (traceCtx == null) {
-            TraceStore.clear();
-            return;
-        }
-        TraceStore.installContext(traceCtx);
-    }
-
     @Override
     public void shutdown() {
         delegate.shutdown();
@@ -4,9 +4,7 @@ import com.example.lms.search.TraceStore;
 import com.example.lms.service.guard.GuardContext;
 import com.example.lms.service.guard.GuardContextHolder;
 import com.example.lms.trace.SafeRedactor;
-import org.slf4j.MDC;
 
-import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.function.Supplier;
 
@@ -21,8 +19,9 @@ import java.util.function.Supplier;
  *       ThreadLocal state can leak across unrelated requests.</li>
  * </ul>
  *
- * <p>These wrappers capture the current thread's MDC map, {@link GuardContext} and
- * {@link TraceStore} context and restore the previous state after execution.</p>
+ * <p>These wrappers capture a {@link RequestContext} snapshot of the current thread's MDC map,
+ * {@link GuardContext} and {@link TraceStore} context and restore the previous state after execution.
+ * Fan-out paths should capture once and wrap every task with that snapshot.</p>
  */
 public final class ContextPropagation {
 
@@ -35,31 +34,7 @@ public final class ContextPropagation {
             return () -> {
             };
         }
-        final Map<String, String> capturedMdc = MDC.getCopyOfContextMap();
-        GuardContext capturedGuard = safeGetGuard();
-        if (capturedGuard == null) {
-            // Provide a non-null context to avoid null-sensitive downstream code.
-            capturedGuard = GuardContext.defaultContext();
-        }
-        final GuardContext guardRef = capturedGuard;
-
-        final Map<String, Object> capturedTrace = TraceStore.context();
-
-        return () -> {
-            final Map<String, String> prevMdc = MDC.getCopyOfContextMap();
-            final GuardContext prevGuard = safeGetGuard();
-            final Map<String, Object> prevTrace = TraceStore.context();
-            try {
-                applyMdc(capturedMdc);
-                safeApplyGuard(guardRef);
-                applyTrace(capturedTrace);
-                task.run();
-            } finally {
-                applyTrace(prevTrace);
-                safeApplyGuard(prevGuard);
-                applyMdc(prevMdc);
-            }
-        };
+        return RequestContext.capture().wrap(task);
     }
 
     /** Wrap a supplier with MDC + GuardContext + TraceStore propagation (capture now, apply on get). */
@@ -67,30 +42,7 @@ public final class ContextPropagation {
         if (supplier == null) {
             return () -> null;
         }
-        final Map<String, String> capturedMdc = MDC.getCopyOfContextMap();
-        GuardContext capturedGuard = safeGetGuard();
-        if (capturedGuard == null) {
-            capturedGuard = GuardContext.defaultContext();
-        }
-        final GuardContext guardRef = capturedGuard;
-
-        final Map<String, Object> capturedTrace = TraceStore.context();
-
-        return () -> {
-            final Map<String, String> prevMdc = MDC.getCopyOfContextMap();
-            final GuardContext prevGuard = safeGetGuard();
-            final Map<String, Object> prevTrace = TraceStore.context();
-            try {
-                applyMdc(capturedMdc);
-                safeApplyGuard(guardRef);
-                applyTrace(capturedTrace);
-                return supplier.get();
-            } finally {
-                applyTrace(prevTrace);
-                safeApplyGuard(prevGuard);
-                applyMdc(prevMdc);
-            }
-        };
+        return RequestContext.capture().wrapSupplier(supplier);
     }
 
     /** Wrap a callable with MDC + GuardContext + TraceStore propagation (capture now, apply on call). */
@@ -98,41 +50,10 @@ public final class ContextPropagation {
         if (callable == null) {
             return () -> null;
         }
-        final Map<String, String> capturedMdc = MDC.getCopyOfContextMap();
-        GuardContext capturedGuard = safeGetGuard();
-        if (capturedGuard == null) {
-            capturedGuard = GuardContext.defaultContext();
-        }
-        final GuardContext guardRef = capturedGuard;
-
-        final Map<String, Object> capturedTrace = TraceStore.context();
-
-        return () -> {
-            final Map<String, String> prevMdc = MDC.getCopyOfContextMap();
-            final GuardContext prevGuard = safeGetGuard();
-            final Map<String, Object> prevTrace = TraceStore.context();
-            try {
-                applyMdc(capturedMdc);
-                safeApplyGuard(guardRef);
-                applyTrace(capturedTrace);
-                return callable.call();
-            } finally {
-                applyTrace(prevTrace);
-                safeApplyGuard(prevGuard);
-                applyMdc(prevMdc);
-            }
-        };
+        return RequestContext.capture().wrapCallable(callable);
     }
 
-    private static void applyMdc(Map<String, String> mdc) {
-        if (mdc == null || mdc.isEmpty()) {
-            MDC.clear();
-        } else {
-            MDC.setContextMap(mdc);
-        }
-    }
-
-    private static GuardContext safeGetGuard() {
+    static GuardContext safeGetGuard() {
         try {
             return GuardContextHolder.get();
         } catch (Throwable ignore) {
@@ -141,7 +62,7 @@ public final class ContextPropagation {
         }
     }
 
-    private static void safeApplyGuard(GuardContext guard) {
+    static void safeApplyGuard(GuardContext guard) {
         try {
             if (guard == null) {
                 GuardContextHolder.clear();
@@ -153,14 +74,6 @@ public final class ContextPropagation {
         }
     }
 
-    private static void applyTrace(Map<String, Object> trace) {
-        if (trace == null) {
-            TraceStore.clear();
-        } else {
-            TraceStore.installContext(trace);
-        }
-    }
-
     private static void traceSuppressed(String stage, Throwable failure) {
         String safeStage = SafeRedactor.traceLabelOrFallback(stage, "unknown");
         TraceStore.put("context.propagation.suppressed." + safeStage, true);
@@ -0,0 +1,44 @@
+package com.example.lms.infra.exec;
+
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import org.slf4j.MDC;
+import org.slf4j.spi.MDCAdapter;
+
+import java.util.Map;
+
+/**
+ * MDC side of {@link RequestContext}: reads the current MDC as an immutable, shareable map and installs such a
+ * map on another thread.
+ *
+ * <p>With logback, {@link LogbackMDCAdapter#getPropertyMap()} already is a read-only snapshot that stays the same
+ * instance until the next {@code MDC.put}/{@code remove} (logging events build it anyway), so capturing costs no
+ * copy and an unchanged MDC is recognised by identity. Other adapters fall back to
+ * {@link MDC#getCopyOfContextMap()}. Installing a non-empty map still goes through {@link MDC#setContextMap}, the
+ * only write the SLF4J API offers.</p>
+ */
+final class MdcSnapshots {
+
+    private MdcSnapshots() {
+    }
+
+    /** This thread's MDC as a map nobody mutates, or {@code null} when it is empty. */
+    static Map<String, String> current() {
+        MDCAdapter adapter = MDC.getMDCAdapter();
+        Map<String, String> map = (adapter instanceof LogbackMDCAdapter logback)
+                ? logback.getPropertyMap()
+                : MDC.getCopyOfContextMap();
+        return (map == null || map.isEmpty()) ? null : map;
+    }
+
+    /** Makes {@code snapshot} (from {@link #current()}) this thread's MDC; no-op when it already is. */
+    static void install(Map<String, String> snapshot) {
+        if (snapshot == null || snapshot.isEmpty()) {
+            MDC.clear();
+            return;
+        }
+        if (current() == snapshot) {
+            return;
+        }
+        MDC.setContextMap(snapshot);
+    }
+}
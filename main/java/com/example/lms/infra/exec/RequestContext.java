@@ -0,0 +1,147 @@
+package com.example.lms.infra.exec;
+
+import com.example.lms.search.TraceStore;
+import com.example.lms.service.guard.GuardContext;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * Immutable snapshot of the request-scoped context (MDC + GuardContext + TraceStore) that can be installed on any
+ * number of worker threads.
+ *
+ * <p>Capture once per request or fan-out ({@link #capture()}) and wrap every task with the same snapshot: nothing is
+ * copied per task. Installing swaps references (the MDC snapshot, the guard, the live TraceStore map, which stays
+ * shared with the capturing thread as before) and {@link Scope#close()} swaps the previous ones back. A worker that
+ * had no TraceStore context gets none back instead of a freshly allocated one.</p>
+ *
+ * <pre>
+ * RequestContext ctx = RequestContext.capture();
+ * for (String q : queries) {
+ *     tasks.add(ctx.wrapCallable(() -&gt; search(q)));
+ * }
+ * </pre>
+ */
+public final class RequestContext {
+
+    private final Map<String, String> mdc;
+    private final GuardContext guard;
+    private final Map<String, Object> trace;
+
+    private RequestContext(Map<String, String> mdc, GuardContext guard, Map<String, Object> trace) {
+        this.mdc = mdc;
+        this.guard = guard;
+        this.trace = trace;
+    }
+
+    /** Snapshot of the current thread's context. */
+    public static RequestContext capture() {
+        GuardContext guard = ContextPropagation.safeGetGuard();
+        if (guard == null) {
+            // Provide a non-null context to avoid null-sensitive downstream code.
+            guard = GuardContext.defaultContext();
+        }
+        return new RequestContext(MdcSnapshots.current(), guard, TraceStore.context());
+    }
+
+    /** Read-only MDC of the snapshot ({@code null} when it was empty). */
+    public Map<String, String> mdc() {
+        return mdc;
+    }
+
+    public GuardContext guard() {
+        return guard;
+    }
+
+    /** The live TraceStore map shared with the capturing thread. */
+    public Map<String, Object> trace() {
+        return trace;
+    }
+
+    /** Installs this snapshot on the current thread; closing the returned scope restores what was there before. */
+    public Scope install() {
+        Scope previous = new Scope(MdcSnapshots.current(), ContextPropagation.safeGetGuard(),
+                TraceStore.peekContext());
+        apply();
+        return previous;
+    }
+
+    public Runnable wrap(Runnable task) {
+        return () -> {
+            // Same as try (Scope s = install()), with the previous context kept in locals instead of a Scope.
+            Map<String, String> prevMdc = MdcSnapshots.current();
+            GuardContext prevGuard = ContextPropagation.safeGetGuard();
+            Map<String, Object> prevTrace = TraceStore.peekContext();
+            try {
+                apply();
+                task.run();
+            } finally {
+                restore(prevMdc, prevGuard, prevTrace);
+            }
+        };
+    }
+
+    public <T> Callable<T> wrapCallable(Callable<T> task) {
+        return () -> {
+            Map<String, String> prevMdc = MdcSnapshots.current();
+            GuardContext prevGuard = ContextPropagation.safeGetGuard();
+            Map<String, Object> prevTrace = TraceStore.peekContext();
+            try {
+                apply();
+                return task.call();
+            } finally {
+                restore(prevMdc, prevGuard, prevTrace);
+            }
+        };
+    }
+
+    public <T> Supplier<T> wrapSupplier(Supplier<T> supplier) {
+        return () -> {
+            Map<String, String> prevMdc = MdcSnapshots.current();
+            GuardContext prevGuard = ContextPropagation.safeGetGuard();
+            Map<String, Object> prevTrace = TraceStore.peekContext();
+            try {
+                apply();
+                return supplier.get();
+            } finally {
+                restore(prevMdc, prevGuard, prevTrace);
+            }
+        };
+    }
+
+    private void apply() {
+        MdcSnapshots.install(mdc);
+        ContextPropagation.safeApplyGuard(guard);
+        TraceStore.installContext(trace);
+    }
+
+    private static void restore(Map<String, String> mdc, GuardContext guard, Map<String, Object> trace) {
+        if (trace == null) {
+            TraceStore.detachContext();
+        } else {
+            TraceStore.installContext(trace);
+        }
+        ContextPropagation.safeApplyGuard(guard);
+        MdcSnapshots.install(mdc);
+    }
+
+    /** The context a thread had before {@link #install()}; restored on close. */
+    public static final class Scope implements AutoCloseable {
+
+        private final Map<String, String> mdc;
+        private final GuardContext guard;
+        private final Map<String, Object> trace;
+
+        private Scope(Map<String, String> mdc, GuardContext guard, Map<String, Object> trace) {
+            this.mdc = mdc;
+            this.guard = guard;
+            this.trace = trace;
+        }
+
+        @Override
+        public void close() {
+            restore(mdc, guard, trace);
+        }
+    }
+}
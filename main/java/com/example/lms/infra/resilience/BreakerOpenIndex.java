@@ -0,0 +1,59 @@
+package com.example.lms.infra.resilience;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Prefix → number of OPEN/HALF_OPEN breaker keys, maintained by {@link NightmareBreaker} on mode transitions.
+ *
+ * <p>Every prefix of an open key is counted, so "is anything under this prefix open?" is one map lookup no
+ * matter how many keys the breaker tracks. Transitions are rare and update under a lock; lookups are
+ * lock-free reads.</p>
+ */
+final class BreakerOpenIndex {
+
+    private final ConcurrentHashMap<String, Integer> prefixCounts = new ConcurrentHashMap<>();
+    private final Set<String> openKeys = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Re-reads the key's current open-ness under the index lock and adds/removes it accordingly.
+     *
+     * <p>Callers invoke this after every mode CAS that changed open-ness. Because the probe runs inside the
+     * lock, two racing transitions (CLOSED→OPEN, OPEN→CLOSED) cannot leave the index out of step with the
+     * final state regardless of the order their updates arrive in.</p>
+     */
+    synchronized void sync(String key, BooleanSupplier isOpen) {
+        if (key == null) {
+            return;
+        }
+        boolean open = isOpen.getAsBoolean();
+        if (open == openKeys.contains(key)) {
+            return;
+        }
+        if (open) {
+            openKeys.add(key);
+            for (int len = 1; len <= key.length(); len++) {
+                prefixCounts.merge(key.substring(0, len), 1, Integer::sum);
+            }
+        } else {
+            openKeys.remove(key);
+            for (int len = 1; len <= key.length(); len++) {
+                prefixCounts.computeIfPresent(key.substring(0, len), (k, c) -> c > 1 ? c - 1 : null);
+            }
+        }
+    }
+
+    /** False means no key starting with {@code prefix} is OPEN/HALF_OPEN; true means there may be one. */
+    boolean mayHaveOpen(String prefix) {
+        return prefixCounts.containsKey(prefix);
+    }
+
+    Set<String> openKeys() {
+        return openKeys;
+    }
+
+    int size() {
+        return openKeys.size();
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.lms.infra.resilience;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free time-bucketed call window for {@link NightmareBreaker}.
+ *
+ * <p>Each bucket is a single {@code long}: a 10-bit round tag plus three saturating 18-bit counters
+ * (calls / failures / slow calls). A record is one CAS on that word, so concurrent writers never lose counts
+ * and a bucket that rolled over to a new epoch is reset by the same CAS that writes into it.</p>
+ *
+ * <p>The tag is the number of the window round the bucket was written in ({@code epoch / bucketCount}), so a
+ * slot left untouched is recognised as stale until 1024 whole windows have passed: about 17 minutes for a
+ * 1s window, 17 hours for the default 60s one. Only a slot that got no call for that long, while the breaker
+ * stayed in use (idle states are evicted after 5 minutes), and was last written exactly a multiple of 1024
+ * rounds earlier can be counted again, adding that one old bucket to the current window.</p>
+ */
+final class BreakerWindow {
+
+    private static final int COUNT_BITS = 18;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    private static final int FAILURE_SHIFT = COUNT_BITS;
+    private static final int SLOW_SHIFT = 2 * COUNT_BITS;
+    private static final int TAG_SHIFT = 3 * COUNT_BITS;
+    private static final long TAG_MASK = (1L << (Long.SIZE - TAG_SHIFT)) - 1;
+
+    private final long bucketMs;
+    private final AtomicLongArray buckets;
+
+    BreakerWindow(long windowMs, int bucketCount) {
+        int n = Math.max(1, Math.min(bucketCount, 120));
+        this.bucketMs = Math.max(1L, windowMs / n);
+        this.buckets = new AtomicLongArray(n);
+    }
+
+    void record(long nowMs, boolean failure, boolean slow) {
+        long epoch = nowMs / bucketMs;
+        int i = (int) Math.floorMod(epoch, (long) buckets.length());
+        long tag = tag(epoch);
+        while (true) {
+            long v = buckets.get(i);
+            long base = (v >>> TAG_SHIFT) == tag ? v : (tag << TAG_SHIFT);
+            long next = increment(base, 0);
+            if (failure) next = increment(next, FAILURE_SHIFT);
+            if (slow) next = increment(next, SLOW_SHIFT);
+            if (buckets.compareAndSet(i, v, next)) {
+                return;
+            }
+        }
+    }
+
+    Rates rates(long nowMs) {
+        long epoch = nowMs / bucketMs;
+        int n = buckets.length();
+        long calls = 0L;
+        long failures = 0L;
+        long slow = 0L;
+        for (int k = 0; k < n && epoch - k >= 0; k++) {
+            long e = epoch - k;
+            long v = buckets.get((int) Math.floorMod(e, (long) n));
+            if ((v >>> TAG_SHIFT) != tag(e)) {
+                continue;
+            }
+            calls += v & COUNT_MASK;
+            failures += (v >>> FAILURE_SHIFT) & COUNT_MASK;
+            slow += (v >>> SLOW_SHIFT) & COUNT_MASK;
+        }
+        return new Rates(calls, failures, slow);
+    }
+
+    void reset() {
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, 0L);
+        }
+    }
+
+    private long tag(long epoch) {
+        return (epoch / buckets.length()) & TAG_MASK;
+    }
+
+    private static long increment(long v, int shift) {
+        return ((v >>> shift) & COUNT_MASK) == COUNT_MASK ? v : v + (1L << shift);
+    }
+
+    record Rates(long calls, long failures, long slowCalls) {
+        double failureRate() {
+            return calls <= 0 ? 0.0d : (double) failures / calls;
+        }
+
+        double slowCallRate() {
+            return calls <= 0 ? 0.0d : (double) slowCalls / calls;
+        }
+    }
+}
@@ -20,7 +20,9 @@ import java.util.Map;
 import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeoutException;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 
@@ -34,6 +36,9 @@ import java.util.function.Supplier;
  * - slow-call / silent-failure 기반 trip 옵션
  * - 공통 실행 래퍼 execute(...) 제공
  * - 예외 분류 classify(Throwable) 중앙집중화
+ * - key별 상태는 packed word(mode + HALF_OPEN trial 수 + openUntil) 하나의 CAS 로 전이하고,
+ *   OPEN/HALF_OPEN key 의 prefix index 로 isAnyOpenPrefix 를 상수 시간에 판정
+ * - (옵션) 시간 버킷 sliding window 의 실패율/slow-call 비율로 trip
  */
 public class NightmareBreaker {
 
@@ -104,9 +109,16 @@ public class NightmareBreaker {
     private DebugEventStore debugEventStore;
     private final ConcurrentHashMap<String, State> states = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<String, NightmareBreakerProperties.EffectivePolicy> policyCache = new ConcurrentHashMap<>();
+    private final BreakerOpenIndex openIndex = new BreakerOpenIndex();
+    private final LongSupplier clock;
 
     public NightmareBreaker(NightmareBreakerProperties props) {
+        this(props, System::currentTimeMillis);
+    }
+
+    NightmareBreaker(NightmareBreakerProperties props, LongSupplier clock) {
         this.props = props;
+        this.clock = clock;
     }
 
     @Scheduled(fixedDelayString = "${nightmare.breaker.evict-interval-ms:300000}")
@@ -114,14 +126,20 @@ public class NightmareBreaker {
         if (!props.isEnabled()) {
             return;
         }
-        long now = System.currentTimeMillis();
+        long now = clock.getAsLong();
         long cutoff = now - 300_000L;
         int before = states.size();
         states.entrySet().removeIf(entry -> {
             State state = entry.getValue();
-            return state != null
-                    && state.lastActivityMs() < cutoff
-                    && !(state.mode == BreakerMode.OPEN && state.openUntilMs > now);
+            if (state == null || state.lastActivityMs() >= cutoff) {
+                return false;
+            }
+            long w = state.word.get();
+            if (modeOf(w) == BreakerMode.OPEN && untilOf(w) > now) {
+                return false;
+            }
+            // Retire through the same CAS as any other transition so the prefix index stays exact.
+            return transition(entry.getKey(), w, state, BreakerMode.CLOSED, 0L, 0);
         });
         policyCache.keySet().removeIf(k -> !states.containsKey(k));
         int removed = Math.max(0, before - states.size());
@@ -216,9 +234,17 @@ public class NightmareBreaker {
         State s = states.get(key);
         if (s == null)
             return false;
-        if (s.mode == BreakerMode.OPEN && remainingOpenMs(key) > 0)
-            return true;
-        return s.mode == BreakerMode.HALF_OPEN;
+        long w = s.word.get();
+        BreakerMode mode = modeOf(w);
+        if (mode == BreakerMode.OPEN) {
+            long now = clock.getAsLong();
+            if (untilOf(w) > now) {
+                traceOpen(key, s, untilOf(w), now);
+                return true;
+            }
+            return false;
+        }
+        return mode == BreakerMode.HALF_OPEN;
     }
 
     public boolean isOpenOrHalfOpen(String key, String stage) {
@@ -247,13 +273,19 @@ public class NightmareBreaker {
      *
      * <p>We use this when the breaker key is parameterized (e.g. "chat-draft:<model>") and
      * higher-level orchestration only knows the logical prefix.</p>
+     *
+     * <p>The open-prefix index answers "nothing under this prefix is open" with one lookup; only when it
+     * reports a candidate are the (few) OPEN/HALF_OPEN keys checked for an elapsed open window.</p>
      */
     public boolean isAnyOpenPrefix(String prefix) {
         if (!props.isEnabled() || prefix == null || prefix.isBlank()) {
             return false;
         }
         try {
-            for (String k : states.keySet()) {
+            if (!openIndex.mayHaveOpen(prefix)) {
+                return false;
+            }
+            for (String k : openIndex.openKeys()) {
                 if (k != null && k.startsWith(prefix) && isOpenOrHalfOpen(k)) {
                     return true;
                 }
@@ -370,36 +402,40 @@ public class NightmareBreaker {
         State s = states.get(key);
         if (s == null)
             return 0;
-        if (s.mode != BreakerMode.OPEN)
+        long w = s.word.get();
+        if (modeOf(w) != BreakerMode.OPEN)
             return 0;
-        long now = System.currentTimeMillis();
-        long remain = s.openUntilMs - now;
-
-        // NOTE: When a breaker was opened by a previous request, we still want to surface the *global*
-        // open-since timestamp for this request (used by AuxBlockTracker's breakerOpenAt field).
+        long now = clock.getAsLong();
+        long remain = untilOf(w) - now;
         if (remain > 0) {
-            long openSince = s.openSinceMs;
-            if (openSince <= 0) {
-                // Best-effort fallback (should be rare): approximate openSince from openUntil - openDuration.
-                try {
-                    NightmareBreakerProperties.EffectivePolicy cfg = policy(key);
-                    long dur = (cfg != null && cfg.openDuration() != null)
-                            ? cfg.openDuration().toMillis()
-                            : 0L;
-                    openSince = (dur > 0) ? Math.max(0L, s.openUntilMs - dur) : now;
-                } catch (Throwable ignore) {
-                    traceSuppressed("nightmare.openSincePolicy", ignore);
-                    openSince = now;
-                }
-            }
-            recordOpenAtForTrace(key, openSince, s.openUntilMs);
-            recordOpenMetaForTrace(key, s.lastKind,
-                    (s.lastError != null ? SafeRedactor.traceLabelOrFallback(s.lastError.getMessage(), "") : ""));
+            traceOpen(key, s, untilOf(w), now);
         }
-
         return Math.max(0, remain);
     }
 
+    /**
+     * When a breaker was opened by a previous request, we still want to surface the *global*
+     * open-since timestamp for this request (used by AuxBlockTracker's breakerOpenAt field).
+     */
+    private void traceOpen(String key, State s, long openUntilMs, long now) {
+        long openSince = s.openSinceMs;
+        if (openSince <= 0) {
+            // Best-effort fallback (should be rare): approximate openSince from openUntil - openDuration.
+            try {
+                NightmareBreakerProperties.EffectivePolicy cfg = policy(key);
+                long dur = (cfg != null && cfg.openDuration() != null)
+                        ? cfg.openDuration().toMillis()
+                        : 0L;
+                openSince = (dur > 0) ? Math.max(0L, openUntilMs - dur) : now;
+            } catch (Throwable ignore) {
+                traceSuppressed("nightmare.openSincePolicy", ignore);
+                openSince = now;
+            }
+        }
+        recordOpenAtForTrace(s.traceKey, openSince, openUntilMs);
+        recordOpenMetaForTrace(s.traceKey, s.lastKind, s.lastErrorTrace);
+    }
+
     public long remainingOpenMs(String key, String stage) {
         return remainingOpenMs(stageKey(key, stage));
     }
@@ -432,9 +468,11 @@ public class NightmareBreaker {
             return new StateView(key, BreakerMode.CLOSED, false, 0L, 0L, 0L, null,
                     0, 0, 0, 0, 0, 0, 0, 0, 0, 0, null);
         }
-        long now = System.currentTimeMillis();
-        long remain = Math.max(0L, s.openUntilMs - now);
-        boolean open = (s.mode == BreakerMode.OPEN && remain > 0L);
+        long now = clock.getAsLong();
+        long w = s.word.get();
+        long openUntil = untilOf(w);
+        long remain = Math.max(0L, openUntil - now);
+        boolean open = (modeOf(w) == BreakerMode.OPEN && remain > 0L);
         long openSince = s.openSinceMs;
         if (open && openSince <= 0L) {
             try {
@@ -442,7 +480,7 @@ public class NightmareBreaker {
                 if (cfg != null && cfg.openDuration() != null) {
                     long durMs = cfg.openDuration().toMillis();
                     if (durMs > 0L) {
-                        openSince = Math.max(0L, s.openUntilMs - durMs);
+                        openSince = Math.max(0L, openUntil - durMs);
                     }
                 }
             } catch (Throwable ignore) {
@@ -453,22 +491,22 @@ public class NightmareBreaker {
                 : SafeRedactor.traceLabelOrFallback(s.lastError.getMessage(), "");
         return new StateView(
                 key,
-                s.mode,
+                modeOf(w),
                 open,
                 openSince,
-                s.openUntilMs,
+                openUntil,
                 remain,
                 s.lastKind,
-                s.consecutiveFailures.get(),
-                s.consecutiveTimeouts.get(),
-                s.consecutiveRateLimits.get(),
-                s.consecutiveRejected.get(),
-                s.consecutiveInterrupts.get(),
-                s.consecutiveBlanks.get(),
-                s.consecutiveSilentFailures.get(),
-                s.consecutiveSlowCalls.get(),
-                s.consecutiveSuccesses.get(),
-                s.trialCalls.get(),
+                s.streaks.get(State.FAILURES),
+                s.streaks.get(State.TIMEOUTS),
+                s.streaks.get(State.RATE_LIMITS),
+                s.streaks.get(State.REJECTED),
+                s.streaks.get(State.INTERRUPTS),
+                s.streaks.get(State.BLANKS),
+                s.streaks.get(State.SILENT_FAILURES),
+                s.streaks.get(State.SLOW_CALLS),
+                s.streaks.get(State.SUCCESSES),
+                trialsOf(w),
                 lastMsg);
     }
 
@@ -562,31 +600,32 @@ public class NightmareBreaker {
         State s = states.get(key);
         if (s != null) {
             s.touch();
-            long now = System.currentTimeMillis();
-            long remain = s.openUntilMs - now;
-            if (s.mode == BreakerMode.OPEN && remain > 0) {
+            long now = clock.getAsLong();
+            long w = s.word.get();
+            long openUntil = untilOf(w);
+            long remain = openUntil - now;
+            if (modeOf(w) == BreakerMode.OPEN && remain > 0) {
                 long openAt = s.openSinceMs;
                 if (openAt <= 0) {
                     try {
                         NightmareBreakerProperties.EffectivePolicy cfg = policy(key);
                         long dur = (cfg != null && cfg.openDuration() != null) ? cfg.openDuration().toMillis() : 0L;
-                        openAt = (dur > 0) ? Math.max(0L, s.openUntilMs - dur) : now;
+                        openAt = (dur > 0) ? Math.max(0L, openUntil - dur) : now;
                     } catch (Throwable ignored) {
                         traceSuppressed("nightmare.openAtPolicy", ignored);
                         openAt = now;
                     }
                 }
-                recordOpenAtForTrace(key, openAt, s.openUntilMs);
-                recordOpenMetaForTrace(key, s.lastKind,
-                        (s.lastError != null ? SafeRedactor.traceLabelOrFallback(s.lastError.getMessage(), "") : ""));
+                recordOpenAtForTrace(s.traceKey, openAt, openUntil);
+                recordOpenMetaForTrace(s.traceKey, s.lastKind, s.lastErrorTrace);
 
                 try {
-                    String diagnosticKey = safeBreakerKey(key);
+                    String diagnosticKey = s.traceKey;
                     java.util.Map<String, Object> dd = new java.util.LinkedHashMap<>();
                     dd.put("key", diagnosticKey);
                     dd.put("remainingMs", remain);
                     dd.put("openSinceMs", openAt);
-                    dd.put("openUntilMs", s.openUntilMs);
+                    dd.put("openUntilMs", openUntil);
                     dd.put("kind", String.valueOf(s.lastKind));
                     emitEvent(
                             DebugEventLevel.INFO,
@@ -598,53 +637,79 @@ public class NightmareBreaker {
                 } catch (Throwable ignore) {
                     traceSuppressed("nightmare.openBlockEvent", ignore);
                 }
-                if (isRequestFailSoftBypassEnabled(key, remain, openAt, s.openUntilMs, s.lastKind)) {
+                if (isRequestFailSoftBypassEnabled(key, remain, openAt, openUntil, s.lastKind)) {
                     return;
                 }
                 throw new OpenCircuitException(key, Duration.ofMillis(remain), s.lastKind);
             }
 
-            // OPEN time elapsed → HALF_OPEN trial
-            if (s.mode == BreakerMode.OPEN && remain <= 0) {
+            // OPEN time elapsed → HALF_OPEN trial (only the thread that wins the CAS logs the transition)
+            if (modeOf(w) == BreakerMode.OPEN) {
                 if (props.isHalfOpenEnabled()) {
-                    String diagnosticKey = safeBreakerKey(key);
-                    log.info("[NightmareBreaker] HALF_OPEN trial start: key={}", diagnosticKey);
-                    s.mode = BreakerMode.HALF_OPEN;
-                    s.trialCalls.set(0);
-                    s.consecutiveSuccesses.set(0);
-
-                    try {
-                        java.util.Map<String, Object> dd = new java.util.LinkedHashMap<>();
-                        dd.put("key", diagnosticKey);
-                        dd.put("mode", "HALF_OPEN");
-                        emitEvent(
-                                DebugEventLevel.INFO,
-                                "nightmare.half_open.start." + diagnosticKey,
-                                "NightmareBreaker HALF_OPEN trial start",
-                                "NightmareBreaker.checkOpenOrThrow",
-                                dd,
-                                null);
-                    } catch (Throwable ignore) {
-                        traceSuppressed("nightmare.halfOpenStartEvent", ignore);
+                    s.streaks.set(State.SUCCESSES, 0);
+                    if (transition(key, w, s, BreakerMode.HALF_OPEN, openUntil, 0)) {
+                        String diagnosticKey = s.traceKey;
+                        log.info("[NightmareBreaker] HALF_OPEN trial start: key={}", diagnosticKey);
+
+                        try {
+                            java.util.Map<String, Object> dd = new java.util.LinkedHashMap<>();
+                            dd.put("key", diagnosticKey);
+                            dd.put("mode", "HALF_OPEN");
+                            emitEvent(
+                                    DebugEventLevel.INFO,
+                                    "nightmare.half_open.start." + diagnosticKey,
+                                    "NightmareBreaker HALF_OPEN trial start",
+                                    "NightmareBreaker.checkOpenOrThrow",
+                                    dd,
+                                    null);
+                        } catch (Throwable ignore) {
+                            traceSuppressed("nightmare.halfOpenStartEvent", ignore);
+                        }
                     }
-                } else {
+                } else if (transition(key, w, s, BreakerMode.CLOSED, 0L, 0)) {
                     // legacy: just close
-                    s.mode = BreakerMode.CLOSED;
-                    s.openUntilMs = 0;
                     s.openSinceMs = 0;
                 }
             }
 
-            // HALF_OPEN: limit number of trial calls
-            if (s.mode == BreakerMode.HALF_OPEN && props.isHalfOpenEnabled()) {
+            // HALF_OPEN: limit number of trial calls (permits are part of the packed word)
+            if (props.isHalfOpenEnabled()) {
                 int maxCalls = props.getHalfOpenMaxCalls();
-                if (maxCalls > 0 && s.trialCalls.incrementAndGet() > maxCalls) {
+                if (maxCalls > 0 && !acquireTrial(key, s, maxCalls)) {
                     throw new OpenCircuitException(key, Duration.ZERO, s.lastKind);
                 }
             }
         }
     }
 
+    /** HALF_OPEN → CLOSED, retrying while concurrent trial permits move the word; false if another thread won. */
+    private boolean closeHalfOpen(String key, State s) {
+        while (true) {
+            long w = s.word.get();
+            if (modeOf(w) != BreakerMode.HALF_OPEN) {
+                return false;
+            }
+            if (transition(key, w, s, BreakerMode.CLOSED, 0L, 0)) {
+                return true;
+            }
+        }
+    }
+
+    /** Counts one HALF_OPEN trial call; false once {@code maxCalls} trials were handed out. */
+    private boolean acquireTrial(String key, State s, int maxCalls) {
+        while (true) {
+            long w = s.word.get();
+            if (modeOf(w) != BreakerMode.HALF_OPEN) {
+                return true;
+            }
+            int trials = trialsOf(w);
+            if (trials < MAX_TRIALS && !transition(key, w, s, BreakerMode.HALF_OPEN, untilOf(w), trials + 1)) {
+                continue;
+            }
+            return trials + 1 <= maxCalls;
+        }
+    }
+
     /**
      * 성공 기록:
      * - OPEN 상태였다면 닫고
@@ -654,20 +719,20 @@ public class NightmareBreaker {
     public void recordSuccess(String key, long latencyMs) {
         if (!props.isEnabled())
             return;
-        State s = states.computeIfAbsent(key, k -> new State());
+        State s = state(key);
         s.touch();
         NightmareBreakerProperties.EffectivePolicy cfg = policy(key);
+        long w = s.word.get();
 
-        if (s.mode == BreakerMode.HALF_OPEN && props.isHalfOpenEnabled()) {
-            int succ = s.consecutiveSuccesses.incrementAndGet();
+        if (modeOf(w) == BreakerMode.HALF_OPEN && props.isHalfOpenEnabled()) {
+            int succ = s.streaks.incrementAndGet(State.SUCCESSES);
             int threshold = props.getHalfOpenSuccessThreshold();
-            if (threshold > 0 && succ >= threshold) {
-                String diagnosticKey = safeBreakerKey(key);
+            if (threshold > 0 && succ >= threshold && closeHalfOpen(key, s)) {
+                String diagnosticKey = s.traceKey;
                 log.info("[NightmareBreaker] CLOSED (HALF_OPEN success) key={} latencyMs={}", diagnosticKey, latencyMs);
-                s.mode = BreakerMode.CLOSED;
-                s.openUntilMs = 0;
                 s.openSinceMs = 0;
-                s.trialCalls.set(0);
+                // rates observed before the trip must not immediately re-open a recovered key
+                s.window.reset();
 
                 try {
                     java.util.Map<String, Object> dd = new java.util.LinkedHashMap<>();
@@ -684,14 +749,12 @@ public class NightmareBreaker {
                     traceSuppressed("nightmare.halfOpenCloseEvent", ignore);
                 }
             }
-        } else if (s.mode == BreakerMode.OPEN) {
-            String diagnosticKey = safeBreakerKey(key);
+        } else if (modeOf(w) == BreakerMode.OPEN && transition(key, w, s, BreakerMode.CLOSED, 0L, 0)) {
+            String diagnosticKey = s.traceKey;
             log.info("[NightmareBreaker] CLOSED key={} latencyMs={}", diagnosticKey, latencyMs);
-            s.mode = BreakerMode.CLOSED;
-            s.openUntilMs = 0;
             s.openSinceMs = 0;
-            s.trialCalls.set(0);
-            s.consecutiveSuccesses.set(0);
+            s.streaks.set(State.SUCCESSES, 0);
+            s.window.reset();
 
             try {
                 java.util.Map<String, Object> dd = new java.util.LinkedHashMap<>();
@@ -710,23 +773,21 @@ public class NightmareBreaker {
         }
 
         // ✅ 핵심: 성공이면 항상 연속 카운터를 초기화(비연속 blank 누적 방지)
-        s.consecutiveFailures.set(0);
-        s.consecutiveTimeouts.set(0);
-        s.consecutiveRateLimits.set(0);
-        s.consecutiveRejected.set(0);
-        s.consecutiveInterrupts.set(0);
-        s.consecutiveBlanks.set(0);
-        s.consecutiveSilentFailures.set(0);
-
-        if (cfg.tripOnSlowCall() && latencyMs >= cfg.slowCallThresholdMs()) {
-            int n = s.consecutiveSlowCalls.incrementAndGet();
+        s.resetFailureStreaks();
+
+        boolean slow = latencyMs >= cfg.slowCallThresholdMs();
+        s.window.record(clock.getAsLong(), false, slow);
+        if (cfg.tripOnSlowCall() && slow) {
+            int n = s.streaks.incrementAndGet(State.SLOW_CALLS);
             if (n >= cfg.slowCallThreshold()) {
                 tripOpen(key, s, FailureKind.REJECTED, null,
                         "slow_call " + latencyMs + "ms", "slow-call");
+                return;
             }
         } else {
-            s.consecutiveSlowCalls.set(0);
+            s.streaks.set(State.SLOW_CALLS, 0);
         }
+        maybeTripOnRate(key, s, FailureKind.REJECTED, null, "slow_call " + latencyMs + "ms", null);
     }
 
     public void recordBlank(String key, String context) {
@@ -735,18 +796,19 @@ public class NightmareBreaker {
         NightmareBreakerProperties.EffectivePolicy cfg = policy(key);
         if (!cfg.tripOnBlank())
             return;
-        State s = states.computeIfAbsent(key, k -> new State());
+        State s = state(key);
         s.touch();
 
-        int blanks = s.consecutiveBlanks.incrementAndGet();
+        int blanks = s.streaks.incrementAndGet(State.BLANKS);
         s.lastKind = FailureKind.EMPTY_RESPONSE;
+        s.window.record(clock.getAsLong(), true, false);
 
         int ctxLen = (context == null) ? 0 : context.length();
         String diagnosticKey = safeBreakerKey(key);
 
         // TraceStore anchor (safe): do NOT store context text; only ctxLen.
         try {
-            long ts = System.currentTimeMillis();
+            long ts = clock.getAsLong();
             java.util.Map<String, Object> ev = new java.util.LinkedHashMap<>();
             ev.put("ts", ts);
             ev.put("key", diagnosticKey);
@@ -779,7 +841,7 @@ public class NightmareBreaker {
 
         if (blanks >= cfg.blankThreshold()) {
             tripOpen(key, s, FailureKind.EMPTY_RESPONSE, null, context, "blank-threshold");
-        } else {
+        } else if (!maybeTripOnRate(key, s, FailureKind.EMPTY_RESPONSE, null, context, null)) {
             log.warn("[NightmareBreaker] blank-response key={} blanks={}/{} contextHash={} contextLength={}",
                     diagnosticKey, blanks, cfg.blankThreshold(), SafeRedactor.hashValue(context), ctxLen);
         }
@@ -791,11 +853,12 @@ public class NightmareBreaker {
         NightmareBreakerProperties.EffectivePolicy cfg = policy(key);
         if (!cfg.tripOnSilentFailure())
             return;
-        State s = states.computeIfAbsent(key, k -> new State());
+        State s = state(key);
         s.touch();
 
-        int n = s.consecutiveSilentFailures.incrementAndGet();
+        int n = s.streaks.incrementAndGet(State.SILENT_FAILURES);
         s.lastKind = FailureKind.EMPTY_RESPONSE;
+        s.window.record(clock.getAsLong(), true, false);
 
         int ctxLen = (context == null) ? 0 : context.length();
         String diagnosticKey = safeBreakerKey(key);
@@ -804,7 +867,7 @@ public class NightmareBreaker {
 
         // TraceStore anchor (safe): do NOT store context text; only ctxLen.
         try {
-            long ts = System.currentTimeMillis();
+            long ts = clock.getAsLong();
             java.util.Map<String, Object> ev = new java.util.LinkedHashMap<>();
             ev.put("ts", ts);
             ev.put("key", diagnosticKey);
@@ -846,7 +909,8 @@ public class NightmareBreaker {
                     "silent-failure reason=" + safeReason
                             + " contextHash=" + SafeRedactor.hashValue(context) + " contextLength=" + ctxLen,
                     "silent-failure");
-        } else {
+        } else if (!maybeTripOnRate(key, s, FailureKind.EMPTY_RESPONSE, null,
+                "silent-failure reason=" + safeReason, null)) {
             log.warn("[NightmareBreaker] silent-failure key={} n={}/{} reason={} contextHash={} contextLength={}",
                     diagnosticKey, n, cfg.silentFailureThreshold(), safeReason,
                     SafeRedactor.hashValue(context), ctxLen);
@@ -888,17 +952,17 @@ public class NightmareBreaker {
         }
         kind = normalized;
 
-        State s = states.computeIfAbsent(key, k -> new State());
+        State s = state(key);
         s.touch();
         NightmareBreakerProperties.EffectivePolicy cfg = policy(key);
 
         s.lastKind = kind;
-        s.lastError = error;
+        s.lastError(error);
 
         // 실패 유형이 바뀌면 blank/silent/slow 누적은 끊는 게 안전
-        s.consecutiveBlanks.set(0);
-        s.consecutiveSilentFailures.set(0);
-        s.consecutiveSlowCalls.set(0);
+        s.streaks.set(State.BLANKS, 0);
+        s.streaks.set(State.SILENT_FAILURES, 0);
+        s.streaks.set(State.SLOW_CALLS, 0);
 
         // Interrupted is frequently a cancellation/teardown signal, not a provider-side timeout.
         // Do not let it pollute TIMEOUT aggregation or the generic failure threshold.
@@ -906,26 +970,28 @@ public class NightmareBreaker {
 
         int total;
         if (countsAsFailure) {
-            total = s.consecutiveFailures.incrementAndGet();
+            total = s.streaks.incrementAndGet(State.FAILURES);
+            // Non-counting kinds (cancellations, 429/timeouts by default) stay out of the rate window too.
+            s.window.record(clock.getAsLong(), true, false);
         } else {
-            total = s.consecutiveFailures.get();
+            total = s.streaks.get(State.FAILURES);
             if (kind == FailureKind.INTERRUPTED) {
                 // Treat interrupt as a streak-breaker for TIMEOUT to avoid accidental threshold crossings.
-                s.consecutiveTimeouts.set(0);
+                s.streaks.set(State.TIMEOUTS, 0);
             }
         }
 
         if (kind == FailureKind.TIMEOUT)
-            s.consecutiveTimeouts.incrementAndGet();
+            s.streaks.incrementAndGet(State.TIMEOUTS);
         if (kind == FailureKind.RATE_LIMIT)
-            s.consecutiveRateLimits.incrementAndGet();
+            s.streaks.incrementAndGet(State.RATE_LIMITS);
         if (kind == FailureKind.REJECTED || kind == FailureKind.CONFIG)
-            s.consecutiveRejected.incrementAndGet();
+            s.streaks.incrementAndGet(State.REJECTED);
         if (kind == FailureKind.INTERRUPTED)
-            s.consecutiveInterrupts.incrementAndGet();
+            s.streaks.incrementAndGet(State.INTERRUPTS);
 
         // HALF_OPEN: any failure re-opens immediately (but still respects kind-specific open durations/backoff)
-        if (s.mode == BreakerMode.HALF_OPEN && props.isHalfOpenEnabled()) {
+        if (s.mode() == BreakerMode.HALF_OPEN && props.isHalfOpenEnabled()) {
             // Treat INTERRUPTED as a local cancellation signal; do not re-open unless explicitly configured.
             if (kind == FailureKind.INTERRUPTED && !props.isTripOnInterrupt()) {
                 try {
@@ -941,12 +1007,12 @@ public class NightmareBreaker {
             return;
         }
 
-        boolean tripTimeout = (kind == FailureKind.TIMEOUT && s.consecutiveTimeouts.get() >= cfg.timeoutThreshold());
-        boolean tripRateLimit = (kind == FailureKind.RATE_LIMIT && s.consecutiveRateLimits.get() >= cfg.rateLimitThreshold());
-        boolean tripRejected = ((kind == FailureKind.REJECTED || kind == FailureKind.CONFIG) && s.consecutiveRejected.get() >= cfg.rejectedThreshold());
+        boolean tripTimeout = (kind == FailureKind.TIMEOUT && s.streaks.get(State.TIMEOUTS) >= cfg.timeoutThreshold());
+        boolean tripRateLimit = (kind == FailureKind.RATE_LIMIT && s.streaks.get(State.RATE_LIMITS) >= cfg.rateLimitThreshold());
+        boolean tripRejected = ((kind == FailureKind.REJECTED || kind == FailureKind.CONFIG) && s.streaks.get(State.REJECTED) >= cfg.rejectedThreshold());
         boolean tripInterrupt = (props.isTripOnInterrupt()
                 && kind == FailureKind.INTERRUPTED
-                && s.consecutiveInterrupts.get() >= cfg.interruptThreshold());
+                && s.streaks.get(State.INTERRUPTS) >= cfg.interruptThreshold());
         boolean tripFailure = (countsAsFailure && total >= cfg.failureThreshold());
 
         boolean shouldTrip = tripTimeout || tripRateLimit || tripRejected || tripInterrupt || tripFailure;
@@ -967,7 +1033,49 @@ public class NightmareBreaker {
 
             Duration openFor = computeOpenDurationForTrip(cfg, kind, s, openDurationHintMs);
             tripOpen(key, s, kind, error, context, reason, openFor);
+        } else if (countsAsFailure && (props.getFailureRateThreshold() > 0 || props.getSlowCallRateThreshold() > 0)) {
+            maybeTripOnRate(key, s, kind, error, context, computeOpenDurationForTrip(cfg, kind, s, openDurationHintMs));
+        }
+    }
+
+    /**
+     * Sliding-window rate trip for a CLOSED key: failure rate or slow-call rate over the last
+     * {@code nightmare.breaker.sliding-window}, once at least {@code minimum-calls} calls were seen.
+     *
+     * @return true when the key was tripped OPEN
+     */
+    private boolean maybeTripOnRate(String key, State s, FailureKind kind, Throwable error, String context,
+                                    Duration openFor) {
+        double failureRate = props.getFailureRateThreshold();
+        double slowRate = props.getSlowCallRateThreshold();
+        if ((failureRate <= 0 && slowRate <= 0) || s.mode() != BreakerMode.CLOSED) {
+            return false;
+        }
+        BreakerWindow.Rates rates = s.window.rates(clock.getAsLong());
+        if (rates.calls() < Math.max(1, props.getMinimumCalls())) {
+            return false;
+        }
+        String reason;
+        if (failureRate > 0 && rates.failures() > 0 && rates.failureRate() >= failureRate) {
+            reason = "failure-rate";
+        } else if (slowRate > 0 && rates.slowCalls() > 0 && rates.slowCallRate() >= slowRate) {
+            reason = "slow-call-rate";
+            kind = FailureKind.REJECTED;
+        } else {
+            return false;
+        }
+        try {
+            TraceStore.put("nightmare.rate.lastKey", s.traceKey);
+            TraceStore.put("nightmare.rate.last", Map.of(
+                    "reason", reason,
+                    "calls", rates.calls(),
+                    "failureRate", rates.failureRate(),
+                    "slowCallRate", rates.slowCallRate()));
+        } catch (Throwable ignore) {
+            traceSuppressed("nightmare.rateTrace", ignore);
         }
+        tripOpen(key, s, kind, error, context, reason, openFor);
+        return true;
     }
 
     private boolean countsAsFailureForThreshold(FailureKind kind) {
@@ -1001,7 +1109,7 @@ public class NightmareBreaker {
             if (openDurationHintMs != null && openDurationHintMs > 0) {
                 baseMs = Math.max(baseMs, openDurationHintMs);
             }
-            int n = Math.max(1, s != null ? s.consecutiveRateLimits.get() : 1);
+            int n = Math.max(1, s != null ? s.streaks.get(State.RATE_LIMITS) : 1);
             long ms = applyExponentialBackoff(baseMs, n, props.getBackoffBase(), capMs);
             return Duration.ofMillis(ms);
         }
@@ -1015,7 +1123,7 @@ public class NightmareBreaker {
                 capMs = Math.min(capMs, openDurationHintMs);
                 baseMs = Math.min(baseMs, capMs);
             }
-            int n = Math.max(1, s != null ? s.consecutiveTimeouts.get() : 1);
+            int n = Math.max(1, s != null ? s.streaks.get(State.TIMEOUTS) : 1);
             long ms = applyExponentialBackoff(baseMs, n, props.getBackoffBase(), capMs);
             return Duration.ofMillis(ms);
         }
@@ -1169,8 +1277,7 @@ public class NightmareBreaker {
     }
 
     private void tripOpen(String key, State s, FailureKind kind, Throwable error, String context, String reason, Duration openForOverride) {
-        long now = System.currentTimeMillis();
-        boolean alreadyOpen = (s.mode == BreakerMode.OPEN) && (s.openUntilMs > now);
+        long now = clock.getAsLong();
         NightmareBreakerProperties.EffectivePolicy cfg = policy(key);
         Duration openFor = (openForOverride != null ? openForOverride : cfg.openDuration());
 
@@ -1189,7 +1296,16 @@ public class NightmareBreaker {
             }
         }
         long candidateUntil = now + Math.max(1L, openFor.toMillis());
-        long openUntil = alreadyOpen ? Math.max(s.openUntilMs, candidateUntil) : candidateUntil;
+        boolean alreadyOpen;
+        long openUntil;
+        while (true) {
+            long w = s.word.get();
+            alreadyOpen = (modeOf(w) == BreakerMode.OPEN) && (untilOf(w) > now);
+            openUntil = alreadyOpen ? Math.max(untilOf(w), candidateUntil) : candidateUntil;
+            if (transition(key, w, s, BreakerMode.OPEN, openUntil, 0)) {
+                break;
+            }
+        }
 
         // Track the actual open-since time (global breaker state), not just the time we observed it
         // in this particular request.
@@ -1197,20 +1313,17 @@ public class NightmareBreaker {
             s.openSinceMs = now;
         }
 
-        s.openUntilMs = openUntil;
-        s.mode = BreakerMode.OPEN;
-        s.trialCalls.set(0);
-        s.consecutiveSuccesses.set(0);
+        s.streaks.set(State.SUCCESSES, 0);
         s.lastKind = kind;
-        s.lastError = error;
+        s.lastError(error);
 
         String contextHash = SafeRedactor.hashValue(context);
         int contextLength = (context == null) ? 0 : context.length();
         String contextDiagnostic = "contextHash=" + (contextHash == null ? "" : contextHash)
                 + " contextLength=" + contextLength;
-        String msg = (error != null) ? SafeRedactor.traceLabelOrFallback(error.getMessage(), "") : "";
+        String msg = (error != null) ? s.lastErrorLabel : "";
         String safeReason = SafeRedactor.traceLabelOrFallback(reason, "unknown");
-        String diagnosticKey = safeBreakerKey(key);
+        String diagnosticKey = s.traceKey;
 
         if (cfg.logStackTrace() && error != null) {
             log.warn("[NightmareBreaker] OPEN key={} kind={} reason={} openFor={} contextHash={} contextLength={}",
@@ -1222,8 +1335,8 @@ public class NightmareBreaker {
 
         // Best-effort: record open timestamp into the request TraceStore for later analysis
         // (e.g., AuxBlockTracker can show breakerOpenAt).
-        recordOpenAtForTrace(key, (s.openSinceMs > 0L ? s.openSinceMs : now), openUntil);
-        recordOpenMetaForTrace(key, kind, msg);
+        recordOpenAtForTrace(diagnosticKey, (s.openSinceMs > 0L ? s.openSinceMs : now), openUntil);
+        recordOpenMetaForTrace(diagnosticKey, kind, s.lastErrorTrace);
 
         try {
             java.util.Map<String, Object> dd = new java.util.LinkedHashMap<>();
@@ -1272,13 +1385,14 @@ public class NightmareBreaker {
      * <p>
      * We intentionally store the breaker global "openSince" (not the current/observed time),
      * so downstream (e.g., AuxBlockTracker) can render a consistent breakerOpenAt.
+     *
+     * @param traceKey breaker key already passed through {@link #safeBreakerKey(String)}
      */
-    private void recordOpenAtForTrace(String key, long openSinceMs, long openUntilMs) {
-        if (key == null || key.isBlank()) {
+    private void recordOpenAtForTrace(String traceKey, long openSinceMs, long openUntilMs) {
+        if (traceKey == null || traceKey.isBlank()) {
             return;
         }
         try {
-            String traceKey = safeBreakerKey(key);
             Object val = TraceStore.get(TRACE_OPEN_AT_MS_KEY);
             Map<String, Long> byKey;
             if (val instanceof Map<?, ?> map) {
@@ -1309,12 +1423,11 @@ public class NightmareBreaker {
     }
 
     @SuppressWarnings("unchecked")
-    private void recordOpenMetaForTrace(String key, FailureKind kind, String errorMessage) {
-        if (key == null || key.isBlank()) {
+    private void recordOpenMetaForTrace(String traceKey, FailureKind kind, String safeErrorMessage) {
+        if (traceKey == null || traceKey.isBlank()) {
             return;
         }
         try {
-            String traceKey = safeBreakerKey(key);
             Object kindObj = TraceStore.get(TRACE_OPEN_KIND_KEY);
             Map<String, String> kindMap;
             if (kindObj instanceof Map<?, ?> m) {
@@ -1333,7 +1446,7 @@ public class NightmareBreaker {
                 msgMap = new ConcurrentHashMap<>();
                 TraceStore.put(TRACE_OPEN_ERRMSG_KEY, msgMap);
             }
-            msgMap.put(traceKey, SafeRedactor.safeMessage(errorMessage, 220));
+            msgMap.put(traceKey, safeErrorMessage == null ? "" : safeErrorMessage);
         } catch (Throwable ignore) {
             traceSuppressed("nightmare.openMetaTrace", ignore);
         }
@@ -1523,27 +1636,113 @@ public class NightmareBreaker {
         return false;
     }
 
-    private static final class State {
-        AtomicInteger consecutiveFailures = new AtomicInteger();
-        AtomicInteger consecutiveTimeouts = new AtomicInteger();
-        AtomicInteger consecutiveRateLimits = new AtomicInteger();
-        AtomicInteger consecutiveRejected = new AtomicInteger();
-        AtomicInteger consecutiveInterrupts = new AtomicInteger();
-        AtomicInteger consecutiveBlanks = new AtomicInteger();
-        AtomicInteger consecutiveSilentFailures = new AtomicInteger();
-        AtomicInteger consecutiveSlowCalls = new AtomicInteger();
-        AtomicInteger consecutiveSuccesses = new AtomicInteger();
-        AtomicInteger trialCalls = new AtomicInteger();
-        volatile BreakerMode mode = BreakerMode.CLOSED;
+    // ---- packed state word: [openUntilMs:54][trialCalls:8][mode:2] ----
+
+    private static final BreakerMode[] MODES = BreakerMode.values();
+    private static final int MODE_BITS = 2;
+    private static final int TRIAL_BITS = 8;
+    private static final int UNTIL_SHIFT = MODE_BITS + TRIAL_BITS;
+    private static final int MAX_TRIALS = (1 << TRIAL_BITS) - 1;
+
+    static long pack(BreakerMode mode, long openUntilMs, int trialCalls) {
+        long until = Math.max(0L, openUntilMs);
+        long trials = Math.max(0, Math.min(trialCalls, MAX_TRIALS));
+        return (until << UNTIL_SHIFT) | (trials << MODE_BITS) | mode.ordinal();
+    }
+
+    static BreakerMode modeOf(long word) {
+        return MODES[(int) (word & ((1 << MODE_BITS) - 1))];
+    }
+
+    static int trialsOf(long word) {
+        return (int) ((word >>> MODE_BITS) & MAX_TRIALS);
+    }
+
+    static long untilOf(long word) {
+        return word >>> UNTIL_SHIFT;
+    }
+
+    private State state(String key) {
+        return states.computeIfAbsent(key, State::new);
+    }
+
+    /**
+     * CAS the packed word from {@code expect}; the winning thread keeps the open-prefix index in step with
+     * the OPEN/HALF_OPEN set.
+     */
+    private boolean transition(String key, long expect, State s, BreakerMode mode, long openUntilMs, int trialCalls) {
+        if (!s.word.compareAndSet(expect, pack(mode, openUntilMs, trialCalls))) {
+            return false;
+        }
+        boolean wasOpen = modeOf(expect) != BreakerMode.CLOSED;
+        boolean isOpen = mode != BreakerMode.CLOSED;
+        if (wasOpen != isOpen) {
+            openIndex.sync(key, () -> {
+                State current = states.get(key);
+                return current != null && current.mode() != BreakerMode.CLOSED;
+            });
+        }
+        return true;
+    }
+
+    /** Window rates for tests and probes. */
+    BreakerWindow.Rates windowRates(String key) {
+        State s = (key == null) ? null : states.get(key);
+        return s == null ? new BreakerWindow.Rates(0, 0, 0) : s.window.rates(clock.getAsLong());
+    }
+
+    private final class State {
+        static final int FAILURES = 0;
+        static final int TIMEOUTS = 1;
+        static final int RATE_LIMITS = 2;
+        static final int REJECTED = 3;
+        static final int INTERRUPTS = 4;
+        static final int BLANKS = 5;
+        static final int SILENT_FAILURES = 6;
+        static final int SLOW_CALLS = 7;
+        static final int SUCCESSES = 8;
+
+        /** Mode, HALF_OPEN trial calls and openUntil; every transition is one CAS on this word. */
+        final AtomicLong word = new AtomicLong(pack(BreakerMode.CLOSED, 0L, 0));
+        /** Consecutive counters, indexed by the constants above. */
+        final AtomicIntegerArray streaks = new AtomicIntegerArray(SUCCESSES + 1);
+        final BreakerWindow window;
+        /** {@link #safeBreakerKey(String)} of the key, computed once. */
+        final String traceKey;
         /** When this breaker last transitioned into OPEN (epoch millis). */
         volatile long openSinceMs = 0;
-        volatile long openUntilMs = 0;
-        volatile long lastActivityMs = System.currentTimeMillis();
+        volatile long lastActivityMs = clock.getAsLong();
         volatile FailureKind lastKind = FailureKind.UNKNOWN;
         volatile Throwable lastError = null;
+        /** Redacted {@code lastError} message for StateView / trace, computed once per error. */
+        volatile String lastErrorLabel = "";
+        volatile String lastErrorTrace = "";
+
+        State(String key) {
+            this.traceKey = safeBreakerKey(key);
+            Duration window = props.getSlidingWindow();
+            this.window = new BreakerWindow(safeToMs(window, 60_000L), props.getSlidingWindowBuckets());
+        }
+
+        BreakerMode mode() {
+            return modeOf(word.get());
+        }
+
+        void lastError(Throwable error) {
+            String label = (error == null) ? "" : SafeRedactor.traceLabelOrFallback(error.getMessage(), "");
+            this.lastErrorLabel = label;
+            this.lastErrorTrace = SafeRedactor.safeMessage(label, 220);
+            this.lastError = error;
+        }
+
+        void resetFailureStreaks() {
+            for (int i = FAILURES; i <= SILENT_FAILURES; i++) {
+                streaks.set(i, 0);
+            }
+        }
 
         void touch() {
-            lastActivityMs = System.currentTimeMillis();
+            lastActivityMs = clock.getAsLong();
         }
 
         long lastActivityMs() {
@@ -82,6 +82,17 @@ public class NightmareBreakerProperties {
     private boolean tripOnSilentFailure = true;
     private int silentFailureThreshold = 2;
 
+    /**
+     * Sliding-window rate trip (연속 카운터와 별개). 최근 {@code slidingWindow} 구간을 {@code slidingWindowBuckets}개
+     * 시간 버킷으로 나눠 호출/실패/slow-call 수를 집계하고, {@code minimumCalls} 이상일 때 비율이 임계값을 넘으면 OPEN.
+     * 임계값 0 이하이면 해당 비율 trip 은 꺼진다(기본값).
+     */
+    private Duration slidingWindow = Duration.ofSeconds(60);
+    private int slidingWindowBuckets = 10;
+    private int minimumCalls = 20;
+    private double failureRateThreshold = 0.0d;
+    private double slowCallRateThreshold = 0.0d;
+
     // HALF_OPEN (OPEN → HALF_OPEN → CLOSED)
     private boolean halfOpenEnabled = true;
     /** HALF_OPEN에서 허용할 최대 시도 횟수 (0 이하이면 제한 없음) */
@@ -468,4 +479,44 @@ public class NightmareBreakerProperties {
     public void setHalfOpenSuccessThreshold(int halfOpenSuccessThreshold) {
         this.halfOpenSuccessThreshold = halfOpenSuccessThreshold;
     }
-}
+
+    public Duration getSlidingWindow() {
+        return slidingWindow;
+    }
+
+    public void setSlidingWindow(Duration slidingWindow) {
+        this.slidingWindow = slidingWindow;
+    }
+
+    public int getSlidingWindowBuckets() {
+        return slidingWindowBuckets;
+    }
+
+    public void setSlidingWindowBuckets(int slidingWindowBuckets) {
+        this.slidingWindowBuckets = slidingWindowBuckets;
+    }
+
+    public int getMinimumCalls() {
+        return minimumCalls;
+    }
+
+    public void setMinimumCalls(int minimumCalls) {
+        this.minimumCalls = minimumCalls;
+    }
+
+    public double getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    public void setFailureRateThreshold(double failureRateThreshold) {
+        this.failureRateThreshold = failureRateThreshold;
+    }
+
+    public double getSlowCallRateThreshold() {
+        return slowCallRateThreshold;
+    }
+
+    public void setSlowCallRateThreshold(double slowCallRateThreshold) {
+        this.slowCallRateThreshold = slowCallRateThreshold;
+    }
+}
\ No newline at end of file
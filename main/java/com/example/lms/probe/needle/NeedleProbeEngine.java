@@ -6,6 +6,7 @@ import com.example.lms.service.rag.QueryUtils;
 import com.example.lms.service.rag.WebSearchRetriever;
 import com.example.lms.service.rag.auth.AuthorityScorer;
 import com.example.lms.service.rag.rerank.RerankKnobResolver;
+import com.example.lms.service.web.quota.ProviderQuotaPriority;
 import com.example.lms.trace.SafeRedactor;
 import com.example.lms.util.HtmlTextUtil;
 import dev.langchain4j.rag.content.Content;
@@ -157,6 +158,8 @@ public class NeedleProbeEngine {
             meta.put("web.authorityMin", props.getAuthorityMin());
             meta.put("web.authorityMin.strict", "true");
             meta.put("retrieval_stage", "needle_probe");
+            // Needle queries are optional evidence: let queued interactive traffic go first.
+            Object prevQuotaPriority = ProviderQuotaPriority.mark(ProviderQuotaPriority.PROBE);
             try {
                 TraceStore.inc("needle.web.calls");
                 List<Content> out = webSearchRetriever.retrieve(QueryUtils.buildQuery(nq, sessionIdLong, null, meta));
@@ -169,6 +172,8 @@ public class NeedleProbeEngine {
                 } catch (Exception ignore) {
                     traceSuppressed("retrieve.errorTrace");
                 }
+            } finally {
+                ProviderQuotaPriority.restore(prevQuotaPriority);
             }
         }
 
@@ -3,6 +3,9 @@ package com.example.lms.repository;
 import java.util.List;
 import com.example.lms.domain.ChatMessage;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.domain.Pageable;
 import java.util.Optional;
 
@@ -15,6 +18,17 @@ public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long>
 
     /** createdAt ASC 로 정렬해서 반환 (대화 순서 보존) */
     List<ChatMessage> findBySessionIdOrderByCreatedAtAsc(Long sessionId);
+    /**
+     * Conversation history without legacy inline trace rows ({@code ⎔TRACE⎔}, {@code ⎔TRACE64⎔}, {@code ?TRACE?},
+     * {@code ?TRACE64?} system messages). Trace panels are served from {@code chat_trace_record}, so history reads
+     * skip those rows whether or not the migration has run.
+     */
+    @Query("SELECT m FROM ChatMessage m WHERE m.session.id = :sessionId"
+            + " AND NOT (m.role = 'system' AND (m.content LIKE '⎔TRACE⎔%' OR m.content LIKE '⎔TRACE64⎔%'"
+            + " OR m.content LIKE '?TRACE?%' OR m.content LIKE '?TRACE64?%'))"
+            + " ORDER BY m.createdAt ASC, m.id ASC")
+    List<ChatMessage> findHistoryBySessionId(@Param("sessionId") Long sessionId);
+
     // 세션 연관을 타고 들어가는 안전한 파생 쿼리
     List<ChatMessage> findBySession_Id(Long sessionId);
     List<ChatMessage> findBySession_IdOrderByCreatedAtAsc(Long sessionId);
@@ -48,4 +62,16 @@ public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long>
     /** Messages after a given message id (asc) with optional paging (fast, id-asc). */
     List<ChatMessage> findBySession_IdAndIdGreaterThanOrderByIdAsc(Long sessionId, Long id, Pageable pageable);
 
+    /** Prefix scan across sessions (id-asc keyset paging), e.g. legacy inline trace migration. */
+    List<ChatMessage> findByRoleAndContentStartingWithAndIdGreaterThanOrderByIdAsc(
+            String role, String contentPrefix, Long id, Pageable pageable);
+
+    /**
+     * Deletes one message and reports whether this call removed it; the row lock makes it a claim when several
+     * instances run the same migration.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM ChatMessage m WHERE m.id = :id")
+    int deleteByIdReturningCount(@Param("id") Long id);
+
 }
@@ -0,0 +1,35 @@
+package com.example.lms.repository;
+
+import com.example.lms.domain.ChatTraceRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface ChatTraceRecordRepository extends JpaRepository<ChatTraceRecord, Long> {
+
+    /** id/createdAt only — listing a session's traces must not pull the payload LOBs. */
+    interface Ref {
+        Long getId();
+
+        Long getSessionId();
+
+        LocalDateTime getCreatedAt();
+    }
+
+    List<Ref> findRefsBySessionIdOrderByIdAsc(Long sessionId);
+
+    Optional<Ref> findRefById(Long id);
+
+    Optional<Ref> findTopBySessionIdOrderByIdDesc(Long sessionId);
+
+    boolean existsBySourceMessageId(Long sourceMessageId);
+
+    @Modifying
+    @Query("delete from ChatTraceRecord r where r.sessionId = :sessionId")
+    int deleteBySessionId(@Param("sessionId") Long sessionId);
+}
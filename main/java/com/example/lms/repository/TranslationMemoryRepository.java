@@ -174,4 +174,21 @@ public interface TranslationMemoryRepository extends JpaRepository<TranslationMe
     """, nativeQuery = true)
     int incrementHitAndBumpLastUsed(@Param("hash") String hash,
                                     @Param("score") double score);
+
+    /** BM25 증분 색인 커서: id 기준 신규 행. */
+    List<TranslationMemory> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    /**
+     * BM25 증분 색인 커서: (updated_at, id) 키셋 이후의 변경 행(@PreUpdate/@PrePersist 가 갱신).
+     * 같은 updated_at 을 가진 행이 한 페이지보다 많아도 id 로 이어서 넘긴다.
+     */
+    @Query("""
+        SELECT t FROM TranslationMemory t
+         WHERE t.updatedAt > :updatedAt
+            OR (t.updatedAt = :updatedAt AND t.id > :id)
+         ORDER BY t.updatedAt ASC, t.id ASC
+    """)
+    List<TranslationMemory> findChangedAfter(@Param("updatedAt") LocalDateTime updatedAt,
+                                             @Param("id") long id,
+                                             Pageable pageable);
 }
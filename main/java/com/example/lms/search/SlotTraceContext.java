@@ -0,0 +1,536 @@
+package com.example.lms.search;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Slot-backed request trace context behind {@link TraceStore}.
+ *
+ * <p>Keys are interned once per JVM by {@link TraceKeyRegistry}; a context stores values in chunks of
+ * {@value #CHUNK_SIZE} slots (an object array plus a primitive {@code long} array for counters), allocated only
+ * for the key ranges a request actually touches. Counters written through {@link #addLong}/{@link #maxLong}
+ * stay primitive until read through the {@link Map} view, so {@code TraceStore.inc} no longer boxes.</p>
+ *
+ * <p>The context is still a {@link ConcurrentMap}: callers that capture {@link TraceStore#context()} for async
+ * propagation or {@code compute} on it directly keep working. Plain reads/writes are lock-free per slot;
+ * read-modify-write operations ({@code compute}, {@code merge}, counter type changes) serialize on the
+ * context.</p>
+ *
+ * <p>Snapshot views handed out by {@link #snapshotView} read through until the next write, at which point
+ * they are materialized first, so {@code TraceStore.getAll()} keeps point-in-time semantics without copying
+ * on the common read-once path.</p>
+ */
+final class SlotTraceContext extends AbstractMap<String, Object> implements ConcurrentMap<String, Object> {
+
+    static final int CHUNK_SIZE = 32;
+    private static final int CHUNK_SHIFT = 5;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int MAX_PENDING_VIEWS = 8;
+
+    /** Marker in the value slot meaning "the value lives in the counter slot". */
+    private static final Object COUNTER = new Object();
+
+    private static final class Chunk {
+        final AtomicReferenceArray<Object> values = new AtomicReferenceArray<>(CHUNK_SIZE);
+        final AtomicLongArray counters = new AtomicLongArray(CHUNK_SIZE);
+    }
+
+    /** Copy-on-write directory; replaced (under the context lock) whenever a chunk is installed. */
+    private volatile Chunk[] chunks = new Chunk[0];
+    /** Keys the registry refused to intern (per-request keys, or it is full). */
+    private volatile ConcurrentHashMap<String, Object> overflow;
+
+    private volatile TraceLevel level = TraceLevel.FULL;
+
+    private final Object viewLock = new Object();
+    private volatile boolean hasViews;
+    private List<TraceSnapshotView> views;
+
+    TraceLevel level() {
+        return level;
+    }
+
+    void level(TraceLevel level) {
+        this.level = (level == null) ? TraceLevel.FULL : level;
+    }
+
+    // ------------------------------------------------------------------ slot primitives
+
+    private Chunk chunkIfPresent(int slot) {
+        Chunk[] dir = chunks;
+        int idx = slot >>> CHUNK_SHIFT;
+        return idx < dir.length ? dir[idx] : null;
+    }
+
+    private Chunk chunk(int slot) {
+        Chunk c = chunkIfPresent(slot);
+        if (c != null) {
+            return c;
+        }
+        synchronized (this) {
+            Chunk[] dir = chunks;
+            int idx = slot >>> CHUNK_SHIFT;
+            if (idx < dir.length && dir[idx] != null) {
+                return dir[idx];
+            }
+            Chunk[] next = java.util.Arrays.copyOf(dir, Math.max(dir.length, idx + 1));
+            c = new Chunk();
+            next[idx] = c;
+            chunks = next;
+            return c;
+        }
+    }
+
+    private ConcurrentHashMap<String, Object> overflow() {
+        ConcurrentHashMap<String, Object> o = overflow;
+        if (o == null) {
+            synchronized (this) {
+                o = overflow;
+                if (o == null) {
+                    o = new ConcurrentHashMap<>();
+                    overflow = o;
+                }
+            }
+        }
+        return o;
+    }
+
+    private static Object decode(Chunk c, int i, Object raw) {
+        return (raw == COUNTER) ? Long.valueOf(c.counters.get(i)) : raw;
+    }
+
+    private static String keyOf(Object key) {
+        return (key instanceof String s) ? s : null;
+    }
+
+    // ------------------------------------------------------------------ counters
+
+    /** {@code value += delta}; a missing or non-counter value is coerced to a base first. */
+    long addLong(String key, long delta, ToLongFunction<Object> coerce) {
+        beforeWrite();
+        int slot = TraceKeyRegistry.slotFor(key);
+        if (slot == TraceKeyRegistry.NO_SLOT) {
+            return coerce.applyAsLong(overflow().compute(key, (k, cur) -> coerce.applyAsLong(cur) + delta));
+        }
+        Chunk c = chunk(slot);
+        int i = slot & CHUNK_MASK;
+        if (c.values.get(i) == COUNTER) {
+            return c.counters.addAndGet(i, delta);
+        }
+        synchronized (this) {
+            Object cur = c.values.get(i);
+            if (cur == COUNTER) {
+                return c.counters.addAndGet(i, delta);
+            }
+            long next = coerce.applyAsLong(cur) + delta;
+            c.counters.set(i, next);
+            c.values.set(i, COUNTER);
+            return next;
+        }
+    }
+
+    /** {@code value = max(value, candidate)}; a missing value counts as {@link Long#MIN_VALUE}. */
+    long maxLong(String key, long candidate, ToLongFunction<Object> coerce) {
+        beforeWrite();
+        int slot = TraceKeyRegistry.slotFor(key);
+        if (slot == TraceKeyRegistry.NO_SLOT) {
+            return coerce.applyAsLong(overflow().compute(key,
+                    (k, cur) -> Math.max(cur == null ? Long.MIN_VALUE : coerce.applyAsLong(cur), candidate)));
+        }
+        Chunk c = chunk(slot);
+        int i = slot & CHUNK_MASK;
+        if (c.values.get(i) == COUNTER) {
+            return c.counters.accumulateAndGet(i, candidate, Math::max);
+        }
+        synchronized (this) {
+            Object cur = c.values.get(i);
+            if (cur == COUNTER) {
+                return c.counters.accumulateAndGet(i, candidate, Math::max);
+            }
+            long next = Math.max(cur == null ? Long.MIN_VALUE : coerce.applyAsLong(cur), candidate);
+            c.counters.set(i, next);
+            c.values.set(i, COUNTER);
+            return next;
+        }
+    }
+
+    /** Primitive read of a key; non-counter values go through {@code coerce}. */
+    long getLong(String key, ToLongFunction<Object> coerce) {
+        int slot = TraceKeyRegistry.slotIfPresent(key);
+        if (slot == TraceKeyRegistry.NO_SLOT) {
+            ConcurrentHashMap<String, Object> o = overflow;
+            return coerce.applyAsLong(o == null ? null : o.get(key));
+        }
+        Chunk c = chunkIfPresent(slot);
+        if (c == null) {
+            return coerce.applyAsLong(null);
+        }
+        int i = slot & CHUNK_MASK;
+        Object raw = c.values.get(i);
+        return raw == COUNTER ? c.counters.get(i) : coerce.applyAsLong(raw);
+    }
+
+    // ------------------------------------------------------------------ Map
+
+    @Override
+    public Object get(Object key) {
+        String k = keyOf(key);
+        if (k == null) {
+            return null;
+        }
+        int slot = TraceKeyRegistry.slotIfPresent(k);
+        if (slot == TraceKeyRegistry.NO_SLOT) {
+            ConcurrentHashMap<String, Object> o = overflow;
+            return o == null ? null : o.get(k);
+        }
+        Chunk c = chunkIfPresent(slot);
+        if (c == null) {
+            return null;
+        }
+        int i = slot & CHUNK_MASK;
+        return decode(c, i, c.values.get(i));
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        beforeWrite();
+        int slot = TraceKeyRegistry.slotFor(key);
+        if (slot == TraceKeyRegistry.NO_SLOT) {
+            return overflow().put(key, value);
+        }
+        Chunk c = chunk(slot);
+        int i = slot & CHUNK_MASK;
+        long counter = c.counters.get(i);
+        Object prev = c.values.getAndSet(i, value);
+        return prev == COUNTER ? Long.valueOf(counter) : prev;
+    }
+
+    @Override
+    public Object putIfAbsent(String key, Object value) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        int slot = TraceKeyRegistry.slotFor(key);
+        if (slot == TraceKeyRegistry.NO_SLOT) {
+            beforeWrite();
+            return overflow().putIfAbsent(key, value);
+        }
+        Chunk c = chunk(slot);
+        int i = slot & CHUNK_MASK;
+        Object cur = c.values.get(i);
+        if (cur != null) {
+            return decode(c, i, cur);
+        }
+        beforeWrite();
+        while (!c.values.compareAndSet(i, null, value)) {
+            cur = c.values.get(i);
+            if (cur != null) {
+                return decode(c, i, cur);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Object remove(Object key) {
+        String k = keyOf(key);
+        if (k == null) {
+            return null;
+        }
+        int slot = TraceKeyRegistry.slotIfPresent(k);
+        if (slot == TraceKeyRegistry.NO_SLOT) {
+            ConcurrentHashMap<String, Object> o = overflow;
+            if (o == null || !o.containsKey(k)) {
+                return null;
+            }
+            beforeWrite();
+            return o.remove(k);
+        }
+        Chunk c = chunkIfPresent(slot);
+        if (c == null) {
+            return null;
+        }
+        int i = slot & CHUNK_MASK;
+        if (c.values.get(i) == null) {
+            return null;
+        }
+        beforeWrite();
+        long counter = c.counters.get(i);
+        Object prev = c.values.getAndSet(i, null);
+        return prev == COUNTER ? Long.valueOf(counter) : prev;
+    }
+
+    @Override
+    public synchronized boolean remove(Object key, Object value) {
+        Object cur = get(key);
+        if (cur == null || !cur.equals(value)) {
+            return false;
+        }
+        remove(key);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean replace(String key, Object oldValue, Object newValue) {
+        Objects.requireNonNull(newValue);
+        Object cur = get(key);
+        if (cur == null || !cur.equals(oldValue)) {
+            return false;
+        }
+        put(key, newValue);
+        return true;
+    }
+
+    @Override
+    public synchronized Object replace(String key, Object value) {
+        Objects.requireNonNull(value);
+        return containsKey(key) ? put(key, value) : null;
+    }
+
+    @Override
+    public synchronized Object compute(String key,
+                                       BiFunction<? super String, ? super Object, ?> remappingFunction) {
+        Object cur = get(key);
+        Object next = remappingFunction.apply(key, cur);
+        if (next == null) {
+            if (cur != null) {
+                remove(key);
+            }
+            return null;
+        }
+        put(key, next);
+        return next;
+    }
+
+    @Override
+    public synchronized Object computeIfAbsent(String key, Function<? super String, ?> mappingFunction) {
+        Object cur = get(key);
+        if (cur != null) {
+            return cur;
+        }
+        Object next = mappingFunction.apply(key);
+        if (next != null) {
+            put(key, next);
+        }
+        return next;
+    }
+
+    @Override
+    public synchronized Object computeIfPresent(String key,
+                                                BiFunction<? super String, ? super Object, ?> remappingFunction) {
+        Object cur = get(key);
+        if (cur == null) {
+            return null;
+        }
+        Object next = remappingFunction.apply(key, cur);
+        if (next == null) {
+            remove(key);
+        } else {
+            put(key, next);
+        }
+        return next;
+    }
+
+    @Override
+    public synchronized Object merge(String key, Object value,
+                                     BiFunction<? super Object, ? super Object, ?> remappingFunction) {
+        Objects.requireNonNull(value);
+        Object cur = get(key);
+        Object next = (cur == null) ? value : remappingFunction.apply(cur, value);
+        if (next == null) {
+            remove(key);
+        } else {
+            put(key, next);
+        }
+        return next;
+    }
+
+    @Override
+    public void clear() {
+        beforeWrite();
+        for (Chunk c : chunks) {
+            if (c == null) {
+                continue;
+            }
+            for (int i = 0; i < CHUNK_SIZE; i++) {
+                c.values.set(i, null);
+            }
+        }
+        ConcurrentHashMap<String, Object> o = overflow;
+        if (o != null) {
+            o.clear();
+        }
+    }
+
+    @Override
+    public int size() {
+        int n = 0;
+        for (Chunk c : chunks) {
+            if (c == null) {
+                continue;
+            }
+            for (int i = 0; i < CHUNK_SIZE; i++) {
+                if (c.values.get(i) != null) {
+                    n++;
+                }
+            }
+        }
+        ConcurrentHashMap<String, Object> o = overflow;
+        return o == null ? n : n + o.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (Chunk c : chunks) {
+            if (c == null) {
+                continue;
+            }
+            for (int i = 0; i < CHUNK_SIZE; i++) {
+                if (c.values.get(i) != null) {
+                    return false;
+                }
+            }
+        }
+        ConcurrentHashMap<String, Object> o = overflow;
+        return o == null || o.isEmpty();
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return SlotTraceContext.this.size();
+            }
+        };
+    }
+
+    /** Slot entries in slot order, then overflow entries; values are decoded at iteration time. */
+    private final class EntryIterator implements Iterator<Entry<String, Object>> {
+        private final Chunk[] dir = chunks;
+        private final Iterator<Entry<String, Object>> overflowIt;
+        private int chunkIdx;
+        private int pos = -1;
+        private Entry<String, Object> next;
+        private String lastKey;
+
+        EntryIterator() {
+            ConcurrentHashMap<String, Object> o = overflow;
+            this.overflowIt = (o == null) ? null : o.entrySet().iterator();
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (chunkIdx < dir.length) {
+                Chunk c = dir[chunkIdx];
+                if (c != null) {
+                    while (++pos < CHUNK_SIZE) {
+                        Object raw = c.values.get(pos);
+                        if (raw != null) {
+                            String key = TraceKeyRegistry.key((chunkIdx << CHUNK_SHIFT) + pos);
+                            next = new SimpleImmutableEntry<>(key, decode(c, pos, raw));
+                            return;
+                        }
+                    }
+                }
+                chunkIdx++;
+                pos = -1;
+            }
+            if (overflowIt != null && overflowIt.hasNext()) {
+                Entry<String, Object> e = overflowIt.next();
+                next = new SimpleImmutableEntry<>(e.getKey(), e.getValue());
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Entry<String, Object> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Entry<String, Object> e = next;
+            lastKey = e.getKey();
+            advance();
+            return e;
+        }
+
+        @Override
+        public void remove() {
+            if (lastKey == null) {
+                throw new IllegalStateException();
+            }
+            SlotTraceContext.this.remove(lastKey);
+            lastKey = null;
+        }
+    }
+
+    // ------------------------------------------------------------------ snapshot views
+
+    /** Read-through view that is materialized before this context's next write. */
+    TraceSnapshotView snapshotView(java.util.function.Predicate<String> hidden) {
+        TraceSnapshotView view = new TraceSnapshotView(this, hidden);
+        List<TraceSnapshotView> overflowing = null;
+        synchronized (viewLock) {
+            if (views == null) {
+                views = new ArrayList<>(2);
+            }
+            views.add(view);
+            hasViews = true;
+            if (views.size() > MAX_PENDING_VIEWS) {
+                // Many reads without an intervening write: settle them now rather than keep a growing list.
+                overflowing = views;
+                views = null;
+                hasViews = false;
+            }
+        }
+        if (overflowing != null) {
+            overflowing.forEach(TraceSnapshotView::detach);
+        }
+        return view;
+    }
+
+    private void beforeWrite() {
+        if (!hasViews) {
+            return;
+        }
+        List<TraceSnapshotView> pending;
+        synchronized (viewLock) {
+            pending = views;
+            views = null;
+            hasViews = false;
+        }
+        if (pending != null) {
+            pending.forEach(TraceSnapshotView::detach);
+        }
+    }
+}
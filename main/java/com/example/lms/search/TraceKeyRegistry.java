@@ -0,0 +1,86 @@
+package com.example.lms.search;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide trace key → slot interning for {@link SlotTraceContext}.
+ *
+ * <p>A key gets its slot the first time any request writes it and keeps it for the life of the JVM, so a
+ * request context never hashes into a growing per-request table. Keys built from dynamic parts (hashed ids,
+ * provider names) could grow the registry without bound; past {@link #MAX_SLOTS} new keys are not interned
+ * and contexts keep them in a small overflow map instead.</p>
+ *
+ * <p>Keys under {@link #PER_REQUEST_PREFIXES} carry a request, run or node id, so every request would mint new
+ * ones and fill the slots for good; they always go to the overflow map. A new trace key with such a suffix
+ * belongs on that list.</p>
+ */
+final class TraceKeyRegistry {
+
+    static final int MAX_SLOTS = 16_384;
+    static final int NO_SLOT = -1;
+
+    /** Prefixes whose suffix is a request id ({@code rid}), soak run id or sampling node id. */
+    static final List<String> PER_REQUEST_PREFIXES = List.of(
+            "ensemble.timeout.",
+            "ensemble.error.",
+            "ensemble.node.",
+            "web.failsoft.soakKpiJson.runId.");
+
+    private static final ConcurrentHashMap<String, Integer> SLOTS = new ConcurrentHashMap<>(4_096);
+    private static volatile String[] keys = new String[1_024];
+    private static int size;
+
+    private TraceKeyRegistry() {
+    }
+
+    /** Slot for {@code key}, assigning one on first use; {@link #NO_SLOT} once the registry is full. */
+    static int slotFor(String key) {
+        Integer slot = SLOTS.get(key);
+        if (slot != null) {
+            return slot;
+        }
+        if (isPerRequest(key)) {
+            return NO_SLOT;
+        }
+        synchronized (TraceKeyRegistry.class) {
+            slot = SLOTS.get(key);
+            if (slot != null) {
+                return slot;
+            }
+            if (size >= MAX_SLOTS) {
+                return NO_SLOT;
+            }
+            int assigned = size;
+            String[] current = keys;
+            if (assigned == current.length) {
+                current = Arrays.copyOf(current, Math.min(MAX_SLOTS, current.length * 2));
+            }
+            current[assigned] = key;
+            keys = current;
+            size = assigned + 1;
+            SLOTS.put(key, assigned);
+            return assigned;
+        }
+    }
+
+    /** Slot for {@code key} without assigning one (reads never grow the registry). */
+    static int slotIfPresent(String key) {
+        Integer slot = SLOTS.get(key);
+        return slot == null ? NO_SLOT : slot;
+    }
+
+    static String key(int slot) {
+        return keys[slot];
+    }
+
+    static boolean isPerRequest(String key) {
+        for (String prefix : PER_REQUEST_PREFIXES) {
+            if (key.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
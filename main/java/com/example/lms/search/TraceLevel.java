@@ -0,0 +1,32 @@
+package com.example.lms.search;
+
+import java.util.Locale;
+
+/**
+ * Request-level trace verbosity for {@link TraceStore}.
+ *
+ * <ul>
+ *   <li>{@link #FULL}: every write is recorded (default, legacy behaviour).</li>
+ *   <li>{@link #SUMMARY}: scalar keys and counters are recorded; high-volume event lists written through
+ *   {@link TraceStore#append} keep only their first {@link TraceStore#SUMMARY_APPEND_CAP} entries.</li>
+ *   <li>{@link #OFF}: scalar keys and counters are still recorded (pipeline code reads them back for
+ *   behaviour), event-list appends become a no-op.</li>
+ * </ul>
+ */
+public enum TraceLevel {
+    OFF,
+    SUMMARY,
+    FULL;
+
+    /** Lenient parse for config values ({@code "off"}, {@code "summary"}, {@code "full"}). */
+    public static TraceLevel parse(String raw, TraceLevel fallback) {
+        if (raw == null || raw.isBlank()) {
+            return fallback;
+        }
+        try {
+            return valueOf(raw.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ignore) {
+            return fallback;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.lms.search;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * {@link TraceStore#getAll()} result over a {@link SlotTraceContext}.
+ *
+ * <p>Reads go straight to the live context (minus internal-only keys) until either side writes: the context
+ * materializes the view before its next mutation, and a caller that mutates the returned map gets its own
+ * detached copy first. Either way the caller observes the same point-in-time, caller-owned map the old
+ * {@code new HashMap<>(trace)} snapshot gave it, but the copy is only paid when something actually changes.</p>
+ */
+final class TraceSnapshotView extends AbstractMap<String, Object> {
+
+    private final SlotTraceContext source;
+    private final Predicate<String> hidden;
+    private volatile Map<String, Object> detached;
+
+    TraceSnapshotView(SlotTraceContext source, Predicate<String> hidden) {
+        this.source = source;
+        this.hidden = hidden;
+    }
+
+    /** Freeze the current contents into a private copy (idempotent). */
+    void detach() {
+        if (detached != null) {
+            return;
+        }
+        synchronized (this) {
+            if (detached == null) {
+                Map<String, Object> copy = new HashMap<>();
+                for (Entry<String, Object> e : source.entrySet()) {
+                    if (!hidden.test(e.getKey())) {
+                        copy.put(e.getKey(), e.getValue());
+                    }
+                }
+                detached = copy;
+            }
+        }
+    }
+
+    private Map<String, Object> owned() {
+        detach();
+        return detached;
+    }
+
+    @Override
+    public Object get(Object key) {
+        Map<String, Object> d = detached;
+        if (d != null) {
+            return d.get(key);
+        }
+        if (!(key instanceof String k) || hidden.test(k)) {
+            return null;
+        }
+        return source.get(k);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        return owned().put(key, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        return owned().remove(key);
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ?> m) {
+        owned().putAll(m);
+    }
+
+    @Override
+    public void clear() {
+        owned().clear();
+    }
+
+    @Override
+    public int size() {
+        Map<String, Object> d = detached;
+        if (d != null) {
+            return d.size();
+        }
+        int n = 0;
+        for (Iterator<Entry<String, Object>> it = liveIterator(); it.hasNext(); it.next()) {
+            n++;
+        }
+        return n;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        Map<String, Object> d = detached;
+        return d != null ? d.isEmpty() : !liveIterator().hasNext();
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                Map<String, Object> d = detached;
+                return d != null ? d.entrySet().iterator() : new DetachingIterator(liveIterator());
+            }
+
+            @Override
+            public int size() {
+                return TraceSnapshotView.this.size();
+            }
+        };
+    }
+
+    private Iterator<Entry<String, Object>> liveIterator() {
+        Iterator<Entry<String, Object>> all = source.entrySet().iterator();
+        return new Iterator<>() {
+            private Entry<String, Object> next = advance();
+
+            private Entry<String, Object> advance() {
+                while (all.hasNext()) {
+                    Entry<String, Object> e = all.next();
+                    if (!hidden.test(e.getKey())) {
+                        return e;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Entry<String, Object> next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Entry<String, Object> e = next;
+                next = advance();
+                return e;
+            }
+        };
+    }
+
+    /** Live iteration whose {@code remove()} detaches first and then removes from the private copy. */
+    private final class DetachingIterator implements Iterator<Entry<String, Object>> {
+        private final Iterator<Entry<String, Object>> delegate;
+        private String lastKey;
+
+        DetachingIterator(Iterator<Entry<String, Object>> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return delegate.hasNext();
+        }
+
+        @Override
+        public Entry<String, Object> next() {
+            Entry<String, Object> e = delegate.next();
+            lastKey = e.getKey();
+            return e;
+        }
+
+        @Override
+        public void remove() {
+            if (lastKey == null) {
+                throw new IllegalStateException();
+            }
+            owned().remove(lastKey);
+            lastKey = null;
+        }
+    }
+}
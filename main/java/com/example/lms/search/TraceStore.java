@@ -10,7 +10,6 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Request-scoped trace bag.
@@ -25,17 +24,27 @@ import java.util.concurrent.atomic.AtomicLong;
  * count-only, or explicitly allowlisted values because snapshots can be
  * serialized into diagnostics and UI surfaces.
  * </p>
+ *
+ * <p>
+ * The default per-thread context is a {@link SlotTraceContext}: keys are interned to
+ * process-wide slots once, counters ({@link #inc}, {@link #maxLong}) stay primitive,
+ * and {@link #getAll()} returns a view that is only copied if something writes after
+ * it was taken. A context installed from elsewhere (any {@code Map}) is used as-is
+ * through the plain {@code Map} API.
+ * </p>
  */
 public final class TraceStore {
     private static final Logger log = LoggerFactory.getLogger(TraceStore.class);
 
-    private static final ThreadLocal<Map<String, Object>> TRACE = ThreadLocal.withInitial(ConcurrentHashMap::new);
+    /** Created lazily by {@link #trace()} so {@link #peekContext()} can tell an untouched thread apart. */
+    private static final ThreadLocal<Map<String, Object>> TRACE = new ThreadLocal<>();
 
-    private static final ThreadLocal<Map<String, AtomicLong>> SEQ = ThreadLocal.withInitial(ConcurrentHashMap::new);
+    /** Entries an {@link #append} list keeps under {@link TraceLevel#SUMMARY}. */
+    public static final int SUMMARY_APPEND_CAP = 16;
 
     /**
      * Internal prefix for per-key sequence counters stored inside the trace context
-     * map.
+     * map (hidden from {@link #getAll()}).
      */
     private static final String SEQ_PREFIX = "__seq.";
 
@@ -52,9 +61,34 @@ public final class TraceStore {
 
     /** Return the live underlying context map for this thread. */
     public static Map<String, Object> context() {
+        return trace();
+    }
+
+    /**
+     * The live context map of this thread, or {@code null} when none was created or installed yet. Unlike
+     * {@link #context()} this never allocates, so propagation can remember "nothing to restore" for free.
+     */
+    public static Map<String, Object> peekContext() {
         return TRACE.get();
     }
 
+    /**
+     * Leaves this thread without a context, like {@link #clear()}, but keeps the thread-local slot so that
+     * propagation restoring "nothing" on a pooled worker does not re-create it for every task.
+     */
+    public static void detachContext() {
+        TRACE.set(null);
+    }
+
+    private static Map<String, Object> trace() {
+        Map<String, Object> trace = TRACE.get();
+        if (trace == null) {
+            trace = new SlotTraceContext();
+            TRACE.set(trace);
+        }
+        return trace;
+    }
+
     /** Install a context map for this thread during async propagation. */
     public static void installContext(Map<String, Object> ctx) {
         if (ctx == null) {
@@ -64,19 +98,42 @@ public final class TraceStore {
         TRACE.set(ctx);
     }
 
+    /** Trace level of the current context ({@link TraceLevel#FULL} for installed plain maps). */
+    public static TraceLevel level() {
+        return (trace() instanceof SlotTraceContext ctx) ? ctx.level() : TraceLevel.FULL;
+    }
+
+    /**
+     * Set the trace level of the current context. The level travels with the context
+     * when it is propagated to worker threads.
+     */
+    public static void level(TraceLevel level) {
+        if (trace() instanceof SlotTraceContext ctx) {
+            ctx.level(level);
+        }
+    }
+
+    /** True when the current context records at {@code required} or above. */
+    public static boolean enabled(TraceLevel required) {
+        return required == null || level().compareTo(required) >= 0;
+    }
+
     public static void put(String key, Object value) {
         if (key == null || key.isBlank()) {
             return;
         }
         // ConcurrentHashMap forbids null values.
         // Many trace attributes are optional, so treat null as "remove".
+        Map<String, Object> trace = trace();
         if (value == null) {
-            TRACE.get().remove(key);
-            internalKeys(TRACE.get()).remove(key);
-            return;
+            trace.remove(key);
+        } else {
+            trace.put(key, value);
+        }
+        Set<String> internal = existingInternalKeys(trace);
+        if (internal != null) {
+            internal.remove(key);
         }
-        TRACE.get().put(key, value);
-        internalKeys(TRACE.get()).remove(key);
     }
 
     /**
@@ -87,7 +144,7 @@ public final class TraceStore {
         if (key == null || key.isBlank()) {
             return;
         }
-        Map<String, Object> trace = TRACE.get();
+        Map<String, Object> trace = trace();
         if (value == null) {
             trace.remove(key);
             internalKeys(trace).remove(key);
@@ -102,14 +159,14 @@ public final class TraceStore {
         if (key == null || key.isBlank() || value == null) {
             return null;
         }
-        return TRACE.get().putIfAbsent(key, value);
+        return trace().putIfAbsent(key, value);
     }
 
     public static Object get(String key) {
         if (key == null || key.isBlank()) {
             return null;
         }
-        return TRACE.get().get(key);
+        return trace().get(key);
     }
 
     /**
@@ -124,16 +181,38 @@ public final class TraceStore {
         return poolItems(TRACE_POOL_RESCUE_ITEMS_KEY);
     }
 
-    /** Snapshot all trace attributes for UI/serialization. */
+    /**
+     * Snapshot all trace attributes for UI/serialization.
+     *
+     * <p>
+     * For the default context this is a lazy view: reads go to the live context until
+     * the next trace write (which first freezes the view) or until the caller mutates
+     * the returned map (which then works on its own copy).
+     * </p>
+     */
     public static Map<String, Object> getAll() {
-        Map<String, Object> snapshot = new HashMap<>(TRACE.get());
+        Map<String, Object> trace = trace();
+        if (trace instanceof SlotTraceContext ctx) {
+            Set<String> internal = existingInternalKeys(ctx);
+            return ctx.snapshotView(key -> isHiddenKey(key, internal));
+        }
+        Map<String, Object> snapshot = new HashMap<>(trace);
         snapshot.remove(INTERNAL_DYNAMIC_KEYS);
-        internalKeys(TRACE.get()).forEach(snapshot::remove);
+        internalKeys(trace()).forEach(snapshot::remove);
         INTERNAL_ONLY_KEYS.forEach(snapshot::remove);
         snapshot.keySet().removeIf(TraceStore::isInternalOnlyPrefixKey);
+        snapshot.keySet().removeIf(k -> k.startsWith(SEQ_PREFIX));
         return snapshot;
     }
 
+    private static boolean isHiddenKey(String key, Set<String> internal) {
+        return key.equals(INTERNAL_DYNAMIC_KEYS)
+                || INTERNAL_ONLY_KEYS.contains(key)
+                || key.startsWith(SEQ_PREFIX)
+                || (internal != null && internal.contains(key))
+                || isInternalOnlyPrefixKey(key);
+    }
+
     /** Read-only filtered snapshot for diagnostics/reporting surfaces. */
     public static Map<String, Object> getByPrefix(String prefix) {
         if (prefix == null || prefix.isBlank()) {
@@ -153,11 +232,11 @@ public final class TraceStore {
         // Prefer remove() over clear() so the ThreadLocal doesn't retain a large map
         // across reused threads.
         TRACE.remove();
-        SEQ.remove();
     }
 
     /**
-     * Returns the next per-thread sequence number for the given name.
+     * Returns the next sequence number for the given name within the current trace
+     * context (shared by the threads the context is propagated to).
      *
      * <p>
      * This is useful for tagging multiple events of the same family with a stable
@@ -169,9 +248,7 @@ public final class TraceStore {
         if (suffix.isEmpty()) {
             suffix = "default";
         }
-        String key = SEQ_PREFIX + suffix;
-        AtomicLong counter = SEQ.get().computeIfAbsent(key, k -> new AtomicLong(0L));
-        return counter.incrementAndGet();
+        return addLong(SEQ_PREFIX + suffix, 1L);
     }
 
     /** Append a value to a list under key. */
@@ -180,7 +257,21 @@ public final class TraceStore {
         if (key == null || key.isBlank() || value == null) {
             return;
         }
-        Map<String, Object> m = TRACE.get();
+        Map<String, Object> m = trace();
+        int cap = Integer.MAX_VALUE;
+        if (m instanceof SlotTraceContext ctx) {
+            TraceLevel level = ctx.level();
+            if (level == TraceLevel.OFF) {
+                return;
+            }
+            if (level == TraceLevel.SUMMARY) {
+                cap = SUMMARY_APPEND_CAP;
+                if (m.get(key) instanceof List<?> full && full.size() >= cap) {
+                    return;
+                }
+            }
+        }
+        final int limit = cap;
         m.compute(key, (k, cur) -> {
             if (cur == null) {
                 CopyOnWriteArrayList list = new CopyOnWriteArrayList();
@@ -188,7 +279,9 @@ public final class TraceStore {
                 return list;
             }
             if (cur instanceof CopyOnWriteArrayList cow) {
-                cow.add(value);
+                if (cow.size() < limit) {
+                    cow.add(value);
+                }
                 return cow;
             }
             if (cur instanceof List list) {
@@ -225,7 +318,11 @@ public final class TraceStore {
         if (key == null || key.isBlank()) {
             return 0L;
         }
-        Object newVal = TRACE.get().compute(key, (k, cur) -> {
+        Map<String, Object> trace = trace();
+        if (trace instanceof SlotTraceContext ctx) {
+            return ctx.addLong(key, delta, TraceStore::toLong);
+        }
+        Object newVal = trace.compute(key, (k, cur) -> {
             long curVal = toLong(cur);
             return curVal + delta;
         });
@@ -247,7 +344,11 @@ public final class TraceStore {
         if (key == null || key.isBlank()) {
             return 0L;
         }
-        Object newVal = TRACE.get().compute(key, (k, cur) -> {
+        Map<String, Object> trace = trace();
+        if (trace instanceof SlotTraceContext ctx) {
+            return ctx.maxLong(key, candidate, TraceStore::toLong);
+        }
+        Object newVal = trace.compute(key, (k, cur) -> {
             long curVal = (cur == null) ? Long.MIN_VALUE : toLong(cur);
             return Math.max(curVal, candidate);
         });
@@ -265,7 +366,11 @@ public final class TraceStore {
         if (key == null || key.isBlank()) {
             return 0L;
         }
-        return toLong(TRACE.get().get(key));
+        Map<String, Object> trace = trace();
+        if (trace instanceof SlotTraceContext ctx) {
+            return ctx.getLong(key, TraceStore::toLong);
+        }
+        return toLong(trace.get(key));
     }
 
     private static long toLong(Object v) {
@@ -310,6 +415,12 @@ public final class TraceStore {
         return false;
     }
 
+    @SuppressWarnings("unchecked")
+    private static Set<String> existingInternalKeys(Map<String, Object> trace) {
+        Object existing = trace.get(INTERNAL_DYNAMIC_KEYS);
+        return (existing instanceof Set<?> set) ? (Set<String>) set : null;
+    }
+
     @SuppressWarnings("unchecked")
     private static Set<String> internalKeys(Map<String, Object> trace) {
         Object existing = trace.get(INTERNAL_DYNAMIC_KEYS);
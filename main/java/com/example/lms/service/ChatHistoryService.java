@@ -108,8 +108,20 @@ public interface ChatHistoryService {
 
     List<ChatSession> getSessionsForUser(String username);
 
+    /**
+     * The session with its conversation in createdAt order. Legacy inline trace rows are left out; trace panels
+     * come from {@code chat_trace_record}.
+     */
     ChatSession getSessionWithMessages(Long id);
 
+    /**
+     * The session row alone (owner and owner key), for access checks that do not need the conversation.
+     * Implementations backed by a database should not load the messages.
+     */
+    default Optional<ChatSession> findSessionWithoutMessages(Long id) {
+        return Optional.ofNullable(getSessionWithMessages(id));
+    }
+
     void deleteSession(Long id);
 
     List<String> getFormattedRecentHistory(Long sessionId, int limit);
@@ -20,11 +20,13 @@ import java.util.Locale;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import org.slf4j.LoggerFactory;
 import org.slf4j.Logger;
 import com.example.lms.domain.enums.MemoryProfile;
 import com.example.lms.trace.SafeRedactor;
+import com.example.lms.util.TextSignals;
 
 @Service
 @Primary
@@ -128,6 +130,7 @@ public class ChatHistoryServiceImpl implements ChatHistoryService {
     private static final String USUM_META_PREFIX = "⎔USUM⎔";
     // Prefix for rolling summary meta.
     private static final String RSUM_META_PREFIX = "⎔RSUM⎔";
+    private static final Pattern NON_ANCHOR_TOKEN_CHARS = Pattern.compile("[^\\p{IsHangul}\\p{L}\\p{Nd}_-]+");
     private static final Set<String> ANCHOR_STOPWORDS = Set.of(
             "user", "assistant", "system", "this", "that", "with", "from", "have", "will",
             "질문", "답변", "내용", "사용자", "이전", "대화", "그리고", "하지만", "대한", "대해",
@@ -451,6 +454,11 @@ public class ChatHistoryServiceImpl implements ChatHistoryService {
         return sessions;
     }
 
+    @Override
+    public Optional<ChatSession> findSessionWithoutMessages(Long id) {
+        return id == null ? Optional.empty() : sessionRepository.findById(id);
+    }
+
     public ChatSession getSessionWithMessages(Long id) {
         ChatSession session = sessionRepository.findById(id).orElse(null);
         if (session == null) {
@@ -458,8 +466,8 @@ public class ChatHistoryServiceImpl implements ChatHistoryService {
             return null;
         }
 
-        // createdAt ASC 보장 (동률 시 id ASC)
-        List<ChatMessage> list = messageRepository.findBySessionIdOrderByCreatedAtAsc(id);
+        // createdAt ASC 보장 (동률 시 id ASC), 레거시 인라인 TRACE 행 제외
+        List<ChatMessage> list = messageRepository.findHistoryBySessionId(id);
         list.sort(Comparator
                 .comparing(ChatMessage::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder()))
                 .thenComparing(ChatMessage::getId, Comparator.nullsLast(Comparator.naturalOrder())));
@@ -765,7 +773,7 @@ public class ChatHistoryServiceImpl implements ChatHistoryService {
     }
 
     private static String normalizeWhitespace(String value) {
-        return value == null ? "" : value.replaceAll("\\s+", " ").trim();
+        return value == null ? "" : TextSignals.collapseWhitespace(value).trim();
     }
 
     private static String tailClamp(String value, int maxChars) {
@@ -852,11 +860,11 @@ public class ChatHistoryServiceImpl implements ChatHistoryService {
         if (raw == null) {
             return "";
         }
-        String token = raw.replaceAll("[^\\p{IsHangul}\\p{L}\\p{Nd}_-]+", "").strip();
+        String token = NON_ANCHOR_TOKEN_CHARS.matcher(raw).replaceAll("").strip();
         if (token.length() < 2 || token.length() > 40) {
             return "";
         }
-        return token.matches(".*\\p{IsHangul}.*") ? token : token.toLowerCase(Locale.ROOT);
+        return TextSignals.hasHangul(token) ? token : token.toLowerCase(Locale.ROOT);
     }
 
     private static List<String> selectImportantSentences(String text, List<String> anchors, int maxSentences) {
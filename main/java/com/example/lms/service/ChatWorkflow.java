@@ -73,6 +73,7 @@ import com.example.lms.service.verbosity.SectionSpecGenerator;
 import com.example.lms.service.answer.LengthVerifierService;
 import com.example.lms.service.answer.AnswerExpanderService;
 import com.example.lms.util.HtmlTextUtil;
+import com.example.lms.util.TextSignals;
 import dev.langchain4j.model.chat.ChatModel;
 import dev.langchain4j.data.message.SystemMessage;
 import org.springframework.beans.factory.annotation.Value;
@@ -812,7 +813,7 @@ public class ChatWorkflow {
                 .map(s -> {
                     if (s.startsWith("chat-"))
                         return s;
-                    if (s.matches("\\d+")) {
+                    if (TextSignals.isAsciiDigits(s)) {
                         return String.format("chat-%s", s);
                     }
                     return s;
@@ -3341,7 +3342,7 @@ public class ChatWorkflow {
             ChatWorkflowTraceSuppressions.traceSuppressed("guard.detour.combineSitesModeTrace", ignore);
         }
 
-        final boolean hasHangul = finalQuery != null && finalQuery.matches(".*[\\uAC00-\\uD7A3].*");
+        final boolean hasHangul = TextSignals.isSingleLine(finalQuery) && TextSignals.hasHangulSyllable(finalQuery);
         boolean providerSupportsOr = false;
         try {
             providerSupportsOr = this.webSearchProvider != null && this.webSearchProvider.supportsSiteOrSyntax();
@@ -3640,7 +3641,7 @@ public class ChatWorkflow {
         }
 
         String q = (query == null ? "" : query);
-        boolean hasHangul = q.matches(".*[\uAC00-\uD7A3].*");
+        boolean hasHangul = TextSignals.isSingleLine(q) && TextSignals.hasHangulSyllable(q);
         boolean genshin = q.contains("?먯떊") || q.toLowerCase().contains("genshin");
 
         // ?곗꽑?쒖쐞: (?먯떊/寃뚯엫) -> (?쒓?) -> (?곷Ц)
@@ -3776,7 +3777,7 @@ public class ChatWorkflow {
         if (query == null || query.isBlank()) {
             return "0";
         }
-        int tokens = query.trim().split("\\s+").length;
+        int tokens = TextSignals.splitWhitespace(query.trim()).length;
         if (tokens <= 4) {
             return "1-4";
         }
@@ -3907,7 +3908,7 @@ public class ChatWorkflow {
             String text = (doc != null && doc.textSegment() != null && doc.textSegment().text() != null)
                     ? doc.textSegment().text()
                     : "";
-            text = text.toLowerCase(java.util.Locale.ROOT).replaceAll("\\s+", " ").trim();
+            text = TextSignals.collapseWhitespace(text.toLowerCase(java.util.Locale.ROOT)).trim();
             if (text.length() > 220) {
                 text = text.substring(0, 220);
             }
@@ -4052,7 +4053,7 @@ public class ChatWorkflow {
                 String t = (c != null && c.textSegment() != null && c.textSegment().text() != null)
                         ? c.textSegment().text()
                         : "";
-                t = t.toLowerCase(java.util.Locale.ROOT).replaceAll("\\s+", " ").trim();
+                t = TextSignals.collapseWhitespace(t.toLowerCase(java.util.Locale.ROOT)).trim();
                 if (t.length() > 220) {
                     t = t.substring(0, 220);
                 }
@@ -4157,7 +4158,7 @@ public class ChatWorkflow {
 
                 String title = safeTitle(d);
                 if (title != null) {
-                    title = title.replaceAll("\\s+", " ").trim();
+                    title = TextSignals.collapseWhitespace(title).trim();
                 }
 
                 lines.add((title == null || title.isBlank())
@@ -4183,7 +4184,7 @@ public class ChatWorkflow {
 
                 String title = safeTitle(d);
                 if (title != null) {
-                    title = title.replaceAll("\\s+", " ").trim();
+                    title = TextSignals.collapseWhitespace(title).trim();
                 }
 
                 lines.add((title == null || title.isBlank())
@@ -4201,7 +4202,7 @@ public class ChatWorkflow {
                 if (url != null && !url.isBlank()) {
                     String title = safeTitle(d);
                     if (title != null) {
-                        title = title.replaceAll("\\s+", " ").trim();
+                        title = TextSignals.collapseWhitespace(title).trim();
                     }
                     lines.add((title == null || title.isBlank())
                             ? ("- [W1] " + url)
@@ -4213,7 +4214,7 @@ public class ChatWorkflow {
                 if (url != null && !url.isBlank()) {
                     String title = safeTitle(d);
                     if (title != null) {
-                        title = title.replaceAll("\\s+", " ").trim();
+                        title = TextSignals.collapseWhitespace(title).trim();
                     }
                     lines.add((title == null || title.isBlank())
                             ? ("- [V1] " + url)
@@ -4238,7 +4239,7 @@ public class ChatWorkflow {
         if (raw == null)
             return null;
         String s = String.valueOf(raw).trim();
-        return s.matches("\\d+") ? Long.valueOf(s) : null;
+        return TextSignals.isAsciiDigits(s) ? Long.valueOf(s) : null;
     }
 
     // ------------------------------------------------------------------------
@@ -5447,7 +5448,7 @@ public class ChatWorkflow {
     private static String extractSessionKey(ChatRequestDto req) {
         return Optional.ofNullable(req.getSessionId())
                 .map(String::valueOf)
-                .map(s -> s.startsWith("chat-") ? s : (s.matches("\\d+") ? "chat-" + s : s))
+                .map(s -> s.startsWith("chat-") ? s : (TextSignals.isAsciiDigits(s) ? "chat-" + s : s))
                 .orElse(UUID.randomUUID().toString());
     }
 
@@ -9,9 +9,12 @@ import com.example.lms.entity.TranslationMemory;
 import com.example.lms.repository.TranslationMemoryRepository;
 import com.example.lms.service.reinforcement.RewardScoringEngine;
 import com.example.lms.service.reinforcement.SnippetPruner;
+import com.example.lms.service.reinforcement.TranslationMemoryWriteBehind;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.LoadingCache;
 import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
@@ -39,6 +42,7 @@ import com.example.lms.guard.GuardProfileProps;
 import com.example.lms.service.guard.GuardContext;
 import com.example.lms.service.guard.VectorPoisonGuard;
 import com.example.lms.uaw.autolearn.LearningSampleValidationMetadata;
+import com.example.lms.util.TextSignals;
 
 @Service
 @Transactional
@@ -52,6 +56,14 @@ public class MemoryReinforcementService {
     @Autowired(required = false)
     private VectorPoisonGuard vectorPoisonGuard;
 
+    // hit/energy 갱신을 모아서 배치로 반영 (없으면 기존처럼 즉시 UPDATE)
+    @Autowired(required = false)
+    private TranslationMemoryWriteBehind writeBehind;
+
+    // write-behind로 넘기는 행은 영속성 컨텍스트에서 분리 (커밋 시 전체 행 UPDATE 방지)
+    @PersistenceContext
+    private EntityManager entityManager;
+
     private static final Logger log = LoggerFactory.getLogger(MemoryReinforcementService.class);
 
     // MERGE_HOOK:PROJ_AGENT::JAMMINI_PROJECTION_V1
@@ -68,6 +80,15 @@ public class MemoryReinforcementService {
     // ─────────────────────────────────────────────────────────
 
     private static final Pattern CITATION_MARKER_PATTERN = Pattern.compile("\\[(W|V|D)\\d+\\]");
+    private static final Pattern EVIDENCE_MARKER_WV = Pattern.compile("\\[(W|V)\\d+]");
+    private static final TextSignals.KeywordSet SUBCULTURE_SNIPPET = TextSignals.KeywordSet.of(
+            "원신", "genshin", "마비카", "푸리나", "게임", "애니", "만화", "캐릭터");
+    private static final TextSignals.KeywordSet SUBCULTURE_CONTENT = TextSignals.KeywordSet.of(
+            "원신", "genshin", "마비카", "푸리나", "스타레일", "붕괴", "게임", "애니", "만화", "캐릭터", "공략");
+    private static final TextSignals.KeywordSet STRICT_DOMAIN_QUERY = TextSignals.KeywordSet.of(
+            "병원", "의료", "의사", "전문의", "교수", "대학교", "학과", "연구실", "공공기관", "정부", "학회");
+    private static final TextSignals.KeywordSet HIGH_RISK_TOPIC = TextSignals.KeywordSet.of(
+            "진단", "처방", "증상", "법률", "소송", "형량", "투자", "수익률", "보험금");
     private static final Pattern URL_PATTERN = Pattern.compile("https?://\\S+");
 
     /**
@@ -330,6 +351,7 @@ public class MemoryReinforcementService {
         // no-arg constructor that may not be present if annotation processing fails.
         TranslationMemory tm = memoryRepository.findBySourceHash(hash)
                 .orElseGet(() -> new TranslationMemory(hash));
+        boolean deferred = detachForWriteBehind(tm);
 
         if (tm.getId() == null) {
             tm.setSourceHash(hash);
@@ -364,14 +386,17 @@ public class MemoryReinforcementService {
 
         // 에너지/온도 계산 및 반영
         double energy = this.computeBoltzmannEnergy(tm); // ★ CHG
-        double temp = this.annealTemperature(tm.getHitCount());// ★ CHG
+        double temp = this.annealTemperature(effectiveHitCount(tm));// ★ CHG
         tm.setEnergy(energy);
         tm.setTemperature(temp);
 
         // DB 반영 (세션 격리 정책 우선)
-        int updated = (tm.getSessionId() != null)
-                ? memoryRepository.updateEnergyByHashAndSession(hash, tm.getSessionId(), energy, temp)
-                : memoryRepository.updateEnergyByHash(hash, energy, temp);
+        int updated = deferred
+                ? queueObservation(tm, clampedScore >= 0.5,
+                        new TranslationMemoryWriteBehind.Observed(clampedScore, tm.getQValue(), null,
+                                StringUtils.hasText(sourceTag) ? sourceTag : null),
+                        energy, temp)
+                : writeEnergy(tm, hash, energy, temp);
 
         if (updated == 0) {
             // 신규 등으로 업데이트 0이면 save
@@ -394,7 +419,7 @@ public class MemoryReinforcementService {
         Double qObj = tm.getQValue(); // <= null-safe
         double qValue = (qObj == null ? 0.0 : qObj);
 
-        int hit = tm.getHitCount();
+        int hit = effectiveHitCount(tm);
         int success = tm.getSuccessCount();
         int failure = tm.getFailureCount();
 
@@ -435,6 +460,79 @@ public class MemoryReinforcementService {
         return T0 / Math.sqrt(hit + 1.0);
     }
 
+    /** DB hit_count + write-behind에 쌓여 아직 반영되지 않은 hit (read-your-writes). */
+    private int effectiveHitCount(TranslationMemory tm) {
+        int hit = tm.getHitCount() == null ? 0 : tm.getHitCount();
+        return writeBehind == null ? hit : hit + writeBehind.pendingHits(tm.getSourceHash());
+    }
+
+    /**
+     * 이미 있는 행을 write-behind로 갱신할 수 있으면 엔티티를 영속성 컨텍스트에서 분리하고, 아직 flush 되지 않은
+     * 갱신을 덧입힌다(인라인 경로가 DB에서 읽었을 값). 분리하지 않으면 커밋 때 dirty checking 이 전체 행 UPDATE 를
+     * 다시 실행해, 로드 이후 flush 된 hit_count 를 옛 값으로 덮는다.
+     */
+    private boolean detachForWriteBehind(TranslationMemory tm) {
+        if (tm.getId() == null || writeBehind == null || entityManager == null) {
+            return false;
+        }
+        entityManager.detach(tm);
+        TranslationMemoryWriteBehind.Queued queued = writeBehind.queued(tm.getSourceHash());
+        if (queued != null) {
+            tm.setSuccessCount(tm.getSuccessCount() + queued.successes());
+            tm.setFailureCount(tm.getFailureCount() + queued.failures());
+            if (queued.lastUsedAt() != null
+                    && (tm.getLastUsedAt() == null || queued.lastUsedAt().isAfter(tm.getLastUsedAt()))) {
+                tm.setLastUsedAt(queued.lastUsedAt());
+            }
+            TranslationMemoryWriteBehind.Observed o = queued.observed();
+            if (o != null) {
+                if (o.score() != null) {
+                    tm.setScore(o.score());
+                }
+                if (o.qValue() != null) {
+                    tm.setQValue(o.qValue());
+                }
+                if (o.confidence() != null) {
+                    tm.setConfidenceScore(o.confidence());
+                }
+                if (o.sourceTag() != null) {
+                    tm.setSourceTag(o.sourceTag());
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 분리된 엔티티의 이번 관측(hit + 1, 성공/실패 + 1, 바뀐 컬럼, 에너지/온도)을 한 번에 write-behind로 넘기고 1을
+     * 반환. 버퍼가 가득 차 거절되면 0 → 호출부가 save(merge)로 전체 행을 즉시 쓴다.
+     */
+    private int queueObservation(TranslationMemory tm, boolean success, TranslationMemoryWriteBehind.Observed columns,
+                                 double energy, double temp) {
+        return writeBehind.addObservation(tm.getSourceHash(), tm.getSessionId(), success, columns, energy, temp)
+                ? 1
+                : 0;
+    }
+
+    /** 에너지/온도 즉시 갱신 (세션 격리 정책 우선). 0이면 호출부가 save. */
+    private int writeEnergy(TranslationMemory tm, String hash, double energy, double temp) {
+        return (tm.getSessionId() != null)
+                ? memoryRepository.updateEnergyByHashAndSession(hash, tm.getSessionId(), energy, temp)
+                : memoryRepository.updateEnergyByHash(hash, energy, temp);
+    }
+
+    /** hit_count + 1. 최근 존재가 확인된 해시는 write-behind로 넘기고 1을 반환. */
+    private int incrementHit(String hash) {
+        if (writeBehind != null && writeBehind.addHit(hash)) {
+            return 1;
+        }
+        int rows = memoryRepository.incrementHitCountBySourceHash(hash);
+        if (rows > 0 && writeBehind != null) {
+            writeBehind.markPersisted(hash);
+        }
+        return rows;
+    }
+
     /*
      * =========================================================
      * 피드백 적용 (기존 코드 유지, 내부 호출에서 updateEnergyAndTemperature 사용)
@@ -442,7 +540,7 @@ public class MemoryReinforcementService {
      */
     @Transactional(propagation = Propagation.REQUIRES_NEW, noRollbackFor = DataIntegrityViolationException.class)
     public int bumpOnly(String hash) {
-        return memoryRepository.incrementHitCountBySourceHash(hash);
+        return incrementHit(hash);
     }
 
     public void applyFeedback(String sessionId,
@@ -552,10 +650,13 @@ public class MemoryReinforcementService {
      */
     private void updateEnergyAndTemperature(String sourceHash) {
         memoryRepository.findBySourceHash(sourceHash).ifPresent(tm -> {
+            detachForWriteBehind(tm);
             double energy = this.computeBoltzmannEnergy(tm); // ★ CHG
-            double temp = this.annealTemperature(tm.getHitCount()); // ★ CHG
+            double temp = this.annealTemperature(effectiveHitCount(tm)); // ★ CHG
 
-            int updatedRows = memoryRepository.updateEnergyByHash(tm.getSourceHash(), energy, temp);
+            int updatedRows = (writeBehind != null && writeBehind.setEnergy(tm.getSourceHash(), null, energy, temp))
+                    ? 1
+                    : memoryRepository.updateEnergyByHash(tm.getSourceHash(), energy, temp);
             if (updatedRows > 0) {
                 // SLF4J 자리표시자 포맷으로 보수
                 log.info("[Reinforce] Energy/Temp updated for hash: {}, E={}, T={}",
@@ -626,7 +727,7 @@ public class MemoryReinforcementService {
             // 2) 존재하면 hit++ (리포지토리에 있는 메서드 이름 맞춰 사용)
             int rows = 0;
             try {
-                rows = memoryRepository.incrementHitCountBySourceHash(sourceHash);
+                rows = incrementHit(sourceHash);
             } catch (Exception ignore) {
                 MemoryReinforcementTraceSuppressions.traceSuppressed("sourceHash.incrementHit", ignore);
             }
@@ -654,7 +755,7 @@ public class MemoryReinforcementService {
             try {
                 String content = tryGetString(t, "getContent", "getText", "getBody");
                 if (StringUtils.hasText(content)) {
-                    memoryRepository.incrementHitCountBySourceHash(storageHashFromSnippet(content));
+                    incrementHit(storageHashFromSnippet(content));
                 }
             } catch (Exception e) {
                 log.debug("[Memory] Failed to read numeric hyperparameter via reflection: {}", errorSummary(e));
@@ -973,8 +1074,7 @@ public class MemoryReinforcementService {
             return; // 이후 로직 스킵
         }
 
-        boolean isSubculture = trimmedSnippet.toLowerCase(java.util.Locale.ROOT)
-                .matches(".*(원신|genshin|마비카|푸리나|게임|애니|만화|캐릭터).*");
+        boolean isSubculture = SUBCULTURE_SNIPPET.matchesLine(trimmedSnippet);
         if (weak && !isSubculture) {
             if (saveWeakAsPending && score >= pendingMinScore) {
                 String sid = org.springframework.util.StringUtils.hasText(sessionId) ? sessionId : "__TRANSIENT__";
@@ -1036,7 +1136,7 @@ public class MemoryReinforcementService {
             boolean hasHttpLink = snippet.contains("http://") || snippet.contains("https://");
 
             // [W1], [V2], [D3] 와 같은 인용 마커 또는 '출처:' / 'source:' 텍스트를 넓게 인정
-            boolean hasEvidenceMarker = snippet.matches("(?s).*\\[(W|V|D)\\d+].*") ||
+            boolean hasEvidenceMarker = CITATION_MARKER_PATTERN.matcher(snippet).find() ||
                     snippetLower.contains("출처:") ||
                     snippetLower.contains("source:");
 
@@ -1047,8 +1147,7 @@ public class MemoryReinforcementService {
             // 현재 GuardProfile 확인 (FREE 프로파일은 reinforceWithSnippet 초입에서 이미 차단)
             GuardProfile profileForCitation = guardProfileProps.currentProfile();
             // 의료/공공/PII 질의 감지 (NaverSearchService 유틸과 동일 패턴)
-            boolean strictDomain = query != null &&
-                    query.toLowerCase().matches(".*(병원|의료|의사|전문의|교수|대학교|학과|연구실|공공기관|정부|학회).*");
+            boolean strictDomain = query != null && STRICT_DOMAIN_QUERY.matchesLine(query);
 
             // STRICT 모드 + ProgressiveMemory 비활성일 때만 기존 차단 로직 유지
             if (("STRICT".equalsIgnoreCase(mode) || strictDomain) && !progressiveMemoryMode) {
@@ -1063,7 +1162,7 @@ public class MemoryReinforcementService {
                 // 서브컬처/게임 도메인 감지 (sourceTag 또는 snippet 내용 기반)
                 // [FIX] 변수명 충돌 해결: GATE 1의 isSubculture 와 구분하기 위해 로컬 변수 이름 변경
                 boolean isSubcultureInGate = (sourceTag != null && sourceTag.toLowerCase(Locale.ROOT).contains("game"))
-                        || trimmedSnippet.toLowerCase(Locale.ROOT).matches(".*(원신|genshin|마비카|푸리나|캐릭터|게임|애니|만화).*");
+                        || SUBCULTURE_SNIPPET.matchesLine(trimmedSnippet);
 
                 // HARD 모드: 일반 도메인에만 적용, 서브컬처는 완화
                 if (!hasCitationSignal && !isSubcultureInGate) {
@@ -1138,6 +1237,7 @@ public class MemoryReinforcementService {
         // snippet's hash.
         TranslationMemory tm = memoryRepository.findBySourceHash(hash)
                 .orElseGet(() -> new TranslationMemory(hash));
+        boolean deferred = detachForWriteBehind(tm);
 
         if (tm.getId() == null) {
             tm.setSourceHash(hash);
@@ -1173,14 +1273,16 @@ public class MemoryReinforcementService {
 
         // 에너지/온도 계산
         double energy = this.computeBoltzmannEnergy(tm); // ★ CHG
-        double temp = this.annealTemperature(tm.getHitCount()); // ★ CHG
+        double temp = this.annealTemperature(effectiveHitCount(tm)); // ★ CHG
         tm.setEnergy(energy);
         tm.setTemperature(temp);
 
         // 세션 정책에 따라 원자적 갱신
-        int updated = (tm.getSessionId() != null)
-                ? memoryRepository.updateEnergyByHashAndSession(hash, tm.getSessionId(), energy, temp)
-                : memoryRepository.updateEnergyByHash(hash, energy, temp);
+        int updated = deferred
+                ? queueObservation(tm, success,
+                        new TranslationMemoryWriteBehind.Observed(clampedScore, q, tm.getConfidenceScore(), null),
+                        energy, temp)
+                : writeEnergy(tm, hash, energy, temp);
 
         if (updated == 0) {
             // 최초 생성 등으로 업데이트가 0이면 저장
@@ -1219,6 +1321,11 @@ public class MemoryReinforcementService {
             if (list == null || list.isEmpty()) {
                 list = memoryRepository.findTop10ByEnergyNotNullOrderByEnergyAsc();
             }
+            if (writeBehind != null) {
+                // 아직 flush되지 않은 에너지 갱신까지 반영해 재정렬
+                list = writeBehind.rankByEnergy(list, TranslationMemory::getSourceHash, TranslationMemory::getSessionId,
+                        TranslationMemory::getEnergy);
+            }
             StringBuilder sb = new StringBuilder();
             for (TranslationMemory tm : list) {
                 String txt = extractText(tm);
@@ -1352,14 +1459,13 @@ public class MemoryReinforcementService {
     }
 
     private boolean missingCitation(String answer) {
-        return answer != null && !answer.matches(".*\\[(W|V)\\d+].*");
+        return answer != null && !(TextSignals.isSingleLine(answer) && EVIDENCE_MARKER_WV.matcher(answer).find());
     }
 
     private boolean isHighRiskContent(String query, String answer) {
         String q = (query == null ? "" : query);
         String a = (answer == null ? "" : answer);
-        String combined = (q + " " + a).toLowerCase(java.util.Locale.ROOT);
-        return combined.matches(".*(진단|처방|증상|법률|소송|형량|투자|수익률|보험금).*");
+        return HIGH_RISK_TOPIC.matchesLine(q + " " + a);
     }
 
     /**
@@ -1446,7 +1552,7 @@ public class MemoryReinforcementService {
         String s = sessionId.trim();
         if (s.startsWith("chat-"))
             return s;
-        if (s.matches("\\d+"))
+        if (TextSignals.isAsciiDigits(s))
             return "chat-" + s;
         return s;
     }
@@ -1708,8 +1814,6 @@ public class MemoryReinforcementService {
      */
 
     private boolean isSubcultureContent(String query, String content) {
-        String s = ((query == null ? "" : query) + " " + (content == null ? "" : content))
-                .toLowerCase(java.util.Locale.ROOT);
-        return s.matches(".*(원신|genshin|마비카|푸리나|스타레일|붕괴|게임|애니|만화|캐릭터|공략).*");
+        return SUBCULTURE_CONTENT.matchesLine((query == null ? "" : query) + " " + (content == null ? "" : content));
     }
 }
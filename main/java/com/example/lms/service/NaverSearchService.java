@@ -85,6 +85,9 @@ import com.example.lms.search.provider.WebSearchProvider;
 
 import com.example.lms.service.search.NaverCredentialBridge;
 import com.example.lms.service.search.SearchDisambiguation; // 중의성(자동차 등) 필터
+import com.example.lms.service.web.quota.ProviderQuotaDeniedException;
+import com.example.lms.service.web.quota.ProviderQuotaPriority;
+import com.example.lms.service.web.quota.ProviderQuotaScheduler;
 import java.util.concurrent.Semaphore; // 세마포어 클래스 
 
 import java.util.Locale; // ★ Locale 누락
@@ -138,6 +141,10 @@ public class NaverSearchService implements WebSearchProvider {
     @Autowired(required = false)
     private DebugEventStore debugEventStore;
 
+    // Optional: cluster-shared quota with priority queueing (gpt-search.quota.*).
+    @Autowired(required = false)
+    private ProviderQuotaScheduler quotaScheduler;
+
     private static final Logger log = LoggerFactory.getLogger(NaverSearchService.class);
 
     // ---------------------------------------------------------------------
@@ -2222,6 +2229,19 @@ public class NaverSearchService implements WebSearchProvider {
                 // ECO-FIX v3.0: 일관된 타임아웃만 적용하고 재시도는 상위 WebSearchRetriever에서 수행.
                 .timeout(Duration.ofMillis(apiTimeoutMs));
 
+        // Cluster quota: take a permit per upstream attempt (retries re-subscribe and re-acquire).
+        // The priority is resolved on the caller thread; the (possibly queued) wait runs on the
+        // IO scheduler so reactive threads are never parked.
+        if (quotaScheduler != null && quotaScheduler.manages(ProviderQuotaScheduler.NAVER)) {
+            final ProviderQuotaPriority quotaPriority = ProviderQuotaPriority.current();
+            final Mono<ResponseEntity<String>> gated = primary;
+            primary = Mono.fromCallable(() -> quotaScheduler.acquire(ProviderQuotaScheduler.NAVER, quotaPriority))
+                    .subscribeOn(ioScheduler())
+                    .flatMap(granted -> granted
+                            ? gated
+                            : Mono.error(new ProviderQuotaDeniedException(ProviderQuotaScheduler.NAVER, quotaPriority)));
+        }
+
         // Parse and retry logic for the primary call. Errors are mapped to an empty
         // list
         // so that the upper provider/orchestrator can decide whether to call another
@@ -2314,6 +2334,17 @@ public class NaverSearchService implements WebSearchProvider {
                         restoreInterruptFlag();
                     }
 
+                    // Local quota drop: not a provider failure, so keep it out of the breaker.
+                    if (t instanceof ProviderQuotaDeniedException qde) {
+                        withTraceContext(capturedTraceContext, () -> {
+                            TraceStore.put("web.naver.quotaDropped", true);
+                            TraceStore.put("web.naver.quotaDropped.priority", qde.priority().tag());
+                            traceNaverCounts(query, fetch, 0, 0, false, "quota_dropped");
+                            return null;
+                        });
+                        return Mono.just(Collections.emptyList());
+                    }
+
                     if (nightmareBreaker != null) {
                         NightmareBreaker.FailureKind kind = NightmareBreaker.FailureKind.UNKNOWN;
                         if (t instanceof java.util.concurrent.TimeoutException) {
@@ -2849,6 +2880,12 @@ public class NaverSearchService implements WebSearchProvider {
                 .encode(StandardCharsets.UTF_8)
                 .toUri();
 
+        if (quotaScheduler != null && quotaScheduler.manages(ProviderQuotaScheduler.NAVER)
+                && !quotaScheduler.acquire(ProviderQuotaScheduler.NAVER)) {
+            TraceStore.put("web.naver.quotaDropped", true);
+            return Collections.emptyList();
+        }
+
         boolean acquired = false;
         try {
             REQUEST_SEMAPHORE.acquire(); // 동시에 2개까지만 호출
@@ -0,0 +1,237 @@
+package com.example.lms.service;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Three-stage flush pipeline used by {@link VectorStoreService#flush()}.
+ *
+ * <pre>
+ *   flush thread --(window)--> [embed pool] --> [write pool] --> ack queue --> flush thread
+ * </pre>
+ *
+ * <ul>
+ *   <li><b>embed</b>: builds segments and calls the embedder for one batch.</li>
+ *   <li><b>write</b>: writes the embedded batch to the store; overlaps with the next embed.</li>
+ *   <li><b>ack</b>: runs on the flushing thread (audit, restore, backoff bookkeeping).</li>
+ * </ul>
+ *
+ * <p>A single window semaphore bounds the number of batches anywhere between submission and
+ * ack, which bounds both inter-stage queues. Once a batch of a group fails, remaining batches of
+ * that group are acked as skipped so the group can be restored and backed off as a unit, while
+ * other groups keep flowing.
+ */
+final class VectorFlushPipeline {
+
+    @FunctionalInterface
+    interface EmbedStage {
+        List<Embedding> embed(List<TextSegment> segments) throws Exception;
+    }
+
+    @FunctionalInterface
+    interface WriteStage {
+        void write(List<String> ids, List<Embedding> embeddings, List<TextSegment> segments) throws Exception;
+    }
+
+    /** Installs per-group correlation (MDC/trace) on a pipeline thread; returns the undo action. */
+    @FunctionalInterface
+    interface GroupScope<G> {
+        Runnable enter(G group);
+    }
+
+    record Batch<G>(G group, List<String> ids, Supplier<List<TextSegment>> segments) {
+    }
+
+    record Ack<G>(G group, List<String> ids, Exception error, boolean skipped) {
+        boolean ok() {
+            return error == null && !skipped;
+        }
+    }
+
+    private final ExecutorService embedPool;
+    private final ExecutorService writePool;
+    private final int window;
+
+    final StageCounters embedStats = new StageCounters("embed");
+    final StageCounters writeStats = new StageCounters("write");
+    final StageCounters ackStats = new StageCounters("ack");
+
+    VectorFlushPipeline(int embedThreads, int writeThreads, int window) {
+        this.embedPool = pool("vector-flush-embed-", Math.max(1, embedThreads));
+        this.writePool = pool("vector-flush-write-", Math.max(1, writeThreads));
+        this.window = Math.max(1, window);
+    }
+
+    /**
+     * Push all batches through embed → write and deliver every ack to {@code onAck} on the calling
+     * thread. Returns once each submitted batch has been acked.
+     */
+    <G> void run(List<Batch<G>> batches,
+                 EmbedStage embed,
+                 WriteStage write,
+                 GroupScope<G> scope,
+                 Consumer<Ack<G>> onAck) throws InterruptedException {
+        if (batches == null || batches.isEmpty()) {
+            return;
+        }
+        long started = System.nanoTime();
+        BlockingQueue<Ack<G>> acks = new LinkedBlockingQueue<>();
+        Set<G> failedGroups = ConcurrentHashMap.newKeySet();
+        Semaphore inFlight = new Semaphore(window);
+        int submitted = 0;
+        int acked = 0;
+        try {
+            for (Batch<G> batch : batches) {
+                while (!inFlight.tryAcquire(10L, TimeUnit.MILLISECONDS)) {
+                    acked += drain(acks, onAck, inFlight, false);
+                }
+                embedStats.queued.incrementAndGet();
+                submitted++;
+                try {
+                    embedPool.execute(() -> embedStage(batch, embed, write, scope, failedGroups, acks));
+                } catch (RejectedExecutionException rex) {
+                    embedStats.queued.decrementAndGet();
+                    acks.add(new Ack<>(batch.group(), batch.ids(), rex, false));
+                }
+            }
+            while (acked < submitted) {
+                acked += drain(acks, onAck, inFlight, true);
+            }
+        } finally {
+            ackStats.busyNanos.addAndGet(System.nanoTime() - started);
+        }
+    }
+
+    private <G> int drain(BlockingQueue<Ack<G>> acks, Consumer<Ack<G>> onAck, Semaphore inFlight, boolean block)
+            throws InterruptedException {
+        Ack<G> first = block ? acks.poll(50L, TimeUnit.MILLISECONDS) : acks.poll();
+        if (first == null) {
+            return 0;
+        }
+        List<Ack<G>> ready = new ArrayList<>();
+        ready.add(first);
+        acks.drainTo(ready);
+        for (Ack<G> ack : ready) {
+            inFlight.release();
+            ackStats.record(ack.ids().size(), 0L, !ack.ok());
+            onAck.accept(ack);
+        }
+        return ready.size();
+    }
+
+    private <G> void embedStage(Batch<G> batch, EmbedStage embed, WriteStage write, GroupScope<G> scope,
+                                Set<G> failedGroups, BlockingQueue<Ack<G>> acks) {
+        embedStats.queued.decrementAndGet();
+        if (failedGroups.contains(batch.group())) {
+            acks.add(new Ack<>(batch.group(), batch.ids(), null, true));
+            return;
+        }
+        Runnable exit = scope.enter(batch.group());
+        long t0 = System.nanoTime();
+        try {
+            List<TextSegment> segments = batch.segments().get();
+            List<Embedding> embeddings = embed.embed(segments);
+            embedStats.record(segments.size(), System.nanoTime() - t0, false);
+            writeStats.queued.incrementAndGet();
+            try {
+                writePool.execute(() -> writeStage(batch, segments, embeddings, write, scope, failedGroups, acks));
+            } catch (RejectedExecutionException rex) {
+                writeStats.queued.decrementAndGet();
+                failedGroups.add(batch.group());
+                acks.add(new Ack<>(batch.group(), batch.ids(), rex, false));
+            }
+        } catch (Exception e) {
+            embedStats.record(0, System.nanoTime() - t0, true);
+            failedGroups.add(batch.group());
+            acks.add(new Ack<>(batch.group(), batch.ids(), e, false));
+        } finally {
+            exit.run();
+        }
+    }
+
+    private <G> void writeStage(Batch<G> batch, List<TextSegment> segments, List<Embedding> embeddings,
+                                WriteStage write, GroupScope<G> scope, Set<G> failedGroups,
+                                BlockingQueue<Ack<G>> acks) {
+        writeStats.queued.decrementAndGet();
+        Runnable exit = scope.enter(batch.group());
+        long t0 = System.nanoTime();
+        try {
+            write.write(batch.ids(), embeddings, segments);
+            writeStats.record(segments.size(), System.nanoTime() - t0, false);
+            acks.add(new Ack<>(batch.group(), batch.ids(), null, false));
+        } catch (Exception e) {
+            writeStats.record(0, System.nanoTime() - t0, true);
+            failedGroups.add(batch.group());
+            acks.add(new Ack<>(batch.group(), batch.ids(), e, false));
+        } finally {
+            exit.run();
+        }
+    }
+
+    List<VectorStoreService.FlushStageStats> stats() {
+        return List.of(embedStats.snapshot(), writeStats.snapshot(), ackStats.snapshot());
+    }
+
+    void shutdown() {
+        embedPool.shutdownNow();
+        writePool.shutdownNow();
+    }
+
+    private static ExecutorService pool(String prefix, int threads) {
+        AtomicInteger seq = new AtomicInteger();
+        // Unbounded work queues are fine here: the window semaphore bounds what can be queued.
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                r -> {
+                    Thread t = new Thread(r, prefix + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    static final class StageCounters {
+        private final String stage;
+        final AtomicInteger queued = new AtomicInteger();
+        final AtomicLong batches = new AtomicLong();
+        final AtomicLong segments = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+        final AtomicLong busyNanos = new AtomicLong();
+
+        StageCounters(String stage) {
+            this.stage = stage;
+        }
+
+        void record(int segmentCount, long nanos, boolean failed) {
+            batches.incrementAndGet();
+            segments.addAndGet(Math.max(0, segmentCount));
+            busyNanos.addAndGet(Math.max(0L, nanos));
+            if (failed) {
+                failures.incrementAndGet();
+            }
+        }
+
+        VectorStoreService.FlushStageStats snapshot() {
+            long busy = busyNanos.get();
+            long segs = segments.get();
+            double perSec = busy <= 0L ? 0.0d : segs / (busy / 1_000_000_000.0d);
+            return new VectorStoreService.FlushStageStats(stage, batches.get(), segs, failures.get(),
+                    perSec, Math.max(0, queued.get()));
+        }
+    }
+}
@@ -18,6 +18,7 @@ import dev.langchain4j.data.document.Metadata;
 import dev.langchain4j.data.segment.TextSegment;
 import dev.langchain4j.model.embedding.EmbeddingModel;
 import dev.langchain4j.store.embedding.EmbeddingStore;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.slf4j.Logger;
@@ -44,6 +45,7 @@ import java.util.stream.Collectors;
  *   <li>Atomic swap on flush to prevent enqueue loss</li>
  *   <li>Time-based backoff to avoid permanent stall</li>
  *   <li>Stable ids (explicit) support to avoid duplicate accumulation</li>
+ *   <li>Pipelined flush: groups flush in parallel through embed → write → ack stages</li>
  * </ul>
  */
 @Service
@@ -135,6 +137,25 @@ public class VectorStoreService {
     @Value("${vectorstore.flush.bucket-ms:5000}")
     private long flushBucketMs;
 
+    /** Segments per embedder call; sized to the embedder's sweet spot (0 = use batch-size). */
+    @Value("${vectorstore.flush.embed-batch-size:64}")
+    private int embedBatchSize;
+
+    @Value("${vectorstore.flush.embed-parallelism:2}")
+    private int flushEmbedParallelism;
+
+    @Value("${vectorstore.flush.write-parallelism:2}")
+    private int flushWriteParallelism;
+
+    /** Max batches in flight between submission and ack (bounds both inter-stage queues). */
+    @Value("${vectorstore.flush.queue-capacity:8}")
+    private int flushQueueCapacity;
+
+    private volatile VectorFlushPipeline flushPipeline;
+
+    /** Per-group (session) backoff; aggregate view mirrored into backoffUntilEpochMs/backoffStepMs. */
+    private final ConcurrentHashMap<String, GroupBackoff> groupBackoff = new ConcurrentHashMap<>();
+
     @Value("${vectorstore.max-backoff-ms:60000}")
     private long maxBackoffMs;
 
@@ -636,21 +657,52 @@ public class VectorStoreService {
     public VectorBufferStats bufferStats() {
         long now = System.currentTimeMillis();
         long remaining = now < backoffUntilEpochMs ? Math.max(0L, backoffUntilEpochMs - now) : 0L;
+        int groupsInBackoff = 0;
+        for (GroupBackoff gb : groupBackoff.values()) {
+            if (now < gb.untilEpochMs()) groupsInBackoff++;
+        }
+        VectorFlushPipeline p = flushPipeline;
         return new VectorBufferStats(
                 pendingSize(),
                 lastFlushAttemptEpochMs,
                 lastFlushAtEpochMs,
                 remaining,
-                lastFlushError
+                lastFlushError,
+                groupsInBackoff,
+                p == null ? List.of() : p.stats()
         );
     }
 
+    /**
+     * @param backoffRemainingMillis longest remaining backoff over all groups
+     * @param groupsInBackoff        groups (sessions) currently held back by backoff
+     * @param stages                 per-stage flush pipeline counters (embed, write, ack)
+     */
     public record VectorBufferStats(
             int queued,
             long lastAttemptEpochMs,
             long lastSuccessEpochMs,
             long backoffRemainingMillis,
-            String lastError
+            String lastError,
+            int groupsInBackoff,
+            List<FlushStageStats> stages
+    ) {
+    }
+
+    /**
+     * Cumulative counters of one flush pipeline stage.
+     *
+     * @param segmentsPerSec segments processed per busy second of the stage (for {@code ack}: end-to-end
+     *                       segments per second of flush wall time)
+     * @param queueDepth     batches currently waiting for this stage
+     */
+    public record FlushStageStats(
+            String stage,
+            long batches,
+            long segments,
+            long failures,
+            double segmentsPerSec,
+            int queueDepth
     ) {
     }
 
@@ -677,20 +729,17 @@ public class VectorStoreService {
      *
      * <p>
      * - Uses atomic swap to avoid enqueue loss.
-     * - Uses time-based backoff to avoid permanent stall.
+     * - Uses time-based backoff per group (session) to avoid permanent stall without
+     *   holding healthy sessions back.
      * - Uses ids in addAll(ids, embeddings, segments) to prevent duplicates.
+     * - Independent groups flush in parallel: embedding, store writes and ack/audit run as
+     *   pipelined stages connected by a bounded window ({@link VectorFlushPipeline}).
      * </p>
      */
     public synchronized void flush() {
         long now = System.currentTimeMillis();
         lastFlushAttemptEpochMs = now;
 
-        if (now < backoffUntilEpochMs) {
-            long remain = backoffUntilEpochMs - now;
-            log.debug("[VectorStore] flush suppressed by back-off {} ms remaining (queue={})", remain, pendingSize());
-            return;
-        }
-
         ConcurrentHashMap<String, BufferEntry> snapshotMap = queueRef.getAndSet(new ConcurrentHashMap<>());
         if (snapshotMap.isEmpty()) return;
 
@@ -738,188 +787,364 @@ public class VectorStoreService {
             groups.computeIfAbsent(k, __ -> new ArrayList<>()).add(e);
         }
 
-        java.util.Set<String> okIds = new java.util.HashSet<>();
+        // Groups whose session is still backing off go straight back to the queue; the rest
+        // flush in parallel through the embed -> write -> ack pipeline.
+        ConcurrentHashMap<String, BufferEntry> requeue = queueRef.get();
+        pruneGroupBackoff(now);
+        Map<FlushGroupKey, GroupFlush> active = new LinkedHashMap<>();
+        int deferred = 0;
+        for (Map.Entry<FlushGroupKey, List<Map.Entry<String, BufferEntry>>> grp : groups.entrySet()) {
+            FlushGroupKey k = grp.getKey();
+            List<Map.Entry<String, BufferEntry>> items = grp.getValue();
+            if (k == null || items == null || items.isEmpty()) continue;
+
+            GroupBackoff gb = groupBackoff.get(backoffKey(k));
+            if (gb != null && now < gb.untilEpochMs()) {
+                for (Map.Entry<String, BufferEntry> it : items) {
+                    if (it != null && it.getKey() != null) requeue.putIfAbsent(it.getKey(), it.getValue());
+                }
+                deferred += items.size();
+                continue;
+            }
+
+            // When grouping != trace, create a synthetic flush-trace id so downstream logs/snapshots remain correlatable.
+            // Format: vflush:<sid>:<bucket>
+            String groupTraceId = firstNonBlank(k.traceId(), k.requestId());
+            long groupBucket = bucketOf(now);
+            Long parsedBucket = tryParseVflushBucket(groupTraceId);
+            if (parsedBucket != null) {
+                groupBucket = parsedBucket;
+            }
+            if (groupTraceId == null || groupTraceId.isBlank()) {
+                groupTraceId = vflushTraceId(k.sessionId(), groupBucket);
+            }
+            String groupRequestId = firstNonBlank(k.requestId(), groupTraceId);
+            if (groupRequestId == null || groupRequestId.isBlank()) {
+                groupRequestId = groupTraceId;
+            }
+
+            GroupFlush gf = new GroupFlush(k, items, groupTraceId, groupRequestId, groupBucket);
+            active.put(k, gf);
+            try (TraceContext ignored = gf.attach()) {
+                emitGroupStart(gf, grouping);
+            }
+        }
+        if (deferred > 0) {
+            log.debug("[VectorStore] flush deferred {} entries of groups in back-off (queue={})", deferred, pendingSize());
+        }
+        if (active.isEmpty()) {
+            refreshAggregateBackoff();
+            return;
+        }
 
+        int embedBatch = (embedBatchSize > 0) ? embedBatchSize : Math.max(1, batchSize);
+        List<VectorFlushPipeline.Batch<FlushGroupKey>> batches = interleaveBatches(active, embedBatch);
+        final String groupingMode = grouping;
         try {
-            for (Map.Entry<FlushGroupKey, List<Map.Entry<String, BufferEntry>>> grp : groups.entrySet()) {
-                FlushGroupKey k = grp.getKey();
-                List<Map.Entry<String, BufferEntry>> items = grp.getValue();
-                if (k == null || items == null || items.isEmpty()) continue;
-
-                // When grouping != trace, create a synthetic flush-trace id so downstream logs/snapshots remain correlatable.
-                // Format: vflush:<sid>:<bucket>
-                String groupTraceId = firstNonBlank(k.traceId(), k.requestId());
-                long groupBucket = bucketOf(now);
-                Long parsedBucket = tryParseVflushBucket(groupTraceId);
-                if (parsedBucket != null) {
-                    groupBucket = parsedBucket;
-                }
-                if (groupTraceId == null || groupTraceId.isBlank()) {
-                    groupTraceId = vflushTraceId(k.sessionId(), groupBucket);
-                }
-                String groupRequestId = firstNonBlank(k.requestId(), groupTraceId);
-                if (groupRequestId == null || groupRequestId.isBlank()) {
-                    groupRequestId = groupTraceId;
+            flushPipeline().run(
+                    batches,
+                    segments -> {
+                        var res = embeddingModel.embedAll(segments);
+                        var embeds = (res == null) ? null : res.content();
+                        validateEmbeddingsOrThrow(embeds, segments);
+                        return embeds;
+                    },
+                    (ids, embeds, segments) -> embeddingStore.addAll(ids, embeds, segments),
+                    k -> {
+                        GroupFlush gf = active.get(k);
+                        TraceContext tc = (gf == null) ? TraceContext.attach(k.sessionId(), k.traceId()) : gf.attach();
+                        return () -> {
+                            tc.close();
+                            TraceStore.clear();
+                        };
+                    },
+                    ack -> onFlushAck(ack, active, groupingMode));
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            for (GroupFlush gf : active.values()) {
+                if (!gf.finished) {
+                    if (gf.failure == null) gf.failure = ie;
+                    finishGroup(gf, grouping);
                 }
+            }
+        }
 
-                try (TraceContext ignored = TraceContext.attach(k.sessionId(), groupTraceId)) {
-                    // Ensure x-request-id/sessionId correlation for downstream logs.
-                    if (groupRequestId != null && !groupRequestId.isBlank()) {
-                        MDC.put("x-request-id", groupRequestId);
-                    }
-                    if (k.debug()) {
-                        MDC.put("dbgSearch", "1");
-                    } else {
-                        MDC.remove("dbgSearch");
-                    }
+        refreshAggregateBackoff();
+        int failedGroups = 0;
+        for (GroupFlush gf : active.values()) {
+            if (gf.failure != null) failedGroups++;
+        }
+        if (failedGroups < active.size()) {
+            lastFlushAtEpochMs = now;
+        }
+        if (failedGroups == 0) {
+            lastFlushError = null;
+        }
+        log.debug("[VectorStore] flushed {} groups ({} failed, {} entries deferred) store={}",
+                active.size(), failedGroups, deferred, embeddingStore.getClass().getSimpleName());
+    }
 
-                    // Merge-boundary breadcrumbs.
-                    try {
-                        TraceStore.put("ml.vector.flush.grouping", grouping);
-                        TraceStore.put("ml.vector.flush.group.size", items.size());
-                        TraceStore.put("ml.vector.flush.traceId", SafeRedactor.hashValue(groupTraceId));
-                        TraceStore.put("ml.vector.flush.requestId", SafeRedactor.hashValue(groupRequestId));
-                        TraceStore.put("ml.vector.flush.bucket", groupBucket);
-
-                        // When grouping by session (or auto->session), keep a compact sample of requestIds
-                        // so we can correlate flush batches back to originating HTTP requests.
-                        if (!"trace".equals(grouping)) {
-                            java.util.LinkedHashSet<String> reqIds = new java.util.LinkedHashSet<>();
-                            java.util.LinkedHashSet<String> traceIds = new java.util.LinkedHashSet<>();
-                            for (Map.Entry<String, BufferEntry> it : items) {
-                                if (it == null || it.getValue() == null) continue;
-                                String rid = firstNonBlank(it.getValue().requestId(), it.getValue().traceId());
-                                if (rid != null && !rid.isBlank()) reqIds.add(rid);
-                                String tid = firstNonBlank(it.getValue().traceId(), it.getValue().requestId());
-                                if (tid != null && !tid.isBlank()) traceIds.add(tid);
-                                if (reqIds.size() >= Math.max(1, flushGroupingMaxRequestIds)
-                                        && traceIds.size() >= Math.max(1, flushGroupingMaxRequestIds)) {
-                                    break;
-                                }
-                            }
-                            if (!reqIds.isEmpty()) {
-                                TraceStore.put("ml.vector.flush.requestIds.sample", hashList(reqIds));
-                            }
-                            if (!traceIds.isEmpty()) {
-                                TraceStore.put("ml.vector.flush.traceIds.sample", hashList(traceIds));
-                            }
-                        }
-                    } catch (Throwable ignore) { VectorStoreTraceSuppressions.trace("flush.traceIdsSample", ignore); log.debug("[VectorStore] fail-soft stage={}", "flush.traceIdsSample"); }
-
-                    // TRACE_JSON breadcrumbs (captured by TraceSnapshotStore if configured).
-                    try {
-                        TraceLogger.emit("vector_flush_group_start", "vector",
-                                java.util.Map.of(
-                                        "grouping", grouping,
-                                        "sid", k.sessionId(),
-                                        "traceId", groupTraceId,
-                                        "bucket", groupBucket,
-                                        "count", items.size(),
-                                        "debug", k.debug()
-                                ));
-                    } catch (Throwable ignore) { VectorStoreTraceSuppressions.trace("flush.traceJsonStart", ignore); log.debug("[VectorStore] fail-soft stage={}", "flush.traceJsonStart"); }
-
-                    int okInGroup = 0;
+    /** Ack/audit stage (flushing thread): per-batch bookkeeping, group completion once all batches are in. */
+    private void onFlushAck(VectorFlushPipeline.Ack<FlushGroupKey> ack, Map<FlushGroupKey, GroupFlush> active,
+                            String grouping) {
+        GroupFlush gf = active.get(ack.group());
+        if (gf == null) return;
+        if (ack.ok()) {
+            gf.okIds.addAll(ack.ids());
+            if (gf.key.debug()) {
+                try (TraceContext ignored = gf.attach()) {
+                    TraceLogger.emit("vector_flush_batch", "vector",
+                            java.util.Map.of(
+                                    "count", ack.ids().size(),
+                                    "store", embeddingStore.getClass().getSimpleName(),
+                                    "groupSize", gf.items.size()
+                            ));
+                } catch (Throwable ignore) { VectorStoreTraceSuppressions.trace("flush.embeddingIds", ignore); log.debug("[VectorStore] fail-soft stage={}", "flush.embeddingIds"); }
+            }
+        } else if (ack.error() != null && gf.failure == null) {
+            gf.failure = ack.error();
+        }
+        gf.ackedBatches++;
+        if (gf.ackedBatches >= gf.batchCount) {
+            finishGroup(gf, grouping);
+        }
+    }
 
-                    try {
-                        for (int i = 0; i < items.size(); i += batchSize) {
-                            List<Map.Entry<String, BufferEntry>> batch = items.subList(i, Math.min(i + batchSize, items.size()));
-                            List<String> ids = batch.stream().map(Map.Entry::getKey).toList();
-
-                            List<TextSegment> segments = batch.stream()
-                                    .map(en -> TextSegment.from(en.getValue().text(), buildMeta(en.getValue())))
-                                    .collect(Collectors.toList());
-
-                            var res = embeddingModel.embedAll(segments);
-                            var embeds = (res == null) ? null : res.content();
-                            validateEmbeddingsOrThrow(embeds, segments);
-                            embeddingStore.addAll(ids, embeds, segments);
-                            okIds.addAll(ids);
-                            okInGroup += ids.size();
-
-                            if (k.debug()) {
-                                try {
-                                    TraceLogger.emit("vector_flush_batch", "vector",
-                                            java.util.Map.of(
-                                                    "count", ids.size(),
-                                                    "store", embeddingStore.getClass().getSimpleName(),
-                                                    "groupSize", items.size()
-                                            ));
-                                } catch (Throwable ignore) { VectorStoreTraceSuppressions.trace("flush.embeddingIds", ignore); log.debug("[VectorStore] fail-soft stage={}", "flush.embeddingIds"); }
-                            }
-                        }
-
-                        // TRACE_JSON breadcrumbs (captured by TraceSnapshotStore if configured).
-                        try {
-                            TraceLogger.emit("vector_flush_group_done", "vector",
-                                    java.util.Map.of(
-                                            "grouping", grouping,
-                                            "sid", k.sessionId(),
-                                            "traceId", groupTraceId,
-                                            "bucket", groupBucket,
-                                            "count", items.size(),
-                                            "ok", okInGroup,
-                                            "debug", k.debug()
-                                    ));
-                        } catch (Throwable ignore) { VectorStoreTraceSuppressions.trace("flush.traceJsonDone", ignore); log.debug("[VectorStore] fail-soft stage={}", "flush.traceJsonDone"); }
-                    } catch (Exception e) {
-                        VectorStoreTraceSuppressions.trace("flush.group", e);
-                        log.debug("[VectorStore] fail-soft stage={}", "flush.group");
-                        // [INGEST_PROTECTION] Feed flush failures into the quarantine detector (fail-soft).
-                        try {
-                            if (ingestProtectionService != null) {
-                                ingestProtectionService.recordIfMatches(k.sessionId(), e, "vector_flush");
-                            }
-                        } catch (Exception ignore) {
-                            VectorStoreTraceSuppressions.trace("flush.ingestProtection", ignore);
-                            log.debug("[VectorStore] fail-soft stage={}", "flush.ingestProtection");
-                        }
-
-                        // Breadcrumb + snapshot for post-mortem.
-                        try {
-                            TraceStore.put("ml.vector.flush.error", String.format("errorHash=%s errorLength=%d",
-                                    SafeRedactor.hashValue(String.valueOf(e)), String.valueOf(e).length()));
-                        } catch (Throwable ignore) { VectorStoreTraceSuppressions.trace("flush.errorBreadcrumb", ignore); log.debug("[VectorStore] fail-soft stage={}", "flush.errorBreadcrumb"); }
-                        try {
-                            if (traceSnapshotStore != null) {
-                                traceSnapshotStore.captureCurrent("vector_flush_error", "SCHED", "vector.flush", null, e);
-                            }
-                        } catch (Throwable ignore) { VectorStoreTraceSuppressions.trace("flush.errorSnapshot", ignore); log.debug("[VectorStore] fail-soft stage={}", "flush.errorSnapshot"); }
-
-                        throw e;
-                    }
+    private void finishGroup(GroupFlush gf, String grouping) {
+        gf.finished = true;
+        FlushGroupKey k = gf.key;
+        try (TraceContext ignored = gf.attach()) {
+            if (gf.failure == null) {
+                groupBackoff.remove(backoffKey(k));
+                // TRACE_JSON breadcrumbs (captured by TraceSnapshotStore if configured).
+                try {
+                    TraceLogger.emit("vector_flush_group_done", "vector",
+                            java.util.Map.of(
+                                    "grouping", grouping,
+                                    "sid", k.sessionId(),
+                                    "traceId", gf.traceId,
+                                    "bucket", gf.bucket,
+                                    "count", gf.items.size(),
+                                    "ok", gf.okIds.size(),
+                                    "debug", k.debug()
+                            ));
+                } catch (Throwable ignore) { VectorStoreTraceSuppressions.trace("flush.traceJsonDone", ignore); log.debug("[VectorStore] fail-soft stage={}", "flush.traceJsonDone"); }
+                return;
+            }
 
+            Exception e = gf.failure;
+            VectorStoreTraceSuppressions.trace("flush.group", e);
+            log.debug("[VectorStore] fail-soft stage={}", "flush.group");
+            // [INGEST_PROTECTION] Feed flush failures into the quarantine detector (fail-soft).
+            try {
+                if (ingestProtectionService != null) {
+                    ingestProtectionService.recordIfMatches(k.sessionId(), e, "vector_flush");
                 }
+            } catch (Exception ignore) {
+                VectorStoreTraceSuppressions.trace("flush.ingestProtection", ignore);
+                log.debug("[VectorStore] fail-soft stage={}", "flush.ingestProtection");
             }
 
-            backoffUntilEpochMs = 0L;
-            backoffStepMs = 0L;
-            lastFlushAtEpochMs = now;
-            lastFlushError = null;
+            // Breadcrumb + snapshot for post-mortem.
+            try {
+                TraceStore.put("ml.vector.flush.error", String.format("errorHash=%s errorLength=%d",
+                        SafeRedactor.hashValue(String.valueOf(e)), String.valueOf(e).length()));
+            } catch (Throwable ignore) { VectorStoreTraceSuppressions.trace("flush.errorBreadcrumb", ignore); log.debug("[VectorStore] fail-soft stage={}", "flush.errorBreadcrumb"); }
+            try {
+                if (traceSnapshotStore != null) {
+                    traceSnapshotStore.captureCurrent("vector_flush_error", "SCHED", "vector.flush", null, e);
+                }
+            } catch (Throwable ignore) { VectorStoreTraceSuppressions.trace("flush.errorSnapshot", ignore); log.debug("[VectorStore] fail-soft stage={}", "flush.errorSnapshot"); }
 
-            log.debug("[VectorStore] flushed {} segments in {} groups (store={})",
-                    snapshot.size(), groups.size(), embeddingStore.getClass().getSimpleName());
-        } catch (Exception e) {
             VectorStoreTraceSuppressions.trace("flush.batch", e);
             log.debug("[VectorStore] fail-soft stage={}", "flush.batch");
-            // Restore snapshot to current queue (best-effort), excluding already-flushed ids.
+            // Restore the group's unflushed entries (best-effort) and back off this group only.
             ConcurrentHashMap<String, BufferEntry> q = queueRef.get();
             int restored = 0;
-            for (Map.Entry<String, BufferEntry> e2 : snapshot) {
+            for (Map.Entry<String, BufferEntry> e2 : gf.items) {
                 if (e2 == null) continue;
                 String id = e2.getKey();
-                if (id != null && okIds.contains(id)) continue;
+                if (id == null || gf.okIds.contains(id)) continue;
                 q.putIfAbsent(id, e2.getValue());
                 restored++;
             }
 
             lastFlushError = e.toString();
+            String bk = backoffKey(k);
+            GroupBackoff prev = groupBackoff.get(bk);
+            long step = (prev == null || prev.stepMs() <= 0) ? initialBackoffMs : Math.min(prev.stepMs() * 2, maxBackoffMs);
+            groupBackoff.put(bk, new GroupBackoff(System.currentTimeMillis() + step, step));
+
+            log.warn("[VectorStore] batch insert failed; sidHash={} backoff={}ms; restored={} (queueNow={}) : {}",
+                    diagnosticSid(k.sessionId()), step, restored, q.size(), e.toString());
+        }
+    }
+
+    private void emitGroupStart(GroupFlush gf, String grouping) {
+        FlushGroupKey k = gf.key;
+        List<Map.Entry<String, BufferEntry>> items = gf.items;
+        String groupTraceId = gf.traceId;
+        String groupRequestId = gf.requestId;
+        // Merge-boundary breadcrumbs.
+        try {
+            TraceStore.put("ml.vector.flush.grouping", grouping);
+            TraceStore.put("ml.vector.flush.group.size", items.size());
+            TraceStore.put("ml.vector.flush.traceId", SafeRedactor.hashValue(groupTraceId));
+            TraceStore.put("ml.vector.flush.requestId", SafeRedactor.hashValue(groupRequestId));
+            TraceStore.put("ml.vector.flush.bucket", gf.bucket);
+
+            // When grouping by session (or auto->session), keep a compact sample of requestIds
+            // so we can correlate flush batches back to originating HTTP requests.
+            if (!"trace".equals(grouping)) {
+                java.util.LinkedHashSet<String> reqIds = new java.util.LinkedHashSet<>();
+                java.util.LinkedHashSet<String> traceIds = new java.util.LinkedHashSet<>();
+                for (Map.Entry<String, BufferEntry> it : items) {
+                    if (it == null || it.getValue() == null) continue;
+                    String rid = firstNonBlank(it.getValue().requestId(), it.getValue().traceId());
+                    if (rid != null && !rid.isBlank()) reqIds.add(rid);
+                    String tid = firstNonBlank(it.getValue().traceId(), it.getValue().requestId());
+                    if (tid != null && !tid.isBlank()) traceIds.add(tid);
+                    if (reqIds.size() >= Math.max(1, flushGroupingMaxRequestIds)
+                            && traceIds.size() >= Math.max(1, flushGroupingMaxRequestIds)) {
+                        break;
+                    }
+                }
+                if (!reqIds.isEmpty()) {
+                    TraceStore.put("ml.vector.flush.requestIds.sample", hashList(reqIds));
+                }
+                if (!traceIds.isEmpty()) {
+                    TraceStore.put("ml.vector.flush.traceIds.sample", hashList(traceIds));
+                }
+            }
+        } catch (Throwable ignore) { VectorStoreTraceSuppressions.trace("flush.traceIdsSample", ignore); log.debug("[VectorStore] fail-soft stage={}", "flush.traceIdsSample"); }
+
+        // TRACE_JSON breadcrumbs (captured by TraceSnapshotStore if configured).
+        try {
+            TraceLogger.emit("vector_flush_group_start", "vector",
+                    java.util.Map.of(
+                            "grouping", grouping,
+                            "sid", k.sessionId(),
+                            "traceId", groupTraceId,
+                            "bucket", gf.bucket,
+                            "count", items.size(),
+                            "debug", k.debug()
+                    ));
+        } catch (Throwable ignore) { VectorStoreTraceSuppressions.trace("flush.traceJsonStart", ignore); log.debug("[VectorStore] fail-soft stage={}", "flush.traceJsonStart"); }
+    }
+
+    /**
+     * Split groups into embed-sized batches and interleave them round-robin, so a large group
+     * (e.g. a bulk session import) cannot hold every other session behind it.
+     */
+    private List<VectorFlushPipeline.Batch<FlushGroupKey>> interleaveBatches(Map<FlushGroupKey, GroupFlush> active,
+                                                                           int embedBatch) {
+        List<List<VectorFlushPipeline.Batch<FlushGroupKey>>> perGroup = new ArrayList<>();
+        int total = 0;
+        for (GroupFlush gf : active.values()) {
+            List<VectorFlushPipeline.Batch<FlushGroupKey>> list = new ArrayList<>();
+            for (int i = 0; i < gf.items.size(); i += embedBatch) {
+                List<Map.Entry<String, BufferEntry>> batch = gf.items.subList(i, Math.min(i + embedBatch, gf.items.size()));
+                List<String> ids = batch.stream().map(Map.Entry::getKey).toList();
+                list.add(new VectorFlushPipeline.Batch<>(gf.key, ids, () -> batch.stream()
+                        .map(en -> TextSegment.from(en.getValue().text(), buildMeta(en.getValue())))
+                        .collect(Collectors.toList())));
+            }
+            gf.batchCount = list.size();
+            total += list.size();
+            perGroup.add(list);
+        }
+        List<VectorFlushPipeline.Batch<FlushGroupKey>> out = new ArrayList<>(total);
+        for (int round = 0; out.size() < total; round++) {
+            for (List<VectorFlushPipeline.Batch<FlushGroupKey>> list : perGroup) {
+                if (round < list.size()) out.add(list.get(round));
+            }
+        }
+        return out;
+    }
+
+    private VectorFlushPipeline flushPipeline() {
+        VectorFlushPipeline p = flushPipeline;
+        if (p == null) {
+            p = new VectorFlushPipeline(
+                    Math.max(1, flushEmbedParallelism),
+                    Math.max(1, flushWriteParallelism),
+                    flushQueueCapacity > 0 ? flushQueueCapacity : 8);
+            flushPipeline = p;
+        }
+        return p;
+    }
+
+    @PreDestroy
+    void shutdownFlushPipeline() {
+        VectorFlushPipeline p = flushPipeline;
+        if (p != null) {
+            p.shutdown();
+        }
+    }
+
+    /**
+     * Backoff identity of a flush group. Group keys can be per-request (trace grouping), so the
+     * stable owner of the group - its session - carries the backoff between flushes.
+     */
+    private static String backoffKey(FlushGroupKey k) {
+        return nullSafe(k.sessionId());
+    }
 
-            backoffStepMs = (backoffStepMs <= 0) ? initialBackoffMs : Math.min(backoffStepMs * 2, maxBackoffMs);
-            backoffUntilEpochMs = System.currentTimeMillis() + backoffStepMs;
+    private void pruneGroupBackoff(long now) {
+        long horizon = Math.max(initialBackoffMs, maxBackoffMs) * 2L;
+        groupBackoff.entrySet().removeIf(e -> e.getValue().untilEpochMs() + horizon < now);
+    }
 
-            log.warn("[VectorStore] batch insert failed; backoff={}ms; restored={} (queueNow={}) : {}",
-                    backoffStepMs, restored, q.size(), e.toString());
+    /** Keep the aggregate fields (exposed via bufferStats) in sync with per-group backoff. */
+    private void refreshAggregateBackoff() {
+        long until = 0L;
+        long step = 0L;
+        for (GroupBackoff gb : groupBackoff.values()) {
+            until = Math.max(until, gb.untilEpochMs());
+            step = Math.max(step, gb.stepMs());
+        }
+        backoffUntilEpochMs = until;
+        backoffStepMs = step;
+    }
+
+    private record GroupBackoff(long untilEpochMs, long stepMs) {
+    }
+
+    /** Mutable per-flush state of one group; touched only by the flushing thread. */
+    private static final class GroupFlush {
+        final FlushGroupKey key;
+        final List<Map.Entry<String, BufferEntry>> items;
+        final String traceId;
+        final String requestId;
+        final long bucket;
+        final java.util.Set<String> okIds = new java.util.HashSet<>();
+        int batchCount;
+        int ackedBatches;
+        boolean finished;
+        Exception failure;
+
+        GroupFlush(FlushGroupKey key, List<Map.Entry<String, BufferEntry>> items,
+                   String traceId, String requestId, long bucket) {
+            this.key = key;
+            this.items = items;
+            this.traceId = traceId;
+            this.requestId = requestId;
+            this.bucket = bucket;
+        }
+
+        /** Attach sid/trace correlation plus request-id and debug flag to the current thread's MDC. */
+        TraceContext attach() {
+            TraceContext tc = TraceContext.attach(key.sessionId(), traceId);
+            // Ensure x-request-id/sessionId correlation for downstream logs.
+            if (requestId != null && !requestId.isBlank()) {
+                MDC.put("x-request-id", requestId);
+            }
+            if (key.debug()) {
+                MDC.put("dbgSearch", "1");
+            } else {
+                MDC.remove("dbgSearch");
+            }
+            return tc;
         }
     }
 
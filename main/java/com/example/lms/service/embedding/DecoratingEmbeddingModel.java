@@ -29,9 +29,11 @@ import java.util.function.Supplier;
  *   <li>Also caches {@link #embed(String)} (query embeddings) to unify the code-path and reduce repeated calls.</li>
  *   <li>When a fallback/backup embedder is used, it invalidates the cache key to avoid mixed-model contamination.</li>
  *   <li>Never caches empty vectors (EmbeddingCache enforces this).</li>
+ *   <li>Query cache misses can be routed through an {@link EmbeddingMicroBatcher}; the cache's
+ *   single-flight guard dedups identical texts before they reach the batch queue.</li>
  * </ul>
  */
-public final class DecoratingEmbeddingModel implements EmbeddingModel {
+public final class DecoratingEmbeddingModel implements EmbeddingModel, AutoCloseable {
 
     private static final Logger log = LoggerFactory.getLogger(DecoratingEmbeddingModel.class);
 
@@ -39,23 +41,45 @@ public final class DecoratingEmbeddingModel implements EmbeddingModel {
     private final EmbeddingCache cache;
     private final Duration ttl;
     private final EmbeddingFingerprint fingerprint; // optional
+    private final EmbeddingMicroBatcher batcher; // optional
 
     public DecoratingEmbeddingModel(EmbeddingModel delegate, EmbeddingCache cache, Duration ttl) {
         this(delegate, cache, ttl, null);
     }
 
     public DecoratingEmbeddingModel(EmbeddingModel delegate, EmbeddingCache cache, Duration ttl, EmbeddingFingerprint fingerprint) {
+        this(delegate, cache, ttl, fingerprint, null);
+    }
+
+    public DecoratingEmbeddingModel(EmbeddingModel delegate, EmbeddingCache cache, Duration ttl,
+                                    EmbeddingFingerprint fingerprint, EmbeddingMicroBatcher batcher) {
         this.delegate = Objects.requireNonNull(delegate, "delegate");
         this.cache = Objects.requireNonNullElseGet(cache, EmbeddingCache.InMemory::new);
         this.ttl = (ttl == null) ? Duration.ofMinutes(15) : ttl;
         this.fingerprint = fingerprint;
+        this.batcher = batcher;
+    }
+
+    /** Micro-batcher counters, or {@code null} when query batching is disabled. */
+    public EmbeddingMicroBatcher.Stats microBatchStats() {
+        return batcher == null ? null : batcher.stats();
+    }
+
+    @Override
+    public void close() {
+        if (batcher != null) {
+            batcher.close();
+        }
     }
 
     @Override
     public Response<Embedding> embed(String text) {
         if (text == null) return Response.from(Embedding.from(new float[0]));
         String key = cacheKeyForQuery(text);
-        float[] vec = getCachedVector(key, () -> delegate.embed(text), "query");
+        Supplier<Response<Embedding>> compute = batcher != null
+                ? () -> batcher.embed(text)
+                : () -> delegate.embed(text);
+        float[] vec = getCachedVector(key, compute, "query");
         return Response.from(Embedding.from(vec));
     }
 
@@ -0,0 +1,438 @@
+package com.example.lms.service.embedding;
+
+import com.example.lms.search.TraceStore;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Micro-batching front-end for single-text query embeddings.
+ *
+ * <p>Concurrent {@code embed(String)} calls are queued and a dispatcher thread turns them into
+ * one {@code embedAll} call of up to {@code maxBatch} texts, run on a worker thread, then fans
+ * the vectors back out to the waiting callers. At most {@code maxConcurrentBatches} batches are
+ * in flight; while they all are, new requests keep queueing and the next batch is simply larger.
+ *
+ * <p>Linger adapts to load: the dispatcher always takes what is already queued, and only waits
+ * for more when the observed arrival rate says another request is likely to arrive within
+ * {@code maxLinger}. An idle system therefore dispatches a lone request immediately.
+ *
+ * <p>Failover markers ({@code embed.failover.used.cur}/{@code embed.failover.stage.cur}) are
+ * set by the delegate on the worker thread; they are copied back onto each caller thread so
+ * {@link DecoratingEmbeddingModel} keeps invalidating fallback vectors. When a batch fails or
+ * returns a mismatched size, each of its texts is retried with its own {@code delegate.embed}
+ * on a worker so one bad text cannot fail its neighbours.
+ *
+ * <p>A caller waits at most {@code callerTimeoutMs} in total, retry included, and gets an empty
+ * vector (never cached) when that runs out. Blank texts skip the queue and go to
+ * {@code delegate.embed} on the calling thread, exactly as they did without the batcher, since
+ * a blank {@link TextSegment} cannot be built for {@code embedAll}.
+ */
+public final class EmbeddingMicroBatcher implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddingMicroBatcher.class);
+
+    /** Batches in flight when the caller does not say. */
+    public static final int DEFAULT_MAX_CONCURRENT_BATCHES = 4;
+
+    /** Upper bounds of the batch-size histogram buckets; the last bucket is open-ended. */
+    private static final int[] SIZE_BUCKETS = {1, 2, 4, 8, 16, 32, 64};
+
+    private final EmbeddingModel delegate;
+    private final int maxBatch;
+    private final long maxLingerNanos;
+    private final long callerTimeoutMs;
+    private final int maxQueue;
+    private final LinkedBlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread dispatcher;
+    private final ExecutorService workers;
+    private final Semaphore inFlight;
+    private volatile boolean closed;
+
+    /** EWMA of the gap between arrivals, in nanos. Starts "idle" so the first call never lingers. */
+    private final AtomicLong arrivalGapEwmaNanos = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong lastArrivalNanos = new AtomicLong();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong batchedTexts = new AtomicLong();
+    private final AtomicLong bypassed = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong queueDelayNanosTotal = new AtomicLong();
+    private final AtomicLong queueDelayNanosMax = new AtomicLong();
+    private final AtomicLong lastLingerNanos = new AtomicLong();
+    private final AtomicLongArray sizeHistogram = new AtomicLongArray(SIZE_BUCKETS.length + 1);
+
+    public EmbeddingMicroBatcher(EmbeddingModel delegate, int maxBatch, long maxLingerMicros,
+                                 int maxQueue, long callerTimeoutMs) {
+        this(delegate, maxBatch, maxLingerMicros, maxQueue, callerTimeoutMs, DEFAULT_MAX_CONCURRENT_BATCHES);
+    }
+
+    public EmbeddingMicroBatcher(EmbeddingModel delegate, int maxBatch, long maxLingerMicros,
+                                 int maxQueue, long callerTimeoutMs, int maxConcurrentBatches) {
+        this.delegate = Objects.requireNonNull(delegate, "delegate");
+        this.maxBatch = Math.max(1, maxBatch);
+        this.maxLingerNanos = TimeUnit.MICROSECONDS.toNanos(Math.max(0L, maxLingerMicros));
+        this.maxQueue = Math.max(1, maxQueue);
+        this.callerTimeoutMs = Math.max(1L, callerTimeoutMs);
+        this.inFlight = new Semaphore(Math.max(1, maxConcurrentBatches));
+        AtomicInteger workerIds = new AtomicInteger();
+        this.workers = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "embedding-micro-batch-" + workerIds.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.dispatcher = new Thread(this::dispatchLoop, "embedding-micro-batcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    /**
+     * Embed one text, sharing an {@code embedAll} call with concurrent callers when possible.
+     * Runs {@code delegate.embed(text)} on the calling thread for a blank text or when the
+     * batcher is closed or the queue is full; returns an empty vector when
+     * {@code callerTimeoutMs} elapsed.
+     */
+    public Response<Embedding> embed(String text) {
+        requests.incrementAndGet();
+        if (text == null || text.isBlank()) {
+            bypassed.incrementAndGet();
+            return delegate.embed(text);
+        }
+        long now = System.nanoTime();
+        recordArrival(now);
+        if (closed || queue.size() >= maxQueue) {
+            bypassed.incrementAndGet();
+            return delegate.embed(text);
+        }
+        Pending p = new Pending(text, now);
+        queue.add(p);
+        Result r;
+        try {
+            r = p.future.get(callerTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            p.future.cancel(false);
+            EmbeddingTraceSuppressions.trace("microBatch.await", ie);
+            log.debug("[Embedding] fail-soft stage={}", "microBatch.await");
+            return Response.from(Embedding.from(new float[0]));
+        } catch (TimeoutException te) {
+            p.future.cancel(false);
+            timeouts.incrementAndGet();
+            EmbeddingTraceSuppressions.trace("microBatch.timeout", te);
+            log.debug("[Embedding] fail-soft stage={}", "microBatch.timeout");
+            return Response.from(Embedding.from(new float[0]));
+        } catch (Exception e) {
+            EmbeddingTraceSuppressions.trace("microBatch.await", e);
+            log.debug("[Embedding] fail-soft stage={}", "microBatch.await");
+            r = null;
+        }
+        if (r == null || r.vector() == null) {
+            // Closed before this text was dispatched; nothing has spent its budget upstream yet.
+            fallbacks.incrementAndGet();
+            return delegate.embed(text);
+        }
+        try {
+            if (r.failoverUsed()) {
+                TraceStore.put("embed.failover.used.cur", true);
+                TraceStore.put("embed.failover.stage.cur", r.failoverStage());
+            }
+            if (truthy(TraceStore.get("dbg.search.enabled"))) {
+                TraceStore.put("embed.microbatch.size.cur", r.batchSize());
+                TraceStore.put("embed.microbatch.queue.us.cur", TimeUnit.NANOSECONDS.toMicros(r.queueDelayNanos()));
+            }
+        } catch (Exception ignore) { EmbeddingTraceSuppressions.trace("microBatch.callerTrace", ignore); log.debug("[Embedding] fail-soft stage={}", "microBatch.callerTrace"); }
+        return Response.from(Embedding.from(r.vector()));
+    }
+
+    private void recordArrival(long now) {
+        long prev = lastArrivalNanos.getAndSet(now);
+        if (prev == 0L) {
+            return;
+        }
+        long gap = Math.max(0L, now - prev);
+        // Gaps longer than the linger budget all mean "idle"; clamp so one quiet minute does not
+        // dominate the average once traffic picks up again.
+        long clamped = Math.min(gap, Math.max(1L, maxLingerNanos * 4));
+        arrivalGapEwmaNanos.getAndUpdate(old -> old == Long.MAX_VALUE ? clamped : (old * 3 + clamped) / 4);
+    }
+
+    /**
+     * How long to keep collecting once {@code have} texts are in hand: the expected time to fill
+     * the batch at the current arrival rate, capped by {@code maxLinger}; zero when the next
+     * arrival is not expected within the cap.
+     */
+    long lingerNanos(int have) {
+        if (maxLingerNanos <= 0L || have >= maxBatch) {
+            return 0L;
+        }
+        long gap = arrivalGapEwmaNanos.get();
+        if (gap == Long.MAX_VALUE || gap >= maxLingerNanos) {
+            return 0L;
+        }
+        long fill = gap * (long) (maxBatch - have);
+        return Math.min(maxLingerNanos, fill);
+    }
+
+    private void dispatchLoop() {
+        while (!closed) {
+            List<Pending> batch = new ArrayList<>(maxBatch);
+            boolean permit = false;
+            try {
+                // Wait for a free slot before collecting, so requests arriving meanwhile join this batch.
+                inFlight.acquire();
+                permit = true;
+                Pending first = queue.poll(200L, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    inFlight.release();
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - batch.size());
+                long linger = lingerNanos(batch.size());
+                lastLingerNanos.set(linger);
+                long deadline = System.nanoTime() + linger;
+                while (batch.size() < maxBatch) {
+                    long left = deadline - System.nanoTime();
+                    if (left <= 0L) {
+                        break;
+                    }
+                    Pending next = queue.poll(left, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, maxBatch - batch.size());
+                }
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                if (permit) {
+                    inFlight.release();
+                }
+                failAll(batch);
+                break;
+            }
+            try {
+                workers.execute(() -> {
+                    try {
+                        dispatch(batch);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                inFlight.release();
+                failAll(batch);
+            }
+        }
+        List<Pending> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        failAll(rest);
+    }
+
+    private void dispatch(List<Pending> batch) {
+        long started = System.nanoTime();
+        List<Pending> live = new ArrayList<>(batch.size());
+        for (Pending p : batch) {
+            if (!p.future.isDone()) {
+                live.add(p);
+            }
+        }
+        if (live.isEmpty()) {
+            return;
+        }
+        batches.incrementAndGet();
+        batchedTexts.addAndGet(live.size());
+        sizeHistogram.incrementAndGet(bucket(live.size()));
+
+        List<TextSegment> segments = new ArrayList<>(live.size());
+        for (Pending p : live) {
+            segments.add(TextSegment.from(p.text));
+        }
+        List<Embedding> out = null;
+        boolean failoverUsed = false;
+        String failoverStage = "";
+        try {
+            TraceStore.put("embed.failover.used.cur", null);
+            TraceStore.put("embed.failover.stage.cur", null);
+            Response<List<Embedding>> r = delegate.embedAll(segments);
+            out = r == null ? null : r.content();
+            failoverUsed = truthy(TraceStore.get("embed.failover.used.cur"));
+            Object st = TraceStore.get("embed.failover.stage.cur");
+            if (st != null) failoverStage = String.valueOf(st);
+        } catch (Throwable t) {
+            EmbeddingTraceSuppressions.trace("microBatch.embedAll", t);
+            log.debug("[Embedding] fail-soft stage={}", "microBatch.embedAll");
+        } finally {
+            TraceStore.clear();
+        }
+
+        if (out == null || out.size() != live.size()) {
+            fallbacks.addAndGet(live.size());
+            for (Pending p : live) {
+                if (p == live.get(live.size() - 1)) {
+                    embedAlone(p, started);
+                } else {
+                    try {
+                        workers.execute(() -> embedAlone(p, started));
+                    } catch (RejectedExecutionException e) {
+                        p.future.complete(null);
+                    }
+                }
+            }
+            return;
+        }
+        for (int i = 0; i < live.size(); i++) {
+            Embedding e = out.get(i);
+            float[] v = (e == null || e.vector() == null) ? new float[0] : e.vector();
+            complete(live.get(i), v, failoverUsed, failoverStage, started, live.size());
+        }
+    }
+
+    /** Per-text retry after a failed batch; the caller's wait bound still applies. */
+    private void embedAlone(Pending p, long dispatchedAt) {
+        if (p.future.isDone()) {
+            return;
+        }
+        float[] v = new float[0];
+        boolean failoverUsed = false;
+        String failoverStage = "";
+        try {
+            TraceStore.put("embed.failover.used.cur", null);
+            TraceStore.put("embed.failover.stage.cur", null);
+            Response<Embedding> r = delegate.embed(p.text);
+            if (r != null && r.content() != null && r.content().vector() != null) {
+                v = r.content().vector();
+            }
+            failoverUsed = truthy(TraceStore.get("embed.failover.used.cur"));
+            Object st = TraceStore.get("embed.failover.stage.cur");
+            if (st != null) failoverStage = String.valueOf(st);
+        } catch (Throwable t) {
+            EmbeddingTraceSuppressions.trace("microBatch.embedAlone", t);
+            log.debug("[Embedding] fail-soft stage={}", "microBatch.embedAlone");
+        } finally {
+            TraceStore.clear();
+        }
+        complete(p, v, failoverUsed, failoverStage, dispatchedAt, 1);
+    }
+
+    private void complete(Pending p, float[] vector, boolean failoverUsed, String failoverStage,
+                          long dispatchedAt, int batchSize) {
+        long delay = Math.max(0L, dispatchedAt - p.enqueuedAt);
+        queueDelayNanosTotal.addAndGet(delay);
+        queueDelayNanosMax.accumulateAndGet(delay, Math::max);
+        p.future.complete(new Result(vector, failoverUsed, failoverStage, batchSize, delay));
+    }
+
+    private static void failAll(List<Pending> pending) {
+        for (Pending p : pending) {
+            p.future.complete(null);
+        }
+    }
+
+    private static int bucket(int size) {
+        for (int i = 0; i < SIZE_BUCKETS.length; i++) {
+            if (size <= SIZE_BUCKETS[i]) {
+                return i;
+            }
+        }
+        return SIZE_BUCKETS.length;
+    }
+
+    public Stats stats() {
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        int lower = 1;
+        for (int i = 0; i < SIZE_BUCKETS.length; i++) {
+            int upper = SIZE_BUCKETS[i];
+            histogram.put(lower == upper ? String.valueOf(upper) : lower + "-" + upper, sizeHistogram.get(i));
+            lower = upper + 1;
+        }
+        histogram.put(lower + "+", sizeHistogram.get(SIZE_BUCKETS.length));
+        long b = batches.get();
+        long texts = batchedTexts.get();
+        return new Stats(
+                requests.get(),
+                b,
+                bypassed.get(),
+                fallbacks.get(),
+                timeouts.get(),
+                b == 0L ? 0.0d : (double) texts / b,
+                histogram,
+                texts == 0L ? 0.0d : queueDelayNanosTotal.get() / 1_000.0d / texts,
+                TimeUnit.NANOSECONDS.toMicros(queueDelayNanosMax.get()),
+                TimeUnit.NANOSECONDS.toMicros(lastLingerNanos.get()),
+                queue.size());
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        dispatcher.interrupt();
+        workers.shutdown();
+    }
+
+    private static boolean truthy(Object v) {
+        if (v == null) return false;
+        if (v instanceof Boolean b) return b;
+        return "true".equalsIgnoreCase(String.valueOf(v).trim());
+    }
+
+    /**
+     * Batcher counters.
+     *
+     * @param fallbacks          texts retried individually after a failed/mismatched batch
+     * @param timeouts           callers that gave up after {@code callerTimeoutMs} with an empty vector
+     * @param batchSizeHistogram dispatched batch sizes, bucketed by powers of two
+     * @param avgQueueDelayUs    mean time a request waited before its batch was dispatched
+     */
+    public record Stats(
+            long requests,
+            long batches,
+            long bypassed,
+            long fallbacks,
+            long timeouts,
+            double avgBatchSize,
+            Map<String, Long> batchSizeHistogram,
+            double avgQueueDelayUs,
+            long maxQueueDelayUs,
+            long lastLingerUs,
+            int queueDepth
+    ) {
+    }
+
+    private record Result(float[] vector, boolean failoverUsed, String failoverStage,
+                          int batchSize, long queueDelayNanos) {
+    }
+
+    private static final class Pending {
+        final String text;
+        final long enqueuedAt;
+        final CompletableFuture<Result> future = new CompletableFuture<>();
+
+        Pending(String text, long enqueuedAt) {
+            this.text = text;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
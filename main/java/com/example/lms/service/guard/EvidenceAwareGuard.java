@@ -17,6 +17,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import com.example.lms.guard.GuardProfile;
 import com.example.lms.util.FutureTechDetector;
 import com.example.lms.util.QueryTypeHeuristics;
+import com.example.lms.util.TextSignals;
 import com.example.lms.domain.enums.VisionMode;
 import com.example.lms.guard.GuardProfileProps;
 
@@ -88,12 +89,18 @@ public class EvidenceAwareGuard {
 
     private static final Pattern TITLE_TOKENS = Pattern.compile("\\s+|[\\u3000-\\u303F\\p{Punct}]");
 
+    // 정의형 질문 탐지 (기존 "(?i).*(뭐야|...|what\\s+is|who\\s+is).*")
+    static final TextSignals.KeywordSet DEFINITIONAL_PROBE = TextSignals.KeywordSet.of(
+            "뭐야", "뭐냐", "누구야", "누구냐", "무엇", "what is", "who is");
+
     /**
      * 한국어 질의 키워드 정규화 유틸리티.
      * 조사(particles)와 질문어(question words)를 제거하여 순수 명사/엔티티만 추출한다.
      */
     private static class KoreanQueryNormalizer {
 
+        private static final Pattern QUERY_PUNCT = Pattern.compile("[?!.,;:]");
+
         // 질문어 패턴 (answer에 거의 나타나지 않음)
         private static final java.util.Set<String> QUESTION_WORDS = java.util.Set.of(
                 "뭐야", "뭐냐", "뭐지", "뭔가", "뭘까",
@@ -117,15 +124,14 @@ public class EvidenceAwareGuard {
             }
 
             // 1) 기본 전처리: 공백 정규화, 문장부호 제거
-            String cleaned = query.replaceAll("[?!.,;:]", " ")
-                    .replaceAll("\\s+", " ")
-                    .trim();
+            String cleaned = TextSignals.collapseWhitespace(
+                    QUERY_PUNCT.matcher(query).replaceAll(" ")).trim();
             if (cleaned.isEmpty()) {
                 return java.util.Collections.emptyList();
             }
 
             // 2) 공백 기준 토큰 분리
-            String[] tokens = cleaned.split("\\s+");
+            String[] tokens = TextSignals.splitWhitespace(cleaned);
             java.util.LinkedHashSet<String> result = new java.util.LinkedHashSet<>();
 
             for (String tok : tokens) {
@@ -148,7 +154,7 @@ public class EvidenceAwareGuard {
                 }
 
                 // 5) 길이 필터 (1글자 이하 제거)
-                if (normalized.length() >= 2 || normalized.matches(".*[0-9a-zA-Z].*")) {
+                if (normalized.length() >= 2 || TextSignals.hasAsciiLetterOrDigit(normalized)) {
                     result.add(normalized);
                 }
             }
@@ -251,7 +257,7 @@ public class EvidenceAwareGuard {
         } catch (Throwable ignore) {
             log.debug("[guard] fail-soft stage={}", "definitionalProbe.context");
         }
-        boolean isDefinitional = definitionalProbe.matches("(?i).*(뭐야|뭐냐|누구야|누구냐|무엇|what\\s+is|who\\s+is).*");
+        boolean isDefinitional = DEFINITIONAL_PROBE.matchesLine(definitionalProbe);
         int threshold = isDefinitional
                 ? Math.max(1, minEntitiesCovered / 2)
                 : minEntitiesCovered;
@@ -1018,6 +1024,8 @@ public class EvidenceAwareGuard {
     // This keeps UX useful even under guard degradation (e.g.,
     // weak_draft_high_evidence).
     private static final Pattern KEY_SENT_TOKEN = Pattern.compile("[\\p{L}\\p{Nd}]{2,}");
+    private static final Pattern KEY_SENT_SPLIT = Pattern.compile(
+            "(?<=[.!?])\\s+|(?<=\\uB2E4\\.)\\s+|(?<=\\uB2E4\\?)\\s+|(?<=\\uB2E4!)\\s+");
     private static final java.util.Set<String> KEY_SENT_STOP = java.util.Set.of(
             "그", "이", "저", "것", "수", "등", "및", "대한", "관련", "내용", "정보",
             "알려", "알려줘", "뭐", "무엇", "어떤", "왜", "어떻게", "언제", "어디", "누구",
@@ -1028,13 +1036,13 @@ public class EvidenceAwareGuard {
         if (s == null) {
             return "";
         }
-        String t = s.replaceAll("\\s+", " ").trim();
+        String t = TextSignals.collapseWhitespace(s).trim();
         if (t.isEmpty()) {
             return "";
         }
 
         // Split into sentences (KR/EN).
-        String[] parts = t.split("(?<=[.!?])\\s+|(?<=\\uB2E4\\.)\\s+|(?<=\\uB2E4\\?)\\s+|(?<=\\uB2E4!)\\s+");
+        String[] parts = KEY_SENT_SPLIT.split(t);
         String best = "";
         int bestScore = -1;
 
@@ -1068,7 +1076,7 @@ public class EvidenceAwareGuard {
             }
 
             int score = uniq.size();
-            if (sent.matches(".*\\d.*")) {
+            if (TextSignals.isSingleLine(sent) && TextSignals.hasAsciiDigit(sent)) {
                 score += 2;
             }
             score += Math.min(3, Math.max(0, sent.length() / 60));
@@ -1089,7 +1097,7 @@ public class EvidenceAwareGuard {
         if (s == null) {
             return "";
         }
-        String t = s.replaceAll("\\s+", " ").trim();
+        String t = TextSignals.collapseWhitespace(s).trim();
         if (t.isEmpty()) {
             return "";
         }
@@ -1336,7 +1344,7 @@ public class EvidenceAwareGuard {
             return true;
         }
 
-        String normalized = draft.replaceAll("\\s+", " ").trim();
+        String normalized = TextSignals.collapseWhitespace(draft).trim();
 
         // 특정 회피성 문구는 즉시 '정보 없음' 템플릿으로 간주
         if (normalized.contains("충분한 증거를 찾지 못했습니다")) {
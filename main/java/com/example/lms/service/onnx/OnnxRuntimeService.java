@@ -19,11 +19,17 @@ import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.TreeMap;
 
 
 
@@ -114,6 +120,46 @@ public class OnnxRuntimeService {
     @Value("${abandonware.reranker.onnx.fallback-enabled:true}")
     private boolean fallbackEnabled;
 
+    /**
+     * Score all pairs of a {@link #predict} call with packed {@code [B, L]} tensors instead of
+     * one {@code OrtSession.run} per pair.  Rows are grouped into length buckets so short
+     * passages are not padded up to {@link #maxSeqLen}.
+     */
+    @Value("${abandonware.reranker.onnx.batch.enabled:true}")
+    private boolean batchEnabled;
+
+    /** Maximum rows per packed inference call. */
+    @Value("${abandonware.reranker.onnx.batch.max-batch:32}")
+    private int maxBatch;
+
+    /** Ascending padded lengths; each row is padded to the smallest bucket that fits it. */
+    @Value("${abandonware.reranker.onnx.batch.length-buckets:32,64,128,256,512}")
+    private String lengthBuckets;
+
+    /** ORT intra-op thread count; 0 leaves the runtime default. */
+    @Value("${abandonware.reranker.onnx.session.intra-op-threads:0}")
+    private int intraOpThreads;
+
+    /** ORT inter-op thread count; 0 leaves the runtime default. */
+    @Value("${abandonware.reranker.onnx.session.inter-op-threads:0}")
+    private int interOpThreads;
+
+    /** Graph optimisation level: none, basic, extended or all. */
+    @Value("${abandonware.reranker.onnx.session.graph-optimization:all}")
+    private String graphOptimization;
+
+    /**
+     * Memory-pattern planning.  Helps fixed shapes; the length buckets keep the number of
+     * distinct shapes small enough for the planner to pay off.
+     */
+    @Value("${abandonware.reranker.onnx.session.memory-pattern:true}")
+    private boolean memoryPattern;
+
+    /** Per-thread direct buffers backing the packed input tensors. */
+    private static final ThreadLocal<PackedInputs> PACKED = ThreadLocal.withInitial(PackedInputs::new);
+
+    private int[] buckets = {32, 64, 128, 256, 512};
+
     // Names of model inputs and outputs captured during session initialisation
     private java.util.List<String> inputNames;
     private java.util.List<String> outputNames;
@@ -132,6 +178,7 @@ public class OnnxRuntimeService {
      */
     @PostConstruct
     public void init() {
+        this.buckets = parseBuckets(lengthBuckets, maxSeqLen);
         try {
             log.info("[AWX2AF2][gpu][onnx] runtimeEnabled=true backend=onnx-runtime provider={} deviceId={} modelPathConfigured={} action=init",
                     normalizeProvider(executionProvider), deviceId, modelPath != null && !modelPath.isBlank());
@@ -188,7 +235,7 @@ public class OnnxRuntimeService {
                 // session remains null but we still mark available=true so that
                 // scorePair() can compute alternative scores.
                 try {
-                    OrtSession.SessionOptions opts = new OrtSession.SessionOptions();
+                    OrtSession.SessionOptions opts = sessionOptions();
                     String ep = normalizeProvider(executionProvider);
                     try {
                         if ("cuda".equals(ep)) {
@@ -206,7 +253,7 @@ public class OnnxRuntimeService {
                     } catch (Throwable t) {
                         log.warn("[AWX2AF2][gpu][onnx] provider={} action=cpu_fallback errorHash={} errorLength={}",
                                 ep, SafeRedactor.hashValue(messageOf(t)), messageLength(t));
-                        this.session = env.createSession(bytes, new OrtSession.SessionOptions());
+                        this.session = env.createSession(bytes, sessionOptions());
                     }
                 } catch (Throwable t) {
                     log.debug("[ONNX] fail-soft stage={}", "session.create");
@@ -238,6 +285,58 @@ public class OnnxRuntimeService {
         }
     }
 
+    /**
+     * Session options shared by the primary and CPU-fallback sessions.  Invalid values are
+     * ignored (runtime defaults apply) rather than failing initialisation.
+     */
+    OrtSession.SessionOptions sessionOptions() throws Exception {
+        OrtSession.SessionOptions opts = new OrtSession.SessionOptions();
+        try {
+            if (intraOpThreads > 0) {
+                opts.setIntraOpNumThreads(intraOpThreads);
+            }
+            if (interOpThreads > 0) {
+                opts.setInterOpNumThreads(interOpThreads);
+            }
+            opts.setOptimizationLevel(optLevel(graphOptimization));
+            opts.setMemoryPatternOptimization(memoryPattern);
+        } catch (Exception e) {
+            log.debug("[ONNX] fail-soft stage={}", "session.options");
+            TraceStore.put("rerank.onnx.sessionOptionsIgnored", true);
+        }
+        return opts;
+    }
+
+    static OrtSession.SessionOptions.OptLevel optLevel(String level) {
+        String v = level == null ? "" : level.trim().toLowerCase();
+        return switch (v) {
+            case "none", "no", "disabled" -> OrtSession.SessionOptions.OptLevel.NO_OPT;
+            case "basic" -> OrtSession.SessionOptions.OptLevel.BASIC_OPT;
+            case "extended" -> OrtSession.SessionOptions.OptLevel.EXTENDED_OPT;
+            default -> OrtSession.SessionOptions.OptLevel.ALL_OPT;
+        };
+    }
+
+    /** Parse the bucket list, drop values above {@code maxSeq}, and always end at {@code maxSeq}. */
+    static int[] parseBuckets(String csv, int maxSeq) {
+        int cap = Math.max(1, maxSeq);
+        java.util.TreeSet<Integer> out = new java.util.TreeSet<>();
+        if (csv != null) {
+            for (String part : csv.split(",")) {
+                String t = part.trim();
+                if (t.isEmpty()) continue;
+                try {
+                    int b = Integer.parseInt(t);
+                    if (b > 0 && b < cap) out.add(b);
+                } catch (NumberFormatException ignore) {
+                    log.debug("[ONNX] fail-soft stage={}", "buckets.parse");
+                }
+            }
+        }
+        out.add(cap);
+        return out.stream().mapToInt(Integer::intValue).toArray();
+    }
+
     private String normalizeProvider(String provider) {
         return (provider == null || provider.isBlank()) ? "cpu" : provider.trim().toLowerCase();
     }
@@ -408,6 +507,10 @@ public class OnnxRuntimeService {
         // combination.  scorePair() already handles model invocation and
         // fallback internally, returning a double in the range [0,1].
         boolean useModel = available && session != null;
+        if (useModel && batchEnabled && tokenizer != null && (long) m * n > 1L) {
+            predictBatched(queries, documents, result);
+            return result;
+        }
         for (int i = 0; i < m; i++) {
             String q = queries[i] == null ? "" : queries[i];
             for (int j = 0; j < n; j++) {
@@ -422,6 +525,187 @@ public class OnnxRuntimeService {
         return result;
     }
 
+    /** One encoded pair waiting for packed inference. */
+    private record Row(int qi, int dj, String query, String document, Enc enc, int length) {}
+
+    /**
+     * Batched path of {@link #predict}: encode every pair, group rows by length bucket, and run
+     * one packed inference per chunk of {@link #maxBatch} rows.  Pairs that cannot be encoded,
+     * and chunks whose inference fails, fall back to {@link #scorePair} so fail-soft behaviour
+     * matches the per-pair path.
+     */
+    private void predictBatched(String[] queries, String[] documents, float[][] result) {
+        TreeMap<Integer, List<Row>> byBucket = new TreeMap<>();
+        for (int i = 0; i < queries.length; i++) {
+            String q = cut(queries[i] == null ? "" : queries[i]);
+            for (int j = 0; j < documents.length; j++) {
+                String d = cut(documents[j] == null ? "" : documents[j]);
+                Enc enc = encodePair(q, d, maxSeqLen);
+                if (enc.inputIds.length == 0) {
+                    result[i][j] = (float) scorePair(q, d);
+                    continue;
+                }
+                int len = 0;
+                for (int a : enc.attn) {
+                    if (a != 0) len++;
+                }
+                int bucket = bucketFor(Math.max(1, len), Math.min(maxSeqLen, enc.inputIds.length));
+                byBucket.computeIfAbsent(bucket, k -> new ArrayList<>()).add(new Row(i, j, q, d, enc, len));
+            }
+        }
+        int batchRows = Math.max(1, maxBatch);
+        int runs = 0;
+        for (Map.Entry<Integer, List<Row>> e : byBucket.entrySet()) {
+            List<Row> rows = e.getValue();
+            for (int from = 0; from < rows.size(); from += batchRows) {
+                List<Row> chunk = rows.subList(from, Math.min(rows.size(), from + batchRows));
+                float[] scores = runPacked(chunk, e.getKey());
+                runs++;
+                for (int r = 0; r < chunk.size(); r++) {
+                    Row row = chunk.get(r);
+                    result[row.qi][row.dj] = scores != null
+                            ? scores[r]
+                            : (float) scorePair(row.query, row.document);
+                }
+            }
+        }
+        TraceStore.put("rerank.onnx.batch.runs", runs);
+        TraceStore.put("rerank.onnx.batch.pairs", queries.length * documents.length);
+        TraceStore.put("rerank.onnx.batch.buckets", byBucket.keySet().toString());
+    }
+
+    private int bucketFor(int length, int available) {
+        for (int b : buckets) {
+            if (b >= length) return Math.min(b, available);
+        }
+        return available;
+    }
+
+    /** Run one packed {@code [rows, width]} inference; returns per-row scores or {@code null} on failure. */
+    private float[] runPacked(List<Row> rows, int width) {
+        int b = rows.size();
+        PackedInputs packed = PACKED.get();
+        packed.ensure(b * width);
+        LongBuffer ids = packed.ids;
+        LongBuffer attn = packed.attn;
+        LongBuffer types = packed.types;
+        ids.clear();
+        attn.clear();
+        types.clear();
+        for (Row row : rows) {
+            Enc enc = row.enc;
+            for (int k = 0; k < width; k++) {
+                // Encodings are already padded to maxSeqLen with [PAD]/0/0.
+                ids.put(enc.inputIds[k]);
+                attn.put(enc.attn[k]);
+                types.put(enc.tokenTypes[k]);
+            }
+        }
+        ids.flip();
+        attn.flip();
+        types.flip();
+        long[] shape = {b, width};
+
+        OnnxTensor t0 = null;
+        OnnxTensor t1 = null;
+        OnnxTensor t2 = null;
+        try {
+            java.util.Set<String> names = session.getInputInfo().keySet();
+            String idName = pick(names, "input_ids");
+            Map<String, OnnxTensor> in = new java.util.HashMap<>();
+            t0 = OnnxTensor.createTensor(env, ids, shape);
+            in.put(idName, t0);
+            if (names.contains("attention_mask")) {
+                t1 = OnnxTensor.createTensor(env, attn, shape);
+                in.put("attention_mask", t1);
+            }
+            if (names.contains("token_type_ids")) {
+                t2 = OnnxTensor.createTensor(env, types, shape);
+                in.put("token_type_ids", t2);
+            }
+            try (OrtSession.Result out = session.run(in)) {
+                for (String k : session.getOutputInfo().keySet()) {
+                    OnnxValue v = out.get(k).orElse(null);
+                    if (v instanceof OnnxTensor t) {
+                        float[] scores = firstColumn(t, b);
+                        if (scores != null) {
+                            for (int r = 0; r < scores.length; r++) {
+                                scores[r] = squash(scores[r]);
+                            }
+                            return scores;
+                        }
+                    }
+                }
+            }
+            return null;
+        } catch (Throwable t) {
+            log.debug("[ONNX] fail-soft stage={}", "score.batchInference");
+            TraceStore.inc("rerank.onnx.batch.failed");
+            TraceStore.put("rerank.onnx.batch.failureClass", SafeRedactor.traceLabelOrFallback(
+                    t == null ? "" : t.getClass().getSimpleName(), "unknown"));
+            return null;
+        } finally {
+            closeTensorQuietly(t2, "token_type_ids");
+            closeTensorQuietly(t1, "attention_mask");
+            closeTensorQuietly(t0, "input_ids");
+        }
+    }
+
+    /** Column 0 of a {@code [B, k]} or {@code [B]} float output; {@code null} when the shape does not match. */
+    private static float[] firstColumn(OnnxTensor t, int rows) throws Exception {
+        Object v = t.getValue();
+        if (v instanceof float[] flat && flat.length == rows) {
+            return flat.clone();
+        }
+        if (v instanceof float[][] arr && arr.length == rows) {
+            float[] out = new float[rows];
+            for (int r = 0; r < rows; r++) {
+                if (arr[r] == null || arr[r].length == 0) return null;
+                out[r] = arr[r][0];
+            }
+            return out;
+        }
+        return null;
+    }
+
+    /** Apply the configured logit normalisation (shared by the per-pair and batched paths). */
+    private float squash(float raw) {
+        if (!normalize) {
+            return raw;
+        }
+        double x = Math.max(-50.0, Math.min(50.0, raw));
+        return (float) (1.0 / (1.0 + Math.exp(-x)));
+    }
+
+    private String cut(String text) {
+        return text.length() > maxChars ? text.substring(0, maxChars) : text;
+    }
+
+    /**
+     * Reusable native-order direct buffers for the three model inputs.  Direct buffers let
+     * {@link OnnxTensor#createTensor(OrtEnvironment, LongBuffer, long[])} wrap the memory
+     * without an extra copy; tensors are closed before the buffers are refilled.
+     */
+    private static final class PackedInputs {
+        LongBuffer ids = allocate(0);
+        LongBuffer attn = allocate(0);
+        LongBuffer types = allocate(0);
+
+        void ensure(int capacity) {
+            if (ids.capacity() >= capacity) return;
+            int n = Math.max(capacity, ids.capacity() * 2);
+            ids = allocate(n);
+            attn = allocate(n);
+            types = allocate(n);
+        }
+
+        private static LongBuffer allocate(int longs) {
+            return ByteBuffer.allocateDirect(Math.max(1, longs) * Long.BYTES)
+                    .order(ByteOrder.nativeOrder())
+                    .asLongBuffer();
+        }
+    }
+
     /**
      * Compute a simple Jaccard similarity between two strings. The strings are
      * tokenised on non-word characters and converted to lower case. The
@@ -556,17 +840,9 @@ public class OnnxRuntimeService {
                             if (v instanceof OnnxTensor t) {
                                 float[] flat = flatten(t);
                                     if (flat.length > 0) {
-                                    float raw = flat[0];
-                                    if (normalize) {
-                                        // Apply sigmoid normalisation to map raw logits into [0,1].  In
-                                        // many cross-encoder architectures the output is an unbounded
-                                        // activation which benefits from a logistic transform.  Guard
-                                        // against overflow by clamping extremely large magnitudes.
-                                        double x = Math.max(-50.0, Math.min(50.0, raw));
-                                        double sigmoid = 1.0 / (1.0 + Math.exp(-x));
-                                        return (float) sigmoid;
-                                    }
-                                    return raw;
+                                    // Sigmoid-normalise unbounded cross-encoder logits into [0,1]
+                                    // when enabled (clamped against overflow).
+                                    return squash(flat[0]);
                                 }
                             }
                         }
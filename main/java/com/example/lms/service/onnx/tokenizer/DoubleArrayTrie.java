@@ -0,0 +1,217 @@
+package com.example.lms.service.onnx.tokenizer;
+
+import java.util.Arrays;
+
+/**
+ * Immutable double-array trie over {@code char} keys mapping each key to an {@code int} value.
+ *
+ * <p>Chars are first mapped to a dense alphabet code ({@code 0} = not in any key), so the
+ * arrays stay proportional to the vocabulary rather than to the 16-bit char range. A transition
+ * from state {@code s} on code {@code c} goes to {@code t = base[s] + c} and is valid when
+ * {@code check[t] == s}. Lookups walk the caller's {@link CharSequence} in place and allocate
+ * nothing.
+ */
+final class DoubleArrayTrie {
+
+    static final long NO_MATCH = -1L;
+
+    private final char[] codes;
+    private final int[] base;
+    private final int[] check;
+    private final int[] value;
+
+    private DoubleArrayTrie(char[] codes, int[] base, int[] check, int[] value) {
+        this.codes = codes;
+        this.base = base;
+        this.check = check;
+        this.value = value;
+    }
+
+    /**
+     * Build from keys sorted in natural {@link String} order (no duplicates, no empty keys) and
+     * their parallel values.
+     */
+    static DoubleArrayTrie build(String[] sortedKeys, int[] values) {
+        // Frequent chars get small codes, which keeps sibling codes close together and the
+        // arrays dense.
+        int[] freq = new int[Character.MAX_VALUE + 1];
+        int alphabet = 0;
+        for (String k : sortedKeys) {
+            for (int i = 0; i < k.length(); i++) {
+                if (freq[k.charAt(i)]++ == 0) {
+                    alphabet++;
+                }
+            }
+        }
+        Integer[] order = new Integer[alphabet];
+        for (int c = 0, n = 0; c < freq.length; c++) {
+            if (freq[c] > 0) {
+                order[n++] = c;
+            }
+        }
+        Arrays.sort(order, (x, y) -> Integer.compare(freq[y], freq[x]));
+        char[] codes = new char[Character.MAX_VALUE + 1];
+        for (int i = 0; i < alphabet; i++) {
+            codes[order[i]] = (char) (i + 1);
+        }
+        Builder b = new Builder(codes, sortedKeys, values, Math.max(64, sortedKeys.length * 2 + alphabet + 2));
+        b.insert(0, 0, sortedKeys.length, 0);
+        int size = b.maxUsed + 1;
+        return new DoubleArrayTrie(codes,
+                Arrays.copyOf(b.base, size),
+                Arrays.copyOf(b.check, size),
+                Arrays.copyOf(b.value, size));
+    }
+
+    /**
+     * Longest key that is a prefix of {@code text[from, to)}, optionally lower-casing each char
+     * as it is read.
+     *
+     * @return {@code (length << 32) | value} of the longest match, or {@link #NO_MATCH}
+     */
+    long longestMatch(CharSequence text, int from, int to, boolean lowerCase) {
+        int state = 0;
+        long best = NO_MATCH;
+        for (int i = from; i < to; i++) {
+            char ch = text.charAt(i);
+            if (lowerCase) {
+                ch = Character.toLowerCase(ch);
+            }
+            int code = codes[ch];
+            if (code == 0) {
+                break;
+            }
+            int next = base[state] + code;
+            if (next >= check.length || check[next] != state) {
+                break;
+            }
+            state = next;
+            if (value[state] >= 0) {
+                best = ((long) (i + 1 - from) << 32) | value[state];
+            }
+        }
+        return best;
+    }
+
+    /** Exact lookup; returns {@code -1} when absent. */
+    int get(CharSequence key) {
+        long m = longestMatch(key, 0, key.length(), false);
+        return (m != NO_MATCH && (int) (m >>> 32) == key.length()) ? (int) m : -1;
+    }
+
+    int size() {
+        return base.length;
+    }
+
+    private static final class Builder {
+        private final char[] codes;
+        private final String[] keys;
+        private final int[] values;
+        int[] base;
+        int[] check;
+        int[] value;
+        int maxUsed;
+        /** Lowest index that might still be free; first-fit search starts here. */
+        private int nextFree = 1;
+
+        Builder(char[] codes, String[] keys, int[] values, int capacity) {
+            this.codes = codes;
+            this.keys = keys;
+            this.values = values;
+            this.base = new int[capacity];
+            this.check = new int[capacity];
+            this.value = new int[capacity];
+            Arrays.fill(check, -1);
+            Arrays.fill(value, -1);
+            check[0] = 0;
+        }
+
+        /** Place the children of {@code state}, which covers {@code keys[lo, hi)} at {@code depth}. */
+        void insert(int state, int lo, int hi, int depth) {
+            // A key that ends here sorts first within its range.
+            if (lo < hi && keys[lo].length() == depth) {
+                value[state] = values[lo];
+                lo++;
+            }
+            if (lo >= hi) {
+                return;
+            }
+            int childCount = 0;
+            int[] childCodes = new int[hi - lo];
+            int[] childLo = new int[hi - lo + 1];
+            int prev = -1;
+            for (int i = lo; i < hi; i++) {
+                int c = codes[keys[i].charAt(depth)];
+                if (c != prev) {
+                    childCodes[childCount] = c;
+                    childLo[childCount] = i;
+                    childCount++;
+                    prev = c;
+                }
+            }
+            childLo[childCount] = hi;
+
+            int b = findBase(childCodes, childCount);
+            base[state] = b;
+            for (int k = 0; k < childCount; k++) {
+                int t = b + childCodes[k];
+                check[t] = state;
+                maxUsed = Math.max(maxUsed, t);
+            }
+            for (int k = 0; k < childCount; k++) {
+                insert(b + childCodes[k], childLo[k], childLo[k + 1], depth + 1);
+            }
+        }
+
+        private int findBase(int[] childCodes, int n) {
+            while (nextFree < check.length && check[nextFree] != -1) {
+                nextFree++;
+            }
+            // Codes are not sorted by value (keys are sorted by char), so find the smallest code
+            // to anchor the first-fit scan.
+            int minCode = Integer.MAX_VALUE;
+            for (int k = 0; k < n; k++) {
+                minCode = Math.min(minCode, childCodes[k]);
+            }
+            int pos = Math.max(nextFree, minCode + 1);
+            int scanned = 0;
+            int occupied = 0;
+            outer:
+            while (true) {
+                int b = pos - minCode;
+                for (int k = 0; k < n; k++) {
+                    int t = b + childCodes[k];
+                    ensure(t + 1);
+                    if (check[t] != -1) {
+                        pos++;
+                        scanned++;
+                        while (pos < check.length && check[pos] != -1) {
+                            pos++;
+                            scanned++;
+                            occupied++;
+                        }
+                        continue outer;
+                    }
+                }
+                // Holes left behind a nearly full region are rarely usable; stop rescanning them.
+                if (scanned > 0 && occupied >= scanned * 0.95) {
+                    nextFree = pos;
+                }
+                return b;
+            }
+        }
+
+        private void ensure(int size) {
+            if (size <= check.length) {
+                return;
+            }
+            int n = Math.max(size, check.length + (check.length >> 1));
+            int old = check.length;
+            base = Arrays.copyOf(base, n);
+            check = Arrays.copyOf(check, n);
+            value = Arrays.copyOf(value, n);
+            Arrays.fill(check, old, n, -1);
+            Arrays.fill(value, old, n, -1);
+        }
+    }
+}
@@ -13,6 +13,12 @@ import java.util.*;
  * it tokenises text into wordpieces, prepends [CLS], inserts [SEP] between
  * sequences and pads/truncates to the specified maximum sequence length.
  *
+ * <p>Greedy longest-match runs over two {@link DoubleArrayTrie}s built once from the vocab:
+ * one for word-initial pieces and one for {@code ##} continuations (keyed without the prefix).
+ * Text is lower-cased and split while walking its chars in place, and ids are written straight
+ * into caller-supplied arrays via {@link #encodePairInto}, so encoding allocates nothing beyond
+ * the output arrays of {@link #encodePair}.</p>
+ *
  * <p>If the vocab cannot be loaded, {@link #encodePair(String, String, int)}
  * will return empty arrays, signalling the caller to fall back to a lexical
  * scorer.</p>
@@ -24,8 +30,15 @@ public class WordpieceTokenizer implements CrossEncoderTokenizer {
     private static final String SEP = "[SEP]";
     private static final String PAD = "[PAD]";
     private static final String UNK = "[UNK]";
+    private static final String CONTINUATION = "##";
 
-    private final Map<String, Integer> vocab = new HashMap<>();
+    private final DoubleArrayTrie roots;
+    private final DoubleArrayTrie continuations;
+    private final boolean empty;
+    private final int clsId;
+    private final int sepId;
+    private final int padId;
+    private final int unkId;
 
     /**
      * Construct a tokenizer given an input stream for the vocab. Each line
@@ -33,122 +46,172 @@ public class WordpieceTokenizer implements CrossEncoderTokenizer {
      * to read, the vocab will be empty and encoding will yield empty arrays.
      */
     public WordpieceTokenizer(InputStream vocabStream) {
-        if (vocabStream == null) return;
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(vocabStream, StandardCharsets.UTF_8))) {
-            String line; int idx = 0;
-            while ((line = br.readLine()) != null) {
-                String token = line.trim();
-                if (!token.isEmpty()) {
-                    vocab.put(token, idx++);
+        // Later duplicates win, matching a plain map load of the vocab file.
+        Map<String, Integer> vocab = new HashMap<>();
+        if (vocabStream != null) {
+            try (BufferedReader br = new BufferedReader(new InputStreamReader(vocabStream, StandardCharsets.UTF_8))) {
+                String line; int idx = 0;
+                while ((line = br.readLine()) != null) {
+                    String token = line.trim();
+                    if (!token.isEmpty()) {
+                        vocab.put(token, idx++);
+                    }
                 }
+            } catch (Exception ignore) {
+                LOG.log(System.Logger.Level.DEBUG, "[WordpieceTokenizer] fail-soft stage={0}", "loadVocab");
+            }
+        }
+        this.empty = vocab.isEmpty();
+        this.unkId = vocab.getOrDefault(UNK, 0);
+        this.clsId = vocab.getOrDefault(CLS, unkId);
+        this.sepId = vocab.getOrDefault(SEP, unkId);
+        this.padId = vocab.getOrDefault(PAD, unkId);
+
+        TreeMap<String, Integer> rootKeys = new TreeMap<>(vocab);
+        TreeMap<String, Integer> contKeys = new TreeMap<>();
+        for (Map.Entry<String, Integer> e : rootKeys.entrySet()) {
+            String k = e.getKey();
+            if (k.length() > CONTINUATION.length() && k.startsWith(CONTINUATION)) {
+                contKeys.put(k.substring(CONTINUATION.length()), e.getValue());
             }
-        } catch (Exception ignore) {
-            LOG.log(System.Logger.Level.DEBUG, "[WordpieceTokenizer] fail-soft stage={0}", "loadVocab");
         }
+        this.roots = trie(rootKeys);
+        this.continuations = trie(contKeys);
+    }
+
+    private static DoubleArrayTrie trie(TreeMap<String, Integer> sorted) {
+        String[] keys = sorted.keySet().toArray(new String[0]);
+        int[] values = new int[keys.length];
+        int i = 0;
+        for (int v : sorted.values()) {
+            values[i++] = v;
+        }
+        return DoubleArrayTrie.build(keys, values);
     }
 
     @Override
     public Encoded encodePair(String q, String d, int maxSeqLen) {
         // If vocab is empty, return empty arrays to signal fallback
-        if (vocab.isEmpty()) {
+        if (empty) {
             return new Encoded(new int[0], new int[0], new int[0]);
         }
-        // Basic whitespace tokenisation and lowercasing
-        List<Integer> ids = new ArrayList<>();
-        List<Integer> types = new ArrayList<>();
-        // [CLS]
-        ids.add(id(CLS));
-        types.add(0);
-        // Query tokens
-        for (String token : basicTokens(q)) {
-            for (String wp : wordpiece(token)) {
-                ids.add(id(wp));
-                types.add(0);
-            }
-        }
-        // [SEP]
-        ids.add(id(SEP));
-        types.add(0);
-        // Document tokens
-        for (String token : basicTokens(d)) {
-            for (String wp : wordpiece(token)) {
-                ids.add(id(wp));
-                types.add(1);
-            }
-        }
-        // Final [SEP]
-        ids.add(id(SEP));
-        types.add(1);
-        // Truncate or pad
-        int size = Math.min(ids.size(), maxSeqLen);
         int[] inputIds = new int[maxSeqLen];
         int[] attn = new int[maxSeqLen];
         int[] tt = new int[maxSeqLen];
-        for (int i = 0; i < maxSeqLen; i++) {
-            if (i < size) {
-                inputIds[i] = ids.get(i);
-                attn[i] = 1;
-                tt[i] = types.get(i);
-            } else {
-                inputIds[i] = id(PAD);
-                attn[i] = 0;
-                tt[i] = 0;
-            }
-        }
+        encodePairInto(q, d, maxSeqLen, inputIds, attn, tt);
         return new Encoded(inputIds, attn, tt);
     }
 
     /**
-     * Map a token to its ID. Returns the ID of [UNK] if not present.
+     * Encode {@code [CLS] q [SEP] d [SEP]} into the given arrays, truncating at
+     * {@code maxSeqLen} and padding the remainder with {@code [PAD]}/0/0.
+     *
+     * @return number of real (unpadded) tokens written; {@code 0} when the vocab is empty
      */
-    private int id(String tok) {
-        return vocab.getOrDefault(tok, vocab.getOrDefault(UNK, 0));
+    public int encodePairInto(String q, String d, int maxSeqLen,
+                              int[] inputIds, int[] attentionMask, int[] tokenTypeIds) {
+        if (empty) {
+            return 0;
+        }
+        int n = 0;
+        if (n < maxSeqLen) inputIds[n++] = clsId;
+        n = encodeInto(q, inputIds, n, maxSeqLen);
+        if (n < maxSeqLen) inputIds[n++] = sepId;
+        int secondStart = n;
+        n = encodeInto(d, inputIds, n, maxSeqLen);
+        if (n < maxSeqLen) inputIds[n++] = sepId;
+        for (int i = 0; i < maxSeqLen; i++) {
+            if (i < n) {
+                attentionMask[i] = 1;
+                tokenTypeIds[i] = i < secondStart ? 0 : 1;
+            } else {
+                inputIds[i] = padId;
+                attentionMask[i] = 0;
+                tokenTypeIds[i] = 0;
+            }
+        }
+        return n;
     }
 
     /**
-     * Basic whitespace tokenisation and punctuation removal.
+     * Append the wordpiece ids of {@code text} to {@code out} starting at {@code pos}, stopping
+     * once {@code limit} is reached.
+     *
+     * @return the position after the last id written
      */
-    private List<String> basicTokens(String s) {
-        if (s == null) return Collections.emptyList();
-        String cleaned = s.toLowerCase(Locale.ROOT).replaceAll("\\p{Punct}+", " ").trim();
-        if (cleaned.isEmpty()) return Collections.emptyList();
-        return Arrays.asList(cleaned.split("\\s+"));
+    public int encodeInto(String text, int[] out, int pos, int limit) {
+        if (text == null || text.isEmpty() || pos >= limit) {
+            return pos;
+        }
+        // String.toLowerCase(ROOT) differs from per-char lower-casing only for surrogates,
+        // U+0130 and the context-sensitive final sigma; lower the whole string once for those.
+        boolean perChar = !needsStringLowerCase(text);
+        String s = perChar ? text : text.toLowerCase(Locale.ROOT);
+        int len = s.length();
+
+        // Mirror "replace punctuation runs with a space, trim, split on \s+".
+        int start = 0;
+        while (start < len && isTrimmed(lower(s.charAt(start), perChar))) start++;
+        int end = len;
+        while (end > start && isTrimmed(lower(s.charAt(end - 1), perChar))) end--;
+
+        int i = start;
+        while (i < end && pos < limit) {
+            while (i < end && isSeparator(lower(s.charAt(i), perChar))) i++;
+            int wordEnd = i;
+            while (wordEnd < end && !isSeparator(lower(s.charAt(wordEnd), perChar))) wordEnd++;
+            if (wordEnd > i) {
+                pos = wordpiece(s, i, wordEnd, perChar, out, pos, limit);
+            }
+            i = wordEnd;
+        }
+        return pos;
     }
 
     /**
-     * Wordpiece tokenisation. If no subword in vocab matches, returns [UNK].
+     * Greedy longest-match of {@code s[from, to)}. If no piece matches at some offset, [UNK] is
+     * emitted after any pieces already matched and the word ends there.
      */
-    private List<String> wordpiece(String token) {
-        if (vocab.containsKey(token)) {
-            return Collections.singletonList(token);
-        }
-        List<String> result = new ArrayList<>();
-        int start = 0;
-        boolean allUnknown = true;
-        while (start < token.length()) {
-            int end = token.length();
-            String cur = null;
-            while (start < end) {
-                String sub = (start == 0 ? token.substring(start, end) : "##" + token.substring(start, end));
-                if (vocab.containsKey(sub)) {
-                    cur = sub;
-                    break;
-                }
-                end--;
-            }
-            if (cur == null) {
-                // no matching subword; treat as unknown and stop
-                result.add(UNK);
-                allUnknown = false;
+    private int wordpiece(String s, int from, int to, boolean perChar, int[] out, int pos, int limit) {
+        int at = from;
+        while (at < to && pos < limit) {
+            DoubleArrayTrie trie = (at == from) ? roots : continuations;
+            long m = trie.longestMatch(s, at, to, perChar);
+            if (m == DoubleArrayTrie.NO_MATCH) {
+                out[pos++] = unkId;
                 break;
             }
-            result.add(cur);
-            allUnknown = false;
-            start += cur.startsWith("##") ? cur.length() - 2 : cur.length();
+            out[pos++] = (int) m;
+            at += (int) (m >>> 32);
         }
-        if (result.isEmpty() || allUnknown) {
-            return Collections.singletonList(UNK);
+        return pos;
+    }
+
+    private static char lower(char c, boolean perChar) {
+        return perChar ? Character.toLowerCase(c) : c;
+    }
+
+    private static boolean needsStringLowerCase(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isSurrogate(c) || c == 'İ' || c == 'Σ') {
+                return true;
+            }
         }
-        return result;
+        return false;
+    }
+
+    /** Chars removed by {@code trim()} once punctuation has been blanked out. */
+    private static boolean isTrimmed(char c) {
+        return c <= ' ' || isAsciiPunct(c);
+    }
+
+    /** {@code \s} or {@code \p{Punct}} (US-ASCII punctuation). */
+    private static boolean isSeparator(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r' || isAsciiPunct(c);
+    }
+
+    private static boolean isAsciiPunct(char c) {
+        return (c >= '!' && c <= '/') || (c >= ':' && c <= '@') || (c >= '[' && c <= '`') || (c >= '{' && c <= '~');
     }
 }
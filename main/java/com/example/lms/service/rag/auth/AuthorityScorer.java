@@ -4,6 +4,9 @@ package com.example.lms.service.rag.auth;
 import com.example.lms.domain.enums.RerankSourceCredibility;
 import com.example.lms.search.TraceStore;
 import com.example.lms.trace.SafeRedactor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -26,6 +29,12 @@ import org.slf4j.LoggerFactory;
  * <p><b>주의:</b> KR 포털(예: naver.com/daum.net)은 하위 서브도메인에 UGC(카페/블로그/지식iN)가 섞여 있어
  * 단순 {@code endsWith("naver.com")} 같은 규칙은 오분류를 유발한다. (DEV_COMMUNITY/DOCS로 잘못 라우팅되어
  * 증거 선택이 끊기는 패턴) 따라서 UGC 서브도메인은 명시적으로 UNVERIFIED로 하향한다.</p>
+ *
+ * <p>Overrides, the weight table and the built-in domain lists are compiled once into a
+ * {@link DomainSuffixTrie} keyed by reversed labels, each entry tagged with its precedence stage;
+ * classifying a host is one walk over its labels plus a few substring patterns that are not
+ * label-aligned. Results are memoized per normalized host in a bounded cache
+ * ({@code search.authority.host-cache.max-size}).</p>
  */
 @Component("authAuthorityScorer")
 public class AuthorityScorer {
@@ -40,6 +49,12 @@ public class AuthorityScorer {
     private final Set<String> overrideCommunity;
     private final Set<String> overrideUnverified;
 
+    /** Overrides, weight table and built-in lists compiled into one reversed-label trie. */
+    private final DomainSuffixTrie<Rule[]> rules;
+
+    /** normalized host → tier; search results repeat the same handful of hosts constantly. */
+    private final Cache<String, RerankSourceCredibility> hostTiers;
+
     // Tier weights (decay multipliers)
     private final double tierOfficial;
     private final double tierGuide;
@@ -48,6 +63,29 @@ public class AuthorityScorer {
     private final double tierCommunity;
     private final double tierUnverified;
 
+    public AuthorityScorer(
+            String legacyCsv,
+            String officialCsv,
+            String wikiCsv,
+            String communityCsv,
+            String blogCsv,
+            String overrideOfficialCsv,
+            String overrideTrustedCsv,
+            String overrideCommunityCsv,
+            String overrideUnverifiedCsv,
+            double wOfficial,
+            double wGuide,
+            double wWiki,
+            double wNews,
+            double wCommunity,
+            double wUnverified
+    ) {
+        this(legacyCsv, officialCsv, wikiCsv, communityCsv, blogCsv,
+                overrideOfficialCsv, overrideTrustedCsv, overrideCommunityCsv, overrideUnverifiedCsv,
+                wOfficial, wGuide, wWiki, wNews, wCommunity, wUnverified, DEFAULT_HOST_CACHE_SIZE);
+    }
+
+    @Autowired
     public AuthorityScorer(
             @Value("${search.authority.weights:}") String legacyCsv,
             @Value("${search.authority.weights.official:}") String officialCsv,
@@ -63,7 +101,8 @@ public class AuthorityScorer {
             @Value("${authority.tier-weights.wiki:0.80}")    double wWiki,
             @Value("${authority.tier-weights.news:0.70}")    double wNews,
             @Value("${authority.tier-weights.community:0.55}") double wCommunity,
-            @Value("${authority.tier-weights.unverified:0.25}") double wUnverified
+            @Value("${authority.tier-weights.unverified:0.25}") double wUnverified,
+            @Value("${search.authority.host-cache.max-size:" + DEFAULT_HOST_CACHE_SIZE + "}") long hostCacheSize
     ) {
         LinkedHashMap<String, Double> merged = new LinkedHashMap<>();
         merged.putAll(parse(officialCsv));
@@ -83,6 +122,11 @@ public class AuthorityScorer {
         this.overrideCommunity = Collections.unmodifiableSet(parseDomainList(overrideCommunityCsv));
         this.overrideUnverified = Collections.unmodifiableSet(parseDomainList(overrideUnverifiedCsv));
 
+        this.rules = compileRules(table, overrideUnverified, overrideOfficial, overrideTrusted, overrideCommunity);
+        this.hostTiers = Caffeine.newBuilder()
+                .maximumSize(Math.max(0L, hostCacheSize))
+                .build();
+
         this.tierOfficial  = clamp(wOfficial);
         this.tierGuide     = clamp(wGuide);
         this.tierWiki      = clamp(wWiki);
@@ -122,129 +166,14 @@ public class AuthorityScorer {
         if (h == null || h.isBlank()) {
             return RerankSourceCredibility.UNVERIFIED;
         }
+        return hostTiers.get(h, this::classifyHost);
+    }
 
-        // 0) hard overrides (allow/deny) before table/heuristics
-        RerankSourceCredibility o = overrideCredibility(h);
-        if (o != null) {
-            return o;
-        }
-
-        // 1) 설정 테이블 매칭 → 수치 → 등급
-        Double configured = bestMatchingWeight(h, table);
-        if (configured != null) {
-            return mapWeightToCredibility(configured);
-        }
-
-        // 2) 내장 휴리스틱
-
-        // 정부/교육
-        if (isGovOrEdu(h)) {
-            return RerankSourceCredibility.OFFICIAL;
-        }
-
-        // Vendor-hosted community forums should not be treated as "OFFICIAL docs".
-        // (They are still high-signal, but user-generated.)
-        if (h.equals("community.openai.com")) {
-            return RerankSourceCredibility.COMMUNITY;
-        }
-
-        // KR portals: avoid over-promoting UGC subdomains.
-        RerankSourceCredibility portalCred = portalCredibilityOverride(h);
-        if (portalCred != null) {
-            return portalCred;
-        }
-
-        // KR finance disclosure & regulator sites (high authority, should be OFFICIAL).
-        if (h.equals("dart.fss.or.kr")
-                || h.equals("opendart.fss.or.kr")
-                || h.equals("fss.or.kr")
-                || h.endsWith(".fss.or.kr")
-                || h.equals("kind.krx.co.kr")
-                || h.equals("krx.co.kr")
-                || h.endsWith(".krx.co.kr")
-                || h.equals("fs.moef.go.kr")
-                || h.equals("www.fsc.go.kr")
-                || h.endsWith(".fsc.go.kr")) {
-            return RerankSourceCredibility.OFFICIAL;
-        }
-
-        // KR company profile directories (useful for entity/company lookups)
-        if (h.equals("rocketpunch.com") || h.endsWith(".rocketpunch.com")
-                || h.equals("jobplanet.co.kr") || h.endsWith(".jobplanet.co.kr")
-                || h.equals("jobkorea.co.kr") || h.endsWith(".jobkorea.co.kr")
-                || h.equals("incruit.com") || h.endsWith(".incruit.com")
-                || h.equals("saramin.co.kr") || h.endsWith(".saramin.co.kr")
-                || h.equals("wanted.co.kr") || h.endsWith(".wanted.co.kr")
-                || h.equals("jumpit.co.kr") || h.endsWith(".jumpit.co.kr")
-                || h.equals("catch.co.kr") || h.endsWith(".catch.co.kr")
-                || h.equals("thevc.kr") || h.endsWith(".thevc.kr")
-                || h.equals("bizno.net") || h.endsWith(".bizno.net")) {
-            return RerankSourceCredibility.TRUSTED;
-        }
-
-
-
-        // Major platform domains (often used as primary sources for profile/channel pages).
-        // These are not "OFFICIAL docs", but are typically higher signal than random blogs.
-        if (h.equals("twitch.tv") || h.endsWith(".twitch.tv")
-                || h.equals("watcha.com") || h.endsWith(".watcha.com")) {
-            return RerankSourceCredibility.TRUSTED;
-        }
-
-        boolean isGoogleFamily =
-                h.equals("google.dev") || h.endsWith(".google.dev")
-                        || h.equals("google.com") || h.endsWith(".google.com")
-                        || h.equals("googleapis.com") || h.endsWith(".googleapis.com");
-
-        boolean isMajorVendor =
-                isGoogleFamily
-                        || h.equals("openai.com") || h.endsWith(".openai.com")
-                        || h.equals("microsoft.com") || h.endsWith(".microsoft.com")
-                        || h.equals("apple.com") || h.endsWith(".apple.com")
-                        || h.equals("oracle.com") || h.endsWith(".oracle.com")
-                        || h.equals("spring.io") || h.endsWith(".spring.io")
-                        || h.equals("anthropic.com") || h.endsWith(".anthropic.com");
-
-        // Generic blog platforms / UGC hosts (exclude major vendor families)
-        if (isBlogOrUgcHost(h) && !isMajorVendor) {
-            return RerankSourceCredibility.UNVERIFIED;
-        }
-
-        // OFFICIAL: vendor/government/education/documentation
-        if (isMajorVendor
-                || h.equals("apache.org") || h.endsWith(".apache.org")
-                || h.startsWith("developer.") || h.contains(".docs.") || h.startsWith("docs.")
-        ) {
-            return RerankSourceCredibility.OFFICIAL;
-        }
-
-        // TRUSTED: major media / encyclopedias (general)
-        if (h.equals("reuters.com") || h.endsWith(".reuters.com")
-                || h.equals("bbc.com") || h.endsWith(".bbc.com")
-                || h.equals("bloomberg.com") || h.endsWith(".bloomberg.com")
-                || h.equals("nytimes.com") || h.endsWith(".nytimes.com")
-                || h.equals("wsj.com") || h.endsWith(".wsj.com")
-                || h.equals("britannica.com") || h.endsWith(".britannica.com")
-                || h.equals("wikipedia.org") || h.endsWith(".wikipedia.org")
-        ) {
-            return RerankSourceCredibility.TRUSTED;
-        }
-
-        // COMMUNITY: dev Q&A / issue trackers / community platforms
-        if (h.equals("github.com") || h.endsWith(".github.com")
-                || h.equals("gitlab.com") || h.endsWith(".gitlab.com")
-                || h.equals("bitbucket.org") || h.endsWith(".bitbucket.org")
-                || h.equals("stackoverflow.com") || h.endsWith(".stackoverflow.com")
-                || h.equals("stackexchange.com") || h.endsWith(".stackexchange.com")
-                || h.equals("reddit.com") || h.endsWith(".reddit.com")
-                || h.equals("medium.com") || h.endsWith(".medium.com")
-                || h.equals("hashnode.com") || h.endsWith(".hashnode.com")
-                || h.equals("dev.to") || h.endsWith(".dev.to")
-        ) {
-            return RerankSourceCredibility.COMMUNITY;
-        }
-
-        return RerankSourceCredibility.UNVERIFIED;
+    /** Classify an already-normalized host against the compiled rules (uncached). */
+    RerankSourceCredibility classifyHost(String h) {
+        Classification c = new Classification(h);
+        rules.walk(h, c);
+        return c.result();
     }
 
     /** 등급별 지수 감쇠 상수(OFFICIAL=1.0 ... UNVERIFIED=0.25). */
@@ -265,33 +194,224 @@ public class AuthorityScorer {
     }
 
     // ─────────────────────────────────────────────────────────────────────────
-    // Helpers
+    // Compiled rules
     // ─────────────────────────────────────────────────────────────────────────
 
-    private RerankSourceCredibility overrideCredibility(String normalizedHost) {
-        if (normalizedHost == null || normalizedHost.isBlank()) return null;
-        String h = normalizedHost;
-        // Allow "deny" to win
-        if (matchesAny(h, overrideUnverified)) return RerankSourceCredibility.UNVERIFIED;
-        if (matchesAny(h, overrideOfficial)) return RerankSourceCredibility.OFFICIAL;
-        if (matchesAny(h, overrideTrusted)) return RerankSourceCredibility.TRUSTED;
-        if (matchesAny(h, overrideCommunity)) return RerankSourceCredibility.COMMUNITY;
-        return null;
+    static final long DEFAULT_HOST_CACHE_SIZE = 20_000L;
+
+    // Classification stages in precedence order: the lowest matching stage decides the tier.
+    private static final int STAGE_OVERRIDE_UNVERIFIED = 0;
+    private static final int STAGE_OVERRIDE_OFFICIAL = 1;
+    private static final int STAGE_OVERRIDE_TRUSTED = 2;
+    private static final int STAGE_OVERRIDE_COMMUNITY = 3;
+    private static final int STAGE_TABLE = 4;
+    private static final int STAGE_GOV_EDU = 5;
+    private static final int STAGE_VENDOR_COMMUNITY = 6;
+    private static final int STAGE_PORTAL = 7;
+    private static final int STAGE_FINANCE = 8;
+    private static final int STAGE_COMPANY_DIRECTORY = 9;
+    private static final int STAGE_PLATFORM = 10;
+    private static final int STAGE_BLOG_UGC = 11;
+    private static final int STAGE_OFFICIAL_DOCS = 12;
+    private static final int STAGE_MEDIA = 13;
+    private static final int STAGE_DEV_COMMUNITY = 14;
+    private static final int STAGE_NONE = Integer.MAX_VALUE;
+
+    /** 정부/교육: strict subdomains only ({@code endsWith(".go.kr")}). */
+    private static final String[] GOV_EDU = {"go.kr", "ac.kr", "gov", "edu"};
+
+    /** KR finance disclosure & regulator sites (high authority, should be OFFICIAL). */
+    private static final String[] FINANCE = {"fss.or.kr", "krx.co.kr"};
+
+    /** KR company profile directories (useful for entity/company lookups). */
+    private static final String[] COMPANY_DIRECTORIES = {
+            "rocketpunch.com", "jobplanet.co.kr", "jobkorea.co.kr", "incruit.com", "saramin.co.kr",
+            "wanted.co.kr", "jumpit.co.kr", "catch.co.kr", "thevc.kr", "bizno.net"
+    };
+
+    /**
+     * Major platform domains (often used as primary sources for profile/channel pages).
+     * These are not "OFFICIAL docs", but are typically higher signal than random blogs.
+     */
+    private static final String[] PLATFORMS = {"twitch.tv", "watcha.com"};
+
+    /** Vendor families: OFFICIAL, and never demoted by the blog/UGC patterns. */
+    private static final String[] MAJOR_VENDORS = {
+            "google.dev", "google.com", "googleapis.com",
+            "openai.com", "microsoft.com", "apple.com", "oracle.com", "spring.io", "anthropic.com"
+    };
+
+    /** TRUSTED: major media / encyclopedias (general). */
+    private static final String[] MEDIA = {
+            "reuters.com", "bbc.com", "bloomberg.com", "nytimes.com", "wsj.com", "britannica.com", "wikipedia.org"
+    };
+
+    /** COMMUNITY: dev Q&A / issue trackers / community platforms. */
+    private static final String[] DEV_COMMUNITY = {
+            "github.com", "gitlab.com", "bitbucket.org", "stackoverflow.com", "stackexchange.com",
+            "reddit.com", "medium.com", "hashnode.com", "dev.to"
+    };
+
+    private enum Scope {
+        /** {@code host.equals(s) || host.endsWith("." + s)} */
+        SUFFIX,
+        /** {@code host.equals(s)} */
+        EXACT,
+        /** {@code host.endsWith("." + s)} */
+        SUBDOMAIN;
+
+        boolean applies(boolean terminal) {
+            return this == SUFFIX || (this == EXACT) == terminal;
+        }
+    }
+
+    private record Rule(int stage, Scope scope, RerankSourceCredibility tier, boolean majorVendor) {
+    }
+
+    private static DomainSuffixTrie<Rule[]> compileRules(Map<String, Double> table,
+                                                         Set<String> overrideUnverified,
+                                                         Set<String> overrideOfficial,
+                                                         Set<String> overrideTrusted,
+                                                         Set<String> overrideCommunity) {
+        DomainSuffixTrie.Builder<Rule[]> b = DomainSuffixTrie.builder();
+
+        // 0) hard overrides (allow/deny) before table/heuristics; "deny" wins
+        addOverrides(b, overrideUnverified, STAGE_OVERRIDE_UNVERIFIED, RerankSourceCredibility.UNVERIFIED);
+        addOverrides(b, overrideOfficial, STAGE_OVERRIDE_OFFICIAL, RerankSourceCredibility.OFFICIAL);
+        addOverrides(b, overrideTrusted, STAGE_OVERRIDE_TRUSTED, RerankSourceCredibility.TRUSTED);
+        addOverrides(b, overrideCommunity, STAGE_OVERRIDE_COMMUNITY, RerankSourceCredibility.COMMUNITY);
+
+        // 1) 설정 테이블: 수치 → 등급 (여러 개 매칭되면 가장 높은 값)
+        for (Map.Entry<String, Double> e : table.entrySet()) {
+            String key = normalizeHost(e.getKey());
+            if (key == null || key.isBlank() || e.getValue() == null) continue;
+            add(b, key, STAGE_TABLE, Scope.SUFFIX, mapWeightToCredibility(e.getValue()));
+        }
+
+        // 2) 내장 휴리스틱
+        for (String s : GOV_EDU) {
+            add(b, s, STAGE_GOV_EDU, Scope.SUBDOMAIN, RerankSourceCredibility.OFFICIAL);
+        }
+
+        // Vendor-hosted community forums should not be treated as "OFFICIAL docs".
+        add(b, "community.openai.com", STAGE_VENDOR_COMMUNITY, Scope.EXACT, RerankSourceCredibility.COMMUNITY);
+
+        // KR portals: UGC subdomains (blog/cafe/kin/post) and anything not listed stay UNVERIFIED.
+        add(b, "naver.com", STAGE_PORTAL, Scope.SUFFIX, RerankSourceCredibility.UNVERIFIED);
+        add(b, "daum.net", STAGE_PORTAL, Scope.SUFFIX, RerankSourceCredibility.UNVERIFIED);
+        add(b, "developers.naver.com", STAGE_PORTAL, Scope.EXACT, RerankSourceCredibility.OFFICIAL);
+        for (String s : List.of("d2.naver.com", "news.naver.com", "chzzk.naver.com", "m.chzzk.naver.com",
+                "naver.com", "www.naver.com", "daum.net", "www.daum.net")) {
+            add(b, s, STAGE_PORTAL, Scope.EXACT, RerankSourceCredibility.TRUSTED);
+        }
+
+        for (String s : FINANCE) {
+            add(b, s, STAGE_FINANCE, Scope.SUFFIX, RerankSourceCredibility.OFFICIAL);
+        }
+        add(b, "fs.moef.go.kr", STAGE_FINANCE, Scope.EXACT, RerankSourceCredibility.OFFICIAL);
+        add(b, "www.fsc.go.kr", STAGE_FINANCE, Scope.EXACT, RerankSourceCredibility.OFFICIAL);
+        add(b, "fsc.go.kr", STAGE_FINANCE, Scope.SUBDOMAIN, RerankSourceCredibility.OFFICIAL);
+
+        for (String s : COMPANY_DIRECTORIES) {
+            add(b, s, STAGE_COMPANY_DIRECTORY, Scope.SUFFIX, RerankSourceCredibility.TRUSTED);
+        }
+        for (String s : PLATFORMS) {
+            add(b, s, STAGE_PLATFORM, Scope.SUFFIX, RerankSourceCredibility.TRUSTED);
+        }
+        for (String s : MAJOR_VENDORS) {
+            put(b, s, new Rule(STAGE_OFFICIAL_DOCS, Scope.SUFFIX, RerankSourceCredibility.OFFICIAL, true));
+        }
+        add(b, "apache.org", STAGE_OFFICIAL_DOCS, Scope.SUFFIX, RerankSourceCredibility.OFFICIAL);
+        for (String s : MEDIA) {
+            add(b, s, STAGE_MEDIA, Scope.SUFFIX, RerankSourceCredibility.TRUSTED);
+        }
+        for (String s : DEV_COMMUNITY) {
+            add(b, s, STAGE_DEV_COMMUNITY, Scope.SUFFIX, RerankSourceCredibility.COMMUNITY);
+        }
+        return b.build();
     }
 
-    private static boolean matchesAny(String host, Set<String> suffixes) {
-        if (host == null || host.isBlank() || suffixes == null || suffixes.isEmpty()) return false;
+    private static void addOverrides(DomainSuffixTrie.Builder<Rule[]> b, Set<String> suffixes,
+                                     int stage, RerankSourceCredibility tier) {
         for (String s : suffixes) {
             if (s == null || s.isBlank()) continue;
             String suf = normalizeDomainToken(s);
             if (suf == null) continue;
-            if (host.equals(suf) || host.endsWith("." + suf)) {
-                return true;
+            add(b, suf, stage, Scope.SUFFIX, tier);
+        }
+    }
+
+    private static void add(DomainSuffixTrie.Builder<Rule[]> b, String suffix, int stage, Scope scope,
+                            RerankSourceCredibility tier) {
+        put(b, suffix, new Rule(stage, scope, tier, false));
+    }
+
+    private static void put(DomainSuffixTrie.Builder<Rule[]> b, String suffix, Rule rule) {
+        b.put(suffix, new Rule[]{rule}, AuthorityScorer::mergeRules);
+    }
+
+    /** Same-suffix rules: SUFFIX scopes first so a more specific EXACT/SUBDOMAIN rule applies last. */
+    private static Rule[] mergeRules(Rule[] a, Rule[] b) {
+        Rule[] out = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, out, a.length, b.length);
+        Arrays.sort(out, Comparator.comparingInt(r -> r.scope() == Scope.SUFFIX ? 0 : 1));
+        return out;
+    }
+
+    /**
+     * One host's walk over the compiled rules. Suffixes arrive shortest first, so within a stage
+     * the longest (most specific) match wins, except the weight table where the highest tier wins.
+     * The remaining non-suffix patterns are checked afterwards, only for stages that precede the
+     * best trie match.
+     */
+    private static final class Classification implements DomainSuffixTrie.Visitor<Rule[]> {
+        private final String host;
+        private final boolean wwwHost;
+        private int stage = STAGE_NONE;
+        private RerankSourceCredibility tier = RerankSourceCredibility.UNVERIFIED;
+        private boolean majorVendor;
+
+        Classification(String host) {
+            this.host = host;
+            // The table matched against normalizeHost(host), which strips a second "www."
+            this.wwwHost = host.startsWith("www.");
+        }
+
+        @Override
+        public void visit(Rule[] rules, boolean terminal) {
+            for (Rule r : rules) {
+                if (!r.scope().applies(terminal)) continue;
+                if (r.stage() == STAGE_TABLE && terminal && wwwHost) continue;
+                if (r.majorVendor()) majorVendor = true;
+                if (r.stage() < stage
+                        || (r.stage() == stage
+                        && (r.stage() != STAGE_TABLE || r.tier().ordinal() < tier.ordinal()))) {
+                    stage = r.stage();
+                    tier = r.tier();
+                }
             }
         }
-        return false;
+
+        RerankSourceCredibility result() {
+            if (stage > STAGE_GOV_EDU && host.contains(".edu.")) {
+                return RerankSourceCredibility.OFFICIAL;
+            }
+            // Generic blog platforms / UGC hosts (exclude major vendor families)
+            if (stage > STAGE_BLOG_UGC && !majorVendor && isBlogOrUgcHost(host)) {
+                return RerankSourceCredibility.UNVERIFIED;
+            }
+            if (stage > STAGE_OFFICIAL_DOCS
+                    && (host.startsWith("developer.") || host.contains(".docs.") || host.startsWith("docs."))) {
+                return RerankSourceCredibility.OFFICIAL;
+            }
+            return stage == STAGE_NONE ? RerankSourceCredibility.UNVERIFIED : tier;
+        }
     }
 
+    // ─────────────────────────────────────────────────────────────────────────
+    // Helpers
+    // ─────────────────────────────────────────────────────────────────────────
+
     private static Set<String> parseDomainList(String csv) {
         if (csv == null || csv.isBlank()) return Set.of();
         LinkedHashSet<String> out = new LinkedHashSet<>();
@@ -353,14 +473,7 @@ public class AuthorityScorer {
                 ));
     }
 
-    private static boolean isGovOrEdu(String host) {
-        return host.endsWith(".go.kr")
-                || host.endsWith(".ac.kr")
-                || host.endsWith(".gov")
-                || host.endsWith(".edu")
-                || host.contains(".edu.");
-    }
-
+    /** Raw (not label-aligned) suffix/substring patterns, so checked on the string after the trie walk. */
     private static boolean isBlogOrUgcHost(String h) {
         if (h == null || h.isBlank()) return false;
         // common patterns
@@ -375,58 +488,6 @@ public class AuthorityScorer {
         return h.endsWith("wordpress.com") || h.endsWith("blogspot.com");
     }
 
-    /**
-     * KR portal overrides: return non-null when the host belongs to a portal family.
-     * The goal is to avoid marking UGC subdomains as TRUSTED.
-     */
-    private static RerankSourceCredibility portalCredibilityOverride(String h) {
-        if (h == null) return null;
-
-        // NAVER
-        if (h.equals("naver.com") || h.endsWith(".naver.com")) {
-            // UGC → UNVERIFIED
-            if (h.endsWith("blog.naver.com") || h.endsWith("cafe.naver.com")
-                    || h.endsWith("kin.naver.com") || h.endsWith("post.naver.com")
-                    || h.endsWith("m.blog.naver.com") || h.endsWith("m.cafe.naver.com")
-            ) {
-                return RerankSourceCredibility.UNVERIFIED;
-            }
-            // Dev/docs/engineering subdomains (high signal)
-            if (h.equals("developers.naver.com")) {
-                return RerankSourceCredibility.OFFICIAL;
-            }
-            if (h.equals("d2.naver.com")) {
-                return RerankSourceCredibility.TRUSTED;
-            }
-            if (h.equals("news.naver.com")) {
-                return RerankSourceCredibility.TRUSTED;
-            }
-            // Naver streaming platform (Chzzk) - trusted platform pages.
-            if (h.equals("chzzk.naver.com") || h.equals("m.chzzk.naver.com")) {
-                return RerankSourceCredibility.TRUSTED;
-            }
-            // root portal
-            if (h.equals("naver.com") || h.equals("www.naver.com")) {
-                return RerankSourceCredibility.TRUSTED;
-            }
-            // default: do not auto-promote arbitrary naver subdomains
-            return RerankSourceCredibility.UNVERIFIED;
-        }
-
-        // DAUM
-        if (h.equals("daum.net") || h.endsWith(".daum.net")) {
-            if (h.endsWith("blog.daum.net") || h.endsWith("cafe.daum.net")) {
-                return RerankSourceCredibility.UNVERIFIED;
-            }
-            if (h.equals("daum.net") || h.equals("www.daum.net")) {
-                return RerankSourceCredibility.TRUSTED;
-            }
-            return RerankSourceCredibility.UNVERIFIED;
-        }
-
-        return null;
-    }
-
     /** URL → host 안전 추출 */
     private static String host(String url) {
         if (url == null || url.isBlank()) return null;
@@ -464,27 +525,6 @@ public class AuthorityScorer {
         return Math.max(0.0, Math.min(1.0, value));
     }
 
-    /** 설정 테이블에서 가장 잘 매칭되는 가중치 선택(가장 높은 값 우선) */
-    private static Double bestMatchingWeight(String host, Map<String, Double> table) {
-        if (table == null || table.isEmpty()) return null;
-        if (host == null || host.isBlank()) return null;
-
-        String hNorm = normalizeHost(host);
-        Double best = null;
-        for (Map.Entry<String, Double> e : table.entrySet()) {
-            String key = e.getKey();
-            if (key == null || key.isBlank()) continue;
-            String kNorm = normalizeHost(key);
-            if (kNorm == null) continue;
-            if (hNorm.equals(kNorm) || hNorm.endsWith("." + kNorm)) {
-                if (best == null || e.getValue() > best) {
-                    best = e.getValue();
-                }
-            }
-        }
-        return best;
-    }
-
     /** 수치 가중치 → 등급 임계값 매핑 */
     private static RerankSourceCredibility mapWeightToCredibility(double w) {
         double v = clamp(w);
@@ -34,6 +34,9 @@ import org.slf4j.LoggerFactory;
  * "subdomain of suffix". We intentionally do <i>not</i> use raw {@code endsWith()}
  * because it can allow unrelated domains such as {@code notopenai.com} to match
  * {@code openai.com}.</p>
+ *
+ * <p>All profiles are compiled into one {@link DomainSuffixTrie} whose entries carry the set of
+ * profiles containing that suffix, so a profile check is a single walk over the host's labels.</p>
  */
 @Component
 public class DomainProfileLoader {
@@ -70,8 +73,11 @@ public class DomainProfileLoader {
     @Value("${domain.allowlist.profile-deny.dev-community:}")
     private String devCommunityDenyCsv;
 
-    /** profileName -> list of allowed suffixes (normalized lower-case). */
-    private final Map<String, List<String>> profiles = new LinkedHashMap<>();
+    /**
+     * Current profiles and their compiled suffix trie. {@link #load()} builds a fresh snapshot and
+     * publishes it in one write, so readers never observe a half-built profile map.
+     */
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
 
     public DomainProfileLoader(DomainWhitelist domainWhitelist) {
         this.domainWhitelist = domainWhitelist;
@@ -92,7 +98,7 @@ public class DomainProfileLoader {
      */
     @PostConstruct
     public synchronized void load() {
-        profiles.clear();
+        Map<String, List<String>> profiles = new LinkedHashMap<>();
 
         // ─────────────────────────────────────────────────────────────────────
         // 1) OFFICIAL profile
@@ -334,6 +340,8 @@ public class DomainProfileLoader {
             }
         }
 
+        this.snapshot = Snapshot.compile(profiles);
+
         if (log.isInfoEnabled()) {
             log.info("[DomainProfileLoader] loaded profiles: {}", profiles.keySet());
         }
@@ -359,11 +367,12 @@ public class DomainProfileLoader {
         String effectiveProfile = (profile == null || profile.isBlank()) ? defaultProfile : profile;
         String key = effectiveProfile.toLowerCase(Locale.ROOT).trim();
 
-        List<String> list = profiles.get(key);
-        if (list == null || list.isEmpty()) {
-            list = profiles.get("official");
+        Snapshot snap = snapshot;
+        int index = snap.indexOf(key);
+        if (index < 0) {
+            index = snap.indexOf("official");
         }
-        if (list == null || list.isEmpty()) {
+        if (index < 0) {
             return false;
         }
 
@@ -373,26 +382,20 @@ public class DomainProfileLoader {
         String lowerHost = normalizeHost(host);
         if (lowerHost == null) return false;
 
-        for (String suf : list) {
-            String s = normalizeSuffix(suf);
-            if (s == null) continue;
-            if (hostMatchesSuffix(lowerHost, s)) {
-                return true;
-            }
-        }
-        return false;
+        final int profileIndex = index;
+        return snap.suffixes.anyMatch(lowerHost, members -> members.get(profileIndex));
     }
 
     /** Returns true if the input profile exists. */
     public boolean hasProfile(String name) {
         if (name == null || name.isBlank()) return false;
-        return profiles.containsKey(name.toLowerCase(Locale.ROOT).trim());
+        return snapshot.profiles.containsKey(name.toLowerCase(Locale.ROOT).trim());
     }
 
     /** Returns a copy of entries for the given profile (empty when missing). */
     public List<String> getProfileEntries(String name) {
         if (name == null || name.isBlank()) return List.of();
-        List<String> list = profiles.get(name.toLowerCase(Locale.ROOT).trim());
+        List<String> list = snapshot.profiles.get(name.toLowerCase(Locale.ROOT).trim());
         if (list == null) return List.of();
         return new ArrayList<>(list);
     }
@@ -403,7 +406,7 @@ public class DomainProfileLoader {
      */
     public List<Map<String, Object>> listProfiles() {
         List<Map<String, Object>> out = new ArrayList<>();
-        for (Map.Entry<String, List<String>> e : profiles.entrySet()) {
+        for (Map.Entry<String, List<String>> e : snapshot.profiles.entrySet()) {
             Map<String, Object> m = new LinkedHashMap<>();
             m.put("name", e.getKey());
             m.put("size", e.getValue() != null ? e.getValue().size() : 0);
@@ -422,6 +425,49 @@ public class DomainProfileLoader {
         return adminToken == null ? "" : adminToken;
     }
 
+    /** Immutable view of the loaded profiles. */
+    private static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(Map.of(), Map.of(), DomainSuffixTrie.empty());
+
+        final Map<String, List<String>> profiles;
+        /** profile name → bit index; only non-empty profiles (empty ones fall back to "official"). */
+        final Map<String, Integer> indexes;
+        /** suffix → profiles containing it. */
+        final DomainSuffixTrie<BitSet> suffixes;
+
+        private Snapshot(Map<String, List<String>> profiles, Map<String, Integer> indexes,
+                         DomainSuffixTrie<BitSet> suffixes) {
+            this.profiles = profiles;
+            this.indexes = indexes;
+            this.suffixes = suffixes;
+        }
+
+        static Snapshot compile(Map<String, List<String>> profiles) {
+            Map<String, Integer> indexes = new HashMap<>();
+            DomainSuffixTrie.Builder<BitSet> builder = DomainSuffixTrie.builder();
+            for (Map.Entry<String, List<String>> e : profiles.entrySet()) {
+                List<String> list = e.getValue();
+                if (list == null || list.isEmpty()) continue;
+                int index = indexes.size();
+                indexes.put(e.getKey(), index);
+                for (String suf : list) {
+                    BitSet bit = new BitSet();
+                    bit.set(index);
+                    builder.put(normalizeSuffix(suf), bit, (a, b) -> {
+                        a.or(b);
+                        return a;
+                    });
+                }
+            }
+            return new Snapshot(Collections.unmodifiableMap(profiles), Map.copyOf(indexes), builder.build());
+        }
+
+        int indexOf(String profile) {
+            Integer index = indexes.get(profile);
+            return index == null ? -1 : index;
+        }
+    }
+
     // ─────────────────────────────────────────────────────────────────────────
     // Helpers
     // ─────────────────────────────────────────────────────────────────────────
@@ -0,0 +1,193 @@
+package com.example.lms.service.rag.auth;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BinaryOperator;
+import java.util.function.Predicate;
+
+/**
+ * Immutable trie keyed by reversed domain labels ({@code docs.spring.io} is stored as
+ * {@code io → spring → docs}).
+ *
+ * <p>Walking a host visits every stored suffix that is label-aligned with it, shortest first,
+ * so "exact host OR subdomain of suffix" checks become one pass over the host's labels instead
+ * of a scan of every configured suffix. Labels are split on every dot (empty labels included),
+ * which makes a hit equivalent to {@code host.equals(s) || host.endsWith("." + s)}. Child
+ * lookups hash the label in place, so a walk allocates nothing.</p>
+ */
+final class DomainSuffixTrie<V> {
+
+    /** Receives the payload of each stored suffix of the walked host. */
+    @FunctionalInterface
+    interface Visitor<V> {
+        /**
+         * @param value    payload stored for the suffix
+         * @param terminal {@code true} when the suffix is the whole host (no labels left)
+         */
+        void visit(V value, boolean terminal);
+    }
+
+    private static final DomainSuffixTrie<?> EMPTY = new DomainSuffixTrie<>(new Node<>(), 0);
+
+    private final Node<V> root;
+    private final int size;
+
+    private DomainSuffixTrie(Node<V> root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <V> DomainSuffixTrie<V> empty() {
+        return (DomainSuffixTrie<V>) EMPTY;
+    }
+
+    static <V> Builder<V> builder() {
+        return new Builder<>();
+    }
+
+    /** Number of stored suffixes. */
+    int size() {
+        return size;
+    }
+
+    /** Visit the payload of every stored suffix of {@code host}, shortest suffix first. */
+    void walk(String host, Visitor<? super V> visitor) {
+        if (host == null || host.isEmpty()) {
+            return;
+        }
+        Node<V> node = root;
+        int end = host.length();
+        while (true) {
+            int dot = host.lastIndexOf('.', end - 1);
+            node = node.child(host, dot + 1, end);
+            if (node == null) {
+                return;
+            }
+            if (node.value != null) {
+                visitor.visit(node.value, dot < 0);
+            }
+            if (dot < 0) {
+                return;
+            }
+            end = dot;
+        }
+    }
+
+    /** {@code true} when some stored suffix of {@code host} carries a payload accepted by {@code test}. */
+    boolean anyMatch(String host, Predicate<? super V> test) {
+        if (host == null || host.isEmpty()) {
+            return false;
+        }
+        Node<V> node = root;
+        int end = host.length();
+        while (true) {
+            int dot = host.lastIndexOf('.', end - 1);
+            node = node.child(host, dot + 1, end);
+            if (node == null) {
+                return false;
+            }
+            if (node.value != null && test.test(node.value)) {
+                return true;
+            }
+            if (dot < 0) {
+                return false;
+            }
+            end = dot;
+        }
+    }
+
+    private static int hash(CharSequence s, int from, int to) {
+        // Same as String.hashCode() of the region, so build-time keys can use hashCode().
+        int h = 0;
+        for (int i = from; i < to; i++) {
+            h = 31 * h + s.charAt(i);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static final class Node<V> {
+        /** Open-addressed child table; {@code null} when the node is a leaf. */
+        String[] labels;
+        Node<V>[] children;
+        V value;
+
+        Node<V> child(String host, int from, int to) {
+            String[] ls = labels;
+            if (ls == null) {
+                return null;
+            }
+            int len = to - from;
+            int mask = ls.length - 1;
+            for (int i = hash(host, from, to) & mask; ; i = (i + 1) & mask) {
+                String l = ls[i];
+                if (l == null) {
+                    return null;
+                }
+                if (l.length() == len && host.regionMatches(from, l, 0, len)) {
+                    return children[i];
+                }
+            }
+        }
+    }
+
+    /** Mutable staging tree; {@link #build()} freezes it into hashed child tables. */
+    static final class Builder<V> {
+        private final Draft<V> root = new Draft<>();
+        private int size;
+
+        /**
+         * Store {@code value} under {@code suffix}, combining with any value already stored for
+         * the same suffix. Blank suffixes are ignored.
+         */
+        Builder<V> put(String suffix, V value, BinaryOperator<V> merge) {
+            if (suffix == null || suffix.isEmpty() || value == null) {
+                return this;
+            }
+            String[] labels = suffix.split("\\.", -1);
+            Draft<V> node = root;
+            for (int i = labels.length - 1; i >= 0; i--) {
+                node = node.children.computeIfAbsent(labels[i], k -> new Draft<>());
+            }
+            if (node.value == null) {
+                node.value = value;
+                size++;
+            } else {
+                node.value = merge.apply(node.value, value);
+            }
+            return this;
+        }
+
+        DomainSuffixTrie<V> build() {
+            return new DomainSuffixTrie<>(freeze(root), size);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <V> Node<V> freeze(Draft<V> draft) {
+            Node<V> node = new Node<>();
+            node.value = draft.value;
+            int n = draft.children.size();
+            if (n == 0) {
+                return node;
+            }
+            int cap = Integer.highestOneBit(Math.max(2, n * 2 - 1)) << 1;
+            node.labels = new String[cap];
+            node.children = (Node<V>[]) new Node[cap];
+            for (Map.Entry<String, Draft<V>> e : draft.children.entrySet()) {
+                String label = e.getKey();
+                int i = hash(label, 0, label.length()) & (cap - 1);
+                while (node.labels[i] != null) {
+                    i = (i + 1) & (cap - 1);
+                }
+                node.labels[i] = label;
+                node.children[i] = freeze(e.getValue());
+            }
+            return node;
+        }
+    }
+
+    private static final class Draft<V> {
+        final Map<String, Draft<V>> children = new LinkedHashMap<>();
+        V value;
+    }
+}
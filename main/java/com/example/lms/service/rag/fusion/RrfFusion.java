@@ -1,5 +1,8 @@
 package com.example.lms.service.rag.fusion;
 
+import com.abandonware.ai.service.rag.fusion.FusionFrame;
+import com.abandonware.ai.service.rag.fusion.FusionPasses;
+import com.abandonware.ai.util.UrlCanonicalizer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.util.*;
@@ -7,16 +10,18 @@ import java.util.*;
 /**
  * Lightweight RRF util kept intentionally framework-free.
  * Provides a simple combine method used by tests or adapters.
+ * Scoring runs on the shared {@link FusionFrame} engine.
  */
 public final class RrfFusion {
     private static final Logger log = LoggerFactory.getLogger(RrfFusion.class);
+    private static final int K = 60;
 
     private RrfFusion() {}
 
     public static <T> List<T> fuse(List<List<T>> sources, int topK) {
         if (sources == null || sources.isEmpty()) return List.of();
         // If T is Map, compute RRF over "url"/"id" keys; otherwise fall back to stable order.
-        boolean isMap = sources.stream().flatMap(List::stream).anyMatch(o -> o instanceof Map);
+        boolean isMap = sources.stream().filter(Objects::nonNull).flatMap(List::stream).anyMatch(o -> o instanceof Map);
 
         if (!isMap) {
             List<T> out = new ArrayList<>();
@@ -25,31 +30,28 @@ public final class RrfFusion {
             return out;
         }
 
-        Map<String, Double> score = new HashMap<>();
-        Map<String, T> pick = new LinkedHashMap<>();
-        double K = 60.0;
-
+        int total = 0;
+        for (List<T> list : sources) if (list != null) total += list.size();
+        FusionFrame frame = new FusionFrame(sources.size(), total);
         for (List<T> list : sources) {
             if (list == null) continue;
-            int r = 1;
+            int lane = frame.openLane(null, list.size());
             for (T t : list) {
                 @SuppressWarnings("unchecked")
                 Map<String,Object> m = (Map<String,Object>) t;
                 String key = keyOf(m);
                 if (key == null) continue;
-                pick.putIfAbsent(key, t);
-                score.put(key, score.getOrDefault(key, 0.0) + (1.0 / (K + r)));
-                r++;
+                frame.add(lane, key, 0.0, 1.0, t);
             }
         }
-        List<Map.Entry<String,Double>> sorted = new ArrayList<>(score.entrySet());
-        sorted.sort((a,b) -> Double.compare(b.getValue(), a.getValue()));
+        FusionPasses.rrf(K).apply(frame);
 
+        Object[] pick = frame.firstPayloads();
         List<T> out = new ArrayList<>();
-        for (Map.Entry<String,Double> e : sorted) {
-            T t = pick.get(e.getKey());
+        for (int id : frame.ranked(topK)) {
+            @SuppressWarnings("unchecked")
+            T t = (T) pick[id];
             if (t != null) out.add(t);
-            if (topK > 0 && out.size() >= topK) break;
         }
         return out;
     }
@@ -66,22 +68,12 @@ public final class RrfFusion {
 
     private static String __canonicalUrl(String url) {
         if (url == null || url.isBlank()) return url;
+        if (!url.regionMatches(true, 0, "http://", 0, 7) && !url.regionMatches(true, 0, "https://", 0, 8)) {
+            return url;
+        }
         try {
-            java.net.URI u = new java.net.URI(url);
-            String q = u.getQuery();
-            String filtered = null;
-            if (q != null && !q.isBlank()) {
-                String[] parts = q.split("&");
-                StringBuilder sb = new StringBuilder();
-                for (String s : parts) {
-                    if (s.startsWith("utm_") || s.startsWith("fbclid")) continue;
-                    if (sb.length() > 0) sb.append("&");
-                    sb.append(s);
-                }
-                filtered = (sb.length() == 0) ? null : sb.toString();
-            }
-            return new java.net.URI(u.getScheme(), u.getAuthority(), u.getPath(), filtered, null).toString();
-        } catch (Exception e) {
+            return UrlCanonicalizer.canonicalKey(url);
+        } catch (RuntimeException e) {
             log.debug("[RrfFusion] fail-soft stage={}", "canonicalizeUrl");
             return url;
         }
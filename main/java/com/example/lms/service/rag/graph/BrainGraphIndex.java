@@ -0,0 +1,302 @@
+package com.example.lms.service.rag.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * In-memory graph index behind {@link BrainStateService}'s local (sparse-node) lookups.
+ *
+ * <p>Per domain it keeps interned node ids for lower-cased names, a {@link NameAutomaton} dictionary over entity
+ * names, forward/reverse adjacency lists of relations and chunk/entity/relation counters, so a query costs
+ * O(query + matched entities + their edges) instead of a scan of every entity and relation.</p>
+ *
+ * <p>Writers are serialized by the caller ({@link BrainStateService#recordChunks} holds the index monitor for a
+ * whole batch); readers take no lock. Node tables and adjacency lists are append-only with a volatile size, and
+ * the name dictionary is a volatile array of immutable automaton levels: new names of a batch become a level at
+ * {@link #publish()}, and levels are merged logarithmically (a level is folded into the previous one while that
+ * one is at most twice its size), so each name is rebuilt O(log n) times and a query walks O(log n) automata.</p>
+ *
+ * @param <E> entity accumulator type
+ * @param <R> relation accumulator type
+ */
+final class BrainGraphIndex<E, R> {
+
+    private final ConcurrentMap<String, DomainGraph<E, R>> domains = new ConcurrentHashMap<>();
+
+    /** Counter snapshot for one domain. */
+    record DomainCounts(String domain, long chunkCount, long entityCount, long relationCount) {
+    }
+
+    // ---------------------------------------------------------------- writes (caller holds the monitor)
+
+    /** A chunk was stored under {@code domain}, replacing one previously stored under {@code previousDomain}. */
+    void chunkStored(String previousDomain, String domain) {
+        if (previousDomain != null) {
+            DomainGraph<E, R> previous = domains.get(previousDomain);
+            if (previous != null) {
+                previous.chunkCount--;
+            }
+        }
+        graph(domain).chunkCount++;
+    }
+
+    /** First sighting of an entity; {@code name} is the trimmed display name. */
+    void entityAdded(String domain, String name, E entity) {
+        DomainGraph<E, R> graph = graph(domain);
+        Node<E, R> node = graph.intern(key(name));
+        node.entity = entity;
+        graph.entities.append(entity);
+        graph.pendingNames.add(node.key);
+        graph.pendingIds.add(node.id);
+        graph.entityCount++;
+    }
+
+    /** First sighting of a relation between the trimmed {@code source} and {@code target} names. */
+    void relationAdded(String domain, String source, String target, R relation) {
+        DomainGraph<E, R> graph = graph(domain);
+        Node<E, R> from = graph.intern(key(source));
+        Node<E, R> to = graph.intern(key(target));
+        from.out.append(relation);
+        if (to != from) {
+            // A self-loop lives on the out list only, so touching() reports it once.
+            to.in.append(relation);
+        }
+        graph.relationCount++;
+    }
+
+    /** Makes the names added since the last call visible to {@link #matchEntities}. */
+    void publish() {
+        for (DomainGraph<E, R> graph : domains.values()) {
+            graph.publish();
+        }
+    }
+
+    // ---------------------------------------------------------------- reads (lock-free)
+
+    /**
+     * Entities of {@code domain} (every domain when blank) whose lower-cased name occurs in {@code lowerText}.
+     * Domain matching is exact, like {@code BrainStateService#domainMatches}.
+     */
+    List<E> matchEntities(String lowerText, String domain) {
+        List<E> out = new ArrayList<>();
+        if (lowerText == null || lowerText.isEmpty()) {
+            return out;
+        }
+        forDomains(domain, graph -> {
+            for (NameAutomaton level : graph.dictionary) {
+                level.match(lowerText, id -> {
+                    E entity = graph.byId.get(id).entity;
+                    if (entity != null) {
+                        out.add(entity);
+                    }
+                });
+            }
+        });
+        return out;
+    }
+
+    /** Entities named {@code name} (case-insensitive, untrimmed) in {@code domain}, or every domain when blank. */
+    List<E> entities(String domain, String name) {
+        List<E> out = new ArrayList<>(1);
+        if (name == null) {
+            return out;
+        }
+        String key = name.toLowerCase(Locale.ROOT);
+        forDomains(domain, graph -> {
+            Node<E, R> node = graph.nodes.get(key);
+            E entity = node == null ? null : node.entity;
+            if (entity != null) {
+                out.add(entity);
+            }
+        });
+        return out;
+    }
+
+    /** Relations whose source is {@code name}. */
+    List<R> outgoing(String domain, String name) {
+        return edges(domain, name, true, false);
+    }
+
+    /** Relations whose source or target is {@code name}, each relation once. */
+    List<R> touching(String domain, String name) {
+        return edges(domain, name, true, true);
+    }
+
+    List<E> entitiesOf(String domain) {
+        List<E> out = new ArrayList<>();
+        DomainGraph<E, R> graph = domain == null ? null : domains.get(domain);
+        if (graph != null) {
+            graph.entities.forEach(out::add);
+        }
+        return out;
+    }
+
+    List<DomainCounts> counts() {
+        List<DomainCounts> out = new ArrayList<>(domains.size());
+        for (Map.Entry<String, DomainGraph<E, R>> e : domains.entrySet()) {
+            DomainGraph<E, R> g = e.getValue();
+            out.add(new DomainCounts(e.getKey(), g.chunkCount, g.entityCount, g.relationCount));
+        }
+        return out;
+    }
+
+    private List<R> edges(String domain, String name, boolean outgoing, boolean incoming) {
+        List<R> out = new ArrayList<>();
+        if (name == null) {
+            return out;
+        }
+        String key = name.toLowerCase(Locale.ROOT);
+        forDomains(domain, graph -> {
+            Node<E, R> node = graph.nodes.get(key);
+            if (node == null) {
+                return;
+            }
+            if (outgoing) {
+                node.out.forEach(out::add);
+            }
+            if (incoming) {
+                node.in.forEach(out::add);
+            }
+        });
+        return out;
+    }
+
+    private void forDomains(String domain, Consumer<DomainGraph<E, R>> action) {
+        if (domain == null || domain.isBlank()) {
+            domains.values().forEach(action);
+            return;
+        }
+        DomainGraph<E, R> graph = domains.get(domain);
+        if (graph != null) {
+            action.accept(graph);
+        }
+    }
+
+    private DomainGraph<E, R> graph(String domain) {
+        return domains.computeIfAbsent(domain, ignored -> new DomainGraph<>());
+    }
+
+    private static String key(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class DomainGraph<E, R> {
+        private final ConcurrentMap<String, Node<E, R>> nodes = new ConcurrentHashMap<>();
+        private final AppendList<Node<E, R>> byId = new AppendList<>();
+        private final AppendList<E> entities = new AppendList<>();
+        private final List<String> pendingNames = new ArrayList<>();
+        private final IntList pendingIds = new IntList();
+        private volatile NameAutomaton[] dictionary = new NameAutomaton[0];
+        private volatile long chunkCount;
+        private volatile long entityCount;
+        private volatile long relationCount;
+        private Node<E, R> intern(String key) {
+            Node<E, R> node = nodes.get(key);
+            if (node == null) {
+                node = new Node<>(byId.size, key);
+                byId.append(node);
+                nodes.put(key, node);
+            }
+            return node;
+        }
+
+        private void publish() {
+            if (pendingNames.isEmpty()) {
+                return;
+            }
+            NameAutomaton level = NameAutomaton.build(pendingNames.toArray(new String[0]), pendingIds.toArray());
+            pendingNames.clear();
+            pendingIds.clear();
+            NameAutomaton[] levels = Arrays.copyOf(dictionary, dictionary.length + 1);
+            int n = levels.length;
+            levels[n - 1] = level;
+            while (n > 1 && levels[n - 2].size() <= 2 * levels[n - 1].size()) {
+                levels[n - 2] = merge(levels[n - 2], levels[n - 1]);
+                n--;
+            }
+            dictionary = Arrays.copyOf(levels, n);
+        }
+
+        private static NameAutomaton merge(NameAutomaton left, NameAutomaton right) {
+            int size = left.size() + right.size();
+            String[] names = Arrays.copyOf(left.names(), size);
+            int[] ids = Arrays.copyOf(left.ids(), size);
+            System.arraycopy(right.names(), 0, names, left.size(), right.size());
+            System.arraycopy(right.ids(), 0, ids, left.size(), right.size());
+            return NameAutomaton.build(names, ids);
+        }
+    }
+
+    private static final class Node<E, R> {
+        private final int id;
+        private final String key;
+        private final AppendList<R> out = new AppendList<>();
+        private final AppendList<R> in = new AppendList<>();
+        private volatile E entity;
+
+        private Node(int id, String key) {
+            this.id = id;
+            this.key = key;
+        }
+    }
+
+    /**
+     * Single-writer append-only list. The element is stored before the volatile size is bumped, so a reader that
+     * observes size {@code n} also observes the first {@code n} elements.
+     */
+    private static final class AppendList<T> {
+        private volatile Object[] items = new Object[2];
+        private volatile int size;
+
+        private void append(T item) {
+            Object[] current = items;
+            int n = size;
+            if (n == current.length) {
+                current = Arrays.copyOf(current, n * 2);
+                items = current;
+            }
+            current[n] = item;
+            size = n + 1;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void forEach(Consumer<? super T> action) {
+            int n = size;
+            Object[] snapshot = items;
+            for (int i = 0; i < n; i++) {
+                action.accept((T) snapshot[i]);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private T get(int index) {
+            return (T) items[index];
+        }
+    }
+
+    private static final class IntList {
+        private int[] values = new int[8];
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+
+        private void clear() {
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package com.example.lms.service.rag.graph;
+
+import com.example.lms.search.TraceStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded background pipeline for post-turn GraphRAG capture.
+ *
+ * <p>{@link BrainStateChatWorkflowAspect} only {@link #offer offers} a finished turn here: an O(1) insert into a
+ * bounded, session-keyed FIFO. Consecutive turns of a session that are still waiting are coalesced into the same
+ * entry, so one hand-off carries them together. A fixed set of daemon workers drains up to
+ * {@code max-batch-turns} turns at a time and passes them to {@link GraphRagChunkingService} as one batch
+ * (one vector/brain-state/Neo4j write round instead of one per text).</p>
+ *
+ * <p>Load shedding: when the queue is full the oldest waiting turn is dropped (and counted); while chat turns are
+ * in flight and the recent chat latency is above {@code high-latency-ms}, workers defer ingestion until the
+ * request path goes idle, for at most {@code max-defer-ms} of queue lag. Queue depth, lag, drops, coalesced
+ * turns and batches are published to Micrometer when a registry is present, and via {@link #stats()}.</p>
+ *
+ * <p>On {@link #shutdown()} new turns are refused and the workers keep ingesting what is already queued, without
+ * deferring, for up to {@code shutdown-drain-ms}; turns still queued after that are counted as dropped.</p>
+ */
+@Component
+public class BrainStateCapturePipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(BrainStateCapturePipeline.class);
+
+    static final String METRIC_QUEUE_DEPTH = "brain_state.capture.queue_depth";
+    static final String METRIC_LAG_MS = "brain_state.capture.lag_ms";
+    static final String METRIC_DROPPED = "brain_state.capture.dropped";
+    static final String METRIC_COALESCED = "brain_state.capture.coalesced";
+    static final String METRIC_BATCHES = "brain_state.capture.batches";
+
+    private static final long DEFER_POLL_MS = 50L;
+    /** Weight of the newest chat latency sample in the moving average. */
+    private static final double LATENCY_ALPHA = 0.2d;
+
+    private final BrainStateProperties.Capture config;
+    private final GraphRagChunkingService chunkingService;
+    private final Map<String, SessionTurns> pending = new LinkedHashMap<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private final AtomicInteger inflightChats = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong ingestedTurns = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong deferrals = new AtomicLong();
+    private final Counter droppedCounter;
+    private final Counter coalescedCounter;
+    private final Counter batchCounter;
+    private volatile double chatLatencyEwmaMs;
+    private volatile long lastBatchLagMs;
+    private int pendingTurns;
+    private boolean started;
+    private boolean stopped;
+
+    public BrainStateCapturePipeline(BrainStateProperties properties, GraphRagChunkingService chunkingService) {
+        this(properties, chunkingService, null);
+    }
+
+    @Autowired
+    public BrainStateCapturePipeline(BrainStateProperties properties,
+                                     GraphRagChunkingService chunkingService,
+                                     ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.config = properties == null ? new BrainStateProperties.Capture() : properties.getCapture();
+        this.chunkingService = chunkingService;
+        MeterRegistry registry = meterRegistryProvider == null ? null : meterRegistryProvider.getIfAvailable();
+        if (registry != null) {
+            Gauge.builder(METRIC_QUEUE_DEPTH, this, p -> p.stats().queueDepth()).register(registry);
+            Gauge.builder(METRIC_LAG_MS, this, p -> p.stats().oldestLagMs()).register(registry);
+            this.droppedCounter = Counter.builder(METRIC_DROPPED).register(registry);
+            this.coalescedCounter = Counter.builder(METRIC_COALESCED).register(registry);
+            this.batchCounter = Counter.builder(METRIC_BATCHES).register(registry);
+        } else {
+            this.droppedCounter = null;
+            this.coalescedCounter = null;
+            this.batchCounter = null;
+        }
+    }
+
+    // ---------------------------------------------------------------- request path
+
+    /** Marks a chat turn as in flight; pair with {@link #chatFinished(long)}. */
+    public void chatStarted() {
+        inflightChats.incrementAndGet();
+    }
+
+    /** Records the finished turn's latency for the defer-to-idle policy. */
+    public void chatFinished(long elapsedNanos) {
+        inflightChats.decrementAndGet();
+        double sampleMs = Math.max(0L, elapsedNanos) / 1_000_000.0d;
+        double previous = chatLatencyEwmaMs;
+        // Benign race: a lost sample only delays the average by one turn.
+        chatLatencyEwmaMs = previous == 0.0d ? sampleMs : previous + LATENCY_ALPHA * (sampleMs - previous);
+    }
+
+    /** Queues a finished turn for capture; never blocks on ingestion. */
+    public void offer(String sessionId, String userText, String assistantText) {
+        GraphRagChunkingService.ConversationTurn turn =
+                new GraphRagChunkingService.ConversationTurn(sessionId, userText, assistantText);
+        long now = System.nanoTime();
+        synchronized (this) {
+            if (stopped) {
+                return;
+            }
+            startWorkersIfNeeded();
+            while (pendingTurns >= config.getQueueCapacity() && dropOldest()) {
+                drop();
+            }
+            SessionTurns entry = pending.get(sessionId);
+            if (entry != null) {
+                if (entry.turns.size() >= config.getMaxTurnsPerSession()) {
+                    entry.turns.removeFirst();
+                    pendingTurns--;
+                    drop();
+                }
+                coalesced.incrementAndGet();
+                if (coalescedCounter != null) {
+                    coalescedCounter.increment();
+                }
+            } else {
+                entry = new SessionTurns(now);
+                pending.put(sessionId, entry);
+            }
+            entry.turns.addLast(turn);
+            pendingTurns++;
+            notifyAll();
+        }
+    }
+
+    /** Ingests the given turns on the calling thread, leaving a trace breadcrumb instead of throwing. */
+    void ingest(List<GraphRagChunkingService.ConversationTurn> batch) {
+        if (batch == null || batch.isEmpty()) {
+            return;
+        }
+        try {
+            if (batch.size() == 1) {
+                GraphRagChunkingService.ConversationTurn turn = batch.get(0);
+                chunkingService.ingestConversationTurn(turn.sessionId(), turn.userText(), turn.assistantText());
+            } else {
+                chunkingService.ingestConversationTurns(batch);
+            }
+            ingestedTurns.addAndGet(batch.size());
+        } catch (Exception ex) {
+            failures.incrementAndGet();
+            String failureClass = ex == null ? "unknown" : ex.getClass().getSimpleName();
+            TraceStore.put("retrieval.kg.brainState.capture.failed", true);
+            TraceStore.put("retrieval.kg.brainState.capture.failureClass", failureClass);
+            TraceStore.put("retrieval.kg.brainState.capture.fallback", "skip_chat_capture");
+            log.debug("[AWX][brain-state][capture] skipped failureClass={} sessionHash={} turns={}",
+                    failureClass, BrainStateText.hash12(batch.get(0).sessionId()), batch.size());
+        }
+    }
+
+    public synchronized CaptureStats stats() {
+        long oldestLagMs = 0L;
+        if (!pending.isEmpty()) {
+            long oldest = pending.values().iterator().next().enqueuedAtNanos;
+            oldestLagMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - oldest);
+        }
+        return new CaptureStats(pendingTurns, pending.size(), oldestLagMs, lastBatchLagMs, dropped.get(),
+                coalesced.get(), batches.get(), ingestedTurns.get(), failures.get(), deferrals.get(),
+                inflightChats.get(), Math.round(chatLatencyEwmaMs));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        synchronized (this) {
+            if (stopped) {
+                return;
+            }
+            stopped = true;
+            notifyAll();
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getShutdownDrainMs());
+        for (Thread worker : workers) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0L) {
+                break;
+            }
+            try {
+                TimeUnit.NANOSECONDS.timedJoin(worker, remaining);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        int leftover;
+        synchronized (this) {
+            leftover = pendingTurns;
+            pending.clear();
+            pendingTurns = 0;
+        }
+        if (leftover > 0) {
+            dropped.addAndGet(leftover);
+            if (droppedCounter != null) {
+                droppedCounter.increment(leftover);
+            }
+            log.info("[AWX][brain-state][capture] shutdown drain timed out; droppedTurns={}", leftover);
+        }
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+    }
+
+    // ---------------------------------------------------------------- workers
+
+    private void startWorkersIfNeeded() {
+        if (started) {
+            return;
+        }
+        started = true;
+        for (int i = 0; i < config.getWorkers(); i++) {
+            Thread worker = new Thread(this::runWorker, "brain-state-capture-" + i);
+            worker.setDaemon(true);
+            worker.setPriority(Thread.MIN_PRIORITY);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    private void runWorker() {
+        while (true) {
+            List<GraphRagChunkingService.ConversationTurn> batch;
+            synchronized (this) {
+                try {
+                    while (!stopped && (pending.isEmpty() || shouldDefer())) {
+                        wait(pending.isEmpty() ? 0L : DEFER_POLL_MS);
+                    }
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (pending.isEmpty()) {
+                    return; // stopped and drained
+                }
+                batch = takeBatch();
+            }
+            ingest(batch);
+        }
+    }
+
+    /** Caller holds the monitor. */
+    private boolean shouldDefer() {
+        if (!config.isDeferWhenBusy() || inflightChats.get() <= 0 || chatLatencyEwmaMs < config.getHighLatencyMs()) {
+            return false;
+        }
+        long oldest = pending.values().iterator().next().enqueuedAtNanos;
+        boolean defer = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - oldest) < config.getMaxDeferMs();
+        if (defer) {
+            deferrals.incrementAndGet();
+        }
+        return defer;
+    }
+
+    /** Caller holds the monitor; takes whole session entries, oldest first. */
+    private List<GraphRagChunkingService.ConversationTurn> takeBatch() {
+        List<GraphRagChunkingService.ConversationTurn> batch = new ArrayList<>(config.getMaxBatchTurns());
+        long oldest = Long.MAX_VALUE;
+        Iterator<SessionTurns> it = pending.values().iterator();
+        while (it.hasNext()) {
+            SessionTurns entry = it.next();
+            if (!batch.isEmpty() && batch.size() + entry.turns.size() > config.getMaxBatchTurns()) {
+                break;
+            }
+            oldest = Math.min(oldest, entry.enqueuedAtNanos);
+            batch.addAll(entry.turns);
+            pendingTurns -= entry.turns.size();
+            it.remove();
+        }
+        lastBatchLagMs = oldest == Long.MAX_VALUE ? 0L : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - oldest);
+        batches.incrementAndGet();
+        if (batchCounter != null) {
+            batchCounter.increment();
+        }
+        return batch;
+    }
+
+    /** Caller holds the monitor. */
+    private boolean dropOldest() {
+        Iterator<SessionTurns> it = pending.values().iterator();
+        if (!it.hasNext()) {
+            return false;
+        }
+        SessionTurns oldest = it.next();
+        oldest.turns.removeFirst();
+        pendingTurns--;
+        if (oldest.turns.isEmpty()) {
+            it.remove();
+        }
+        return true;
+    }
+
+    private void drop() {
+        dropped.incrementAndGet();
+        if (droppedCounter != null) {
+            droppedCounter.increment();
+        }
+    }
+
+    private static final class SessionTurns {
+        private final long enqueuedAtNanos;
+        private final ArrayDeque<GraphRagChunkingService.ConversationTurn> turns = new ArrayDeque<>(2);
+
+        private SessionTurns(long enqueuedAtNanos) {
+            this.enqueuedAtNanos = enqueuedAtNanos;
+        }
+    }
+
+    public record CaptureStats(
+            int queueDepth,
+            int queuedSessions,
+            long oldestLagMs,
+            long lastBatchLagMs,
+            long dropped,
+            long coalesced,
+            long batches,
+            long ingestedTurns,
+            long failures,
+            long deferrals,
+            int inflightChats,
+            long chatLatencyEwmaMs) {
+    }
+}
@@ -1,38 +1,47 @@
 package com.example.lms.service.rag.graph;
 
 import com.example.lms.dto.ChatRequestDto;
-import com.example.lms.search.TraceStore;
 import com.example.lms.service.ChatResult;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
-import java.util.concurrent.CompletableFuture;
+import java.util.List;
 
 @Aspect
 @Component
 @Order(Ordered.LOWEST_PRECEDENCE - 40)
 public class BrainStateChatWorkflowAspect {
 
-    private static final Logger log = LoggerFactory.getLogger(BrainStateChatWorkflowAspect.class);
-
     private final BrainStateProperties properties;
-    private final GraphRagChunkingService chunkingService;
+    private final BrainStateCapturePipeline pipeline;
 
     public BrainStateChatWorkflowAspect(BrainStateProperties properties,
                                         GraphRagChunkingService chunkingService) {
+        this(properties, new BrainStateCapturePipeline(properties, chunkingService));
+    }
+
+    @Autowired
+    public BrainStateChatWorkflowAspect(BrainStateProperties properties,
+                                        BrainStateCapturePipeline pipeline) {
         this.properties = properties;
-        this.chunkingService = chunkingService;
+        this.pipeline = pipeline;
     }
 
     @Around("execution(* com.example.lms.service.ChatWorkflow.continueChat(com.example.lms.dto.ChatRequestDto,..))")
     public Object captureConversationTurn(ProceedingJoinPoint pjp) throws Throwable {
-        Object result = pjp.proceed();
+        long started = System.nanoTime();
+        pipeline.chatStarted();
+        Object result;
+        try {
+            result = pjp.proceed();
+        } finally {
+            pipeline.chatFinished(System.nanoTime() - started);
+        }
         if (!properties.isEnabled()
                 || !properties.getIndexing().isEnabled()
                 || !properties.getIndexing().isCaptureChatWorkflow()) {
@@ -45,21 +54,13 @@ public class BrainStateChatWorkflowAspect {
         String sessionId = request.getSessionId() == null ? "__TRANSIENT__" : String.valueOf(request.getSessionId());
         String userText = request.getMessage();
         String assistantText = chatResult.content();
-        CompletableFuture.runAsync(() -> capture(sessionId, userText, assistantText));
+        pipeline.offer(sessionId, userText, assistantText);
         return result;
     }
 
+    /** Synchronous single-turn capture (the pipeline's fail-soft ingest path). */
     void capture(String sessionId, String userText, String assistantText) {
-        try {
-            chunkingService.ingestConversationTurn(sessionId, userText, assistantText);
-        } catch (Exception ex) {
-            String failureClass = ex == null ? "unknown" : ex.getClass().getSimpleName();
-            TraceStore.put("retrieval.kg.brainState.capture.failed", true);
-            TraceStore.put("retrieval.kg.brainState.capture.failureClass", failureClass);
-            TraceStore.put("retrieval.kg.brainState.capture.fallback", "skip_chat_capture");
-            log.debug("[AWX][brain-state][capture] skipped failureClass={} sessionHash={}",
-                    failureClass, BrainStateText.hash12(sessionId));
-        }
+        pipeline.ingest(List.of(new GraphRagChunkingService.ConversationTurn(sessionId, userText, assistantText)));
     }
 
     private static ChatRequestDto firstRequest(Object[] args) {
@@ -9,6 +9,7 @@ public class BrainStateProperties {
     private final Chunking chunking = new Chunking();
     private final Indexing indexing = new Indexing();
     private final Neo4j neo4j = new Neo4j();
+    private final Capture capture = new Capture();
 
     public boolean isEnabled() {
         return enabled;
@@ -30,6 +31,10 @@ public class BrainStateProperties {
         return neo4j;
     }
 
+    public Capture getCapture() {
+        return capture;
+    }
+
     public static class Chunking {
         private int maxChunkSize = 400;
         private int overlap = 50;
@@ -141,4 +146,80 @@ public class BrainStateProperties {
             this.ingestBatchSize = Math.max(1, Math.min(ingestBatchSize, 200));
         }
     }
+
+    /** Post-turn chat capture pipeline ({@link BrainStateCapturePipeline}). */
+    public static class Capture {
+        private int queueCapacity = 256;
+        private int workers = 1;
+        private int maxBatchTurns = 8;
+        private int maxTurnsPerSession = 4;
+        private long highLatencyMs = 8_000L;
+        private long maxDeferMs = 30_000L;
+        private boolean deferWhenBusy = true;
+        private long shutdownDrainMs = 5_000L;
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = Math.max(1, Math.min(queueCapacity, 10_000));
+        }
+
+        public int getWorkers() {
+            return workers;
+        }
+
+        public void setWorkers(int workers) {
+            this.workers = Math.max(1, Math.min(workers, 8));
+        }
+
+        public int getMaxBatchTurns() {
+            return maxBatchTurns;
+        }
+
+        public void setMaxBatchTurns(int maxBatchTurns) {
+            this.maxBatchTurns = Math.max(1, Math.min(maxBatchTurns, 64));
+        }
+
+        public int getMaxTurnsPerSession() {
+            return maxTurnsPerSession;
+        }
+
+        public void setMaxTurnsPerSession(int maxTurnsPerSession) {
+            this.maxTurnsPerSession = Math.max(1, Math.min(maxTurnsPerSession, 64));
+        }
+
+        public long getHighLatencyMs() {
+            return highLatencyMs;
+        }
+
+        public void setHighLatencyMs(long highLatencyMs) {
+            this.highLatencyMs = Math.max(0L, highLatencyMs);
+        }
+
+        public long getMaxDeferMs() {
+            return maxDeferMs;
+        }
+
+        public void setMaxDeferMs(long maxDeferMs) {
+            this.maxDeferMs = Math.max(0L, maxDeferMs);
+        }
+
+        public boolean isDeferWhenBusy() {
+            return deferWhenBusy;
+        }
+
+        public void setDeferWhenBusy(boolean deferWhenBusy) {
+            this.deferWhenBusy = deferWhenBusy;
+        }
+
+        public long getShutdownDrainMs() {
+            return shutdownDrainMs;
+        }
+
+        public void setShutdownDrainMs(long shutdownDrainMs) {
+            this.shutdownDrainMs = Math.max(0L, shutdownDrainMs);
+        }
+    }
 }
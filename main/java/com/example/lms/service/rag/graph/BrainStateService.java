@@ -36,6 +36,7 @@ public class BrainStateService {
     private final ConcurrentMap<String, StoredChunk> chunks = new ConcurrentHashMap<>();
     private final ConcurrentMap<String, EntityAccumulator> entities = new ConcurrentHashMap<>();
     private final ConcurrentMap<String, RelationAccumulator> relations = new ConcurrentHashMap<>();
+    private final BrainGraphIndex<EntityAccumulator, RelationAccumulator> graphIndex = new BrainGraphIndex<>();
     private volatile BrainSnapshot.QueryTimeSummary latestQueryTime = BrainSnapshot.QueryTimeSummary.noRecent();
     private volatile Instant lastUpdatedAt;
 
@@ -79,47 +80,52 @@ public class BrainStateService {
         }
         recordAnchorFrequency(input);
         Instant now = Instant.now();
-        for (KgChunk chunk : input) {
-            if (chunk == null || chunk.chunkId() == null || chunk.chunkId().isBlank()) {
-                continue;
-            }
-            StoredChunk stored = StoredChunk.from(chunk, now);
-            chunks.put(stored.chunkId(), stored);
-            for (KgChunk.KgEntity entity : chunk.entities()) {
-                if (entity == null || entity.name() == null || entity.name().isBlank()) {
+        // One writer at a time: the maps, the graph index and its counters move together per batch.
+        synchronized (graphIndex) {
+            for (KgChunk chunk : input) {
+                if (chunk == null || chunk.chunkId() == null || chunk.chunkId().isBlank()) {
                     continue;
                 }
-                String domain = BrainStateText.normalizeDomain(entity.domain());
-                String key = entityKey(domain, entity.name());
-                entities.compute(key, (ignored, acc) -> {
-                    EntityAccumulator next = acc == null
-                            ? new EntityAccumulator(entity.name().trim(), entity.type(), domain)
-                            : acc;
-                    next.mentionCount++;
-                    next.confidence = Math.max(next.confidence, clamp01(entity.confidence()));
-                    next.sessionIds.add(stored.sessionId());
-                    return next;
-                });
-            }
-            for (KgChunk.KgRelation relation : chunk.relations()) {
-                if (relation == null || relation.source() == null || relation.target() == null
-                        || relation.source().isBlank() || relation.target().isBlank()) {
-                    continue;
+                StoredChunk stored = StoredChunk.from(chunk, now);
+                StoredChunk previous = chunks.put(stored.chunkId(), stored);
+                graphIndex.chunkStored(previous == null ? null : previous.domain(), stored.domain());
+                for (KgChunk.KgEntity entity : chunk.entities()) {
+                    if (entity == null || entity.name() == null || entity.name().isBlank()) {
+                        continue;
+                    }
+                    String domain = BrainStateText.normalizeDomain(entity.domain());
+                    String key = entityKey(domain, entity.name());
+                    EntityAccumulator acc = entities.get(key);
+                    if (acc == null) {
+                        acc = new EntityAccumulator(entity.name().trim(), entity.type(), domain);
+                        entities.put(key, acc);
+                        graphIndex.entityAdded(domain, acc.name, acc);
+                    }
+                    acc.mentionCount++;
+                    acc.confidence = Math.max(acc.confidence, clamp01(entity.confidence()));
+                    acc.sessionIds.add(stored.sessionId());
+                }
+                for (KgChunk.KgRelation relation : chunk.relations()) {
+                    if (relation == null || relation.source() == null || relation.target() == null
+                            || relation.source().isBlank() || relation.target().isBlank()) {
+                        continue;
+                    }
+                    String domain = stored.domain();
+                    String key = relationKey(domain, relation);
+                    RelationAccumulator acc = relations.get(key);
+                    if (acc == null) {
+                        acc = new RelationAccumulator(domain, relation);
+                        relations.put(key, acc);
+                        graphIndex.relationAdded(acc.domain, acc.source, acc.target, acc);
+                    }
+                    acc.count++;
+                    acc.confidence = Math.max(acc.confidence, clamp01(relation.confidence()));
+                    acc.sessionIds.add(stored.sessionId());
                 }
-                String domain = stored.domain();
-                String key = relationKey(domain, relation);
-                relations.compute(key, (ignored, acc) -> {
-                    RelationAccumulator next = acc == null
-                            ? new RelationAccumulator(domain, relation)
-                            : acc;
-                    next.count++;
-                    next.confidence = Math.max(next.confidence, clamp01(relation.confidence()));
-                    next.sessionIds.add(stored.sessionId());
-                    return next;
-                });
             }
+            graphIndex.publish();
+            lastUpdatedAt = now;
         }
-        lastUpdatedAt = now;
     }
 
     private void recordAnchorFrequency(List<KgChunk> input) {
@@ -200,14 +206,18 @@ public class BrainStateService {
     }
 
     public List<DomainSummary> listKnownDomains() {
-        return domainSummaries(List.copyOf(chunks.values()), Set.of(), "");
+        // Unfiltered summary: served from the index counters instead of a pass over every chunk/entity/relation.
+        return graphIndex.counts().stream()
+                .filter(c -> c.chunkCount() > 0 || c.entityCount() > 0 || c.relationCount() > 0)
+                .sorted(Comparator.comparing(BrainGraphIndex.DomainCounts::domain))
+                .map(c -> new DomainSummary(c.domain(), c.chunkCount(), c.entityCount(), c.relationCount()))
+                .toList();
     }
 
     public List<KgEntityView> listEntityNodes(String domain, int limit) {
         String d = BrainStateText.normalizeDomain(domain);
         int safeLimit = Math.max(1, Math.min(limit, properties.getIndexing().getMaxEntitiesPerDomain()));
-        return entities.values().stream()
-                .filter(e -> d.equals(e.domain))
+        return graphIndex.entitiesOf(d).stream()
                 .sorted(Comparator.comparingLong((EntityAccumulator e) -> e.mentionCount).reversed()
                         .thenComparing(e -> e.name.toLowerCase(Locale.ROOT)))
                 .limit(safeLimit)
@@ -256,10 +266,11 @@ public class BrainStateService {
                     "brain_state_disabled", disabledSummary.capturedAt());
         }
         String lower = query == null ? "" : query.toLowerCase(Locale.ROOT);
-        List<String> exactMatched = entities.values().stream()
-                .filter(e -> domainMatches(requestedDomain, e.domain))
-                .filter(e -> !lower.isBlank() && lower.contains(e.name.toLowerCase(Locale.ROOT)))
-                .sorted(Comparator.comparingLong((EntityAccumulator e) -> e.mentionCount).reversed())
+        List<String> exactMatched = (lower.isBlank() ? List.<EntityAccumulator>of()
+                : graphIndex.matchEntities(lower, requestedDomain)).stream()
+                .sorted(Comparator.comparingLong((EntityAccumulator e) -> e.mentionCount).reversed()
+                        .thenComparing(e -> e.name.toLowerCase(Locale.ROOT))
+                        .thenComparing(e -> e.domain))
                 .limit(10)
                 .map(e -> e.name)
                 .distinct()
@@ -439,10 +450,9 @@ public class BrainStateService {
         if (matched == null || matched.isEmpty()) {
             return List.of();
         }
-        return relations.values().stream()
-                .filter(r -> domainMatches(domain, r.domain))
-                .filter(r -> matched.stream().anyMatch(m -> equalsName(m, r.source) || equalsName(m, r.target)))
-                .sorted(Comparator.comparingLong((RelationAccumulator r) -> r.count).reversed())
+        return touching(matched, domain).stream()
+                .sorted(Comparator.comparingLong((RelationAccumulator r) -> r.count).reversed()
+                        .thenComparing(r -> r.connectorHash12))
                 .limit(10)
                 .map(RelationAccumulator::view)
                 .toList();
@@ -452,8 +462,7 @@ public class BrainStateService {
         if (matched == null || matched.isEmpty()) {
             return 0L;
         }
-        return relations.values().stream()
-                .filter(r -> matchesAny(matched, r, domain))
+        return touching(matched, domain).stream()
                 .filter(r -> r.connectorHash12 != null && !r.connectorHash12.isBlank())
                 .count();
     }
@@ -463,8 +472,7 @@ public class BrainStateService {
             return List.of();
         }
         int safeLimit = Math.max(1, Math.min(limit, 25));
-        return relations.values().stream()
-                .filter(r -> matchesAny(matched, r, domain))
+        return touching(matched, domain).stream()
                 .map(r -> r.connectorHash12)
                 .filter(hash -> hash != null && !hash.isBlank())
                 .distinct()
@@ -473,15 +481,13 @@ public class BrainStateService {
                 .toList();
     }
 
-    private static boolean matchesAny(List<String> matched, RelationAccumulator relation, String domain) {
-        if (relation == null) {
-            return false;
-        }
-        if (!domainMatches(domain, relation.domain)) {
-            return false;
+    /** Relations with a matched entity at either end, each once, via the adjacency lists. */
+    private Set<RelationAccumulator> touching(List<String> matched, String domain) {
+        Set<RelationAccumulator> out = new LinkedHashSet<>();
+        for (String m : matched) {
+            out.addAll(graphIndex.touching(domain, m));
         }
-        return matched != null && !matched.isEmpty()
-                && matched.stream().anyMatch(m -> equalsName(m, relation.source) || equalsName(m, relation.target));
+        return out;
     }
 
     private Map<String, Set<String>> localRelationships(String entity, String domain) {
@@ -489,13 +495,8 @@ public class BrainStateService {
             return Map.of();
         }
         Map<String, Set<String>> out = new LinkedHashMap<>();
-        for (RelationAccumulator relation : relations.values()) {
-            if (!domainMatches(domain, relation.domain)) {
-                continue;
-            }
-            if (equalsName(entity, relation.source)) {
-                out.computeIfAbsent(relation.kind, ignored -> new LinkedHashSet<>()).add(relation.target);
-            }
+        for (RelationAccumulator relation : graphIndex.outgoing(domain, entity)) {
+            out.computeIfAbsent(relation.kind, ignored -> new LinkedHashSet<>()).add(relation.target);
         }
         return out;
     }
@@ -504,9 +505,7 @@ public class BrainStateService {
         if (entity == null || entity.isBlank()) {
             return 1.0d;
         }
-        return entities.values().stream()
-                .filter(e -> domainMatches(domain, e.domain))
-                .filter(e -> equalsName(entity, e.name))
+        return graphIndex.entities(domain, entity).stream()
                 .mapToDouble(e -> e.confidence)
                 .max()
                 .orElse(1.0d);
@@ -796,10 +795,6 @@ public class BrainStateService {
         return false;
     }
 
-    private static boolean equalsName(String left, String right) {
-        return left != null && right != null && left.equalsIgnoreCase(right);
-    }
-
     private static String normalizeSession(String sessionId) {
         if (sessionId == null || sessionId.isBlank() || "ALL".equalsIgnoreCase(sessionId)) {
             return "";
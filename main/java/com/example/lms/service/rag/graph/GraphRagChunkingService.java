@@ -89,6 +89,64 @@ public class GraphRagChunkingService {
         return IngestReport.merge(sessionId, "chat-workflow", reports);
     }
 
+    /**
+     * Several captured turns in one pass: every user/assistant text is chunked and gated exactly as
+     * {@link #ingestConversationTurn} would, then the surviving chunks are handed to the vector queue, the brain
+     * state and Neo4j as one batch instead of one write per text.
+     */
+    public IngestReport ingestConversationTurns(List<ConversationTurn> turns) {
+        List<ConversationTurn> safeTurns = turns == null ? List.of() : turns.stream()
+                .filter(t -> t != null)
+                .toList();
+        String reportSession = safeTurns.stream().map(t -> safeSession(t.sessionId())).distinct().count() == 1
+                ? safeTurns.get(0).sessionId()
+                : "__TRANSIENT__";
+        if (!properties.isEnabled() || !properties.getIndexing().isEnabled()) {
+            return IngestReport.disabled(reportSession, "brain_state_disabled");
+        }
+        IngestOptions options = IngestOptions.defaults();
+        List<KgChunk> chunks = new ArrayList<>();
+        StringBuilder textHashes = new StringBuilder();
+        for (ConversationTurn turn : safeTurns) {
+            collectTurnChunks(turn.sessionId(), turn.userText(), "USER", options, chunks, textHashes);
+            collectTurnChunks(turn.sessionId(), turn.assistantText(), "ASSISTANT", options, chunks, textHashes);
+        }
+        String textHash = BrainStateText.hash12(textHashes.toString());
+        List<KgChunk> persistedChunks = meaningfulChunks(chunks);
+        int skippedLowSignal = Math.max(0, chunks.size() - persistedChunks.size());
+        Map<String, Object> backend = new LinkedHashMap<>();
+        putLaneOptions(backend, options);
+        backend.put("batchTurnCount", safeTurns.size());
+        backend.put("meaningfulGate", meaningfulGateStatus(skippedLowSignal, persistedChunks.size()));
+        backend.put("persistedChunkCount", persistedChunks.size());
+        backend.put("skippedLowSignalChunks", skippedLowSignal);
+        if (persistedChunks.isEmpty()) {
+            backend.put("neo4jStatus", "skipped");
+            backend.put("neo4jDisabledReason", "low_signal_chunks");
+            backend.put("neo4jFailureClass", "");
+            backend.put("neo4jWriteCount", 0);
+            backend.put("neo4jPortMappingCount", 0);
+            putSkippedPersistence(backend);
+            backend.put("disabledReason", "low_signal_chunks");
+            return new IngestReport(true, safeSession(reportSession), "skipped", 0, 0, 0, 0, textHash,
+                    "low_signal_chunks", backend);
+        }
+        return persistChunks(safeSession(reportSession), null, persistedChunks, textHash, backend, options);
+    }
+
+    private void collectTurnChunks(String sessionId,
+                                   String text,
+                                   String sourceTag,
+                                   IngestOptions options,
+                                   List<KgChunk> sink,
+                                   StringBuilder textHashes) {
+        if (!StringUtils.hasText(text)) {
+            return;
+        }
+        textHashes.append(BrainStateText.hash12(text));
+        sink.addAll(chunkAndExtract(safeSession(sessionId), text, inferDomain(text, null), sourceTag, options));
+    }
+
     public IngestReport ingestText(String sessionId, String text, String sourceTag, String domainHint) {
         return ingestText(sessionId, text, sourceTag, domainHint, IngestOptions.defaults());
     }
@@ -237,7 +295,8 @@ public class GraphRagChunkingService {
                                        Map<String, Object> backend,
                                        IngestOptions options) {
         IngestOptions laneOptions = IngestOptions.safe(options);
-        String normalizedSourceTag = normalizeSourceTag(sourceTag);
+        // A null tag means a mixed batch: each chunk already carries its own normalized source tag.
+        String normalizedSourceTag = sourceTag == null ? null : normalizeSourceTag(sourceTag);
         recordAnchorFrequency(persistedChunks, backend, laneOptions);
         String vectorStatus = "skipped";
         int vectorFailures = 0;
@@ -254,7 +313,8 @@ public class GraphRagChunkingService {
             for (KgChunk chunk : persistedChunks) {
                 vectorAttempts++;
                 try {
-                    enqueueVector(chunk, normalizedSourceTag, laneOptions);
+                    enqueueVector(chunk, normalizedSourceTag == null ? chunk.sourceTag() : normalizedSourceTag,
+                            laneOptions);
                 } catch (Exception ex) {
                     traceSuppressed("vector.enqueue", ex);
                     vectorFailures++;
@@ -1030,6 +1090,10 @@ public class GraphRagChunkingService {
         }
     }
 
+    /** One completed chat turn queued for capture. */
+    public record ConversationTurn(String sessionId, String userText, String assistantText) {
+    }
+
     public record IngestOptions(
             boolean vectorEnabled,
             boolean brainStateEnabled,
@@ -0,0 +1,226 @@
+package com.example.lms.service.rag.graph;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable Aho–Corasick automaton over lower-cased entity names.
+ *
+ * <p>{@link #match(String, IntConsumer)} reports the id of every dictionary name that occurs as a substring of
+ * the text in one left-to-right pass, i.e. exactly the names for which {@code text.contains(name)} holds, at a
+ * cost of O(text + matches) instead of O(dictionary × text). Children are stored as one flat sorted
+ * label/target table per state so a 100k-name dictionary stays a handful of primitive arrays.</p>
+ */
+final class NameAutomaton {
+
+    static final NameAutomaton EMPTY = build(new String[0], new int[0]);
+
+    private final String[] names;
+    private final int[] ids;
+    private final int[] childStart;
+    private final char[] childLabel;
+    private final int[] childTarget;
+    private final int[] fail;
+    private final int[] output;
+    private final int[] outputLink;
+
+    private NameAutomaton(String[] names, int[] ids, int[] childStart, char[] childLabel, int[] childTarget,
+                          int[] fail, int[] output, int[] outputLink) {
+        this.names = names;
+        this.ids = ids;
+        this.childStart = childStart;
+        this.childLabel = childLabel;
+        this.childTarget = childTarget;
+        this.fail = fail;
+        this.output = output;
+        this.outputLink = outputLink;
+    }
+
+    /** Builds the automaton; {@code names[i]} must be non-empty and distinct, {@code ids[i]} is reported for it. */
+    static NameAutomaton build(String[] names, int[] ids) {
+        TrieBuilder trie = new TrieBuilder();
+        for (int i = 0; i < names.length; i++) {
+            trie.insert(names[i], ids[i]);
+        }
+        int states = trie.size;
+        int[] childStart = new int[states + 1];
+        for (int s = 0; s < states; s++) {
+            childStart[s + 1] = childStart[s] + trie.childCount[s];
+        }
+        char[] childLabel = new char[childStart[states]];
+        int[] childTarget = new int[childStart[states]];
+        for (int s = 0; s < states; s++) {
+            int n = trie.childCount[s];
+            if (n == 0) {
+                continue;
+            }
+            long[] packed = new long[n];
+            for (int i = 0; i < n; i++) {
+                packed[i] = ((long) trie.labels[s][i] << 32) | trie.targets[s][i];
+            }
+            Arrays.sort(packed);
+            for (int i = 0; i < n; i++) {
+                childLabel[childStart[s] + i] = (char) (packed[i] >>> 32);
+                childTarget[childStart[s] + i] = (int) packed[i];
+            }
+        }
+        int[] output = Arrays.copyOf(trie.output, states);
+        int[] fail = new int[states];
+        int[] outputLink = new int[states];
+        NameAutomaton automaton = new NameAutomaton(names.clone(), ids.clone(), childStart, childLabel, childTarget,
+                fail, output, outputLink);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int i = childStart[0]; i < childStart[1]; i++) {
+            queue.add(childTarget[i]);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.removeFirst();
+            for (int i = childStart[state]; i < childStart[state + 1]; i++) {
+                char c = childLabel[i];
+                int child = childTarget[i];
+                int f = fail[state];
+                int next = automaton.child(f, c);
+                while (next < 0 && f != 0) {
+                    f = fail[f];
+                    next = automaton.child(f, c);
+                }
+                fail[child] = next < 0 ? 0 : next;
+                int link = fail[child];
+                outputLink[child] = output[link] >= 0 ? link : outputLink[link];
+                queue.add(child);
+            }
+        }
+        return automaton;
+    }
+
+    int size() {
+        return names.length;
+    }
+
+    String[] names() {
+        return names;
+    }
+
+    int[] ids() {
+        return ids;
+    }
+
+    /** Reports the id of every dictionary name contained in {@code text}; each id at most once per call. */
+    void match(String text, IntConsumer sink) {
+        if (text == null || text.isEmpty() || names.length == 0) {
+            return;
+        }
+        int state = 0;
+        int reported = 0;
+        int[] seen = null;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int next = child(state, c);
+            while (next < 0 && state != 0) {
+                state = fail[state];
+                next = child(state, c);
+            }
+            state = next < 0 ? 0 : next;
+            for (int t = output[state] >= 0 ? state : outputLink[state]; t > 0; t = outputLink[t]) {
+                int id = output[t];
+                if (seen == null) {
+                    seen = new int[4];
+                } else if (contains(seen, reported, id)) {
+                    continue;
+                }
+                if (reported == seen.length) {
+                    seen = Arrays.copyOf(seen, reported * 2);
+                }
+                seen[reported++] = id;
+                sink.accept(id);
+            }
+        }
+    }
+
+    private int child(int state, char c) {
+        int lo = childStart[state];
+        int hi = childStart[state + 1] - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            char label = childLabel[mid];
+            if (label < c) {
+                lo = mid + 1;
+            } else if (label > c) {
+                hi = mid - 1;
+            } else {
+                return childTarget[mid];
+            }
+        }
+        return -1;
+    }
+
+    private static boolean contains(int[] values, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Growable per-state child lists used only while building. */
+    private static final class TrieBuilder {
+        private char[][] labels = new char[16][];
+        private int[][] targets = new int[16][];
+        private int[] childCount = new int[16];
+        private int[] output = new int[16];
+        private int size;
+
+        private TrieBuilder() {
+            newState();
+        }
+
+        private void insert(String name, int id) {
+            int state = 0;
+            for (int i = 0; i < name.length(); i++) {
+                char c = name.charAt(i);
+                int next = -1;
+                char[] l = labels[state];
+                for (int j = 0; j < childCount[state]; j++) {
+                    if (l[j] == c) {
+                        next = targets[state][j];
+                        break;
+                    }
+                }
+                if (next < 0) {
+                    next = newState();
+                    addChild(state, c, next);
+                }
+                state = next;
+            }
+            output[state] = id;
+        }
+
+        private int newState() {
+            if (size == output.length) {
+                int cap = size * 2;
+                labels = Arrays.copyOf(labels, cap);
+                targets = Arrays.copyOf(targets, cap);
+                childCount = Arrays.copyOf(childCount, cap);
+                output = Arrays.copyOf(output, cap);
+            }
+            output[size] = -1;
+            return size++;
+        }
+
+        private void addChild(int state, char c, int target) {
+            int n = childCount[state];
+            if (labels[state] == null) {
+                labels[state] = new char[2];
+                targets[state] = new int[2];
+            } else if (n == labels[state].length) {
+                labels[state] = Arrays.copyOf(labels[state], n * 2);
+                targets[state] = Arrays.copyOf(targets[state], n * 2);
+            }
+            labels[state][n] = c;
+            targets[state][n] = target;
+            childCount[state] = n + 1;
+        }
+    }
+}
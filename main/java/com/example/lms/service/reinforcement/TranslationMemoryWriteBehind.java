@@ -0,0 +1,471 @@
+package com.example.lms.service.reinforcement;
+
+import com.example.lms.trace.SafeRedactor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Write-behind accumulator for the per-hash {@code translation_memory} counters that
+ * {@code MemoryReinforcementService} used to update inline, one native UPDATE transaction each.
+ *
+ * <p>Updates are merged per {@code source_hash} in memory — hits and success/failure counts are summed
+ * ({@code last_used_at} keeps the latest use), energy/temperature and the observed columns are last-writer-wins and
+ * a score bump keeps the maximum — and flushed as JDBC batch updates
+ * every {@code flush-interval-ms} or once {@code max-batch} hashes are pending, in one transaction. Energy writes
+ * with an {@code AND session_id = ?} condition are kept per session after the last unconditional write, because
+ * only the one matching the row's session applies. A failed flush puts its entries back for the next flush.</p>
+ *
+ * <p>The buffer is bounded: once {@code max-pending} hashes are waiting, an update for a new hash is refused and the
+ * caller applies it inline as before. Hit increments are only accepted for hashes recently seen in the table
+ * ({@link #markPersisted}), because the inline UPDATE's row count decides whether the caller inserts a new row.
+ * Readers that rank by these columns use {@link #pendingHits} / {@link #rankByEnergy}, and a caller updating a row it
+ * loaded applies {@link #queued} first, so a session sees its own not-yet-flushed updates. Everything still pending is flushed on shutdown.</p>
+ */
+@Component
+@ConditionalOnProperty(prefix = "memory.reinforce.write-behind", name = "enabled", havingValue = "true",
+        matchIfMissing = true)
+public class TranslationMemoryWriteBehind {
+
+    private static final Logger log = LoggerFactory.getLogger(TranslationMemoryWriteBehind.class);
+
+    static final String SQL_HITS = """
+            UPDATE translation_memory
+               SET hit_count = COALESCE(hit_count, 0) + ?,
+                   last_used_at = COALESCE(?, last_used_at)
+             WHERE source_hash = ?""";
+    static final String SQL_SCORE = """
+            UPDATE translation_memory
+               SET score = GREATEST(COALESCE(score, 0), ?)
+             WHERE source_hash = ?""";
+    static final String SQL_OBSERVED = """
+            UPDATE translation_memory
+               SET success_count = COALESCE(success_count, 0) + ?,
+                   failure_count = COALESCE(failure_count, 0) + ?,
+                   score = COALESCE(?, score),
+                   q_value = COALESCE(?, q_value),
+                   confidence_score = COALESCE(?, confidence_score),
+                   source_tag = COALESCE(?, source_tag),
+                   updated_at = ?
+             WHERE source_hash = ?""";
+    static final String SQL_ENERGY = """
+            UPDATE translation_memory
+               SET energy = ?,
+                   temperature = ?,
+                   updated_at = ?
+             WHERE source_hash = ?""";
+    static final String SQL_ENERGY_SESSION = SQL_ENERGY + "\n   AND session_id = ?";
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final long flushIntervalMs;
+    private final int maxBatch;
+    private final int maxPending;
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    private final Cache<String, Boolean> persisted;
+    private final Object flushLock = new Object();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong flushedRows = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong refused = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private ScheduledExecutorService flusher;
+    private volatile boolean stopped;
+
+    @Autowired
+    public TranslationMemoryWriteBehind(
+            JdbcTemplate jdbc,
+            ObjectProvider<PlatformTransactionManager> txManager,
+            @Value("${memory.reinforce.write-behind.flush-interval-ms:200}") long flushIntervalMs,
+            @Value("${memory.reinforce.write-behind.max-batch:256}") int maxBatch,
+            @Value("${memory.reinforce.write-behind.max-pending:10000}") int maxPending,
+            @Value("${memory.reinforce.write-behind.known-hash-ttl-minutes:10}") long knownHashTtlMinutes) {
+        this(jdbc, txManager == null ? null : txManager.getIfAvailable(), flushIntervalMs, maxBatch, maxPending,
+                Duration.ofMinutes(Math.max(1L, knownHashTtlMinutes)));
+    }
+
+    TranslationMemoryWriteBehind(JdbcTemplate jdbc, PlatformTransactionManager txManager, long flushIntervalMs,
+                                 int maxBatch, int maxPending, Duration knownHashTtl) {
+        this.jdbc = jdbc;
+        if (txManager != null) {
+            this.tx = new TransactionTemplate(txManager);
+            this.tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        } else {
+            this.tx = null;
+        }
+        this.flushIntervalMs = flushIntervalMs;
+        this.maxBatch = Math.max(1, maxBatch);
+        this.maxPending = Math.max(this.maxBatch, maxPending);
+        this.persisted = Caffeine.newBuilder()
+                .expireAfterWrite(knownHashTtl)
+                .maximumSize(Math.max(1_000L, this.maxPending * 4L))
+                .build();
+    }
+
+    @PostConstruct
+    void start() {
+        if (flushIntervalMs <= 0L) {
+            // Size-triggered and shutdown flushes only.
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "tm-write-behind");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        stopped = true;
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flushQuietly();
+    }
+
+    // ---------------------------------------------------------------- request path
+
+    /** Records that {@code sourceHash} has a row, so its hit increments may be deferred. */
+    public void markPersisted(String sourceHash) {
+        if (sourceHash != null && !sourceHash.isBlank()) {
+            persisted.put(sourceHash, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Queues {@code hit_count + 1, last_used_at = now} for a hash known to exist.
+     *
+     * @return {@code false} when the caller must run the inline UPDATE (unknown hash, buffer full, stopped)
+     */
+    public boolean addHit(String sourceHash) {
+        if (sourceHash == null || persisted.getIfPresent(sourceHash) == null) {
+            return false;
+        }
+        return offer(sourceHash, new Pending(1, LocalDateTime.now(), null, null, Map.of()));
+    }
+
+    /**
+     * Queues {@code hit_count + 1, last_used_at = now, score = max(score, :score)} for a hash known to exist
+     * (the deferred form of {@code incrementHitAndBumpLastUsed}).
+     */
+    public boolean addHitAndScore(String sourceHash, double score) {
+        if (sourceHash == null || persisted.getIfPresent(sourceHash) == null) {
+            return false;
+        }
+        return offer(sourceHash, new Pending(1, LocalDateTime.now(), score, null, Map.of()));
+    }
+
+    /**
+     * Queues an energy/temperature write for a row the caller has just loaded. With a non-null
+     * {@code sessionId} the write keeps the inline {@code AND session_id = :sid} condition.
+     */
+    public boolean setEnergy(String sourceHash, String sessionId, double energy, double temperature) {
+        if (sourceHash == null) {
+            return false;
+        }
+        markPersisted(sourceHash);
+        Energy write = new Energy(energy, temperature);
+        return offer(sourceHash, sessionId == null
+                ? new Pending(0, null, null, write, Map.of())
+                : new Pending(0, null, null, null, Map.of(sessionId, write)));
+    }
+
+    /**
+     * Queues one reinforcement of a row the caller has just loaded and will not write itself: {@code hit_count + 1},
+     * the success or failure count + 1, the non-null {@code columns} and the energy/temperature write (see
+     * {@link #setEnergy}), as one update. The caller computes them on top of {@link #queued}.
+     */
+    public boolean addObservation(String sourceHash, String sessionId, boolean success, Observed columns,
+                                  double energy, double temperature) {
+        if (sourceHash == null) {
+            return false;
+        }
+        markPersisted(sourceHash);
+        Energy write = new Energy(energy, temperature);
+        return offer(sourceHash, new Pending(1, null, null, sessionId == null ? write : null,
+                sessionId == null ? Map.of() : Map.of(sessionId, write), success ? 1 : 0, success ? 0 : 1,
+                columns));
+    }
+
+    private boolean offer(String sourceHash, Pending update) {
+        if (stopped) {
+            return false;
+        }
+        if (pending.size() >= maxPending && !pending.containsKey(sourceHash)) {
+            refused.incrementAndGet();
+            requestFlush();
+            return false;
+        }
+        Pending merged = pending.merge(sourceHash, update, Pending::then);
+        if (merged != update) {
+            coalesced.incrementAndGet();
+        }
+        if (pending.size() >= maxBatch) {
+            requestFlush();
+        }
+        return true;
+    }
+
+    private void requestFlush() {
+        if (flusher != null && flushRequested.compareAndSet(false, true)) {
+            try {
+                flusher.execute(() -> {
+                    flushRequested.set(false);
+                    flushQuietly();
+                });
+            } catch (RuntimeException rejected) {
+                flushRequested.set(false);
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------- read-your-writes overlay
+
+    /** Hits queued for {@code sourceHash} that are not in {@code hit_count} yet. */
+    public int pendingHits(String sourceHash) {
+        Pending p = sourceHash == null ? null : pending.get(sourceHash);
+        return p == null ? 0 : p.hits();
+    }
+
+    /**
+     * What is queued for {@code sourceHash} and not in its row yet, or {@code null}: a caller that loads the row to
+     * compute its next values overlays this first, as the inline path would have read it.
+     */
+    public Queued queued(String sourceHash) {
+        Pending p = sourceHash == null ? null : pending.get(sourceHash);
+        return p == null ? null : new Queued(p.hits(), p.lastUsedAt(), p.successes(), p.failures(), p.observed());
+    }
+
+    /** The queued energy of the row ({@code sourceHash}, {@code sessionId}), else {@code stored}. */
+    public Double effectiveEnergy(String sourceHash, String sessionId, Double stored) {
+        Pending p = sourceHash == null ? null : pending.get(sourceHash);
+        if (p == null) {
+            return stored;
+        }
+        Energy queued = sessionId == null ? null : p.sessionEnergy().get(sessionId);
+        if (queued == null) {
+            queued = p.energy();
+        }
+        return queued == null ? stored : Double.valueOf(queued.energy());
+    }
+
+    /**
+     * Re-sorts rows fetched in ascending energy order by their effective (queued or stored) energy, nulls last.
+     * Only the fetched window is re-ranked; returns {@code rows} itself when nothing is pending.
+     */
+    public <T> List<T> rankByEnergy(List<T> rows, Function<T, String> hashOf, Function<T, String> sessionOf,
+                                    Function<T, Double> energyOf) {
+        if (rows == null || rows.size() < 2 || pending.isEmpty()) {
+            return rows;
+        }
+        List<T> ranked = new ArrayList<>(rows);
+        ranked.sort(Comparator.comparing(
+                (T row) -> effectiveEnergy(hashOf.apply(row), sessionOf.apply(row), energyOf.apply(row)),
+                Comparator.nullsLast(Comparator.naturalOrder())));
+        return ranked;
+    }
+
+    // ---------------------------------------------------------------- flush
+
+    /** Flushes everything pending now; returns the number of rows the batch updates touched. */
+    public int flush() {
+        synchronized (flushLock) {
+            List<Map.Entry<String, Pending>> drained = new ArrayList<>(pending.size());
+            for (String hash : List.copyOf(pending.keySet())) {
+                Pending p = pending.remove(hash);
+                if (p != null) {
+                    drained.add(Map.entry(hash, p));
+                }
+            }
+            if (drained.isEmpty()) {
+                return 0;
+            }
+            try {
+                int rows = tx == null ? write(drained) : tx.execute(status -> write(drained));
+                flushes.incrementAndGet();
+                flushedRows.addAndGet(rows);
+                return rows;
+            } catch (RuntimeException e) {
+                failures.incrementAndGet();
+                // Older than anything queued since the drain: merge back underneath it.
+                for (Map.Entry<String, Pending> entry : drained) {
+                    pending.merge(entry.getKey(), entry.getValue(), (current, retry) -> retry.then(current));
+                }
+                throw e;
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.warn("[MemoryWriteBehind] flush failed; {} hashes kept for retry: errorHash={} errorLength={}",
+                    pending.size(), SafeRedactor.hashValue(String.valueOf(e)), String.valueOf(e).length());
+        }
+    }
+
+    private int write(List<Map.Entry<String, Pending>> drained) {
+        // updated_at drives the BM25 increment cursor, so it is the time the row actually changes.
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> hits = new ArrayList<>();
+        List<Object[]> scores = new ArrayList<>();
+        List<Object[]> observed = new ArrayList<>();
+        List<Object[]> energies = new ArrayList<>();
+        List<Object[]> sessionEnergies = new ArrayList<>();
+        for (Map.Entry<String, Pending> entry : drained) {
+            String hash = entry.getKey();
+            Pending p = entry.getValue();
+            if (p.hits() > 0) {
+                hits.add(new Object[]{p.hits(), p.lastUsedAt(), hash});
+            }
+            if (p.score() != null) {
+                scores.add(new Object[]{p.score(), hash});
+            }
+            if (p.successes() > 0 || p.failures() > 0 || p.observed() != null) {
+                Observed o = p.observed() == null ? Observed.NONE : p.observed();
+                observed.add(new Object[]{p.successes(), p.failures(), o.score(), o.qValue(), o.confidence(),
+                        o.sourceTag(), now, hash});
+            }
+            if (p.energy() != null) {
+                energies.add(new Object[]{p.energy().energy(), p.energy().temperature(), now, hash});
+            }
+            // At most one of these matches the row, and all of them came after the unconditional write.
+            for (Map.Entry<String, Energy> write : p.sessionEnergy().entrySet()) {
+                sessionEnergies.add(new Object[]{write.getValue().energy(), write.getValue().temperature(), now, hash,
+                        write.getKey()});
+            }
+        }
+        return batch(SQL_HITS, hits) + batch(SQL_SCORE, scores) + batch(SQL_OBSERVED, observed)
+                + batch(SQL_ENERGY, energies)
+                + batch(SQL_ENERGY_SESSION, sessionEnergies);
+    }
+
+    private int batch(String sql, List<Object[]> args) {
+        if (args.isEmpty()) {
+            return 0;
+        }
+        int rows = 0;
+        for (int n : jdbc.batchUpdate(sql, args)) {
+            // Drivers may report SUCCESS_NO_INFO (-2) for batched statements.
+            rows += Math.max(n, 0);
+        }
+        return rows;
+    }
+
+    public Stats stats() {
+        return new Stats(pending.size(), flushes.get(), flushedRows.get(), coalesced.get(), refused.get(),
+                failures.get());
+    }
+
+    public record Stats(int pendingHashes, long flushes, long flushedRows, long coalesced, long refused,
+                        long failures) {
+    }
+
+    record Energy(double energy, double temperature) {
+    }
+
+    /**
+     * Column values a reinforcement sets on its row; {@code null} keeps the column. {@code score} here replaces the
+     * column, unlike the maximum kept by {@link #addHitAndScore}.
+     */
+    public record Observed(Double score, Double qValue, Double confidence, String sourceTag) {
+
+        static final Observed NONE = new Observed(null, null, null, null);
+
+        Observed then(Observed next) {
+            if (next == null) {
+                return this;
+            }
+            return new Observed(next.score != null ? next.score : score, next.qValue != null ? next.qValue : qValue,
+                    next.confidence != null ? next.confidence : confidence,
+                    next.sourceTag != null ? next.sourceTag : sourceTag);
+        }
+    }
+
+    /** Snapshot of one hash's queued updates; see {@link #queued}. {@code observed} may be {@code null}. */
+    public record Queued(int hits, LocalDateTime lastUsedAt, int successes, int failures, Observed observed) {
+    }
+
+    /**
+     * Merged, not-yet-flushed updates of one hash; {@code null} fields mean "untouched". {@code sessionEnergy}
+     * holds the latest {@code AND session_id = ?} write per session made after {@code energy}. At most one of
+     * {@code score} (a maximum) and {@code observed.score} (a replacement) is set.
+     */
+    record Pending(int hits, LocalDateTime lastUsedAt, Double score, Energy energy, Map<String, Energy> sessionEnergy,
+                   int successes, int failures, Observed observed) {
+
+        Pending(int hits, LocalDateTime lastUsedAt, Double score, Energy energy, Map<String, Energy> sessionEnergy) {
+            this(hits, lastUsedAt, score, energy, sessionEnergy, 0, 0, null);
+        }
+
+        /** This update followed by {@code next}. */
+        Pending then(Pending next) {
+            LocalDateTime lastUsed = lastUsedAt == null ? next.lastUsedAt
+                    : next.lastUsedAt == null || lastUsedAt.isAfter(next.lastUsedAt) ? lastUsedAt : next.lastUsedAt;
+            Observed columns = observed == null ? next.observed : observed.then(next.observed);
+            Double maxScore = score;
+            if (next.observed != null && next.observed.score() != null) {
+                // A later replacement wins over any earlier maximum.
+                maxScore = null;
+            } else if (next.score != null) {
+                if (columns != null && columns.score() != null) {
+                    columns = new Observed(Math.max(columns.score(), next.score), columns.qValue(),
+                            columns.confidence(), columns.sourceTag());
+                } else if (score == null || next.score > score) {
+                    maxScore = next.score;
+                }
+            }
+            int hitSum = hits + next.hits;
+            int successSum = successes + next.successes;
+            int failureSum = failures + next.failures;
+            if (next.energy != null) {
+                // A later unconditional write overrides everything written before it.
+                return new Pending(hitSum, lastUsed, maxScore, next.energy, next.sessionEnergy, successSum,
+                        failureSum, columns);
+            }
+            Map<String, Energy> sessions = sessionEnergy;
+            if (!next.sessionEnergy.isEmpty()) {
+                sessions = new HashMap<>(sessionEnergy);
+                sessions.putAll(next.sessionEnergy);
+                sessions = Map.copyOf(sessions);
+            }
+            return new Pending(hitSum, lastUsed, maxScore, energy, sessions, successSum, failureSum, columns);
+        }
+    }
+}
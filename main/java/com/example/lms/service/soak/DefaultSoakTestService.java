@@ -2,6 +2,7 @@ package com.example.lms.service.soak;
 
 import com.example.lms.infra.resilience.NightmareBreaker;
 import com.example.lms.search.TraceStore;
+import com.example.lms.service.web.quota.ProviderQuotaPriority;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import java.time.Instant;
 import java.util.ArrayList;
@@ -44,10 +45,14 @@ public class DefaultSoakTestService implements SoakTestService {
             runs++;
             long t0 = System.currentTimeMillis();
             List<SearchOrchestrator.SearchResult> results = Collections.emptyList();
+            // Soak traffic is background: it yields provider quota to interactive chat.
+            Object prevQuotaPriority = ProviderQuotaPriority.mark(ProviderQuotaPriority.BACKGROUND);
             try {
                 results = orchestrator.search(q, k);
             } catch (Exception error) {
                 traceSuppressed("runSearch", "run_search", error);
+            } finally {
+                ProviderQuotaPriority.restore(prevQuotaPriority);
             }
             long took = System.currentTimeMillis() - t0;
             latencies.add(took);
@@ -103,6 +108,7 @@ public class DefaultSoakTestService implements SoakTestService {
             long t0 = System.currentTimeMillis();
             List<SearchOrchestrator.SearchResult> results = Collections.emptyList();
             String note = null;
+            Object prevQuotaPriority = ProviderQuotaPriority.mark(ProviderQuotaPriority.BACKGROUND);
             try {
                 results = orchestrator.search(q, Math.max(1, k));
             } catch (Exception e) {
@@ -112,6 +118,8 @@ public class DefaultSoakTestService implements SoakTestService {
                 if (note.toLowerCase().contains("timeout")) {
                     timeouts++;
                 }
+            } finally {
+                ProviderQuotaPriority.restore(prevQuotaPriority);
             }
             long took = System.currentTimeMillis() - t0;
             latencies.add(took);
@@ -0,0 +1,166 @@
+package com.example.lms.service.trace;
+
+import com.example.lms.domain.ChatMessage;
+import com.example.lms.domain.ChatSession;
+import com.example.lms.repository.ChatMessageRepository;
+import com.example.lms.repository.ChatSessionRepository;
+import com.example.lms.service.ChatHistoryService;
+import com.example.lms.trace.SafeRedactor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * One-way migration of legacy inline trace system messages ({@code ⎔TRACE⎔}, {@code ⎔TRACE64⎔},
+ * {@code ?TRACE?}, {@code ?TRACE64?}, {@code ?TRACESNAP?}) into {@code chat_trace_record} rows.
+ *
+ * <p>Opt-in ({@code trace.record.migration.enabled=true}) because it deletes {@code chat_message} rows; legacy
+ * rows keep rendering through {@link com.example.lms.api.ChatTraceMetaMessageRestorer} until it has run. When
+ * enabled it runs once per boot after the context is ready (no Flyway in this project, schema comes from
+ * ddl-auto). Each message is converted in its own short transaction that first deletes the message and only
+ * continues if that delete removed the row, so instances booting together never convert a message twice.
+ * Record insert, message delete and {@code ChatSession.lastTraceTurnId} remap commit together, so an
+ * interrupted run simply resumes on the next boot. Once nothing is left the prefix scans return empty pages
+ * immediately.</p>
+ */
+@Component
+public class ChatTraceRecordMigration implements ApplicationListener<ApplicationReadyEvent> {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatTraceRecordMigration.class);
+
+    static final List<String> HTML_PREFIXES = List.of("⎔TRACE⎔", "?TRACE?");
+    static final List<String> B64_PREFIXES = List.of("⎔TRACE64⎔", "?TRACE64?");
+    static final String SNAPSHOT_PREFIX = "?TRACESNAP?";
+
+    private final ChatMessageRepository messageRepository;
+    private final ChatSessionRepository sessionRepository;
+    private final ChatHistoryService historyService;
+    private final ChatTraceRecordService traceRecordService;
+    private final TransactionTemplate tx;
+
+    @Value("${trace.record.migration.enabled:false}")
+    private boolean enabled = false;
+
+    @Value("${trace.record.migration.batch-size:200}")
+    private int batchSize = 200;
+
+    public ChatTraceRecordMigration(ChatMessageRepository messageRepository,
+                                    ChatSessionRepository sessionRepository,
+                                    ChatHistoryService historyService,
+                                    ChatTraceRecordService traceRecordService,
+                                    PlatformTransactionManager txManager) {
+        this.messageRepository = messageRepository;
+        this.sessionRepository = sessionRepository;
+        this.historyService = historyService;
+        this.traceRecordService = traceRecordService;
+        this.tx = new TransactionTemplate(txManager);
+        this.tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int migrated = migrateAll();
+            if (migrated > 0) {
+                log.info("[AWX][trace] migrated {} inline trace messages into chat_trace_record", migrated);
+            }
+        } catch (Exception e) {
+            // fail-soft: a later boot retries the remaining rows
+            log.warn("[AWX][trace] inline trace migration stopped errorType={}",
+                    SafeRedactor.traceLabelOrFallback(e.getClass().getSimpleName(), "unknown"));
+        }
+    }
+
+    int migrateAll() {
+        int migrated = 0;
+        for (String prefix : allPrefixes()) {
+            long cursor = 0L;
+            while (true) {
+                List<ChatMessage> page = messageRepository.findByRoleAndContentStartingWithAndIdGreaterThanOrderByIdAsc(
+                        "system", prefix, cursor, PageRequest.of(0, Math.max(1, batchSize)));
+                if (page.isEmpty()) {
+                    break;
+                }
+                for (ChatMessage m : page) {
+                    cursor = Math.max(cursor, m.getId());
+                    Boolean done = tx.execute(status -> migrateOne(m));
+                    if (Boolean.TRUE.equals(done)) {
+                        migrated++;
+                    }
+                }
+            }
+        }
+        return migrated;
+    }
+
+    private boolean migrateOne(ChatMessage m) {
+        Long sessionId = m.getSession() == null ? null : m.getSession().getId();
+        Legacy legacy = parse(m.getContent());
+        if (sessionId == null || legacy == null) {
+            return false;
+        }
+        if (messageRepository.deleteByIdReturningCount(m.getId()) == 0) {
+            // another instance (or an earlier page of this run) already converted it
+            return false;
+        }
+        Long recordId = traceRecordService.persistLegacy(sessionId, legacy.kind(), legacy.text(), m.getId(),
+                m.getCreatedAt());
+        ChatSession session = sessionRepository.findById(sessionId).orElse(null);
+        if (session != null && Objects.equals(session.getLastTraceTurnId(), m.getId())) {
+            historyService.updateSessionAnswerModeAndTrace(sessionId, session.getLastAnswerMode(), recordId);
+        }
+        return true;
+    }
+
+    record Legacy(TraceRecordCodec.Kind kind, String text) {
+    }
+
+    /** Maps a legacy system message body to its record payload, or {@code null} if it is not a trace row. */
+    static Legacy parse(String content) {
+        if (content == null) {
+            return null;
+        }
+        // "?TRACE64?" / "?TRACESNAP?" also start with "?TRACE" — test the longer prefixes first.
+        if (content.startsWith(SNAPSHOT_PREFIX)) {
+            return new Legacy(TraceRecordCodec.Kind.SNAPSHOT_REF, content.substring(SNAPSHOT_PREFIX.length()).trim());
+        }
+        for (String prefix : B64_PREFIXES) {
+            if (content.startsWith(prefix)) {
+                String b64 = content.substring(prefix.length()).trim();
+                try {
+                    return new Legacy(TraceRecordCodec.Kind.LEGACY_HTML,
+                            new String(Base64.getDecoder().decode(b64), StandardCharsets.UTF_8));
+                } catch (IllegalArgumentException e) {
+                    // keep the undecodable payload as-is; it is only ever shown as a redacted summary
+                    return new Legacy(TraceRecordCodec.Kind.LEGACY_HTML, b64);
+                }
+            }
+        }
+        for (String prefix : HTML_PREFIXES) {
+            if (content.startsWith(prefix)) {
+                return new Legacy(TraceRecordCodec.Kind.LEGACY_HTML, content.substring(prefix.length()).trim());
+            }
+        }
+        return null;
+    }
+
+    private static List<String> allPrefixes() {
+        return List.of(SNAPSHOT_PREFIX, B64_PREFIXES.get(0), B64_PREFIXES.get(1), HTML_PREFIXES.get(0),
+                HTML_PREFIXES.get(1));
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.lms.service.trace;
+
+import com.example.lms.domain.ChatTraceRecord;
+import com.example.lms.repository.ChatTraceRecordRepository;
+import com.example.lms.search.TraceStore;
+import com.example.lms.trace.SafeRedactor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.util.HtmlUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Persists search traces as compact {@link TraceRecordCodec} rows and renders the panel HTML lazily.
+ *
+ * <p>The chat request path only captures and encodes a {@link TraceRecord}; {@link TraceHtmlBuilder} runs
+ * when a client opens the trace view, and the result is kept in a bounded LRU so re-opening a panel is a
+ * cache hit. Every method is fail-soft: a trace problem never fails the chat turn or the history load.</p>
+ */
+@Service
+public class ChatTraceRecordService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatTraceRecordService.class);
+
+    private final ChatTraceRecordRepository repository;
+    private final TraceHtmlBuilder traceHtmlBuilder;
+    private final Cache<Long, String> renderedPanels;
+
+    public ChatTraceRecordService(ChatTraceRecordRepository repository,
+                                  TraceHtmlBuilder traceHtmlBuilder,
+                                  @Value("${trace.record.render-cache.max-size:256}") long renderCacheMaxSize) {
+        this.repository = repository;
+        this.traceHtmlBuilder = traceHtmlBuilder;
+        this.renderedPanels = Caffeine.newBuilder()
+                .maximumSize(Math.max(1L, renderCacheMaxSize))
+                .build();
+    }
+
+    /** @return the new record id, or {@code null} when nothing was persisted */
+    public Long persist(Long sessionId, TraceRecord record) {
+        if (sessionId == null || record == null || record.rawTrace() == null) {
+            return null;
+        }
+        try {
+            return save(sessionId, TraceRecordCodec.Kind.PANEL, TraceRecordCodec.encode(record), null, null);
+        } catch (Exception e) {
+            traceSuppressed("persist", e);
+            return null;
+        }
+    }
+
+    /** Stores a legacy inline trace payload; used by {@link ChatTraceRecordMigration}. */
+    Long persistLegacy(Long sessionId, TraceRecordCodec.Kind kind, String text, Long sourceMessageId,
+                       LocalDateTime createdAt) {
+        return save(sessionId, kind, TraceRecordCodec.encodeText(kind, text), sourceMessageId, createdAt);
+    }
+
+    public Optional<Long> sessionIdOf(Long traceId) {
+        if (traceId == null) {
+            return Optional.empty();
+        }
+        try {
+            return repository.findRefById(traceId).map(ChatTraceRecordRepository.Ref::getSessionId);
+        } catch (Exception e) {
+            traceSuppressed("sessionLookup", e);
+            return Optional.empty();
+        }
+    }
+
+    public List<ChatTraceRecordRepository.Ref> refs(Long sessionId) {
+        if (sessionId == null) {
+            return List.of();
+        }
+        try {
+            return repository.findRefsBySessionIdOrderByIdAsc(sessionId);
+        } catch (Exception e) {
+            traceSuppressed("refs", e);
+            return List.of();
+        }
+    }
+
+    public Optional<Long> latestId(Long sessionId) {
+        if (sessionId == null) {
+            return Optional.empty();
+        }
+        try {
+            return repository.findTopBySessionIdOrderByIdDesc(sessionId).map(ChatTraceRecordRepository.Ref::getId);
+        } catch (Exception e) {
+            traceSuppressed("latest", e);
+            return Optional.empty();
+        }
+    }
+
+    /** Rendered panel HTML (LRU-cached), or {@code null} when the record is missing or unreadable. */
+    public String renderHtml(Long traceId) {
+        if (traceId == null) {
+            return null;
+        }
+        return renderedPanels.get(traceId, this::renderUncached);
+    }
+
+    @Transactional
+    public void deleteSession(Long sessionId) {
+        if (sessionId == null) {
+            return;
+        }
+        try {
+            List<ChatTraceRecordRepository.Ref> refs = repository.findRefsBySessionIdOrderByIdAsc(sessionId);
+            repository.deleteBySessionId(sessionId);
+            refs.forEach(r -> renderedPanels.invalidate(r.getId()));
+        } catch (Exception e) {
+            traceSuppressed("delete", e);
+        }
+    }
+
+    String renderUncached(Long traceId) {
+        try {
+            ChatTraceRecord row = repository.findById(traceId).orElse(null);
+            if (row == null || row.getPayload() == null) {
+                return null;
+            }
+            byte[] payload = row.getPayload();
+            switch (TraceRecordCodec.kindOf(payload)) {
+                case PANEL: {
+                    TraceRecord r = TraceRecordCodec.decode(payload);
+                    return traceHtmlBuilder.buildSplitPanelFromSanitized(
+                            r.rawTrace(), r.rawSnippets(), r.webTopK(), r.vectorTopK(), r.safeMeta());
+                }
+                case LEGACY_HTML:
+                    // Same policy as the legacy message restorer: summaries only, never the stored raw HTML.
+                    return "<div class=\"search-trace trace-legacy\" data-trace-redacted=\"1\"><pre>"
+                            + HtmlUtils.htmlEscape("traceHtml=" + SafeRedactor.diagnosticText(
+                            "traceHtml", TraceRecordCodec.decodeText(payload), 12000))
+                            + "</pre></div>";
+                case SNAPSHOT_REF:
+                    return snapshotCard(TraceRecordCodec.decodeText(payload));
+                default:
+                    return null;
+            }
+        } catch (Exception e) {
+            traceSuppressed("render", e);
+            return null;
+        }
+    }
+
+    private Long save(Long sessionId, TraceRecordCodec.Kind kind, byte[] payload, Long sourceMessageId,
+                      LocalDateTime createdAt) {
+        ChatTraceRecord row = new ChatTraceRecord();
+        row.setSessionId(sessionId);
+        row.setCodecVersion(TraceRecordCodec.VERSION);
+        row.setKind(kind.name());
+        row.setPayload(payload);
+        row.setSourceMessageId(sourceMessageId);
+        row.setCreatedAt(createdAt);
+        return repository.save(row).getId();
+    }
+
+    private static String snapshotCard(String snapshotId) {
+        if (snapshotId == null || !snapshotId.matches("[A-Za-z0-9_.:-]{1,160}")) {
+            return null;
+        }
+        return "<div class=\"search-trace trace-snapshot-card\" data-trace-snapshot-id=\"" + snapshotId + "\">"
+                + "<strong>Trace snapshot</strong>"
+                + "<a href=\"/api/diagnostics/trace/snapshots/" + snapshotId
+                + "/html\" target=\"_blank\" rel=\"noopener noreferrer\">Open trace snapshot</a>"
+                + "</div>";
+    }
+
+    private static void traceSuppressed(String stage, Exception e) {
+        String errorType = SafeRedactor.traceLabelOrFallback(e.getClass().getSimpleName(), "unknown");
+        TraceStore.put("chat.traceRecord.suppressed.stage", stage);
+        TraceStore.put("chat.traceRecord.suppressed.errorType", errorType);
+        log.debug("[AWX][trace] trace record {} skipped errorType={}", stage, errorType);
+    }
+}
@@ -54,11 +54,30 @@ public class TraceHtmlBuilder {
         if (rawTrace == null) {
             return "";
         }
+        return buildSplitPanelFromSanitized(rawTrace, rawSnippets, webTopK, vectorTopK, sanitizeMeta(extraMeta));
+    }
+
+    /**
+     * Same panel as {@link #buildSplitPanel(NaverSearchService.SearchTrace, List, List, List, Map)}, for meta that
+     * already went through {@link #sanitizeExtraMeta(Map)} (e.g. a persisted {@link TraceRecord}).
+     * Redaction is not idempotent for identifier keys, so the meta must not be sanitized twice.
+     */
+    public String buildSplitPanelFromSanitized(
+            NaverSearchService.SearchTrace rawTrace,
+            List<String> rawSnippets,
+            List<Content> webTopK,
+            List<Content> vectorTopK,
+            Map<String, Object> safeExtraMeta) {
+        if (rawTrace == null) {
+            return "";
+        }
+        if (safeExtraMeta == null) {
+            safeExtraMeta = java.util.Map.of();
+        }
 
         int rawCount = (rawSnippets == null) ? 0 : rawSnippets.size();
         boolean webEnabled = webTopK != null;
         boolean vectorEnabled = vectorTopK != null;
-        Map<String, Object> safeExtraMeta = sanitizeMeta(extraMeta);
 
         RiskLevel risk = evaluateRisk(safeExtraMeta);
         String riskClass = cssRiskClass(risk);
@@ -1089,6 +1108,11 @@ public class TraceHtmlBuilder {
         return safeValue(safe);
     }
 
+    /** Redacted copy of the extra meta exactly as the split panel renders it. */
+    public static Map<String, Object> sanitizeExtraMeta(Map<String, Object> meta) {
+        return sanitizeMeta(meta);
+    }
+
     private static Map<String, Object> sanitizeMeta(Map<String, Object> meta) {
         if (meta == null || meta.isEmpty()) {
             return java.util.Map.of();
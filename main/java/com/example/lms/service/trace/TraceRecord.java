@@ -0,0 +1,43 @@
+package com.example.lms.service.trace;
+
+import com.example.lms.service.NaverSearchService;
+import dev.langchain4j.rag.content.Content;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything {@link TraceHtmlBuilder#buildSplitPanelFromSanitized} needs to render a search trace panel,
+ * captured on the request path instead of the rendered HTML.
+ *
+ * <p>{@code safeMeta} is already redacted ({@link TraceHtmlBuilder#sanitizeExtraMeta(Map)}), so a persisted
+ * record never holds raw planner/orchestration meta. Lists keep {@code null} to mean "section disabled",
+ * exactly like the builder arguments.</p>
+ */
+public record TraceRecord(
+        NaverSearchService.SearchTrace rawTrace,
+        List<String> rawSnippets,
+        List<Content> webTopK,
+        List<Content> vectorTopK,
+        Map<String, Object> safeMeta) {
+
+    public static TraceRecord capture(
+            NaverSearchService.SearchTrace rawTrace,
+            List<String> rawSnippets,
+            List<Content> webTopK,
+            List<Content> vectorTopK,
+            Map<String, Object> extraMeta) {
+        return new TraceRecord(
+                rawTrace,
+                copyOf(rawSnippets),
+                copyOf(webTopK),
+                copyOf(vectorTopK),
+                TraceHtmlBuilder.sanitizeExtraMeta(extraMeta));
+    }
+
+    private static <T> List<T> copyOf(List<T> list) {
+        // ArrayList, not List.copyOf: the builder tolerates null elements.
+        return list == null ? null : new ArrayList<>(list);
+    }
+}
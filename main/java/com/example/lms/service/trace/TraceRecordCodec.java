@@ -0,0 +1,481 @@
+package com.example.lms.service.trace;
+
+import com.example.lms.service.NaverSearchService;
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.rag.content.Content;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Versioned binary form of a {@link TraceRecord} (and of legacy inline trace payloads).
+ *
+ * <pre>
+ * 'A' 'T'  magic
+ * u8       codec version ({@link #VERSION})
+ * u8       {@link Kind} code
+ * ...      DEFLATE stream: PANEL = trace, snippets, web/vector contents, meta tree;
+ *          LEGACY_HTML / SNAPSHOT_REF = a single string
+ * </pre>
+ *
+ * <p>Ints/longs are zig-zag varints and strings are varint-length UTF-8, with {@code -1} standing for
+ * {@code null} (strings and lists alike). The meta tree keeps the shapes {@code SafeRedactor.diagnosticValue}
+ * produces: String/Boolean/Integer/Long/Double/Float/Map/List; any other Number round-trips as a
+ * {@link BigDecimal} with the same {@code toString()}.</p>
+ */
+public final class TraceRecordCodec {
+
+    public static final int VERSION = 1;
+
+    private static final byte MAGIC_0 = 'A';
+    private static final byte MAGIC_1 = 'T';
+    private static final int MAX_LENGTH = 16 * 1024 * 1024;
+    private static final int MAX_DEPTH = 32;
+
+    private static final int T_NULL = 0;
+    private static final int T_STRING = 1;
+    private static final int T_TRUE = 2;
+    private static final int T_FALSE = 3;
+    private static final int T_INT = 4;
+    private static final int T_LONG = 5;
+    private static final int T_DOUBLE = 6;
+    private static final int T_FLOAT = 7;
+    private static final int T_NUMBER = 8;
+    private static final int T_LIST = 9;
+    private static final int T_MAP = 10;
+    private static final int T_UUID = 11;
+
+    public enum Kind {
+        PANEL(1), LEGACY_HTML(2), SNAPSHOT_REF(3);
+
+        final int code;
+
+        Kind(int code) {
+            this.code = code;
+        }
+
+        static Kind ofCode(int code) {
+            for (Kind k : values()) {
+                if (k.code == code) {
+                    return k;
+                }
+            }
+            throw new IllegalArgumentException("unknown trace record kind " + code);
+        }
+    }
+
+    private TraceRecordCodec() {
+    }
+
+    public static byte[] encode(TraceRecord record) {
+        if (record == null) {
+            throw new IllegalArgumentException("record");
+        }
+        return write(Kind.PANEL, out -> {
+            writeTrace(out, record.rawTrace());
+            writeStrings(out, record.rawSnippets());
+            writeContents(out, record.webTopK());
+            writeContents(out, record.vectorTopK());
+            writeValue(out, record.safeMeta(), 0);
+        });
+    }
+
+    /** Encodes a legacy payload (inline trace HTML or a snapshot id) that has no structured form. */
+    public static byte[] encodeText(Kind kind, String text) {
+        if (kind == null || kind == Kind.PANEL) {
+            throw new IllegalArgumentException("kind");
+        }
+        return write(kind, out -> writeString(out, text));
+    }
+
+    public static Kind kindOf(byte[] bytes) {
+        checkHeader(bytes);
+        return Kind.ofCode(bytes[3] & 0xff);
+    }
+
+    public static TraceRecord decode(byte[] bytes) {
+        if (kindOf(bytes) != Kind.PANEL) {
+            throw new IllegalArgumentException("not a trace panel record");
+        }
+        return read(bytes, in -> new TraceRecord(
+                readTrace(in),
+                readStrings(in),
+                readContents(in),
+                readContents(in),
+                asMap(readValue(in, 0))));
+    }
+
+    public static String decodeText(byte[] bytes) {
+        if (kindOf(bytes) == Kind.PANEL) {
+            throw new IllegalArgumentException("trace panel record has no text payload");
+        }
+        return read(bytes, TraceRecordCodec::readString);
+    }
+
+    // ------------------------------------------------------------------ framing
+
+    private interface BodyWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private interface BodyReader<T> {
+        T read(DataInputStream in) throws IOException;
+    }
+
+    private static byte[] write(Kind kind, BodyWriter body) {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream(1024);
+        buf.write(MAGIC_0);
+        buf.write(MAGIC_1);
+        buf.write(VERSION);
+        buf.write(kind.code);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        // Buffer in front of the deflater: varints are written a byte at a time.
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new DeflaterOutputStream(buf, deflater, 4096), 8192))) {
+            body.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deflater.end();
+        }
+        return buf.toByteArray();
+    }
+
+    private static <T> T read(byte[] bytes, BodyReader<T> body) {
+        Inflater inflater = new Inflater();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new InflaterInputStream(
+                new ByteArrayInputStream(bytes, 4, bytes.length - 4), inflater, 4096), 8192))) {
+            return body.read(in);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("corrupt trace record: " + e.getClass().getSimpleName(), e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void checkHeader(byte[] bytes) {
+        if (bytes == null || bytes.length < 4 || bytes[0] != MAGIC_0 || bytes[1] != MAGIC_1) {
+            throw new IllegalArgumentException("not a trace record");
+        }
+        int version = bytes[2] & 0xff;
+        if (version != VERSION) {
+            throw new IllegalArgumentException("unsupported trace record version " + version);
+        }
+    }
+
+    // ------------------------------------------------------------------ trace / contents
+
+    private static void writeTrace(DataOutputStream out, NaverSearchService.SearchTrace t) throws IOException {
+        out.writeBoolean(t != null);
+        if (t == null) {
+            return;
+        }
+        writeVarLong(out, t.steps.size());
+        for (NaverSearchService.SearchStep s : t.steps) {
+            out.writeBoolean(s != null);
+            if (s == null) {
+                continue;
+            }
+            writeString(out, s.query);
+            writeVarLong(out, s.returned);
+            writeVarLong(out, s.afterFilter);
+            writeVarLong(out, s.tookMs);
+        }
+        out.writeBoolean(t.domainFilterEnabled);
+        out.writeBoolean(t.keywordFilterEnabled);
+        writeString(out, t.suffixApplied);
+        writeVarLong(out, t.totalMs);
+        writeString(out, t.query);
+        writeString(out, t.queryHash);
+        writeVarLong(out, t.queryLength);
+        writeString(out, t.queryTokenBucket);
+        writeString(out, t.provider);
+        writeString(out, t.reasonDomainFilterDisabled);
+        writeString(out, t.reasonKeywordFilterDisabled);
+        out.writeBoolean(t.orgResolved);
+        writeString(out, t.orgCanonical);
+        writeStrings(out, t.siteFiltersApplied);
+    }
+
+    private static NaverSearchService.SearchTrace readTrace(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        NaverSearchService.SearchTrace t = new NaverSearchService.SearchTrace();
+        int steps = readLength(in);
+        for (int i = 0; i < steps; i++) {
+            if (!in.readBoolean()) {
+                t.steps.add(null);
+                continue;
+            }
+            t.steps.add(new NaverSearchService.SearchStep(
+                    readString(in), (int) readVarLong(in), (int) readVarLong(in), readVarLong(in)));
+        }
+        t.domainFilterEnabled = in.readBoolean();
+        t.keywordFilterEnabled = in.readBoolean();
+        t.suffixApplied = readString(in);
+        t.totalMs = readVarLong(in);
+        t.query = readString(in);
+        t.queryHash = readString(in);
+        t.queryLength = (int) readVarLong(in);
+        t.queryTokenBucket = readString(in);
+        t.provider = readString(in);
+        t.reasonDomainFilterDisabled = readString(in);
+        t.reasonKeywordFilterDisabled = readString(in);
+        t.orgResolved = in.readBoolean();
+        t.orgCanonical = readString(in);
+        t.siteFiltersApplied = readStrings(in);
+        return t;
+    }
+
+    private static void writeContents(DataOutputStream out, List<Content> contents) throws IOException {
+        if (contents == null) {
+            writeVarLong(out, -1);
+            return;
+        }
+        writeVarLong(out, contents.size());
+        for (Content c : contents) {
+            TextSegment seg = c == null ? null : c.textSegment();
+            out.writeBoolean(seg != null);
+            if (seg == null) {
+                continue;
+            }
+            writeString(out, seg.text());
+            writeValue(out, seg.metadata() == null ? null : seg.metadata().toMap(), 0);
+        }
+    }
+
+    private static List<Content> readContents(DataInputStream in) throws IOException {
+        int n = readNullableLength(in);
+        if (n < 0) {
+            return null;
+        }
+        List<Content> out = new ArrayList<>(Math.min(n, 1024));
+        for (int i = 0; i < n; i++) {
+            if (!in.readBoolean()) {
+                out.add(null);
+                continue;
+            }
+            String text = readString(in);
+            Map<String, Object> md = asMap(readValue(in, 0));
+            out.add(Content.from(TextSegment.from(text, md == null ? new Metadata() : Metadata.from(md))));
+        }
+        return out;
+    }
+
+    // ------------------------------------------------------------------ value tree
+
+    private static void writeValue(DataOutputStream out, Object v, int depth) throws IOException {
+        if (depth > MAX_DEPTH) {
+            v = "(depth-limit)";
+        }
+        if (v == null) {
+            out.writeByte(T_NULL);
+        } else if (v instanceof String s) {
+            out.writeByte(T_STRING);
+            writeString(out, s);
+        } else if (v instanceof Boolean b) {
+            out.writeByte(b ? T_TRUE : T_FALSE);
+        } else if (v instanceof Integer i) {
+            out.writeByte(T_INT);
+            writeVarLong(out, i);
+        } else if (v instanceof Long l) {
+            out.writeByte(T_LONG);
+            writeVarLong(out, l);
+        } else if (v instanceof Double d) {
+            out.writeByte(T_DOUBLE);
+            out.writeDouble(d);
+        } else if (v instanceof Float f) {
+            out.writeByte(T_FLOAT);
+            out.writeFloat(f);
+        } else if (v instanceof Number n) {
+            out.writeByte(T_NUMBER);
+            writeString(out, n.toString());
+        } else if (v instanceof UUID u) {
+            out.writeByte(T_UUID);
+            out.writeLong(u.getMostSignificantBits());
+            out.writeLong(u.getLeastSignificantBits());
+        } else if (v instanceof Map<?, ?> m) {
+            out.writeByte(T_MAP);
+            writeVarLong(out, m.size());
+            for (Map.Entry<?, ?> e : m.entrySet()) {
+                writeString(out, String.valueOf(e.getKey()));
+                writeValue(out, e.getValue(), depth + 1);
+            }
+        } else if (v instanceof List<?> list) {
+            out.writeByte(T_LIST);
+            writeVarLong(out, list.size());
+            for (Object item : list) {
+                writeValue(out, item, depth + 1);
+            }
+        } else {
+            out.writeByte(T_STRING);
+            writeString(out, String.valueOf(v));
+        }
+    }
+
+    private static Object readValue(DataInputStream in, int depth) throws IOException {
+        if (depth > MAX_DEPTH + 1) {
+            throw new IOException("depth");
+        }
+        int tag = in.readUnsignedByte();
+        switch (tag) {
+            case T_NULL:
+                return null;
+            case T_STRING:
+                return readString(in);
+            case T_TRUE:
+                return Boolean.TRUE;
+            case T_FALSE:
+                return Boolean.FALSE;
+            case T_INT:
+                return (int) readVarLong(in);
+            case T_LONG:
+                return readVarLong(in);
+            case T_DOUBLE:
+                return in.readDouble();
+            case T_FLOAT:
+                return in.readFloat();
+            case T_NUMBER:
+                return new BigDecimal(readString(in));
+            case T_UUID:
+                return new UUID(in.readLong(), in.readLong());
+            case T_MAP: {
+                int n = readLength(in);
+                Map<String, Object> m = new LinkedHashMap<>();
+                for (int i = 0; i < n; i++) {
+                    String key = readString(in);
+                    m.put(key, readValue(in, depth + 1));
+                }
+                return m;
+            }
+            case T_LIST: {
+                int n = readLength(in);
+                List<Object> list = new ArrayList<>(Math.min(n, 1024));
+                for (int i = 0; i < n; i++) {
+                    list.add(readValue(in, depth + 1));
+                }
+                return list;
+            }
+            default:
+                throw new IOException("tag " + tag);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asMap(Object v) throws IOException {
+        if (v == null) {
+            return null;
+        }
+        if (!(v instanceof Map<?, ?>)) {
+            throw new IOException("map expected");
+        }
+        return (Map<String, Object>) v;
+    }
+
+    // ------------------------------------------------------------------ primitives
+
+    private static void writeStrings(DataOutputStream out, List<String> list) throws IOException {
+        if (list == null) {
+            writeVarLong(out, -1);
+            return;
+        }
+        writeVarLong(out, list.size());
+        for (String s : list) {
+            writeString(out, s);
+        }
+    }
+
+    private static List<String> readStrings(DataInputStream in) throws IOException {
+        int n = readNullableLength(in);
+        if (n < 0) {
+            return null;
+        }
+        List<String> out = new ArrayList<>(Math.min(n, 1024));
+        for (int i = 0; i < n; i++) {
+            out.add(readString(in));
+        }
+        return out;
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            writeVarLong(out, -1);
+            return;
+        }
+        byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, utf8.length);
+        out.write(utf8);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int n = readNullableLength(in);
+        if (n < 0) {
+            return null;
+        }
+        byte[] utf8 = new byte[n];
+        in.readFully(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    private static int readLength(DataInputStream in) throws IOException {
+        int n = readNullableLength(in);
+        if (n < 0) {
+            throw new IOException("length");
+        }
+        return n;
+    }
+
+    private static int readNullableLength(DataInputStream in) throws IOException {
+        long n = readVarLong(in);
+        if (n < -1 || n > MAX_LENGTH) {
+            throw new IOException("length " + n);
+        }
+        return (int) n;
+    }
+
+    private static void writeVarLong(OutputStream out, long v) throws IOException {
+        long z = (v << 1) ^ (v >> 63);
+        while ((z & ~0x7FL) != 0) {
+            out.write((int) ((z & 0x7F) | 0x80));
+            z >>>= 7;
+        }
+        out.write((int) z);
+    }
+
+    private static long readVarLong(InputStream in) throws IOException {
+        long z = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            z |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (z >>> 1) ^ -(z & 1);
+            }
+        }
+        throw new IOException("varint");
+    }
+}
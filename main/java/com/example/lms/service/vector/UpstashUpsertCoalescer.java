@@ -0,0 +1,262 @@
+package com.example.lms.service.vector;
+
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Merges concurrent Upstash upserts into size-capped JSON-array requests.
+ *
+ * <p>Callers {@link #submit} already-serialized points; each submission gets a future that completes once every one
+ * of its points has been acknowledged (or exceptionally when the batch carrying any of them failed). At most
+ * {@code maxInFlight} requests run at once; while they do, new submissions queue up and leave together in the next
+ * request, capped at {@code maxBatchPoints} points and {@code maxBatchBytes} body bytes (a single larger point is
+ * still sent alone). Submissions beyond {@code maxQueuedPoints} waiting points are rejected up front.</p>
+ *
+ * <p>A failed request that carried points of several submissions is not blamed on all of them: each submission's
+ * points go back to the head of the queue and are resent in requests of their own, so only the submission whose
+ * own request fails sees the error. A failure of a request holding a single submission is final.</p>
+ */
+final class UpstashUpsertCoalescer {
+
+    /** Sends one JSON-array body; the returned Mono completes empty on acknowledgement. */
+    interface Sender {
+        Mono<Void> send(String jsonArray, int points);
+    }
+
+    private final Sender sender;
+    private final int maxBatchPoints;
+    private final int maxBatchBytes;
+    private final int maxInFlight;
+    private final int maxQueuedPoints;
+    private final ArrayDeque<Point> queue = new ArrayDeque<>();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong sentPoints = new AtomicLong();
+    private final AtomicLong failedRequests = new AtomicLong();
+    private final AtomicLong rejectedPoints = new AtomicLong();
+    private final AtomicLong retriedPoints = new AtomicLong();
+    private int inFlight;
+    /** A thread is inside {@link #pump}'s send loop; others leave their work to it. */
+    private boolean pumping;
+
+    UpstashUpsertCoalescer(Sender sender, int maxBatchPoints, int maxBatchBytes, int maxInFlight,
+                           int maxQueuedPoints) {
+        this.sender = sender;
+        this.maxBatchPoints = Math.max(1, maxBatchPoints);
+        this.maxBatchBytes = Math.max(2, maxBatchBytes);
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.maxQueuedPoints = Math.max(this.maxBatchPoints, maxQueuedPoints);
+    }
+
+    /** Queues {@code points} (each a serialized JSON object) and starts requests while in-flight slots are free. */
+    CompletableFuture<Void> submit(List<String> points) {
+        if (points == null || points.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        Submission submission = new Submission(points.size());
+        synchronized (this) {
+            if (queue.size() + points.size() > maxQueuedPoints) {
+                rejectedPoints.addAndGet(points.size());
+                return CompletableFuture.failedFuture(new RejectedExecutionException(
+                        "Upstash upsert queue full queued=" + queue.size() + " points=" + points.size()));
+            }
+            for (String json : points) {
+                queue.add(new Point(json, json.getBytes(StandardCharsets.UTF_8).length, submission));
+            }
+        }
+        pump();
+        return submission.future;
+    }
+
+    /**
+     * Sends batches while slots are free. Runs as one loop per coalescer: a request that completes synchronously
+     * (e.g. the sender throws) calls back into {@code pump} from {@link #release}, which then only returns and
+     * lets the loop below pick the next batch, so a failing sender cannot grow the stack per queued batch.
+     */
+    private void pump() {
+        synchronized (this) {
+            if (pumping) {
+                return;
+            }
+            pumping = true;
+        }
+        while (true) {
+            List<List<Point>> batches = new ArrayList<>();
+            synchronized (this) {
+                while (inFlight < maxInFlight && !queue.isEmpty()) {
+                    batches.add(takeBatch());
+                    inFlight++;
+                }
+                if (batches.isEmpty()) {
+                    pumping = false;
+                    return;
+                }
+            }
+            try {
+                for (List<Point> batch : batches) {
+                    send(batch);
+                }
+            } catch (RuntimeException | Error e) {
+                synchronized (this) {
+                    pumping = false;
+                }
+                throw e;
+            }
+        }
+    }
+
+    private List<Point> takeBatch() {
+        List<Point> batch = new ArrayList<>();
+        Submission head = queue.peek().submission();
+        int bytes = 2; // "[" + "]"
+        while (!queue.isEmpty() && batch.size() < maxBatchPoints) {
+            Point next = queue.peek();
+            // A split submission travels alone; the others do not join it and stop at it.
+            if (head.alone ? next.submission() != head : next.submission().alone) {
+                break;
+            }
+            int added = next.bytes() + (batch.isEmpty() ? 0 : 1);
+            if (!batch.isEmpty() && bytes + added > maxBatchBytes) {
+                break;
+            }
+            batch.add(queue.poll());
+            bytes += added;
+        }
+        return batch;
+    }
+
+    private void send(List<Point> batch) {
+        StringBuilder body = new StringBuilder();
+        body.append('[');
+        for (int i = 0; i < batch.size(); i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+            body.append(batch.get(i).json());
+        }
+        body.append(']');
+        requests.incrementAndGet();
+
+        Mono<Void> request;
+        try {
+            request = sender.send(body.toString(), batch.size());
+        } catch (RuntimeException e) {
+            request = Mono.error(e);
+        }
+        AtomicBoolean done = new AtomicBoolean();
+        request.subscribe(
+                ignored -> { },
+                error -> {
+                    if (done.compareAndSet(false, true)) {
+                        failedRequests.incrementAndGet();
+                        if (!requeuePerSubmission(batch)) {
+                            batch.forEach(p -> p.submission().fail(error));
+                        }
+                        release();
+                    }
+                },
+                () -> {
+                    if (done.compareAndSet(false, true)) {
+                        sentPoints.addAndGet(batch.size());
+                        batch.forEach(p -> p.submission().ack());
+                        release();
+                    }
+                });
+    }
+
+    /**
+     * Puts the points of a failed multi-submission batch back at the head of the queue, each submission marked to
+     * travel alone. Returns {@code false} when the batch held a single submission.
+     */
+    private boolean requeuePerSubmission(List<Point> batch) {
+        Map<Submission, List<Point>> bySubmission = new LinkedHashMap<>();
+        for (Point p : batch) {
+            bySubmission.computeIfAbsent(p.submission(), s -> new ArrayList<>()).add(p);
+        }
+        if (bySubmission.size() < 2) {
+            return false;
+        }
+        List<Point> retry = new ArrayList<>(batch.size());
+        bySubmission.forEach((submission, points) -> {
+            if (!submission.future.isDone()) {
+                retry.addAll(points);
+            }
+        });
+        synchronized (this) {
+            bySubmission.keySet().forEach(submission -> submission.alone = true);
+            for (int i = retry.size() - 1; i >= 0; i--) {
+                queue.addFirst(retry.get(i));
+            }
+        }
+        retriedPoints.addAndGet(retry.size());
+        return true;
+    }
+
+    private void release() {
+        synchronized (this) {
+            inFlight--;
+            notifyAll();
+        }
+        pump();
+    }
+
+    /** Waits until nothing is queued or in flight; returns {@code false} on timeout. */
+    boolean awaitIdle(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        synchronized (this) {
+            while (inFlight > 0 || !queue.isEmpty()) {
+                long remainingMs = (deadline - System.nanoTime()) / 1_000_000L;
+                if (remainingMs <= 0) {
+                    return false;
+                }
+                wait(remainingMs);
+            }
+            return true;
+        }
+    }
+
+    synchronized Stats stats() {
+        return new Stats(queue.size(), inFlight, requests.get(), sentPoints.get(), failedRequests.get(),
+                rejectedPoints.get(), retriedPoints.get());
+    }
+
+    /** @param retriedPoints points resent on their own after a shared request failed */
+    record Stats(int queuedPoints, int inFlight, long requests, long sentPoints, long failedRequests,
+                 long rejectedPoints, long retriedPoints) {
+    }
+
+    private record Point(String json, int bytes, Submission submission) {
+    }
+
+    private static final class Submission {
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        final AtomicInteger remaining;
+        /** Sent only in requests of its own after a shared request failed; guarded by the coalescer. */
+        boolean alone;
+
+        Submission(int points) {
+            this.remaining = new AtomicInteger(points);
+        }
+
+        void ack() {
+            if (remaining.decrementAndGet() == 0) {
+                future.complete(null);
+            }
+        }
+
+        void fail(Throwable error) {
+            future.completeExceptionally(error);
+        }
+    }
+}
@@ -29,9 +29,13 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
 
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Upstash Vector REST API adapter.
@@ -53,6 +57,16 @@ import java.util.*;
  * writes are no-ops (fail-soft).</li>
  * <li>We store segment text as both {@code data} and {@code metadata.text} for
  * compatibility.</li>
+ * <li>{@link #searchAsync} / {@link #addAllAsync} never park the caller; the
+ * blocking {@link EmbeddingStore} methods are thin adapters over them.
+ * Upserts go through an {@link UpstashUpsertCoalescer}: concurrent calls are
+ * merged into size-capped JSON arrays with bounded in-flight requests, and 429
+ * responses are retried with jittered backoff.</li>
+ * <li>Write futures complete once the carrying request finished. Non-strict writes
+ * stay fail-soft (failures are logged); strict writes
+ * ({@code vector.upstash.upsert.strict-write} or {@code strict_write} metadata)
+ * complete normally only on acknowledgement and surface failures to the caller.
+ * Blocking writes wait at most {@code vector.upstash.timeout-ms}.</li>
  * </ul>
  */
 @RequiredArgsConstructor
@@ -102,6 +116,48 @@ public class UpstashVectorStoreAdapter implements EmbeddingStore<TextSegment> {
     @Value("${vector.upstash.filter.default-sid:__PRIVATE__}")
     private String defaultSid;
 
+    // ---- Request pipeline
+    // ------------------------------------------------------------------
+
+    /** Per-request timeout for query/upsert/info calls. */
+    @Value("${vector.upstash.timeout-ms:5000}")
+    private long timeoutMs = 5000L;
+
+    /** Max points per upsert request (Upstash accepts up to 1000). */
+    @Value("${vector.upstash.upsert.max-batch-points:500}")
+    private int upsertMaxBatchPoints = 500;
+
+    /** Max JSON body bytes per upsert request. */
+    @Value("${vector.upstash.upsert.max-batch-bytes:4000000}")
+    private int upsertMaxBatchBytes = 4_000_000;
+
+    /** Concurrent upsert requests; further upserts queue and are merged. */
+    @Value("${vector.upstash.upsert.max-in-flight:4}")
+    private int upsertMaxInFlight = 4;
+
+    /** Points allowed to wait for a request; beyond this upserts are rejected. */
+    @Value("${vector.upstash.upsert.max-queued-points:20000}")
+    private int upsertMaxQueuedPoints = 20_000;
+
+    /** Retries of a rate-limited (429) upsert. */
+    @Value("${vector.upstash.upsert.rate-limit-retries:3}")
+    private int rateLimitRetries = 3;
+
+    @Value("${vector.upstash.upsert.backoff-ms:200}")
+    private long backoffMs = 200L;
+
+    @Value("${vector.upstash.upsert.max-backoff-ms:5000}")
+    private long maxBackoffMs = 5000L;
+
+    /** Complete every write only on acknowledgement (per-write {@code strict_write} metadata does the same). */
+    @Value("${vector.upstash.upsert.strict-write:false}")
+    private boolean strictWriteDefault;
+
+    private static final com.fasterxml.jackson.databind.ObjectMapper MAPPER =
+            new com.fasterxml.jackson.databind.ObjectMapper();
+
+    private volatile UpstashUpsertCoalescer upsertCoalescer;
+
     private static final int MAX_FILTER_CHARS = 4096;
 
     private static boolean blank(String s) {
@@ -263,10 +319,7 @@ public class UpstashVectorStoreAdapter implements EmbeddingStore<TextSegment> {
         if (embeddings == null || embeddings.isEmpty()) {
             return List.of();
         }
-        List<String> ids = new ArrayList<>(embeddings.size());
-        for (int i = 0; i < embeddings.size(); i++) {
-            ids.add(UUID.randomUUID().toString());
-        }
+        List<String> ids = randomIds(embeddings.size());
         upsertPoints(ids, embeddings, Collections.nCopies(embeddings.size(), null));
         return ids;
     }
@@ -279,10 +332,7 @@ public class UpstashVectorStoreAdapter implements EmbeddingStore<TextSegment> {
         if (segments == null || segments.size() != embeddings.size()) {
             return addAll(embeddings);
         }
-        List<String> ids = new ArrayList<>(embeddings.size());
-        for (TextSegment seg : segments) {
-            ids.add(idOf(seg));
-        }
+        List<String> ids = idsOf(segments);
         upsertPoints(ids, embeddings, segments);
         return ids;
     }
@@ -298,20 +348,87 @@ public class UpstashVectorStoreAdapter implements EmbeddingStore<TextSegment> {
         upsertPoints(ids, embeddings, segments);
     }
 
+    /**
+     * Non-blocking {@link #addAll(List, List)}. Completes with the ids once the upsert finished; exceptionally only
+     * for strict writes that Upstash did not acknowledge.
+     */
+    public CompletableFuture<List<String>> addAllAsync(List<Embedding> embeddings, List<TextSegment> segments) {
+        if (embeddings == null || embeddings.isEmpty()) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        List<TextSegment> segs = segments != null && segments.size() == embeddings.size()
+                ? segments : Collections.nCopies(embeddings.size(), null);
+        List<String> ids = segs == segments ? idsOf(segments) : randomIds(embeddings.size());
+        return upsertAsync(ids, embeddings, segs).thenApply(ignored -> ids);
+    }
+
+    /** Non-blocking {@link #addAll(List, List, List)}; completion as in {@link #addAllAsync(List, List)}. */
+    public CompletableFuture<Void> addAllAsync(List<String> ids, List<Embedding> embeddings,
+                                               List<TextSegment> segments) {
+        if (ids == null || embeddings == null || segments == null
+                || ids.size() != embeddings.size() || ids.size() != segments.size()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return upsertAsync(ids, embeddings, segments);
+    }
+
+    /** Waits (bounded) for queued upserts to be sent; called on shutdown. */
+    public void close() {
+        UpstashUpsertCoalescer coalescer = upsertCoalescer;
+        if (coalescer == null) {
+            return;
+        }
+        try {
+            if (!coalescer.awaitIdle(timeout().multipliedBy(2))) {
+                log.warn("Upstash upsert queue not drained on close queuedPoints={}",
+                        coalescer.stats().queuedPoints());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Diagnostics helper (no secrets): upsert pipeline counters. */
+    public Map<String, Object> upsertPipelineStats() {
+        UpstashUpsertCoalescer coalescer = upsertCoalescer;
+        if (coalescer == null) {
+            return Map.of();
+        }
+        UpstashUpsertCoalescer.Stats stats = coalescer.stats();
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("queuedPoints", stats.queuedPoints());
+        out.put("inFlight", stats.inFlight());
+        out.put("requests", stats.requests());
+        out.put("sentPoints", stats.sentPoints());
+        out.put("failedRequests", stats.failedRequests());
+        out.put("rejectedPoints", stats.rejectedPoints());
+        out.put("retriedPoints", stats.retriedPoints());
+        return out;
+    }
+
     @Override
     public EmbeddingSearchResult<TextSegment> search(EmbeddingSearchRequest request) {
+        EmbeddingSearchResult<TextSegment> result = searchReactive(request).block();
+        return result == null ? new EmbeddingSearchResult<>(List.of()) : result;
+    }
+
+    /** Non-blocking {@link #search}: same request, parsing and fail-soft empty result. */
+    public CompletableFuture<EmbeddingSearchResult<TextSegment>> searchAsync(EmbeddingSearchRequest request) {
+        return searchReactive(request).toFuture();
+    }
+
+    public Mono<EmbeddingSearchResult<TextSegment>> searchReactive(EmbeddingSearchRequest request) {
         if (!isConfigured()) {
-            return new EmbeddingSearchResult<>(List.of());
+            return Mono.just(new EmbeddingSearchResult<>(List.of()));
         }
 
         Embedding queryEmbedding = request == null ? null : request.queryEmbedding();
         if (queryEmbedding == null || queryEmbedding.vector() == null || queryEmbedding.vector().length == 0) {
             log.warn("Upstash query called with empty embedding; returning empty result");
-            return new EmbeddingSearchResult<>(List.of());
+            return Mono.just(new EmbeddingSearchResult<>(List.of()));
         }
 
         int topK = Math.max(1, request.maxResults());
-        double minScore = request.minScore();
 
         try {
             Map<String, Object> body = new LinkedHashMap<>();
@@ -328,7 +445,7 @@ public class UpstashVectorStoreAdapter implements EmbeddingStore<TextSegment> {
 
             String url = endpoint("query", true);
 
-            String resp = webClient.post().uri(url)
+            return webClient.post().uri(url)
                     .header("Authorization", authHeader())
                     .contentType(MediaType.APPLICATION_JSON)
                     .bodyValue(body)
@@ -342,15 +459,24 @@ public class UpstashVectorStoreAdapter implements EmbeddingStore<TextSegment> {
                         }
                         return response.bodyToMono(String.class);
                     })
-                    .timeout(Duration.ofSeconds(5))
+                    .timeout(timeout())
                     .onErrorReturn("")
-                    .block();
-
-            if (resp == null || resp.isBlank()) {
-                return new EmbeddingSearchResult<>(List.of());
-            }
+                    .defaultIfEmpty("")
+                    .map(resp -> parseQueryResult(resp, request));
+        } catch (Exception e) {
+            log.warn("Upstash query failed errorHash={} errorLength={}",
+                    SafeRedactor.hashValue(messageOf(e)), messageLength(e));
+            return Mono.just(new EmbeddingSearchResult<>(List.of()));
+        }
+    }
 
-            var mapper = new com.fasterxml.jackson.databind.ObjectMapper();
+    private EmbeddingSearchResult<TextSegment> parseQueryResult(String resp, EmbeddingSearchRequest request) {
+        if (resp == null || resp.isBlank()) {
+            return new EmbeddingSearchResult<>(List.of());
+        }
+        double minScore = request.minScore();
+        try {
+            var mapper = MAPPER;
             var resultArr = mapper.readTree(resp).path("result");
             if (!resultArr.isArray()) {
                 // Some APIs may return {matches:[...]}; best-effort fallback
@@ -416,7 +542,7 @@ public class UpstashVectorStoreAdapter implements EmbeddingStore<TextSegment> {
                         }
                         return response.bodyToMono(String.class);
                     })
-                    .timeout(Duration.ofSeconds(5))
+                    .timeout(timeout())
                     .onErrorReturn("")
                     .block();
 
@@ -457,7 +583,7 @@ public class UpstashVectorStoreAdapter implements EmbeddingStore<TextSegment> {
                         }
                         return response.bodyToMono(String.class);
                     })
-                    .timeout(Duration.ofSeconds(5))
+                    .timeout(timeout())
                     .onErrorReturn("")
                     .block();
 
@@ -484,18 +610,39 @@ public class UpstashVectorStoreAdapter implements EmbeddingStore<TextSegment> {
     }
 
     private void upsertPoints(List<String> ids, List<Embedding> embs, List<TextSegment> segs) {
+        try {
+            upsertAsync(ids, embs, segs, timeout()).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() == null ? e : e.getCause();
+            throw (cause instanceof RuntimeException re) ? re : new RuntimeException(cause);
+        }
+    }
+
+    private CompletableFuture<Void> upsertAsync(List<String> ids, List<Embedding> embs, List<TextSegment> segs) {
+        return upsertAsync(ids, embs, segs, null);
+    }
+
+    /**
+     * Queues the points on the coalescer. The future completes once the carrying request(s) finished; it fails
+     * only for strict writes; other failures are logged and swallowed (fail-soft).
+     *
+     * @param waitBound when set (blocking callers), the write counts as failed if it is not acknowledged within
+     *                  it, queueing included, like the single bounded request it replaced
+     */
+    private CompletableFuture<Void> upsertAsync(List<String> ids, List<Embedding> embs, List<TextSegment> segs,
+                                                Duration waitBound) {
         if (!isWriteEnabled()) {
             if (writeEnabled && !isConfigured()) {
                 log.warn("Upstash write enabled but not configured; skip upsert");
             }
-            return;
+            return CompletableFuture.completedFuture(null);
         }
         if (ids == null || embs == null || ids.isEmpty() || embs.isEmpty()) {
-            return;
+            return CompletableFuture.completedFuture(null);
         }
 
-        List<Map<String, Object>> points = new ArrayList<>();
-        boolean strictWrite = false;
+        List<String> points = new ArrayList<>();
+        boolean strictWrite = strictWriteDefault;
         for (int i = 0; i < embs.size(); i++) {
             Embedding e = embs.get(i);
             if (e == null || e.vector() == null || e.vector().length == 0) {
@@ -527,69 +674,126 @@ public class UpstashVectorStoreAdapter implements EmbeddingStore<TextSegment> {
             if (seg != null && !blank(seg.text())) {
                 obj.put("data", seg.text());
             }
-            points.add(obj);
+            try {
+                points.add(MAPPER.writeValueAsString(obj));
+            } catch (Exception ex) {
+                log.warn("Skipping Upstash upsert for id={} (unserializable metadata) errorHash={} errorLength={}",
+                        ids.get(i), SafeRedactor.hashValue(messageOf(ex)), messageLength(ex));
+            }
         }
 
         if (points.isEmpty()) {
             log.warn("No valid points to upsert; skipping Upstash upsert");
-            return;
+            return CompletableFuture.completedFuture(null);
         }
 
-        try {
-            String url = endpoint("upsert", true);
-
-            if (strictWrite) {
-                // strict_write: fail fast so upstream can retry/backoff and avoid silent data loss.
-                webClient.post().uri(url)
-                        .header("Authorization", authHeader())
-                        .contentType(MediaType.APPLICATION_JSON)
-                        // Upstash batch upsert expects a JSON array.
-                        .bodyValue(points)
-                        .retrieve()
-                        .onStatus(sc -> sc.isError(),
-                                resp -> resp.bodyToMono(String.class)
-                                        .defaultIfEmpty("")
-                                        .flatMap(b -> Mono.error(new IllegalStateException(
-                                                "Upstash upsert error status=" + resp.statusCode().value()
-                                                        + " bodyHash=" + bodyHash(b)
-                                                        + " bodyLength=" + bodyLength(b)
-                                        ))))
-                        .bodyToMono(String.class)
-                        .timeout(Duration.ofSeconds(5))
-                        .block();
-                return;
+        CompletableFuture<Void> acked = coalescer().submit(points);
+        if (waitBound != null) {
+            acked = acked.orTimeout(waitBound.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        if (strictWrite) {
+            // strict_write: fail so upstream can retry/backoff and avoid silent data loss.
+            return acked.whenComplete((ok, e) -> {
+                if (e != null) {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    log.warn("Upstash upsert failed (strict_write) errorHash={} errorLength={}",
+                            SafeRedactor.hashValue(messageOf(cause)), messageLength(cause));
+                }
+            });
+        }
+        return acked.handle((ok, e) -> {
+            if (e != null) {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                log.warn("Upstash upsert failed errorHash={} errorLength={}",
+                        SafeRedactor.hashValue(messageOf(cause)), messageLength(cause));
             }
+            return null;
+        });
+    }
 
-            webClient.post().uri(url)
-                    .header("Authorization", authHeader())
-                    .contentType(MediaType.APPLICATION_JSON)
-                    // Upstash batch upsert expects a JSON array.
-                    .bodyValue(points)
-                    .exchangeToMono(resp -> {
-                        if (resp.statusCode().isError()) {
-                            return resp.bodyToMono(String.class)
-                                    .defaultIfEmpty("")
-                                    .doOnNext(b -> log.warn("Upstash upsert error status={} bodyHash={} bodyLength={}",
-                                            resp.statusCode().value(), bodyHash(b), bodyLength(b)))
-                                    .thenReturn(false);
-                        }
+    private UpstashUpsertCoalescer coalescer() {
+        UpstashUpsertCoalescer c = upsertCoalescer;
+        if (c == null) {
+            synchronized (this) {
+                c = upsertCoalescer;
+                if (c == null) {
+                    // Created lazily: the @Value fields are injected after construction.
+                    c = new UpstashUpsertCoalescer(this::sendUpsert, upsertMaxBatchPoints, upsertMaxBatchBytes,
+                            upsertMaxInFlight, upsertMaxQueuedPoints);
+                    upsertCoalescer = c;
+                }
+            }
+        }
+        return c;
+    }
+
+    /** One upsert request (Upstash batch upsert expects a JSON array); 429 is retried with jittered backoff. */
+    private Mono<Void> sendUpsert(String jsonArray, int points) {
+        String url = endpoint("upsert", true);
+        Mono<Void> attempt = webClient.post().uri(url)
+                .header("Authorization", authHeader())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(jsonArray)
+                .exchangeToMono(resp -> {
+                    if (resp.statusCode().isError()) {
+                        int status = resp.statusCode().value();
                         return resp.bodyToMono(String.class)
                                 .defaultIfEmpty("")
-                                .map(x -> true);
-                    })
-                    .timeout(Duration.ofSeconds(5))
-                    .onErrorReturn(false)
-                    .block();
-        } catch (Exception e) {
-            if (strictWrite) {
-                log.warn("Upstash upsert failed (strict_write) errorHash={} errorLength={}",
-                        SafeRedactor.hashValue(messageOf(e)), messageLength(e));
-                throw (e instanceof RuntimeException re) ? re : new RuntimeException(e);
-            }
-            log.warn("Upstash upsert failed errorHash={} errorLength={}",
-                    SafeRedactor.hashValue(messageOf(e)), messageLength(e));
+                                .flatMap(b -> {
+                                    log.warn("Upstash upsert error status={} points={} bodyHash={} bodyLength={}",
+                                            status, points, bodyHash(b), bodyLength(b));
+                                    return Mono.error(new UpstashHttpStatusException(status,
+                                            "Upstash upsert error status=" + status
+                                                    + " bodyHash=" + bodyHash(b)
+                                                    + " bodyLength=" + bodyLength(b)));
+                                });
+                    }
+                    return resp.bodyToMono(String.class).then();
+                })
+                .timeout(timeout());
+        if (rateLimitRetries <= 0) {
+            return attempt;
+        }
+        return attempt.retryWhen(Retry.backoff(rateLimitRetries, Duration.ofMillis(Math.max(1L, backoffMs)))
+                .maxBackoff(Duration.ofMillis(Math.max(backoffMs, maxBackoffMs)))
+                .jitter(0.5d)
+                .filter(e -> e instanceof UpstashHttpStatusException se && se.status() == 429)
+                .doBeforeRetry(rs -> TraceStore.inc("vector.upstash.upsert.rateLimitRetry"))
+                .onRetryExhaustedThrow((spec, rs) -> rs.failure()));
+    }
+
+    /** Non-2xx Upstash response (message carries only the status and a body hash). */
+    static final class UpstashHttpStatusException extends IllegalStateException {
+        private final int status;
+
+        UpstashHttpStatusException(int status, String message) {
+            super(message);
+            this.status = status;
         }
 
+        int status() {
+            return status;
+        }
+    }
+
+    private Duration timeout() {
+        return Duration.ofMillis(Math.max(1L, timeoutMs));
+    }
+
+    private List<String> idsOf(List<TextSegment> segments) {
+        List<String> ids = new ArrayList<>(segments.size());
+        for (TextSegment seg : segments) {
+            ids.add(idOf(seg));
+        }
+        return ids;
+    }
+
+    private static List<String> randomIds(int n) {
+        List<String> ids = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            ids.add(UUID.randomUUID().toString());
+        }
+        return ids;
     }
 
     private static String bodyHash(String s) {
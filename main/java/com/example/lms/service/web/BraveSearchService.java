@@ -30,6 +30,8 @@ import java.util.ArrayList;
 
 import com.example.lms.search.provider.WebSearchProvider;
 import com.example.lms.service.NaverSearchService.SearchResult;
+import com.example.lms.service.web.quota.ProviderQuotaPriority;
+import com.example.lms.service.web.quota.ProviderQuotaScheduler;
 import java.time.LocalDate;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
@@ -208,6 +210,11 @@ public class BraveSearchService implements WebSearchProvider {
     @Autowired(required = false)
     private CacheManager cacheManager;
 
+    // Optional: cluster-shared quota with priority queueing (gpt-search.quota.*).
+    // When it manages Brave it replaces the per-process RateLimiter below.
+    @Autowired(required = false)
+    private ProviderQuotaScheduler quotaScheduler;
+
     public BraveSearchService(BraveSearchProperties props) {
         this.props = props;
         this.restTemplate = new RestTemplate();
@@ -875,17 +882,30 @@ public class BraveSearchService implements WebSearchProvider {
         }
 
         // Gate 3: QPS 레이트리미트
-        if (!rateLimiter.tryAcquire(props.acquireTimeoutMs(), TimeUnit.MILLISECONDS)) {
+        // Cluster quota (when configured) queues by priority instead of dropping immediately.
+        // This thread blocks while queued, so the wait is capped by acquire-timeout-ms as before
+        // (a background caller's longer max wait only applies when the cap allows it).
+        boolean quotaManaged = quotaScheduler != null && quotaScheduler.manages(ProviderQuotaScheduler.BRAVE);
+        boolean permitted = quotaManaged
+                ? quotaScheduler.acquire(ProviderQuotaScheduler.BRAVE, ProviderQuotaPriority.current(),
+                        props.acquireTimeoutMs())
+                : rateLimiter.tryAcquire(props.acquireTimeoutMs(), TimeUnit.MILLISECONDS);
+        if (!permitted) {
             // IMPORTANT: cooldownMs must be >0 to avoid tight loops:
             // "skip -> immediate retry -> rate_limit_local" in the same session.
             long cdMs = localCooldownMsFor(effectiveQpsLimit);
-            startCooldown(cdMs);
+            // A queued-and-dropped (e.g. background) caller must not put interactive
+            // traffic into a shared cooldown; the quota queue already paces retries.
+            if (!quotaManaged) {
+                startCooldown(cdMs);
+            }
             try {
                 TraceStore.put("web.brave.rate_limit_local", true);
                 TraceStore.inc("web.brave.rate_limit_local.count");
                 TraceStore.put("web.brave.rate_limit_local.cooldownMs", cdMs);
                 TraceStore.put("web.brave.rate_limit_local.qps", effectiveQpsLimit);
                 TraceStore.put("web.brave.rate_limit_local.acquireTimeoutMs", props.acquireTimeoutMs());
+                TraceStore.put("web.brave.rate_limit_local.quotaManaged", quotaManaged);
                 TraceStore.put("web.brave.cooldown.reason", "rate_limit_local");
             } catch (Exception ignore) {
                 TraceStore.put("web.brave.suppressed.rateLimitLocalTrace", true);
@@ -0,0 +1,57 @@
+package com.example.lms.service.web.quota;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Embedded (per-process) token bucket.
+ *
+ * <p>Used when no Redis is configured, as the fail-soft fallback of
+ * {@link RedisProviderTokenBucket}, and in tests (the clock is injectable).
+ */
+public final class LocalProviderTokenBucket implements ProviderTokenBucket {
+
+    private final ConcurrentHashMap<String, State> states = new ConcurrentHashMap<>();
+    private final LongSupplier nanoClock;
+
+    public LocalProviderTokenBucket() {
+        this(System::nanoTime);
+    }
+
+    public LocalProviderTokenBucket(LongSupplier nanoClock) {
+        this.nanoClock = nanoClock == null ? System::nanoTime : nanoClock;
+    }
+
+    @Override
+    public long tryTake(String provider, double ratePerSec, int burst) {
+        double rate = Math.max(0.001d, ratePerSec);
+        int cap = Math.max(1, burst);
+        State st = states.computeIfAbsent(provider == null ? "" : provider, k -> new State(cap, nanoClock.getAsLong()));
+        synchronized (st) {
+            long now = nanoClock.getAsLong();
+            long elapsedNs = Math.max(0L, now - st.lastRefillNs);
+            st.tokens = Math.min(cap, st.tokens + (elapsedNs / 1_000_000_000d) * rate);
+            st.lastRefillNs = now;
+            if (st.tokens >= 1.0d) {
+                st.tokens -= 1.0d;
+                return 0L;
+            }
+            return Math.max(1L, (long) Math.ceil((1.0d - st.tokens) * 1000.0d / rate));
+        }
+    }
+
+    @Override
+    public String backend() {
+        return "local";
+    }
+
+    private static final class State {
+        double tokens;
+        long lastRefillNs;
+
+        State(double tokens, long lastRefillNs) {
+            this.tokens = tokens;
+            this.lastRefillNs = lastRefillNs;
+        }
+    }
+}
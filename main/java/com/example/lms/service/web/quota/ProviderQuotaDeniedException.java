@@ -0,0 +1,28 @@
+package com.example.lms.service.web.quota;
+
+/**
+ * Signals that a provider permit was not granted within the caller's queueing budget.
+ *
+ * <p>Used on reactive paths where a boolean cannot short-circuit the pipeline. This is a
+ * local scheduling outcome, not a provider failure, and must not feed circuit breakers.
+ */
+public class ProviderQuotaDeniedException extends RuntimeException {
+
+    private final String provider;
+    private final ProviderQuotaPriority priority;
+
+    public ProviderQuotaDeniedException(String provider, ProviderQuotaPriority priority) {
+        super("provider quota denied: " + provider + " (" + (priority == null ? "unknown" : priority.tag()) + ")",
+                null, false, false);
+        this.provider = provider;
+        this.priority = priority == null ? ProviderQuotaPriority.INTERACTIVE : priority;
+    }
+
+    public String provider() {
+        return provider;
+    }
+
+    public ProviderQuotaPriority priority() {
+        return priority;
+    }
+}
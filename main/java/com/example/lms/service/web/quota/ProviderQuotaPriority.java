@@ -0,0 +1,89 @@
+package com.example.lms.service.web.quota;
+
+import com.example.lms.search.TraceStore;
+import com.example.lms.service.guard.GuardContext;
+import com.example.lms.service.guard.GuardContextHolder;
+
+import java.util.Locale;
+
+/**
+ * Priority classes for provider quota scheduling.
+ *
+ * <p>Lower ordinal = served first. Interactive chat traffic always preempts queued
+ * background work (soak, autolearn) for the same provider permit; needle probes sit in
+ * between because they run inside a user request but are optional evidence.
+ *
+ * <p>The priority travels in {@link TraceStore} (key {@link #TRACE_KEY}) so it survives the
+ * async fan-out done by the hybrid provider (TraceStore is propagated by
+ * {@code ContextPropagation}).
+ */
+public enum ProviderQuotaPriority {
+    INTERACTIVE,
+    PROBE,
+    BACKGROUND;
+
+    /** TraceStore key carrying an explicit priority override for the current request. */
+    public static final String TRACE_KEY = "web.quota.priority";
+
+    /**
+     * Resolve the priority of the current request.
+     *
+     * <p>Order: explicit TraceStore override → soak/autolearn markers → INTERACTIVE.
+     */
+    public static ProviderQuotaPriority current() {
+        try {
+            ProviderQuotaPriority explicit = parse(TraceStore.get(TRACE_KEY));
+            if (explicit != null) {
+                return explicit;
+            }
+            GuardContext gctx = GuardContextHolder.get();
+            if (gctx != null) {
+                if ("soak".equalsIgnoreCase(gctx.getMode()) || gctx.planBool("uaw.autolearn", false)) {
+                    return BACKGROUND;
+                }
+            }
+            if (Boolean.TRUE.equals(TraceStore.get("uaw.autolearn"))) {
+                return BACKGROUND;
+            }
+        } catch (Throwable ignore) {
+            // fail-soft: unknown context is treated as user-facing
+        }
+        return INTERACTIVE;
+    }
+
+    /**
+     * Mark the current request with the given priority and return the previous explicit
+     * value (may be {@code null}) so callers can restore it with {@link #restore(Object)}.
+     */
+    public static Object mark(ProviderQuotaPriority priority) {
+        Object prev = TraceStore.get(TRACE_KEY);
+        TraceStore.put(TRACE_KEY, priority == null ? null : priority.name());
+        return prev;
+    }
+
+    /** Restore a value previously returned by {@link #mark(ProviderQuotaPriority)}. */
+    public static void restore(Object previous) {
+        TraceStore.put(TRACE_KEY, previous);
+    }
+
+    static ProviderQuotaPriority parse(Object raw) {
+        if (raw instanceof ProviderQuotaPriority p) {
+            return p;
+        }
+        if (raw == null) {
+            return null;
+        }
+        String s = String.valueOf(raw).trim().toUpperCase(Locale.ROOT);
+        for (ProviderQuotaPriority p : values()) {
+            if (p.name().equals(s)) {
+                return p;
+            }
+        }
+        return null;
+    }
+
+    /** Lower-case tag value for metrics/trace. */
+    public String tag() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
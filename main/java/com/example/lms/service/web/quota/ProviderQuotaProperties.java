@@ -0,0 +1,193 @@
+package com.example.lms.service.web.quota;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Cluster-shared web provider quota.
+ *
+ * <pre>
+ * gpt-search:
+ *   quota:
+ *     enabled: true
+ *     backend: redis          # local | redis
+ *     providers:
+ *       brave: { rate-per-sec: 0.8, burst: 1 }
+ *       naver: { rate-per-sec: 8.0, burst: 8 }
+ * </pre>
+ */
+@ConfigurationProperties(prefix = "gpt-search.quota")
+public class ProviderQuotaProperties {
+
+    /** Master switch. When off, providers keep their per-process limiters. */
+    private boolean enabled = false;
+
+    /** Token bucket backend: {@code local} (embedded) or {@code redis} (cluster-shared). */
+    private String backend = "local";
+
+    /** Redis key prefix for bucket state. */
+    private String keyPrefix = "lms:quota:";
+
+    private final Redis redis = new Redis();
+
+    /** Per-provider limits (key = provider, lower-case). Providers not listed are unmanaged. */
+    private Map<String, Limit> providers = defaultProviders();
+
+    /** Max queueing time for user-facing chat traffic (short: the hybrid await budget is ~3s). */
+    private long interactiveMaxWaitMs = 500L;
+
+    /** Max queueing time for needle probes (optional second-pass evidence). */
+    private long probeMaxWaitMs = 300L;
+
+    /** Max queueing time for background traffic (soak, autolearn). Long but preemptable. */
+    private long backgroundMaxWaitMs = 2_000L;
+
+    private static Map<String, Limit> defaultProviders() {
+        Map<String, Limit> m = new LinkedHashMap<>();
+        m.put("brave", new Limit(0.8d, 1));
+        m.put("naver", new Limit(8.0d, 8));
+        return m;
+    }
+
+    /** Limit for the provider, or {@code null} when unmanaged. */
+    public Limit limitFor(String provider) {
+        if (provider == null || providers == null) {
+            return null;
+        }
+        Limit l = providers.get(provider.toLowerCase(Locale.ROOT));
+        return (l == null || l.getRatePerSec() <= 0d) ? null : l;
+    }
+
+    public long maxWaitMs(ProviderQuotaPriority priority) {
+        if (priority == null) {
+            return interactiveMaxWaitMs;
+        }
+        return switch (priority) {
+            case INTERACTIVE -> interactiveMaxWaitMs;
+            case PROBE -> probeMaxWaitMs;
+            case BACKGROUND -> backgroundMaxWaitMs;
+        };
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getBackend() {
+        return backend;
+    }
+
+    public void setBackend(String backend) {
+        this.backend = backend;
+    }
+
+    public String getKeyPrefix() {
+        return keyPrefix;
+    }
+
+    public void setKeyPrefix(String keyPrefix) {
+        this.keyPrefix = keyPrefix;
+    }
+
+    public Redis getRedis() {
+        return redis;
+    }
+
+    public Map<String, Limit> getProviders() {
+        return providers;
+    }
+
+    public void setProviders(Map<String, Limit> providers) {
+        this.providers = providers;
+    }
+
+    public long getInteractiveMaxWaitMs() {
+        return interactiveMaxWaitMs;
+    }
+
+    public void setInteractiveMaxWaitMs(long interactiveMaxWaitMs) {
+        this.interactiveMaxWaitMs = interactiveMaxWaitMs;
+    }
+
+    public long getProbeMaxWaitMs() {
+        return probeMaxWaitMs;
+    }
+
+    public void setProbeMaxWaitMs(long probeMaxWaitMs) {
+        this.probeMaxWaitMs = probeMaxWaitMs;
+    }
+
+    public long getBackgroundMaxWaitMs() {
+        return backgroundMaxWaitMs;
+    }
+
+    public void setBackgroundMaxWaitMs(long backgroundMaxWaitMs) {
+        this.backgroundMaxWaitMs = backgroundMaxWaitMs;
+    }
+
+    public static class Redis {
+        private String host = "localhost";
+        private int port = 6379;
+        private int timeoutMs = 200;
+
+        public String getHost() {
+            return host;
+        }
+
+        public void setHost(String host) {
+            this.host = host;
+        }
+
+        public int getPort() {
+            return port;
+        }
+
+        public void setPort(int port) {
+            this.port = port;
+        }
+
+        public int getTimeoutMs() {
+            return timeoutMs;
+        }
+
+        public void setTimeoutMs(int timeoutMs) {
+            this.timeoutMs = timeoutMs;
+        }
+    }
+
+    public static class Limit {
+        private double ratePerSec;
+        private int burst = 1;
+
+        public Limit() {
+        }
+
+        public Limit(double ratePerSec, int burst) {
+            this.ratePerSec = ratePerSec;
+            this.burst = burst;
+        }
+
+        public double getRatePerSec() {
+            return ratePerSec;
+        }
+
+        public void setRatePerSec(double ratePerSec) {
+            this.ratePerSec = ratePerSec;
+        }
+
+        public int getBurst() {
+            return burst;
+        }
+
+        public void setBurst(int burst) {
+            this.burst = burst;
+        }
+    }
+}
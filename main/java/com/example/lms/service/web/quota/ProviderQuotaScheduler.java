@@ -0,0 +1,245 @@
+package com.example.lms.service.web.quota;
+
+import com.example.lms.search.TraceStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Priority-aware quota scheduler in front of paid web search providers.
+ *
+ * <p>Callers that miss a token are queued briefly instead of being dropped. Each provider
+ * has one local waiter queue ordered by ({@link ProviderQuotaPriority}, arrival); only the
+ * head of the queue polls the (possibly cluster-shared) {@link ProviderTokenBucket}, so an
+ * interactive request that arrives while background work is queued is served first.
+ * A waiter is dropped once its per-priority max wait elapses, or immediately when the
+ * bucket reports a refill time beyond its remaining budget.
+ */
+public class ProviderQuotaScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(ProviderQuotaScheduler.class);
+
+    public static final String BRAVE = "brave";
+    public static final String NAVER = "naver";
+
+    private static final String METRIC_WAIT = "web.quota.wait";
+    private static final String METRIC_DROP = "web.quota.drop";
+
+    private static final Comparator<Ticket> ORDER = Comparator
+            .comparingInt((Ticket t) -> t.priority.ordinal())
+            .thenComparingLong(t -> t.seq);
+
+    private final ProviderQuotaProperties props;
+    private final ProviderTokenBucket bucket;
+    private final MeterRegistry meterRegistry; // may be null (fail-soft)
+
+    private final ConcurrentHashMap<String, Lane> lanes = new ConcurrentHashMap<>();
+    private final AtomicLong seq = new AtomicLong();
+    private final ConcurrentHashMap<String, Stats> stats = new ConcurrentHashMap<>();
+
+    public ProviderQuotaScheduler(ProviderQuotaProperties props, ProviderTokenBucket bucket,
+            MeterRegistry meterRegistry) {
+        this.props = props;
+        this.bucket = bucket;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /** Whether the provider is governed by this scheduler (enabled + has a configured limit). */
+    public boolean manages(String provider) {
+        return props.isEnabled() && props.limitFor(provider) != null;
+    }
+
+    /** Acquire a permit with the priority of the current request. */
+    public boolean acquire(String provider) {
+        return acquire(provider, ProviderQuotaPriority.current());
+    }
+
+    /**
+     * Acquire one provider permit, queueing up to the priority's max wait.
+     *
+     * @return {@code true} when the caller may issue the upstream call
+     */
+    public boolean acquire(String provider, ProviderQuotaPriority priority) {
+        return acquire(provider, priority, Long.MAX_VALUE);
+    }
+
+    /**
+     * Like {@link #acquire(String, ProviderQuotaPriority)}, but never queues longer than
+     * {@code maxWaitCapMs}. For callers that block their own thread (Brave's synchronous
+     * search), so the wait stays within the budget they had before the scheduler existed.
+     */
+    public boolean acquire(String provider, ProviderQuotaPriority priority, long maxWaitCapMs) {
+        ProviderQuotaProperties.Limit limit = props.isEnabled() ? props.limitFor(provider) : null;
+        if (limit == null) {
+            return true;
+        }
+        ProviderQuotaPriority p = priority == null ? ProviderQuotaPriority.INTERACTIVE : priority;
+        long startNs = System.nanoTime();
+        long maxWaitMs = Math.min(props.maxWaitMs(p), Math.max(0L, maxWaitCapMs));
+        long deadlineNs = startNs + TimeUnit.MILLISECONDS.toNanos(Math.max(0L, maxWaitMs));
+
+        Lane lane = lanes.computeIfAbsent(provider, k -> new Lane());
+        Ticket ticket = new Ticket(p, seq.incrementAndGet());
+        boolean granted = false;
+        lane.lock.lock();
+        try {
+            lane.waiters.add(ticket);
+            // A new higher-priority arrival must be re-evaluated by the current head.
+            lane.changed.signalAll();
+            while (true) {
+                long remainingNs = deadlineNs - System.nanoTime();
+                if (lane.waiters.peek() == ticket) {
+                    long waitMs = bucket.tryTake(provider, limit.getRatePerSec(), limit.getBurst());
+                    if (waitMs <= 0L) {
+                        granted = true;
+                        break;
+                    }
+                    long waitNs = TimeUnit.MILLISECONDS.toNanos(waitMs);
+                    if (waitNs > remainingNs) {
+                        break;
+                    }
+                    lane.changed.awaitNanos(waitNs);
+                } else {
+                    if (remainingNs <= 0L) {
+                        break;
+                    }
+                    lane.changed.awaitNanos(remainingNs);
+                }
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lane.waiters.remove(ticket);
+            lane.changed.signalAll();
+            lane.lock.unlock();
+        }
+        record(provider, p, granted, System.nanoTime() - startNs);
+        return granted;
+    }
+
+    /** Per provider/priority counters: granted, dropped, total and max wait (ms). */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("enabled", props.isEnabled());
+        out.put("backend", bucket == null ? "none" : bucket.backend());
+        stats.forEach((provider, st) -> {
+            Map<String, Object> perPriority = new LinkedHashMap<>();
+            for (ProviderQuotaPriority p : ProviderQuotaPriority.values()) {
+                Stats.Counters c = st.byPriority.get(p);
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("granted", c.granted.sum());
+                row.put("dropped", c.dropped.sum());
+                row.put("waitMsTotal", c.waitMsTotal.sum());
+                row.put("waitMsMax", c.waitMsMax.get());
+                perPriority.put(p.tag(), row);
+            }
+            Lane lane = lanes.get(provider);
+            perPriority.put("queued", lane == null ? 0 : lane.size());
+            out.put(provider, perPriority);
+        });
+        return out;
+    }
+
+    private void record(String provider, ProviderQuotaPriority p, boolean granted, long waitedNs) {
+        long waitedMs = TimeUnit.NANOSECONDS.toMillis(Math.max(0L, waitedNs));
+        Stats.Counters c = stats.computeIfAbsent(provider, k -> new Stats()).byPriority.get(p);
+        if (granted) {
+            c.granted.increment();
+        } else {
+            c.dropped.increment();
+        }
+        c.waitMsTotal.add(waitedMs);
+        c.waitMsMax.accumulateAndGet(waitedMs, Math::max);
+
+        try {
+            String base = "web.quota." + provider;
+            TraceStore.put(base + ".priority", p.tag());
+            TraceStore.put(base + ".waitMs", waitedMs);
+            TraceStore.put(base + ".granted", granted);
+            if (!granted) {
+                TraceStore.inc(base + ".dropped.count");
+            }
+        } catch (Throwable ignore) {
+            // fail-soft
+        }
+
+        if (meterRegistry != null) {
+            try {
+                Timer.builder(METRIC_WAIT)
+                        .tag("provider", provider)
+                        .tag("priority", p.tag())
+                        .tag("outcome", granted ? "granted" : "dropped")
+                        .register(meterRegistry)
+                        .record(waitedNs, TimeUnit.NANOSECONDS);
+                if (!granted) {
+                    Counter.builder(METRIC_DROP)
+                            .tag("provider", provider)
+                            .tag("priority", p.tag())
+                            .register(meterRegistry)
+                            .increment();
+                }
+            } catch (Exception e) {
+                log.debug("[Quota] metric record failed errorType={}", e.getClass().getSimpleName());
+            }
+        }
+        if (!granted) {
+            log.debug("[Quota] permit dropped provider={} priority={} waitedMs={}", provider, p.tag(), waitedMs);
+        }
+    }
+
+    private static final class Ticket {
+        final ProviderQuotaPriority priority;
+        final long seq;
+
+        Ticket(ProviderQuotaPriority priority, long seq) {
+            this.priority = priority;
+            this.seq = seq;
+        }
+    }
+
+    private static final class Lane {
+        final ReentrantLock lock = new ReentrantLock();
+        final Condition changed = lock.newCondition();
+        final PriorityQueue<Ticket> waiters = new PriorityQueue<>(ORDER);
+
+        int size() {
+            lock.lock();
+            try {
+                return waiters.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static final class Stats {
+        final EnumMap<ProviderQuotaPriority, Counters> byPriority = new EnumMap<>(ProviderQuotaPriority.class);
+
+        Stats() {
+            for (ProviderQuotaPriority p : ProviderQuotaPriority.values()) {
+                byPriority.put(p, new Counters());
+            }
+        }
+
+        static final class Counters {
+            final LongAdder granted = new LongAdder();
+            final LongAdder dropped = new LongAdder();
+            final LongAdder waitMsTotal = new LongAdder();
+            final AtomicLong waitMsMax = new AtomicLong();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.lms.service.web.quota;
+
+/**
+ * Token bucket shared by every caller of a web search provider.
+ *
+ * <p>Implementations must be thread-safe. A cluster-wide implementation
+ * ({@link RedisProviderTokenBucket}) makes several app nodes respect one provider limit;
+ * {@link LocalProviderTokenBucket} is the embedded stand-in for single-node runs and tests.
+ */
+public interface ProviderTokenBucket extends AutoCloseable {
+
+    /**
+     * Try to take one token from the bucket of {@code provider}.
+     *
+     * @param provider     provider key (e.g. {@code brave}, {@code naver})
+     * @param ratePerSec   refill rate in tokens per second (must be &gt; 0)
+     * @param burst        bucket capacity (must be &gt;= 1)
+     * @return {@code 0} when a token was taken, otherwise the estimated number of
+     *         milliseconds until the next token becomes available (always &gt; 0)
+     */
+    long tryTake(String provider, double ratePerSec, int burst);
+
+    /** Short backend label for traces/metrics ({@code local}, {@code redis}, ...). */
+    String backend();
+
+    /** Release connections held by the backend; no-op for in-process buckets. */
+    @Override
+    default void close() {
+    }
+}
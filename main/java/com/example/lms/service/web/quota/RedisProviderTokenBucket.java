@@ -0,0 +1,86 @@
+package com.example.lms.service.web.quota;
+
+import com.example.lms.search.TraceStore;
+import com.example.lms.trace.SafeRedactor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+import java.util.List;
+
+/**
+ * Cluster-wide token bucket stored in Redis.
+ *
+ * <p>The refill + take step runs as one Lua script so concurrent nodes cannot
+ * double-spend a token. The script uses the Redis server clock ({@code TIME}) so node
+ * clock skew does not leak into the refill rate (requires Redis 5+ script effects
+ * replication, which is the default).
+ *
+ * <p>Fail-soft: when Redis is unreachable the call is served by the local fallback bucket,
+ * i.e. each node degrades to the old per-process limit instead of failing the search.
+ */
+public final class RedisProviderTokenBucket implements ProviderTokenBucket {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisProviderTokenBucket.class);
+
+    static final String SCRIPT = ""
+            + "local rate = tonumber(ARGV[1])\n"
+            + "local burst = tonumber(ARGV[2])\n"
+            + "local t = redis.call('TIME')\n"
+            + "local now = tonumber(t[1]) * 1000 + math.floor(tonumber(t[2]) / 1000)\n"
+            + "local st = redis.call('HMGET', KEYS[1], 'tokens', 'ts')\n"
+            + "local tokens = tonumber(st[1]) or burst\n"
+            + "local ts = tonumber(st[2]) or now\n"
+            + "tokens = math.min(burst, tokens + math.max(0, now - ts) * rate / 1000)\n"
+            + "local wait = 0\n"
+            + "if tokens >= 1 then tokens = tokens - 1 else wait = math.ceil((1 - tokens) * 1000 / rate) end\n"
+            + "redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', tostring(now))\n"
+            + "redis.call('PEXPIRE', KEYS[1], math.ceil(burst * 1000 / rate) + 1000)\n"
+            + "return wait\n";
+
+    private final JedisPool pool;
+    private final String keyPrefix;
+    private final ProviderTokenBucket fallback;
+
+    public RedisProviderTokenBucket(JedisPool pool, String keyPrefix, ProviderTokenBucket fallback) {
+        this.pool = pool;
+        this.keyPrefix = (keyPrefix == null || keyPrefix.isBlank()) ? "lms:quota:" : keyPrefix;
+        this.fallback = fallback == null ? new LocalProviderTokenBucket() : fallback;
+    }
+
+    @Override
+    public long tryTake(String provider, double ratePerSec, int burst) {
+        double rate = Math.max(0.001d, ratePerSec);
+        int cap = Math.max(1, burst);
+        try (Jedis jedis = pool.getResource()) {
+            Object res = jedis.eval(SCRIPT,
+                    List.of(keyPrefix + provider),
+                    List.of(Double.toString(rate), Integer.toString(cap)));
+            long wait = (res instanceof Number n) ? n.longValue() : Long.parseLong(String.valueOf(res));
+            return wait <= 0L ? 0L : wait;
+        } catch (Exception e) {
+            TraceStore.put("web.quota.redis.fallback", true);
+            TraceStore.put("web.quota.redis.fallback.errorType",
+                    SafeRedactor.traceLabelOrFallback(e.getClass().getSimpleName(), "unknown"));
+            log.debug("[Quota] redis bucket unavailable provider={} errorType={} -> local fallback",
+                    provider, e.getClass().getSimpleName());
+            return fallback.tryTake(provider, rate, cap);
+        }
+    }
+
+    @Override
+    public String backend() {
+        return "redis";
+    }
+
+    /** Release the pool on shutdown. */
+    @Override
+    public void close() {
+        try {
+            pool.close();
+        } catch (Exception e) {
+            TraceStore.put("web.quota.redis.suppressed.close", true);
+        }
+    }
+}
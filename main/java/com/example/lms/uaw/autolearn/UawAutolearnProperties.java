@@ -61,10 +61,22 @@ public class UawAutolearnProperties {
         private String path = "data/train_rag.jsonl";
         /** Logical dataset name (stored as metadata). */
         private String name = "uaw-train";
+        /** NONE, INTERVAL, or BATCH: when appended lines are forced to disk. */
+        private String durability = "INTERVAL";
+        /** INTERVAL durability: at most one force per this many ms. */
+        private long forceIntervalMs = 1000L;
+        /** Release the file (and its lock) after this long without appends. */
+        private long idleCloseMs = 30_000L;
         public String getPath() { return path; }
         public void setPath(String path) { this.path = path; }
         public String getName() { return name; }
         public void setName(String name) { this.name = name; }
+        public String getDurability() { return durability; }
+        public void setDurability(String durability) { this.durability = durability; }
+        public long getForceIntervalMs() { return forceIntervalMs; }
+        public void setForceIntervalMs(long forceIntervalMs) { this.forceIntervalMs = forceIntervalMs; }
+        public long getIdleCloseMs() { return idleCloseMs; }
+        public void setIdleCloseMs(long idleCloseMs) { this.idleCloseMs = idleCloseMs; }
     }
 
     public static class Retrain {
@@ -82,6 +94,8 @@ public class UawAutolearnProperties {
         private boolean rawContentToVector = false;
         /** NONE, METADATA_ONLY, or RAW_SHADOW_QUARANTINE. */
         private String vectorProjectionMode = "METADATA_ONLY";
+        /** Batches handed to embed/upsert but not yet checkpointed while parsing continues (1 = sequential). */
+        private int maxInflightBatches = 2;
 
         public boolean isEnabled() { return enabled; }
         public void setEnabled(boolean enabled) { this.enabled = enabled; }
@@ -97,6 +111,8 @@ public class UawAutolearnProperties {
         public void setRawContentToVector(boolean rawContentToVector) { this.rawContentToVector = rawContentToVector; }
         public String getVectorProjectionMode() { return vectorProjectionMode; }
         public void setVectorProjectionMode(String vectorProjectionMode) { this.vectorProjectionMode = vectorProjectionMode; }
+        public int getMaxInflightBatches() { return maxInflightBatches; }
+        public void setMaxInflightBatches(int maxInflightBatches) { this.maxInflightBatches = maxInflightBatches; }
     }
 
     public static class AgentHandoff {
@@ -35,6 +35,13 @@ public class UawDatasetFilterProperties {
      */
     private Trace trace = new Trace();
 
+    /**
+     * Select candidate rules with a literal prefilter (one Aho–Corasick pass per scope over literals extracted
+     * from the rule regexes) and run only those regexes. Decisions are identical either way; {@code false} runs
+     * every pattern on every sample.
+     */
+    private boolean literalPrefilter = true;
+
     /**
      * Rules are evaluated in the following order:
      * <ol>
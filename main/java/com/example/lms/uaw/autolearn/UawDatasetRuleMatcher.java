@@ -0,0 +1,556 @@
+package com.example.lms.uaw.autolearn;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
+import java.util.regex.Pattern;
+
+/**
+ * Single-pass matcher over every compiled dataset-filter rule.
+ *
+ * <p>Each regex is reduced to the literal it cannot match without (per top-level alternative, e.g.
+ * {@code [degraded} for {@code ^\s*※\s*\[DEGRADED\s+MODE\]}). One Aho–Corasick pass per scope over the ASCII
+ * case-folded question/answer/modelUsed selects the patterns whose literal occurs; only those regexes (plus the
+ * few whose literal could not be extracted) are run. {@link #match} reports every matching rule at once, so the
+ * caller can apply the usual hard → allow → soft precedence on the returned set.</p>
+ *
+ * <p>The extraction is conservative: anything it does not fully understand (inline flags, {@code \Q…\E},
+ * backreferences, unicode classes, …) leaves the pattern unfiltered, i.e. it is always run. Folding only
+ * {@code A-Z} mirrors {@link Pattern#CASE_INSENSITIVE} without {@link Pattern#UNICODE_CASE}, so a literal hit is
+ * a necessary condition for a regex match and the result equals running every pattern.</p>
+ */
+final class UawDatasetRuleMatcher {
+
+    private static final int SUPPORTED_FLAGS = Pattern.CASE_INSENSITIVE | Pattern.MULTILINE;
+
+    /** One rule: the scope it reads and its compiled patterns (any of which matching means the rule matches). */
+    record RuleSpec(UawDatasetFilterProperties.Scope scope, List<Pattern> patterns) {
+    }
+
+    private final int ruleCount;
+    private final Pattern[] patterns;
+    private final int[] patternRule;
+    private final ScopeIndex[] scopes;
+    private final int literalCount;
+    private final int unfilteredCount;
+
+    private UawDatasetRuleMatcher(int ruleCount, Pattern[] patterns, int[] patternRule, ScopeIndex[] scopes,
+                                  int literalCount, int unfilteredCount) {
+        this.ruleCount = ruleCount;
+        this.patterns = patterns;
+        this.patternRule = patternRule;
+        this.scopes = scopes;
+        this.literalCount = literalCount;
+        this.unfilteredCount = unfilteredCount;
+    }
+
+    /**
+     * Compiles {@code rules}; rule {@code i} is reported as bit {@code i}. With {@code literalPrefilter=false}
+     * every pattern is run on every call (the previous per-rule loop, kept as an operational fallback).
+     */
+    static UawDatasetRuleMatcher compile(List<RuleSpec> rules, boolean literalPrefilter) {
+        var scopeValues = UawDatasetFilterProperties.Scope.values();
+        var flat = new ArrayList<Pattern>();
+        var owners = new ArrayList<Integer>();
+        var scopePatterns = new ArrayList<List<Integer>>();
+        for (int s = 0; s < scopeValues.length; s++) {
+            scopePatterns.add(new ArrayList<>());
+        }
+        for (int r = 0; r < rules.size(); r++) {
+            var rule = rules.get(r);
+            if (rule == null || rule.scope() == null || rule.patterns() == null) {
+                continue;
+            }
+            for (var p : rule.patterns()) {
+                if (p == null) {
+                    continue;
+                }
+                scopePatterns.get(rule.scope().ordinal()).add(flat.size());
+                flat.add(p);
+                owners.add(r);
+            }
+        }
+
+        var scopes = new ScopeIndex[scopeValues.length];
+        int literals = 0;
+        int unfiltered = 0;
+        for (int s = 0; s < scopeValues.length; s++) {
+            var ids = scopePatterns.get(s);
+            if (ids.isEmpty()) {
+                continue;
+            }
+            var literalIds = new LinkedHashMap<String, List<Integer>>();
+            var always = new ArrayList<Integer>();
+            for (int id : ids) {
+                var lits = literalPrefilter ? requiredLiterals(flat.get(id)) : null;
+                if (lits == null) {
+                    always.add(id);
+                    continue;
+                }
+                for (var lit : lits) {
+                    literalIds.computeIfAbsent(lit, k -> new ArrayList<>()).add(id);
+                }
+            }
+            literals += literalIds.size();
+            unfiltered += always.size();
+            scopes[s] = new ScopeIndex(toIntArray(ids), toIntArray(always),
+                    LiteralAutomaton.build(literalIds.keySet().toArray(new String[0])),
+                    literalIds.values().stream().map(UawDatasetRuleMatcher::toIntArray).toArray(int[][]::new));
+        }
+
+        return new UawDatasetRuleMatcher(rules.size(), flat.toArray(new Pattern[0]),
+                owners.stream().mapToInt(Integer::intValue).toArray(), scopes, literals, unfiltered);
+    }
+
+    int ruleCount() {
+        return ruleCount;
+    }
+
+    /** Distinct literals in the prefilter automata. */
+    int literalCount() {
+        return literalCount;
+    }
+
+    /** Patterns without an extractable literal; these run on every non-blank haystack of their scope. */
+    int unfilteredPatternCount() {
+        return unfilteredCount;
+    }
+
+    /**
+     * Returns the set of rules with at least one pattern that {@code find()}s in its scope's text. Blank texts
+     * match nothing, as before.
+     */
+    BitSet match(String question, String answer, String modelUsed) {
+        var matched = new BitSet(ruleCount);
+        boolean[] candidate = null;
+        for (var scope : UawDatasetFilterProperties.Scope.values()) {
+            var index = scopes[scope.ordinal()];
+            if (index == null) {
+                continue;
+            }
+            var haystack = switch (scope) {
+                case PROMPT -> question;
+                case ANSWER -> answer;
+                case MODEL_USED -> modelUsed;
+            };
+            if (haystack == null || haystack.isBlank()) {
+                continue;
+            }
+            if (candidate == null) {
+                candidate = new boolean[patterns.length];
+            }
+            for (int id : index.unfiltered()) {
+                candidate[id] = true;
+            }
+            var hits = candidate;
+            index.automaton().match(haystack, literal -> {
+                for (int id : index.literalPatterns()[literal]) {
+                    hits[id] = true;
+                }
+            });
+            for (int id : index.patterns()) {
+                if (!candidate[id] || matched.get(patternRule[id])) {
+                    continue;
+                }
+                if (patterns[id].matcher(haystack).find()) {
+                    matched.set(patternRule[id]);
+                }
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * Literals (ASCII lower-cased) of which at least one occurs in every text {@code pattern} finds a match in —
+     * one per top-level alternative — or {@code null} when no such set can be derived safely.
+     */
+    static List<String> requiredLiterals(Pattern pattern) {
+        if (pattern == null || (pattern.flags() & ~SUPPORTED_FLAGS) != 0) {
+            return null;
+        }
+        return requiredLiterals(pattern.pattern());
+    }
+
+    static List<String> requiredLiterals(String regex) {
+        if (regex == null || regex.isEmpty()) {
+            return null;
+        }
+        var branches = new ArrayList<String>();
+        var run = new StringBuilder();
+        String best = "";
+        int n = regex.length();
+        int i = 0;
+        while (i < n) {
+            char c = regex.charAt(i);
+            int cp;
+            switch (c) {
+                case '|' -> {
+                    best = longer(run, best);
+                    if (best.isEmpty()) {
+                        return null;
+                    }
+                    branches.add(best);
+                    best = "";
+                    i++;
+                    continue;
+                }
+                case '\\' -> {
+                    if (i + 1 >= n) {
+                        return null;
+                    }
+                    char e = regex.charAt(i + 1);
+                    if (isAsciiLetterOrDigit(e)) {
+                        // Predefined classes, anchors and control escapes: a non-literal atom.
+                        if ("sSdDwWhHvVRbBAzZGtnrfae".indexOf(e) < 0) {
+                            return null;
+                        }
+                        best = longer(run, best);
+                        i = skipQuantifier(regex, i + 2);
+                        if (i < 0) {
+                            return null;
+                        }
+                        continue;
+                    }
+                    cp = regex.codePointAt(i + 1);
+                    i += 1 + Character.charCount(cp);
+                }
+                case '[' -> {
+                    best = longer(run, best);
+                    i = skipClass(regex, i);
+                    i = i < 0 ? i : skipQuantifier(regex, i);
+                    if (i < 0) {
+                        return null;
+                    }
+                    continue;
+                }
+                case '(' -> {
+                    best = longer(run, best);
+                    i = skipGroup(regex, i);
+                    i = i < 0 ? i : skipQuantifier(regex, i);
+                    if (i < 0) {
+                        return null;
+                    }
+                    continue;
+                }
+                case '.', '^', '$' -> {
+                    best = longer(run, best);
+                    i = skipQuantifier(regex, i + 1);
+                    if (i < 0) {
+                        return null;
+                    }
+                    continue;
+                }
+                case ')', ']', '{', '}', '?', '*', '+' -> {
+                    return null;
+                }
+                default -> {
+                    cp = regex.codePointAt(i);
+                    i += Character.charCount(cp);
+                }
+            }
+
+            // A literal code point; a following quantifier decides whether it is required.
+            char q = i < n ? regex.charAt(i) : 0;
+            if (q == '?' || q == '*' || q == '{') {
+                best = longer(run, best);
+                i = skipQuantifier(regex, i);
+                if (i < 0) {
+                    return null;
+                }
+            } else if (q == '+') {
+                // x+ : the first x ends the current run, the last x starts the next one.
+                appendFolded(run, cp);
+                best = longer(run, best);
+                appendFolded(run, cp);
+                i = skipQuantifier(regex, i);
+                if (i < 0) {
+                    return null;
+                }
+            } else {
+                appendFolded(run, cp);
+            }
+        }
+        best = longer(run, best);
+        if (best.isEmpty()) {
+            return null;
+        }
+        branches.add(best);
+        return List.copyOf(branches);
+    }
+
+    private static String longer(StringBuilder run, String best) {
+        String result = run.length() > best.length() ? run.toString() : best;
+        run.setLength(0);
+        return result;
+    }
+
+    private static void appendFolded(StringBuilder run, int cp) {
+        run.appendCodePoint(cp >= 'A' && cp <= 'Z' ? cp + ('a' - 'A') : cp);
+    }
+
+    private static char fold(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    private static boolean isAsciiLetterOrDigit(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+
+    /** Skips an optional {@code ? * + {n}|{n,}|{n,m}} quantifier and its lazy/possessive suffix; -1 if malformed. */
+    private static int skipQuantifier(String regex, int i) {
+        int n = regex.length();
+        if (i >= n) {
+            return i;
+        }
+        char c = regex.charAt(i);
+        if (c == '?' || c == '*' || c == '+') {
+            i++;
+        } else if (c == '{') {
+            int j = i + 1;
+            int digits = 0;
+            while (j < n && (Character.isDigit(regex.charAt(j)) || regex.charAt(j) == ',')) {
+                digits += Character.isDigit(regex.charAt(j)) ? 1 : 0;
+                j++;
+            }
+            if (j >= n || regex.charAt(j) != '}' || digits == 0) {
+                return -1;
+            }
+            i = j + 1;
+        } else {
+            return i;
+        }
+        if (i < n && (regex.charAt(i) == '?' || regex.charAt(i) == '+')) {
+            i++;
+        }
+        return i;
+    }
+
+    /** Returns the index after the class starting at {@code i}; nested classes and {@code \Q} give up (-1). */
+    private static int skipClass(String regex, int i) {
+        int n = regex.length();
+        int j = i + 1;
+        if (j < n && regex.charAt(j) == '^') {
+            j++;
+        }
+        if (j < n && regex.charAt(j) == ']') {
+            j++;
+        }
+        while (j < n) {
+            char c = regex.charAt(j);
+            if (c == '\\') {
+                if (j + 1 >= n || regex.charAt(j + 1) == 'Q') {
+                    return -1;
+                }
+                j += 2;
+            } else if (c == '[') {
+                return -1;
+            } else if (c == ']') {
+                return j + 1;
+            } else {
+                j++;
+            }
+        }
+        return -1;
+    }
+
+    /** Returns the index after the group starting at {@code i}; inline-flag groups and {@code \Q} give up (-1). */
+    private static int skipGroup(String regex, int i) {
+        int n = regex.length();
+        int depth = 0;
+        int j = i;
+        while (j < n) {
+            char c = regex.charAt(j);
+            if (c == '\\') {
+                if (j + 1 >= n || regex.charAt(j + 1) == 'Q') {
+                    return -1;
+                }
+                j += 2;
+            } else if (c == '[') {
+                j = skipClass(regex, j);
+                if (j < 0) {
+                    return -1;
+                }
+            } else if (c == '(') {
+                if (!isPlainGroupOpen(regex, j)) {
+                    return -1;
+                }
+                depth++;
+                j++;
+            } else if (c == ')') {
+                depth--;
+                j++;
+                if (depth == 0) {
+                    return j;
+                }
+            } else {
+                j++;
+            }
+        }
+        return -1;
+    }
+
+    /** Capturing, non-capturing, atomic, lookaround and named groups; anything else ({@code (?i)}, …) is not. */
+    private static boolean isPlainGroupOpen(String regex, int i) {
+        int n = regex.length();
+        if (i + 1 >= n || regex.charAt(i + 1) != '?') {
+            return true;
+        }
+        if (i + 2 >= n) {
+            return false;
+        }
+        char k = regex.charAt(i + 2);
+        if (k == ':' || k == '=' || k == '!' || k == '>') {
+            return true;
+        }
+        if (k == '<' && i + 3 < n) {
+            char l = regex.charAt(i + 3);
+            return l == '=' || l == '!' || (l >= 'a' && l <= 'z') || (l >= 'A' && l <= 'Z');
+        }
+        return false;
+    }
+
+    private static int[] toIntArray(List<Integer> values) {
+        return values.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private record ScopeIndex(int[] patterns, int[] unfiltered, LiteralAutomaton automaton, int[][] literalPatterns) {
+    }
+
+    /** Aho–Corasick automaton over distinct ASCII-folded literals; reports each literal id at most once. */
+    private static final class LiteralAutomaton {
+
+        private final int literalCount;
+        private final int[] childStart;
+        private final char[] childLabel;
+        private final int[] childTarget;
+        private final int[] fail;
+        private final int[] output;
+        private final int[] outputLink;
+
+        private LiteralAutomaton(int literalCount, int[] childStart, char[] childLabel, int[] childTarget,
+                                 int[] fail, int[] output, int[] outputLink) {
+            this.literalCount = literalCount;
+            this.childStart = childStart;
+            this.childLabel = childLabel;
+            this.childTarget = childTarget;
+            this.fail = fail;
+            this.output = output;
+            this.outputLink = outputLink;
+        }
+
+        static LiteralAutomaton build(String[] literals) {
+            // Trie as per-state label → target maps, then flattened into sorted label/target tables.
+            var children = new ArrayList<Map<Character, Integer>>();
+            var outputs = new ArrayList<Integer>();
+            children.add(new TreeMap<>());
+            outputs.add(-1);
+            for (int id = 0; id < literals.length; id++) {
+                int state = 0;
+                for (int i = 0; i < literals[id].length(); i++) {
+                    char c = literals[id].charAt(i);
+                    Integer next = children.get(state).get(c);
+                    if (next == null) {
+                        next = children.size();
+                        children.add(new TreeMap<>());
+                        outputs.add(-1);
+                        children.get(state).put(c, next);
+                    }
+                    state = next;
+                }
+                outputs.set(state, id);
+            }
+
+            int states = children.size();
+            int[] childStart = new int[states + 1];
+            for (int s = 0; s < states; s++) {
+                childStart[s + 1] = childStart[s] + children.get(s).size();
+            }
+            char[] childLabel = new char[childStart[states]];
+            int[] childTarget = new int[childStart[states]];
+            for (int s = 0; s < states; s++) {
+                int k = childStart[s];
+                for (var e : children.get(s).entrySet()) {
+                    childLabel[k] = e.getKey();
+                    childTarget[k] = e.getValue();
+                    k++;
+                }
+            }
+            int[] output = outputs.stream().mapToInt(Integer::intValue).toArray();
+            int[] fail = new int[states];
+            int[] outputLink = new int[states];
+            var automaton = new LiteralAutomaton(literals.length, childStart, childLabel, childTarget, fail, output,
+                    outputLink);
+
+            var queue = new ArrayDeque<Integer>();
+            for (int i = childStart[0]; i < childStart[1]; i++) {
+                queue.add(childTarget[i]);
+            }
+            while (!queue.isEmpty()) {
+                int state = queue.removeFirst();
+                for (int i = childStart[state]; i < childStart[state + 1]; i++) {
+                    char c = childLabel[i];
+                    int child = childTarget[i];
+                    int f = fail[state];
+                    int next = automaton.child(f, c);
+                    while (next < 0 && f != 0) {
+                        f = fail[f];
+                        next = automaton.child(f, c);
+                    }
+                    fail[child] = next < 0 ? 0 : next;
+                    int link = fail[child];
+                    outputLink[child] = output[link] >= 0 ? link : outputLink[link];
+                    queue.add(child);
+                }
+            }
+            return automaton;
+        }
+
+        void match(String text, IntConsumer sink) {
+            if (literalCount == 0) {
+                return;
+            }
+            boolean[] seen = new boolean[literalCount];
+            int remaining = literalCount;
+            int state = 0;
+            for (int i = 0; i < text.length() && remaining > 0; i++) {
+                char c = fold(text.charAt(i));
+                int next = child(state, c);
+                while (next < 0 && state != 0) {
+                    state = fail[state];
+                    next = child(state, c);
+                }
+                state = next < 0 ? 0 : next;
+                for (int t = output[state] >= 0 ? state : outputLink[state]; t > 0; t = outputLink[t]) {
+                    int id = output[t];
+                    if (!seen[id]) {
+                        seen[id] = true;
+                        remaining--;
+                        sink.accept(id);
+                    }
+                }
+            }
+        }
+
+        private int child(int state, char c) {
+            int lo = childStart[state];
+            int hi = childStart[state + 1] - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                char label = childLabel[mid];
+                if (label < c) {
+                    lo = mid + 1;
+                } else if (label > c) {
+                    hi = mid - 1;
+                } else {
+                    return childTarget[mid];
+                }
+            }
+            return -1;
+        }
+    }
+}
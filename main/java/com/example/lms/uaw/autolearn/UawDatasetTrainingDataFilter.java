@@ -76,9 +76,11 @@ public class UawDatasetTrainingDataFilter {
     private final boolean includeOverrideMatrixResolutionInDecisionMetrics;
     private final boolean warnOnOverrideMatrixTie;
 
-    private final List<CompiledRule> hardExcludes;
-    private final List<CompiledRule> allowRules;
-    private final List<CompiledRule> softExcludes;
+    /**
+     * Compiled rules and their single-pass matcher. Rebuilt when {@link UawDatasetFilterProperties#getRules()} or
+     * {@link UawDatasetFilterProperties#isLiteralPrefilter()} change (e.g. a properties rebind).
+     */
+    private volatile RuleSet ruleSet;
 
     public UawDatasetTrainingDataFilter(
             UawDatasetFilterProperties props,
@@ -106,64 +108,8 @@ public class UawDatasetTrainingDataFilter {
                 && overridePolicy.isIncludeOverrideMatrixResolutionInDecisionMetrics();
         this.warnOnOverrideMatrixTie = overridePolicy != null && overridePolicy.isWarnOnOverrideMatrixTie();
 
-        // Compile & sort rules once.
-        var compiled = props.getRules().stream()
-                .map(this::compileRule)
-                .toList();
-
-        var priorityOrder = Comparator
-                .comparingInt((CompiledRule r) -> r.rule().getPriority()).reversed()
-                .thenComparing(r -> r.rule().getName());
-
-        this.hardExcludes = compiled.stream()
-                .filter(r -> r.rule().getAction() == UawDatasetFilterProperties.Action.EXCLUDE && r.rule().isHard())
-                .sorted(priorityOrder)
-                .toList();
-
-        this.allowRules = compiled.stream()
-                .filter(r -> r.rule().getAction() == UawDatasetFilterProperties.Action.ALLOW)
-                .sorted(priorityOrder)
-                .toList();
-
-        this.softExcludes = compiled.stream()
-                .filter(r -> r.rule().getAction() == UawDatasetFilterProperties.Action.EXCLUDE && !r.rule().isHard())
-                .sorted(priorityOrder)
-                .toList();
-
-        if (log.isInfoEnabled()) {
-            var lines = new ArrayList<String>();
-            lines.add("UAW dataset training-data filter initialized: enabled=" + props.isEnabled());
-            lines.add("overridePolicy.strictAllowOverrides=" + strictAllowOverrides);
-            lines.add("overridePolicy.allowOverridesSoftExcludeGroups=" +
-                    (props.getOverridePolicy() == null ? "[]"
-                            : props.getOverridePolicy().getAllowOverridesSoftExcludeGroups()));
-            lines.add("overridePolicy.allowGroupOverrideMatrix=" +
-                    (props.getOverridePolicy() == null ? "{}"
-                            : props.getOverridePolicy().getAllowGroupOverrideMatrix()));
-            lines.add("trace.enabled=" + (props.getTrace() != null && props.getTrace().isEnabled()));
-            lines.add(
-                    "trace.includeSampleHash=" + (props.getTrace() != null && props.getTrace().isIncludeSampleHash()));
-
-            lines.add("hardExcludes(" + hardExcludes.size() + "):");
-            for (var r : hardExcludes) {
-                lines.add("  - " + r.rule().getName() + " [group=" + r.rule().getGroup() + ", scope="
-                        + r.rule().getScope().key() + ", priority=" + r.rule().getPriority() + "]");
-            }
-
-            lines.add("allowRules(" + allowRules.size() + "):");
-            for (var r : allowRules) {
-                lines.add("  - " + r.rule().getName() + " [group=" + r.rule().getGroup() + ", scope="
-                        + r.rule().getScope().key() + ", priority=" + r.rule().getPriority() + "]");
-            }
-
-            lines.add("softExcludes(" + softExcludes.size() + "):");
-            for (var r : softExcludes) {
-                lines.add("  - " + r.rule().getName() + " [group=" + r.rule().getGroup() + ", scope="
-                        + r.rule().getScope().key() + ", priority=" + r.rule().getPriority() + "]");
-            }
-
-            log.info("{}", String.join("\n", lines));
-        }
+        this.ruleSet = compileRuleSet();
+        logRuleSet("UAW dataset training-data filter initialized: enabled=" + props.isEnabled(), ruleSet);
     }
 
     /**
@@ -229,9 +175,13 @@ public class UawDatasetTrainingDataFilter {
             return decision;
         }
 
+        // All matching rules in one pass; the precedence below only reads this set.
+        var rules = currentRuleSet();
+        var matched = rules.matcher().match(q, a, m);
+
         // 1) Hard excludes – always win.
-        for (var hardExclude : hardExcludes) {
-            if (hardExclude.matches(q, a, m)) {
+        for (var hardExclude : rules.hardExcludes()) {
+            if (matched.get(hardExclude.index())) {
                 var decisive = MatchedRule.from(hardExclude.rule());
                 var decision = FilterDecision.exclude(DecisionType.EXCLUDE_HARD, decisive, null, strictAllowOverrides);
                 recordDecisionMetrics(decision);
@@ -242,8 +192,8 @@ public class UawDatasetTrainingDataFilter {
 
         // 2) Find first matching allow rule (if any) – used for override decisions.
         CompiledRule allowMatch = null;
-        for (var allow : allowRules) {
-            if (allow.matches(q, a, m)) {
+        for (var allow : rules.allowRules()) {
+            if (matched.get(allow.index())) {
                 allowMatch = allow;
                 break;
             }
@@ -255,8 +205,8 @@ public class UawDatasetTrainingDataFilter {
 
         // 3) Soft excludes, potentially overridden by allow.
         boolean overrodeAnySoft = false;
-        for (var softExclude : softExcludes) {
-            if (!softExclude.matches(q, a, m)) {
+        for (var softExclude : rules.softExcludes()) {
+            if (!matched.get(softExclude.index())) {
                 continue;
             }
 
@@ -815,9 +765,122 @@ public class UawDatasetTrainingDataFilter {
         return v;
     }
 
-    private CompiledRule compileRule(UawDatasetFilterProperties.Rule rule) {
+    private RuleSet currentRuleSet() {
+        var current = ruleSet;
+        if (current.isCurrent(props)) {
+            return current;
+        }
+        synchronized (this) {
+            current = ruleSet;
+            if (!current.isCurrent(props)) {
+                current = compileRuleSet();
+                ruleSet = current;
+                logRuleSet("UAW dataset training-data filter rules reloaded", current);
+            }
+            return current;
+        }
+    }
+
+    private RuleSet compileRuleSet() {
+        var source = props.getRules() == null ? List.<UawDatasetFilterProperties.Rule>of() : props.getRules();
+        var snapshot = source.stream().map(UawDatasetTrainingDataFilter::copyRule).toList();
+
+        var compiled = new ArrayList<CompiledRule>();
+        var specs = new ArrayList<UawDatasetRuleMatcher.RuleSpec>();
+        for (var rule : snapshot) {
+            if (rule == null) {
+                continue;
+            }
+            var compiledRule = compileRule(rule, compiled.size());
+            compiled.add(compiledRule);
+            specs.add(new UawDatasetRuleMatcher.RuleSpec(rule.getScope(), compiledRule.patterns()));
+        }
+
+        var priorityOrder = Comparator
+                .comparingInt((CompiledRule r) -> r.rule().getPriority()).reversed()
+                .thenComparing(r -> r.rule().getName());
+
+        var hardExcludes = compiled.stream()
+                .filter(r -> r.rule().getAction() == UawDatasetFilterProperties.Action.EXCLUDE && r.rule().isHard())
+                .sorted(priorityOrder)
+                .toList();
+
+        var allowRules = compiled.stream()
+                .filter(r -> r.rule().getAction() == UawDatasetFilterProperties.Action.ALLOW)
+                .sorted(priorityOrder)
+                .toList();
+
+        var softExcludes = compiled.stream()
+                .filter(r -> r.rule().getAction() == UawDatasetFilterProperties.Action.EXCLUDE && !r.rule().isHard())
+                .sorted(priorityOrder)
+                .toList();
+
+        return new RuleSet(snapshot, props.isLiteralPrefilter(), hardExcludes, allowRules, softExcludes,
+                UawDatasetRuleMatcher.compile(specs, props.isLiteralPrefilter()));
+    }
+
+    /** Detached copy so a later in-place change of the bound rules is detected by {@link RuleSet#isCurrent}. */
+    private static UawDatasetFilterProperties.Rule copyRule(UawDatasetFilterProperties.Rule rule) {
+        if (rule == null) {
+            return null;
+        }
+        var copy = new UawDatasetFilterProperties.Rule();
+        copy.setName(rule.getName());
+        copy.setAction(rule.getAction());
+        copy.setScope(rule.getScope());
+        copy.setGroup(rule.getGroup());
+        copy.setOverrideSoftExcludeGroups(
+                rule.getOverrideSoftExcludeGroups() == null ? null : new ArrayList<>(rule.getOverrideSoftExcludeGroups()));
+        copy.setHard(rule.isHard());
+        copy.setPriority(rule.getPriority());
+        copy.setPatterns(rule.getPatterns() == null ? null : new ArrayList<>(rule.getPatterns()));
+        return copy;
+    }
+
+    private void logRuleSet(String headline, RuleSet rules) {
+        if (!log.isInfoEnabled()) {
+            return;
+        }
+        var lines = new ArrayList<String>();
+        lines.add(headline);
+        lines.add("overridePolicy.strictAllowOverrides=" + strictAllowOverrides);
+        lines.add("overridePolicy.allowOverridesSoftExcludeGroups=" +
+                (props.getOverridePolicy() == null ? "[]"
+                        : props.getOverridePolicy().getAllowOverridesSoftExcludeGroups()));
+        lines.add("overridePolicy.allowGroupOverrideMatrix=" +
+                (props.getOverridePolicy() == null ? "{}"
+                        : props.getOverridePolicy().getAllowGroupOverrideMatrix()));
+        lines.add("trace.enabled=" + (props.getTrace() != null && props.getTrace().isEnabled()));
+        lines.add(
+                "trace.includeSampleHash=" + (props.getTrace() != null && props.getTrace().isIncludeSampleHash()));
+        lines.add("literalPrefilter=" + rules.literalPrefilter()
+                + " (literals=" + rules.matcher().literalCount()
+                + ", unfilteredPatterns=" + rules.matcher().unfilteredPatternCount() + ")");
+
+        lines.add("hardExcludes(" + rules.hardExcludes().size() + "):");
+        for (var r : rules.hardExcludes()) {
+            lines.add("  - " + r.rule().getName() + " [group=" + r.rule().getGroup() + ", scope="
+                    + r.rule().getScope().key() + ", priority=" + r.rule().getPriority() + "]");
+        }
+
+        lines.add("allowRules(" + rules.allowRules().size() + "):");
+        for (var r : rules.allowRules()) {
+            lines.add("  - " + r.rule().getName() + " [group=" + r.rule().getGroup() + ", scope="
+                    + r.rule().getScope().key() + ", priority=" + r.rule().getPriority() + "]");
+        }
+
+        lines.add("softExcludes(" + rules.softExcludes().size() + "):");
+        for (var r : rules.softExcludes()) {
+            lines.add("  - " + r.rule().getName() + " [group=" + r.rule().getGroup() + ", scope="
+                    + r.rule().getScope().key() + ", priority=" + r.rule().getPriority() + "]");
+        }
+
+        log.info("{}", String.join("\n", lines));
+    }
+
+    private CompiledRule compileRule(UawDatasetFilterProperties.Rule rule, int index) {
         var patterns = new ArrayList<Pattern>();
-        for (String rawPattern : rule.getPatterns()) {
+        for (String rawPattern : rule.getPatterns() == null ? List.<String>of() : rule.getPatterns()) {
             if (rawPattern == null || rawPattern.isBlank()) {
                 continue;
             }
@@ -840,7 +903,7 @@ public class UawDatasetTrainingDataFilter {
                 ? compileGroupMatchers(rule.getOverrideSoftExcludeGroups())
                 : List.<Pattern>of();
 
-        return new CompiledRule(rule, patterns, overrideSoftExcludeGroupMatchers);
+        return new CompiledRule(rule, index, List.copyOf(patterns), overrideSoftExcludeGroupMatchers);
     }
 
     private static String patternHash(String pattern) {
@@ -1079,25 +1142,20 @@ public class UawDatasetTrainingDataFilter {
     }
 
     private record CompiledRule(UawDatasetFilterProperties.Rule rule,
+            int index,
             List<Pattern> patterns,
             List<Pattern> overrideSoftExcludeGroupMatchers) {
-        boolean matches(String question, String answer, String modelUsed) {
-            var haystack = switch (rule.getScope()) {
-                case PROMPT -> question;
-                case ANSWER -> answer;
-                case MODEL_USED -> modelUsed;
-            };
-
-            if (haystack == null || haystack.isBlank()) {
-                return false;
-            }
+    }
 
-            for (var p : patterns) {
-                if (p.matcher(haystack).find()) {
-                    return true;
-                }
-            }
-            return false;
+    private record RuleSet(List<UawDatasetFilterProperties.Rule> source,
+            boolean literalPrefilter,
+            List<CompiledRule> hardExcludes,
+            List<CompiledRule> allowRules,
+            List<CompiledRule> softExcludes,
+            UawDatasetRuleMatcher matcher) {
+        boolean isCurrent(UawDatasetFilterProperties props) {
+            var rules = props.getRules() == null ? List.<UawDatasetFilterProperties.Rule>of() : props.getRules();
+            return literalPrefilter == props.isLiteralPrefilter() && source.equals(rules);
         }
     }
 }
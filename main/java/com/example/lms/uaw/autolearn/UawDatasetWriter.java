@@ -5,51 +5,74 @@ import com.example.lms.trace.SafeRedactor;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.io.File;
-import java.nio.ByteBuffer;
-import java.nio.channels.FileChannel;
-import java.nio.channels.FileLock;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.StandardOpenOption;
+import java.nio.file.Path;
 import java.security.MessageDigest;
 import java.time.Instant;
 import java.util.List;
-
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Appends accepted AutoLearn samples to the training JSONL.
+ *
+ * <p>Redaction, gating and JSON serialization run on the caller's thread without any shared lock; the finished
+ * line goes to the file's {@link UawJsonlAppender}, which coalesces concurrent appends into one write (plus a
+ * force per the configured durability). Appenders are shared JVM-wide per absolute path because the file lock
+ * they hold is per process.</p>
+ */
 @Component
 public class UawDatasetWriter {
 
     private static final System.Logger LOG = System.getLogger(UawDatasetWriter.class.getName());
     private static final String TRACE_PREFIX = "uaw.autolearn.datasetWriter.";
+    private static final ConcurrentHashMap<Path, UawJsonlAppender> APPENDERS = new ConcurrentHashMap<>();
 
     private final ObjectMapper om = new ObjectMapper();
 
     private final UawDatasetTrainingDataFilter trainingDataFilter;
+    private final UawJsonlAppender.Options appenderOptions;
 
     public UawDatasetWriter(UawDatasetTrainingDataFilter trainingDataFilter) {
+        this(trainingDataFilter, (UawAutolearnProperties) null);
+    }
+
+    @Autowired
+    public UawDatasetWriter(UawDatasetTrainingDataFilter trainingDataFilter,
+                            ObjectProvider<UawAutolearnProperties> propsProvider) {
+        this(trainingDataFilter, propsProvider == null ? null : propsProvider.getIfAvailable());
+    }
+
+    public UawDatasetWriter(UawDatasetTrainingDataFilter trainingDataFilter, UawAutolearnProperties props) {
         this.trainingDataFilter = trainingDataFilter;
+        this.appenderOptions = appenderOptions(props);
     }
 
-    public synchronized boolean append(File file,
-                                       String datasetName,
-                                       String question,
-                                       String answer,
-                                       String modelUsed,
-                                       int evidenceCount,
-                                       String sessionId) {
+    public boolean append(File file,
+                          String datasetName,
+                          String question,
+                          String answer,
+                          String modelUsed,
+                          int evidenceCount,
+                          String sessionId) {
         return append(file, datasetName, question, answer, modelUsed, evidenceCount, sessionId,
                 TrainingMetadata.empty());
     }
 
-    public synchronized boolean append(File file,
-                                       String datasetName,
-                                       String question,
-                                       String answer,
-                                       String modelUsed,
-                                       int evidenceCount,
-                                       String sessionId,
-                                       TrainingMetadata metadata) {
+    public boolean append(File file,
+                          String datasetName,
+                          String question,
+                          String answer,
+                          String modelUsed,
+                          int evidenceCount,
+                          String sessionId,
+                          TrainingMetadata metadata) {
         String redactedQuestion = safeRedact(question);
         String redactedAnswer = safeRedact(answer);
         int redactionCount = redactionCount(question, redactedQuestion) + redactionCount(answer, redactedAnswer);
@@ -116,7 +139,7 @@ public class UawDatasetWriter {
             n.put("id", sha1((datasetName == null ? "" : datasetName) + "|" + redactedQuestion + "|" + redactedAnswer));
 
             String line = om.writeValueAsString(n);
-            appendLineLocked(file, line);
+            appendLine(file, line);
             traceSuccess(redactionCount, redactedQuestion, redactedAnswer, line.length());
             return true;
         } catch (Exception e) {
@@ -149,15 +172,39 @@ public class UawDatasetWriter {
         }
     }
 
-    private static void appendLineLocked(File file, String line) throws Exception {
-        byte[] bytes = (line + "\n").getBytes(StandardCharsets.UTF_8);
-        try (FileChannel channel = FileChannel.open(file.toPath(),
-                StandardOpenOption.CREATE,
-                StandardOpenOption.WRITE,
-                StandardOpenOption.APPEND);
-             FileLock ignored = channel.lock()) {
-            channel.write(ByteBuffer.wrap(bytes));
+    /** Flushes and releases every open dataset file (lines queued before this call are written first). */
+    @PreDestroy
+    public void shutdown() {
+        for (Path path : List.copyOf(APPENDERS.keySet())) {
+            UawJsonlAppender appender = APPENDERS.remove(path);
+            if (appender != null) {
+                appender.close();
+            }
+        }
+    }
+
+    private void appendLine(File file, String line) throws IOException {
+        Path path = file.toPath().toAbsolutePath().normalize();
+        for (int attempt = 0; attempt < 2; attempt++) {
+            UawJsonlAppender appender = APPENDERS.computeIfAbsent(path, p -> new UawJsonlAppender(p, appenderOptions));
+            if (appender.append(line)) {
+                return;
+            }
+            // Closed by a concurrent shutdown(): drop it and reopen once.
+            APPENDERS.remove(path, appender);
+        }
+        throw new IOException("dataset appender closed");
+    }
+
+    private static UawJsonlAppender.Options appenderOptions(UawAutolearnProperties props) {
+        UawAutolearnProperties.Dataset dataset = props == null ? null : props.getDataset();
+        if (dataset == null) {
+            return UawJsonlAppender.Options.defaults();
         }
+        return new UawJsonlAppender.Options(
+                UawJsonlAppender.Durability.parse(dataset.getDurability()),
+                Math.max(0L, dataset.getForceIntervalMs()),
+                Math.max(0L, dataset.getIdleCloseMs()));
     }
 
     private static String safeRedact(String value) {
@@ -0,0 +1,309 @@
+package com.example.lms.uaw.autolearn;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Long-lived group-commit appender for one JSONL file.
+ *
+ * <p>Callers {@link #append(String) append} an already serialized line and wait only until the group that carries
+ * it has been written: one writer thread drains every line queued since its previous write and issues a single
+ * gathering write for all of them. The channel and its exclusive {@link FileLock} are held for the appender's
+ * lifetime (other processes that lock the file wait instead of interleaving) and released after
+ * {@code idleCloseMs} without traffic or on {@link #close()}.</p>
+ *
+ * <p>Durability: {@link Durability#NONE} leaves flushing to the OS (the previous per-call writer behaved this
+ * way), {@link Durability#INTERVAL} forces the channel at most once per {@code forceIntervalMs} after a write,
+ * {@link Durability#BATCH} forces every group before its callers are released.</p>
+ *
+ * <p>The file is never rotated or truncated here: {@code TrainRagIngestService} checkpoints a byte offset into
+ * this one path, and a rename under it would lose the old file's tail and skip the new file's head.</p>
+ */
+final class UawJsonlAppender implements AutoCloseable {
+
+    enum Durability {
+        NONE, INTERVAL, BATCH;
+
+        static Durability parse(String raw) {
+            String v = raw == null ? "" : raw.trim().toUpperCase(Locale.ROOT).replace('-', '_');
+            return switch (v) {
+                case "NONE" -> NONE;
+                case "BATCH", "PER_BATCH" -> BATCH;
+                default -> INTERVAL;
+            };
+        }
+    }
+
+    record Options(Durability durability, long forceIntervalMs, long idleCloseMs) {
+
+        static Options defaults() {
+            return new Options(Durability.INTERVAL, 1000L, 30_000L);
+        }
+    }
+
+    private static final long APPEND_TIMEOUT_MS = 30_000L;
+
+    private final Path path;
+    private final Options options;
+    private final ArrayDeque<Pending> queue = new ArrayDeque<>();
+    private final Thread writer;
+    private boolean closed;
+
+    // Writer-thread state.
+    private FileChannel channel;
+    private FileLock lock;
+    private long lastWriteAtMs;
+    private long lastForceAtMs;
+    private boolean dirty;
+    private long groups;
+    private long forces;
+
+    UawJsonlAppender(Path path, Options options) {
+        this.path = path;
+        this.options = options == null ? Options.defaults() : options;
+        this.writer = new Thread(this::runWriter, "uaw-dataset-appender");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queues {@code line} (without terminator) and waits until its group is written (and forced in
+     * {@link Durability#BATCH} mode). Returns {@code false} without writing if the appender is already closed.
+     */
+    boolean append(String line) throws IOException {
+        Pending pending = new Pending((line + "\n").getBytes(StandardCharsets.UTF_8));
+        synchronized (this) {
+            if (closed) {
+                return false;
+            }
+            queue.addLast(pending);
+            notifyAll();
+        }
+        try {
+            pending.done.get(APPEND_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("append interrupted");
+        } catch (TimeoutException te) {
+            throw new IOException("append timed out", te);
+        } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+            throw cause instanceof IOException io ? io : new IOException(cause);
+        }
+    }
+
+    /** Flushes queued lines, forces the channel and releases the lock; later {@link #append} calls return false. */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        try {
+            writer.join(APPEND_TIMEOUT_MS);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    synchronized boolean isClosed() {
+        return closed;
+    }
+
+    Stats stats() {
+        synchronized (this) {
+            return new Stats(groups, forces, queue.size());
+        }
+    }
+
+    record Stats(long groups, long forces, int queued) {
+    }
+
+    // ---------------------------------------------------------------- writer thread
+
+    private void runWriter() {
+        while (true) {
+            List<Pending> group;
+            boolean shuttingDown;
+            synchronized (this) {
+                while (queue.isEmpty() && !closed) {
+                    long waitMs = nextTimerMs(System.currentTimeMillis());
+                    if (waitMs == 0L) {
+                        break;
+                    }
+                    try {
+                        wait(Math.max(0L, waitMs));
+                    } catch (InterruptedException ie) {
+                        closed = true;
+                    }
+                }
+                group = new ArrayList<>(queue);
+                queue.clear();
+                shuttingDown = closed;
+            }
+            if (!group.isEmpty()) {
+                writeGroup(group);
+            }
+            if (shuttingDown) {
+                synchronized (this) {
+                    if (!queue.isEmpty()) {
+                        continue;
+                    }
+                }
+                forceQuietly();
+                release();
+                return;
+            }
+            onTimers(System.currentTimeMillis());
+        }
+    }
+
+    /** Milliseconds until the next interval force or idle close; -1 means wait for traffic. */
+    private long nextTimerMs(long now) {
+        if (channel == null) {
+            return -1L;
+        }
+        long next = Long.MAX_VALUE;
+        if (dirty && options.durability() == Durability.INTERVAL) {
+            next = Math.min(next, lastForceAtMs + options.forceIntervalMs() - now);
+        }
+        if (options.idleCloseMs() > 0) {
+            next = Math.min(next, lastWriteAtMs + options.idleCloseMs() - now);
+        }
+        return next == Long.MAX_VALUE ? -1L : Math.max(0L, next);
+    }
+
+    private void onTimers(long now) {
+        if (channel == null) {
+            return;
+        }
+        if (dirty && options.durability() == Durability.INTERVAL && now - lastForceAtMs >= options.forceIntervalMs()) {
+            forceQuietly();
+        }
+        if (options.idleCloseMs() > 0 && now - lastWriteAtMs >= options.idleCloseMs()) {
+            forceQuietly();
+            release();
+        }
+    }
+
+    private void writeGroup(List<Pending> group) {
+        try {
+            long now = System.currentTimeMillis();
+            ensureOpen(now);
+            ByteBuffer[] buffers = new ByteBuffer[group.size()];
+            long bytes = 0L;
+            for (int i = 0; i < buffers.length; i++) {
+                buffers[i] = ByteBuffer.wrap(group.get(i).bytes);
+                bytes += group.get(i).bytes.length;
+            }
+            long written = 0L;
+            while (written < bytes) {
+                written += channel.write(buffers);
+            }
+            dirty = true;
+            lastWriteAtMs = now;
+            if (options.durability() == Durability.BATCH
+                    || (options.durability() == Durability.INTERVAL && now - lastForceAtMs >= options.forceIntervalMs())) {
+                force();
+            }
+            synchronized (this) {
+                groups++;
+            }
+            for (Pending p : group) {
+                p.done.complete(null);
+            }
+        } catch (Exception e) {
+            // Drop the channel so the next group reopens (and re-locks) a fresh one.
+            release();
+            for (Pending p : group) {
+                p.done.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void ensureOpen(long now) throws IOException {
+        if (channel != null) {
+            return;
+        }
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        FileChannel ch = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        try {
+            lock = ch.lock();
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+        channel = ch;
+        lastWriteAtMs = now;
+        lastForceAtMs = now;
+    }
+
+    private void force() throws IOException {
+        if (channel == null || !dirty) {
+            return;
+        }
+        channel.force(false);
+        dirty = false;
+        lastForceAtMs = System.currentTimeMillis();
+        synchronized (this) {
+            forces++;
+        }
+    }
+
+    private void forceQuietly() {
+        try {
+            force();
+        } catch (IOException ignore) {
+            // Best effort: the data is already written to the OS.
+        }
+    }
+
+    private void release() {
+        try {
+            if (lock != null && lock.isValid()) {
+                lock.release();
+            }
+        } catch (IOException ignore) {
+            // Closing the channel releases the lock as well.
+        }
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException ignore) {
+            // Nothing left to flush.
+        }
+        lock = null;
+        channel = null;
+        dirty = false;
+    }
+
+    private static final class Pending {
+        private final byte[] bytes;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private Pending(byte[] bytes) {
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.lms.uaw.autolearn.ingest;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Buffered UTF-8 line reader over a {@link FileChannel} that tracks the exact byte offset of the next unread line.
+ *
+ * <p>Reads the channel in {@value #DEFAULT_BUFFER_BYTES}-byte blocks instead of one {@code read()} per byte, so
+ * a large JSONL costs one syscall per block. Line semantics match the previous {@code RandomAccessFile} reader:
+ * lines end at {@code '\n'}, every {@code '\r'} byte is dropped, and a trailing line without a newline is still
+ * returned. {@link #offset()} is the position right after the last returned line and is safe to persist as a
+ * resume checkpoint. The reader does not own the channel.</p>
+ */
+final class JsonlLineReader {
+
+    static final int DEFAULT_BUFFER_BYTES = 64 * 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private byte[] line = new byte[256];
+    private long offset;
+    private boolean eof;
+
+    JsonlLineReader(FileChannel channel, long startOffset) throws IOException {
+        this(channel, startOffset, DEFAULT_BUFFER_BYTES);
+    }
+
+    JsonlLineReader(FileChannel channel, long startOffset, int bufferBytes) throws IOException {
+        this.channel = channel;
+        this.offset = Math.max(0L, startOffset);
+        this.buffer = ByteBuffer.allocate(Math.max(16, bufferBytes));
+        this.buffer.flip();
+        channel.position(this.offset);
+    }
+
+    /** Returns the next line without its terminator, or {@code null} at end of file. */
+    String readLine() throws IOException {
+        int length = 0;
+        boolean gotAny = false;
+        while (true) {
+            if (!buffer.hasRemaining() && !fill()) {
+                return gotAny ? new String(line, 0, length, StandardCharsets.UTF_8) : null;
+            }
+            gotAny = true;
+            byte[] array = buffer.array();
+            int pos = buffer.position();
+            int limit = buffer.limit();
+            int start = pos;
+            boolean newline = false;
+            while (pos < limit) {
+                byte b = array[pos++];
+                if (b == '\n') {
+                    newline = true;
+                    break;
+                }
+                if (b != '\r') {
+                    if (length == line.length) {
+                        line = Arrays.copyOf(line, length * 2);
+                    }
+                    line[length++] = b;
+                }
+            }
+            offset += pos - start;
+            buffer.position(pos);
+            if (newline) {
+                return new String(line, 0, length, StandardCharsets.UTF_8);
+            }
+        }
+    }
+
+    /** Byte offset just past the last line returned by {@link #readLine()}. */
+    long offset() {
+        return offset;
+    }
+
+    private boolean fill() throws IOException {
+        if (eof) {
+            return false;
+        }
+        buffer.clear();
+        int n;
+        do {
+            n = channel.read(buffer);
+        } while (n == 0);
+        buffer.flip();
+        if (n < 0) {
+            eof = true;
+            return false;
+        }
+        return true;
+    }
+}
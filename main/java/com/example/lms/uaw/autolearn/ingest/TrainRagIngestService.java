@@ -1,5 +1,6 @@
 package com.example.lms.uaw.autolearn.ingest;
 
+import com.example.lms.infra.exec.RequestContext;
 import com.example.lms.service.VectorMetaKeys;
 import com.example.lms.service.VectorStoreService;
 import com.example.lms.service.rag.LangChainRAGService;
@@ -15,20 +16,25 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayOutputStream;
-import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
 import java.time.Instant;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Incremental ingest of train_rag.jsonl with a persistent checkpoint.
@@ -116,16 +122,17 @@ public class TrainRagIngestService {
         int batchSize = Math.min(50, Math.max(5, maxLines / 4));
 
         long lastProcessedOffset = state.offset;
-        int acceptedDocs = 0;
+        UpsertWindow window = new UpsertWindow(statePath, jsonlPath,
+                Math.max(1, props.getRetrain().getMaxInflightBatches()), counters);
 
-        try (RandomAccessFile raf = new RandomAccessFile(jsonlPath.toFile(), "r")) {
-            long len = raf.length();
+        try (FileChannel channel = FileChannel.open(jsonlPath, StandardOpenOption.READ)) {
+            long len = channel.size();
             if (state.offset > len) {
                 // file truncated/rotated
                 state.offset = 0L;
                 lastProcessedOffset = 0L;
             }
-            raf.seek(state.offset);
+            JsonlLineReader reader = new JsonlLineReader(channel, state.offset);
 
             List<Indexed> batch = new ArrayList<>();
 
@@ -134,12 +141,15 @@ public class TrainRagIngestService {
                 if (token != null && token.shouldAbort()) {
                     break;
                 }
+                if (window.failed()) {
+                    break;
+                }
 
-                String line = readUtf8Line(raf);
+                String line = readUtf8Line(reader);
                 if (line == null) {
                     break;
                 }
-                lastProcessedOffset = raf.getFilePointer();
+                lastProcessedOffset = reader.offset();
                 processedLines++;
                 counters.readLines++;
 
@@ -229,7 +239,9 @@ public class TrainRagIngestService {
                 meta.put("vector_projection_mode", projectionMode);
                 if (PROJECTION_NONE.equals(projectionMode)) {
                     counters.lastReason = "vector_projection_none";
-                    saveState(statePath, jsonlPath, lastProcessedOffset);
+                    if (batch.isEmpty() && window.idle()) {
+                        saveState(statePath, jsonlPath, lastProcessedOffset);
+                    }
                     continue;
                 }
                 String content = PROJECTION_RAW_SHADOW_QUARANTINE.equals(projectionMode)
@@ -243,28 +255,16 @@ public class TrainRagIngestService {
                         counters.lastReason = "preempted_before_flush";
                         break;
                     }
-                    boolean ok = upsertSegments(batch);
-                    if (!ok) {
-                        counters.failedBatches++;
-                        counters.lastReason = "vector_upsert_fail";
+                    if (!window.submit(batch, lastProcessedOffset)) {
                         break;
                     }
-                    acceptedDocs += batch.size();
-                    batch.clear();
-                    saveState(statePath, jsonlPath, lastProcessedOffset);
+                    batch = new ArrayList<>();
                 }
             }
 
-            if (!batch.isEmpty() && (token == null || !token.shouldAbort())) {
-                boolean ok = upsertSegments(batch);
-                if (ok) {
-                    acceptedDocs += batch.size();
-                    saveState(statePath, jsonlPath, lastProcessedOffset);
-                } else {
-                    counters.failedBatches++;
-                    counters.lastReason = "vector_upsert_fail";
-                }
-            } else if (!batch.isEmpty()) {
+            if (!batch.isEmpty() && !window.failed() && (token == null || !token.shouldAbort())) {
+                window.submit(batch, lastProcessedOffset);
+            } else if (!batch.isEmpty() && !window.failed()) {
                 counters.lastReason = "preempted_before_final_flush";
             }
         } catch (Exception e) {
@@ -274,10 +274,121 @@ public class TrainRagIngestService {
             counters.lastReason = "ingest_fail";
             recordExternalError("ingest_fail");
         } finally {
-            traceIngestCounters(counters, acceptedDocs);
+            window.drain();
+            traceIngestCounters(counters, window.acceptedDocs);
+        }
+
+        return window.acceptedDocs;
+    }
+
+    /**
+     * Ordered embed/upsert stage behind the parse loop.
+     *
+     * <p>Batches run one at a time, in submission order, on a single background thread while the caller keeps
+     * parsing; at most {@code maxInflight} batches are outstanding before the caller waits for the oldest. A
+     * batch's checkpoint is saved only after it and every earlier batch were persisted, so a crash or failed
+     * upsert resumes from the first batch that is not known to be stored. After a failed upsert the remaining
+     * queued batches are skipped and re-read on the next run (vector ids are stable, so a re-upsert is
+     * idempotent). Each batch runs under the caller's MDC/TraceStore context captured when the window opened.</p>
+     */
+    private final class UpsertWindow {
+        private final Path statePath;
+        private final Path jsonlPath;
+        private final int maxInflight;
+        private final IngestCounters counters;
+        private final ArrayDeque<PendingBatch> inflight = new ArrayDeque<>();
+        private final RequestContext context = RequestContext.capture();
+        private volatile boolean failed;
+        private ExecutorService executor;
+        int acceptedDocs;
+
+        private UpsertWindow(Path statePath, Path jsonlPath, int maxInflight, IngestCounters counters) {
+            this.statePath = statePath;
+            this.jsonlPath = jsonlPath;
+            this.maxInflight = maxInflight;
+            this.counters = counters;
+        }
+
+        /** Hands the batch to the upsert thread; returns {@code false} once any upsert has failed. */
+        boolean submit(List<Indexed> batch, long endOffset) {
+            while (inflight.size() >= maxInflight) {
+                if (!commitOldest()) {
+                    return false;
+                }
+            }
+            if (failed) {
+                return false;
+            }
+            if (executor == null) {
+                executor = Executors.newSingleThreadExecutor(r -> {
+                    Thread t = new Thread(r, "uaw-train-ingest-upsert");
+                    t.setDaemon(true);
+                    return t;
+                });
+            }
+            Future<Boolean> future = executor.submit(context.wrapCallable(() -> {
+                if (failed) {
+                    return null;
+                }
+                boolean ok = upsertSegments(batch);
+                if (!ok) {
+                    failed = true;
+                }
+                return ok;
+            }));
+            inflight.addLast(new PendingBatch(batch.size(), endOffset, future));
+            return true;
+        }
+
+        boolean failed() {
+            return failed;
+        }
+
+        boolean idle() {
+            return inflight.isEmpty();
         }
 
-        return acceptedDocs;
+        /** Waits for every outstanding batch, checkpointing the persisted prefix, then stops the thread. */
+        void drain() {
+            while (!inflight.isEmpty()) {
+                commitOldest();
+            }
+            if (executor != null) {
+                executor.shutdownNow();
+                executor = null;
+            }
+        }
+
+        private boolean commitOldest() {
+            PendingBatch pending = inflight.removeFirst();
+            Boolean ok;
+            try {
+                ok = pending.result().get();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                failed = true;
+                ok = null;
+                counters.lastReason = "interrupted_before_commit";
+            } catch (ExecutionException ee) {
+                failed = true;
+                ok = false;
+            }
+            if (ok == null) {
+                // Skipped after an earlier failure: neither persisted nor counted again.
+                return false;
+            }
+            if (!ok) {
+                counters.failedBatches++;
+                counters.lastReason = "vector_upsert_fail";
+                return false;
+            }
+            acceptedDocs += pending.docs();
+            saveState(statePath, jsonlPath, pending.endOffset());
+            return true;
+        }
+    }
+
+    private record PendingBatch(int docs, long endOffset, Future<Boolean> result) {
     }
 
     private boolean upsertSegments(List<Indexed> batch) {
@@ -792,24 +903,9 @@ public class TrainRagIngestService {
         }
     }
 
-    private static String readUtf8Line(RandomAccessFile raf) {
+    private static String readUtf8Line(JsonlLineReader reader) {
         try {
-            ByteArrayOutputStream out = new ByteArrayOutputStream(256);
-            int b;
-            boolean gotAny = false;
-            while ((b = raf.read()) != -1) {
-                gotAny = true;
-                if (b == '\n') {
-                    break;
-                }
-                if (b != '\r') {
-                    out.write(b);
-                }
-            }
-            if (!gotAny && out.size() == 0) {
-                return null;
-            }
-            return out.toString(StandardCharsets.UTF_8);
+            return reader.readLine();
         } catch (Exception e) {
             log.debug("[UAW] utf8 line read skipped errorHash={} errorLength={}",
                     SafeRedactor.hashValue(messageOf(e)), messageLength(e));
@@ -0,0 +1,310 @@
+package com.example.lms.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * 요청 경로에서 반복되던 정규식 판정({@code s.matches(".*[가-힣].*")}, {@code replaceAll("\\s+", " ")} 등)을
+ * 대체하는 텍스트 신호 커널.
+ *
+ * <p>공용 패턴은 클래스 로딩 시 한 번만 컴파일하고, 문자 클래스 판정은 정규식 없이 한 번의 순회로 끝낸다.
+ * {@code has*} 계열은 줄바꿈과 무관하게 내용만 본다. {@code ".*X.*"} 형태의 {@code matches} 는 {@code .} 이
+ * 줄 종결자를 건너지 못해 여러 줄 입력에서 false 이므로, 기존 판정을 그대로 옮길 때는
+ * {@code isSingleLine(s) && hasX(s)} 또는 {@link KeywordSet#matchesLine} 을 쓴다.</p>
+ */
+public final class TextSignals {
+
+    /** {@code \s+} (ASCII 공백: space, \t, \n, \x0B, \f, \r). */
+    public static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    /** {@code [\p{Punct}]+} (ASCII 구두점 연속). */
+    public static final Pattern PUNCT_RUN = Pattern.compile("[\\p{Punct}]+");
+    /** {@code <[^>]+>} (HTML 태그). */
+    public static final Pattern HTML_TAG = Pattern.compile("<[^>]+>");
+
+    private TextSignals() {
+    }
+
+    /** {@code s.replaceAll("\\s+", " ")} 와 같다. 바꿀 것이 없으면 입력을 그대로 돌려준다. */
+    public static String collapseWhitespace(String s) {
+        if (s == null) {
+            return null;
+        }
+        int n = s.length();
+        int i = 0;
+        while (i < n) {
+            char c = s.charAt(i);
+            if (isRegexSpace(c) && (c != ' ' || (i + 1 < n && isRegexSpace(s.charAt(i + 1))))) {
+                break;
+            }
+            i++;
+        }
+        if (i == n) {
+            return s;
+        }
+        StringBuilder sb = new StringBuilder(n);
+        sb.append(s, 0, i);
+        boolean inSpace = false;
+        for (; i < n; i++) {
+            char c = s.charAt(i);
+            if (isRegexSpace(c)) {
+                if (!inSpace) {
+                    sb.append(' ');
+                    inSpace = true;
+                }
+            } else {
+                sb.append(c);
+                inSpace = false;
+            }
+        }
+        return sb.toString();
+    }
+
+    /** {@code s.split("\\s+")} 와 같다(선행 공백이면 첫 원소가 빈 문자열). */
+    public static String[] splitWhitespace(String s) {
+        return WHITESPACE.split(s);
+    }
+
+    /**
+     * {@code .} 이 건너지 못하는 줄 종결자(\n, \r, U+0085, U+2028, U+2029)가 없으면 true. null 은 false.
+     * {@code s.matches(".*X.*")} 는 {@code isSingleLine(s) && hasX(s)} 와 같다.
+     */
+    public static boolean isSingleLine(CharSequence s) {
+        if (s == null) {
+            return false;
+        }
+        for (int i = 0, n = s.length(); i < n; i++) {
+            if (isLineTerminator(s.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** 완성형 한글 음절(U+AC00–U+D7A3)이 하나라도 있으면 true. */
+    public static boolean hasHangulSyllable(CharSequence s) {
+        if (s == null) {
+            return false;
+        }
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            if (c >= '가' && c <= '힣') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** {@code \p{IsHangul}} (자모·호환 자모 포함 한글 스크립트) 문자가 있으면 true. */
+    public static boolean hasHangul(CharSequence s) {
+        if (s == null) {
+            return false;
+        }
+        for (int i = 0, n = s.length(); i < n; ) {
+            int cp = Character.codePointAt(s, i);
+            if (cp >= 0x1100 && Character.UnicodeScript.of(cp) == Character.UnicodeScript.HANGUL) {
+                return true;
+            }
+            i += Character.charCount(cp);
+        }
+        return false;
+    }
+
+    /** {@code [A-Za-z]} 가 있으면 true. */
+    public static boolean hasAsciiLetter(CharSequence s) {
+        if (s == null) {
+            return false;
+        }
+        for (int i = 0, n = s.length(); i < n; i++) {
+            if (isAsciiLetter(s.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** {@code \d} (ASCII 0–9) 가 있으면 true. */
+    public static boolean hasAsciiDigit(CharSequence s) {
+        if (s == null) {
+            return false;
+        }
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** {@code [0-9a-zA-Z]} 가 있으면 true. */
+    public static boolean hasAsciiLetterOrDigit(CharSequence s) {
+        if (s == null) {
+            return false;
+        }
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            if (isAsciiLetter(c) || (c >= '0' && c <= '9')) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** {@code [A-Z]{minRun,}} 연속 대문자가 있으면 true. */
+    public static boolean hasAsciiUpperRun(CharSequence s, int minRun) {
+        if (s == null) {
+            return false;
+        }
+        int need = Math.max(1, minRun);
+        int run = 0;
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            run = (c >= 'A' && c <= 'Z') ? run + 1 : 0;
+            if (run >= need) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** {@code s.matches("\\d+")} 와 같다. */
+    public static boolean isAsciiDigits(CharSequence s) {
+        if (s == null || s.length() == 0) {
+            return false;
+        }
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+    }
+
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    private static boolean isRegexSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * 의도 탐지용 키워드 목록({@code "(?i).*(뭐야|what\\s+is|...).*"}) 의 부분 문자열 매처.
+     *
+     * <p>비교는 ASCII 대소문자만 접고({@code (?i)} 와 동일), 공백 연속은 한 칸으로 본다. 따라서 키워드의
+     * 공백 한 칸은 {@code \s+} 와 같다. {@link #containsAny} 는 줄바꿈과 무관하게 판정하고,
+     * {@link #matchesLine} 은 기존 {@code matches(".*(...).*")} 와 결과가 같다.</p>
+     */
+    public static final class KeywordSet {
+        private final String[] keywords;
+
+        private KeywordSet(String[] keywords) {
+            this.keywords = keywords;
+        }
+
+        public static KeywordSet of(String... keywords) {
+            List<String> normalized = new ArrayList<>();
+            for (String k : keywords) {
+                String folded = fold(k);
+                if (folded != null && !folded.isBlank()) {
+                    normalized.add(folded);
+                }
+            }
+            return new KeywordSet(normalized.toArray(new String[0]));
+        }
+
+        public boolean containsAny(CharSequence text) {
+            String folded = fold(text);
+            if (folded == null || folded.isEmpty()) {
+                return false;
+            }
+            for (String k : keywords) {
+                if (folded.contains(k)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * {@code text.matches("(?i).*(k1|k2|...).*")} 와 같다. 줄 종결자는 {@code .} 으로는 건널 수 없고
+         * 키워드 안의 {@code \s+} 로만 건널 수 있으므로, 줄바꿈이 있으면 그 공백을 모두 덮는 키워드가
+         * 있을 때만 true 다.
+         */
+        public boolean matchesLine(CharSequence text) {
+            if (text == null) {
+                return false;
+            }
+            int n = text.length();
+            StringBuilder sb = new StringBuilder(n);
+            int lo = -1;
+            int hi = -1;
+            boolean inSpace = false;
+            for (int i = 0; i < n; i++) {
+                char c = text.charAt(i);
+                if (c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                    return false; // \s 가 아니므로 어떤 키워드로도 건널 수 없다
+                }
+                if (isRegexSpace(c)) {
+                    if (!inSpace) {
+                        sb.append(' ');
+                        inSpace = true;
+                    }
+                    if (c == '\n' || c == '\r') {
+                        if (lo < 0) {
+                            lo = sb.length() - 1;
+                        }
+                        hi = sb.length() - 1;
+                    }
+                    continue;
+                }
+                inSpace = false;
+                sb.append(c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c);
+            }
+            String folded = sb.toString();
+            for (String k : keywords) {
+                if (lo < 0) {
+                    if (folded.contains(k)) {
+                        return true;
+                    }
+                    continue;
+                }
+                for (int at = folded.indexOf(k); at >= 0 && at <= lo; at = folded.indexOf(k, at + 1)) {
+                    if (at + k.length() > hi) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        /** ASCII 소문자화 + 공백 연속 축약. */
+        private static String fold(CharSequence s) {
+            if (s == null) {
+                return null;
+            }
+            int n = s.length();
+            StringBuilder sb = new StringBuilder(n);
+            boolean inSpace = false;
+            for (int i = 0; i < n; i++) {
+                char c = s.charAt(i);
+                if (isRegexSpace(c)) {
+                    if (!inSpace) {
+                        sb.append(' ');
+                        inSpace = true;
+                    }
+                    continue;
+                }
+                inSpace = false;
+                sb.append(c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c);
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -68,6 +68,10 @@ public class TraceFilter implements Filter {
     @Value("${lms.debug.search.trace.steps.maxRows.boost.detail:80}")
     private int stepsMaxRowsBoostDetail;
 
+    // Request trace level (OFF|SUMMARY|FULL). Debug-search requests always trace at FULL.
+    @Value("${lms.trace.level:FULL}")
+    private String traceLevel;
+
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
             throws IOException, ServletException {
@@ -140,6 +144,14 @@ public class TraceFilter implements Filter {
 
         boolean dbgSearch = requestDebug || boostActive;
 
+        try {
+            com.example.lms.search.TraceStore.level(dbgSearch
+                    ? com.example.lms.search.TraceLevel.FULL
+                    : com.example.lms.search.TraceLevel.parse(traceLevel, com.example.lms.search.TraceLevel.FULL));
+        } catch (Throwable ignore) {
+            traceSuppressed("traceLevel", ignore);
+        }
+
         // Enrich TraceStore with boost status + debug UX knobs (best-effort)
         try {
             if (boostActive) {
@@ -1,4 +1,6 @@
 package com.example.rag.fusion;
+import com.abandonware.ai.service.rag.fusion.FusionFrame;
+import com.abandonware.ai.service.rag.fusion.FusionPasses;
 import java.util.*;
 
 /** Minimal weighted Reciprocal Rank Fusion (RRF) reference impl. */
@@ -36,40 +38,34 @@ public class WeightedRRF {
      */
     public static java.util.List<java.util.Map<String,Object>> fuse(java.util.List<java.util.List<java.util.Map<String,Object>>> perBranch, int topK) {
         if (perBranch == null) return java.util.Collections.emptyList();
-        java.util.Map<String, Double> agg = new java.util.HashMap<>();
-        java.util.Map<String, java.util.Map<String,Object>> repr = new java.util.LinkedHashMap<>();
         final int kk = Math.max(1, topK);
 
-for (java.util.List<java.util.Map<String,Object>> list : perBranch) {
+        int total = 0;
+        for (java.util.List<java.util.Map<String,Object>> list : perBranch) if (list != null) total += list.size();
+        FusionFrame frame = new FusionFrame(perBranch.size(), total);
+        for (java.util.List<java.util.Map<String,Object>> list : perBranch) {
             if (list == null) continue;
-            int r = 1;
+            int lane = frame.openLane(null, list.size());
             for (java.util.Map<String,Object> m : list) {
-                if (m == null) { r++; continue; }
-                Object idObj = m.get("id");
-                if (idObj == null) { r++; continue; }
-                String id = String.valueOf(idObj);
-                double term = 1.0 / (kk + r);
+                // items without an id still take a rank slot
+                Object idObj = (m == null) ? null : m.get("id");
                 double raw = 0.0;
-                Object sc = m.get("score");
+                Object sc = (m == null) ? null : m.get("score");
                 if (sc instanceof Number) raw = ((Number) sc).doubleValue();
-                double contrib = term * (0.75 + 0.5 * (raw < 0 ? 0 : (raw > 1 ? 1 : raw)));
-                agg.merge(id, contrib, Double::sum);
-                repr.putIfAbsent(id, new java.util.LinkedHashMap<>(m));
-                r++;
+                frame.add(lane, idObj == null ? null : String.valueOf(idObj), raw, 1.0, m);
             }
         }
-        // sort by fused score desc and take topK
-        java.util.List<java.util.Map.Entry<String, Double>> entries = new java.util.ArrayList<>(agg.entrySet());
-        entries.sort((a,b) -> Double.compare(b.getValue(), a.getValue()));
+        FusionPasses.scoreBoostedRrf(kk).then(FusionPasses.tanh()).apply(frame);
 
+        // sort by fused score desc and take topK
+        Object[] repr = frame.firstPayloads();
+        double[] fused = frame.acc();
         java.util.List<java.util.Map<String,Object>> out = new java.util.ArrayList<>();
-        int count = Math.max(1, topK);
-        int i=0;
-        for (java.util.Map.Entry<String, Double> e : entries) {
-            java.util.Map<String,Object> m = new java.util.LinkedHashMap<>(repr.get(e.getKey()));
-            m.put("score", Math.tanh(e.getValue()));
+        for (int id : frame.ranked(Math.max(1, topK))) {
+            @SuppressWarnings("unchecked")
+            java.util.Map<String,Object> m = new java.util.LinkedHashMap<>((java.util.Map<String,Object>) repr[id]);
+            m.put("score", fused[id]);
             out.add(m);
-            if (++i >= count) break;
         }
         return out;
     }
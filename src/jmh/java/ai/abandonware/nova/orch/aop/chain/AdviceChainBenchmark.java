@@ -0,0 +1,121 @@
+package ai.abandonware.nova.orch.aop.chain;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.aop.framework.ProxyFactory;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Four guard/trace style around-advices on a stubbed search provider: one AspectJ proxy layer per aspect
+ * (how the auto-proxy creator builds it today) versus a single {@link FusedAdviceAdvisor} running the same
+ * bodies as {@link AdviceChain} links.
+ * <pre>./gradlew jmh -Pjmh.include=AdviceChainBenchmark</pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AdviceChainBenchmark {
+
+    public interface SearchProvider {
+        List<String> search(String query, int topK);
+    }
+
+    static final class StubSearchProvider implements SearchProvider {
+        private static final List<String> HITS = List.of("a", "b", "c");
+
+        @Override
+        public List<String> search(String query, int topK) {
+            return HITS;
+        }
+    }
+
+    /** Same shape as the interrupt-hygiene / gate / ablation advices: flag checks around proceed(). */
+    static final class GuardBody {
+        volatile long touched;
+
+        Object invoke(AdviceChain.Invocation invocation) throws Throwable {
+            if (Thread.currentThread().isInterrupted()) {
+                Thread.interrupted();
+            }
+            try {
+                return invocation.proceed();
+            } finally {
+                touched++;
+            }
+        }
+    }
+
+    @Aspect
+    static class GuardAspect {
+        private final GuardBody body;
+
+        GuardAspect(GuardBody body) {
+            this.body = body;
+        }
+
+        @Around("execution(* ai.abandonware.nova.orch.aop.chain.AdviceChainBenchmark.SearchProvider.search(..))")
+        public Object around(ProceedingJoinPoint pjp) throws Throwable {
+            return body.invoke(AdviceChain.Invocation.of(pjp));
+        }
+    }
+
+    private SearchProvider nested;
+    private SearchProvider fused;
+    private SearchProvider bare;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        GuardBody[] bodies = {new GuardBody(), new GuardBody(), new GuardBody(), new GuardBody()};
+
+        AspectJProxyFactory nestedFactory = new AspectJProxyFactory(new StubSearchProvider());
+        for (GuardBody b : bodies) {
+            nestedFactory.addAspect(new GuardAspect(b));
+        }
+        nested = nestedFactory.getProxy();
+
+        AdviceChain.Builder chain = AdviceChain.builder("bench");
+        for (int i = 0; i < bodies.length; i++) {
+            chain.add("guard" + i, i, bodies[i]::invoke);
+        }
+        ProxyFactory fusedFactory = new ProxyFactory(new StubSearchProvider());
+        fusedFactory.addAdvisor(new FusedAdviceAdvisor(
+                "execution(* ai.abandonware.nova.orch.aop.chain.AdviceChainBenchmark.SearchProvider.search(..))",
+                0, chain.build()));
+        fused = (SearchProvider) fusedFactory.getProxy();
+
+        bare = new StubSearchProvider();
+    }
+
+    @Benchmark
+    public List<String> nestedAspects() {
+        return nested.search("원신 푸리나", 8);
+    }
+
+    @Benchmark
+    public List<String> fusedChain() {
+        return fused.search("원신 푸리나", 8);
+    }
+
+    @Benchmark
+    public List<String> noAdvice() {
+        return bare.search("원신 푸리나", 8);
+    }
+}
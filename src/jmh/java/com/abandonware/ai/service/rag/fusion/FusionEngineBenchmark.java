@@ -0,0 +1,170 @@
+package com.abandonware.ai.service.rag.fusion;
+
+import com.abandonware.ai.ml.SoftmaxUtils;
+import com.abandonware.ai.service.rag.model.ContextSlice;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Weighted RRF over {@code lanes} retriever lists of {@code candidates} URL-keyed slices (with dedup and the
+ * MP-law calibrator): the String/Map implementation with {@link URI} canonicalization that
+ * {@link WeightedRRF} used to run versus the {@link FusionFrame} engine it runs now.
+ * <pre>./gradlew jmh -Pjmh.include=FusionEngineBenchmark</pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FusionEngineBenchmark {
+
+    @Param({"4"})
+    int lanes;
+
+    @Param({"200"})
+    int candidates;
+
+    private final String[] sources = {"web", "vector", "kg", "bm25"};
+    private final Map<String, Double> weights = Map.of("web", 1.0, "vector", 0.9, "kg", 0.6, "bm25", 0.8);
+    private final ScoreCalibrator calibrator = new MpLawCalibrator();
+    private final WeightedRRF engine = new WeightedRRF();
+    private List<List<ContextSlice>> input;
+
+    @Setup
+    public void setup() {
+        String[] hosts = {"https://news.example.com", "https://www.korea.go.kr", "https://Lab.SNU.ac.kr", "https://docs.example.io"};
+        Random rnd = new Random(17);
+        input = new ArrayList<>();
+        for (int l = 0; l < lanes; l++) {
+            List<ContextSlice> lane = new ArrayList<>(candidates);
+            for (int i = 0; i < candidates; i++) {
+                int doc = rnd.nextInt(candidates * 2);
+                String url = hosts[doc % hosts.length] + "/article/" + doc + (rnd.nextInt(3) == 0 ? "/?utm_source=rss" : "");
+                lane.add(new ContextSlice(url, "t" + doc, "s" + doc, sources[l % sources.length], rnd.nextDouble() * 1.6, i + 1));
+            }
+            input.add(lane);
+        }
+    }
+
+    @Benchmark
+    public List<ContextSlice> legacyMaps() {
+        return legacyFuse(input, 60, weights, calibrator);
+    }
+
+    @Benchmark
+    public List<ContextSlice> fusionFrame() {
+        return engine.fuseToList(input, 60, weights, calibrator, true);
+    }
+
+    // ---- pre-engine WeightedRRF.fuse (dedup on), kept as the baseline ----
+
+    private static List<ContextSlice> legacyFuse(List<List<ContextSlice>> sources, int k,
+                                                 Map<String, Double> weights, ScoreCalibrator calibrator) {
+        List<List<ContextSlice>> pre = new ArrayList<>();
+        for (List<ContextSlice> list : sources) {
+            List<ContextSlice> tmp = new ArrayList<>(list.size());
+            for (int i = 0; i < list.size(); i++) {
+                ContextSlice c = list.get(i);
+                String src = c.getSource() == null ? "default" : c.getSource();
+                double s = calibrator.normalize(c.getScore(), src) * legacyLocaleBoost(c.getId());
+                tmp.add(new ContextSlice(c.getId(), c.getTitle(), c.getSnippet(), src, s, i + 1));
+            }
+            Map<String, ContextSlice> merged = new LinkedHashMap<>();
+            for (ContextSlice d : tmp) {
+                String key = legacyKey(d.getId());
+                ContextSlice prev = merged.get(key);
+                if (prev == null || d.getScore() > prev.getScore()) merged.put(key, d);
+            }
+            List<ContextSlice> m = new ArrayList<>(merged.values());
+            m.sort(Comparator.comparingDouble(ContextSlice::getScore).reversed());
+            for (int i = 0; i < m.size(); i++) m.get(i).setRank(i + 1);
+            pre.add(m);
+        }
+        Map<String, Double> fusedScore = new LinkedHashMap<>();
+        Map<String, ContextSlice> repr = new LinkedHashMap<>();
+        for (List<ContextSlice> list : pre) {
+            for (ContextSlice c : list) {
+                String key = legacyKey(c.getId());
+                fusedScore.merge(key, weights.getOrDefault(c.getSource(), 1.0) / (k + c.getRank()), Double::sum);
+                ContextSlice prev = repr.get(key);
+                if (prev == null || c.getScore() > prev.getScore()) repr.put(key, c);
+            }
+        }
+        List<Map.Entry<String, Double>> entries = new ArrayList<>(fusedScore.entrySet());
+        entries.sort((a, b) -> Double.compare(b.getValue(), a.getValue()));
+        double[] logits = new double[entries.size()];
+        for (int i = 0; i < entries.size(); i++) logits[i] = entries.get(i).getValue();
+        double[] prob = SoftmaxUtils.stableSoftmax(logits, 1.0);
+        List<ContextSlice> out = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            ContextSlice base = repr.get(entries.get(i).getKey());
+            out.add(new ContextSlice(base.getId(), base.getTitle(), base.getSnippet(), base.getSource(), prob[i], i + 1));
+        }
+        return out;
+    }
+
+    private static double legacyLocaleBoost(String id) {
+        try {
+            String host = URI.create(id).getHost();
+            if (host == null) return 1.0;
+            String h = host.toLowerCase(Locale.ROOT);
+            for (String suffix : List.of(".go.kr", ".gov.kr", ".ac.kr", ".kr")) {
+                if (h.endsWith(suffix)) return 1.05;
+            }
+            return 1.0;
+        } catch (Exception e) {
+            return 1.0;
+        }
+    }
+
+    private static String legacyKey(String url) {
+        try {
+            URI u = URI.create(url);
+            String scheme = u.getScheme().toLowerCase(Locale.ROOT);
+            String host = u.getHost() == null ? "" : u.getHost().toLowerCase(Locale.ROOT);
+            String path = (u.getPath() == null || u.getPath().isBlank()) ? "/" : u.getPath();
+            Map<String, String> kept = new LinkedHashMap<>();
+            String q = u.getQuery();
+            if (q != null && !q.isBlank()) {
+                for (String kv : q.split("&")) {
+                    String[] parts = kv.split("=", 2);
+                    String kl = parts[0].toLowerCase(Locale.ROOT);
+                    if (kl.startsWith("utm_") || kl.startsWith("ref_") || kl.equals("ref")
+                            || kl.equals("gclid") || kl.equals("fbclid")) continue;
+                    kept.put(parts[0], parts.length > 1 ? parts[1] : "");
+                }
+            }
+            StringBuilder query = new StringBuilder();
+            for (Map.Entry<String, String> e : kept.entrySet()) {
+                if (query.length() > 0) query.append("&");
+                query.append(e.getKey()).append("=").append(e.getValue());
+            }
+            String result = scheme + "://" + host + path;
+            if (query.length() > 0) result += "?" + query;
+            if (result.endsWith("/")) result = result.substring(0, result.length() - 1);
+            return result;
+        } catch (Exception e) {
+            return url;
+        }
+    }
+}
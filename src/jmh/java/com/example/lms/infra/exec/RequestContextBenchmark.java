@@ -0,0 +1,165 @@
+package com.example.lms.infra.exec;
+
+import com.example.lms.search.TraceStore;
+import com.example.lms.service.guard.GuardContext;
+import com.example.lms.service.guard.GuardContextHolder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.slf4j.MDC;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Context propagation cost of one fan-out of {@code fanOut} tasks, split into the submitting side (capture + wrap
+ * every task) and the worker side (install, run an empty task, restore on a thread without context):
+ * the per-task copy-and-restore that {@code ContextPropagation.wrap} did before ({@code legacy*}), a
+ * {@link RequestContext} captured per task ({@code perTask*}, today's {@code ContextPropagation.wrap}) and one
+ * snapshot shared by the fan-out ({@code shared*}).
+ * <pre>./gradlew jmh -Pjmh.include=RequestContextBenchmark</pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestContextBenchmark {
+
+    private static final Runnable TASK = () -> {
+    };
+
+    /** Thread that owns a request: a handful of MDC keys, a guard and a trace context. */
+    @State(Scope.Thread)
+    public static class Caller {
+
+        @Param({"16"})
+        int fanOut;
+
+        @Setup
+        public void setup() {
+            enterRequest();
+        }
+
+        @TearDown
+        public void tearDown() {
+            leaveRequest();
+        }
+    }
+
+    /** A pooled worker: no context of its own, runs tasks wrapped on a request thread. */
+    @State(Scope.Thread)
+    public static class Worker {
+
+        Runnable legacy;
+        Runnable snapshot;
+
+        @Setup
+        public void setup() throws InterruptedException {
+            Thread requestThread = new Thread(() -> {
+                enterRequest();
+                legacy = legacyWrap(TASK);
+                snapshot = RequestContext.capture().wrap(TASK);
+                leaveRequest();
+            });
+            requestThread.start();
+            requestThread.join();
+            leaveRequest();
+        }
+    }
+
+    @Benchmark
+    public void legacyCapture(Caller caller, Blackhole bh) {
+        for (int i = 0; i < caller.fanOut; i++) {
+            bh.consume(legacyWrap(TASK));
+        }
+    }
+
+    @Benchmark
+    public void perTaskCapture(Caller caller, Blackhole bh) {
+        for (int i = 0; i < caller.fanOut; i++) {
+            bh.consume(ContextPropagation.wrap(TASK));
+        }
+    }
+
+    @Benchmark
+    public void sharedCapture(Caller caller, Blackhole bh) {
+        RequestContext ctx = RequestContext.capture();
+        for (int i = 0; i < caller.fanOut; i++) {
+            bh.consume(ctx.wrap(TASK));
+        }
+    }
+
+    @Benchmark
+    public void legacyRun(Worker worker) {
+        worker.legacy.run();
+    }
+
+    @Benchmark
+    public void snapshotRun(Worker worker) {
+        worker.snapshot.run();
+    }
+
+    private static void enterRequest() {
+        MDC.put("sid", "chat-7f3a");
+        MDC.put("traceId", "4bf92f3577b34da6a3ce929d0e0e4736");
+        MDC.put("x-request-id", "req-000123");
+        MDC.put("user", "u-42");
+        MDC.put("plan", "safe");
+        GuardContext guard = GuardContext.defaultContext();
+        guard.setPlanId("brave");
+        GuardContextHolder.set(guard);
+        TraceStore.put("web.provider", "naver");
+    }
+
+    private static void leaveRequest() {
+        MDC.clear();
+        GuardContextHolder.clear();
+        TraceStore.clear();
+    }
+
+    /** The capture/restore {@code ContextPropagation.wrap} performed per task before {@link RequestContext}. */
+    private static Runnable legacyWrap(Runnable task) {
+        Map<String, String> capturedMdc = MDC.getCopyOfContextMap();
+        GuardContext captured = GuardContextHolder.get();
+        GuardContext guard = captured != null ? captured : GuardContext.defaultContext();
+        Map<String, Object> capturedTrace = TraceStore.context();
+        return () -> {
+            Map<String, String> prevMdc = MDC.getCopyOfContextMap();
+            GuardContext prevGuard = GuardContextHolder.get();
+            Map<String, Object> prevTrace = TraceStore.context();
+            try {
+                legacyApplyMdc(capturedMdc);
+                GuardContextHolder.set(guard);
+                TraceStore.installContext(capturedTrace);
+                task.run();
+            } finally {
+                TraceStore.installContext(prevTrace);
+                if (prevGuard == null) {
+                    GuardContextHolder.clear();
+                } else {
+                    GuardContextHolder.set(prevGuard);
+                }
+                legacyApplyMdc(prevMdc);
+            }
+        };
+    }
+
+    private static void legacyApplyMdc(Map<String, String> mdc) {
+        if (mdc == null || mdc.isEmpty()) {
+            MDC.clear();
+        } else {
+            MDC.setContextMap(mdc);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.lms.infra.resilience;
+
+import com.example.lms.search.TraceStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot-path breaker reads and writes from 8 threads over {@code keys} tracked keys with a handful OPEN:
+ * {@code isOpen}, {@code isAnyOpenPrefix} (index lookup vs the full key scan it used to do) and {@code recordSuccess}.
+ * <pre>./gradlew jmh -Pjmh.include=NightmareBreakerBenchmark</pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class NightmareBreakerBenchmark {
+
+    @Param({"4000"})
+    int keys;
+
+    private NightmareBreaker breaker;
+    private String[] keyNames;
+    private final String[] prefixes = {"chat-draft:", "web:naver:", "query-transformer:", "rerank:"};
+
+    @Setup
+    public void setup() {
+        NightmareBreakerProperties props = new NightmareBreakerProperties();
+        props.setOpenDuration(java.time.Duration.ofHours(1));
+        breaker = new NightmareBreaker(props);
+        List<String> names = new ArrayList<>(keys);
+        for (int i = 0; i < keys; i++) {
+            names.add(prefixes[i % 3] + "model-" + i);
+        }
+        keyNames = names.toArray(new String[0]);
+        for (String k : keyNames) {
+            breaker.recordSuccess(k, 1L);
+        }
+        for (int i = 0; i < keys; i += 997) {
+            breaker.recordFailure(keyNames[i], NightmareBreaker.FailureKind.REJECTED,
+                    new RuntimeException("rejected"), "bench");
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearTrace() {
+        TraceStore.clear();
+    }
+
+    @Benchmark
+    public boolean isOpen() {
+        return breaker.isOpen(keyNames[ThreadLocalRandom.current().nextInt(keyNames.length)]);
+    }
+
+    @Benchmark
+    public boolean isAnyOpenPrefix() {
+        return breaker.isAnyOpenPrefix(prefixes[ThreadLocalRandom.current().nextInt(prefixes.length)]);
+    }
+
+    /** The pre-index implementation: walk every tracked key and probe the matching ones. */
+    @Benchmark
+    public boolean isAnyOpenPrefixFullScan() {
+        String prefix = prefixes[ThreadLocalRandom.current().nextInt(prefixes.length)];
+        for (String k : keyNames) {
+            if (k.startsWith(prefix) && breaker.isOpenOrHalfOpen(k)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Benchmark
+    public void recordSuccess() {
+        int i = ThreadLocalRandom.current().nextInt(keyNames.length);
+        if (i % 997 != 0) {
+            breaker.recordSuccess(keyNames[i], 5L);
+        }
+    }
+}
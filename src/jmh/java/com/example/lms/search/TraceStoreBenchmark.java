@@ -0,0 +1,138 @@
+package com.example.lms.search;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request trace overhead: replays the operation stream derived from {@code TRACE_SAMPLE.json} (every agent
+ * step becomes the put/inc/maxLong/append calls a pipeline stage issues for it), {@code rounds} times, then
+ * takes one {@code getAll()} snapshot and clears — against the boxed {@code ConcurrentHashMap} store it
+ * replaced. Run with {@code -prof gc} for bytes/request.
+ * <pre>./gradlew jmh -Pjmh.include=TraceStoreBenchmark</pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class TraceStoreBenchmark {
+
+    private static final int PUT = 0;
+    private static final int INC = 1;
+    private static final int MAX = 2;
+    private static final int APPEND = 3;
+
+    @Param({"40"})
+    int rounds;
+
+    @Param({"FULL", "OFF"})
+    TraceLevel level;
+
+    private int[] ops;
+    private String[] keys;
+    private Object[] values;
+
+    @Setup
+    public void setup() throws Exception {
+        JsonNode root = new ObjectMapper().readTree(Files.readString(Path.of("TRACE_SAMPLE.json")));
+        List<Integer> o = new ArrayList<>();
+        List<String> k = new ArrayList<>();
+        List<Object> v = new ArrayList<>();
+        for (JsonNode step : root.path("trace")) {
+            String name = step.path("step").asText("UNKNOWN").toLowerCase();
+            String tool = step.path("tool").isNull() ? "none" : step.path("tool").asText();
+            add(o, k, v, PUT, "agent.step." + name + ".tool", tool);
+            add(o, k, v, INC, "agent.step." + name + ".count", 1L);
+            add(o, k, v, MAX, "agent.step." + name + ".maxMs", step.path("duration_ms").asLong());
+            add(o, k, v, APPEND, "agent.steps.events", name + ":" + tool);
+            for (String side : new String[]{"input", "output"}) {
+                for (Iterator<String> it = step.path(side).fieldNames(); it.hasNext(); ) {
+                    String field = it.next();
+                    add(o, k, v, PUT, "agent." + name + "." + side + "." + field,
+                            step.path(side).path(field).toString().length());
+                }
+            }
+        }
+        ops = o.stream().mapToInt(Integer::intValue).toArray();
+        keys = k.toArray(new String[0]);
+        values = v.toArray();
+    }
+
+    private static void add(List<Integer> o, List<String> k, List<Object> v, int op, String key, Object value) {
+        o.add(op);
+        k.add(key);
+        v.add(value);
+    }
+
+    @Benchmark
+    public int slotTraceStore() {
+        TraceStore.level(level);
+        for (int r = 0; r < rounds; r++) {
+            for (int i = 0; i < ops.length; i++) {
+                switch (ops[i]) {
+                    case PUT -> TraceStore.put(keys[i], values[i]);
+                    case INC -> TraceStore.inc(keys[i]);
+                    case MAX -> TraceStore.maxLong(keys[i], (Long) values[i]);
+                    default -> TraceStore.append(keys[i], values[i]);
+                }
+            }
+        }
+        int n = TraceStore.getAll().size();
+        TraceStore.clear();
+        return n;
+    }
+
+    /** The previous implementation: boxed counters in a ConcurrentHashMap, HashMap copy on getAll(). */
+    @Benchmark
+    public int legacyMapTraceStore() {
+        Map<String, Object> trace = new ConcurrentHashMap<>();
+        for (int r = 0; r < rounds; r++) {
+            for (int i = 0; i < ops.length; i++) {
+                String key = keys[i];
+                switch (ops[i]) {
+                    case PUT -> trace.put(key, values[i]);
+                    case INC -> trace.compute(key, (kk, cur) -> (cur instanceof Number n ? n.longValue() : 0L) + 1L);
+                    case MAX -> {
+                        long candidate = (Long) values[i];
+                        trace.compute(key, (kk, cur) -> Math.max(
+                                cur instanceof Number n ? n.longValue() : Long.MIN_VALUE, candidate));
+                    }
+                    default -> {
+                        Object value = values[i];
+                        trace.compute(key, (kk, cur) -> {
+                            @SuppressWarnings("unchecked")
+                            CopyOnWriteArrayList<Object> list = (cur instanceof CopyOnWriteArrayList<?> c)
+                                    ? (CopyOnWriteArrayList<Object>) c : new CopyOnWriteArrayList<>();
+                            list.add(value);
+                            return list;
+                        });
+                    }
+                }
+            }
+        }
+        return new HashMap<>(trace).size();
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.lms.service.onnx.tokenizer;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cross-encoder pair encoding throughput.
+ *
+ * <p>{@code tokens} (aux counter) gives tokens/sec; run with {@code -prof gc} and read
+ * {@code gc.alloc.rate.norm} for bytes allocated per call:
+ * <pre>./gradlew jmh -Pjmh.include=WordpieceTokenizerBenchmark -Pjmh.prof=gc</pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class WordpieceTokenizerBenchmark {
+
+    private static final String QUERY = "서울 내일 날씨 rain forecast";
+    private static final String KO = "서울 지역은 내일 오전부터 비가 내리겠으며 오후에는 점차 그치겠습니다. ";
+    private static final String EN = "Seoul will see rain from tomorrow morning, clearing gradually in the afternoon. ";
+
+    @Param({"64", "512"})
+    public int maxSeqLen;
+
+    private WordpieceTokenizer tokenizer;
+    private String document;
+    private int[] ids;
+    private int[] mask;
+    private int[] types;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        tokenizer = new WordpieceTokenizer(new ByteArrayInputStream(vocab().getBytes(StandardCharsets.UTF_8)));
+        document = (KO + EN).repeat(24);
+        ids = new int[maxSeqLen];
+        mask = new int[maxSeqLen];
+        types = new int[maxSeqLen];
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Tokens {
+        public long tokens;
+    }
+
+    /** Caller-supplied buffers: the steady-state rerank path. */
+    @Benchmark
+    public int encodePairInto(Tokens counter) {
+        int n = tokenizer.encodePairInto(QUERY, document, maxSeqLen, ids, mask, types);
+        counter.tokens += n;
+        return n;
+    }
+
+    /** Allocating API kept for existing callers. */
+    @Benchmark
+    public void encodePair(Blackhole bh) {
+        bh.consume(tokenizer.encodePair(QUERY, document, maxSeqLen));
+    }
+
+    /** Synthetic vocab: English words, Hangul syllables and continuation pieces. */
+    private static String vocab() {
+        StringBuilder sb = new StringBuilder("[PAD]\n[UNK]\n[CLS]\n[SEP]\n");
+        for (String w : (KO + EN + QUERY).toLowerCase().split("[\\s\\p{Punct}]+")) {
+            sb.append(w).append('\n');
+        }
+        Random rnd = new Random(7L);
+        for (int i = 0; i < 30_000; i++) {
+            int len = 1 + rnd.nextInt(4);
+            StringBuilder w = new StringBuilder(rnd.nextBoolean() ? "##" : "");
+            for (int k = 0; k < len; k++) {
+                w.append(rnd.nextInt(3) == 0 ? (char) (0xAC00 + rnd.nextInt(2_000)) : (char) ('a' + rnd.nextInt(26)));
+            }
+            sb.append(w).append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.lms.service.rag.auth;
+
+import com.example.lms.domain.enums.RerankSourceCredibility;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scores 100k result URLs per invocation, drawn from a skewed mix of well-known and long-tail
+ * hosts. {@code scoreUrls} is the production path (host memo hit for repeated hosts);
+ * {@code classifyHosts} bypasses the memo to measure the trie walk alone:
+ * <pre>./gradlew jmh -Pjmh.include=AuthorityScorerBenchmark</pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuthorityScorerBenchmark {
+
+    private static final int URLS = 100_000;
+
+    private static final String[] KNOWN = {
+            "docs.spring.io", "stackoverflow.com", "github.com", "blog.naver.com", "news.naver.com",
+            "ko.wikipedia.org", "learn.microsoft.com", "www.mois.go.kr", "dart.fss.or.kr", "velog.io",
+            "www.reuters.com", "community.openai.com", "platform.openai.com", "brunch.co.kr", "www.snu.ac.kr",
+            "m.cafe.naver.com", "medium.com", "developer.mozilla.org", "www.bloomberg.com", "saramin.co.kr"
+    };
+
+    private AuthorityScorer scorer;
+    private String[] urls;
+    private String[] hosts;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        scorer = new AuthorityScorer("", "example.com:0.97,partner.io:0.8", "", "", "",
+                "", "", "", "spam.example", 1.0d, 0.85d, 0.80d, 0.70d, 0.55d, 0.25d);
+        Random rnd = new Random(11L);
+        urls = new String[URLS];
+        hosts = new String[URLS];
+        for (int i = 0; i < URLS; i++) {
+            String host = rnd.nextInt(10) < 8
+                    ? KNOWN[rnd.nextInt(KNOWN.length)]
+                    : "site" + rnd.nextInt(20_000) + (rnd.nextBoolean() ? ".tistory.com" : ".co.kr");
+            hosts[i] = host;
+            urls[i] = "https://" + host + "/articles/" + i + "?ref=search";
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(URLS)
+    public void scoreUrls(Blackhole bh) {
+        for (String url : urls) {
+            bh.consume(scorer.getSourceCredibility(url));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(URLS)
+    public void classifyHosts(Blackhole bh) {
+        for (String host : hosts) {
+            RerankSourceCredibility tier = scorer.classifyHost(host);
+            bh.consume(tier);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.lms.service.rag.graph;
+
+import com.example.lms.service.rag.kg.Neo4jKnowledgeGraphProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local sparse-node inference on a {@code entities}/{@code relations} graph spread over 8 domains: the indexed
+ * {@link BrainStateService#querySparseInferenceLocalOnly} against the previous full scans (name containment over
+ * every entity, then a pass over every relation per expanded path node and per port-mapping lookup), plus the
+ * cost of recording a fresh chunk into the index.
+ * <pre>./gradlew jmh -Pjmh.include=BrainStateServiceBenchmark</pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class BrainStateServiceBenchmark {
+
+    private static final String[] SYLLABLES = {"ka", "ro", "mi", "tan", "sol", "ver", "dex", "lu", "pha", "zen"};
+    private static final String[] KINDS = {"RELATED_TO", "CO_MENTIONED_WITH", "DEPENDS_ON", "PART_OF"};
+
+    @Param({"100000"})
+    int entities;
+
+    @Param({"500000"})
+    int relations;
+
+    private BrainStateService service;
+    private final SparseNodeInferenceService inference = new SparseNodeInferenceService();
+    private String[] queries;
+    private String[] names;
+    private long[] mentions;
+    private String[] entityDomains;
+    private String[] relSource;
+    private String[] relTarget;
+    private String[] relKind;
+    private String[] relDomain;
+    private int cursor;
+    private int fresh;
+
+    @Setup
+    public void setup() {
+        BrainStateProperties props = new BrainStateProperties();
+        service = new BrainStateService(props, new Neo4jKgChunkWriter(new Neo4jKnowledgeGraphProperties(), props),
+                null, inference, null, null);
+        Random random = new Random(11);
+        names = new String[entities];
+        mentions = new long[entities];
+        entityDomains = new String[entities];
+        for (int i = 0; i < entities; i++) {
+            names[i] = name(i);
+            entityDomains[i] = "D" + (i % 8);
+        }
+        relSource = new String[relations];
+        relTarget = new String[relations];
+        relKind = new String[relations];
+        relDomain = new String[relations];
+        int perChunk = 50;
+        for (int start = 0; start < relations; start += perChunk) {
+            String domain = "D" + ((start / perChunk) % 8);
+            List<KgChunk.KgEntity> chunkEntities = new ArrayList<>();
+            List<KgChunk.KgRelation> chunkRelations = new ArrayList<>();
+            for (int r = start; r < Math.min(relations, start + perChunk); r++) {
+                int s = sameDomain(random.nextInt(entities), domain);
+                int t = sameDomain(random.nextInt(entities), domain);
+                relSource[r] = names[s];
+                relTarget[r] = names[t];
+                relKind[r] = KINDS[r % KINDS.length];
+                relDomain[r] = domain;
+                chunkRelations.add(new KgChunk.KgRelation(names[s], names[t], relKind[r], 0.6));
+                if (r % 5 == 0) {
+                    chunkEntities.add(new KgChunk.KgEntity(names[s], "ENTITY", domain, 0.7));
+                    mentions[s]++;
+                }
+            }
+            service.recordChunks(List.of(new KgChunk("chunk-" + start, "s" + (start % 97), "", chunkEntities,
+                    chunkRelations, domain, 0.7, Instant.EPOCH)));
+        }
+        queries = new String[64];
+        for (int q = 0; q < queries.length; q++) {
+            int a = sameDomain(random.nextInt(entities), "D3");
+            int b = sameDomain(random.nextInt(entities), "D3");
+            queries[q] = "How does " + names[a] + " interact with " + names[b] + " under load?";
+        }
+    }
+
+    private int sameDomain(int index, String domain) {
+        int d = domain.charAt(1) - '0';
+        return index - (index % 8) + d < entities ? index - (index % 8) + d : d;
+    }
+
+    private static String name(int i) {
+        StringBuilder sb = new StringBuilder();
+        int v = i;
+        do {
+            sb.append(SYLLABLES[v % SYLLABLES.length]);
+            v /= SYLLABLES.length;
+        } while (v > 0);
+        return sb.append(' ').append(i).toString();
+    }
+
+    @Benchmark
+    public int indexedQuery() {
+        InferenceResult result = service.querySparseInferenceLocalOnly(queries[cursor++ & 63], "D3");
+        return result.inferredRelations().size();
+    }
+
+    /** The pre-index query path: each lookup walks every entity or relation. */
+    @Benchmark
+    public int legacyScanQuery() {
+        String lower = queries[cursor++ & 63].toLowerCase(Locale.ROOT);
+        String domain = "D3";
+        List<Integer> hits = new ArrayList<>();
+        for (int i = 0; i < names.length; i++) {
+            if (mentions[i] > 0 && domain.equals(entityDomains[i]) && lower.contains(names[i].toLowerCase(Locale.ROOT))) {
+                hits.add(i);
+            }
+        }
+        List<String> matched = hits.stream()
+                .sorted(Comparator.comparingLong((Integer i) -> mentions[i]).reversed())
+                .limit(10)
+                .map(i -> names[i])
+                .distinct()
+                .toList();
+        if (matched.isEmpty()) {
+            return 0;
+        }
+        List<SparseNodeInferenceService.MemoryPath> paths = inference.infer(new LinkedHashSet<>(matched),
+                entity -> scanRelationships(entity, domain), entity -> scanConfidence(entity, domain), 10);
+        long portMappings = 0;
+        for (int pass = 0; pass < 3; pass++) {
+            for (int r = 0; r < relSource.length; r++) {
+                if (domain.equals(relDomain[r]) && (matched.contains(relSource[r]) || matched.contains(relTarget[r]))) {
+                    portMappings++;
+                }
+            }
+        }
+        return paths.size() + (int) portMappings;
+    }
+
+    @Benchmark
+    public void recordChunk() {
+        int id = entities + fresh++;
+        String domain = "D" + (id % 8);
+        service.recordChunks(List.of(new KgChunk("fresh-" + id, "s", "",
+                List.of(new KgChunk.KgEntity(name(id), "ENTITY", domain, 0.5)),
+                List.of(new KgChunk.KgRelation(name(id), names[id % entities], "RELATED_TO", 0.5)),
+                domain, 0.5, Instant.EPOCH)));
+    }
+
+    private Map<String, Set<String>> scanRelationships(String entity, String domain) {
+        Map<String, Set<String>> out = new LinkedHashMap<>();
+        for (int r = 0; r < relSource.length; r++) {
+            if (domain.equals(relDomain[r]) && entity.equalsIgnoreCase(relSource[r])) {
+                out.computeIfAbsent(relKind[r], ignored -> new LinkedHashSet<>()).add(relTarget[r]);
+            }
+        }
+        return out;
+    }
+
+    private double scanConfidence(String entity, String domain) {
+        double best = -1.0d;
+        for (int i = 0; i < names.length; i++) {
+            if (mentions[i] > 0 && domain.equals(entityDomains[i]) && entity.equalsIgnoreCase(names[i])) {
+                best = Math.max(best, 0.7d);
+            }
+        }
+        return best < 0 ? 1.0d : best;
+    }
+}
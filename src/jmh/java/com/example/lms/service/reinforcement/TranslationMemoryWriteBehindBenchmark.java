@@ -0,0 +1,210 @@
+package com.example.lms.service.reinforcement;
+
+import com.example.lms.entity.TranslationMemory;
+import com.example.lms.guard.GuardProfileProps;
+import com.example.lms.repository.TranslationMemoryRepository;
+import com.example.lms.service.MemoryReinforcementService;
+import com.example.lms.service.config.HyperparameterService;
+import com.example.lms.strategy.StrategyDecisionTracker;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypes;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request-path time of one reinforced answer through {@link MemoryReinforcementService} ({@code hitsPerAnswer}
+ * {@code bumpOnly} calls plus one {@code reinforceWithSnippet} of an existing row) on JPA over an in-memory H2:
+ * inline, as the service runs without {@link TranslationMemoryWriteBehind}, versus queued on it (its flusher thread
+ * does the batched writes in the background).
+ * <pre>./gradlew jmh -Pjmh.include=TranslationMemoryWriteBehindBenchmark</pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TranslationMemoryWriteBehindBenchmark {
+
+    private static final int ROWS = 1_000;
+
+    @Param({"3"})
+    int hitsPerAnswer;
+
+    private AnnotationConfigApplicationContext inlineContext;
+    private AnnotationConfigApplicationContext queuedContext;
+    private MemoryReinforcementService inline;
+    private MemoryReinforcementService queued;
+    private final String[] snippets = new String[ROWS];
+    private final String[] hashes = new String[ROWS];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        for (int i = 0; i < ROWS; i++) {
+            snippets[i] = "Reinforced answer #" + i + " about connection pools, caches and batched writes.";
+            hashes[i] = sha1(snippets[i]);
+        }
+        inlineContext = context("tm_bench_inline", false);
+        queuedContext = context("tm_bench_queued", true);
+        inline = inlineContext.getBean(MemoryReinforcementService.class);
+        queued = queuedContext.getBean(MemoryReinforcementService.class);
+        for (MemoryReinforcementService service : new MemoryReinforcementService[]{inline, queued}) {
+            for (int i = 0; i < ROWS; i++) {
+                service.reinforceWithSnippet("chat-" + (i % 7), "q", snippets[i], "ASSISTANT", 0.95);
+                // The first increment runs inline and marks the hash as known to the write-behind.
+                service.bumpOnly(hashes[i]);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        queuedContext.close();
+        inlineContext.close();
+    }
+
+    @Benchmark
+    public int inline() {
+        return answer(inline);
+    }
+
+    @Benchmark
+    public int queued() {
+        return answer(queued);
+    }
+
+    private int answer(MemoryReinforcementService service) {
+        int rows = 0;
+        for (int i = 0; i < hitsPerAnswer; i++) {
+            rows += service.bumpOnly(hashes[nextRow()]);
+        }
+        int row = nextRow();
+        service.reinforceWithSnippet("chat-" + (row % 7), "q", snippets[row], "ASSISTANT", 0.95);
+        return rows;
+    }
+
+    private int nextRow() {
+        next = (next + 1) % ROWS;
+        return next;
+    }
+
+    private static AnnotationConfigApplicationContext context(String database, boolean writeBehind) {
+        AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext();
+        ctx.getEnvironment().getPropertySources().addFirst(new MapPropertySource("bench", Map.of(
+                "memory.enabled", "true",
+                "bench.db", database)));
+        ctx.register(JpaConfig.class);
+        if (writeBehind) {
+            ctx.register(WriteBehindConfig.class);
+        }
+        ctx.refresh();
+        return ctx;
+    }
+
+    private static String sha1(String s) {
+        try {
+            StringBuilder sb = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-1").digest(s.trim().getBytes(StandardCharsets.UTF_8))) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Configuration
+    @EnableTransactionManagement
+    @EnableJpaRepositories(basePackageClasses = TranslationMemoryRepository.class,
+            includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE,
+                    classes = TranslationMemoryRepository.class))
+    public static class JpaConfig {
+
+        @Bean
+        DataSource dataSource(Environment env) {
+            return new DriverManagerDataSource(
+                    "jdbc:h2:mem:" + env.getProperty("bench.db") + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        }
+
+        @Bean
+        LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+            LocalContainerEntityManagerFactoryBean emf = new LocalContainerEntityManagerFactoryBean();
+            emf.setDataSource(dataSource);
+            emf.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+            emf.setManagedTypes(PersistenceManagedTypes.of(TranslationMemory.class.getName()));
+            emf.setJpaPropertyMap(Map.of(
+                    "hibernate.hbm2ddl.auto", "create-drop",
+                    "hibernate.physical_naming_strategy", CamelCaseToUnderscoresNamingStrategy.class.getName()));
+            return emf;
+        }
+
+        @Bean
+        JpaTransactionManager transactionManager(EntityManagerFactory emf) {
+            return new JpaTransactionManager(emf);
+        }
+
+        @Bean
+        JdbcTemplate jdbcTemplate(DataSource dataSource) {
+            return new JdbcTemplate(dataSource);
+        }
+
+        @Bean
+        GuardProfileProps guardProfileProps() {
+            return new GuardProfileProps();
+        }
+
+        @Bean
+        MemoryReinforcementService memoryReinforcementService(TranslationMemoryRepository repository) {
+            // Only the memory path runs: ASSISTANT answers skip the vector store, no feedback/strategy calls, and
+            // hyperparameters fall back to their defaults.
+            return new MemoryReinforcementService(repository, null, null, null, new StrategyDecisionTracker(),
+                    new HyperparameterService(null));
+        }
+    }
+
+    @Configuration
+    public static class WriteBehindConfig {
+
+        @Bean
+        TranslationMemoryWriteBehind translationMemoryWriteBehind(
+                JdbcTemplate jdbc, ObjectProvider<PlatformTransactionManager> transactionManager) {
+            return new TranslationMemoryWriteBehind(jdbc, transactionManager, 200L, 256, 10_000, 10L);
+        }
+    }
+}
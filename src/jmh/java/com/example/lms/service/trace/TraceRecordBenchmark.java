@@ -0,0 +1,150 @@
+package com.example.lms.service.trace;
+
+import com.example.lms.search.TraceStore;
+import com.example.lms.service.NaverSearchService;
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.rag.content.Content;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request-path cost of the final search trace: the old eager {@code buildSplitPanel} versus capturing and
+ * encoding a {@link TraceRecord}, plus the deferred decode+render a trace view open pays instead.
+ * {@link #captureAndEncodeRecord} reports the per-turn history payload (inline HTML / TRACE64 / record bytes)
+ * as aux counters next to its score:
+ * <pre>./gradlew jmh -Pjmh.include=TraceRecordBenchmark</pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TraceRecordBenchmark {
+
+    private TraceHtmlBuilder builder;
+    private NaverSearchService.SearchTrace trace;
+    private List<String> snippets;
+    private List<Content> web;
+    private List<Content> vector;
+    private Map<String, Object> meta;
+    private TraceRecord captured;
+    private byte[] record;
+    private int inlineHtmlBytes;
+    private int trace64Bytes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        builder = new TraceHtmlBuilder(null);
+        Random rnd = new Random(34L);
+        trace = new NaverSearchService.SearchTrace();
+        for (int i = 0; i < 5; i++) {
+            trace.steps.add(new NaverSearchService.SearchStep("q" + i, 10, 6, 80 + rnd.nextInt(200)));
+        }
+        trace.provider = "hybrid";
+        trace.query = "query-label";
+        trace.queryHash = "3f2a9c";
+        trace.totalMs = 640;
+        snippets = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            snippets.add("<b>Result " + i + "</b> " + text(rnd, 300) + " https://site" + i + ".example.com/a");
+        }
+        web = contents(rnd, 8, 600);
+        vector = contents(rnd, 6, 900);
+        meta = new LinkedHashMap<>();
+        for (int i = 0; i < 120; i++) {
+            meta.put("orch.stage" + i + ".tookMs", (long) rnd.nextInt(500));
+            if (i % 4 == 0) {
+                meta.put("rag.stage" + i + ".reason", text(rnd, 60));
+            }
+        }
+        meta.put("answer.mode", "NORMAL");
+        meta.put("ml.router.events", List.of(Map.of("stage", "route", "score", 0.42d)));
+        captured = TraceRecord.capture(trace, snippets, web, vector, meta);
+        record = TraceRecordCodec.encode(captured);
+
+        byte[] html = eagerRenderPanel().getBytes(StandardCharsets.UTF_8);
+        inlineHtmlBytes = html.length;
+        trace64Bytes = Base64.getEncoder().encode(html).length;
+    }
+
+    /** Per-turn history payload of the benchmark turn, in bytes. */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class PayloadBytes {
+        public long inlineHtml;
+        public long trace64;
+        public long record;
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearTrace() {
+        TraceStore.clear();
+    }
+
+    @Benchmark
+    public String eagerRenderPanel() {
+        return builder.buildSplitPanel(trace, snippets, web, vector, meta);
+    }
+
+    @Benchmark
+    public byte[] captureAndEncodeRecord(PayloadBytes payload) {
+        byte[] encoded = TraceRecordCodec.encode(TraceRecord.capture(trace, snippets, web, vector, meta));
+        payload.inlineHtml = inlineHtmlBytes;
+        payload.trace64 = trace64Bytes;
+        payload.record = encoded.length;
+        return encoded;
+    }
+
+    /** Codec share of {@link #captureAndEncodeRecord}; the rest is meta redaction. */
+    @Benchmark
+    public byte[] encodeCapturedRecord() {
+        return TraceRecordCodec.encode(captured);
+    }
+
+    @Benchmark
+    public String decodeAndRenderOnOpen() {
+        TraceRecord r = TraceRecordCodec.decode(record);
+        return builder.buildSplitPanelFromSanitized(r.rawTrace(), r.rawSnippets(), r.webTopK(), r.vectorTopK(),
+                r.safeMeta());
+    }
+
+    private static List<Content> contents(Random rnd, int n, int len) {
+        List<Content> out = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            out.add(Content.from(TextSegment.from("[Title " + i + " | site" + i + ".example.com]\n" + text(rnd, len),
+                    Metadata.from(Map.of("title", "Title " + i, "url", "https://site" + i + ".example.com/p")))));
+        }
+        return out;
+    }
+
+    private static String text(Random rnd, int len) {
+        String[] words = {"검색", "결과", "spring", "boot", "trace", "vector", "문서", "rerank", "context", "api"};
+        StringBuilder sb = new StringBuilder(len + 16);
+        while (sb.length() < len) {
+            sb.append(words[rnd.nextInt(words.length)]).append(' ');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.lms.uaw.autolearn;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples/sec through {@link UawDatasetTrainingDataFilter#filter} on long clean answers (the common, accepted case
+ * where every rule has to be checked) with the shipped banner/fallback rules plus {@code extraRules} synthetic
+ * soft excludes, with and without the literal prefilter.
+ * <pre>./gradlew jmh -Pjmh.include=UawDatasetTrainingDataFilterBenchmark</pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UawDatasetTrainingDataFilterBenchmark {
+
+    private static final String[] PHRASES = {
+            "벡터 검색 결과를 요약하면 다음과 같습니다. ", "The retrieval step returned four sources. ",
+            "캐시 적중률은 안정적입니다.\n", "- step one: normalize the query\n", "근거 문서의 날짜를 확인했습니다. ",
+            "Latency stayed below the budget in most runs.\n"};
+
+    @Param({"4000", "64000"})
+    int answerChars;
+
+    @Param({"40"})
+    int extraRules;
+
+    private UawDatasetTrainingDataFilter prefiltered;
+    private UawDatasetTrainingDataFilter unfiltered;
+    private String question;
+    private String answer;
+
+    @Setup
+    public void setup() {
+        prefiltered = new UawDatasetTrainingDataFilter(properties(true), null);
+        unfiltered = new UawDatasetTrainingDataFilter(properties(false), null);
+        question = "UAW 자동학습 품질 점검: 최근 검색 파이프라인 변경 사항을 설명해 줘";
+        var sb = new StringBuilder(answerChars + 64);
+        for (int i = 0; sb.length() < answerChars; i++) {
+            sb.append(PHRASES[i % PHRASES.length]);
+        }
+        answer = sb.toString();
+    }
+
+    @Benchmark
+    public boolean literalPrefilter() {
+        return prefiltered.filter(question, answer, "gemma4:26b").accept();
+    }
+
+    @Benchmark
+    public boolean everyPattern() {
+        return unfiltered.filter(question, answer, "gemma4:26b").accept();
+    }
+
+    private UawDatasetFilterProperties properties(boolean literalPrefilter) {
+        var props = new UawDatasetFilterProperties();
+        props.setLiteralPrefilter(literalPrefilter);
+        props.getOverridePolicy().setStrictAllowOverrides(true);
+        props.getOverridePolicy().setAllowOverridesSoftExcludeGroups(List.of("modelUsed"));
+
+        var rules = new ArrayList<UawDatasetFilterProperties.Rule>();
+        rules.add(rule("hard_answer_degraded_banner", "banner", 1000, true,
+                UawDatasetFilterProperties.Scope.ANSWER,
+                "^\\s*※\\s*\\[DEGRADED\\s+MODE\\]", "^\\s*#{1,6}\\s*\\[DEGRADED\\s+MODE\\]"));
+        rules.add(rule("hard_question_degraded_banner", "banner", 900, true,
+                UawDatasetFilterProperties.Scope.PROMPT, "^\\s*※\\s*\\[DEGRADED\\s+MODE\\]"));
+        rules.add(rule("soft_model_used_fallback", "modelUsed", 100, false,
+                UawDatasetFilterProperties.Scope.MODEL_USED, "fallback:"));
+        for (int i = 0; i < extraRules; i++) {
+            rules.add(rule("soft_answer_marker_" + i, "answer", 50, false, UawDatasetFilterProperties.Scope.ANSWER,
+                    "\\[marker-" + i + "\\]", "^\\s*as an ai(?: language)? model " + i,
+                    "(?:sorry|unable),?\\s+cannot\\s+answer\\s+#" + i));
+        }
+        props.setRules(rules);
+        return props;
+    }
+
+    private static UawDatasetFilterProperties.Rule rule(String name, String group, int priority, boolean hard,
+                                                        UawDatasetFilterProperties.Scope scope, String... patterns) {
+        var rule = new UawDatasetFilterProperties.Rule();
+        rule.setName(name);
+        rule.setGroup(group);
+        rule.setPriority(priority);
+        rule.setHard(hard);
+        rule.setScope(scope);
+        rule.setPatterns(List.of(patterns));
+        return rule;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.lms.uaw.autolearn;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Lines/sec from {@code 8} concurrent appenders writing ~600-byte dataset lines: the previous
+ * {@code synchronized} open → lock → write → close per line against the group-commit {@link UawJsonlAppender}
+ * in each durability mode.
+ * <pre>./gradlew jmh -Pjmh.include=UawJsonlAppenderBenchmark</pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class UawJsonlAppenderBenchmark {
+
+    private static final String LINE = "{\"ts\":\"2026-01-01T00:00:00Z\",\"source\":\"uaw_autolearn\",\"question\":\""
+            + "x".repeat(200) + "\",\"answer\":\"" + "y".repeat(300) + "\",\"validation\":{\"accepted\":true}}";
+
+    @Param({"NONE", "INTERVAL", "BATCH"})
+    String durability;
+
+    private Path dir;
+    private Path legacyFile;
+    private UawJsonlAppender appender;
+
+    @Setup(Level.Iteration)
+    public void setup() throws Exception {
+        dir = Files.createTempDirectory("uaw-appender-bench");
+        legacyFile = dir.resolve("legacy.jsonl");
+        appender = new UawJsonlAppender(dir.resolve("group.jsonl"), new UawJsonlAppender.Options(
+                UawJsonlAppender.Durability.parse(durability), 1000L, 30_000L));
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws Exception {
+        appender.close();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path p : files.toList()) {
+                Files.deleteIfExists(p);
+            }
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public boolean groupCommit() throws Exception {
+        return appender.append(LINE);
+    }
+
+    /** The writer's previous path; durability does not apply (it never forced). */
+    @Benchmark
+    public void legacyOpenLockClose() throws Exception {
+        synchronized (UawJsonlAppenderBenchmark.class) {
+            byte[] bytes = (LINE + "\n").getBytes(StandardCharsets.UTF_8);
+            try (FileChannel channel = FileChannel.open(legacyFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                 FileLock ignored = channel.lock()) {
+                channel.write(ByteBuffer.wrap(bytes));
+            }
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.lms.uaw.autolearn.ingest;
+
+import com.example.lms.service.VectorStoreService;
+import com.example.lms.service.vector.VectorSidService;
+import com.example.lms.uaw.autolearn.UawAutolearnProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lines/sec through {@code train_rag.jsonl} on a {@code fileMb} synthetic dataset: the previous one-{@code read()}-
+ * per-byte line reader, the buffered {@link JsonlLineReader}, and the full
+ * {@link TrainRagIngestService#ingestNewSamples} run (parse, filter, batched upsert with a fake embedding model
+ * that hashes each text into a 384-float vector on flush, checkpoint). Each invocation consumes the next
+ * {@value #LINES_PER_OP} lines from the current checkpoint and wraps around at end of file.
+ * <pre>./gradlew jmh -Pjmh.include=TrainRagIngestServiceBenchmark</pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TrainRagIngestServiceBenchmark {
+
+    static final int LINES_PER_OP = 10_000;
+
+    @Param({"1024"})
+    int fileMb;
+
+    private Path dir;
+    private Path jsonl;
+    private Path statePath;
+    private long fileSize;
+    private long legacyOffset;
+    private long bufferedOffset;
+    private TrainRagIngestService service;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        dir = Files.createTempDirectory("train-rag-bench");
+        jsonl = dir.resolve("train_rag.jsonl");
+        statePath = dir.resolve("ingest_state.json");
+        long target = fileMb * 1024L * 1024L;
+        try (BufferedWriter out = Files.newBufferedWriter(jsonl, StandardCharsets.UTF_8)) {
+            long written = 0L;
+            for (int i = 0; written < target; i++) {
+                String line = "{\"question\":\"synthetic question " + i + " about 벡터 검색 latency\","
+                        + "\"answer\":\"synthetic answer " + i + " with enough text to look like a short reply\","
+                        + "\"model\":\"bench\",\"sessionId\":\"s" + (i % 64) + "\",\"ts\":\"2026-01-01T00:00:00Z\","
+                        + "\"validation\":{\"accepted\":true,\"sampleScore\":0.8,\"contaminationScore\":0.1,"
+                        + "\"rejectReasons\":[],\"anomalies\":{\"flags\":[]},"
+                        + "\"feedback\":{\"vectorDecision\":\"SHADOW_REVIEW\"}}}\n";
+                out.write(line);
+                written += line.getBytes(StandardCharsets.UTF_8).length;
+            }
+        }
+        fileSize = Files.size(jsonl);
+
+        UawAutolearnProperties props = new UawAutolearnProperties();
+        props.getRetrain().setIngestStatePath(statePath.toString());
+        props.getRetrain().setMaxIngestLinesPerRun(LINES_PER_OP);
+        service = new TrainRagIngestService(new FakeEmbeddingVectorStore(), new VectorSidService(new ObjectMapper()),
+                props);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(statePath);
+        Files.deleteIfExists(jsonl);
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES_PER_OP)
+    public long legacyByteReader() throws Exception {
+        long chars = 0L;
+        try (RandomAccessFile raf = new RandomAccessFile(jsonl.toFile(), "r")) {
+            raf.seek(legacyOffset);
+            for (int i = 0; i < LINES_PER_OP; i++) {
+                String line = legacyReadLine(raf);
+                if (line == null) {
+                    raf.seek(0L);
+                    continue;
+                }
+                chars += line.length();
+            }
+            legacyOffset = raf.getFilePointer() >= fileSize ? 0L : raf.getFilePointer();
+        }
+        return chars;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES_PER_OP)
+    public long bufferedReader() throws Exception {
+        long chars = 0L;
+        try (FileChannel channel = FileChannel.open(jsonl, StandardOpenOption.READ)) {
+            JsonlLineReader reader = new JsonlLineReader(channel, bufferedOffset);
+            for (int i = 0; i < LINES_PER_OP; i++) {
+                String line = reader.readLine();
+                if (line == null) {
+                    reader = new JsonlLineReader(channel, 0L);
+                    continue;
+                }
+                chars += line.length();
+            }
+            bufferedOffset = reader.offset() >= fileSize ? 0L : reader.offset();
+        }
+        return chars;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES_PER_OP)
+    public int ingestWithFakeEmbeddings() throws Exception {
+        int accepted = service.ingestNewSamples(jsonl, "bench", () -> false);
+        if (accepted == 0) {
+            Files.deleteIfExists(statePath);
+        }
+        return accepted;
+    }
+
+    /** The reader {@link TrainRagIngestService} used before: one {@code read()} syscall per byte. */
+    private static String legacyReadLine(RandomAccessFile raf) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        int b;
+        boolean gotAny = false;
+        while ((b = raf.read()) != -1) {
+            gotAny = true;
+            if (b == '\n') {
+                break;
+            }
+            if (b != '\r') {
+                out.write(b);
+            }
+        }
+        if (!gotAny && out.size() == 0) {
+            return null;
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    /** Buffers enqueued texts and "embeds" them on flush by hashing characters into a 384-float vector. */
+    static final class FakeEmbeddingVectorStore extends VectorStoreService {
+        private final List<String> pending = new ArrayList<>();
+        private final float[] vector = new float[384];
+        volatile float sink;
+
+        FakeEmbeddingVectorStore() {
+            super(null, null);
+        }
+
+        @Override
+        public void enqueue(String explicitId, String sessionId, String text, Map<String, Object> extraMeta) {
+            pending.add(text);
+        }
+
+        @Override
+        public void flush() {
+            for (String text : pending) {
+                for (int i = 0; i < text.length(); i++) {
+                    vector[(i * 31 + text.charAt(i)) % vector.length] += text.charAt(i) * 0.001f;
+                }
+                sink += vector[text.length() % vector.length];
+            }
+            pending.clear();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.lms.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Legacy per-call regex forms ({@code String.matches}/{@code replaceAll}) versus {@link TextSignals} on a
+ * mix of Korean/English chat queries. Each pair does the same classification work per query:
+ * <pre>./gradlew jmh -Pjmh.include=TextSignalsBenchmark</pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TextSignalsBenchmark {
+
+    private static final String[] QUERIES = {
+            "원신에서 푸리나가 뭐야?",
+            "What is the difference between BM25 and SPLADE for Korean retrieval?",
+            "스프링 부트 3.3에서 @Transactional  REQUIRES_NEW 동작 방식",
+            "2024년 청년 취업 지원금 신청 방법 알려줘",
+            "GPT-4o vs Claude 성능 비교 벤치마크 결과",
+            "서울대학교 병원 전문의 진료 예약은 어떻게 해?",
+            "who is the current CEO of Naver",
+            "kotlin coroutine flow vs channel   차이"
+    };
+
+    private static final TextSignals.KeywordSet DEFINITIONAL = TextSignals.KeywordSet.of(
+            "뭐야", "뭐냐", "누구야", "누구냐", "무엇", "what is", "who is");
+    private static final TextSignals.KeywordSet STRICT_DOMAIN = TextSignals.KeywordSet.of(
+            "병원", "의료", "의사", "전문의", "교수", "대학교", "학과", "연구실", "공공기관", "정부", "학회");
+
+    private String[] queries;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        queries = QUERIES.clone();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(8)
+    public void legacyRegex(Blackhole bh) {
+        for (String q : queries) {
+            bh.consume(q.matches(".*[\\uAC00-\\uD7A3].*"));
+            bh.consume(q.matches("(?i).*(뭐야|뭐냐|누구야|누구냐|무엇|what\\s+is|who\\s+is).*"));
+            bh.consume(q.toLowerCase().matches(".*(병원|의료|의사|전문의|교수|대학교|학과|연구실|공공기관|정부|학회).*"));
+            bh.consume(q.matches(".*[A-Z]{2,}.*"));
+            bh.consume(q.replaceAll("\\s+", " ").trim());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(8)
+    public void textSignals(Blackhole bh) {
+        for (String q : queries) {
+            bh.consume(TextSignals.hasHangulSyllable(q));
+            bh.consume(DEFINITIONAL.containsAny(q));
+            bh.consume(STRICT_DOMAIN.containsAny(q));
+            bh.consume(TextSignals.hasAsciiUpperRun(q, 2));
+            bh.consume(TextSignals.collapseWhitespace(q).trim());
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package ai.abandonware.nova.orch.answercache;
+
+import ai.abandonware.nova.config.NovaOrchestrationProperties;
+import ai.abandonware.nova.orch.aop.SemanticAnswerCacheAspect;
+import com.example.lms.dto.ChatRequestDto;
+import com.example.lms.service.ChatResult;
+import com.github.benmanes.caffeine.cache.Ticker;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SemanticAnswerCacheTest {
+
+    private final TrigramEmbeddingModel embeddings = new TrigramEmbeddingModel();
+    private final AtomicLong now = new AtomicLong();
+    private final Ticker ticker = now::get;
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void repeatedAndNearDuplicateQuestionsHitWhileUnrelatedOnesMiss() {
+        SemanticAnswerCache cache = cache(null);
+        answer(cache, request("Spring Boot 트랜잭션 전파 옵션 정리해줘"), "REQUIRED, REQUIRES_NEW, ...");
+
+        int embedsBefore = embeddings.calls.get();
+        SemanticAnswerCache.Lookup exact = cache.lookup(request("  spring boot 트랜잭션   전파 옵션 정리해줘!! "));
+        assertThat(exact.hit()).isNotNull();
+        assertThat(exact.hit().result().content()).isEqualTo("REQUIRED, REQUIRES_NEW, ...");
+        assertThat(embeddings.calls.get()).as("exact repeat needs no embedding call").isEqualTo(embedsBefore);
+
+        SemanticAnswerCache.Lookup near = cache.lookup(request("Spring Boot 트랜잭션 전파 옵션 정리해줘요"));
+        assertThat(near.hit()).isNotNull();
+        assertThat(near.hit().similarity()).isGreaterThanOrEqualTo(0.92d).isLessThan(1.0d);
+
+        assertThat(cache.lookup(request("Kotlin 코루틴 취소 전파 방식 정리해줘")).hit()).isNull();
+    }
+
+    @Test
+    void differentModelOrRetrievalSwitchesNeverShareAnAnswer() {
+        SemanticAnswerCache cache = cache(null);
+        answer(cache, request("Spring Boot 트랜잭션 전파 옵션 정리해줘"), "cached");
+
+        ChatRequestDto otherModel = request("Spring Boot 트랜잭션 전파 옵션 정리해줘");
+        otherModel.setModel("gpt-5-mini");
+        assertThat(cache.lookup(otherModel).hit()).isNull();
+
+        ChatRequestDto withWeb = request("Spring Boot 트랜잭션 전파 옵션 정리해줘");
+        withWeb.setUseWebSearch(true);
+        assertThat(cache.lookup(withWeb).hit()).isNull();
+    }
+
+    @Test
+    void ttlFollowsFreshnessClass() {
+        SemanticAnswerCache cache = cache(null);
+        assertThat(AnswerFreshness.classify("오늘 환율 얼마야")).isEqualTo(AnswerFreshness.VOLATILE);
+        assertThat(AnswerFreshness.classify("what is a monad")).isEqualTo(AnswerFreshness.STABLE);
+
+        answer(cache, request("오늘 원달러 환율 얼마야"), "1,380원");
+        answer(cache, request("what is a monad"), "a monoid in the category of endofunctors");
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(301));
+        assertThat(cache.lookup(request("오늘 원달러 환율 얼마야")).hit()).as("news-like answer expired").isNull();
+        assertThat(cache.lookup(request("what is a monad")).hit()).as("definition still fresh").isNotNull();
+
+        now.addAndGet(TimeUnit.DAYS.toNanos(1));
+        assertThat(cache.lookup(request("what is a monad")).hit()).isNull();
+    }
+
+    @Test
+    void sessionSpecificContextBypassesTheCache() {
+        SemanticAnswerCache cache = cache(sessionId -> sessionId == 42L);
+        answer(cache, request("Spring Boot 트랜잭션 전파 옵션 정리해줘"), "cached");
+
+        ChatRequestDto ongoing = request("Spring Boot 트랜잭션 전파 옵션 정리해줘");
+        ongoing.setSessionId(42L);
+        assertThat(cache.lookup(ongoing).bypassReason()).isEqualTo("session_history");
+
+        ChatRequestDto fresh = request("Spring Boot 트랜잭션 전파 옵션 정리해줘");
+        fresh.setSessionId(7L);
+        assertThat(cache.lookup(fresh).hit()).isNotNull();
+
+        ChatRequestDto withPrompt = request("Spring Boot 트랜잭션 전파 옵션 정리해줘");
+        withPrompt.setSystemPrompt("answer like a pirate");
+        assertThat(cache.lookup(withPrompt).bypassReason()).isEqualTo("system_prompt");
+
+        ChatRequestDto withHistory = request("Spring Boot 트랜잭션 전파 옵션 정리해줘");
+        withHistory.setHistory(List.of(new ChatRequestDto.Message("user", "앞에서 말한 그거")));
+        assertThat(cache.lookup(withHistory).bypassReason()).isEqualTo("history");
+
+        ChatRequestDto withImage = request("Spring Boot 트랜잭션 전파 옵션 정리해줘");
+        withImage.setImageBase64("iVBORw0KGgo=");
+        assertThat(cache.lookup(withImage).bypassReason()).isEqualTo("attachments");
+    }
+
+    @Test
+    void answersAreOnlySharedWithinTheSameOwner() {
+        SemanticAnswerCache cache = cache(null);
+        answer(cache, request("Spring Boot 트랜잭션 전파 옵션 정리해줘"), "alice's answer");
+
+        ChatRequestDto sameOwner = request("Spring Boot 트랜잭션 전파 옵션 정리해줘");
+        sameOwner.setSessionId(7L);
+        assertThat(cache.lookup(sameOwner).hit()).isNotNull();
+
+        ChatRequestDto otherOwner = request("Spring Boot 트랜잭션 전파 옵션 정리해줘");
+        otherOwner.setSessionId(99L);
+        assertThat(cache.lookup(otherOwner).hit()).isNull();
+
+        ChatRequestDto unknownOwner = request("Spring Boot 트랜잭션 전파 옵션 정리해줘");
+        unknownOwner.setSessionId(500L);
+        answer(cache, unknownOwner, "session-only answer");
+        ChatRequestDto otherUnknown = request("Spring Boot 트랜잭션 전파 옵션 정리해줘");
+        otherUnknown.setSessionId(501L);
+        assertThat(cache.lookup(otherUnknown).hit()).as("unknown owners share only within the session").isNull();
+
+        ChatRequestDto noSession = request("Spring Boot 트랜잭션 전파 옵션 정리해줘");
+        noSession.setSessionId(null);
+        assertThat(cache.lookup(noSession).bypassReason()).isEqualTo("no_owner");
+    }
+
+    @Test
+    void everyHitGetsItsOwnCopyOfTheCachedResult() {
+        SemanticAnswerCache cache = cache(null);
+        SemanticAnswerCache.Lookup miss = cache.lookup(request("Spring Boot 트랜잭션 전파 옵션 정리해줘"));
+        ChatResult fresh = ChatResult.of("cached", "gpt-5", true, new HashSet<>(Set.of("https://docs.spring.io")));
+        cache.put(miss, fresh, 1_000L);
+        fresh.evidence().clear();
+
+        ChatResult first = cache.lookup(request("Spring Boot 트랜잭션 전파 옵션 정리해줘")).hit().result();
+        first.evidence().add("https://attacker.example");
+        ChatResult second = cache.lookup(request("Spring Boot 트랜잭션 전파 옵션 정리해줘")).hit().result();
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.evidence()).containsExactly("https://docs.spring.io");
+    }
+
+    @Test
+    void degradedAnswersAreNotCached() {
+        SemanticAnswerCache cache = cache(null);
+        SemanticAnswerCache.Lookup miss = cache.lookup(request("Spring Boot 트랜잭션 전파 옵션 정리해줘"));
+        cache.put(miss, ChatResult.of("evidence only", "fallback:evidence", true), 1_000L);
+        assertThat(cache.lookup(request("Spring Boot 트랜잭션 전파 옵션 정리해줘")).hit()).isNull();
+    }
+
+    @Test
+    void reportsHitRatioAndSavedLatency() {
+        SemanticAnswerCache cache = cache(null);
+        SemanticAnswerCache.Lookup miss = cache.lookup(request("Spring Boot 트랜잭션 전파 옵션 정리해줘"));
+        cache.put(miss, ChatResult.of("cached", "gpt-5", true), TimeUnit.MILLISECONDS.toNanos(2_000));
+        cache.lookup(request("Spring Boot 트랜잭션 전파 옵션 정리해줘"));
+        cache.lookup(request("Spring Boot 트랜잭션 전파 옵션 정리해줘요"));
+        cache.lookup(request("Kotlin 코루틴 취소 전파 방식 정리해줘"));
+
+        SemanticAnswerCache.Stats stats = cache.stats();
+        assertThat(stats.hits()).isEqualTo(2);
+        assertThat(stats.misses()).isEqualTo(2);
+        assertThat(stats.hitRatio()).isEqualTo(0.5d);
+        assertThat(stats.savedNanos()).isGreaterThan(TimeUnit.MILLISECONDS.toNanos(3_000));
+
+        assertThat(registry.get(SemanticAnswerCache.METRIC_HIT_RATIO).gauge().value()).isEqualTo(0.5d);
+        assertThat(registry.get(SemanticAnswerCache.METRIC_SAVED_LATENCY).timer().count()).isEqualTo(2);
+        assertThat(registry.get(SemanticAnswerCache.METRIC_LOOKUPS).tag("outcome", "hit").counters())
+                .extracting(c -> c.count()).containsOnly(2.0d);
+    }
+
+    @Test
+    void aspectServesHitsWithoutRunningTheWorkflow() throws Throwable {
+        SemanticAnswerCache cache = cache(null);
+        SemanticAnswerCacheAspect aspect = new SemanticAnswerCacheAspect(cache);
+        ChatResult fresh = ChatResult.of("REQUIRED, REQUIRES_NEW, ...", "gpt-5", true, Set.of("https://docs.spring.io"));
+
+        ProceedingJoinPoint first = joinPoint(request("Spring Boot 트랜잭션 전파 옵션 정리해줘"), fresh);
+        assertThat(aspect.aroundContinueChat(first)).isSameAs(fresh);
+        verify(first, times(1)).proceed();
+
+        ProceedingJoinPoint second = joinPoint(request("spring boot 트랜잭션 전파 옵션 정리해줘?"), null);
+        Object served = aspect.aroundContinueChat(second);
+        assertThat(served).isNotSameAs(fresh).isEqualTo(fresh);
+        verify(second, never()).proceed();
+    }
+
+    private SemanticAnswerCache cache(java.util.function.LongPredicate sessionHasHistory) {
+        NovaOrchestrationProperties.AnswerCacheProps props = new NovaOrchestrationProperties.AnswerCacheProps();
+        props.setEnabled(true);
+        // sessions below 50 belong to alice, 50-499 to bob, the rest have no known owner
+        java.util.function.LongFunction<String> owner = id -> id < 50L ? "alice" : (id < 500L ? "bob" : null);
+        return new SemanticAnswerCache(props, embeddings, sessionHasHistory, owner, registry, ticker);
+    }
+
+    private static void answer(SemanticAnswerCache cache, ChatRequestDto req, String content) {
+        SemanticAnswerCache.Lookup lookup = cache.lookup(req);
+        assertThat(lookup.isBypassed()).isFalse();
+        assertThat(lookup.hit()).isNull();
+        cache.put(lookup, ChatResult.of(content, "gpt-5", true), TimeUnit.MILLISECONDS.toNanos(1_500));
+    }
+
+    private static ChatRequestDto request(String message) {
+        return ChatRequestDto.builder()
+                .message(message)
+                .sessionId(1L)
+                .model("gpt-5")
+                .useRag(true)
+                .build();
+    }
+
+    private static ProceedingJoinPoint joinPoint(ChatRequestDto req, ChatResult result) throws Throwable {
+        ProceedingJoinPoint pjp = mock(ProceedingJoinPoint.class);
+        when(pjp.getArgs()).thenReturn(new Object[]{req, null});
+        when(pjp.proceed()).thenReturn(result);
+        return pjp;
+    }
+
+    /** Offline stand-in: hashed character trigrams, so near-duplicate wording lands close together. */
+    private static final class TrigramEmbeddingModel implements EmbeddingModel {
+        private static final int DIM = 512;
+        final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public Response<Embedding> embed(String text) {
+            calls.incrementAndGet();
+            float[] v = new float[DIM];
+            String s = " " + text + " ";
+            for (int i = 0; i + 3 <= s.length(); i++) {
+                int h = s.substring(i, i + 3).hashCode();
+                v[Math.floorMod(h, DIM)] += 1.0f;
+            }
+            return Response.from(Embedding.from(v));
+        }
+
+        @Override
+        public Response<Embedding> embed(TextSegment textSegment) {
+            return embed(textSegment == null ? "" : textSegment.text());
+        }
+
+        @Override
+        public Response<List<Embedding>> embedAll(List<TextSegment> textSegments) {
+            return Response.from(textSegments.stream().map(t -> embed(t).content()).toList());
+        }
+    }
+}
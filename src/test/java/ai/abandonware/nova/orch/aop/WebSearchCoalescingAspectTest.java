@@ -0,0 +1,124 @@
+package ai.abandonware.nova.orch.aop;
+
+import ai.abandonware.nova.orch.web.WebSearchCoalescer;
+import com.example.lms.search.TraceStore;
+import com.example.lms.service.web.BraveSearchResult;
+import com.example.lms.service.web.quota.ProviderQuotaPriority;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WebSearchCoalescingAspectTest {
+
+    private final AtomicInteger upstream = new AtomicInteger();
+    private final CountDownLatch leaderEntered = new CountDownLatch(1);
+    private final CountDownLatch releaseLeader = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        releaseLeader.countDown();
+        TraceStore.clear();
+    }
+
+    @Test
+    void interactiveCallerDoesNotJoinABackgroundLeader() throws Throwable {
+        WebSearchCoalescingAspect aspect = new WebSearchCoalescingAspect(new WebSearchCoalescer(0L, 10L, null));
+        ProceedingJoinPoint backgroundCall = blockingLeader();
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<Object> background = pool.submit(() -> {
+                TraceStore.put(ProviderQuotaPriority.TRACE_KEY, "background");
+                try {
+                    return call(aspect, backgroundCall);
+                } finally {
+                    TraceStore.clear();
+                }
+            });
+            assertTrue(leaderEntered.await(2, TimeUnit.SECONDS));
+
+            BraveSearchResult interactive = (BraveSearchResult) aspect.aroundBraveSearchWithMeta(
+                    pjp(() -> BraveSearchResult.ok(new ArrayList<>(List.of("fresh")), 1L)));
+
+            assertEquals(List.of("fresh"), interactive.snippets());
+            assertFalse(background.isDone(), "interactive call must not wait for the queued background leader");
+            releaseLeader.countDown();
+            background.get(2, TimeUnit.SECONDS);
+            assertEquals(2, upstream.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void joinerGetsItsOwnCopyOfTheLeadersResult() throws Throwable {
+        WebSearchCoalescingAspect aspect = new WebSearchCoalescingAspect(new WebSearchCoalescer(0L, 10L, null));
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            ProceedingJoinPoint leaderCall = blockingLeader();
+            ProceedingJoinPoint joinerCall = pjp(() -> {
+                throw new AssertionError("joiner must not call upstream");
+            });
+            Future<Object> leader = pool.submit(() -> call(aspect, leaderCall));
+            assertTrue(leaderEntered.await(2, TimeUnit.SECONDS));
+            Future<Object> joiner = pool.submit(() -> call(aspect, joinerCall));
+            Thread.sleep(100L);
+            releaseLeader.countDown();
+
+            BraveSearchResult a = (BraveSearchResult) leader.get(2, TimeUnit.SECONDS);
+            BraveSearchResult b = (BraveSearchResult) joiner.get(2, TimeUnit.SECONDS);
+            assertEquals(1, upstream.get());
+            assertNotSame(a, b);
+            assertNotSame(a.snippets(), b.snippets());
+            a.snippets().clear();
+            assertEquals(List.of("shared"), b.snippets());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static Object call(WebSearchCoalescingAspect aspect, ProceedingJoinPoint pjp) {
+        try {
+            return aspect.aroundBraveSearchWithMeta(pjp);
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    private ProceedingJoinPoint blockingLeader() throws Throwable {
+        return pjp(() -> {
+            leaderEntered.countDown();
+            releaseLeader.await(2, TimeUnit.SECONDS);
+            return BraveSearchResult.ok(new ArrayList<>(List.of("shared")), 1L);
+        });
+    }
+
+    private ProceedingJoinPoint pjp(WebSearchCoalescer.UpstreamCall body) throws Throwable {
+        ProceedingJoinPoint pjp = mock(ProceedingJoinPoint.class);
+        MethodSignature signature = mock(MethodSignature.class);
+        when(signature.getReturnType()).thenReturn(BraveSearchResult.class);
+        when(pjp.getSignature()).thenReturn(signature);
+        when(pjp.getArgs()).thenReturn(new Object[]{"genshin furina build", 5});
+        when(pjp.proceed()).thenAnswer(inv -> {
+            upstream.incrementAndGet();
+            return body.call();
+        });
+        return pjp;
+    }
+}
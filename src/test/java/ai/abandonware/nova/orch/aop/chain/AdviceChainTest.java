@@ -0,0 +1,174 @@
+package ai.abandonware.nova.orch.aop.chain;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdviceChainTest {
+
+    interface Provider {
+        List<String> search(String q);
+
+        String searchWithTrace(String q);
+    }
+
+    static final class StubProvider implements Provider {
+        final List<String> log;
+
+        StubProvider(List<String> log) {
+            this.log = log;
+        }
+
+        @Override
+        public List<String> search(String q) {
+            log.add("target:" + q);
+            if ("boom".equals(q)) {
+                throw new IllegalStateException("boom");
+            }
+            return List.of(q);
+        }
+
+        @Override
+        public String searchWithTrace(String q) {
+            log.add("target:" + q);
+            return q;
+        }
+    }
+
+    /** Same body driven either by a real aspect or a fused link. */
+    static final class Recorder {
+        final String name;
+        final List<String> log;
+
+        Recorder(String name, List<String> log) {
+            this.name = name;
+            this.log = log;
+        }
+
+        Object invoke(AdviceChain.Invocation invocation) throws Throwable {
+            log.add(name + ":before");
+            try {
+                return invocation.proceed();
+            } catch (IllegalStateException e) {
+                log.add(name + ":caught");
+                throw e;
+            } finally {
+                log.add(name + ":after");
+            }
+        }
+    }
+
+    @Aspect
+    @Order(Ordered.HIGHEST_PRECEDENCE + 5)
+    static class InnerFirstAspect {
+        final Recorder r;
+
+        InnerFirstAspect(Recorder r) {
+            this.r = r;
+        }
+
+        @Around("execution(java.util.List ai.abandonware.nova.orch.aop.chain.AdviceChainTest.Provider.search(..))")
+        public Object around(ProceedingJoinPoint pjp) throws Throwable {
+            return r.invoke(AdviceChain.Invocation.of(pjp));
+        }
+    }
+
+    @Aspect
+    @Order(Ordered.HIGHEST_PRECEDENCE + 15)
+    static class SecondAspect {
+        final Recorder r;
+
+        SecondAspect(Recorder r) {
+            this.r = r;
+        }
+
+        @Around("execution(* ai.abandonware.nova.orch.aop.chain.AdviceChainTest.Provider.*(..))")
+        public Object around(ProceedingJoinPoint pjp) throws Throwable {
+            return r.invoke(AdviceChain.Invocation.of(pjp));
+        }
+    }
+
+    @Test
+    void linksRunInOrderValueNotRegistrationOrder() throws Throwable {
+        List<String> log = new ArrayList<>();
+        Provider proxy = fused(log, AdviceChain.builder("t")
+                .add("c", 30, new Recorder("c", log)::invoke)
+                .add("a", 10, new Recorder("a", log)::invoke)
+                .add("b", 20, new Recorder("b", log)::invoke)
+                .build());
+
+        assertThat(proxy.search("q")).containsExactly("q");
+        assertThat(log).containsExactly("a:before", "b:before", "c:before", "target:q", "c:after", "b:after", "a:after");
+    }
+
+    @Test
+    void fusedChainMatchesNestedAspectsIncludingFiltersAndExceptions() {
+        List<String> nestedLog = new ArrayList<>();
+        AspectJProxyFactory nestedFactory = new AspectJProxyFactory(new StubProvider(nestedLog));
+        // AspectJProxyFactory keeps insertion order across aspects; add them the way the auto-proxy creator sorts them
+        nestedFactory.addAspect(new InnerFirstAspect(new Recorder("hygiene", nestedLog)));
+        nestedFactory.addAspect(new SecondAspect(new Recorder("gate", nestedLog)));
+        Provider nested = nestedFactory.getProxy();
+
+        List<String> fusedLog = new ArrayList<>();
+        Provider fused = fused(fusedLog, AdviceChain.builder("web")
+                .add("gate", Ordered.HIGHEST_PRECEDENCE + 15, new Recorder("gate", fusedLog)::invoke)
+                .add("hygiene", Ordered.HIGHEST_PRECEDENCE + 5,
+                        m -> "search".equals(m.getName()) && List.class.equals(m.getReturnType()),
+                        new Recorder("hygiene", fusedLog)::invoke)
+                .build());
+
+        for (Provider p : List.of(nested, fused)) {
+            assertThat(p.search("a")).containsExactly("a");
+            assertThat(p.searchWithTrace("b")).isEqualTo("b");
+            assertThatThrownBy(() -> p.search("boom")).isInstanceOf(IllegalStateException.class);
+        }
+
+        assertThat(fusedLog).isEqualTo(nestedLog);
+        assertThat(fusedLog).contains("hygiene:caught", "gate:caught");
+        // the List-only link must not run for searchWithTrace
+        assertThat(fusedLog.subList(5, 8)).containsExactly("gate:before", "target:b", "gate:after");
+    }
+
+    @Test
+    void emptyChainAndNonMatchingMethodsProceedDirectly() {
+        List<String> log = new ArrayList<>();
+        Provider proxy = fused(log, AdviceChain.builder("t")
+                .add("listOnly", 1, m -> m.getName().equals("nope"), new Recorder("x", log)::invoke)
+                .build());
+
+        assertThat(proxy.searchWithTrace("q")).isEqualTo("q");
+        assertThat(log).containsExactly("target:q");
+        assertThat(AdviceChain.builder("e").build().isEmpty()).isTrue();
+    }
+
+    @Test
+    void shortCircuitingLinkSkipsTheRest() {
+        List<String> log = new ArrayList<>();
+        Provider proxy = fused(log, AdviceChain.builder("t")
+                .add("guard", 1, inv -> List.of("cached"))
+                .add("never", 2, new Recorder("never", log)::invoke)
+                .build());
+
+        assertThat(proxy.search("q")).containsExactly("cached");
+        assertThat(log).isEmpty();
+    }
+
+    private static Provider fused(List<String> log, AdviceChain chain) {
+        ProxyFactory pf = new ProxyFactory(new StubProvider(log));
+        pf.addAdvisor(new FusedAdviceAdvisor(
+                "execution(* ai.abandonware.nova.orch.aop.chain.AdviceChainTest.Provider.*(..))", 0, chain));
+        return (Provider) pf.getProxy();
+    }
+}
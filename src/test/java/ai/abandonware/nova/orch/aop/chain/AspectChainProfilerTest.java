@@ -0,0 +1,111 @@
+package ai.abandonware.nova.orch.aop.chain;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AspectChainProfilerTest {
+
+    public interface Service {
+        String call(String s);
+    }
+
+    @Aspect
+    static class SlowAspect {
+        @Around("execution(* ai.abandonware.nova.orch.aop.chain.AspectChainProfilerTest.Service.call(..))")
+        public Object around(ProceedingJoinPoint pjp) throws Throwable {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(3));
+            byte[] garbage = new byte[64 * 1024];
+            return pjp.proceed() + String.valueOf(garbage.length).substring(0, 0);
+        }
+    }
+
+    @Test
+    void selfTimeExcludesTargetAndIsLabelledByAspectMethod() {
+        AspectChainProfiler profiler = new AspectChainProfiler(true);
+        AspectJProxyFactory factory = new AspectJProxyFactory((Service) s -> {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(20));
+            return s;
+        });
+        factory.addAspect(new SlowAspect());
+        Service proxy = factory.getProxy();
+
+        assertThat(new AspectProfilingInstaller(null, profiler).install((org.springframework.aop.framework.Advised) proxy))
+                .isTrue();
+        for (int i = 0; i < 5; i++) {
+            assertThat(proxy.call("x")).isEqualTo("x");
+        }
+
+        List<Map<String, Object>> rows = rows(profiler.snapshot(), "Service.call");
+        Map<String, Object> aspect = row(rows, "#around");
+        Map<String, Object> target = row(rows, AspectChainProfiler.TARGET);
+
+        assertThat(aspect.get("aspect").toString()).contains("SlowAspect");
+        assertThat(aspect.get("calls")).isEqualTo(5L);
+        assertThat(target.get("calls")).isEqualTo(5L);
+        // the 20ms target sleep must be charged to (target), not the aspect
+        assertThat((Long) aspect.get("selfNanosAvg")).isLessThan(TimeUnit.MILLISECONDS.toNanos(15));
+        assertThat((Long) target.get("selfNanosAvg")).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(20));
+        if (Boolean.TRUE.equals(profiler.snapshot().get("allocationSupported"))) {
+            assertThat((Long) aspect.get("selfBytesAvg")).isGreaterThanOrEqualTo(64 * 1024L);
+        }
+    }
+
+    @Test
+    void fusedLinksReportAsSeparateFrames() throws Throwable {
+        AspectChainProfiler profiler = new AspectChainProfiler(true);
+        AdviceChain chain = AdviceChain.builder("t")
+                .profiler(profiler)
+                .add("outer", 1, inv -> {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(5));
+                    return inv.proceed();
+                })
+                .add("inner", 2, AdviceChain.Invocation::proceed)
+                .build();
+        org.springframework.aop.framework.ProxyFactory pf =
+                new org.springframework.aop.framework.ProxyFactory((Service) s -> s);
+        pf.addAdvisor(new FusedAdviceAdvisor(
+                "execution(* ai.abandonware.nova.orch.aop.chain.AspectChainProfilerTest.Service.call(..))", 0, chain));
+        ((Service) pf.getProxy()).call("y");
+
+        List<Map<String, Object>> rows = rows(profiler.snapshot(), "Service.call");
+        assertThat(rows).extracting(r -> r.get("aspect")).containsExactly("outer", "inner");
+        assertThat((Long) row(rows, "outer").get("selfNanosTotal")).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(5));
+
+        profiler.reset();
+        assertThat((Map<?, ?>) profiler.snapshot().get("joinPoints")).isEmpty();
+    }
+
+    @Test
+    void disabledProfilerRecordsNothing() {
+        AspectChainProfiler profiler = new AspectChainProfiler(false);
+
+        assertThat(profiler.enter("a", null)).isNull();
+        profiler.exit(null);
+        assertThat(profiler.inChain()).isFalse();
+        assertThat((Map<?, ?>) profiler.snapshot().get("joinPoints")).isEmpty();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> rows(Map<String, Object> snapshot, String joinPointSuffix) {
+        Map<String, Object> jps = (Map<String, Object>) snapshot.get("joinPoints");
+        return jps.entrySet().stream()
+                .filter(e -> e.getKey().endsWith(joinPointSuffix))
+                .map(e -> (List<Map<String, Object>>) e.getValue())
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static Map<String, Object> row(List<Map<String, Object>> rows, String aspectPart) {
+        return rows.stream().filter(r -> r.get("aspect").toString().contains(aspectPart)).findFirst().orElseThrow();
+    }
+}
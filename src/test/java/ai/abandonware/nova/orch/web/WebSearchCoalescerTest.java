@@ -0,0 +1,222 @@
+package ai.abandonware.nova.orch.web;
+
+import com.example.lms.search.TraceStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WebSearchCoalescerTest {
+
+    @AfterEach
+    void clearTrace() {
+        TraceStore.clear();
+    }
+
+    private static WebSearchCoalescer.Key key(String q) {
+        return new WebSearchCoalescer.Key("brave", "snippets", WebSearchCoalescer.canonicalQuery(q), 5, "ko", "",
+                "interactive");
+    }
+
+    private static Object unchecked(WebSearchCoalescer.UpstreamCall call) throws Exception {
+        try {
+            return call.call();
+        } catch (Exception e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    @Test
+    void concurrentIdenticalQueriesShareOneUpstreamCall() throws Exception {
+        WebSearchCoalescer coalescer = new WebSearchCoalescer(0L, 10L, null);
+        AtomicInteger upstream = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        int callers = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<Object>> futures = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                String q = (i % 2 == 0) ? "  Trending   Topic " : "trending topic";
+                futures.add(pool.submit(() -> unchecked(() -> coalescer.execute(key(q), () -> {
+                    upstream.incrementAndGet();
+                    release.await(2, TimeUnit.SECONDS);
+                    return List.of("a", "b");
+                }, o -> false, 0L, List::of))));
+            }
+            Thread.sleep(100L);
+            release.countDown();
+            Object first = futures.get(0).get(2, TimeUnit.SECONDS);
+            for (Future<Object> f : futures) {
+                assertEquals(List.of("a", "b"), f.get(2, TimeUnit.SECONDS));
+            }
+            assertEquals(1, upstream.get());
+            assertNotSame(first, futures.get(1).get());
+
+            @SuppressWarnings("unchecked")
+            Map<String, Object> brave = (Map<String, Object>) coalescer.snapshot().get("brave");
+            assertEquals(1L, brave.get("leaders"));
+            assertEquals((long) callers - 1, brave.get("joined"));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void cleanEmptyResultsAreNegativeCachedBriefly() throws Throwable {
+        WebSearchCoalescer coalescer = new WebSearchCoalescer(60_000L, 10L, null);
+        AtomicInteger upstream = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            Object out = coalescer.execute(key("no hits"), () -> {
+                upstream.incrementAndGet();
+                return List.of();
+            }, o -> o instanceof List<?> l && l.isEmpty(), 0L, List::of);
+            assertEquals(List.of(), out);
+        }
+        assertEquals(1, upstream.get());
+    }
+
+    @Test
+    void failureEmptiesAreNotNegativeCached() throws Throwable {
+        WebSearchCoalescer coalescer = new WebSearchCoalescer(60_000L, 10L, null);
+        AtomicInteger upstream = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            coalescer.execute(key("flaky"), () -> {
+                upstream.incrementAndGet();
+                return List.of();
+            }, o -> false, 0L, List::of);
+        }
+        assertEquals(3, upstream.get());
+    }
+
+    @Test
+    void leaderFailureIsPropagatedAndNotRemembered() throws Throwable {
+        WebSearchCoalescer coalescer = new WebSearchCoalescer(60_000L, 10L, null);
+
+        assertThrows(IllegalStateException.class, () -> coalescer.execute(key("boom"), () -> {
+            throw new IllegalStateException("upstream");
+        }, o -> true, 0L, List::of));
+
+        Object out = coalescer.execute(key("boom"), () -> List.of("ok"), o -> true, 0L, List::of);
+        assertEquals(List.of("ok"), out);
+    }
+
+    @Test
+    void joinerWaitIsBoundedByItsOwnTimeout() throws Exception {
+        WebSearchCoalescer coalescer = new WebSearchCoalescer(0L, 10L, null);
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<Object> leader = pool.submit(() -> unchecked(() -> coalescer.execute(key("slow"), () -> {
+                leaderStarted.countDown();
+                release.await(2, TimeUnit.SECONDS);
+                return List.of("late");
+            }, o -> false, 0L, List::of)));
+            assertTrue(leaderStarted.await(1, TimeUnit.SECONDS));
+
+            Object joined = coalescer.execute(key("slow"), () -> List.of("dup"), o -> false, 50L, List::of);
+            assertEquals(List.of(), joined);
+
+            release.countDown();
+            assertEquals(List.of("late"), leader.get(2, TimeUnit.SECONDS));
+        } catch (Throwable t) {
+            throw new AssertionError(t);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void joinersOfAnInterruptedLeaderStartOverInsteadOfSharingItsEmptyResult() throws Exception {
+        WebSearchCoalescer coalescer = new WebSearchCoalescer(60_000L, 10L, null);
+        AtomicInteger upstream = new AtomicInteger();
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch joinerWaiting = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<Object> leader = pool.submit(() -> unchecked(() -> coalescer.execute(key("cancelled"), () -> {
+                upstream.incrementAndGet();
+                leaderStarted.countDown();
+                joinerWaiting.await(2, TimeUnit.SECONDS);
+                Thread.sleep(50L);
+                // the provider swallows the interrupt and maps it to "no results"
+                Thread.currentThread().interrupt();
+                return List.of();
+            }, o -> o instanceof List<?> l && l.isEmpty(), 0L, List::of)));
+            assertTrue(leaderStarted.await(1, TimeUnit.SECONDS));
+            Future<Object> joiner = pool.submit(() -> unchecked(() -> {
+                joinerWaiting.countDown();
+                return coalescer.execute(key("cancelled"), () -> {
+                    upstream.incrementAndGet();
+                    return List.of("fresh");
+                }, o -> o instanceof List<?> l && l.isEmpty(), 0L, List::of);
+            }));
+
+            assertEquals(List.of(), leader.get(2, TimeUnit.SECONDS));
+            assertEquals(List.of("fresh"), joiner.get(2, TimeUnit.SECONDS));
+            assertEquals(2, upstream.get());
+            // the aborted empty result was not negative-cached either
+            assertEquals(List.of("again"), coalescer.execute(key("cancelled"), () -> List.of("again"),
+                    o -> true, 0L, List::of));
+
+            @SuppressWarnings("unchecked")
+            Map<String, Object> brave = (Map<String, Object>) coalescer.snapshot().get("brave");
+            assertEquals(1L, brave.get("leaderAborts"));
+        } catch (Throwable t) {
+            throw new AssertionError(t);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void joinerWithoutTimeoutFallbackMakesItsOwnCallOnceTheBoundElapses() throws Exception {
+        WebSearchCoalescer coalescer = new WebSearchCoalescer(0L, 10L, null);
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<Object> leader = pool.submit(() -> unchecked(() -> coalescer.execute(key("stalled"), () -> {
+                leaderStarted.countDown();
+                release.await(2, TimeUnit.SECONDS);
+                return "late";
+            }, o -> false, 100L, null)));
+            assertTrue(leaderStarted.await(1, TimeUnit.SECONDS));
+
+            long start = System.nanoTime();
+            Object joined = coalescer.execute(key("stalled"), () -> "own", o -> false, 50L, null);
+            assertEquals("own", joined);
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+
+            release.countDown();
+            assertEquals("late", leader.get(2, TimeUnit.SECONDS));
+        } catch (Throwable t) {
+            throw new AssertionError(t);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void canonicalQueryCollapsesWhitespaceAndCase() {
+        assertEquals("seoul weather", WebSearchCoalescer.canonicalQuery("  Seoul\t\n WEATHER  "));
+        assertEquals("", WebSearchCoalescer.canonicalQuery(null));
+    }
+}
@@ -0,0 +1,210 @@
+package com.abandonware.ai.agent.job;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryJobQueueTest {
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    void journalRestoresUnfinishedJobsAfterRestart() throws Exception {
+        Path journal = tmp.resolve("jobs/queue.wal");
+        String done;
+        String inFlight;
+        String queued;
+        try (InMemoryJobQueue queue = journaled(journal, Duration.ofMinutes(5))) {
+            done = queue.enqueue(new JobRequest("index", Map.of("doc", 1), "rid-1", "sid-1"));
+            inFlight = queue.enqueue(new JobRequest("index", Map.of("doc", 2), "rid-2", "sid-1"));
+            queued = queue.enqueue(new JobRequest("index", Map.of("doc", 3, "tags", List.of("a", "b")), "rid-3", "sid-2"));
+            assertThat(queue.dequeue("index", 0)).hasValueSatisfying(r -> assertThat(r.id().value()).isEqualTo(done));
+            queue.ackSuccess(done, new JobResult(Map.of("ok", true)));
+            assertThat(queue.dequeue("index", 0)).hasValueSatisfying(r -> assertThat(r.id().value()).isEqualTo(inFlight));
+        }
+
+        try (InMemoryJobQueue restarted = journaled(journal, Duration.ofMinutes(5))) {
+            JobRecord first = restarted.dequeue("index", 0).orElseThrow();
+            JobRecord second = restarted.dequeue("index", 0).orElseThrow();
+
+            assertThat(first.id().value()).isEqualTo(inFlight);
+            assertThat(first.request().payload()).containsEntry("doc", 2);
+            assertThat(first.request().requestId()).isEqualTo("rid-2");
+            assertThat(second.id().value()).isEqualTo(queued);
+            assertThat(second.request().payload()).containsEntry("tags", List.of("a", "b"));
+            assertThat(restarted.dequeue("index", 0)).isEmpty();
+            assertThat(restarted.find(done)).isEmpty();
+        }
+        // the restart compacted away the finished job
+        assertThat(Files.readAllLines(journal)).noneMatch(line -> line.contains(done));
+    }
+
+    @Test
+    void jobThatCrashesEveryConsumerIsDeadLetteredAcrossRestarts() throws Exception {
+        Path journal = tmp.resolve("jobs/poison.wal");
+        String poison;
+        try (InMemoryJobQueue queue = journaled(journal, Duration.ofMinutes(5))) {
+            poison = queue.enqueue(new JobRequest("index", Map.of("doc", "poison"), "rid-1", "sid-1"));
+        }
+        // each "process" takes the job and dies before acking
+        for (int run = 0; run < 3; run++) {
+            try (InMemoryJobQueue queue = journaled(journal, Duration.ofMinutes(5))) {
+                assertThat(queue.dequeue("index", 0)).hasValueSatisfying(r -> assertThat(r.id().value()).isEqualTo(poison));
+            }
+        }
+
+        try (InMemoryJobQueue restarted = journaled(journal, Duration.ofMinutes(5))) {
+            assertThat(restarted.dequeue("index", 0)).isEmpty();
+            assertThat(restarted.find(poison)).hasValueSatisfying(r -> {
+                assertThat(r.state()).isEqualTo(JobState.DLQ);
+                assertThat(r.attempts()).isEqualTo(3);
+            });
+        }
+        try (InMemoryJobQueue again = journaled(journal, Duration.ofMinutes(5))) {
+            assertThat(again.find(poison)).isEmpty();
+        }
+    }
+
+    @Test
+    void competingConsumersReceiveEachJobExactlyOnce() throws Exception {
+        InMemoryJobQueue queue = new InMemoryJobQueue();
+        int jobs = 2_000;
+        int consumers = 4;
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+        AtomicInteger duplicates = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(consumers + 1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int c = 0; c < consumers; c++) {
+                futures.add(pool.submit(() -> {
+                    while (true) {
+                        Optional<JobRecord> rec = queue.dequeue("crawl", 500);
+                        if (rec.isEmpty()) {
+                            return null;
+                        }
+                        if (!seen.add(rec.get().id().value())) {
+                            duplicates.incrementAndGet();
+                        }
+                        queue.ackSuccess(rec.get().id().value(), new JobResult(Map.of()));
+                    }
+                }));
+            }
+            List<String> ids = new ArrayList<>();
+            for (int i = 0; i < jobs; i++) {
+                ids.add(queue.enqueue(new JobRequest("crawl", Map.of("i", i), null, null)));
+            }
+            for (Future<?> f : futures) {
+                f.get(30, TimeUnit.SECONDS);
+            }
+
+            assertThat(duplicates).hasValue(0);
+            assertThat(seen).hasSize(jobs);
+            assertThat(ids).allSatisfy(id ->
+                    assertThat(queue.find(id).orElseThrow().state()).isEqualTo(JobState.SUCCEEDED));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void blockedConsumerWakesOnEnqueueWithoutPolling() throws Exception {
+        InMemoryJobQueue queue = new InMemoryJobQueue();
+        ExecutorService consumer = Executors.newSingleThreadExecutor();
+        try {
+            long[] latencies = new long[20];
+            for (int i = 0; i < latencies.length; i++) {
+                CountDownLatch started = new CountDownLatch(1);
+                Future<Long> handoff = consumer.submit(() -> {
+                    started.countDown();
+                    queue.dequeue("latency", 5_000).orElseThrow();
+                    return System.nanoTime();
+                });
+                started.await();
+                Thread.sleep(5);
+                long enqueuedAt = System.nanoTime();
+                queue.enqueue(new JobRequest("latency", Map.of(), null, null));
+                latencies[i] = handoff.get(5, TimeUnit.SECONDS) - enqueuedAt;
+            }
+            Arrays.sort(latencies);
+
+            // the old loop slept 50ms between polls, so a median this low rules it out
+            assertThat(TimeUnit.NANOSECONDS.toMillis(latencies[latencies.length / 2])).isLessThan(20L);
+        } finally {
+            consumer.shutdownNow();
+        }
+    }
+
+    @Test
+    void unackedJobIsRedeliveredAfterVisibilityTimeoutThenDeadLettered() {
+        InMemoryJobQueue queue = new InMemoryJobQueue(null, false, Duration.ofMillis(30), 2,
+                Duration.ofMillis(1), Duration.ofHours(1));
+        String id = queue.enqueue(new JobRequest("render", Map.of(), null, null));
+
+        assertThat(queue.dequeue("render", 0)).isPresent();
+        assertThat(queue.dequeue("render", 0)).isEmpty();
+        JobRecord redelivered = queue.dequeue("render", 2_000).orElseThrow();
+
+        assertThat(redelivered.id().value()).isEqualTo(id);
+        assertThat(redelivered.attempts()).isEqualTo(2);
+        assertThat(queue.dequeue("render", 200)).isEmpty();
+        assertThat(queue.find(id).orElseThrow().state()).isEqualTo(JobState.DLQ);
+    }
+
+    @Test
+    void failedJobIsRetriedWithBackoffUntilAttemptsRunOut() {
+        InMemoryJobQueue queue = new InMemoryJobQueue(null, false, Duration.ofMinutes(5), 2,
+                Duration.ofMillis(40), Duration.ofHours(1));
+        String id = queue.enqueue(new JobRequest("mail", Map.of(), null, null));
+
+        queue.dequeue("mail", 0).orElseThrow();
+        queue.ackFailure(id, "smtp timeout", false);
+        assertThat(queue.find(id).orElseThrow().state()).isEqualTo(JobState.PENDING);
+        assertThat(queue.dequeue("mail", 0)).as("retry is held back by the backoff").isEmpty();
+
+        JobRecord retry = queue.dequeue("mail", 2_000).orElseThrow();
+        assertThat(retry.attempts()).isEqualTo(2);
+        queue.ackFailure(id, "smtp timeout", false);
+
+        assertThat(queue.find(id).orElseThrow().state()).isEqualTo(JobState.FAILED);
+        assertThat(queue.dequeue("mail", 100)).isEmpty();
+    }
+
+    @Test
+    void finishedRecordsAreEvictedAfterTtl() throws Exception {
+        InMemoryJobQueue queue = new InMemoryJobQueue(null, false, Duration.ofMinutes(5), 3,
+                Duration.ofSeconds(1), Duration.ofMillis(10));
+        String first = queue.enqueue(new JobRequest("ttl", Map.of(), null, null));
+        queue.dequeue("ttl", 0).orElseThrow();
+        queue.ackFailure(first, "bad input", true);
+        assertThat(queue.find(first).orElseThrow().state()).isEqualTo(JobState.DLQ);
+
+        Thread.sleep(30);
+        String second = queue.enqueue(new JobRequest("ttl", Map.of(), null, null));
+
+        assertThat(queue.find(first)).isEmpty();
+        assertThat(queue.find(second)).isPresent();
+    }
+
+    private static InMemoryJobQueue journaled(Path journal, Duration visibility) {
+        return new InMemoryJobQueue(journal, true, visibility, 3, Duration.ofSeconds(1), Duration.ofHours(1));
+    }
+}
@@ -0,0 +1,306 @@
+package com.abandonware.ai.agent.service.rag.bm25;
+
+import com.abandonware.ai.agent.config.Bm25Props;
+import com.abandonware.ai.service.rag.model.ContextSlice;
+import com.example.lms.entity.TranslationMemory;
+import com.example.lms.repository.TranslationMemoryRepository;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.store.FSDirectory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class Bm25IndexServiceTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2026, 1, 1, 9, 0);
+    private static final List<String> QUERIES = List.of("lucene", "kotlin coroutine", "spring boot", "원신 푸리나", "bm25");
+
+    @TempDir
+    Path tmp;
+
+    private final Map<Long, TranslationMemory> rows = new ConcurrentSkipListMap<>();
+    private final List<Bm25IndexHolder> holders = new ArrayList<>();
+    private int clock;
+
+    @AfterEach
+    void closeHolders() {
+        holders.forEach(Bm25IndexHolder::close);
+    }
+
+    @Test
+    void incrementalChangeBecomesSearchableWithinStalenessBound() throws Exception {
+        put(1, "spring boot transactional propagation");
+        put(2, "lucene near real time search");
+        Bm25IndexHolder holder = holder("nrt", 200);
+        Bm25IndexService service = service(holder);
+        service.rebuildFromTranslationMemory();
+        assertThat(search(holder, "kotlin coroutine")).isEmpty();
+
+        put(3, "kotlin coroutine flow cancellation");
+        long start = System.nanoTime();
+        assertThat(service.syncChanges()).isGreaterThanOrEqualTo(1);
+        while (search(holder, "kotlin coroutine").isEmpty()
+                && System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5)) {
+            Thread.sleep(5);
+        }
+        long visibleMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertThat(search(holder, "kotlin coroutine")).containsExactly("h3");
+        // reopen thread target is 200ms; leave room for a slow CI box but rule out "only after a rebuild"
+        assertThat(visibleMs).isLessThan(1_000L);
+
+        long gen = service.upsert(put(4, "bm25 scoring with idf saturation"));
+        assertThat(service.awaitVisible(gen, 1_000)).isTrue();
+        assertThat(search(holder, "bm25")).containsExactly("h4");
+    }
+
+    @Test
+    void incrementalIndexReturnsSameHitsAsFullRebuild() throws Exception {
+        put(1, "spring boot transactional propagation");
+        put(2, "lucene near real time search");
+        put(3, "원신 푸리나 공략");
+        Bm25IndexHolder incrementalHolder = holder("incremental", 50);
+        Bm25IndexService incremental = service(incrementalHolder);
+        incremental.rebuildFromTranslationMemory();
+
+        put(4, "kotlin coroutine flow");
+        put(5, "bm25 lucene scoring");
+        put(1, "spring boot kotlin coroutine support");   // content update
+        incremental.syncChanges();
+        rows.remove(2L);
+        incremental.remove(2L);
+        incrementalHolder.refreshIfNeeded();
+
+        Bm25IndexHolder fullHolder = holder("full", 50);
+        service(fullHolder).rebuildFromTranslationMemory();
+
+        assertThat(incrementalHolder.numDocs()).isEqualTo(fullHolder.numDocs()).isEqualTo(4);
+        for (String q : QUERIES) {
+            assertThat(search(incrementalHolder, q)).as(q).isEqualTo(search(fullHolder, q));
+        }
+
+        // compaction keeps the same answers
+        incremental.compact();
+        for (String q : QUERIES) {
+            assertThat(search(incrementalHolder, q)).as(q).isEqualTo(search(fullHolder, q));
+        }
+    }
+
+    @Test
+    void updateToAnOlderRowIsPickedUpWhenANewerRowIsInsertedInTheSamePoll() {
+        put(1, "spring boot transactional propagation");
+        put(2, "lucene near real time search");
+        Bm25IndexHolder holder = holder("same-poll", 50);
+        Bm25IndexService service = service(holder);
+        service.rebuildFromTranslationMemory();
+        put(3, "원신 푸리나 공략");
+        service.syncChanges();
+
+        put(1, "kotlin coroutine structured concurrency");   // update first ...
+        put(4, "bm25 scoring with idf saturation");          // ... then a newer insert
+        service.syncChanges();
+        holder.refreshIfNeeded();
+
+        assertThat(search(holder, "kotlin coroutine")).containsExactly("h1");
+        assertThat(search(holder, "bm25")).containsExactly("h4");
+        assertThat(search(holder, "spring boot")).isEmpty();
+    }
+
+    @Test
+    void rowsSharingOneUpdatedAtBeyondTheBatchSizeAreAllIndexed() {
+        put(1, "spring boot");
+        Bm25IndexHolder holder = holder("same-second", 50);
+        Bm25IndexService service = service(holder, 2);
+        service.rebuildFromTranslationMemory();
+
+        LocalDateTime sameSecond = T0.plusHours(1);
+        for (long id = 1; id <= 5; id++) {
+            put(id, "bulk update lucene row " + id).setUpdatedAt(sameSecond);
+        }
+        assertThat(service.syncChanges()).isGreaterThanOrEqualTo(5);
+        holder.refreshIfNeeded();
+
+        assertThat(search(holder, "bulk update lucene")).hasSize(5);
+        assertThat(search(holder, "spring boot")).isEmpty();
+        assertThat(service.syncChanges()).as("cursor moved past the shared second").isZero();
+    }
+
+    @Test
+    void compactionDropsRowsDeletedWithoutNotice() {
+        put(1, "spring boot");
+        put(2, "lucene search");
+        Bm25IndexHolder holder = holder("compact", 50);
+        Bm25IndexService service = service(holder);
+        service.rebuildFromTranslationMemory();
+
+        rows.remove(2L);
+        service.compact();
+
+        assertThat(search(holder, "lucene")).isEmpty();
+        assertThat(holder.numDocs()).isEqualTo(1);
+    }
+
+    @Test
+    void restartResumesFromCommittedCursorInsteadOfRebuilding() {
+        put(1, "spring boot");
+        Bm25IndexHolder first = holder("restart", 50);
+        service(first).rebuildFromTranslationMemory();
+        first.close();
+        holders.remove(first);
+
+        put(2, "lucene search");
+        Bm25IndexHolder reopened = holder("restart", 50);
+        Bm25IndexService service = service(reopened);
+
+        assertThat(service.hasCursor()).isTrue();
+        assertThat(service.syncChanges()).isEqualTo(1);
+        reopened.refreshIfNeeded();
+        assertThat(search(reopened, "spring")).containsExactly("h1");
+        assertThat(search(reopened, "lucene")).containsExactly("h2");
+    }
+
+    @Test
+    void firstRebuildReplacesDocumentsFromTheUnkeyedIndexInsteadOfDuplicatingThem() throws Exception {
+        // The pre-NRT index: same stored fields, no tmId key and no epoch.
+        try (FSDirectory dir = FSDirectory.open(tmp.resolve("legacy"));
+             IndexWriter legacy = new IndexWriter(dir, new IndexWriterConfig(new StandardAnalyzer()))) {
+            for (long id = 1; id <= 2; id++) {
+                Document doc = new Document();
+                doc.add(new StringField("id", "h" + id, Field.Store.YES));
+                doc.add(new StringField("title", "translation_memory", Field.Store.YES));
+                doc.add(new TextField("content", "spring boot legacy row " + id, Field.Store.YES));
+                legacy.addDocument(doc);
+            }
+        }
+        put(1, "spring boot legacy row 1");
+        put(2, "spring boot legacy row 2");
+        Bm25IndexHolder holder = holder("legacy", 50);
+        Bm25IndexService service = service(holder);
+        assertThat(service.hasCursor()).isFalse();
+
+        service.rebuildFromTranslationMemory();
+
+        assertThat(holder.numDocs()).isEqualTo(2);
+        assertThat(search(holder, "spring boot")).containsExactlyInAnyOrder("h1", "h2");
+    }
+
+    @Test
+    void incrementalSyncKeepsTheIndexAtMaxDocsLikeAFullRebuild() {
+        put(1, "spring boot transactional propagation");
+        put(2, "lucene near real time search");
+        put(3, "원신 푸리나 공략");
+        Bm25IndexHolder incrementalHolder = holder("capped", 50);
+        Bm25IndexService incremental = service(incrementalHolder, 500, 3);
+        incremental.rebuildFromTranslationMemory();
+
+        put(4, "kotlin coroutine flow");
+        put(5, "bm25 lucene scoring");
+        incremental.syncChanges();
+        incrementalHolder.refreshIfNeeded();
+
+        Bm25IndexHolder fullHolder = holder("capped-full", 50);
+        service(fullHolder, 500, 3).rebuildFromTranslationMemory();
+
+        assertThat(incrementalHolder.numDocs()).isEqualTo(fullHolder.numDocs()).isEqualTo(3);
+        for (String q : QUERIES) {
+            assertThat(search(incrementalHolder, q)).as(q).isEqualTo(search(fullHolder, q));
+        }
+    }
+
+    private TranslationMemory put(long id, String content) {
+        TranslationMemory tm = TranslationMemory.builder()
+                .id(id)
+                .sourceHash("h" + id)
+                .content(content)
+                .updatedAt(T0.plusSeconds(10L * ++clock))
+                .build();
+        rows.put(id, tm);
+        return tm;
+    }
+
+    private Bm25IndexHolder holder(String dir, long maxStaleMs) {
+        Bm25IndexHolder holder = new Bm25IndexHolder(tmp.resolve(dir), maxStaleMs, 10L);
+        holders.add(holder);
+        return holder;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Bm25IndexService service(Bm25IndexHolder holder) {
+        return service(holder, 500);
+    }
+
+    private Bm25IndexService service(Bm25IndexHolder holder, int batchSize) {
+        return service(holder, batchSize, 20_000);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Bm25IndexService service(Bm25IndexHolder holder, int batchSize, int maxDocs) {
+        TranslationMemoryRepository repo = mock(TranslationMemoryRepository.class);
+        when(repo.findAll(any(Pageable.class))).thenAnswer(inv -> {
+            Pageable p = inv.getArgument(0);
+            List<TranslationMemory> all = rows.values().stream()
+                    .sorted(Comparator.comparing(TranslationMemory::getId).reversed())
+                    .toList();
+            int from = (int) Math.min(all.size(), p.getOffset());
+            int to = Math.min(all.size(), from + p.getPageSize());
+            return new PageImpl<>(all.subList(from, to), p, all.size());
+        });
+        when(repo.findByIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class))).thenAnswer(inv -> {
+            long after = inv.getArgument(0);
+            Pageable p = inv.getArgument(1);
+            return rows.values().stream().filter(r -> r.getId() > after).limit(p.getPageSize()).toList();
+        });
+        when(repo.findChangedAfter(any(LocalDateTime.class), anyLong(), any(Pageable.class)))
+                .thenAnswer(inv -> {
+                    LocalDateTime at = inv.getArgument(0);
+                    long afterId = inv.getArgument(1);
+                    Pageable p = inv.getArgument(2);
+                    return rows.values().stream()
+                            .filter(r -> r.getUpdatedAt().isAfter(at)
+                                    || (r.getUpdatedAt().isEqual(at) && r.getId() > afterId))
+                            .sorted(Comparator.comparing(TranslationMemory::getUpdatedAt)
+                                    .thenComparing(TranslationMemory::getId))
+                            .limit(p.getPageSize())
+                            .toList();
+                });
+        ObjectProvider<TranslationMemoryRepository> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(repo);
+
+        Bm25Props props = new Bm25Props();
+        props.setNrtCommitIntervalMs(0);
+        props.setNrtBatchSize(batchSize);
+        props.setMaxDocs(maxDocs);
+        return new Bm25IndexService(props, holder, provider);
+    }
+
+    private static List<String> search(Bm25IndexHolder holder, String query) {
+        Bm25Props props = new Bm25Props();
+        return new Bm25LocalRetriever(props, holder).retrieve(query, 10).stream()
+                .map(ContextSlice::getId)
+                .toList();
+    }
+}
@@ -0,0 +1,317 @@
+package com.abandonware.ai.service.rag.fusion;
+
+import com.abandonware.ai.ml.SoftmaxUtils;
+import com.abandonware.ai.service.rag.model.ContextSlice;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * The frame-based adapters must reproduce the Map/String implementations they replaced. The legacy bodies are
+ * kept here verbatim (keying aside) as the reference.
+ */
+class FusionEngineParityTest {
+
+    private static final String[] HOSTS = {"https://news.example.com", "https://www.korea.go.kr", "https://lab.snu.ac.kr",
+            "http://Blog.Example.org", "https://docs.example.io"};
+
+    @Test
+    void rrfFusionMatchesLegacyScores() {
+        Random rnd = new Random(7);
+        for (int round = 0; round < 200; round++) {
+            List<List<Map<String, Object>>> sources = mapLanes(rnd, 1 + rnd.nextInt(4), rnd.nextInt(30));
+            List<Map<String, Object>> actual = new RrfFusion().fuse(sources, 0);
+            Map<String, Double> expected = legacyRrf(sources);
+
+            assertThat(actual).hasSize(expected.size());
+            double prev = Double.POSITIVE_INFINITY;
+            for (Map<String, Object> m : actual) {
+                double s = (Double) m.get("rrfScore");
+                assertThat(s).isEqualTo(expected.get(RrfFusion.keyOf(m)));
+                assertThat(s).isLessThanOrEqualTo(prev);
+                prev = s;
+            }
+        }
+        List<List<Map<String, Object>>> sources = mapLanes(new Random(1), 3, 20);
+        assertThat(new RrfFusion().fuse(sources, 5)).hasSize(5);
+    }
+
+    @Test
+    void weightedRrfMatchesLegacyOrderAndScores() {
+        Random rnd = new Random(11);
+        Map<String, Double> weights = Map.of("web", 1.0, "vector", 0.9, "kg", 0.6);
+        ScoreCalibrator calibrator = new MpLawCalibrator();
+        for (int round = 0; round < 200; round++) {
+            List<List<ContextSlice>> sources = sliceLanes(rnd, 1 + rnd.nextInt(4), rnd.nextInt(30));
+            for (boolean dedup : new boolean[]{false, true}) {
+                for (ScoreCalibrator cal : new ScoreCalibrator[]{null, calibrator}) {
+                    List<ContextSlice> actual = new WeightedRRF().fuseToList(sources, 60, weights, cal, dedup);
+                    List<ContextSlice> expected = legacyWeightedRrf(sources, 60, weights, cal, dedup);
+                    assertThat(actual).hasSize(expected.size());
+                    for (int i = 0; i < expected.size(); i++) {
+                        ContextSlice e = expected.get(i);
+                        ContextSlice a = actual.get(i);
+                        assertThat(a.getId()).as("round %d pos %d", round, i).isEqualTo(e.getId());
+                        assertThat(a.getSource()).isEqualTo(e.getSource());
+                        assertThat(a.getRank()).isEqualTo(e.getRank());
+                        assertThat(a.getScore()).isCloseTo(e.getScore(), within(1e-12));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void staticBranchFuseMatchesLegacy() {
+        Random rnd = new Random(23);
+        for (int round = 0; round < 200; round++) {
+            List<List<Map<String, Object>>> branches = mapLanes(rnd, 1 + rnd.nextInt(4), rnd.nextInt(30));
+            int topK = 1 + rnd.nextInt(40);
+            Map<String, Double> expected = legacyBranchFuse(branches, topK);
+
+            List<Map<String, Object>> actual = service.rag.fusion.WeightedRRF.fuse(branches, topK);
+            assertThat(actual).hasSize(Math.min(topK, expected.size()));
+            double prev = Double.POSITIVE_INFINITY;
+            for (Map<String, Object> m : actual) {
+                double s = (Double) m.get("score");
+                assertThat(s).isCloseTo(expected.get(String.valueOf(m.get("id"))), within(1e-15));
+                assertThat(s).isLessThanOrEqualTo(prev);
+                prev = s;
+            }
+            assertThat(com.example.rag.fusion.WeightedRRF.fuse(branches, topK)).isEqualTo(actual);
+        }
+    }
+
+    @Test
+    void scalarKernelsMatchLegacy() {
+        Random rnd = new Random(3);
+        WpmFuser wpm = new WpmFuser();
+        for (int i = 0; i < 1000; i++) {
+            int n = 1 + rnd.nextInt(5);
+            List<Double> xs = new ArrayList<>();
+            List<Double> ws = new ArrayList<>();
+            for (int j = 0; j < n; j++) {
+                xs.add(rnd.nextInt(10) == 0 ? null : rnd.nextDouble() * 2 - 0.2);
+                ws.add(rnd.nextInt(10) == 0 ? null : rnd.nextDouble());
+            }
+            double p = 0.25 + rnd.nextDouble() * 4;
+            assertThat(wpm.wpm(xs, ws, p)).isEqualTo(legacyWpm(xs, ws, p));
+            assertThat(wpm.wpm(xs, null, p)).isEqualTo(legacyWpm(xs, null, p));
+
+            double raw = rnd.nextDouble() * 3 - 1;
+            assertThat(new MpLawCalibrator().normalize(raw, "web")).isEqualTo(Math.min(1.5, Math.max(0, raw)) / 1.5);
+        }
+        assertThat(new MpLawCalibrator().normalize(Double.NaN, "web")).isZero();
+
+        double[] xs = {0.0, 0.2, 0.5, 1.0};
+        double[] ys = {0.0, 0.1, 0.6, 1.0};
+        strategy.score.IsotonicRegressionCalibrator iso = new strategy.score.IsotonicRegressionCalibrator(xs, ys);
+        assertThat(iso.calibrate(-1)).isEqualTo(0.0);
+        assertThat(iso.calibrate(0.5)).isEqualTo(0.6);
+        assertThat(iso.calibrate(0.35)).isCloseTo(0.35, within(1e-12));
+        assertThat(iso.calibrate(2)).isEqualTo(1.0);
+    }
+
+    @Test
+    void localeBoostFastPathMatchesUri() {
+        LocaleBoostPolicy policy = new LocaleBoostPolicy();
+        List<String> ids = List.of("https://www.korea.go.kr/a", "HTTPS://WWW.KOREA.GO.KR", "https://lab.snu.ac.kr:8443/x?y=1#z",
+                "https://example.com/kr", "https://example.kr.", "https://user@site.kr/", "https://[::1]/", "https://1.2.3.4/",
+                "https://a_b.kr/", "https://site.kr/%20", "https://site.kr/a#b#c", "doc-17", "", "https://-x.kr/",
+                "svn+ssh://repo.kr/trunk", "https://a..kr/");
+        for (String id : ids) {
+            ContextSlice c = new ContextSlice(id, null, null, "web", 0.5, 1);
+            assertThat(policy.multiplier(c)).as(id).isEqualTo(legacyLocaleBoost(id));
+        }
+    }
+
+    // ---------------------------------------------------------------- fixtures
+
+    private static List<List<Map<String, Object>>> mapLanes(Random rnd, int lanes, int size) {
+        List<List<Map<String, Object>>> out = new ArrayList<>();
+        for (int l = 0; l < lanes; l++) {
+            if (rnd.nextInt(8) == 0) {
+                out.add(null);
+                continue;
+            }
+            List<Map<String, Object>> lane = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                int doc = rnd.nextInt(size + 5);
+                Map<String, Object> m = new LinkedHashMap<>();
+                int kind = rnd.nextInt(10);
+                if (kind == 0) {
+                    lane.add(null);
+                    continue;
+                }
+                if (kind > 1) m.put("id", "doc-" + doc);
+                if (kind > 5) m.put("url", HOSTS[doc % HOSTS.length] + "/p/" + doc + (rnd.nextBoolean() ? "?utm_source=x" : ""));
+                m.put("score", rnd.nextDouble() * 1.4 - 0.2);
+                lane.add(m);
+            }
+            out.add(lane);
+        }
+        return out;
+    }
+
+    private static List<List<ContextSlice>> sliceLanes(Random rnd, int lanes, int size) {
+        String[] sources = {"web", "vector", "kg", null};
+        List<List<ContextSlice>> out = new ArrayList<>();
+        for (int l = 0; l < lanes; l++) {
+            if (rnd.nextInt(8) == 0) {
+                out.add(null);
+                continue;
+            }
+            List<ContextSlice> lane = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                int doc = rnd.nextInt(size + 5);
+                String id = switch (rnd.nextInt(6)) {
+                    case 0 -> null;
+                    case 1, 2 -> "doc-" + doc;
+                    default -> HOSTS[doc % HOSTS.length] + "/p/" + doc + (rnd.nextBoolean() ? "/?gclid=1" : "");
+                };
+                // coarse scores so ties (and therefore ordering rules) are exercised
+                double score = rnd.nextInt(8) * 0.25;
+                lane.add(new ContextSlice(id, "t" + doc, "s" + doc, sources[rnd.nextInt(sources.length)], score, i + 1));
+            }
+            out.add(lane);
+        }
+        return out;
+    }
+
+    // ---------------------------------------------------------------- legacy reference implementations
+
+    private static Map<String, Double> legacyRrf(List<List<Map<String, Object>>> sources) {
+        double K = 60.0;
+        Map<String, Double> score = new HashMap<>();
+        for (List<Map<String, Object>> list : sources) {
+            if (list == null) continue;
+            double w = 1.0;
+            int r = 1;
+            for (Map<String, Object> m : list) {
+                String key = RrfFusion.keyOf(m);
+                if (key == null) continue;
+                score.put(key, score.getOrDefault(key, 0.0) + (w / (K + r)));
+                r++;
+            }
+        }
+        return score;
+    }
+
+    private static List<ContextSlice> legacyWeightedRrf(List<List<ContextSlice>> sources, int k,
+                                                        Map<String, Double> sourceWeights,
+                                                        ScoreCalibrator calibrator, boolean dedupByCanonical) {
+        DocumentKeyNormalizer keyNorm = new DocumentKeyNormalizer();
+        LocaleBoostPolicy localeBoost = new LocaleBoostPolicy();
+        List<List<ContextSlice>> pre = new ArrayList<>();
+        for (List<ContextSlice> list : sources) {
+            if (list == null) continue;
+            List<ContextSlice> tmp = new ArrayList<>(list.size());
+            for (int i = 0; i < list.size(); i++) {
+                ContextSlice c = list.get(i);
+                String src = c.getSource() == null ? "default" : c.getSource();
+                double s = c.getScore();
+                if (calibrator != null) s = calibrator.normalize(s, src);
+                s *= localeBoost.multiplier(c);
+                tmp.add(new ContextSlice(c.getId(), c.getTitle(), c.getSnippet(), src, s, i + 1));
+            }
+            pre.add(tmp);
+        }
+        if (dedupByCanonical) {
+            List<List<ContextSlice>> deduped = new ArrayList<>();
+            for (List<ContextSlice> list : pre) {
+                List<ContextSlice> m = new ArrayList<>(keyNorm.mergeByCanonicalKey(list).values());
+                m.sort(Comparator.comparingDouble(ContextSlice::getScore).reversed());
+                for (int i = 0; i < m.size(); i++) m.get(i).setRank(i + 1);
+                deduped.add(m);
+            }
+            pre = deduped;
+        }
+        Map<String, Double> weights = new HashMap<>(sourceWeights == null ? Map.of() : sourceWeights);
+        Map<String, Double> fusedScore = new LinkedHashMap<>();
+        Map<String, ContextSlice> repr = new LinkedHashMap<>();
+        for (List<ContextSlice> list : pre) {
+            for (ContextSlice c : list) {
+                String key = keyNorm.keyOf(c);
+                if (key == null) continue;
+                double w = weights.getOrDefault(c.getSource(), 1.0);
+                fusedScore.merge(key, w / (k + c.getRank()), Double::sum);
+                ContextSlice prev = repr.get(key);
+                if (prev == null || c.getScore() > prev.getScore()) repr.put(key, c);
+            }
+        }
+        List<Map.Entry<String, Double>> entries = new ArrayList<>(fusedScore.entrySet());
+        entries.sort((a, b) -> Double.compare(b.getValue(), a.getValue()));
+        double[] logits = new double[entries.size()];
+        for (int i = 0; i < entries.size(); i++) logits[i] = entries.get(i).getValue();
+        double[] prob = SoftmaxUtils.stableSoftmax(logits, 1.0);
+        List<ContextSlice> out = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            ContextSlice base = repr.get(entries.get(i).getKey());
+            out.add(new ContextSlice(base.getId(), base.getTitle(), base.getSnippet(), base.getSource(), prob[i], i + 1));
+        }
+        return out;
+    }
+
+    private static Map<String, Double> legacyBranchFuse(List<List<Map<String, Object>>> perBranch, int topK) {
+        Map<String, Double> agg = new HashMap<>();
+        int kk = Math.max(1, topK);
+        for (List<Map<String, Object>> list : perBranch) {
+            if (list == null) continue;
+            int r = 1;
+            for (Map<String, Object> m : list) {
+                if (m == null || m.get("id") == null) { r++; continue; }
+                double raw = 0.0;
+                Object sc = m.get("score");
+                if (sc instanceof Number) raw = ((Number) sc).doubleValue();
+                double term = 1.0 / (kk + r);
+                agg.merge(String.valueOf(m.get("id")), term * (0.75 + 0.5 * (raw < 0 ? 0 : (raw > 1 ? 1 : raw))), Double::sum);
+                r++;
+            }
+        }
+        agg.replaceAll((k, v) -> Math.tanh(v));
+        return agg;
+    }
+
+    private static double legacyWpm(List<Double> xs, List<Double> ws, double p) {
+        if (ws == null || ws.size() != xs.size()) {
+            ws = new ArrayList<>(java.util.Collections.nCopies(xs.size(), 1.0d));
+        }
+        double num = 0.0d, den = 0.0d;
+        for (int i = 0; i < xs.size(); i++) {
+            Double xv = xs.get(i);
+            Double wv = ws.get(i);
+            double x = Math.max(xv == null ? 0.0d : xv, 1e-9);
+            double w = wv == null ? 1.0d : wv;
+            num += w * Math.pow(x, p);
+            den += w;
+        }
+        if (den == 0.0d) return 0.0d;
+        return Math.pow(num / den, 1.0d / p);
+    }
+
+    private static double legacyLocaleBoost(String id) {
+        try {
+            URI u = URI.create(id);
+            String host = u.getHost();
+            if (host == null) return 1.0;
+            String h = host.toLowerCase(Locale.ROOT);
+            for (String suffix : List.of(".go.kr", ".gov.kr", ".ac.kr", ".kr")) {
+                if (h.endsWith(suffix)) return 1.05;
+            }
+            return 1.0;
+        } catch (Exception e) {
+            return 1.0;
+        }
+    }
+}
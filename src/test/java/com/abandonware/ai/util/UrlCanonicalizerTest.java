@@ -0,0 +1,84 @@
+package com.abandonware.ai.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UrlCanonicalizerTest {
+
+    private static final List<String> CORPUS = List.of(
+            "https://example.com",
+            "https://example.com/",
+            "HTTPS://Example.COM/Path/",
+            "http://example.com:80/a",
+            "https://example.com:443/a",
+            "https://example.com:8443/a?x=1",
+            "https://example.com:0080/a",
+            "https://example.com/a?utm_source=x&id=7&fbclid=abc#frag",
+            "https://example.com/a?UTM_Medium=x&Ref=y&ref_src=z&gclid=1",
+            "https://example.com/a?b&c=&&d=4",
+            "https://example.com/a?x=1&x=2",
+            "https://example.com/a?next=/b/",
+            "https://example.com?x=1",
+            "https://example.com#top",
+            "https://example.com/a#b#c",
+            "https://sub-domain.example.co.kr./news",
+            "https://user:pw@example.com/a",
+            "https://[::1]:8080/a",
+            "https://127.0.0.1/a",
+            "https://under_score.example.com/a",
+            "https://example.com/%7Euser/?q=%20",
+            "https://example.com/검색?q=한글",
+            "https://example.com:/a",
+            "https://-bad.example.com/a",
+            "http://",
+            "ftp://example.com/a",
+            "not a url",
+            "");
+
+    @Test
+    void fastPathMatchesUriPathOnCorpus() {
+        for (String url : CORPUS) {
+            assertThat(UrlCanonicalizer.canonicalKey(url)).as(url).isEqualTo(UrlCanonicalizer.slowCanonicalKey(url));
+        }
+    }
+
+    @Test
+    void fastPathMatchesUriPathOnRandomUrls() {
+        String[] schemes = {"http://", "https://", "HTTP://", "Https://"};
+        String[] hosts = {"example.com", "Example.COM", "a.b-c.kr", "x.go.kr.", "h_1.io", "1.2.3.4", "a..b", "b-.com", "k"};
+        String[] ports = {"", ":80", ":443", ":8080", ":007", ":", ":99999"};
+        String alphabet = "abAB09-._~/:@!$&'()*+,;=?#%";
+        String[] params = {"utm_source", "ref", "ref_x", "gclid", "fbclid", "id", "q", "Id", ""};
+        Random rnd = new Random(42);
+        for (int iter = 0; iter < 20_000; iter++) {
+            StringBuilder sb = new StringBuilder();
+            sb.append(schemes[rnd.nextInt(schemes.length)]);
+            sb.append(hosts[rnd.nextInt(hosts.length)]);
+            sb.append(ports[rnd.nextInt(ports.length)]);
+            int pathLen = rnd.nextInt(6);
+            for (int i = 0; i < pathLen; i++) sb.append(alphabet.charAt(rnd.nextInt(alphabet.length())));
+            if (rnd.nextBoolean()) {
+                sb.append('?');
+                int n = rnd.nextInt(4);
+                for (int i = 0; i < n; i++) {
+                    if (i > 0) sb.append('&');
+                    sb.append(params[rnd.nextInt(params.length)]);
+                    if (rnd.nextInt(4) > 0) sb.append('=').append(rnd.nextInt(3) == 0 ? "v/" : "v" + i);
+                }
+            }
+            if (rnd.nextInt(4) == 0) sb.append("#f");
+            String url = sb.toString();
+            assertThat(UrlCanonicalizer.canonicalKey(url)).as(url).isEqualTo(UrlCanonicalizer.slowCanonicalKey(url));
+        }
+    }
+
+    @Test
+    void alreadyCanonicalUrlIsReturnedAsIs() {
+        String url = "https://example.com/a/b?id=7&q=x";
+        assertThat(UrlCanonicalizer.canonicalKey(url)).isSameAs(url);
+    }
+}
@@ -2,6 +2,7 @@ package com.example.lms.api;
 
 import com.example.lms.domain.ChatMessage;
 import com.example.lms.domain.ChatSession;
+import com.example.lms.repository.ChatTraceRecordRepository;
 import com.example.lms.service.SettingsService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
@@ -89,6 +90,73 @@ class ChatSessionDetailResponseBuilderTest {
         assertEquals("hello", body.messages().get(0).content());
     }
 
+    @Test
+    void legacyInlineTraceRowsAreSkippedEvenWithTraceExposureOn() {
+        LocalDateTime now = LocalDateTime.of(2026, 6, 12, 15, 7);
+        String b64 = java.util.Base64.getEncoder().encodeToString("<div>old</div>".getBytes(StandardCharsets.UTF_8));
+        ChatSession session = ChatSession.builder()
+                .id(102L)
+                .title("saved chat")
+                .createdAt(now)
+                .messages(List.of(
+                        message(1L, "system", "?TRACE?<div>raw</div>", now),
+                        message(2L, "system", "?TRACE64?" + b64, now.plusSeconds(1)),
+                        message(3L, "user", "hello", now.plusSeconds(2))))
+                .build();
+
+        ChatApiController.SessionDetail body = ChatSessionDetailResponseBuilder.build(session, "guest",
+                objectMapper, Map.of(), true,
+                LoggerFactory.getLogger(ChatSessionDetailResponseBuilderTest.class)).getBody();
+
+        assertNotNull(body);
+        assertEquals(List.of("user"), body.messages().stream().map(ChatApiController.MessageDto::role).toList());
+    }
+
+    @Test
+    void historyQuerySkipsLegacyInlineTraceRows() throws Exception {
+        String repository = Files.readString(
+                Path.of("main/java/com/example/lms/repository/ChatMessageRepository.java"), StandardCharsets.UTF_8);
+        String history = Files.readString(
+                Path.of("main/java/com/example/lms/service/ChatHistoryServiceImpl.java"), StandardCharsets.UTF_8);
+
+        for (String prefix : List.of("⎔TRACE⎔", "⎔TRACE64⎔", "?TRACE?", "?TRACE64?")) {
+            assertTrue(repository.contains("m.content LIKE '" + prefix + "%'"), prefix);
+        }
+        assertTrue(history.contains("messageRepository.findHistoryBySessionId(id)"));
+    }
+
+    @Test
+    void traceRecordRefsRestoreAsLazyCardsInTimestampOrder() {
+        LocalDateTime now = LocalDateTime.of(2026, 6, 12, 15, 10);
+        ChatSession session = ChatSession.builder()
+                .id(101L)
+                .title("saved chat")
+                .createdAt(now)
+                .messages(List.of(
+                        message(1L, "user", "hello", now),
+                        message(2L, "assistant", "answer", now.plusSeconds(2))))
+                .build();
+        // record ids come from their own sequence and may equal a message id
+        List<ChatTraceRecordRepository.Ref> refs = List.of(ref(2L, now.plusSeconds(1)));
+
+        ChatApiController.SessionDetail exposed = ChatSessionDetailResponseBuilder.build(session, "guest",
+                objectMapper, Map.of(), true, refs,
+                LoggerFactory.getLogger(ChatSessionDetailResponseBuilderTest.class)).getBody();
+        ChatApiController.SessionDetail hidden = ChatSessionDetailResponseBuilder.build(session, "guest",
+                objectMapper, Map.of(), false, refs,
+                LoggerFactory.getLogger(ChatSessionDetailResponseBuilderTest.class)).getBody();
+
+        assertNotNull(exposed);
+        assertEquals(List.of("user", "system", "assistant"),
+                exposed.messages().stream().map(ChatApiController.MessageDto::role).toList());
+        assertEquals(-2L, exposed.messages().get(1).turnId());
+        assertEquals(2L, exposed.messages().get(2).turnId());
+        assertTrue(exposed.messages().get(1).content().contains("data-trace-record-id=\"2\""));
+        assertTrue(exposed.messages().get(1).content().contains("/api/chat/trace/2/html"));
+        assertNotNull(hidden);
+        assertEquals(2, hidden.messages().size());
+    }
+
     @Test
     void sessionMetaParseFailureLogsHashAndLengthOnly() throws Exception {
         String source = Files.readString(
@@ -100,6 +168,25 @@ class ChatSessionDetailResponseBuilderTest {
         assertFalse(source.contains("SafeRedactor.safeMessage(e.getMessage(), 180)"));
     }
 
+    private static ChatTraceRecordRepository.Ref ref(Long id, LocalDateTime createdAt) {
+        return new ChatTraceRecordRepository.Ref() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Long getSessionId() {
+                return 101L;
+            }
+
+            @Override
+            public LocalDateTime getCreatedAt() {
+                return createdAt;
+            }
+        };
+    }
+
     private static ChatMessage message(Long id, String role, String content, LocalDateTime createdAt) {
         return ChatMessage.builder()
                 .id(id)
@@ -0,0 +1,204 @@
+package com.example.lms.conversation.archive;
+
+import com.example.lms.search.TraceStore;
+import com.example.lms.service.VectorStoreService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ConversationArchiveIngestJobServiceTest {
+
+    private VectorStoreService vectorStoreService;
+    private ConversationArchiveIngestService ingestService;
+    private ConversationArchiveIngestJobService jobs;
+
+    @BeforeEach
+    void setUp() {
+        TraceStore.clear();
+        vectorStoreService = mock(VectorStoreService.class);
+        ingestService = new ConversationArchiveIngestService(vectorStoreService, provider(null));
+        jobs = new ConversationArchiveIngestJobService(ingestService, 1, 4, 3, 2048, 1_000L, 5L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobs.shutdown();
+        TraceStore.clear();
+    }
+
+    @Test
+    void jobCompletesWithSameReportAsSynchronousIngest() throws Exception {
+        MockMultipartFile zip = multiEntryZip(12, 6);
+
+        ConversationArchiveIngestReport sync = ingestService.ingest(List.of(zip), "sid-1");
+        ConversationArchiveIngestJobService.JobStatus submitted = jobs.submit(List.of(zip), "sid-1");
+        ConversationArchiveIngestJobService.JobStatus done = awaitTerminal(submitted.jobId(), "sid-1");
+
+        assertThat(done.state()).isEqualTo(ConversationArchiveIngestJobService.State.COMPLETED);
+        assertThat(done.partial().counts()).isEqualTo(sync.counts());
+        assertThat(done.partial().tree()).isEqualTo(sync.tree());
+        assertThat(done.partial().ingestedCount()).isEqualTo(sync.ingestedCount());
+        assertThat(done.recordCount()).isEqualTo(72);
+        assertThat(done.mergedTxtEntryCount()).isEqualTo(12);
+    }
+
+    @Test
+    void parallelPipelinePreservesChunkOrderAndRecordBudget() throws Exception {
+        MockMultipartFile zip = multiEntryZip(30, 200);
+        List<String> syncIds = new ArrayList<>();
+        when(vectorStoreService.pendingSize()).thenReturn(0);
+        org.mockito.Mockito.doAnswer(inv -> syncIds.add(inv.getArgument(0)))
+                .when(vectorStoreService).enqueue(anyString(), anyString(), anyString(), anyMap());
+        ConversationArchiveIngestReport sync = ingestService.ingest(List.of(zip), "sid-1");
+        List<String> expected = List.copyOf(syncIds);
+        syncIds.clear();
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        List<ConversationArchiveIngestService.Progress> progress = new ArrayList<>();
+        try {
+            ConversationArchiveIngestReport parallel = ingestService.ingestSources(
+                    List.of(zip), "sid-1", pool, 8,
+                    new ConversationArchiveIngestService.Pipeline(100, 100L), progress::add);
+
+            assertThat(parallel.truncated()).isTrue();
+            assertThat(parallel.counts()).isEqualTo(sync.counts());
+            assertThat(syncIds).isEqualTo(expected);
+            assertThat(progress).isNotEmpty();
+            assertThat(progress.get(progress.size() - 1).recordCount()).isEqualTo(5000);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void backpressurePausesWhileVectorBufferIsFull() throws Exception {
+        MockMultipartFile zip = multiEntryZip(2, 4);
+        AtomicInteger polls = new AtomicInteger();
+        when(vectorStoreService.pendingSize()).thenAnswer(inv -> polls.incrementAndGet() <= 3 ? 500 : 0);
+
+        List<ConversationArchiveIngestService.Progress> progress = new ArrayList<>();
+        ingestService.ingestSources(List.of(zip), "sid-1", Runnable::run, 1,
+                new ConversationArchiveIngestService.Pipeline(100, 5_000L), progress::add);
+
+        assertThat(polls.get()).isGreaterThan(3);
+        assertThat(progress.get(progress.size() - 1).backpressureWaits()).isEqualTo(1);
+        verify(vectorStoreService, atLeastOnce()).enqueue(anyString(), anyString(), anyString(), anyMap());
+    }
+
+    @Test
+    void statusIsScopedToSubmittingSession() throws Exception {
+        ConversationArchiveIngestJobService.JobStatus submitted = jobs.submit(List.of(multiEntryZip(1, 2)), "sid-1");
+
+        assertThat(jobs.status(submitted.jobId(), "sid-other")).isEmpty();
+        assertThat(jobs.status("missing", "sid-1")).isEmpty();
+        assertThat(jobs.status(submitted.jobId(), "sid-1")).isPresent();
+        assertThat(submitted.toString()).doesNotContain("sid-1");
+    }
+
+    @Test
+    void invalidZipFailsJobWithoutThrowingToCaller() throws Exception {
+        MockMultipartFile broken = new MockMultipartFile("files", "broken.zip", "application/zip",
+                "not a zip at all".getBytes(StandardCharsets.UTF_8));
+
+        ConversationArchiveIngestJobService.JobStatus submitted = jobs.submit(List.of(broken), "sid-1");
+        ConversationArchiveIngestJobService.JobStatus done = awaitTerminal(submitted.jobId(), "sid-1");
+
+        assertThat(done.state()).isIn(ConversationArchiveIngestJobService.State.COMPLETED,
+                ConversationArchiveIngestJobService.State.FAILED);
+        if (done.state() == ConversationArchiveIngestJobService.State.FAILED) {
+            assertThat(done.error()).isEqualTo("invalid_zip_archive");
+        } else {
+            assertThat(done.partial().entryCount()).isZero();
+        }
+    }
+
+    @Test
+    void rejectsNonZipBeforeSpooling() {
+        MockMultipartFile txt = new MockMultipartFile("files", "ConversationExport.txt", "text/plain",
+                "Alice : hello".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> jobs.submit(List.of(txt), "sid-1"))
+                .isInstanceOf(ResponseStatusException.class)
+                .hasMessageContaining("unsupported_archive_type");
+    }
+
+    private ConversationArchiveIngestJobService.JobStatus awaitTerminal(String jobId, String sid) throws Exception {
+        long deadline = System.currentTimeMillis() + 10_000L;
+        while (System.currentTimeMillis() < deadline) {
+            ConversationArchiveIngestJobService.JobStatus s = jobs.status(jobId, sid).orElseThrow();
+            if (s.state() == ConversationArchiveIngestJobService.State.COMPLETED
+                    || s.state() == ConversationArchiveIngestJobService.State.FAILED) {
+                return s;
+            }
+            Thread.sleep(10L);
+        }
+        throw new AssertionError("job did not finish");
+    }
+
+    private static MockMultipartFile multiEntryZip(int entries, int linesPerEntry) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out, StandardCharsets.UTF_8)) {
+            for (int e = 0; e < entries; e++) {
+                zip.putNextEntry(new ZipEntry("ConversationExport_room" + e + ".txt"));
+                StringBuilder body = new StringBuilder();
+                for (int i = 0; i < linesPerEntry; i++) {
+                    String who = (i % 3 == 0) ? "Bot" : "Alice";
+                    String msg = (i % 3 == 0)
+                            ? "Summary: sprint " + e + " item " + i
+                            : "Discussing topic " + e + " detail " + i + " https://example.com/t" + e;
+                    body.append("2026. 5. 27. AM 9:").append(10 + (i % 40)).append(", ")
+                            .append(who).append(" : ").append(msg).append('\n');
+                }
+                zip.write(body.toString().getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return new MockMultipartFile("files", "conversation.zip", "application/zip", out.toByteArray());
+    }
+
+    private static <T> ObjectProvider<T> provider(T value) {
+        return new ObjectProvider<>() {
+            @Override
+            public T getObject(Object... args) {
+                return value;
+            }
+
+            @Override
+            public T getIfAvailable() {
+                return value;
+            }
+
+            @Override
+            public T getIfUnique() {
+                return value;
+            }
+
+            @Override
+            public T getObject() {
+                return value;
+            }
+        };
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.lms.infra.exec;
+
+import com.example.lms.search.TraceStore;
+import com.example.lms.service.guard.GuardContext;
+import com.example.lms.service.guard.GuardContextHolder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestContextTest {
+
+    @AfterEach
+    void tearDown() {
+        MDC.clear();
+        GuardContextHolder.clear();
+        TraceStore.clear();
+    }
+
+    @Test
+    void snapshotIsNotAffectedByLaterChangesOnEitherSide() throws Exception {
+        MDC.put("sid", "s-1");
+        RequestContext ctx = RequestContext.capture();
+        MDC.put("sid", "s-2");
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            assertEquals("s-1", pool.submit(ctx.wrapCallable(() -> {
+                String seen = MDC.get("sid");
+                MDC.put("sid", "mutated-by-task");
+                return seen;
+            })).get(5, TimeUnit.SECONDS));
+            assertEquals("s-1", pool.submit(ctx.wrapCallable(() -> MDC.get("sid"))).get(5, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals("s-2", MDC.get("sid"));
+        assertEquals("s-1", ctx.mdc().get("sid"));
+    }
+
+    @Test
+    void nestedInstallsRestoreTheEnclosingContext() {
+        GuardContext outerGuard = guard("outer");
+        GuardContextHolder.set(outerGuard);
+        MDC.put("traceId", "outer");
+        TraceStore.put("level", "outer");
+        Map<String, Object> outerTrace = TraceStore.context();
+        RequestContext outer = RequestContext.capture();
+
+        MDC.put("traceId", "inner");
+        GuardContextHolder.set(guard("inner"));
+        TraceStore.installContext(new java.util.concurrent.ConcurrentHashMap<>(Map.of("level", "inner")));
+        RequestContext inner = RequestContext.capture();
+
+        List<String> seen = new ArrayList<>();
+        outer.wrap(() -> {
+            seen.add(MDC.get("traceId") + "/" + GuardContextHolder.get().getPlanId() + "/" + TraceStore.get("level"));
+            inner.wrap(() -> {
+                seen.add(MDC.get("traceId") + "/" + GuardContextHolder.get().getPlanId() + "/"
+                        + TraceStore.get("level"));
+                MDC.put("traceId", "leaked?");
+            }).run();
+            seen.add(MDC.get("traceId") + "/" + GuardContextHolder.get().getPlanId() + "/" + TraceStore.get("level"));
+        }).run();
+
+        assertEquals(List.of("outer/outer/outer", "inner/inner/inner", "outer/outer/outer"), seen);
+        assertEquals("inner", MDC.get("traceId"));
+        assertEquals("inner", GuardContextHolder.get().getPlanId());
+        assertEquals("inner", TraceStore.get("level"));
+        assertSame(outerTrace, outer.trace());
+    }
+
+    @Test
+    void concurrentRequestsOnASharedPoolOnlySeeTheirOwnContext() throws Exception {
+        ExecutorService delegate = Executors.newFixedThreadPool(4);
+        ContextAwareExecutorService pool = new ContextAwareExecutorService(delegate);
+        int requests = 8;
+        int fanOut = 50;
+        CountDownLatch go = new CountDownLatch(1);
+        List<Thread> callers = new ArrayList<>();
+        List<Throwable> failures = new java.util.concurrent.CopyOnWriteArrayList<>();
+        try {
+            for (int r = 0; r < requests; r++) {
+                String id = "req-" + r;
+                Thread caller = new Thread(() -> {
+                    try {
+                        MDC.put("sid", id);
+                        GuardContextHolder.set(guard(id));
+                        TraceStore.put("request", id);
+                        go.await();
+                        List<Callable<String>> tasks = new ArrayList<>();
+                        for (int i = 0; i < fanOut; i++) {
+                            tasks.add(() -> {
+                                TraceStore.inc("tasks");
+                                return MDC.get("sid") + "|" + GuardContextHolder.get().getPlanId() + "|"
+                                        + TraceStore.get("request");
+                            });
+                        }
+                        for (Future<String> f : pool.invokeAll(tasks)) {
+                            assertEquals(id + "|" + id + "|" + id, f.get());
+                        }
+                        assertEquals(id, pool.submit(() -> MDC.get("sid")).get());
+                        assertEquals((long) fanOut, TraceStore.getLong("tasks"), "workers share the request's trace");
+                    } catch (Throwable t) {
+                        failures.add(t);
+                    } finally {
+                        MDC.clear();
+                        GuardContextHolder.clear();
+                        TraceStore.clear();
+                    }
+                });
+                callers.add(caller);
+                caller.start();
+            }
+            go.countDown();
+            for (Thread caller : callers) {
+                caller.join(TimeUnit.SECONDS.toMillis(20));
+            }
+            assertTrue(failures.isEmpty(), failures::toString);
+
+            // Workers are back to a clean slate: nothing leaks into unwrapped work.
+            List<Callable<String>> probes = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                probes.add(() -> MDC.get("sid") + "|" + GuardContextHolder.get() + "|" + TraceStore.peekContext());
+            }
+            for (Future<String> f : delegate.invokeAll(probes)) {
+                assertEquals("null|null|null", f.get());
+            }
+        } finally {
+            delegate.shutdownNow();
+        }
+    }
+
+    @Test
+    void captureWithoutContextStillInstallsADefaultGuard() throws Exception {
+        RequestContext ctx = RequestContext.capture();
+        assertNull(ctx.mdc());
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            assertEquals("safe", pool.submit(ctx.wrapCallable(() -> GuardContextHolder.get().getPlanId()))
+                    .get(5, TimeUnit.SECONDS));
+            assertNull(pool.submit(GuardContextHolder::get).get(5, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static GuardContext guard(String planId) {
+        GuardContext guard = GuardContext.defaultContext();
+        guard.setPlanId(planId);
+        return guard;
+    }
+}
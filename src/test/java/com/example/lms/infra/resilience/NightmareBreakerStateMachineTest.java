@@ -0,0 +1,314 @@
+package com.example.lms.infra.resilience;
+
+import com.example.lms.search.TraceStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Property-style checks for the packed-word state machine, the open-prefix index and the sliding window.
+ */
+class NightmareBreakerStateMachineTest {
+
+    private static final String[] KEYS = {
+            "chat-draft:gpt-5", "chat-draft:gpt-5-mini", "chat-draft:local", "web:naver:search",
+            "web:brave:search", "query-transformer:hyde", "query-transformer:rewrite", "rerank"
+    };
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+
+    @AfterEach
+    void tearDown() {
+        TraceStore.clear();
+    }
+
+    @Test
+    void randomOperationSequencesKeepTransitionsLegalAndThePrefixIndexExact() {
+        NightmareBreakerProperties props = new NightmareBreakerProperties();
+        props.setHalfOpenMaxCalls(2);
+        props.setHalfOpenSuccessThreshold(2);
+        NightmareBreaker breaker = new NightmareBreaker(props, now::get);
+        Set<String> prefixes = prefixesOf(KEYS);
+
+        Map<String, NightmareBreaker.BreakerMode> last = new HashMap<>();
+        for (long seed = 1; seed <= 20; seed++) {
+            Random rnd = new Random(seed);
+            for (int step = 0; step < 2_000; step++) {
+                String key = KEYS[rnd.nextInt(KEYS.length)];
+                switch (rnd.nextInt(7)) {
+                    case 0 -> breaker.recordFailure(key, NightmareBreaker.FailureKind.REJECTED,
+                            new RuntimeException("rejected"), "ctx");
+                    case 1 -> breaker.recordFailure(key, NightmareBreaker.FailureKind.HTTP_5XX,
+                            new RuntimeException("upstream 503"), "ctx");
+                    case 2 -> breaker.recordSuccess(key, rnd.nextInt(100));
+                    case 3 -> {
+                        try {
+                            breaker.checkOpenOrThrow(key);
+                        } catch (NightmareBreaker.OpenCircuitException expected) {
+                            // blocked or out of trial permits
+                        }
+                    }
+                    case 4 -> now.addAndGet(rnd.nextInt(20_000));
+                    case 5 -> breaker.recordBlank(key, "ctx");
+                    default -> breaker.recordSilentFailure(key, "ctx", "no-info");
+                }
+
+                for (String k : KEYS) {
+                    NightmareBreaker.StateView v = breaker.inspect(k);
+                    NightmareBreaker.BreakerMode mode = (v == null) ? NightmareBreaker.BreakerMode.CLOSED : v.mode;
+                    NightmareBreaker.BreakerMode before = last.getOrDefault(k, NightmareBreaker.BreakerMode.CLOSED);
+                    assertFalse(before == NightmareBreaker.BreakerMode.CLOSED
+                                    && mode == NightmareBreaker.BreakerMode.HALF_OPEN,
+                            "CLOSED must not jump to HALF_OPEN: " + k + " seed=" + seed + " step=" + step);
+                    last.put(k, mode);
+
+                    boolean expected = mode == NightmareBreaker.BreakerMode.HALF_OPEN
+                            || (mode == NightmareBreaker.BreakerMode.OPEN && v.openUntilMs > now.get());
+                    assertEquals(expected, breaker.isOpenOrHalfOpen(k), k + " seed=" + seed + " step=" + step);
+                }
+                if (step % 10 == 0) {
+                    assertPrefixIndexMatchesScan(breaker, prefixes);
+                }
+            }
+        }
+    }
+
+    @Test
+    void concurrentTripsAndClosesLeaveTheIndexConsistentWithState() throws Exception {
+        NightmareBreaker breaker = new NightmareBreaker(new NightmareBreakerProperties(), now::get);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                    for (int i = 0; i < 20_000; i++) {
+                        String key = KEYS[rnd.nextInt(KEYS.length)];
+                        if (rnd.nextBoolean()) {
+                            breaker.recordFailure(key, NightmareBreaker.FailureKind.REJECTED,
+                                    new RuntimeException("rejected"), "ctx");
+                        } else {
+                            breaker.recordSuccess(key, 1L);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : futures) {
+                f.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertPrefixIndexMatchesScan(breaker, prefixesOf(KEYS));
+    }
+
+    @Test
+    void halfOpenAdmitsExactlyMaxCallsUnderContention() throws Exception {
+        NightmareBreakerProperties props = new NightmareBreakerProperties();
+        props.setHalfOpenMaxCalls(3);
+        NightmareBreaker breaker = new NightmareBreaker(props, now::get);
+        String key = "chat-draft:gpt-5";
+        breaker.recordFailure(key, NightmareBreaker.FailureKind.REJECTED, new RuntimeException("rejected"), "ctx");
+        assertTrue(breaker.isOpenOrHalfOpen(key));
+        now.addAndGet(Duration.ofMinutes(10).toMillis());
+
+        int threads = 16;
+        AtomicInteger admitted = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        breaker.checkOpenOrThrow(key);
+                        admitted.incrementAndGet();
+                    } catch (NightmareBreaker.OpenCircuitException rejected) {
+                        // over the trial budget
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : futures) {
+                f.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(3, admitted.get());
+        assertEquals(NightmareBreaker.BreakerMode.HALF_OPEN, breaker.inspect(key).mode);
+
+        breaker.recordSuccess(key, 5L);
+        assertEquals(NightmareBreaker.BreakerMode.CLOSED, breaker.inspect(key).mode);
+        assertFalse(breaker.isAnyOpenPrefix("chat-draft:"));
+    }
+
+    @Test
+    void failureRateTripsOnlyAfterMinimumCallsAndForgetsExpiredBuckets() {
+        NightmareBreakerProperties props = new NightmareBreakerProperties();
+        props.setFailureThreshold(1_000);
+        props.setSlidingWindow(Duration.ofSeconds(10));
+        props.setSlidingWindowBuckets(10);
+        props.setMinimumCalls(10);
+        props.setFailureRateThreshold(0.5d);
+        NightmareBreaker breaker = new NightmareBreaker(props, now::get);
+        String key = "web:naver:search";
+
+        // Alternating failure/success never builds a consecutive streak, but the rate is 50%.
+        for (int i = 0; i < 4; i++) {
+            breaker.recordFailure(key, NightmareBreaker.FailureKind.HTTP_5XX, new RuntimeException("503"), "ctx");
+            breaker.recordSuccess(key, 1L);
+        }
+        assertFalse(breaker.isOpenOrHalfOpen(key), "below minimum-calls");
+
+        // Old calls age out of the window: 9 more calls are again below the minimum.
+        now.addAndGet(Duration.ofSeconds(11).toMillis());
+        assertEquals(0L, breaker.windowRates(key).calls());
+        for (int i = 0; i < 9; i++) {
+            breaker.recordSuccess(key, 1L);
+        }
+        breaker.recordFailure(key, NightmareBreaker.FailureKind.HTTP_5XX, new RuntimeException("503"), "ctx");
+        assertFalse(breaker.isOpenOrHalfOpen(key), "10% failure rate stays closed");
+
+        int failures = 0;
+        while (!breaker.isOpenOrHalfOpen(key) && failures < 20) {
+            breaker.recordFailure(key, NightmareBreaker.FailureKind.HTTP_5XX, new RuntimeException("503"), "ctx");
+            failures++;
+        }
+        assertEquals(8, failures, "(1 + 8) / (10 + 8) is the first rate at or above 50%");
+        assertTrue(breaker.isAnyOpenPrefix("web:"));
+        assertEquals("failure-rate", ((Map<?, ?>) TraceStore.get("nightmare.rate.last")).get("reason"));
+    }
+
+    @Test
+    void slowCallRateTripsWithoutConsecutiveSlowCalls() {
+        NightmareBreakerProperties props = new NightmareBreakerProperties();
+        props.setTripOnSlowCall(false);
+        props.setSlowCallThresholdMs(1_000L);
+        props.setMinimumCalls(6);
+        props.setSlowCallRateThreshold(0.5d);
+        NightmareBreaker breaker = new NightmareBreaker(props, now::get);
+        String key = "chat-draft:local";
+
+        for (int i = 0; i < 2; i++) {
+            breaker.recordSuccess(key, 3_000L);
+            breaker.recordSuccess(key, 10L);
+        }
+        assertFalse(breaker.isOpenOrHalfOpen(key));
+        breaker.recordSuccess(key, 3_000L);
+        breaker.recordSuccess(key, 10L);
+        assertTrue(breaker.isOpenOrHalfOpen(key));
+        assertEquals(NightmareBreaker.FailureKind.REJECTED, breaker.inspect(key).lastKind);
+    }
+
+    @Test
+    void rateTripsAreOffByDefault() {
+        NightmareBreaker breaker = new NightmareBreaker(new NightmareBreakerProperties(), now::get);
+        String key = "rerank";
+        for (int i = 0; i < 100; i++) {
+            breaker.recordFailure(key, NightmareBreaker.FailureKind.HTTP_5XX, new RuntimeException("503"), "ctx");
+            breaker.recordSuccess(key, 1L);
+        }
+        assertFalse(breaker.isOpenOrHalfOpen(key));
+        assertEquals(100L, breaker.windowRates(key).failures());
+    }
+
+    @Test
+    void shortWindowDoesNotRecountABucketAfter1024Buckets() {
+        // 1s window, 100ms buckets: 1024 buckets (and their LCM with the slot count) pass long before eviction.
+        BreakerWindow window = new BreakerWindow(1_000L, 10);
+        long t0 = 5_000_000L;
+        window.record(t0, true, false);
+        assertEquals(1L, window.rates(t0).calls());
+
+        assertEquals(0L, window.rates(t0 + 102_400L).calls());
+        assertEquals(0L, window.rates(t0 + 512_000L).calls());
+    }
+
+    @Test
+    void windowLosesNoCountsUnderConcurrentWriters() throws Exception {
+        BreakerWindow window = new BreakerWindow(60_000L, 10);
+        long t0 = 5_000_000L;
+        int threads = 8;
+        int perThread = 25_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        window.record(t0 + (i % 50_000), (i & 1) == 0, (i % 3) == 0);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : futures) {
+                f.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        BreakerWindow.Rates rates = window.rates(t0 + 50_000);
+        long slowPerThread = (perThread + 2) / 3;
+        assertEquals((long) threads * perThread, rates.calls());
+        assertEquals((long) threads * (perThread / 2), rates.failures());
+        assertEquals(threads * slowPerThread, rates.slowCalls());
+
+        assertNotEquals(0L, window.rates(t0 + 59_999).calls());
+        assertEquals(0L, window.rates(t0 + 200_000).calls());
+    }
+
+    private static void assertPrefixIndexMatchesScan(NightmareBreaker breaker, Set<String> prefixes) {
+        for (String prefix : prefixes) {
+            boolean scan = false;
+            for (String k : KEYS) {
+                if (k.startsWith(prefix) && breaker.isOpenOrHalfOpen(k)) {
+                    scan = true;
+                    break;
+                }
+            }
+            assertEquals(scan, breaker.isAnyOpenPrefix(prefix), "prefix=" + prefix);
+        }
+    }
+
+    private static Set<String> prefixesOf(String... keys) {
+        Set<String> out = new LinkedHashSet<>();
+        for (String k : keys) {
+            for (int len = 1; len <= k.length(); len++) {
+                out.add(k.substring(0, len));
+            }
+        }
+        out.add("missing:");
+        return out;
+    }
+}
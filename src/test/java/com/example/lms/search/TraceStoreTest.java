@@ -6,9 +6,17 @@ import org.junit.jupiter.api.Test;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class TraceStoreTest {
@@ -45,4 +53,120 @@ class TraceStoreTest {
         assertTrue(source.contains("SafeRedactor.hashValue(String.valueOf(ignore))"));
         assertFalse(source.contains("ignore.getMessage()"));
     }
+
+    @Test
+    void countersStayNumericThroughTheMapView() {
+        assertEquals(1L, TraceStore.inc("web.naver.skipped.count"));
+        assertEquals(5L, TraceStore.inc("web.naver.skipped.count", 4L));
+        assertEquals(9L, TraceStore.maxLong("web.await.maxMs", 9L));
+        assertEquals(9L, TraceStore.maxLong("web.await.maxMs", 3L));
+
+        assertEquals(5L, TraceStore.get("web.naver.skipped.count"));
+        assertEquals(5L, TraceStore.context().get("web.naver.skipped.count"));
+        TraceStore.context().compute("web.naver.skipped.count", (k, v) -> ((Long) v) + 1);
+        assertEquals(7L, TraceStore.inc("web.naver.skipped.count"));
+
+        TraceStore.put("web.naver.skipped.count", "12");
+        assertEquals(13L, TraceStore.inc("web.naver.skipped.count"));
+    }
+
+    @Test
+    void getAllIsAPointInTimeViewThatHidesInternalKeys() {
+        TraceStore.put("answer.mode", "rag");
+        TraceStore.putInternal("selectedTerms.raw", "internal only");
+        TraceStore.put("selectedTerms", "legacy internal");
+        TraceStore.nextSequence("orch.events.v1");
+
+        Map<String, Object> snapshot = TraceStore.getAll();
+        assertEquals(Map.of("answer.mode", "rag"), new HashMap<>(snapshot));
+
+        TraceStore.put("answer.mode", "fallback");
+        TraceStore.put("late.key", 1);
+        assertEquals("rag", snapshot.get("answer.mode"));
+        assertFalse(snapshot.containsKey("late.key"));
+
+        Map<String, Object> callerOwned = TraceStore.getAll();
+        callerOwned.put("failureTags", List.of("x"));
+        assertNull(TraceStore.get("failureTags"));
+        assertEquals("fallback", callerOwned.get("answer.mode"));
+    }
+
+    @Test
+    void perRequestKeysStayOutOfTheSlotRegistry() {
+        String rid = "rid-" + System.nanoTime();
+        TraceStore.put("ensemble.error." + rid, "interrupted");
+        TraceStore.inc("web.failsoft.soakKpiJson.runId." + rid);
+        TraceStore.put("ensemble.candidates.count", 2);
+
+        assertEquals("interrupted", TraceStore.get("ensemble.error." + rid));
+        assertEquals(1L, TraceStore.getLong("web.failsoft.soakKpiJson.runId." + rid));
+        assertEquals(TraceKeyRegistry.NO_SLOT, TraceKeyRegistry.slotIfPresent("ensemble.error." + rid));
+        assertEquals(TraceKeyRegistry.NO_SLOT,
+                TraceKeyRegistry.slotIfPresent("web.failsoft.soakKpiJson.runId." + rid));
+        assertTrue(TraceKeyRegistry.slotIfPresent("ensemble.candidates.count") >= 0);
+        assertTrue(TraceStore.getAll().containsKey("ensemble.error." + rid));
+    }
+
+    @Test
+    void installedPlainMapsKeepWorking() {
+        Map<String, Object> plain = new HashMap<>();
+        TraceStore.installContext(plain);
+        TraceStore.put("k", "v");
+        TraceStore.inc("n");
+        TraceStore.append("events", "a");
+
+        assertEquals("v", plain.get("k"));
+        assertEquals(1L, plain.get("n"));
+        assertEquals(List.of("a"), plain.get("events"));
+        assertEquals(TraceLevel.FULL, TraceStore.level());
+    }
+
+    @Test
+    void traceLevelGatesEventListAppends() {
+        TraceStore.level(TraceLevel.OFF);
+        TraceStore.append("orch.events.v1", "dropped");
+        TraceStore.inc("orch.events.v1.count");
+        assertNull(TraceStore.get("orch.events.v1"));
+        assertEquals(1L, TraceStore.getLong("orch.events.v1.count"));
+
+        TraceStore.level(TraceLevel.SUMMARY);
+        for (int i = 0; i < 100; i++) {
+            TraceStore.append("orch.events.v1", i);
+        }
+        assertEquals(TraceStore.SUMMARY_APPEND_CAP, ((List<?>) TraceStore.get("orch.events.v1")).size());
+        assertTrue(TraceStore.enabled(TraceLevel.SUMMARY));
+        assertFalse(TraceStore.enabled(TraceLevel.FULL));
+
+        TraceStore.clear();
+        assertEquals(TraceLevel.FULL, TraceStore.level());
+    }
+
+    @Test
+    void propagatedContextCountsEveryIncrementAcrossThreads() throws Exception {
+        Map<String, Object> shared = TraceStore.context();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new java.util.ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(pool.submit(() -> {
+                    TraceStore.installContext(shared);
+                    try {
+                        for (int i = 0; i < 10_000; i++) {
+                            TraceStore.inc("ops.cancelShield.invokeAll.rejected.count");
+                            TraceStore.nextSequence("ml.breadcrumbs.v1");
+                        }
+                    } finally {
+                        TraceStore.clear();
+                    }
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(80_000L, TraceStore.getLong("ops.cancelShield.invokeAll.rejected.count"));
+        assertEquals(80_001L, TraceStore.nextSequence("ml.breadcrumbs.v1"));
+    }
 }
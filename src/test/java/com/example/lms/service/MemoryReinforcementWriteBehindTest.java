@@ -0,0 +1,238 @@
+package com.example.lms.service;
+
+import com.example.lms.entity.TranslationMemory;
+import com.example.lms.guard.GuardProfileProps;
+import com.example.lms.repository.TranslationMemoryRepository;
+import com.example.lms.service.config.HyperparameterService;
+import com.example.lms.service.reinforcement.SnippetPruner;
+import com.example.lms.service.reinforcement.TranslationMemoryWriteBehind;
+import com.example.lms.strategy.StrategyDecisionTracker;
+import com.example.lms.strategy.StrategyPerformanceRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypes;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link MemoryReinforcementService} against H2 through JPA, with and without {@link TranslationMemoryWriteBehind}:
+ * the same reinforcement calls must leave the same rows, and a deferred reinforcement must not write its loaded
+ * entity back at commit.
+ */
+class MemoryReinforcementWriteBehindTest {
+
+    private static final String[] SNIPPETS = {
+            "Furina is a 5-star Hydro character from Fontaine in Genshin Impact.",
+            "Spring Boot auto-configuration backs off when a user bean of the same type exists.",
+            "BM25 ranks documents by term frequency saturation and inverse document frequency.",
+            "HikariCP keeps a fixed pool of JDBC connections and hands them out on demand."};
+    private static final String[] SESSIONS = {"chat-100", "chat-200"};
+
+    private final List<AnnotationConfigApplicationContext> contexts = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        contexts.forEach(AnnotationConfigApplicationContext::close);
+    }
+
+    @Test
+    void deferredReinforcementEndsInTheSameRowsAsInlineUpdates() {
+        AnnotationConfigApplicationContext inline = context("mrs_inline", false);
+        AnnotationConfigApplicationContext deferred = context("mrs_deferred", true);
+        MemoryReinforcementService inlineService = inline.getBean(MemoryReinforcementService.class);
+        MemoryReinforcementService deferredService = deferred.getBean(MemoryReinforcementService.class);
+        TranslationMemoryWriteBehind writeBehind = deferred.getBean(TranslationMemoryWriteBehind.class);
+        Random random = new Random(48L);
+
+        for (int op = 0; op < 400; op++) {
+            String snippet = SNIPPETS[random.nextInt(SNIPPETS.length)];
+            String sid = SESSIONS[random.nextInt(SESSIONS.length)];
+            switch (random.nextInt(4)) {
+                case 0, 1 -> {
+                    double score = 0.9 + Math.round(random.nextDouble() * 10) / 100.0;
+                    String tag = random.nextBoolean() ? "WEB" : "SMART_FALLBACK";
+                    inlineService.reinforceWithSnippet(sid, "q", snippet, tag, score);
+                    deferredService.reinforceWithSnippet(sid, "q", snippet, tag, score);
+                }
+                case 2 -> assertEquals(inlineService.bumpOnly(sha1(snippet)),
+                        deferredService.bumpOnly(sha1(snippet)));
+                default -> {
+                    String correction = SNIPPETS[random.nextInt(SNIPPETS.length)];
+                    boolean positive = random.nextBoolean();
+                    inlineService.applyFeedback(sid, snippet, positive, correction);
+                    deferredService.applyFeedback(sid, snippet, positive, correction);
+                }
+            }
+            if (random.nextInt(10) == 0) {
+                writeBehind.flush();
+            }
+        }
+        writeBehind.flush();
+
+        assertEquals(rows(inline), rows(deferred));
+        assertTrue(writeBehind.stats().coalesced() > 0, writeBehind.stats().toString());
+    }
+
+    @Test
+    void deferredReinforcementDoesNotWriteTheLoadedRowBackAtCommit() {
+        AnnotationConfigApplicationContext deferred = context("mrs_commit", true);
+        MemoryReinforcementService service = deferred.getBean(MemoryReinforcementService.class);
+        TranslationMemoryWriteBehind writeBehind = deferred.getBean(TranslationMemoryWriteBehind.class);
+        JdbcTemplate jdbc = deferred.getBean(JdbcTemplate.class);
+        String snippet = SNIPPETS[0];
+        String hash = sha1(snippet);
+
+        service.reinforceWithSnippet("chat-100", "q", snippet, "WEB", 0.95);
+        assertEquals(1, service.bumpOnly(hash));
+        service.bumpOnly(hash);
+        service.bumpOnly(hash);
+        assertEquals(2, writeBehind.pendingHits(hash));
+
+        SessionFactory sessions = deferred.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class);
+        sessions.getStatistics().clear();
+        // The write-behind flushes while the reinforcing transaction still holds the row it loaded.
+        new TransactionTemplate(deferred.getBean(JpaTransactionManager.class)).executeWithoutResult(status -> {
+            service.reinforceWithSnippet("chat-100", "q", snippet, "WEB", 0.95);
+            writeBehind.flush();
+        });
+
+        assertEquals(0, sessions.getStatistics().getEntityUpdateCount(), "no full-row UPDATE on the request path");
+        writeBehind.flush();
+        assertEquals(5, jdbc.queryForObject("SELECT hit_count FROM translation_memory WHERE source_hash = ?",
+                Integer.class, hash));
+    }
+
+    private AnnotationConfigApplicationContext context(String database, boolean writeBehind) {
+        AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext();
+        ctx.getEnvironment().getPropertySources().addFirst(new MapPropertySource("test", Map.of(
+                "memory.enabled", "true",
+                "test.db", database)));
+        ctx.register(JpaConfig.class);
+        if (writeBehind) {
+            ctx.register(WriteBehindConfig.class);
+        }
+        ctx.refresh();
+        contexts.add(ctx);
+        return ctx;
+    }
+
+    private static List<String> rows(AnnotationConfigApplicationContext ctx) {
+        List<String> rows = new ArrayList<>();
+        for (Map<String, Object> row : ctx.getBean(JdbcTemplate.class).queryForList(
+                "SELECT * FROM translation_memory ORDER BY source_hash")) {
+            // version/updated_at/last_used_at differ by design (JPA vs batched writes); compare the values.
+            rows.add(Arrays.toString(new Object[]{row.get("SOURCE_HASH"), row.get("SESSION_ID"),
+                    row.get("HIT_COUNT"), row.get("SUCCESS_COUNT"), row.get("FAILURE_COUNT"), row.get("SCORE"),
+                    row.get("Q_VALUE"), row.get("CONFIDENCE_SCORE"), row.get("SOURCE_TAG"), row.get("ENERGY"),
+                    row.get("TEMPERATURE"), row.get("UPDATED_AT") != null}));
+        }
+        return rows;
+    }
+
+    private static String sha1(String s) {
+        try {
+            StringBuilder sb = new StringBuilder();
+            for (byte b : java.security.MessageDigest.getInstance("SHA-1")
+                    .digest(s.trim().getBytes(java.nio.charset.StandardCharsets.UTF_8))) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (java.security.NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Configuration
+    @EnableTransactionManagement
+    @EnableJpaRepositories(basePackageClasses = TranslationMemoryRepository.class,
+            includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE,
+                    classes = TranslationMemoryRepository.class))
+    static class JpaConfig {
+
+        @Bean
+        DataSource dataSource(org.springframework.core.env.Environment env) {
+            return new DriverManagerDataSource(
+                    "jdbc:h2:mem:" + env.getProperty("test.db") + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        }
+
+        @Bean
+        LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+            LocalContainerEntityManagerFactoryBean emf = new LocalContainerEntityManagerFactoryBean();
+            emf.setDataSource(dataSource);
+            emf.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+            emf.setManagedTypes(PersistenceManagedTypes.of(TranslationMemory.class.getName()));
+            emf.setJpaPropertyMap(Map.of(
+                    "hibernate.hbm2ddl.auto", "create-drop",
+                    // Spring Boot's default column naming (q_value, success_count, ...).
+                    "hibernate.physical_naming_strategy", CamelCaseToUnderscoresNamingStrategy.class.getName(),
+                    "hibernate.generate_statistics", "true"));
+            return emf;
+        }
+
+        @Bean
+        JpaTransactionManager transactionManager(EntityManagerFactory emf) {
+            return new JpaTransactionManager(emf);
+        }
+
+        @Bean
+        JdbcTemplate jdbcTemplate(DataSource dataSource) {
+            return new JdbcTemplate(dataSource);
+        }
+
+        @Bean
+        GuardProfileProps guardProfileProps() {
+            return mock(GuardProfileProps.class);
+        }
+
+        @Bean
+        MemoryReinforcementService memoryReinforcementService(TranslationMemoryRepository repository) {
+            StrategyDecisionTracker tracker = mock(StrategyDecisionTracker.class);
+            when(tracker.getLastStrategyForSession(any())).thenReturn(Optional.empty());
+            return new MemoryReinforcementService(repository, mock(VectorStoreService.class),
+                    mock(SnippetPruner.class), mock(StrategyPerformanceRepository.class), tracker,
+                    mock(HyperparameterService.class));
+        }
+    }
+
+    @Configuration
+    static class WriteBehindConfig {
+
+        @Bean
+        TranslationMemoryWriteBehind translationMemoryWriteBehind(
+                JdbcTemplate jdbc, ObjectProvider<PlatformTransactionManager> transactionManager) {
+            // No scheduled flusher: the tests flush explicitly.
+            return new TranslationMemoryWriteBehind(jdbc, transactionManager, 0L, 256, 10_000, 10L);
+        }
+    }
+}
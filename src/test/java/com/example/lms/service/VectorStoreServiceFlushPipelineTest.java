@@ -0,0 +1,149 @@
+package com.example.lms.service;
+
+import com.example.lms.search.TraceStore;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class VectorStoreServiceFlushPipelineTest {
+
+    private VectorStoreService service;
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.shutdownFlushPipeline();
+        }
+        TraceStore.clear();
+    }
+
+    @Test
+    void failingGroupBacksOffAloneWhileOtherSessionsFlush() throws Exception {
+        EmbeddingModel model = mock(EmbeddingModel.class);
+        AtomicInteger poisonedCalls = new AtomicInteger();
+        when(model.embedAll(anyList())).thenAnswer(invocation -> {
+            List<TextSegment> segments = invocation.getArgument(0);
+            if (segments.stream().anyMatch(s -> s.text().contains("poison"))) {
+                poisonedCalls.incrementAndGet();
+                throw new IllegalStateException("embedder rejected batch");
+            }
+            return Response.from(segments.stream().map(ignored -> Embedding.from(new float[]{1.0f})).toList());
+        });
+        List<String> written = new CopyOnWriteArrayList<>();
+        EmbeddingStore<TextSegment> store = recordingStore(written);
+        service = newService(model, store);
+
+        service.enqueue("a-1", "session-a", "poison payload one", java.util.Map.of());
+        service.enqueue("b-1", "session-b", "healthy payload two", java.util.Map.of());
+        service.flush();
+
+        assertEquals(List.of("b-1"), written);
+        assertEquals(1, service.pendingSize(), "failed group entries are restored to the buffer");
+        VectorStoreService.VectorBufferStats stats = service.bufferStats();
+        assertEquals(1, stats.groupsInBackoff());
+        assertTrue(stats.backoffRemainingMillis() > 0L);
+
+        // The backed-off session is deferred without another embed attempt; new sessions still flush.
+        service.enqueue("c-1", "session-c", "healthy payload three", java.util.Map.of());
+        service.flush();
+
+        assertEquals(1, poisonedCalls.get());
+        assertEquals(List.of("b-1", "c-1"), written);
+        assertEquals(1, service.pendingSize());
+    }
+
+    @Test
+    void slowGroupDoesNotDelayOtherGroups() throws Exception {
+        CountDownLatch fastWritten = new CountDownLatch(1);
+        EmbeddingModel model = mock(EmbeddingModel.class);
+        when(model.embedAll(anyList())).thenAnswer(invocation -> {
+            List<TextSegment> segments = invocation.getArgument(0);
+            if (segments.stream().anyMatch(s -> s.text().contains("slow"))) {
+                // Only completes once the other session has been written by the pipeline.
+                assertTrue(fastWritten.await(5, TimeUnit.SECONDS), "fast group was held behind slow group");
+            }
+            return Response.from(segments.stream().map(ignored -> Embedding.from(new float[]{1.0f})).toList());
+        });
+        List<String> written = new CopyOnWriteArrayList<>();
+        @SuppressWarnings("unchecked")
+        EmbeddingStore<TextSegment> store = mock(EmbeddingStore.class);
+        doAnswer(invocation -> {
+            List<String> ids = invocation.getArgument(0);
+            written.addAll(ids);
+            if (ids.contains("fast-1")) {
+                fastWritten.countDown();
+            }
+            return null;
+        }).when(store).addAll(anyList(), anyList(), anyList());
+        service = newService(model, store);
+
+        service.enqueue("slow-1", "session-slow", "slow bulk import", java.util.Map.of());
+        service.enqueue("fast-1", "session-fast", "fast interactive note", java.util.Map.of());
+        service.flush();
+
+        assertEquals(List.of("fast-1", "slow-1"), written);
+        assertEquals(0, service.pendingSize());
+        List<VectorStoreService.FlushStageStats> stages = service.bufferStats().stages();
+        assertEquals(List.of("embed", "write", "ack"), stages.stream().map(VectorStoreService.FlushStageStats::stage).toList());
+        assertEquals(2L, stages.get(1).segments());
+        assertEquals(0, stages.get(0).queueDepth());
+    }
+
+    private static EmbeddingStore<TextSegment> recordingStore(List<String> written) {
+        @SuppressWarnings("unchecked")
+        EmbeddingStore<TextSegment> store = mock(EmbeddingStore.class);
+        doAnswer(invocation -> {
+            List<String> ids = invocation.getArgument(0);
+            written.addAll(ids);
+            return null;
+        }).when(store).addAll(anyList(), anyList(), anyList());
+        return store;
+    }
+
+    private static VectorStoreService newService(EmbeddingModel model, EmbeddingStore<TextSegment> store) throws Exception {
+        VectorStoreService service = new VectorStoreService(model, store);
+        setInt(service, "batchSize", 1000);
+        setInt(service, "flushEmbedParallelism", 2);
+        setInt(service, "flushWriteParallelism", 2);
+        setBoolean(service, "shadowWriteEnabled", false);
+        setLong(service, "initialBackoffMs", 60_000L);
+        setLong(service, "maxBackoffMs", 120_000L);
+        return service;
+    }
+
+    private static void setInt(Object target, String fieldName, int value) throws Exception {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.setInt(target, value);
+    }
+
+    private static void setLong(Object target, String fieldName, long value) throws Exception {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.setLong(target, value);
+    }
+
+    private static void setBoolean(Object target, String fieldName, boolean value) throws Exception {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.setBoolean(target, value);
+    }
+}
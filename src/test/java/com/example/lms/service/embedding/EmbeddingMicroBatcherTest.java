@@ -0,0 +1,272 @@
+package com.example.lms.service.embedding;
+
+import com.example.lms.search.TraceStore;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmbeddingMicroBatcherTest {
+
+    private EmbeddingMicroBatcher batcher;
+
+    @AfterEach
+    void tearDown() {
+        if (batcher != null) {
+            batcher.close();
+        }
+        TraceStore.clear();
+    }
+
+    @Test
+    void idleRequestIsDispatchedWithoutLinger() {
+        RecordingModel model = new RecordingModel();
+        batcher = new EmbeddingMicroBatcher(model, 16, 200_000L, 64, 5_000L);
+
+        long t0 = System.nanoTime();
+        Response<Embedding> r = batcher.embed("alone");
+        long tookMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0);
+
+        assertArrayEquals(vector("alone"), r.content().vector());
+        assertTrue(tookMs < 150L, "idle request should not wait for the 200ms linger cap: " + tookMs);
+        assertEquals(0L, batcher.stats().lastLingerUs());
+        assertEquals(1L, batcher.stats().batchSizeHistogram().get("1"));
+    }
+
+    @Test
+    void concurrentRequestsShareBatchesAndGetTheirOwnVectors() throws Exception {
+        CountDownLatch firstBatchEntered = new CountDownLatch(1);
+        CountDownLatch releaseFirstBatch = new CountDownLatch(1);
+        RecordingModel model = new RecordingModel() {
+            @Override
+            public Response<List<Embedding>> embedAll(List<TextSegment> segments) {
+                if (batchCalls.get() == 0) {
+                    firstBatchEntered.countDown();
+                    try {
+                        releaseFirstBatch.await(2, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.embedAll(segments);
+            }
+        };
+        // One batch in flight at a time, so everyone arriving meanwhile ends up in the second batch.
+        batcher = new EmbeddingMicroBatcher(model, 32, 2_000L, 64, 5_000L, 1);
+        int callers = 12;
+        ExecutorService pool = Executors.newFixedThreadPool(callers + 1);
+        try {
+            Future<Response<Embedding>> head = pool.submit(() -> batcher.embed("head"));
+            assertTrue(firstBatchEntered.await(2, TimeUnit.SECONDS));
+            // Everyone arriving while the embedder is busy queues up behind it.
+            List<Future<Response<Embedding>>> futures = new ArrayList<>();
+            CyclicBarrier start = new CyclicBarrier(callers);
+            for (int i = 0; i < callers; i++) {
+                String text = "text-" + i;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return batcher.embed(text);
+                }));
+            }
+            long deadline = System.currentTimeMillis() + 2_000L;
+            while (batcher.stats().queueDepth() < callers && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5L);
+            }
+            releaseFirstBatch.countDown();
+
+            assertArrayEquals(vector("head"), head.get(2, TimeUnit.SECONDS).content().vector());
+            for (int i = 0; i < callers; i++) {
+                assertArrayEquals(vector("text-" + i), futures.get(i).get(2, TimeUnit.SECONDS).content().vector());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        EmbeddingMicroBatcher.Stats stats = batcher.stats();
+        assertEquals(2, model.batchCalls.get());
+        assertEquals(0, model.singleCalls.get());
+        assertEquals(13L, stats.requests());
+        assertEquals(1L, stats.batchSizeHistogram().get("9-16"));
+        assertTrue(stats.maxQueueDelayUs() > 0L);
+    }
+
+    @Test
+    void slowBatchDoesNotHoldBackTheNextOne() throws Exception {
+        CountDownLatch firstBatchEntered = new CountDownLatch(1);
+        CountDownLatch releaseFirstBatch = new CountDownLatch(1);
+        RecordingModel model = new RecordingModel() {
+            @Override
+            public Response<List<Embedding>> embedAll(List<TextSegment> segments) {
+                if (segments.get(0).text().equals("slow")) {
+                    firstBatchEntered.countDown();
+                    try {
+                        releaseFirstBatch.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.embedAll(segments);
+            }
+        };
+        batcher = new EmbeddingMicroBatcher(model, 8, 1_000L, 64, 5_000L, 2);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<Response<Embedding>> slow = pool.submit(() -> batcher.embed("slow"));
+            assertTrue(firstBatchEntered.await(2, TimeUnit.SECONDS));
+
+            assertArrayEquals(vector("fast"), batcher.embed("fast").content().vector());
+            assertFalse(slow.isDone());
+
+            releaseFirstBatch.countDown();
+            assertArrayEquals(vector("slow"), slow.get(2, TimeUnit.SECONDS).content().vector());
+        } finally {
+            releaseFirstBatch.countDown();
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void callerWaitsNoLongerThanItsTimeout() {
+        CountDownLatch never = new CountDownLatch(1);
+        RecordingModel model = new RecordingModel() {
+            @Override
+            public Response<List<Embedding>> embedAll(List<TextSegment> segments) {
+                batchCalls.incrementAndGet();
+                try {
+                    never.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new IllegalStateException("upstream timed out");
+            }
+        };
+        batcher = new EmbeddingMicroBatcher(model, 8, 1_000L, 64, 200L);
+
+        long t0 = System.nanoTime();
+        Response<Embedding> r = batcher.embed("stuck");
+        long tookMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0);
+        never.countDown();
+
+        assertEquals(0, r.content().vector().length);
+        assertTrue(tookMs < 1_000L, "caller should give up after ~200ms: " + tookMs);
+        assertEquals(0, model.singleCalls.get(), "no second upstream call after the deadline");
+        assertEquals(1L, batcher.stats().timeouts());
+    }
+
+    @Test
+    void blankTextSkipsTheBatchAndReachesTheDelegateAsBefore() {
+        RecordingModel model = new RecordingModel();
+        batcher = new EmbeddingMicroBatcher(model, 8, 1_000L, 64, 5_000L);
+        DecoratingEmbeddingModel decorator = new DecoratingEmbeddingModel(
+                model, new EmbeddingCache.InMemory(), Duration.ofMinutes(5), null, batcher);
+
+        assertArrayEquals(vector("   "), batcher.embed("   ").content().vector());
+        assertArrayEquals(vector(""), decorator.embed("").content().vector());
+        assertArrayEquals(vector("next"), batcher.embed("next").content().vector());
+
+        assertEquals(1, model.batchCalls.get());
+        assertEquals(2, model.singleCalls.get());
+        assertEquals(2L, batcher.stats().bypassed());
+    }
+
+    @Test
+    void failedBatchFallsBackToPerCallerEmbed() {
+        RecordingModel model = new RecordingModel() {
+            @Override
+            public Response<List<Embedding>> embedAll(List<TextSegment> segments) {
+                batchCalls.incrementAndGet();
+                throw new IllegalStateException("batch endpoint down");
+            }
+        };
+        batcher = new EmbeddingMicroBatcher(model, 8, 1_000L, 64, 5_000L);
+
+        Response<Embedding> r = batcher.embed("solo");
+
+        assertArrayEquals(vector("solo"), r.content().vector());
+        assertEquals(1, model.singleCalls.get());
+        assertEquals(1L, batcher.stats().fallbacks());
+    }
+
+    @Test
+    void failoverMarkersFromBatchReachCallerSoDecoratorSkipsCaching() {
+        RecordingModel model = new RecordingModel() {
+            @Override
+            public Response<List<Embedding>> embedAll(List<TextSegment> segments) {
+                TraceStore.put("embed.failover.used.cur", true);
+                TraceStore.put("embed.failover.stage.cur", "backup");
+                return super.embedAll(segments);
+            }
+        };
+        batcher = new EmbeddingMicroBatcher(model, 8, 1_000L, 64, 5_000L);
+        DecoratingEmbeddingModel decorator = new DecoratingEmbeddingModel(
+                model, new EmbeddingCache.InMemory(), Duration.ofMinutes(5), null, batcher);
+
+        decorator.embed("q");
+        decorator.embed("q");
+
+        assertEquals(2, model.batchCalls.get(), "failover vectors must not be cached");
+        assertEquals(true, TraceStore.get("ml.embed.cache.invalidated"));
+    }
+
+    @Test
+    void decoratorCacheDedupsBeforeBatching() {
+        RecordingModel model = new RecordingModel();
+        batcher = new EmbeddingMicroBatcher(model, 8, 1_000L, 64, 5_000L);
+        DecoratingEmbeddingModel decorator = new DecoratingEmbeddingModel(
+                model, new EmbeddingCache.InMemory(), Duration.ofMinutes(5), null, batcher);
+
+        assertArrayEquals(vector("same"), decorator.embed("same").content().vector());
+        assertArrayEquals(vector("same"), decorator.embed("same").content().vector());
+
+        assertEquals(1, model.batchCalls.get());
+        assertEquals(1L, decorator.microBatchStats().requests());
+    }
+
+    private static float[] vector(String text) {
+        return new float[]{text.length(), text.hashCode() % 97};
+    }
+
+    private static class RecordingModel implements EmbeddingModel {
+        final AtomicInteger batchCalls = new AtomicInteger();
+        final AtomicInteger singleCalls = new AtomicInteger();
+
+        @Override
+        public Response<Embedding> embed(String text) {
+            singleCalls.incrementAndGet();
+            return Response.from(Embedding.from(vector(text)));
+        }
+
+        @Override
+        public Response<Embedding> embed(TextSegment textSegment) {
+            return embed(textSegment.text());
+        }
+
+        @Override
+        public Response<List<Embedding>> embedAll(List<TextSegment> segments) {
+            batchCalls.incrementAndGet();
+            List<Embedding> out = new ArrayList<>(segments.size());
+            for (TextSegment s : segments) {
+                out.add(Embedding.from(vector(s.text())));
+            }
+            return Response.from(out);
+        }
+    }
+}
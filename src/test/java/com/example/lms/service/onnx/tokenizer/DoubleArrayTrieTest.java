@@ -0,0 +1,34 @@
+package com.example.lms.service.onnx.tokenizer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DoubleArrayTrieTest {
+
+    @Test
+    void longestMatchPrefersLongestKeyAndReportsItsLength() {
+        DoubleArrayTrie trie = DoubleArrayTrie.build(
+                new String[]{"a", "ab", "abc", "b", "서", "서울"}, new int[]{1, 2, 3, 4, 5, 6});
+
+        long m = trie.longestMatch("abcd", 0, 4, false);
+        assertEquals(3, (int) (m >>> 32));
+        assertEquals(3, (int) m);
+
+        long bounded = trie.longestMatch("abcd", 0, 2, false);
+        assertEquals(2, (int) (bounded >>> 32));
+        assertEquals(6, (int) trie.longestMatch("서울시", 0, 3, false));
+        assertEquals(DoubleArrayTrie.NO_MATCH, trie.longestMatch("zzz", 0, 3, false));
+        assertEquals(2, (int) trie.longestMatch("ABX", 0, 3, true));
+    }
+
+    @Test
+    void exactLookupMissesPrefixesThatAreNotKeys() {
+        DoubleArrayTrie trie = DoubleArrayTrie.build(new String[]{"abc", "abd"}, new int[]{7, 8});
+
+        assertEquals(7, trie.get("abc"));
+        assertEquals(8, trie.get("abd"));
+        assertEquals(-1, trie.get("ab"));
+        assertEquals(-1, trie.get("abcd"));
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.lms.service.onnx.tokenizer;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WordpieceTokenizerParityTest {
+
+    private static final String VOCAB = String.join("\n",
+            "[PAD]", "[UNK]", "[CLS]", "[SEP]", "[MASK]",
+            "the", "weather", "in", "seoul", "is", "sunny", "rain", "##s", "##ing", "##ed", "un", "##know", "##n",
+            "token", "##izer", "play", "##er", "a", "b", "ab", "##b", "##ab", "x", "##x", "Upper", "é", "##é",
+            "ı", "i", "##̇", "σ", "ς", "##ς", "😀",
+            "서울", "날씨", "##는", "##가", "맑", "##음", "내일", "비", "##가", "오", "##다", "한국", "##어", "토큰",
+            "##화", "검색", "결과", "the", // duplicate: later index wins
+            "  spaced  ", "", "##");
+    private static final String[] CORPUS = {
+            "The weather in Seoul is sunny.",
+            "Raining, rained, rains!!! un-known tokenizer players",
+            "서울 날씨는 맑음. 내일 비가 오다",
+            "한국어 토큰화 검색결과 (테스트) — mixed English/한국어 text",
+            "abababab xx xxxy ab#b a__b",
+            "İstanbul ΣΟΦΟΣ Σ σ ς ıi é É",
+            "emoji 😀 and lone \uD83D surrogate",
+            "\u0001lead and trail\u0001 in\u0001side \u001F \u000B\f\r\t\n",
+            "   ",
+            "",
+            "Ｆｕｌｌｗｉｄｔｈ ＡＢＣ and K (kelvin sign)",
+    };
+
+    @Test
+    void encodePairMatchesLegacyTokenizerOnFixedCorpus() {
+        LegacyWordpieceTokenizer legacy = new LegacyWordpieceTokenizer(vocab());
+        WordpieceTokenizer trie = new WordpieceTokenizer(vocab());
+        int[] lengths = {0, 1, 2, 3, 5, 8, 16, 64, 256};
+        for (String q : CORPUS) {
+            for (String d : CORPUS) {
+                for (int len : lengths) {
+                    assertSame(legacy.encodePair(q, d, len), trie.encodePair(q, d, len), q + " | " + d + " | " + len);
+                }
+            }
+        }
+        assertSame(legacy.encodePair(null, null, 8), trie.encodePair(null, null, 8), "nulls");
+    }
+
+    @Test
+    void encodePairMatchesLegacyTokenizerOnRandomText() {
+        LegacyWordpieceTokenizer legacy = new LegacyWordpieceTokenizer(vocab());
+        WordpieceTokenizer trie = new WordpieceTokenizer(vocab());
+        String alphabet = "abxABX sunnyraingSEOUL서울날씨는비가오다한국어 .,!#-_()\t\n\u0001İΣσςıé😀";
+        Random rnd = new Random(42L);
+        for (int round = 0; round < 5_000; round++) {
+            String q = random(rnd, alphabet, rnd.nextInt(20));
+            String d = random(rnd, alphabet, rnd.nextInt(120));
+            int len = 1 + rnd.nextInt(48);
+            assertSame(legacy.encodePair(q, d, len), trie.encodePair(q, d, len), "round " + round);
+        }
+    }
+
+    @Test
+    void encodeIntoStopsAtLimitAndReusesCallerBuffer() {
+        WordpieceTokenizer trie = new WordpieceTokenizer(vocab());
+        int[] out = new int[4];
+
+        int n = trie.encodeInto("raining in seoul is sunny", out, 1, 4);
+
+        assertEquals(4, n);
+        CrossEncoderTokenizer.Encoded full = trie.encodePair("raining in seoul is sunny", "", 64);
+        for (int i = 1; i < 4; i++) {
+            assertEquals(full.inputIds()[i], out[i]);
+        }
+    }
+
+    @Test
+    void emptyVocabStillSignalsFallback() {
+        WordpieceTokenizer trie = new WordpieceTokenizer(null);
+
+        assertEquals(0, trie.encodePair("a", "b", 16).inputIds().length);
+        assertEquals(0, trie.encodePairInto("a", "b", 16, new int[16], new int[16], new int[16]));
+    }
+
+    private static void assertSame(CrossEncoderTokenizer.Encoded expected, CrossEncoderTokenizer.Encoded actual,
+                                   String message) {
+        assertArrayEquals(expected.inputIds(), actual.inputIds(), message);
+        assertArrayEquals(expected.attentionMask(), actual.attentionMask(), message);
+        assertArrayEquals(expected.tokenTypeIds(), actual.tokenTypeIds(), message);
+    }
+
+    private static String random(Random rnd, String alphabet, int length) {
+        List<Integer> cps = new ArrayList<>();
+        alphabet.codePoints().forEach(cps::add);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            sb.appendCodePoint(cps.get(rnd.nextInt(cps.size())));
+        }
+        return sb.toString();
+    }
+
+    private static ByteArrayInputStream vocab() {
+        return new ByteArrayInputStream(VOCAB.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.lms.service.rag.auth;
+
+import com.example.lms.domain.enums.RerankSourceCredibility;
+import com.example.lms.search.TraceStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuthorityScorerEquivalenceTest {
+
+    /** Every domain the old if-chain named, plus the ones its substring patterns key on. */
+    private static final List<String> BUILT_IN = List.of(
+            "go.kr", "ac.kr", "gov", "edu", "mois.go.kr", "snu.ac.kr", "nasa.gov", "mit.edu", "cs.edu.au",
+            "community.openai.com", "openai.com", "platform.openai.com",
+            "naver.com", "www.naver.com", "blog.naver.com", "m.blog.naver.com", "cafe.naver.com",
+            "m.cafe.naver.com", "kin.naver.com", "post.naver.com", "developers.naver.com", "d2.naver.com",
+            "news.naver.com", "chzzk.naver.com", "m.chzzk.naver.com", "sports.naver.com",
+            "daum.net", "www.daum.net", "blog.daum.net", "cafe.daum.net", "news.daum.net",
+            "dart.fss.or.kr", "opendart.fss.or.kr", "fss.or.kr", "kind.krx.co.kr", "krx.co.kr",
+            "fs.moef.go.kr", "www.fsc.go.kr", "fsc.go.kr",
+            "rocketpunch.com", "jobplanet.co.kr", "jobkorea.co.kr", "incruit.com", "saramin.co.kr",
+            "jumpit.saramin.co.kr", "wanted.co.kr", "jumpit.co.kr", "catch.co.kr", "thevc.kr", "bizno.net",
+            "twitch.tv", "watcha.com",
+            "google.dev", "google.com", "googleapis.com", "microsoft.com", "apple.com", "oracle.com",
+            "spring.io", "anthropic.com", "apache.org", "blog.google.com", "blog.apache.org",
+            "tistory.com", "velog.io", "brunch.co.kr", "wordpress.com", "blogspot.com",
+            "reuters.com", "bbc.com", "bloomberg.com", "nytimes.com", "wsj.com", "britannica.com",
+            "wikipedia.org", "ko.wikipedia.org",
+            "github.com", "gitlab.com", "bitbucket.org", "stackoverflow.com", "stackexchange.com",
+            "reddit.com", "medium.com", "hashnode.com", "dev.to", "github.io",
+            "developer.mozilla.org", "docs.rs", "api.docs.example.com", "example.com");
+
+    private static final String[] PREFIXES = {
+            "", "www.", "www.www.", "sub.", "m.", "x", "blog.", "docs.", "developer.", "a.docs.", "a.edu.",
+            "community.", "news.", "chzzk.", "www.fsc.", "fsc.", "not"
+    };
+
+    @AfterEach
+    void tearDown() {
+        TraceStore.clear();
+    }
+
+    @Test
+    void defaultRulesMatchLegacyChainAcrossBuiltInAndProfileDomains() {
+        assertEquivalent(corpus(), "", "", "", "", "", "", "", "", "");
+    }
+
+    @Test
+    void configuredTableAndOverridesMatchLegacyChain() {
+        assertEquivalent(corpus("deep.io", "legacy.example", "namu.wiki", "wiki.example.com"),
+                "legacy.example:0.99",
+                "example.com:0.97, docs.example.com:0.4, www.www.deep.io:0.8, medium.com:0.96",
+                "namu.wiki:0.8, wiki.example.com:bogus",
+                "reddit.com:0.55, tistory.com:0.9",
+                "velog.io:0.3",
+                "https://naver.com/path, .stackoverflow.com. # inline",
+                "blog.naver.com github.com",
+                "wikipedia.org",
+                "wordpress.com,www.www.spring.io,google.com:443");
+    }
+
+    @Test
+    void randomHostsMatchLegacyChain() {
+        List<String> labels = new ArrayList<>(List.of(
+                "www", "blog", "docs", "developer", "edu", "go", "ac", "kr", "com", "co", "io", "or", "net",
+                "naver", "daum", "fss", "krx", "fsc", "moef", "fs", "openai", "community", "google", "spring",
+                "tistory", "xtistory", "github", "medium", "wiki", "m", "cafe", "kin", "d2", "", "gov"));
+        Random rnd = new Random(33L);
+        Set<String> hosts = new LinkedHashSet<>();
+        for (int i = 0; i < 20_000; i++) {
+            int n = 1 + rnd.nextInt(5);
+            StringBuilder sb = new StringBuilder();
+            for (int k = 0; k < n; k++) {
+                if (k > 0) sb.append('.');
+                sb.append(labels.get(rnd.nextInt(labels.size())));
+            }
+            hosts.add(sb.toString());
+        }
+        assertEquivalent(hosts, "", "example.com:0.97,go.kr:0.5", "", "", "", "", "", "", "blog.naver.com");
+    }
+
+    @Test
+    void memoizedTierMatchesUncachedClassification() {
+        AuthorityScorer scorer = scorer("", "", "", "", "", "", "", "", "");
+        for (String host : corpus()) {
+            String url = "https://" + host + "/a";
+            RerankSourceCredibility first = scorer.getSourceCredibility(url);
+            assertEquals(first, scorer.getSourceCredibility(url), host);
+        }
+        assertEquals(RerankSourceCredibility.COMMUNITY, scorer.getSourceCredibility("https://WWW.GitHub.com/x"));
+        assertEquals(RerankSourceCredibility.UNVERIFIED, scorer.getSourceCredibility(null));
+    }
+
+    private static void assertEquivalent(Iterable<String> hosts, String... csv) {
+        LegacyAuthorityScorer legacy = new LegacyAuthorityScorer(csv[0], csv[1], csv[2], csv[3], csv[4],
+                csv[5], csv[6], csv[7], csv[8], 1.0d, 0.85d, 0.80d, 0.70d, 0.55d, 0.25d);
+        AuthorityScorer scorer = scorer(csv);
+        int checked = 0;
+        for (String host : hosts) {
+            for (String url : List.of("https://" + host + "/path?q=1", "http://" + host.toUpperCase() + ":8080")) {
+                assertEquals(legacy.getSourceCredibility(url), scorer.getSourceCredibility(url), url);
+                checked++;
+            }
+        }
+        assertTrue(checked > 0);
+    }
+
+    private static AuthorityScorer scorer(String... csv) {
+        return new AuthorityScorer(csv[0], csv[1], csv[2], csv[3], csv[4],
+                csv[5], csv[6], csv[7], csv[8], 1.0d, 0.85d, 0.80d, 0.70d, 0.55d, 0.25d);
+    }
+
+    private static Set<String> corpus(String... configured) {
+        Set<String> domains = new LinkedHashSet<>(BUILT_IN);
+        domains.addAll(List.of(configured));
+        DomainProfileLoader loader = new DomainProfileLoader(null);
+        loader.load();
+        for (Map<String, Object> p : loader.listProfiles()) {
+            domains.addAll(loader.getProfileEntries((String) p.get("name")));
+        }
+        Set<String> hosts = new LinkedHashSet<>();
+        for (String d : domains) {
+            for (String prefix : PREFIXES) {
+                hosts.add(prefix + d);
+            }
+            hosts.add(d + ".");
+            hosts.add(d + ".evil.example");
+        }
+        return hosts;
+    }
+}
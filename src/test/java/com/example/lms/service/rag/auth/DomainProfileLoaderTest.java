@@ -0,0 +1,60 @@
+package com.example.lms.service.rag.auth;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DomainProfileLoaderTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void profileMatchIsExactHostOrSubdomain() throws Exception {
+        DomainProfileLoader loader = loader("official");
+
+        assertTrue(loader.isAllowedByProfile("https://platform.openai.com/docs", "official"));
+        assertTrue(loader.isAllowedByProfile("https://www.mois.go.kr", "official"));
+        assertFalse(loader.isAllowedByProfile("https://notopenai.com", "official"));
+        assertTrue(loader.isAllowedByProfile("https://stackoverflow.com/q/1", "dev_community"));
+        assertFalse(loader.isAllowedByProfile("https://stackoverflow.com/q/1", "official"));
+        // unknown profile falls back to "official"
+        assertTrue(loader.isAllowedByProfile("https://learn.microsoft.com", "no-such-profile"));
+        assertTrue(loader.isAllowedByProfile("learn.microsoft.com/x", null));
+    }
+
+    @Test
+    void reloadSwapsExternalProfiles() throws Exception {
+        Files.writeString(dir.resolve("partners.txt"), "# partners\nacme.io\n");
+        DomainProfileLoader loader = loader("official");
+        assertTrue(loader.isAllowedByProfile("https://api.acme.io", "partners"));
+        assertFalse(loader.isAllowedByProfile("https://globex.com", "partners"));
+
+        Files.writeString(dir.resolve("partners.txt"), "globex.com\n");
+        loader.reload();
+
+        assertFalse(loader.isAllowedByProfile("https://api.acme.io", "partners"));
+        assertTrue(loader.isAllowedByProfile("https://globex.com", "partners"));
+        assertTrue(loader.isAllowedByProfile("https://openai.com", "official"));
+    }
+
+    private DomainProfileLoader loader(String defaultProfile) throws Exception {
+        DomainProfileLoader loader = new DomainProfileLoader(null);
+        set(loader, "defaultProfile", defaultProfile);
+        set(loader, "externalDir", dir.toString());
+        loader.load();
+        return loader;
+    }
+
+    private static void set(Object target, String name, Object value) throws Exception {
+        Field f = DomainProfileLoader.class.getDeclaredField(name);
+        f.setAccessible(true);
+        f.set(target, value);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.lms.service.rag.auth;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DomainSuffixTrieTest {
+
+    @Test
+    void walkVisitsLabelAlignedSuffixesShortestFirst() {
+        DomainSuffixTrie<String> trie = DomainSuffixTrie.<String>builder()
+                .put("openai.com", "vendor", (a, b) -> b)
+                .put("community.openai.com", "forum", (a, b) -> b)
+                .put("com", "tld", (a, b) -> b)
+                .put("com", "tld2", (a, b) -> a + "+" + b)
+                .build();
+        List<String> seen = new ArrayList<>();
+
+        trie.walk("community.openai.com", (v, terminal) -> seen.add(v + (terminal ? "!" : "")));
+
+        assertEquals(List.of("tld+tld2", "vendor", "forum!"), seen);
+        assertEquals(3, trie.size());
+    }
+
+    @Test
+    void suffixMatchRequiresLabelBoundary() {
+        DomainSuffixTrie<Boolean> trie = DomainSuffixTrie.<Boolean>builder()
+                .put("openai.com", true, (a, b) -> b)
+                .put("a..b", true, (a, b) -> b)
+                .build();
+
+        assertTrue(trie.anyMatch("openai.com", v -> v));
+        assertTrue(trie.anyMatch("api.openai.com", v -> v));
+        assertFalse(trie.anyMatch("notopenai.com", v -> v));
+        assertFalse(trie.anyMatch("openai.com.", v -> v));
+        assertFalse(trie.anyMatch("openai.co", v -> v));
+        assertTrue(trie.anyMatch("x.a..b", v -> v));
+        assertFalse(trie.anyMatch("", v -> v));
+        assertFalse(DomainSuffixTrie.<Boolean>empty().anyMatch("openai.com", v -> v));
+    }
+}
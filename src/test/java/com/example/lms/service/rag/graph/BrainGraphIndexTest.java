@@ -0,0 +1,355 @@
+package com.example.lms.service.rag.graph;
+
+import com.example.lms.service.rag.langgraph.RagOrchestratorFacade;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BrainGraphIndexTest {
+
+    private static final String[] WORDS = {
+            "alpha", "Alpha", "al", "alp", "ha", "beta", "BETA", "alphabet", "gamma ray", "gam",
+            "  delta  ", "del", "ta", "epsilon", "베타", "감마선", "마선", "finance hub", "hub", "route"
+    };
+    private static final String[] DOMAINS = {"GENERAL", "FINANCE", "ops"};
+    private static final String[] KINDS = {"RELATED_TO", "CO_MENTIONED_WITH", "RELATIONSHIP_LINKS"};
+
+    @Test
+    void automatonReportsExactlyTheContainedNames() {
+        Random random = new Random(7);
+        for (int round = 0; round < 200; round++) {
+            Set<String> dictionary = new LinkedHashSet<>();
+            int size = 1 + random.nextInt(40);
+            while (dictionary.size() < size) {
+                dictionary.add(randomText(random, 1 + random.nextInt(5), "ab가나"));
+            }
+            String[] names = dictionary.toArray(new String[0]);
+            int[] ids = new int[names.length];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = 1000 + i;
+            }
+            NameAutomaton automaton = NameAutomaton.build(names, ids);
+            for (int q = 0; q < 20; q++) {
+                String text = randomText(random, random.nextInt(30), "ab가나 ");
+                Set<Integer> expected = new HashSet<>();
+                for (int i = 0; i < names.length; i++) {
+                    if (text.contains(names[i])) {
+                        expected.add(ids[i]);
+                    }
+                }
+                List<Integer> actual = new ArrayList<>();
+                automaton.match(text, actual::add);
+                assertEquals(expected, new HashSet<>(actual), "text=" + text);
+                assertEquals(expected.size(), actual.size(), "each id once, text=" + text);
+            }
+        }
+    }
+
+    @Test
+    void indexedQueriesMatchTheLegacyFullScans() {
+        Random random = new Random(42);
+        BrainStateService service = service();
+        LegacyModel legacy = new LegacyModel();
+        for (int batch = 0; batch < 60; batch++) {
+            List<KgChunk> chunks = new ArrayList<>();
+            for (int c = 0; c < 1 + random.nextInt(4); c++) {
+                chunks.add(randomChunk(random, "chunk-" + random.nextInt(80)));
+            }
+            service.recordChunks(chunks);
+            legacy.record(chunks);
+
+            for (int q = 0; q < 5; q++) {
+                String query = randomQuery(random);
+                String domain = random.nextInt(3) == 0 ? "" : DOMAINS[random.nextInt(DOMAINS.length)];
+                String requested = domain.isBlank() ? "" : BrainStateText.normalizeDomain(domain);
+                InferenceResult result = service.querySparseInferenceLocalOnly(query, domain);
+
+                List<String> matched = legacy.exactMatched(query, requested);
+                assertEquals(matched, result.matchedEntities(), "query=" + query + " domain=" + domain);
+                assertEquals(legacy.inferred(matched, requested), result.inferredRelations(), "query=" + query);
+                assertEquals(legacy.portMappingCount(matched, requested),
+                        ((Number) result.ragDebug().get("sparseNode.portMappingCount")).longValue());
+                assertEquals(legacy.portMappingHashes(matched, requested),
+                        result.ragDebug().get("sparseNode.portMappingHashes"));
+            }
+            assertEquals(legacy.knownDomains(), service.listKnownDomains());
+            for (String domain : DOMAINS) {
+                String d = BrainStateText.normalizeDomain(domain);
+                assertEquals(legacy.entityNodes(d, 50), service.listEntityNodes(domain, 50));
+            }
+        }
+    }
+
+    @Test
+    void readersSeeConsistentResultsWhileBatchesAreRecorded() throws Exception {
+        BrainStateService service = service();
+        List<Throwable> failures = new CopyOnWriteArrayList<>();
+        AtomicBoolean done = new AtomicBoolean();
+        List<Thread> readers = new ArrayList<>();
+        for (int t = 0; t < 3; t++) {
+            Thread reader = new Thread(() -> {
+                Random random = new Random(Thread.currentThread().getId());
+                while (!done.get()) {
+                    try {
+                        InferenceResult result = service.querySparseInferenceLocalOnly(randomQuery(random), "");
+                        assertTrue(result.matchedEntities().size() <= 10);
+                        service.listKnownDomains();
+                    } catch (Throwable ex) {
+                        failures.add(ex);
+                        return;
+                    }
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+        Random random = new Random(3);
+        LegacyModel legacy = new LegacyModel();
+        for (int batch = 0; batch < 300; batch++) {
+            List<KgChunk> chunks = List.of(randomChunk(random, "c-" + batch), randomChunk(random, "c-" + (batch / 2)));
+            service.recordChunks(chunks);
+            legacy.record(chunks);
+        }
+        done.set(true);
+        for (Thread reader : readers) {
+            reader.join(10_000);
+        }
+        assertTrue(failures.isEmpty(), () -> "reader failures: " + failures);
+        assertEquals(legacy.knownDomains(), service.listKnownDomains());
+        String query = String.join(" ", WORDS).toLowerCase(Locale.ROOT);
+        assertEquals(legacy.exactMatched(query, ""), service.querySparseInferenceLocalOnly(query, "").matchedEntities());
+    }
+
+    @Test
+    void namesFromManySmallBatchesAllRemainMatchable() {
+        BrainStateService service = service();
+        for (int i = 0; i < 500; i++) {
+            service.recordChunks(List.of(new KgChunk("c" + i, "s", "",
+                    List.of(new KgChunk.KgEntity("node" + i + "x", "ENTITY", "GENERAL", 0.5)),
+                    List.of(), "GENERAL", 0.5, Instant.EPOCH)));
+        }
+        for (int i = 0; i < 500; i += 37) {
+            List<String> matched = service.querySparseInferenceLocalOnly("about node" + i + "x today", "GENERAL")
+                    .matchedEntities();
+            assertEquals(List.of("node" + i + "x"), matched);
+        }
+        assertFalse(service.querySparseInferenceLocalOnly("node500x", "GENERAL").matchedEntities().contains("node500x"));
+    }
+
+    private static BrainStateService service() {
+        BrainStateProperties props = new BrainStateProperties();
+        Neo4jKgChunkWriter writer = mock(Neo4jKgChunkWriter.class);
+        @SuppressWarnings("unchecked")
+        ObjectProvider<RagOrchestratorFacade> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(null);
+        return new BrainStateService(props, writer, provider, new SparseNodeInferenceService(), null, null);
+    }
+
+    private static KgChunk randomChunk(Random random, String chunkId) {
+        String domain = DOMAINS[random.nextInt(DOMAINS.length)];
+        List<KgChunk.KgEntity> entities = new ArrayList<>();
+        for (int i = 0; i < random.nextInt(5); i++) {
+            String entityDomain = random.nextInt(4) == 0 ? DOMAINS[random.nextInt(DOMAINS.length)] : domain;
+            entities.add(new KgChunk.KgEntity(WORDS[random.nextInt(WORDS.length)], "ENTITY", entityDomain,
+                    random.nextInt(10) / 10.0d));
+        }
+        List<KgChunk.KgRelation> relations = new ArrayList<>();
+        for (int i = 0; i < random.nextInt(5); i++) {
+            relations.add(new KgChunk.KgRelation(WORDS[random.nextInt(WORDS.length)],
+                    WORDS[random.nextInt(WORDS.length)], KINDS[random.nextInt(KINDS.length)],
+                    random.nextInt(10) / 10.0d));
+        }
+        return new KgChunk(chunkId, "s" + random.nextInt(3), "text", entities, relations, domain, 0.5,
+                Instant.EPOCH);
+    }
+
+    private static String randomQuery(Random random) {
+        StringBuilder sb = new StringBuilder("tell me about");
+        for (int i = 0; i < 1 + random.nextInt(3); i++) {
+            sb.append(' ').append(WORDS[random.nextInt(WORDS.length)].trim().toUpperCase(Locale.ROOT));
+        }
+        return sb.append('?').toString();
+    }
+
+    private static String randomText(Random random, int length, String alphabet) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+
+    /** The pre-index semantics: every lookup is a scan over all accumulated entities/relations. */
+    private static final class LegacyModel {
+        private final Map<String, String> chunkDomains = new LinkedHashMap<>();
+        private final Map<String, Entity> entities = new LinkedHashMap<>();
+        private final Map<String, Relation> relations = new LinkedHashMap<>();
+
+        void record(List<KgChunk> chunks) {
+            for (KgChunk chunk : chunks) {
+                String chunkDomain = BrainStateText.normalizeDomain(chunk.domain());
+                chunkDomains.put(chunk.chunkId(), chunkDomain);
+                for (KgChunk.KgEntity e : chunk.entities()) {
+                    String domain = BrainStateText.normalizeDomain(e.domain());
+                    Entity acc = entities.computeIfAbsent(domain + "|" + e.name().trim().toLowerCase(Locale.ROOT),
+                            k -> new Entity(e.name().trim(), domain));
+                    acc.mentions++;
+                    acc.confidence = Math.max(acc.confidence, e.confidence());
+                }
+                for (KgChunk.KgRelation r : chunk.relations()) {
+                    String key = String.join("|", chunkDomain, r.source().trim().toLowerCase(Locale.ROOT),
+                            r.target().trim().toLowerCase(Locale.ROOT), r.kind(), r.sourcePort(), r.targetPort(),
+                            r.connectorHash12());
+                    relations.computeIfAbsent(key, k -> new Relation(chunkDomain, r)).count++;
+                }
+            }
+        }
+
+        List<String> exactMatched(String query, String domain) {
+            String lower = query.toLowerCase(Locale.ROOT);
+            return entities.values().stream()
+                    .filter(e -> matches(domain, e.domain))
+                    .filter(e -> lower.contains(e.name.toLowerCase(Locale.ROOT)))
+                    .sorted(Comparator.comparingLong((Entity e) -> e.mentions).reversed()
+                            .thenComparing(e -> e.name.toLowerCase(Locale.ROOT))
+                            .thenComparing(e -> e.domain))
+                    .limit(10)
+                    .map(e -> e.name)
+                    .distinct()
+                    .toList();
+        }
+
+        List<String> inferred(List<String> matched, String domain) {
+            if (matched.isEmpty()) {
+                return List.of();
+            }
+            List<SparseNodeInferenceService.MemoryPath> paths = new SparseNodeInferenceService().infer(
+                    new LinkedHashSet<>(matched), e -> relationships(e, domain), e -> confidence(e, domain), 10);
+            if (!paths.isEmpty()) {
+                return paths.stream().map(SparseNodeInferenceService.MemoryPath::render).toList();
+            }
+            return touching(matched, domain).stream()
+                    .sorted(Comparator.comparingLong((Relation r) -> r.count).reversed()
+                            .thenComparing(r -> r.relation.connectorHash12()))
+                    .limit(10)
+                    .map(Relation::view)
+                    .toList();
+        }
+
+        long portMappingCount(List<String> matched, String domain) {
+            return touching(matched, domain).size();
+        }
+
+        List<String> portMappingHashes(List<String> matched, String domain) {
+            return touching(matched, domain).stream()
+                    .map(r -> r.relation.connectorHash12())
+                    .distinct()
+                    .sorted()
+                    .limit(8)
+                    .toList();
+        }
+
+        List<DomainSummary> knownDomains() {
+            Map<String, long[]> byDomain = new LinkedHashMap<>();
+            chunkDomains.values().forEach(d -> byDomain.computeIfAbsent(d, k -> new long[3])[0]++);
+            entities.values().forEach(e -> byDomain.computeIfAbsent(e.domain, k -> new long[3])[1]++);
+            relations.values().forEach(r -> byDomain.computeIfAbsent(r.domain, k -> new long[3])[2]++);
+            return byDomain.entrySet().stream()
+                    .sorted(Map.Entry.comparingByKey())
+                    .map(e -> new DomainSummary(e.getKey(), e.getValue()[0], e.getValue()[1], e.getValue()[2]))
+                    .toList();
+        }
+
+        List<KgEntityView> entityNodes(String domain, int limit) {
+            return entities.values().stream()
+                    .filter(e -> domain.equals(e.domain))
+                    .sorted(Comparator.comparingLong((Entity e) -> e.mentions).reversed()
+                            .thenComparing(e -> e.name.toLowerCase(Locale.ROOT)))
+                    .limit(limit)
+                    .map(e -> new KgEntityView(e.name, "ENTITY", e.domain, e.mentions, e.confidence))
+                    .toList();
+        }
+
+        private Map<String, Set<String>> relationships(String entity, String domain) {
+            Map<String, Set<String>> out = new LinkedHashMap<>();
+            for (Relation r : relations.values()) {
+                if (matches(domain, r.domain) && entity.equalsIgnoreCase(r.source)) {
+                    out.computeIfAbsent(r.relation.kind(), k -> new LinkedHashSet<>()).add(r.target);
+                }
+            }
+            return out;
+        }
+
+        private double confidence(String entity, String domain) {
+            return entities.values().stream()
+                    .filter(e -> matches(domain, e.domain) && entity.equalsIgnoreCase(e.name))
+                    .mapToDouble(e -> e.confidence)
+                    .max()
+                    .orElse(1.0d);
+        }
+
+        private List<Relation> touching(List<String> matched, String domain) {
+            return relations.values().stream()
+                    .filter(r -> matches(domain, r.domain))
+                    .filter(r -> matched.stream().anyMatch(m -> m.equalsIgnoreCase(r.source)
+                            || m.equalsIgnoreCase(r.target)))
+                    .toList();
+        }
+
+        private static boolean matches(String requested, String actual) {
+            return requested.isBlank() || requested.equals(actual);
+        }
+    }
+
+    private static final class Entity {
+        private final String name;
+        private final String domain;
+        private long mentions;
+        private double confidence;
+
+        private Entity(String name, String domain) {
+            this.name = name;
+            this.domain = domain;
+        }
+    }
+
+    private static final class Relation {
+        private final String domain;
+        private final String source;
+        private final String target;
+        private final KgChunk.KgRelation relation;
+        private long count;
+
+        private Relation(String domain, KgChunk.KgRelation relation) {
+            this.domain = domain;
+            this.source = relation.source().trim();
+            this.target = relation.target().trim();
+            this.relation = relation;
+        }
+
+        private String view() {
+            return source + " [" + relation.sourcePort() + "] -" + relation.kind() + "-> ["
+                    + relation.targetPort() + "] " + target + " (" + count + ", connector="
+                    + relation.connectorHash12() + ")";
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.example.lms.service.rag.graph;
+
+import com.example.lms.dto.ChatRequestDto;
+import com.example.lms.service.ChatResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BrainStateCapturePipelineTest {
+
+    @Test
+    void chatTurnsReturnPromptlyWhileIngestionIsSaturated() throws Throwable {
+        BrainStateProperties props = new BrainStateProperties();
+        props.getCapture().setQueueCapacity(16);
+        GraphRagChunkingService service = mock(GraphRagChunkingService.class);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch busy = new CountDownLatch(1);
+        doAnswer(inv -> {
+            busy.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return null;
+        }).when(service).ingestConversationTurn(anyString(), any(), any());
+        BrainStateCapturePipeline pipeline = new BrainStateCapturePipeline(props, service);
+        BrainStateChatWorkflowAspect aspect = new BrainStateChatWorkflowAspect(props, pipeline);
+        try {
+            aspect.captureConversationTurn(joinPoint(0L, "first"));
+            assertTrue(busy.await(5, TimeUnit.SECONDS), "worker should be stuck in ingestion");
+
+            long worstNanos = 0L;
+            for (long session = 1; session <= 500; session++) {
+                ProceedingJoinPoint pjp = joinPoint(session, "turn " + session);
+                long started = System.nanoTime();
+                aspect.captureConversationTurn(pjp);
+                worstNanos = Math.max(worstNanos, System.nanoTime() - started);
+            }
+
+            BrainStateCapturePipeline.CaptureStats stats = pipeline.stats();
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(worstNanos) < 200, "worst chat turn " + worstNanos + "ns");
+            assertEquals(16, stats.queueDepth());
+            assertEquals(500 - 16, stats.dropped());
+            assertEquals(0, stats.inflightChats());
+        } finally {
+            release.countDown();
+            pipeline.shutdown();
+        }
+    }
+
+    @Test
+    void consecutiveTurnsOfOneSessionAreHandedOffAsOneBatch() throws Exception {
+        BrainStateProperties props = new BrainStateProperties();
+        GraphRagChunkingService service = mock(GraphRagChunkingService.class);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch busy = new CountDownLatch(1);
+        doAnswer(inv -> {
+            busy.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return null;
+        }).when(service).ingestConversationTurn(eq("warmup"), any(), any());
+        BrainStateCapturePipeline pipeline = new BrainStateCapturePipeline(props, service);
+        try {
+            pipeline.offer("warmup", "u", "a");
+            assertTrue(busy.await(5, TimeUnit.SECONDS));
+            pipeline.offer("s1", "q1", "a1");
+            pipeline.offer("s1", "q2", "a2");
+            pipeline.offer("s1", "q3", "a3");
+            assertEquals(2, pipeline.stats().coalesced());
+            assertEquals(1, pipeline.stats().queuedSessions());
+            release.countDown();
+
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<List<GraphRagChunkingService.ConversationTurn>> batch = ArgumentCaptor.forClass(List.class);
+            verify(service, timeout(2000)).ingestConversationTurns(batch.capture());
+            assertEquals(List.of("q1", "q2", "q3"),
+                    batch.getValue().stream().map(GraphRagChunkingService.ConversationTurn::userText).toList());
+        } finally {
+            release.countDown();
+            pipeline.shutdown();
+        }
+    }
+
+    @Test
+    void sessionCoalescingKeepsOnlyTheNewestTurnsPerSession() throws Exception {
+        BrainStateProperties props = new BrainStateProperties();
+        props.getCapture().setMaxTurnsPerSession(2);
+        GraphRagChunkingService service = mock(GraphRagChunkingService.class);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch busy = new CountDownLatch(1);
+        doAnswer(inv -> {
+            busy.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return null;
+        }).when(service).ingestConversationTurn(eq("warmup"), any(), any());
+        BrainStateCapturePipeline pipeline = new BrainStateCapturePipeline(props, service);
+        try {
+            pipeline.offer("warmup", "u", "a");
+            assertTrue(busy.await(5, TimeUnit.SECONDS));
+            for (int i = 1; i <= 4; i++) {
+                pipeline.offer("s1", "q" + i, "a" + i);
+            }
+            assertEquals(2, pipeline.stats().queueDepth());
+            assertEquals(2, pipeline.stats().dropped());
+            release.countDown();
+
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<List<GraphRagChunkingService.ConversationTurn>> batch = ArgumentCaptor.forClass(List.class);
+            verify(service, timeout(2000)).ingestConversationTurns(batch.capture());
+            assertEquals(List.of("q3", "q4"),
+                    batch.getValue().stream().map(GraphRagChunkingService.ConversationTurn::userText).toList());
+        } finally {
+            release.countDown();
+            pipeline.shutdown();
+        }
+    }
+
+    @Test
+    void ingestionDefersWhileSlowChatTurnsAreInFlight() {
+        BrainStateProperties props = new BrainStateProperties();
+        props.getCapture().setHighLatencyMs(10L);
+        props.getCapture().setMaxDeferMs(60_000L);
+        GraphRagChunkingService service = mock(GraphRagChunkingService.class);
+        BrainStateCapturePipeline pipeline = new BrainStateCapturePipeline(props, service);
+        try {
+            pipeline.chatStarted();
+            pipeline.chatFinished(TimeUnit.MILLISECONDS.toNanos(500));
+            pipeline.chatStarted();
+            pipeline.offer("s1", "hello", "answer");
+
+            verify(service, after(300).never()).ingestConversationTurn(anyString(), any(), any());
+            assertTrue(pipeline.stats().deferrals() > 0);
+
+            pipeline.chatFinished(TimeUnit.MILLISECONDS.toNanos(500));
+            verify(service, timeout(2000)).ingestConversationTurn("s1", "hello", "answer");
+        } finally {
+            pipeline.shutdown();
+        }
+    }
+
+    @Test
+    void deferralIsBoundedByMaxDefer() {
+        BrainStateProperties props = new BrainStateProperties();
+        props.getCapture().setHighLatencyMs(10L);
+        props.getCapture().setMaxDeferMs(150L);
+        GraphRagChunkingService service = mock(GraphRagChunkingService.class);
+        BrainStateCapturePipeline pipeline = new BrainStateCapturePipeline(props, service);
+        try {
+            pipeline.chatStarted();
+            pipeline.chatFinished(TimeUnit.MILLISECONDS.toNanos(500));
+            pipeline.chatStarted();
+            pipeline.offer("s1", "hello", "answer");
+
+            verify(service, timeout(2000)).ingestConversationTurn("s1", "hello", "answer");
+            verify(service, never()).ingestConversationTurns(anyList());
+        } finally {
+            pipeline.shutdown();
+        }
+    }
+
+    @Test
+    void shutdownIngestsTurnsThatAreStillQueued() {
+        BrainStateProperties props = new BrainStateProperties();
+        props.getCapture().setHighLatencyMs(10L);
+        props.getCapture().setMaxDeferMs(60_000L);
+        GraphRagChunkingService service = mock(GraphRagChunkingService.class);
+        BrainStateCapturePipeline pipeline = new BrainStateCapturePipeline(props, service);
+        pipeline.chatStarted();
+        pipeline.chatFinished(TimeUnit.MILLISECONDS.toNanos(500));
+        pipeline.chatStarted();
+        pipeline.offer("s1", "hello", "answer");
+        verify(service, after(100).never()).ingestConversationTurn(anyString(), any(), any());
+
+        pipeline.shutdown();
+
+        verify(service).ingestConversationTurn("s1", "hello", "answer");
+        assertEquals(0, pipeline.stats().queueDepth());
+        assertEquals(0, pipeline.stats().dropped());
+    }
+
+    @Test
+    void turnsLeftAfterTheShutdownDrainAreCountedAsDropped() throws Exception {
+        BrainStateProperties props = new BrainStateProperties();
+        props.getCapture().setShutdownDrainMs(100L);
+        GraphRagChunkingService service = mock(GraphRagChunkingService.class);
+        CountDownLatch busy = new CountDownLatch(1);
+        doAnswer(inv -> {
+            busy.countDown();
+            new CountDownLatch(1).await(10, TimeUnit.SECONDS);
+            return null;
+        }).when(service).ingestConversationTurn(anyString(), any(), any());
+        BrainStateCapturePipeline pipeline = new BrainStateCapturePipeline(props, service);
+        pipeline.offer("s0", "first", "answer");
+        assertTrue(busy.await(5, TimeUnit.SECONDS), "worker should be stuck in ingestion");
+        pipeline.offer("s1", "a", "b");
+        pipeline.offer("s2", "a", "b");
+        pipeline.offer("s2", "c", "d");
+
+        long started = System.nanoTime();
+        pipeline.shutdown();
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) < 2_000L);
+        BrainStateCapturePipeline.CaptureStats stats = pipeline.stats();
+        assertEquals(0, stats.queueDepth());
+        assertEquals(3, stats.dropped());
+        pipeline.offer("s3", "late", "turn");
+        assertEquals(0, pipeline.stats().queueDepth());
+    }
+
+    @Test
+    void publishesQueueMetrics() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        @SuppressWarnings("unchecked")
+        ObjectProvider<MeterRegistry> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(registry);
+        BrainStateCapturePipeline pipeline =
+                new BrainStateCapturePipeline(new BrainStateProperties(), mock(GraphRagChunkingService.class), provider);
+        try {
+            assertNotNull(registry.find(BrainStateCapturePipeline.METRIC_QUEUE_DEPTH).gauge());
+            assertNotNull(registry.find(BrainStateCapturePipeline.METRIC_LAG_MS).gauge());
+            assertNotNull(registry.find(BrainStateCapturePipeline.METRIC_DROPPED).counter());
+            assertNotNull(registry.find(BrainStateCapturePipeline.METRIC_COALESCED).counter());
+            assertNotNull(registry.find(BrainStateCapturePipeline.METRIC_BATCHES).counter());
+            assertEquals(0.0d, registry.find(BrainStateCapturePipeline.METRIC_QUEUE_DEPTH).gauge().value());
+        } finally {
+            pipeline.shutdown();
+        }
+    }
+
+    private static ProceedingJoinPoint joinPoint(long sessionId, String message) throws Throwable {
+        ProceedingJoinPoint pjp = mock(ProceedingJoinPoint.class);
+        when(pjp.getArgs()).thenReturn(new Object[]{
+                ChatRequestDto.builder().sessionId(sessionId).message(message).build(), null});
+        when(pjp.proceed()).thenReturn(ChatResult.of("answer", "model", true));
+        return pjp;
+    }
+}
@@ -85,6 +85,52 @@ class GraphRagChunkingServiceTest {
         verify(brain).recordChunks(anyList());
     }
 
+    @Test
+    void ingestConversationTurnsPersistsWholeBatchInOneWrite() {
+        BrainStateProperties props = new BrainStateProperties();
+        NamedEntityExtractor extractor = text -> List.of("Alpha", "Beta");
+        VectorStoreService vectorStoreService = mock(VectorStoreService.class);
+        Neo4jKgChunkWriter writer = mock(Neo4jKgChunkWriter.class);
+        BrainStateService brain = mock(BrainStateService.class);
+        when(writer.writeChunks(anyList())).thenReturn(new Neo4jKgChunkWriter.WriteReport(
+                false, "disabled", "disabled", 0, 0, 0, "", null));
+
+        GraphRagChunkingService service = new GraphRagChunkingService(
+                props,
+                new DocumentChunkingService(),
+                extractor,
+                writer,
+                new UniversalContextLexicon(),
+                vectorStoreService,
+                brain,
+                mock(ChatMessageRepository.class));
+
+        GraphRagChunkingService.IngestReport report = service.ingestConversationTurns(List.of(
+                new GraphRagChunkingService.ConversationTurn("s1", "Alpha helps Beta near the coast",
+                        "Beta answers Alpha about the harbor"),
+                new GraphRagChunkingService.ConversationTurn("s1", "Does Alpha still trust Beta today",
+                        null)));
+
+        assertTrue(report.enabled());
+        assertEquals(BrainStateText.hash12("s1"), report.sessionId());
+        assertEquals(3, report.chunkCount());
+        assertEquals(2, report.backend().get("batchTurnCount"));
+        assertEquals(3, report.backend().get("persistedChunkCount"));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, Object>> metaCaptor = ArgumentCaptor.forClass(Map.class);
+        verify(vectorStoreService, org.mockito.Mockito.times(3)).enqueue(
+                org.mockito.ArgumentMatchers.startsWith("brain-chunk:"),
+                org.mockito.ArgumentMatchers.eq("s1"),
+                anyString(),
+                metaCaptor.capture());
+        assertEquals(List.of("USER", "ASSISTANT", "USER"), metaCaptor.getAllValues().stream()
+                .map(meta -> meta.get("source_tag"))
+                .toList());
+        verify(brain, org.mockito.Mockito.times(1)).recordChunks(anyList());
+        verify(writer, org.mockito.Mockito.times(1)).writeChunks(anyList());
+    }
+
     @Test
     void ingestTextClassifiesBrainStateCancellationWithoutRawLeak() {
         BrainStateProperties props = new BrainStateProperties();
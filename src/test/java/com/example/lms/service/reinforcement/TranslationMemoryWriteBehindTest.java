@@ -0,0 +1,196 @@
+package com.example.lms.service.reinforcement;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TranslationMemoryWriteBehindTest {
+
+    private static final String[] HASHES = {"h0", "h1", "h2", "h3", "h4", "h5"};
+    private static final String[] SESSIONS = {"s0", "s1"};
+
+    private DriverManagerDataSource deferredDb;
+    private TranslationMemoryWriteBehind writeBehind;
+
+    @BeforeEach
+    void setUp() {
+        deferredDb = database("tm_deferred");
+    }
+
+    @AfterEach
+    void tearDown() {
+        new JdbcTemplate(deferredDb).execute("DROP TABLE translation_memory");
+    }
+
+    @Test
+    void unknownHashesAndAFullBufferFallBackToTheInlinePath() {
+        writeBehind = writeBehind(deferredDb, 2, 2);
+        assertFalse(writeBehind.addHit("h0"), "never seen in the table");
+
+        writeBehind.markPersisted("h0");
+        writeBehind.markPersisted("h1");
+        writeBehind.markPersisted("h2");
+        assertTrue(writeBehind.addHit("h0"));
+        assertTrue(writeBehind.addHit("h1"));
+        assertFalse(writeBehind.addHit("h2"), "buffer holds two hashes");
+        assertTrue(writeBehind.addHit("h0"), "already pending hashes still merge");
+        assertEquals(1, writeBehind.stats().refused());
+
+        assertEquals(2, writeBehind.flush());
+        assertEquals(2, hitCount(deferredDb, "h0"));
+        assertTrue(writeBehind.addHit("h2"));
+    }
+
+    @Test
+    void readersSeePendingHitsAndEnergyBeforeTheFlush() {
+        writeBehind = writeBehind(deferredDb, 100, 1_000);
+        writeBehind.markPersisted("h1");
+        writeBehind.addHit("h1");
+        writeBehind.addHit("h1");
+        writeBehind.setEnergy("h2", null, -5.0, 0.5);
+
+        assertEquals(2, writeBehind.pendingHits("h1"));
+        assertEquals(0, writeBehind.pendingHits("h0"));
+        writeBehind.setEnergy("h3", "s1", -9.0, 0.5);
+        assertEquals(-5.0, writeBehind.effectiveEnergy("h2", "s0", -1.0));
+        assertEquals(-1.0, writeBehind.effectiveEnergy("h1", "s0", -1.0));
+        assertEquals(-9.0, writeBehind.effectiveEnergy("h3", "s1", null));
+        assertNull(writeBehind.effectiveEnergy("h3", "s0", null), "other session's write does not apply");
+
+        // Rows as fetched by findTop10...OrderByEnergyAsc: {hash, session, stored energy}.
+        List<Object[]> fetched = List.of(new Object[]{"h0", "s0", -3.0}, new Object[]{"h1", "s1", -2.0},
+                new Object[]{"h2", "s0", -1.0}, new Object[]{"h3", "s0", null});
+        List<Object[]> ranked = rank(fetched);
+        assertEquals(List.of("h2", "h0", "h1", "h3"), ranked.stream().map(r -> (String) r[0]).toList());
+
+        writeBehind.flush();
+        assertEquals(0, writeBehind.pendingHits("h1"));
+        assertEquals(fetched, rank(fetched));
+    }
+
+    @Test
+    void failedFlushKeepsItsUpdatesUnderNewerOnes() {
+        writeBehind = writeBehind(deferredDb, 100, 1_000);
+        JdbcTemplate jdbc = new JdbcTemplate(deferredDb);
+        writeBehind.markPersisted("h0");
+        writeBehind.addHit("h0");
+        writeBehind.setEnergy("h0", null, -1.0, 0.1);
+
+        jdbc.execute("ALTER TABLE translation_memory RENAME TO translation_memory_offline");
+        assertThrows(RuntimeException.class, writeBehind::flush);
+        jdbc.execute("ALTER TABLE translation_memory_offline RENAME TO translation_memory");
+
+        writeBehind.addHit("h0");
+        writeBehind.setEnergy("h0", null, -2.0, 0.2);
+        assertEquals(1, writeBehind.stats().failures());
+        assertEquals(2, writeBehind.pendingHits("h0"));
+
+        writeBehind.flush();
+        assertEquals(2, hitCount(deferredDb, "h0"));
+        assertEquals(-2.0, jdbc.queryForObject(
+                "SELECT energy FROM translation_memory WHERE source_hash = 'h0'", Double.class));
+    }
+
+    @Test
+    void observationsMergeTheirCountsAndColumns() {
+        writeBehind = writeBehind(deferredDb, 100, 1_000);
+        JdbcTemplate jdbc = new JdbcTemplate(deferredDb);
+        writeBehind.markPersisted("h1");
+        writeBehind.addHitAndScore("h1", 0.9);
+        assertTrue(writeBehind.addObservation("h1", null, true,
+                new TranslationMemoryWriteBehind.Observed(0.6, 0.3, null, "WEB"), -1.0, 0.5));
+        writeBehind.addHitAndScore("h1", 0.7);
+        assertTrue(writeBehind.addObservation("h1", "s1", false,
+                new TranslationMemoryWriteBehind.Observed(null, 0.4, 0.8, null), -2.0, 0.4));
+
+        TranslationMemoryWriteBehind.Queued queued = writeBehind.queued("h1");
+        assertEquals(4, queued.hits());
+        assertEquals(1, queued.successes());
+        assertEquals(1, queued.failures());
+        assertEquals(new TranslationMemoryWriteBehind.Observed(0.7, 0.4, 0.8, "WEB"), queued.observed(),
+                "a bump after the replacement keeps the larger score");
+        assertNull(writeBehind.queued("h2"));
+
+        writeBehind.flush();
+        Map<String, Object> row = jdbc.queryForMap("SELECT * FROM translation_memory WHERE source_hash = 'h1'");
+        assertEquals(5, row.get("HIT_COUNT"));
+        assertEquals(1, row.get("SUCCESS_COUNT"));
+        assertEquals(1, row.get("FAILURE_COUNT"));
+        assertEquals(0.7, row.get("SCORE"));
+        assertEquals(0.4, row.get("Q_VALUE"));
+        assertEquals(0.8, row.get("CONFIDENCE_SCORE"));
+        assertEquals("WEB", row.get("SOURCE_TAG"));
+        assertEquals(-2.0, row.get("ENERGY"), "h1 belongs to s1");
+    }
+
+    @Test
+    void shutdownFlushesWhatIsPending() {
+        writeBehind = new TranslationMemoryWriteBehind(new JdbcTemplate(deferredDb),
+                new DataSourceTransactionManager(deferredDb), 60_000L, 100, 1_000, Duration.ofMinutes(10));
+        writeBehind.start();
+        writeBehind.markPersisted("h0");
+        writeBehind.addHit("h0");
+
+        writeBehind.stop();
+
+        assertEquals(1, hitCount(deferredDb, "h0"));
+        assertFalse(writeBehind.addHit("h0"), "stopped buffers refuse new updates");
+    }
+
+    private List<Object[]> rank(List<Object[]> rows) {
+        return writeBehind.rankByEnergy(rows, r -> (String) r[0], r -> (String) r[1], r -> (Double) r[2]);
+    }
+
+    private static TranslationMemoryWriteBehind writeBehind(DriverManagerDataSource db, int maxBatch,
+                                                            int maxPending) {
+        // No scheduled flusher: the tests flush explicitly.
+        return new TranslationMemoryWriteBehind(new JdbcTemplate(db), new DataSourceTransactionManager(db), 0L,
+                maxBatch, maxPending, Duration.ofMinutes(10));
+    }
+
+    private static DriverManagerDataSource database(String name) {
+        DriverManagerDataSource db = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(db);
+        jdbc.execute("""
+                CREATE TABLE translation_memory (
+                    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                    source_hash VARCHAR(64) NOT NULL UNIQUE,
+                    session_id VARCHAR(255),
+                    hit_count INT NOT NULL,
+                    success_count INT NOT NULL DEFAULT 0,
+                    failure_count INT NOT NULL DEFAULT 0,
+                    score DOUBLE NOT NULL,
+                    q_value DOUBLE NOT NULL DEFAULT 0,
+                    confidence_score DOUBLE,
+                    source_tag VARCHAR(32),
+                    energy DOUBLE,
+                    temperature DOUBLE,
+                    last_used_at TIMESTAMP,
+                    updated_at TIMESTAMP)""");
+        // h5 is never inserted: updates for it must affect nothing on either path.
+        for (int i = 0; i < HASHES.length - 1; i++) {
+            jdbc.update("INSERT INTO translation_memory (source_hash, session_id, hit_count, score) VALUES (?, ?, ?, ?)",
+                    HASHES[i], i == 0 ? null : SESSIONS[i % SESSIONS.length], i, 0.25 * (i % 3));
+        }
+        return db;
+    }
+
+    private static int hitCount(DriverManagerDataSource db, String hash) {
+        return new JdbcTemplate(db).queryForObject(
+                "SELECT hit_count FROM translation_memory WHERE source_hash = ?", Integer.class, hash);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.lms.service.trace;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ChatTraceRecordMigrationTest {
+
+    @Test
+    void parsesEveryLegacyTracePrefix() {
+        String html = "<details>trace ⎔</details>";
+        String b64 = Base64.getEncoder().encodeToString(html.getBytes(StandardCharsets.UTF_8));
+
+        assertLegacy(TraceRecordCodec.Kind.LEGACY_HTML, html, ChatTraceRecordMigration.parse("⎔TRACE⎔" + html));
+        assertLegacy(TraceRecordCodec.Kind.LEGACY_HTML, html, ChatTraceRecordMigration.parse("?TRACE? " + html));
+        assertLegacy(TraceRecordCodec.Kind.LEGACY_HTML, html, ChatTraceRecordMigration.parse("⎔TRACE64⎔" + b64));
+        assertLegacy(TraceRecordCodec.Kind.LEGACY_HTML, html, ChatTraceRecordMigration.parse("?TRACE64?" + b64));
+        assertLegacy(TraceRecordCodec.Kind.LEGACY_HTML, "not*base64", ChatTraceRecordMigration.parse("?TRACE64?not*base64"));
+        assertLegacy(TraceRecordCodec.Kind.SNAPSHOT_REF, "snap-1", ChatTraceRecordMigration.parse("?TRACESNAP?snap-1"));
+    }
+
+    @Test
+    void ignoresNonTraceSystemMessages() {
+        assertNull(ChatTraceRecordMigration.parse(null));
+        assertNull(ChatTraceRecordMigration.parse("?MODEL?gpt"));
+        assertNull(ChatTraceRecordMigration.parse("RSUM: summary"));
+    }
+
+    private static void assertLegacy(TraceRecordCodec.Kind kind, String text, ChatTraceRecordMigration.Legacy legacy) {
+        assertEquals(kind, legacy.kind());
+        assertEquals(text, legacy.text());
+    }
+}
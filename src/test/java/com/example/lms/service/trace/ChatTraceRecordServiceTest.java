@@ -0,0 +1,100 @@
+package com.example.lms.service.trace;
+
+import com.example.lms.domain.ChatTraceRecord;
+import com.example.lms.repository.ChatTraceRecordRepository;
+import com.example.lms.search.TraceStore;
+import com.example.lms.service.NaverSearchService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ChatTraceRecordServiceTest {
+
+    private final ChatTraceRecordRepository repository = mock(ChatTraceRecordRepository.class);
+    private final TraceHtmlBuilder builder = new TraceHtmlBuilder(null);
+    private final ChatTraceRecordService service = new ChatTraceRecordService(repository, builder, 16);
+
+    @AfterEach
+    void tearDown() {
+        TraceStore.clear();
+    }
+
+    @Test
+    void persistsEncodedPanelAndRendersItOnceThroughTheLru() {
+        NaverSearchService.SearchTrace trace = new NaverSearchService.SearchTrace();
+        trace.provider = "naver";
+        trace.steps.add(new NaverSearchService.SearchStep("q", 3, 2, 40L));
+        Map<String, Object> meta = Map.of("answer.mode", "NORMAL");
+        when(repository.save(any(ChatTraceRecord.class))).thenAnswer(inv -> {
+            ChatTraceRecord row = inv.getArgument(0);
+            row.setId(5L);
+            return row;
+        });
+
+        Long id = service.persist(9L, TraceRecord.capture(trace, List.of("snippet"), List.of(), null, meta));
+
+        ArgumentCaptor<ChatTraceRecord> saved = ArgumentCaptor.forClass(ChatTraceRecord.class);
+        verify(repository).save(saved.capture());
+        assertEquals(5L, id);
+        assertEquals(9L, saved.getValue().getSessionId());
+        assertEquals("PANEL", saved.getValue().getKind());
+        assertEquals(TraceRecordCodec.VERSION, saved.getValue().getCodecVersion());
+
+        when(repository.findById(5L)).thenReturn(Optional.of(saved.getValue()));
+        String html = service.renderHtml(5L);
+        assertEquals(builder.buildSplitPanel(trace, List.of("snippet"), List.of(), null, meta), html);
+        assertEquals(html, service.renderHtml(5L));
+        verify(repository, times(1)).findById(5L);
+    }
+
+    @Test
+    void legacyRecordsRenderAsRedactedSummariesOrSnapshotCards() {
+        when(repository.findById(1L)).thenReturn(Optional.of(row(TraceRecordCodec.Kind.LEGACY_HTML,
+                "<section>raw legacy html ownerToken=secret</section>")));
+        when(repository.findById(2L)).thenReturn(Optional.of(row(TraceRecordCodec.Kind.SNAPSHOT_REF, "snap_1")));
+        when(repository.findById(3L)).thenReturn(Optional.of(row(TraceRecordCodec.Kind.SNAPSHOT_REF, "../bad")));
+
+        String legacy = service.renderHtml(1L);
+        assertTrue(legacy.contains("traceHtml="));
+        assertFalse(legacy.contains("raw legacy html"));
+        assertFalse(legacy.contains("ownerToken"));
+        assertTrue(service.renderHtml(2L).contains("/api/diagnostics/trace/snapshots/snap_1/html"));
+        assertNull(service.renderHtml(3L));
+        assertNull(service.renderHtml(4L));
+    }
+
+    @Test
+    void persistAndRenderFailuresAreSoft() {
+        when(repository.save(any(ChatTraceRecord.class))).thenThrow(new IllegalStateException("db down"));
+        ChatTraceRecord corrupt = new ChatTraceRecord();
+        corrupt.setPayload(new byte[]{1, 2, 3});
+        when(repository.findById(7L)).thenReturn(Optional.of(corrupt));
+
+        assertNull(service.persist(1L, TraceRecord.capture(new NaverSearchService.SearchTrace(), null, null, null, null)));
+        assertNull(service.persist(1L, null));
+        assertNull(service.renderHtml(7L));
+        assertEquals("render", TraceStore.get("chat.traceRecord.suppressed.stage"));
+    }
+
+    private static ChatTraceRecord row(TraceRecordCodec.Kind kind, String text) {
+        ChatTraceRecord row = new ChatTraceRecord();
+        row.setSessionId(1L);
+        row.setKind(kind.name());
+        row.setPayload(TraceRecordCodec.encodeText(kind, text));
+        return row;
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.lms.service.trace;
+
+import com.example.lms.search.TraceStore;
+import com.example.lms.service.NaverSearchService;
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.rag.content.Content;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TraceRecordCodecTest {
+
+    private final TraceHtmlBuilder builder = new TraceHtmlBuilder(null);
+
+    @AfterEach
+    void tearDown() {
+        TraceStore.clear();
+    }
+
+    @Test
+    void decodedRecordRendersTheSamePanelAsTheEagerPath() {
+        NaverSearchService.SearchTrace trace = trace();
+        List<String> snippets = List.of("<b>first</b> snippet https://docs.spring.io/a", "second 한글 snippet");
+        List<Content> web = Arrays.asList(
+                content("[Spring Docs | docs.spring.io]\nBody text", Map.of("title", "Spring", "url", "https://docs.spring.io/a")),
+                null,
+                content("plain web text", Map.of("source", "https://example.com", "rank", 2, "score", 0.75d)));
+        List<Content> vector = List.of(content("vector chunk", Map.of("id", UUID.nameUUIDFromBytes(new byte[]{1}), "n", 7L)));
+        Map<String, Object> meta = meta();
+
+        String eager = builder.buildSplitPanel(trace, snippets, web, vector, meta);
+        byte[] bytes = TraceRecordCodec.encode(TraceRecord.capture(trace, snippets, web, vector, meta));
+        TraceRecord decoded = TraceRecordCodec.decode(bytes);
+        String lazy = builder.buildSplitPanelFromSanitized(decoded.rawTrace(), decoded.rawSnippets(),
+                decoded.webTopK(), decoded.vectorTopK(), decoded.safeMeta());
+
+        assertFalse(eager.isBlank());
+        assertEquals(eager, lazy);
+        assertEquals(TraceRecordCodec.Kind.PANEL, TraceRecordCodec.kindOf(bytes));
+        assertTrue(bytes.length < eager.getBytes(StandardCharsets.UTF_8).length,
+                "record " + bytes.length + "B vs html " + eager.length());
+    }
+
+    @Test
+    void disabledSectionsAndNullsSurviveRoundTrip() {
+        NaverSearchService.SearchTrace trace = new NaverSearchService.SearchTrace();
+        trace.siteFiltersApplied = null;
+
+        TraceRecord decoded = TraceRecordCodec.decode(TraceRecordCodec.encode(
+                new TraceRecord(trace, null, null, new ArrayList<>(), null)));
+
+        assertNull(decoded.rawSnippets());
+        assertNull(decoded.webTopK());
+        assertEquals(List.of(), decoded.vectorTopK());
+        assertNull(decoded.safeMeta());
+        assertNull(decoded.rawTrace().query);
+        assertNull(decoded.rawTrace().siteFiltersApplied);
+        assertEquals(builder.buildSplitPanel(trace, null, null, List.of(), null),
+                builder.buildSplitPanelFromSanitized(decoded.rawTrace(), null, null, decoded.vectorTopK(), null));
+    }
+
+    @Test
+    void legacyPayloadsAreTextRecordsAndCorruptInputIsRejected() {
+        byte[] html = TraceRecordCodec.encodeText(TraceRecordCodec.Kind.LEGACY_HTML, "<div>legacy ⎔</div>");
+        byte[] snap = TraceRecordCodec.encodeText(TraceRecordCodec.Kind.SNAPSHOT_REF, "snap-1");
+
+        assertEquals(TraceRecordCodec.Kind.LEGACY_HTML, TraceRecordCodec.kindOf(html));
+        assertEquals("<div>legacy ⎔</div>", TraceRecordCodec.decodeText(html));
+        assertEquals("snap-1", TraceRecordCodec.decodeText(snap));
+        assertThrows(IllegalArgumentException.class, () -> TraceRecordCodec.decode(html));
+        assertThrows(IllegalArgumentException.class, () -> TraceRecordCodec.kindOf(new byte[]{'A', 'T', 99, 1}));
+
+        byte[] truncated = Arrays.copyOf(TraceRecordCodec.encode(
+                TraceRecord.capture(trace(), List.of("s"), null, null, meta())), 12);
+        assertThrows(IllegalArgumentException.class, () -> TraceRecordCodec.decode(truncated));
+    }
+
+    private static NaverSearchService.SearchTrace trace() {
+        NaverSearchService.SearchTrace t = new NaverSearchService.SearchTrace();
+        t.steps.add(new NaverSearchService.SearchStep("q-label", 10, 4, 120L));
+        t.steps.add(new NaverSearchService.SearchStep(null, 0, 0, -1L));
+        t.domainFilterEnabled = true;
+        t.suffixApplied = "site:go.kr";
+        t.totalMs = 345L;
+        t.query = "query-label";
+        t.queryHash = "abc123";
+        t.queryLength = 42;
+        t.queryTokenBucket = "8-16";
+        t.provider = "hybrid";
+        t.reasonKeywordFilterDisabled = "few_results";
+        t.orgResolved = true;
+        t.orgCanonical = "행정안전부";
+        t.siteFiltersApplied.add("mois.go.kr");
+        return t;
+    }
+
+    private static Content content(String text, Map<String, Object> md) {
+        return Content.from(TextSegment.from(text, Metadata.from(md)));
+    }
+
+    private static Map<String, Object> meta() {
+        Map<String, Object> meta = new LinkedHashMap<>();
+        meta.put("answer.mode", "FALLBACK_EVIDENCE");
+        meta.put("web.await.timeoutMs", 1500);
+        meta.put("web.naver.calls", 3L);
+        meta.put("rerank.score", 0.875d);
+        meta.put("rerank.ratio", 0.5f);
+        meta.put("budget.remaining", new BigDecimal("12.50"));
+        meta.put("orch.strike", true);
+        meta.put("sessionId", 1234L);
+        meta.put("openai.api_key", "sk-should-not-survive-0123456789abcdef");
+        meta.put("rag.evidence.public", List.of(Map.of("title", "t", "source", "https://a.example", "rank", 1)));
+        meta.put("ml.router.events", List.of(Map.of("stage", "route", "score", 0.3d, "nested", List.of(1, 2L))));
+        meta.put("prompt.sections", null);
+        return meta;
+    }
+}
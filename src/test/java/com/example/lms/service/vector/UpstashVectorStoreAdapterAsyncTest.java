@@ -0,0 +1,297 @@
+package com.example.lms.service.vector;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.EmbeddingSearchResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Async upsert/query paths against a loopback server that mimics Upstash's {@code /upsert} and {@code /query}
+ * endpoints (JSON array bodies, {@code {"result": ...}} responses, per-request latency, injectable 429s).
+ */
+class UpstashVectorStoreAdapterAsyncTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Set<String> stored = ConcurrentHashMap.newKeySet();
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+    private final List<Integer> batchBytes = new CopyOnWriteArrayList<>();
+    private final AtomicInteger concurrent = new AtomicInteger();
+    private final AtomicInteger maxConcurrent = new AtomicInteger();
+    private final AtomicInteger rateLimited = new AtomicInteger();
+    private volatile int latencyMs = 30;
+    private volatile int rateLimitNext;
+    private volatile int failStatus;
+    private HttpServer server;
+    private UpstashVectorStoreAdapter adapter;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(16));
+        server.createContext("/upsert", this::upsert);
+        server.createContext("/query", this::query);
+        server.start();
+
+        adapter = new UpstashVectorStoreAdapter(WebClient.builder().build());
+        ReflectionTestUtils.setField(adapter, "restUrl",
+                "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort());
+        ReflectionTestUtils.setField(adapter, "apiKey", "test-token");
+        ReflectionTestUtils.setField(adapter, "namespace", "");
+        ReflectionTestUtils.setField(adapter, "writeEnabled", true);
+        ReflectionTestUtils.setField(adapter, "upsertMaxBatchPoints", 8);
+        ReflectionTestUtils.setField(adapter, "upsertMaxBatchBytes", 4_000);
+        ReflectionTestUtils.setField(adapter, "upsertMaxInFlight", 2);
+        ReflectionTestUtils.setField(adapter, "backoffMs", 10L);
+        ReflectionTestUtils.setField(adapter, "maxBackoffMs", 40L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        adapter.close();
+        server.stop(0);
+    }
+
+    @Test
+    void concurrentAddAllCallsAreMergedIntoCappedBatches() throws Exception {
+        ReflectionTestUtils.setField(adapter, "strictWriteDefault", true);
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        List<String> ids = new ArrayList<>();
+        for (int call = 0; call < 20; call++) {
+            List<String> callIds = List.of("c" + call + "-0", "c" + call + "-1", "c" + call + "-2");
+            ids.addAll(callIds);
+            writes.add(adapter.addAllAsync(callIds, embeddings(3), segments(callIds)));
+        }
+
+        CompletableFuture.allOf(writes.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+
+        assertThat(stored).containsExactlyInAnyOrderElementsOf(ids);
+        assertThat(batchSizes).allSatisfy(n -> assertThat(n).isLessThanOrEqualTo(8));
+        assertThat(batchBytes).allSatisfy(n -> assertThat(n).isLessThanOrEqualTo(4_000));
+        assertThat(batchSizes.size()).as("20 calls share requests").isLessThan(20);
+        assertThat(maxConcurrent.get()).isLessThanOrEqualTo(2);
+        assertThat(adapter.upsertPipelineStats()).containsEntry("sentPoints", 60L).containsEntry("queuedPoints", 0);
+    }
+
+    @Test
+    void rateLimitedUpsertIsRetriedWithBackoff() throws Exception {
+        rateLimitNext = 2;
+
+        adapter.addAllAsync(List.of("a", "b"), embeddings(2), segments(List.of("a", "b"))).get(10, TimeUnit.SECONDS);
+
+        assertThat(rateLimited.get()).isEqualTo(2);
+        assertThat(stored).containsExactlyInAnyOrder("a", "b");
+    }
+
+    @Test
+    void strictWriteFailsOnlyWhenNotAcknowledged() {
+        failStatus = 503;
+
+        CompletableFuture<Void> lenient = adapter.addAllAsync(List.of("a"), embeddings(1), segments(List.of("a")));
+        assertThat(lenient).succeedsWithin(java.time.Duration.ofSeconds(10));
+
+        TextSegment strict = TextSegment.from("strict", Metadata.from("strict_write", "true"));
+        CompletableFuture<Void> acked = adapter.addAllAsync(List.of("b"), embeddings(1), List.of(strict));
+        assertThatThrownBy(() -> acked.get(10, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasMessageContaining("status=503");
+        assertThatThrownBy(() -> adapter.addAll(List.of("c"), embeddings(1), List.of(strict)))
+                .isInstanceOf(IllegalStateException.class);
+
+        rateLimitNext = 100;
+        failStatus = 0;
+        CompletableFuture<Void> exhausted = adapter.addAllAsync(List.of("d"), embeddings(1), List.of(strict));
+        assertThatThrownBy(() -> exhausted.get(10, TimeUnit.SECONDS)).hasMessageContaining("status=429");
+        assertThat(rateLimited.get()).isEqualTo(4);
+        assertThat(stored).isEmpty();
+    }
+
+    @Test
+    void searchAsyncReturnsBeforeTheResponseArrives() throws Exception {
+        latencyMs = 300;
+        stored.add("doc-1");
+
+        long start = System.nanoTime();
+        CompletableFuture<EmbeddingSearchResult<TextSegment>> pending = adapter.searchAsync(
+                EmbeddingSearchRequest.builder().queryEmbedding(Embedding.from(new float[]{1f, 0f})).maxResults(3)
+                        .build());
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(300);
+
+        EmbeddingSearchResult<TextSegment> result = pending.get(10, TimeUnit.SECONDS);
+        assertThat(result.matches()).hasSize(1);
+        assertThat(result.matches().get(0).embeddingId()).isEqualTo("doc-1");
+        assertThat(result.matches().get(0).embedded().text()).isEqualTo("text of doc-1");
+    }
+
+    @Test
+    void blockingAddWaitsForTheRequestAndCloseDrainsTheQueue() {
+        adapter.add("blocking", Embedding.from(new float[]{0.5f, 0.5f}), TextSegment.from("hello"));
+        assertThat(stored).containsExactly("blocking");
+
+        latencyMs = 100;
+        for (int call = 0; call < 6; call++) {
+            adapter.addAllAsync(List.of("q" + call), embeddings(1), segments(List.of("q" + call)));
+        }
+        adapter.close();
+        assertThat(stored).hasSize(7);
+    }
+
+    @Test
+    void senderFailingSynchronouslyDrainsTheQueueWithoutRecursing() throws Exception {
+        UpstashUpsertCoalescer coalescer = new UpstashUpsertCoalescer((json, points) -> {
+            throw new IllegalStateException("client closed");
+        }, 1, 4_000, 1, 100_000);
+        List<String> points = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            points.add("{\"id\":\"p" + i + "\"}");
+        }
+
+        CompletableFuture<Void> future = coalescer.submit(points);
+
+        assertThatThrownBy(future::get).isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(coalescer.awaitIdle(java.time.Duration.ofSeconds(1))).isTrue();
+        UpstashUpsertCoalescer.Stats stats = coalescer.stats();
+        assertThat(stats.requests()).isEqualTo(50_000L);
+        assertThat(stats.failedRequests()).isEqualTo(50_000L);
+        assertThat(stats.inFlight()).isZero();
+    }
+
+    @Test
+    void failedSharedBatchIsResentPerSubmissionSoOnlyTheBadCallerFails() throws Exception {
+        List<String> bodies = new CopyOnWriteArrayList<>();
+        CompletableFuture<Void> holdFirst = new CompletableFuture<>();
+        UpstashUpsertCoalescer coalescer = new UpstashUpsertCoalescer((json, points) -> {
+            bodies.add(json);
+            Mono<Void> outcome = json.contains("bad")
+                    ? Mono.error(new IllegalStateException("rejected point"))
+                    : Mono.empty();
+            return bodies.size() == 1 ? Mono.fromFuture(holdFirst).then(outcome) : outcome;
+        }, 8, 4_000, 1, 100);
+
+        CompletableFuture<Void> first = coalescer.submit(List.of("{\"id\":\"first\"}"));
+        CompletableFuture<Void> lenient = coalescer.submit(List.of("{\"id\":\"a\"}", "{\"id\":\"bad\"}"));
+        CompletableFuture<Void> strict = coalescer.submit(List.of("{\"id\":\"s\"}"));
+        holdFirst.complete(null);
+
+        first.get(5, TimeUnit.SECONDS);
+        strict.get(5, TimeUnit.SECONDS);
+        assertThatThrownBy(() -> lenient.get(5, TimeUnit.SECONDS)).hasMessageContaining("rejected point");
+        assertThat(bodies).containsExactly(
+                "[{\"id\":\"first\"}]",
+                "[{\"id\":\"a\"},{\"id\":\"bad\"},{\"id\":\"s\"}]",
+                "[{\"id\":\"a\"},{\"id\":\"bad\"}]",
+                "[{\"id\":\"s\"}]");
+        assertThat(coalescer.awaitIdle(java.time.Duration.ofSeconds(1))).isTrue();
+        assertThat(coalescer.stats().retriedPoints()).isEqualTo(3L);
+    }
+
+    @Test
+    void blockingStrictWaitIsBoundedByTimeoutMsIncludingQueueTime() {
+        ReflectionTestUtils.setField(adapter, "upsertMaxInFlight", 1);
+        ReflectionTestUtils.setField(adapter, "timeoutMs", 300L);
+        latencyMs = 250;
+        adapter.addAllAsync(List.of("ahead"), embeddings(1), segments(List.of("ahead")));
+
+        TextSegment strict = TextSegment.from("strict", Metadata.from("strict_write", "true"));
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> adapter.addAll(List.of("late"), embeddings(1), List.of(strict)))
+                .hasCauseInstanceOf(java.util.concurrent.TimeoutException.class);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(450L);
+    }
+
+    private void upsert(HttpExchange exchange) throws IOException {
+        int now = concurrent.incrementAndGet();
+        maxConcurrent.accumulateAndGet(now, Math::max);
+        try {
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            sleep(latencyMs);
+            if (rateLimitNext > 0) {
+                rateLimitNext--;
+                rateLimited.incrementAndGet();
+                respond(exchange, 429, "{\"error\":\"Too many requests\"}");
+                return;
+            }
+            if (failStatus != 0) {
+                respond(exchange, failStatus, "{\"error\":\"unavailable\"}");
+                return;
+            }
+            JsonNode points = MAPPER.readTree(body);
+            batchSizes.add(points.size());
+            batchBytes.add(body.length);
+            points.forEach(p -> stored.add(p.path("id").asText()));
+            respond(exchange, 200, "{\"result\":\"Success\"}");
+        } finally {
+            concurrent.decrementAndGet();
+        }
+    }
+
+    private void query(HttpExchange exchange) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        sleep(latencyMs);
+        StringBuilder result = new StringBuilder("{\"result\":[");
+        int i = 0;
+        for (String id : stored) {
+            result.append(i++ > 0 ? "," : "").append("{\"id\":\"").append(id)
+                    .append("\",\"score\":0.9,\"data\":\"text of ").append(id).append("\",\"metadata\":{}}");
+        }
+        respond(exchange, 200, result.append("]}").toString());
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+
+    private static void sleep(int ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static List<Embedding> embeddings(int n) {
+        List<Embedding> out = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            out.add(Embedding.from(new float[]{0.1f * (i + 1), 0.2f}));
+        }
+        return out;
+    }
+
+    private static List<TextSegment> segments(List<String> ids) {
+        return ids.stream().map(id -> TextSegment.from("text of " + id)).toList();
+    }
+}
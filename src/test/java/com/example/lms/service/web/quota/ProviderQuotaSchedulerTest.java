@@ -0,0 +1,144 @@
+package com.example.lms.service.web.quota;
+
+import com.example.lms.search.TraceStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProviderQuotaSchedulerTest {
+
+    @AfterEach
+    void clearTrace() {
+        TraceStore.clear();
+    }
+
+    private static ProviderQuotaProperties props(double rate, int burst, long interactiveWaitMs, long backgroundWaitMs) {
+        ProviderQuotaProperties p = new ProviderQuotaProperties();
+        p.setEnabled(true);
+        p.setProviders(Map.of("brave", new ProviderQuotaProperties.Limit(rate, burst)));
+        p.setInteractiveMaxWaitMs(interactiveWaitMs);
+        p.setBackgroundMaxWaitMs(backgroundWaitMs);
+        return p;
+    }
+
+    @Test
+    void localBucketRefillsAtConfiguredRate() {
+        AtomicLong now = new AtomicLong(0L);
+        LocalProviderTokenBucket bucket = new LocalProviderTokenBucket(now::get);
+
+        assertEquals(0L, bucket.tryTake("brave", 2.0d, 1));
+        long wait = bucket.tryTake("brave", 2.0d, 1);
+        assertTrue(wait > 0L && wait <= 500L, "wait=" + wait);
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        assertEquals(0L, bucket.tryTake("brave", 2.0d, 1));
+    }
+
+    @Test
+    void queuesBrieflyInsteadOfDropping() {
+        ProviderQuotaScheduler s = new ProviderQuotaScheduler(props(20.0d, 1, 500L, 500L),
+                new LocalProviderTokenBucket(), null);
+
+        assertTrue(s.acquire("brave", ProviderQuotaPriority.INTERACTIVE));
+        // Bucket is empty now; the next token arrives after ~50ms, well inside the wait budget.
+        assertTrue(s.acquire("brave", ProviderQuotaPriority.INTERACTIVE));
+    }
+
+    @Test
+    void dropsWhenRefillExceedsWaitBudget() {
+        ProviderQuotaScheduler s = new ProviderQuotaScheduler(props(0.5d, 1, 50L, 50L),
+                new LocalProviderTokenBucket(), null);
+
+        assertTrue(s.acquire("brave", ProviderQuotaPriority.BACKGROUND));
+        long t0 = System.nanoTime();
+        assertFalse(s.acquire("brave", ProviderQuotaPriority.BACKGROUND));
+        // Fail fast: refill (2s) is beyond the budget, so we do not sit out the whole wait.
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0) < 1_000L);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> brave = (Map<String, Object>) s.snapshot().get("brave");
+        @SuppressWarnings("unchecked")
+        Map<String, Object> bg = (Map<String, Object>) brave.get("background");
+        assertEquals(1L, bg.get("granted"));
+        assertEquals(1L, bg.get("dropped"));
+    }
+
+    @Test
+    void callerCapShortensThePriorityWait() {
+        // Next token after ~200ms: inside the 2s background budget, beyond a 50ms caller cap.
+        ProviderQuotaScheduler s = new ProviderQuotaScheduler(props(5.0d, 1, 500L, 2_000L),
+                new LocalProviderTokenBucket(), null);
+
+        assertTrue(s.acquire("brave", ProviderQuotaPriority.BACKGROUND, 50L));
+        long t0 = System.nanoTime();
+        assertFalse(s.acquire("brave", ProviderQuotaPriority.BACKGROUND, 50L));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0) < 150L);
+        assertTrue(s.acquire("brave", ProviderQuotaPriority.BACKGROUND));
+    }
+
+    @Test
+    void interactivePreemptsQueuedBackground() throws Exception {
+        ProviderQuotaScheduler s = new ProviderQuotaScheduler(props(10.0d, 1, 2_000L, 2_000L),
+                new LocalProviderTokenBucket(), null);
+        assertTrue(s.acquire("brave", ProviderQuotaPriority.INTERACTIVE)); // drain the single token
+
+        List<String> order = new CopyOnWriteArrayList<>();
+        CountDownLatch backgroundQueued = new CountDownLatch(3);
+        Thread[] bg = new Thread[3];
+        for (int i = 0; i < bg.length; i++) {
+            bg[i] = new Thread(() -> {
+                backgroundQueued.countDown();
+                if (s.acquire("brave", ProviderQuotaPriority.BACKGROUND)) {
+                    order.add("bg");
+                }
+            });
+            bg[i].start();
+        }
+        backgroundQueued.await(1, TimeUnit.SECONDS);
+        Thread.sleep(20L);
+
+        assertTrue(s.acquire("brave", ProviderQuotaPriority.INTERACTIVE));
+        order.add("interactive");
+        for (Thread t : bg) {
+            t.join(5_000L);
+        }
+
+        // At most one background waiter can have been served before the interactive arrival.
+        assertTrue(order.indexOf("interactive") <= 1, order.toString());
+        assertEquals(4, order.size(), order.toString());
+    }
+
+    @Test
+    void unmanagedProviderIsAlwaysGranted() {
+        ProviderQuotaScheduler s = new ProviderQuotaScheduler(props(0.1d, 1, 0L, 0L),
+                new LocalProviderTokenBucket(), null);
+
+        assertFalse(s.manages("tavily"));
+        for (int i = 0; i < 5; i++) {
+            assertTrue(s.acquire("tavily", ProviderQuotaPriority.BACKGROUND));
+        }
+    }
+
+    @Test
+    void priorityResolvesFromTraceStoreMarker() {
+        assertEquals(ProviderQuotaPriority.INTERACTIVE, ProviderQuotaPriority.current());
+
+        Object prev = ProviderQuotaPriority.mark(ProviderQuotaPriority.BACKGROUND);
+        assertEquals(ProviderQuotaPriority.BACKGROUND, ProviderQuotaPriority.current());
+        ProviderQuotaPriority.restore(prev);
+        assertEquals(ProviderQuotaPriority.INTERACTIVE, ProviderQuotaPriority.current());
+
+        TraceStore.put("uaw.autolearn", true);
+        assertEquals(ProviderQuotaPriority.BACKGROUND, ProviderQuotaPriority.current());
+    }
+}
@@ -148,6 +148,7 @@ class ScheduledJobGovernanceContractTest {
     private static final String MANIFEST_TEXT = """
             ai.abandonware.nova.orch.storage.DegradedStorageDrainer=owner=nova-degraded-storage; enablement=internal guard via degraded-storage drain props and memory.enabled; schedule=nova.orch.degraded-storage.drain.fixed-delay-ms; sideEffect=file-write,memory-promotion; defaultBehavior=body guarded; noClassGateReason=uses runtime drain and memory guards
             ai.abandonware.nova.orch.storage.OutboxMicrometerMetrics=owner=nova-degraded-storage; enablement=internal guard via degraded-storage metrics props; schedule=nova.orch.degraded-storage.metrics.refresh-ms; sideEffect=read-only,metrics; defaultBehavior=body guarded; noClassGateReason=metrics refresh guard remains in degraded-storage ownership
+            com.abandonware.ai.agent.service.rag.bm25.Bm25IndexService=owner=bm25-index; enablement=internal guard bm25.nrt.enabled plus initial full-index cursor; schedule=bm25.nrt.pollMs and bm25.compaction.intervalMs; sideEffect=file-write,index-write; defaultBehavior=body guarded and idle until first rebuild; noClassGateReason=service remains active for BM25 retrieval and rebuilds
             com.example.lms.agent.AutonomousExplorationService=owner=agent-autonomous-exploration; enablement=class gate agent.autonomous-exploration.enabled; schedule=agent.autonomous-exploration.initial-delay-ms and agent.autonomous-exploration.period-ms; sideEffect=network,memory-promotion; defaultBehavior=disabled unless enabled; noClassGateReason=class-gated
             com.example.lms.agent.KnowledgeConsistencyVerifier=owner=agent-knowledge-consistency; enablement=class gate agent.knowledge-consistency.enabled; schedule=agent.knowledge-consistency.initial-delay-ms and agent.knowledge-consistency.period-ms; sideEffect=read-only,diagnostics; defaultBehavior=disabled unless enabled; noClassGateReason=class-gated
             com.example.lms.agent.KnowledgeCurationScheduler=owner=agent-knowledge-curation; enablement=class gate agent.knowledge-curation.enabled; schedule=agent.knowledge-curation.initial-delay-ms and agent.knowledge-curation.period-ms; sideEffect=memory-promotion,network; defaultBehavior=disabled unless enabled; noClassGateReason=class-gated
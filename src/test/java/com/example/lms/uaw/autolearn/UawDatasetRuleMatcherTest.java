@@ -0,0 +1,129 @@
+package com.example.lms.uaw.autolearn;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UawDatasetRuleMatcherTest {
+
+    private static final int FLAGS = Pattern.CASE_INSENSITIVE | Pattern.MULTILINE;
+
+    private static final List<String> REGEXES = List.of(
+            "^\\s*※\\s*\\[DEGRADED\\s+MODE\\]",
+            "^\\s*#{1,6}\\s*\\[DEGRADED\\s+MODE\\]",
+            "fallback:",
+            "^fallback:allowed:",
+            "foo|ba+r",
+            "(a|b)c\\d*x",
+            "colou?r\\b",
+            "[^\\]]]x+y",
+            "(?i)Kelvin",
+            "\\Qa.b\\E",
+            "(.)\\1z",
+            "gemma\\d+:\\d+b",
+            "(?<name>ab)+?cd",
+            "Ab{2,3}C",
+            "한국어\\s*답변",
+            "\\p{L}+test",
+            "😀?b|😀c",
+            "x*");
+
+    @Test
+    void extractsTheLiteralEachShippedPatternCannotMatchWithout() {
+        assertEquals(List.of("[degraded"),
+                UawDatasetRuleMatcher.requiredLiterals("^\\s*※\\s*\\[DEGRADED\\s+MODE\\]"));
+        assertEquals(List.of("[degraded"),
+                UawDatasetRuleMatcher.requiredLiterals("^\\s*#{1,6}\\s*\\[DEGRADED\\s+MODE\\]"));
+        assertEquals(List.of("fallback:"), UawDatasetRuleMatcher.requiredLiterals("fallback:"));
+        assertEquals(List.of("foo", "ba"), UawDatasetRuleMatcher.requiredLiterals("foo|ba+r"));
+        assertEquals(List.of("c"), UawDatasetRuleMatcher.requiredLiterals("(a|b)c\\d*x"));
+
+        // Anything the extractor does not fully understand stays unfiltered (always run).
+        assertNull(UawDatasetRuleMatcher.requiredLiterals("(?i)Kelvin"));
+        assertNull(UawDatasetRuleMatcher.requiredLiterals("\\Qa.b\\E"));
+        assertNull(UawDatasetRuleMatcher.requiredLiterals("(.)\\1z"));
+        assertNull(UawDatasetRuleMatcher.requiredLiterals("x*"));
+        assertNull(UawDatasetRuleMatcher.requiredLiterals("abc|"));
+        assertNull(UawDatasetRuleMatcher.requiredLiterals(Pattern.compile("abc", Pattern.COMMENTS)));
+    }
+
+    @Test
+    void reportsExactlyTheRulesThatRunningEveryPatternWouldMatch() {
+        List<UawDatasetRuleMatcher.RuleSpec> specs = new ArrayList<>();
+        UawDatasetFilterProperties.Scope[] scopes = UawDatasetFilterProperties.Scope.values();
+        for (int i = 0; i < REGEXES.size(); i++) {
+            // Mix single- and multi-pattern rules across all scopes.
+            List<Pattern> patterns = new ArrayList<>();
+            patterns.add(Pattern.compile(REGEXES.get(i), FLAGS));
+            if (i % 3 == 0) {
+                patterns.add(Pattern.compile(REGEXES.get((i + 7) % REGEXES.size()), FLAGS));
+            }
+            specs.add(new UawDatasetRuleMatcher.RuleSpec(scopes[i % scopes.length], patterns));
+            specs.add(new UawDatasetRuleMatcher.RuleSpec(scopes[(i + 1) % scopes.length], patterns));
+        }
+        specs.add(new UawDatasetRuleMatcher.RuleSpec(UawDatasetFilterProperties.Scope.ANSWER, List.of()));
+
+        UawDatasetRuleMatcher prefiltered = UawDatasetRuleMatcher.compile(specs, true);
+        UawDatasetRuleMatcher unfiltered = UawDatasetRuleMatcher.compile(specs, false);
+        assertTrue(prefiltered.literalCount() > 0);
+        assertEquals(0, unfiltered.literalCount());
+
+        String[] fragments = {"※ [DEGRADED MODE]", "## [degraded  mode]", "FALLBACK:", "fallback:allowed:x", "foo",
+                "baaar", "bc12x", "color ", "COLOUR", "]]xy", "kelvin", "KELVIN", "a.b", "aaz", "gemma4:26b",
+                "ababcd", "aBbC", "한국어 답변", "éétest", "😀b", "😀c", "b", "x", "\n", " ", "\t", "Z", "#"};
+        Random random = new Random(47L);
+        for (int sample = 0; sample < 5_000; sample++) {
+            String q = randomText(random, fragments);
+            String a = randomText(random, fragments);
+            String m = random.nextInt(5) == 0 ? "" : randomText(random, fragments);
+            BitSet expected = naive(specs, q, a, m);
+            assertEquals(expected, prefiltered.match(q, a, m), () -> "q=" + q + " a=" + a + " m=" + m);
+            assertEquals(expected, unfiltered.match(q, a, m));
+        }
+    }
+
+    private static String randomText(Random random, String[] fragments) {
+        StringBuilder sb = new StringBuilder();
+        int parts = random.nextInt(8);
+        for (int i = 0; i < parts; i++) {
+            String fragment = fragments[random.nextInt(fragments.length)];
+            if (random.nextBoolean() && fragment.length() > 1) {
+                // Cut fragments so near-misses of each literal show up as well.
+                fragment = fragment.substring(random.nextInt(fragment.length()));
+            }
+            sb.append(fragment);
+        }
+        return sb.toString();
+    }
+
+    /** The previous per-rule evaluation: every pattern of every rule against its scope's text. */
+    private static BitSet naive(List<UawDatasetRuleMatcher.RuleSpec> specs, String q, String a, String m) {
+        BitSet matched = new BitSet();
+        for (int i = 0; i < specs.size(); i++) {
+            UawDatasetRuleMatcher.RuleSpec spec = specs.get(i);
+            String haystack = switch (spec.scope()) {
+                case PROMPT -> q;
+                case ANSWER -> a;
+                case MODEL_USED -> m;
+            };
+            if (haystack == null || haystack.isBlank()) {
+                continue;
+            }
+            for (Pattern p : spec.patterns()) {
+                if (p.matcher(haystack).find()) {
+                    matched.set(i);
+                    break;
+                }
+            }
+        }
+        return matched;
+    }
+}
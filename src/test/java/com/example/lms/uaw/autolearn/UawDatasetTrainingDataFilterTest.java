@@ -8,7 +8,12 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.test.system.CapturedOutput;
 import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.yaml.snakeyaml.Yaml;
 
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -95,6 +100,107 @@ class UawDatasetTrainingDataFilterTest {
 
         assertTrue(filter.shouldExcludeDeprecated("question", "※ [DEGRADED MODE] fallback answer", "model"));
     }
+
+    @Test
+    void shippedRulesDecideExactlyAsWithoutTheLiteralPrefilter() throws Exception {
+        UawDatasetFilterProperties prefiltered = shippedProperties();
+        UawDatasetFilterProperties unfiltered = shippedProperties();
+        unfiltered.setLiteralPrefilter(false);
+        assertFalse(prefiltered.getRules().isEmpty());
+
+        // The shipped allow example is commented out; enable it so the override paths are exercised too.
+        for (UawDatasetFilterProperties props : List.of(prefiltered, unfiltered)) {
+            UawDatasetFilterProperties.Rule allow = new UawDatasetFilterProperties.Rule();
+            allow.setName("allow_model_used_fallback_whitelist");
+            allow.setGroup("modelUsed");
+            allow.setPriority(200);
+            allow.setAction(UawDatasetFilterProperties.Action.ALLOW);
+            allow.setScope(UawDatasetFilterProperties.Scope.MODEL_USED);
+            allow.setPatterns(List.of("^fallback:allowed:"));
+            List<UawDatasetFilterProperties.Rule> rules = new ArrayList<>(props.getRules());
+            rules.add(allow);
+            props.setRules(rules);
+        }
+
+        UawDatasetTrainingDataFilter fast = new UawDatasetTrainingDataFilter(prefiltered, null);
+        UawDatasetTrainingDataFilter reference = new UawDatasetTrainingDataFilter(unfiltered, null);
+
+        String[] answers = {
+                "", "   ", "plain answer", "※ [DEGRADED MODE] fallback answer", "intro\n  ※  [degraded   mode]\nbody",
+                "### [DEGRADED MODE]", "text [DEGRADED MODE] not at line start", "※ [DEGRADED MODE", "fallback:evidence",
+                "한국어 답변입니다.\n".repeat(400) + "※ [DEGRADED MODE]", "x".repeat(20_000)};
+        String[] questions = {"", "질문", "※ [DEGRADED MODE] q", " \n※[DEGRADED MODE]"};
+        String[] models = {"", "gemma4:26b", "gemma4:26b:fallback:evidence", "fallback:allowed:local", "FALLBACK:x",
+                "fallback"};
+        int exclusions = 0;
+        for (String q : questions) {
+            for (String a : answers) {
+                for (String m : models) {
+                    UawDatasetTrainingDataFilter.FilterDecision expected = reference.filter(q, a, m);
+                    assertEquals(expected, fast.filter(q, a, m), () -> "q=" + q + " m=" + m);
+                    exclusions += expected.accept() ? 0 : 1;
+                }
+            }
+        }
+        assertTrue(exclusions > 0);
+        assertEquals(UawDatasetTrainingDataFilter.DecisionType.ACCEPT_ALLOW_OVERRIDE,
+                fast.filter("q", "a", "fallback:allowed:local").decisionType());
+    }
+
+    @Test
+    void ruleChangesOnTheBoundPropertiesAreReloaded() {
+        UawDatasetFilterProperties props = new UawDatasetFilterProperties();
+        UawDatasetTrainingDataFilter filter = new UawDatasetTrainingDataFilter(props, null);
+        assertTrue(filter.filter("q", "answer with marker-one", "m").accept());
+
+        UawDatasetFilterProperties.Rule rule = new UawDatasetFilterProperties.Rule();
+        rule.setName("reloaded");
+        rule.setHard(true);
+        rule.setPatterns(new ArrayList<>(List.of("marker-one")));
+        props.setRules(new ArrayList<>(List.of(rule)));
+        assertEquals("reloaded", filter.filter("q", "answer with marker-one", "m").decisiveRule().name());
+
+        // In-place edits of a bound rule count as well.
+        rule.getPatterns().set(0, "marker-two");
+        assertTrue(filter.filter("q", "answer with marker-one", "m").accept());
+        assertFalse(filter.filter("q", "answer with MARKER-TWO", "m").accept());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static UawDatasetFilterProperties shippedProperties() throws Exception {
+        Map<String, Object> root;
+        try (InputStream in = Files.newInputStream(Path.of("main/resources/application-llm.yaml"))) {
+            root = new Yaml().load(in);
+        }
+        Map<String, Object> uaw = (Map<String, Object>) root.get("uaw");
+        Map<String, Object> config = (Map<String, Object>) ((Map<String, Object>) uaw.get("autolearn"))
+                .get("dataset-filter");
+        Map<String, Object> policy = (Map<String, Object>) config.get("override-policy");
+
+        UawDatasetFilterProperties props = new UawDatasetFilterProperties();
+        props.setLiteralPrefilter(!Boolean.FALSE.equals(config.get("literal-prefilter")));
+        props.getOverridePolicy().setStrictAllowOverrides(Boolean.TRUE.equals(policy.get("strict-allow-overrides")));
+        props.getOverridePolicy().setAllowOverridesSoftExcludeGroups(
+                (List<String>) policy.get("allow-overrides-soft-exclude-groups"));
+        props.getOverridePolicy().setAllowGroupOverrideMatrix(
+                (Map<String, List<String>>) policy.get("allow-group-override-matrix"));
+
+        List<UawDatasetFilterProperties.Rule> rules = new ArrayList<>();
+        for (Map<String, Object> raw : (List<Map<String, Object>>) config.get("rules")) {
+            UawDatasetFilterProperties.Rule rule = new UawDatasetFilterProperties.Rule();
+            rule.setName((String) raw.get("name"));
+            rule.setGroup((String) raw.get("group"));
+            rule.setPriority((Integer) raw.get("priority"));
+            rule.setAction(UawDatasetFilterProperties.Action.valueOf((String) raw.get("action")));
+            rule.setHard(Boolean.TRUE.equals(raw.get("hard")));
+            rule.setScope(UawDatasetFilterProperties.Scope.valueOf((String) raw.get("scope")));
+            rule.setPatterns((List<String>) raw.get("patterns"));
+            rules.add(rule);
+        }
+        props.setRules(rules);
+        return props;
+    }
+
     private static <T> ObjectProvider<T> provider(T value) {
         return new ObjectProvider<>() {
             @Override
@@ -0,0 +1,128 @@
+package com.example.lms.uaw.autolearn;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UawJsonlAppenderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void concurrentAppendsAreCoalescedIntoGroupCommits() throws Exception {
+        Path file = tempDir.resolve("train_rag.jsonl");
+        UawJsonlAppender appender = new UawJsonlAppender(file, options(UawJsonlAppender.Durability.BATCH));
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<Boolean>> tasks = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                tasks.add(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        assertTrue(appender.append("{\"t\":" + thread + ",\"i\":" + i + "}"));
+                    }
+                    return true;
+                });
+            }
+            for (Future<Boolean> f : pool.invokeAll(tasks)) {
+                assertTrue(f.get());
+            }
+        } finally {
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+        }
+
+        UawJsonlAppender.Stats stats = appender.stats();
+        appender.close();
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(1600, lines.size());
+        assertEquals(1600, new HashSet<>(lines).size());
+        assertTrue(lines.stream().allMatch(l -> l.startsWith("{\"t\":") && l.endsWith("}")));
+        assertTrue(stats.groups() < 1600, "groups " + stats.groups());
+        assertEquals(stats.groups(), stats.forces(), "BATCH durability forces every group");
+    }
+
+    @Test
+    void noneDurabilityNeverForces() throws Exception {
+        Path file = tempDir.resolve("none.jsonl");
+        UawJsonlAppender appender = new UawJsonlAppender(file, options(UawJsonlAppender.Durability.NONE));
+        for (int i = 0; i < 20; i++) {
+            assertTrue(appender.append("{\"i\":" + i + "}"));
+        }
+        assertEquals(0L, appender.stats().forces());
+        appender.close();
+        assertEquals(20, Files.readAllLines(file).size());
+    }
+
+    @Test
+    void holdsTheFileLockUntilClosedAndRejectsLaterAppends() throws Exception {
+        Path file = tempDir.resolve("locked.jsonl");
+        UawJsonlAppender appender = new UawJsonlAppender(file, UawJsonlAppender.Options.defaults());
+        assertTrue(appender.append("{\"a\":1}"));
+
+        try (FileChannel other = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            assertThrows(OverlappingFileLockException.class, other::tryLock);
+        }
+
+        appender.close();
+        assertFalse(appender.append("{\"a\":2}"));
+        try (FileChannel other = FileChannel.open(file, StandardOpenOption.WRITE);
+             FileLock lock = other.tryLock()) {
+            assertNotNull(lock);
+        }
+        assertEquals(List.of("{\"a\":1}"), Files.readAllLines(file));
+    }
+
+    @Test
+    void idleAppenderReleasesTheLock() throws Exception {
+        Path file = tempDir.resolve("idle.jsonl");
+        UawJsonlAppender appender = new UawJsonlAppender(file,
+                new UawJsonlAppender.Options(UawJsonlAppender.Durability.INTERVAL, 10L, 50L));
+        try {
+            assertTrue(appender.append("{\"a\":1}"));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            FileLock lock = null;
+            while (lock == null && System.nanoTime() < deadline) {
+                try (FileChannel other = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                    lock = other.tryLock();
+                    if (lock != null) {
+                        lock.release();
+                    }
+                } catch (OverlappingFileLockException stillHeld) {
+                    Thread.sleep(20L);
+                }
+            }
+            assertNotNull(lock, "idle appender should release the file lock");
+            assertTrue(appender.stats().forces() >= 1);
+            assertTrue(appender.append("{\"a\":2}"));
+        } finally {
+            appender.close();
+        }
+        assertEquals(List.of("{\"a\":1}", "{\"a\":2}"), Files.readAllLines(file));
+    }
+
+    private static UawJsonlAppender.Options options(UawJsonlAppender.Durability durability) {
+        return new UawJsonlAppender.Options(durability, 1000L, 30_000L);
+    }
+}
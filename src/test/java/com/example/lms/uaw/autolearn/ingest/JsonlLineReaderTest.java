@@ -0,0 +1,80 @@
+package com.example.lms.uaw.autolearn.ingest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class JsonlLineReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void readsLinesWithExactOffsetsAcrossTinyBuffers() throws Exception {
+        String content = "{\"q\":\"한국어 질문\"}\r\n\n{\"q\":\"second\"}\n{\"q\":\"tail without newline ✓\"}";
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        Path file = tempDir.resolve("lines.jsonl");
+        Files.write(file, bytes);
+
+        for (int bufferBytes : new int[]{16, 17, 31, 64 * 1024}) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                JsonlLineReader reader = new JsonlLineReader(channel, 0L, bufferBytes);
+                List<String> lines = new ArrayList<>();
+                List<Long> offsets = new ArrayList<>();
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lines.add(line);
+                    offsets.add(reader.offset());
+                }
+                assertEquals(List.of("{\"q\":\"한국어 질문\"}", "", "{\"q\":\"second\"}",
+                        "{\"q\":\"tail without newline ✓\"}"), lines, "buffer " + bufferBytes);
+                int firstEnd = indexOf(bytes, (byte) '\n', 0) + 1;
+                int secondEnd = indexOf(bytes, (byte) '\n', firstEnd) + 1;
+                int thirdEnd = indexOf(bytes, (byte) '\n', secondEnd) + 1;
+                assertEquals(List.of((long) firstEnd, (long) secondEnd, (long) thirdEnd, (long) bytes.length), offsets);
+            }
+        }
+    }
+
+    @Test
+    void resumesFromPersistedOffset() throws Exception {
+        Path file = tempDir.resolve("resume.jsonl");
+        Files.writeString(file, "a\nbb\nccc\n", StandardCharsets.UTF_8);
+
+        long checkpoint;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            JsonlLineReader reader = new JsonlLineReader(channel, 0L, 16);
+            reader.readLine();
+            reader.readLine();
+            checkpoint = reader.offset();
+        }
+        assertEquals(5L, checkpoint);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            JsonlLineReader reader = new JsonlLineReader(channel, checkpoint, 16);
+            assertEquals("ccc", reader.readLine());
+            assertEquals(9L, reader.offset());
+            assertNull(reader.readLine());
+            assertEquals(9L, reader.offset());
+        }
+    }
+
+    private static int indexOf(byte[] bytes, byte value, int from) {
+        for (int i = from; i < bytes.length; i++) {
+            if (bytes[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -6,21 +6,29 @@ import com.example.lms.service.VectorStoreService;
 import com.example.lms.service.vector.VectorSidService;
 import com.example.lms.trace.SafeRedactor;
 import com.example.lms.uaw.autolearn.UawAutolearnProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
+import org.slf4j.MDC;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -40,6 +48,7 @@ class TrainRagIngestServiceTest {
     @AfterEach
     void tearDown() {
         TraceStore.clear();
+        MDC.clear();
     }
 
     @Test
@@ -437,4 +446,132 @@ class TrainRagIngestServiceTest {
         assertTrue(state.contains(SafeRedactor.hashValue(absolute)));
         assertTrue(state.contains("\"fileLength\""));
     }
+
+    @Test
+    void crashAndPreemptionAtArbitraryOffsetsResumeWithoutGaps() throws Exception {
+        Path jsonl = tempDir.resolve("train_rag_resume.jsonl");
+        StringBuilder content = new StringBuilder();
+        int totalLines = 53;
+        for (int i = 0; i < totalLines; i++) {
+            content.append(i % 11 == 7 ? "not-json" : sampleLine(i)).append(i % 5 == 0 ? "\r\n" : "\n");
+        }
+        Files.writeString(jsonl, content.toString());
+        byte[] bytes = Files.readAllBytes(jsonl);
+        List<Long> lineEnds = new ArrayList<>();
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == '\n') {
+                lineEnds.add((long) i + 1);
+            }
+        }
+
+        for (long seed = 1; seed <= 12; seed++) {
+            Random random = new Random(seed);
+            Path statePath = tempDir.resolve("ingest_state_resume_" + seed + ".json");
+            UawAutolearnProperties props = new UawAutolearnProperties();
+            props.getRetrain().setIngestStatePath(statePath.toString());
+            props.getRetrain().setMaxIngestLinesPerRun(8 + random.nextInt(30));
+            props.getRetrain().setMaxInflightBatches(1 + random.nextInt(3));
+
+            Set<String> persisted = new HashSet<>();
+            List<String> pending = new ArrayList<>();
+            VectorStoreService vectorStoreService = mock(VectorStoreService.class);
+            doAnswer(inv -> {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> meta = (Map<String, Object>) inv.getArgument(3);
+                synchronized (pending) {
+                    pending.add(String.valueOf(meta.get("ts")));
+                }
+                return null;
+            }).when(vectorStoreService).enqueue(anyString(), anyString(), anyString(), any());
+            doAnswer(inv -> {
+                synchronized (pending) {
+                    boolean crash = random.nextInt(4) == 0;
+                    if (!crash) {
+                        persisted.addAll(pending);
+                    }
+                    pending.clear();
+                    if (crash) {
+                        throw new IllegalStateException("embedding backend down");
+                    }
+                }
+                return null;
+            }).when(vectorStoreService).flush();
+            TrainRagIngestService service =
+                    new TrainRagIngestService(vectorStoreService, mock(VectorSidService.class), props);
+
+            long offset = 0L;
+            for (int run = 0; run < 200 && offset < bytes.length; run++) {
+                int abortAfter = random.nextInt(40);
+                int[] polls = {0};
+                service.ingestNewSamples(jsonl, "ds", () -> ++polls[0] > abortAfter);
+                offset = stateOffset(statePath);
+
+                assertTrue(offset == 0L || lineEnds.contains(offset), "seed " + seed + " offset " + offset);
+                for (int line = 0; line < lineEnds.size() && lineEnds.get(line) <= offset; line++) {
+                    assertTrue(line % 11 == 7 || persisted.contains("line-" + line),
+                            "seed " + seed + ": line " + line + " checkpointed before it was persisted");
+                }
+            }
+            assertEquals(bytes.length, offset, "seed " + seed + " did not finish");
+            for (int line = 0; line < totalLines; line++) {
+                assertTrue(line % 11 == 7 || persisted.contains("line-" + line), "seed " + seed + " lost line " + line);
+            }
+        }
+    }
+
+    @Test
+    void upsertThreadSeesTheCallersTraceAndMdc() throws Exception {
+        VectorStoreService vectorStoreService = mock(VectorStoreService.class);
+        List<Object> seen = new ArrayList<>();
+        doAnswer(inv -> {
+            seen.add(Thread.currentThread().getName());
+            seen.add(TraceStore.get("uaw.retrain.runId"));
+            seen.add(MDC.get("traceId"));
+            return null;
+        }).when(vectorStoreService).flush();
+        UawAutolearnProperties props = new UawAutolearnProperties();
+        props.getRetrain().setIngestStatePath(tempDir.resolve("ingest_state_context.json").toString());
+        props.getRetrain().setMaxIngestLinesPerRun(10);
+        Path jsonl = tempDir.resolve("train_rag_context.jsonl");
+        Files.writeString(jsonl, sampleLine(0) + "\n");
+
+        TraceStore.put("uaw.retrain.runId", "run-7");
+        MDC.put("traceId", "t-123");
+        TrainRagIngestService service = new TrainRagIngestService(vectorStoreService, mock(VectorSidService.class), props);
+        assertEquals(1, service.ingestNewSamples(jsonl, "ds", () -> false));
+
+        assertEquals(List.of("uaw-train-ingest-upsert", "run-7", "t-123"), seen);
+    }
+
+    @Test
+    void truncatedOrRotatedFileRestartsFromTheBeginning() throws Exception {
+        VectorStoreService vectorStoreService = mock(VectorStoreService.class);
+        UawAutolearnProperties props = new UawAutolearnProperties();
+        Path statePath = tempDir.resolve("ingest_state_rotated.json");
+        props.getRetrain().setIngestStatePath(statePath.toString());
+        props.getRetrain().setMaxIngestLinesPerRun(10);
+        Path jsonl = tempDir.resolve("train_rag_rotated.jsonl");
+        Files.writeString(jsonl, sampleLine(0) + "\n" + sampleLine(1) + "\n" + sampleLine(2) + "\n");
+
+        TrainRagIngestService service = new TrainRagIngestService(vectorStoreService, mock(VectorSidService.class), props);
+        assertEquals(3, service.ingestNewSamples(jsonl, "ds", () -> false));
+        assertEquals(Files.size(jsonl), stateOffset(statePath));
+
+        Files.writeString(jsonl, sampleLine(9) + "\n");
+        assertEquals(1, service.ingestNewSamples(jsonl, "ds", () -> false));
+        assertEquals(Files.size(jsonl), stateOffset(statePath));
+        assertEquals(0, service.ingestNewSamples(jsonl, "ds", () -> false));
+    }
+
+    private static String sampleLine(int i) {
+        return "{\"question\":\"q" + i + "\",\"answer\":\"a" + i + "\",\"sessionId\":\"s1\",\"ts\":\"line-" + i
+                + "\",\"validation\":{\"accepted\":true,\"rejectReasons\":[],\"anomalies\":{\"flags\":[]}}}";
+    }
+
+    private static long stateOffset(Path statePath) throws Exception {
+        if (!Files.exists(statePath)) {
+            return 0L;
+        }
+        return new ObjectMapper().readTree(Files.readString(statePath)).path("offset").asLong();
+    }
 }
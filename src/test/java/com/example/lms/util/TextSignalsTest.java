@@ -0,0 +1,155 @@
+package com.example.lms.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TextSignalsTest {
+
+    /** Realistic single-line queries/snippets; every signal must classify exactly like the regex it replaced. */
+    static final List<String> GOLDEN = List.of(
+            "원신에서 푸리나가 뭐야?",
+            "What is the difference between BM25 and SPLADE?",
+            "who   is the CEO of OpenAI",
+            "WHO IS 마비카",
+            "whois lookup for example.com",
+            "somewhat issue",
+            "스프링 부트 3.3에서 @Transactional REQUIRES_NEW 동작",
+            "2024년 청년 취업 지원금 신청 방법",
+            "GPT-4o vs Claude 성능 비교",
+            "ㅋㅋㅋ ㅎㅎ",
+            "ᄀ jamo only",
+            "   leading and trailing   ",
+            "tab\tseparated\ttokens",
+            "form\ffeed and\u000Bvertical tab",
+            "nbsp stays as is",
+            "12345",
+            "123a",
+            "",
+            " ",
+            "ABc dEF",
+            "x",
+            "서울대학교 병원 전문의 진료 예약",
+            "투자 수익률 계산기",
+            "genshin impact 캐릭터 공략",
+            "GENSHIN 스타레일 붕괴",
+            "근거 [W3] 와 [V12] 참조",
+            "무엇이든 물어보세요",
+            "뭐냐 이건",
+            "누구야?",
+            "Ｆｕｌｌｗｉｄｔｈ ＡＢＣ",
+            "İstanbul WHAT\tIS going on");
+
+    /** Inputs with line terminators, where the legacy ".*X.*" forms only match if a keyword's \\s+ spans the break. */
+    static final List<String> MULTI_LINE_GOLDEN = List.of(
+            "첫 줄\nsecond line [W1]",
+            "원신 공략\r\n푸리나",
+            "what\nis BM25",
+            "WHAT \r\n IS 마비카",
+            "intro\nwhat is BM25",
+            "what is\nBM25",
+            "what\nis\nwho\nis",
+            "who\n\nis",
+            "진단\n",
+            "\n",
+            "trailing CR only\r",
+            "GPT\u2028성능 12",
+            "what\u2028is",
+            "what\u0085is",
+            "병원\u2029예약",
+            "ABC\nDEF 123");
+
+    @Test
+    void charClassScannersMatchLegacyRegexes() {
+        for (String s : GOLDEN) {
+            assertThat(TextSignals.hasHangulSyllable(s)).as(s).isEqualTo(s.matches(".*[\\uAC00-\\uD7A3].*"));
+            assertThat(TextSignals.hasHangul(s)).as(s).isEqualTo(s.matches(".*\\p{IsHangul}.*"));
+            assertThat(TextSignals.hasAsciiLetter(s)).as(s).isEqualTo(s.matches(".*[A-Za-z].*"));
+            assertThat(TextSignals.hasAsciiDigit(s)).as(s).isEqualTo(s.matches(".*\\d.*"));
+            assertThat(TextSignals.hasAsciiLetterOrDigit(s)).as(s).isEqualTo(s.matches(".*[0-9a-zA-Z].*"));
+            assertThat(TextSignals.hasAsciiUpperRun(s, 2)).as(s).isEqualTo(s.matches(".*[A-Z]{2,}.*"));
+            assertThat(TextSignals.isAsciiDigits(s)).as(s).isEqualTo(s.matches("\\d+"));
+        }
+    }
+
+    @Test
+    void whitespaceHelpersMatchReplaceAllAndSplit() {
+        for (String s : GOLDEN) {
+            assertThat(TextSignals.collapseWhitespace(s)).as(s).isEqualTo(s.replaceAll("\\s+", " "));
+            assertThat(Arrays.asList(TextSignals.splitWhitespace(s))).as(s)
+                    .isEqualTo(Arrays.asList(s.split("\\s+")));
+        }
+        String clean = "already collapsed";
+        assertThat(TextSignals.collapseWhitespace(clean)).isSameAs(clean);
+        assertThat(TextSignals.collapseWhitespace(null)).isNull();
+    }
+
+    @Test
+    void keywordSetsMatchLegacyAlternations() {
+        TextSignals.KeywordSet definitional = TextSignals.KeywordSet.of(
+                "뭐야", "뭐냐", "누구야", "누구냐", "무엇", "what is", "who is");
+        TextSignals.KeywordSet subculture = TextSignals.KeywordSet.of(
+                "원신", "genshin", "마비카", "푸리나", "스타레일", "붕괴", "게임", "애니", "만화", "캐릭터", "공략");
+        TextSignals.KeywordSet highRisk = TextSignals.KeywordSet.of(
+                "진단", "처방", "증상", "법률", "소송", "형량", "투자", "수익률", "보험금");
+
+        for (String s : GOLDEN) {
+            assertThat(definitional.containsAny(s)).as(s)
+                    .isEqualTo(s.matches("(?i).*(뭐야|뭐냐|누구야|누구냐|무엇|what\\s+is|who\\s+is).*"));
+            assertThat(subculture.containsAny(s)).as(s).isEqualTo(s.toLowerCase(java.util.Locale.ROOT)
+                    .matches(".*(원신|genshin|마비카|푸리나|스타레일|붕괴|게임|애니|만화|캐릭터|공략).*"));
+            assertThat(highRisk.containsAny(s)).as(s)
+                    .isEqualTo(s.matches(".*(진단|처방|증상|법률|소송|형량|투자|수익률|보험금).*"));
+        }
+        assertThat(definitional.containsAny(null)).isFalse();
+    }
+
+    @Test
+    void singleLineFormsMatchLegacyRegexesOnMultiLineInput() {
+        TextSignals.KeywordSet definitional = TextSignals.KeywordSet.of(
+                "뭐야", "뭐냐", "누구야", "누구냐", "무엇", "what is", "who is");
+        TextSignals.KeywordSet subculture = TextSignals.KeywordSet.of(
+                "원신", "genshin", "마비카", "푸리나", "스타레일", "붕괴", "게임", "애니", "만화", "캐릭터", "공략");
+        TextSignals.KeywordSet highRisk = TextSignals.KeywordSet.of(
+                "진단", "처방", "증상", "법률", "소송", "형량", "투자", "수익률", "보험금");
+        TextSignals.KeywordSet strictDomain = TextSignals.KeywordSet.of("병원", "의료", "학회");
+
+        for (List<String> inputs : List.of(GOLDEN, MULTI_LINE_GOLDEN)) {
+            for (String s : inputs) {
+                boolean single = TextSignals.isSingleLine(s);
+                assertThat(single && TextSignals.hasHangulSyllable(s)).as(s)
+                        .isEqualTo(s.matches(".*[\\uAC00-\\uD7A3].*"));
+                assertThat(single && TextSignals.hasHangul(s)).as(s).isEqualTo(s.matches(".*\\p{IsHangul}.*"));
+                assertThat(single && TextSignals.hasAsciiLetter(s)).as(s).isEqualTo(s.matches(".*[A-Za-z].*"));
+                assertThat(single && TextSignals.hasAsciiDigit(s)).as(s).isEqualTo(s.matches(".*\\d.*"));
+                assertThat(single && TextSignals.hasAsciiLetterOrDigit(s)).as(s)
+                        .isEqualTo(s.matches(".*[0-9a-zA-Z].*"));
+                assertThat(single && TextSignals.hasAsciiUpperRun(s, 2)).as(s).isEqualTo(s.matches(".*[A-Z]{2,}.*"));
+
+                assertThat(definitional.matchesLine(s)).as(s)
+                        .isEqualTo(s.matches("(?i).*(뭐야|뭐냐|누구야|누구냐|무엇|what\\s+is|who\\s+is).*"));
+                assertThat(subculture.matchesLine(s)).as(s).isEqualTo(s.toLowerCase(java.util.Locale.ROOT)
+                        .matches(".*(원신|genshin|마비카|푸리나|스타레일|붕괴|게임|애니|만화|캐릭터|공략).*"));
+                assertThat(highRisk.matchesLine(s)).as(s)
+                        .isEqualTo(s.matches(".*(진단|처방|증상|법률|소송|형량|투자|수익률|보험금).*"));
+                assertThat(strictDomain.matchesLine(s)).as(s).isEqualTo(s.matches(".*(병원|의료|학회).*"));
+            }
+        }
+        assertThat(TextSignals.isSingleLine(null)).isFalse();
+        assertThat(definitional.matchesLine(null)).isFalse();
+    }
+
+    @Test
+    void multiLineInputIsClassifiedByContent() {
+        // The legacy ".*X.*" forms were always false here because '.' stops at line terminators.
+        String multiLine = "첫 줄\nsecond line [W1]";
+
+        assertThat(multiLine.matches(".*[\\uAC00-\\uD7A3].*")).isFalse();
+        assertThat(TextSignals.hasHangulSyllable(multiLine)).isTrue();
+        assertThat(TextSignals.hasAsciiDigit(multiLine)).isTrue();
+        assertThat(TextSignals.KeywordSet.of("second line").containsAny(multiLine)).isTrue();
+    }
+}